@@ -0,0 +1,4 @@
+void main(){
+    gl_FragData[0] = vec4(0, 1, 1, 1);
+    gl_FragData[1] = vec4(1, 1, 0, 1);
+}
@@ -0,0 +1,18 @@
+/*****************************************************************************
+ *                        Copyright Yumetech, Inc (c) 2008
+ *                               GLSL Shader Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+void main()
+{
+    gl_TexCoord[0] = gl_MultiTexCoord0;
+
+    gl_Position = ftransform();
+}
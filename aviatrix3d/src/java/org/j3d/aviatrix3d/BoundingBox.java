@@ -47,9 +47,6 @@ public class BoundingBox extends BoundingVolume
     /** The vertices of the box */
     private float[][] vert;
 
-    /** The transformed vertices of the box, used in checkIntersectionFrustum */
-    private float[][] xvert;
-
     /**
      * The default constructor with the sphere radius as one and
      * center at the origin.
@@ -63,11 +60,9 @@ public class BoundingBox extends BoundingVolume
         size = new float[3];
 
         vert = new float[8][];
-        xvert = new float[8][];
         for ( int i = 0; i < 8; i++ )
         {
             vert[i] = new float[3];
-            xvert[i] = new float[3];
         }
 
         max.w = 0;
@@ -629,71 +624,57 @@ public class BoundingBox extends BoundingVolume
     @Override
     public int checkIntersectionFrustum(Vector4f[] planes, Matrix4f mat)
     {
-        // transform the vertices of the bounding box
-        // for comparison with the view frustum
+        // Transform each vertex of the bounding box and count how many are
+        // on the inside of each plane of the view frustum. Everything is
+        // kept in locals so that the same bounds may be checked by several
+        // culling threads at once.
         float x;
         float y;
         float z;
 
-        for (int i = 0; i < 8; i++)
-        {
-            x = vert[i][0];
-            y = vert[i][1];
-            z = vert[i][2];
-
-            xvert[i][0] = mat.m00 * x + mat.m01 * y + mat.m02 * z + mat.m03;
-            xvert[i][1] = mat.m10 * x + mat.m11 * y + mat.m12 * z + mat.m13;
-            xvert[i][2] = mat.m20 * x + mat.m21 * y + mat.m22 * z + mat.m23;
-        }
-
-        int cnt;
-        int cnt2 = 0;
+        int in_0 = 0;
+        int in_1 = 0;
+        int in_2 = 0;
+        int in_3 = 0;
+        int in_4 = 0;
+        int in_5 = 0;
 
-        for(int p = 0; p < 6; p++)
+        for(int i = 0; i < 8; i++)
         {
-            cnt = 0;
-            if(planes[p].x * xvert[0][0] + planes[p].y * xvert[0][1] +
-                planes[p].z * xvert[0][2] + planes[p].w > 0 )
-                cnt++;
+            float[] v = vert[i];
 
-            if(planes[p].x * xvert[1][0] + planes[p].y * xvert[1][1] +
-                planes[p].z * xvert[1][2] + planes[p].w > 0 )
-                cnt++;
+            x = (mat.m00 * v[0] + mat.m01 * v[1] + mat.m02 * v[2] + mat.m03);
+            y = (mat.m10 * v[0] + mat.m11 * v[1] + mat.m12 * v[2] + mat.m13);
+            z = (mat.m20 * v[0] + mat.m21 * v[1] + mat.m22 * v[2] + mat.m23);
 
-            if(planes[p].x * xvert[2][0] + planes[p].y * xvert[2][1] +
-                planes[p].z * xvert[2][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[0].x * x + planes[0].y * y + planes[0].z * z + planes[0].w > 0)
+                in_0++;
 
-            if(planes[p].x * xvert[3][0] + planes[p].y * xvert[3][1] +
-                planes[p].z * xvert[3][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[1].x * x + planes[1].y * y + planes[1].z * z + planes[1].w > 0)
+                in_1++;
 
-            if(planes[p].x * xvert[4][0] + planes[p].y * xvert[4][1] +
-                planes[p].z * xvert[4][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[2].x * x + planes[2].y * y + planes[2].z * z + planes[2].w > 0)
+                in_2++;
 
-            if(planes[p].x * xvert[5][0] + planes[p].y * xvert[5][1] +
-                planes[p].z * xvert[5][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[3].x * x + planes[3].y * y + planes[3].z * z + planes[3].w > 0)
+                in_3++;
 
-            if(planes[p].x * xvert[6][0] + planes[p].y * xvert[6][1] +
-                planes[p].z * xvert[6][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[4].x * x + planes[4].y * y + planes[4].z * z + planes[4].w > 0)
+                in_4++;
 
-            if(planes[p].x * xvert[7][0] + planes[p].y * xvert[7][1] +
-                planes[p].z * xvert[7][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[5].x * x + planes[5].y * y + planes[5].z * z + planes[5].w > 0)
+                in_5++;
+        }
 
-            if(cnt == 0)
-            {
-                return FRUSTUM_ALLOUT;
-            }
+        if(in_0 == 0 || in_1 == 0 || in_2 == 0 ||
+           in_3 == 0 || in_4 == 0 || in_5 == 0)
+            return FRUSTUM_ALLOUT;
 
-            if(cnt == 8)
-                cnt2++;
-        }
+        if(in_0 == 8 && in_1 == 8 && in_2 == 8 &&
+           in_3 == 8 && in_4 == 8 && in_5 == 8)
+            return FRUSTUM_ALLIN;
 
-        return (cnt2 == 6) ? FRUSTUM_ALLIN : FRUSTUM_PARTIAL;
+        return FRUSTUM_PARTIAL;
     }
 
     /**
@@ -706,71 +687,57 @@ public class BoundingBox extends BoundingVolume
     @Override
     public int checkIntersectionFrustum(Vector4d[] planes, Matrix4d mat)
     {
-        // transform the vertices of the bounding box
-        // for comparison with the view frustum
-        double x;
-        double y;
-        double z;
-
-        for (int i = 0; i < 8; i++)
-        {
-            x = vert[i][0];
-            y = vert[i][1];
-            z = vert[i][2];
-
-            xvert[i][0] = (float)(mat.m00 * x + mat.m01 * y + mat.m02 * z + mat.m03);
-            xvert[i][1] = (float)(mat.m10 * x + mat.m11 * y + mat.m12 * z + mat.m13);
-            xvert[i][2] = (float)(mat.m20 * x + mat.m21 * y + mat.m22 * z + mat.m23);
-        }
+        // Transform each vertex of the bounding box and count how many are
+        // on the inside of each plane of the view frustum. Everything is
+        // kept in locals so that the same bounds may be checked by several
+        // culling threads at once.
+        float x;
+        float y;
+        float z;
 
-        int cnt;
-        int cnt2 = 0;
+        int in_0 = 0;
+        int in_1 = 0;
+        int in_2 = 0;
+        int in_3 = 0;
+        int in_4 = 0;
+        int in_5 = 0;
 
-        for(int p = 0; p < 6; p++)
+        for(int i = 0; i < 8; i++)
         {
-            cnt = 0;
-            if(planes[p].x * xvert[0][0] + planes[p].y * xvert[0][1] +
-                planes[p].z * xvert[0][2] + planes[p].w > 0 )
-                cnt++;
+            float[] v = vert[i];
 
-            if(planes[p].x * xvert[1][0] + planes[p].y * xvert[1][1] +
-                planes[p].z * xvert[1][2] + planes[p].w > 0 )
-                cnt++;
+            x = (float)(mat.m00 * v[0] + mat.m01 * v[1] + mat.m02 * v[2] + mat.m03);
+            y = (float)(mat.m10 * v[0] + mat.m11 * v[1] + mat.m12 * v[2] + mat.m13);
+            z = (float)(mat.m20 * v[0] + mat.m21 * v[1] + mat.m22 * v[2] + mat.m23);
 
-            if(planes[p].x * xvert[2][0] + planes[p].y * xvert[2][1] +
-                planes[p].z * xvert[2][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[0].x * x + planes[0].y * y + planes[0].z * z + planes[0].w > 0)
+                in_0++;
 
-            if(planes[p].x * xvert[3][0] + planes[p].y * xvert[3][1] +
-                planes[p].z * xvert[3][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[1].x * x + planes[1].y * y + planes[1].z * z + planes[1].w > 0)
+                in_1++;
 
-            if(planes[p].x * xvert[4][0] + planes[p].y * xvert[4][1] +
-                planes[p].z * xvert[4][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[2].x * x + planes[2].y * y + planes[2].z * z + planes[2].w > 0)
+                in_2++;
 
-            if(planes[p].x * xvert[5][0] + planes[p].y * xvert[5][1] +
-                planes[p].z * xvert[5][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[3].x * x + planes[3].y * y + planes[3].z * z + planes[3].w > 0)
+                in_3++;
 
-            if(planes[p].x * xvert[6][0] + planes[p].y * xvert[6][1] +
-                planes[p].z * xvert[6][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[4].x * x + planes[4].y * y + planes[4].z * z + planes[4].w > 0)
+                in_4++;
 
-            if(planes[p].x * xvert[7][0] + planes[p].y * xvert[7][1] +
-                planes[p].z * xvert[7][2] + planes[p].w > 0 )
-                cnt++;
+            if(planes[5].x * x + planes[5].y * y + planes[5].z * z + planes[5].w > 0)
+                in_5++;
+        }
 
-            if(cnt == 0)
-            {
-                return FRUSTUM_ALLOUT;
-            }
+        if(in_0 == 0 || in_1 == 0 || in_2 == 0 ||
+           in_3 == 0 || in_4 == 0 || in_5 == 0)
+            return FRUSTUM_ALLOUT;
 
-            if(cnt == 8)
-                cnt2++;
-        }
+        if(in_0 == 8 && in_1 == 8 && in_2 == 8 &&
+           in_3 == 8 && in_4 == 8 && in_5 == 8)
+            return FRUSTUM_ALLIN;
 
-        return (cnt2 == 6) ? FRUSTUM_ALLIN : FRUSTUM_PARTIAL;
+        return FRUSTUM_PARTIAL;
     }
 
     /**
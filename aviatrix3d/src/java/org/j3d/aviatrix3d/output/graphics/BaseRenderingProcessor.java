@@ -18,6 +18,8 @@ import java.text.MessageFormat;
 import java.text.NumberFormat;
 import java.util.Locale;
 
+import java.nio.FloatBuffer;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -1079,6 +1081,31 @@ public abstract class BaseRenderingProcessor
         }
     }
 
+    /**
+     * Render a piece of geometry once for each of the instance transforms
+     * in the details. Used for the RENDER_GEOMETRY_INSTANCED operation.
+     *
+     * @param gl The GL context to render with
+     * @param details The details holding the geometry and transforms
+     */
+    protected void renderInstances(GL2 gl, GraphicsDetails details)
+    {
+        GeometryRenderable geom = (GeometryRenderable)details.renderable;
+        FloatBuffer tx = details.instanceTransforms;
+
+        for(int i = 0; i < details.numInstances; i++)
+        {
+            tx.position(i * InstanceBatcher.FLOATS_PER_INSTANCE);
+
+            gl.glPushMatrix();
+            gl.glMultMatrixf(tx);
+            geom.render(gl);
+            gl.glPopMatrix();
+        }
+
+        tx.rewind();
+    }
+
     /**
      * Setup the viewport environment to be drawn, but do not yet set up the
      * viewpoint and other per-layer-specific effects. If a viewport has
@@ -521,6 +521,20 @@ public class DebugRenderingProcessor extends BaseRenderingProcessor
                     gl.glPopMatrix();
                     break;
 
+                case RENDER_GEOMETRY_INSTANCED:
+                    if(dumpNow || PRINT_STATES)
+                    {
+                        Renderable s = renderableList[i].renderable;
+                        errorReporter.messageReport("Render instanced geometry " +
+                                                        s.getClass() +
+                                                        " 0x" +
+                                                        Integer.toHexString(s.hashCode()) +
+                                                        " x" + renderableList[i].numInstances);
+                    }
+
+                    renderInstances(gl, renderableList[i]);
+                    break;
+
                 case RENDER_GEOMETRY_2D:
                     if (dumpNow || PRINT_STATES)
                     {
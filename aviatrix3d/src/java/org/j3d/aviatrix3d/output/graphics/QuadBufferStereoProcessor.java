@@ -335,6 +335,10 @@ public class QuadBufferStereoProcessor extends BaseStereoProcessor
                     gl.glPopMatrix();
                     break;
 
+                case RENDER_GEOMETRY_INSTANCED:
+                    renderInstances(gl, renderableList[i]);
+                    break;
+
                 case RENDER_GEOMETRY_2D:
                     // load the matrix to render
                     gl.glRasterPos2f(renderableList[i].transform[3],
@@ -318,6 +318,10 @@ public class SingleEyeStereoProcessor extends BaseStereoProcessor
                     gl.glPopMatrix();
                     break;
 
+                case RENDER_GEOMETRY_INSTANCED:
+                    renderInstances(gl, renderableList[i]);
+                    break;
+
                 case RENDER_GEOMETRY_2D:
                     // load the matrix to render
                     gl.glRasterPos2d(renderableList[i].transform[3],
@@ -296,6 +296,10 @@ public class StandardRenderingProcessor extends BaseRenderingProcessor
                     gl.glPopMatrix();
                     break;
 
+                case RENDER_GEOMETRY_INSTANCED:
+                    renderInstances(gl, renderableList[i]);
+                    break;
+
                 case RENDER_GEOMETRY_2D:
                     // load the matrix to render
                     gl.glRasterPos2d(renderableList[i].transform[3],
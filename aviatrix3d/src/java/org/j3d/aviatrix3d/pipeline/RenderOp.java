@@ -60,6 +60,14 @@ public enum RenderOp
      */
     RENDER_CUSTOM_GEOMETRY,
 
+    /**
+     * Render a geometry item multiple times, once for each of the transforms
+     * held in the instance transform buffer of the details. The renderable
+     * is always a plain geometry renderable and all instances share the
+     * currently active state. No postRender call will be made.
+     */
+    RENDER_GEOMETRY_INSTANCED,
+
     /**
      * A node implementing the
      * {@link org.j3d.aviatrix3d.rendering.CustomRenderable}
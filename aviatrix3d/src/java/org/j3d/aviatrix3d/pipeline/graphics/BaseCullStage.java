@@ -1535,6 +1535,7 @@ public abstract class BaseCullStage implements GraphicsCullStage
                             b.nodes[m].renderable = null;
                             b.nodes[m].localFog   = null;
                             b.nodes[m].customData = null;
+                            b.nodes[m].clearStateKey();
 
                             // Another option we could use here is to clear
                             // the renference to the details object too. May
@@ -142,6 +142,9 @@ public abstract class BaseStateSortStage extends BaseSortStage
     /** Number of valid textures currently active */
     protected int numTextures;
 
+    /** Batcher for instanced rendering. Null when instancing is disabled */
+    protected InstanceBatcher instanceBatcher;
+
     /**
      * Static constructor to initialise some of the constants
      */
@@ -189,6 +192,120 @@ public abstract class BaseStateSortStage extends BaseSortStage
     // Local Methods
     //---------------------------------------------------------------
 
+    /**
+     * Enable or disable batching of shapes that share geometry and
+     * appearance into instanced draw instructions. Disabled by default.
+     * Only opaque geometry is batched as transparent geometry must keep its
+     * depth order.
+     *
+     * @param enable true to turn on instancing
+     */
+    public void setInstancingEnabled(boolean enable)
+    {
+        if(enable && instanceBatcher == null)
+            instanceBatcher = new InstanceBatcher();
+        else if(!enable)
+            instanceBatcher = null;
+    }
+
+    /**
+     * Check to see if instanced rendering is currently enabled.
+     *
+     * @return true if shapes will be batched into instanced draws
+     */
+    public boolean isInstancingEnabled()
+    {
+        return instanceBatcher != null;
+    }
+
+    /**
+     * Get the batcher used for instancing, to adjust the settings or read
+     * the draw counters.
+     *
+     * @return The current batcher or null if instancing is disabled
+     */
+    public InstanceBatcher getInstanceBatcher()
+    {
+        return instanceBatcher;
+    }
+
+    /**
+     * Append a list of objects to the existing list, grouping those that
+     * share geometry and state into instanced draws. The node list is
+     * reordered so that each group is contiguous. Requires instancing to
+     * be enabled. Reallocates the instruction list as needed.
+     *
+     * @param nodes The list of nodes to append
+     * @param numNodes The number of valid nodes in the list
+     * @param instr Instruction instant to put the details into
+     * @param offset The distance into instr array of values to start
+     * @return The completed offset into the instr array we finished at
+     */
+    protected int appendBatchedObjects(GraphicsCullOutputDetails[] nodes,
+                                       int numNodes,
+                                       GraphicsInstructions instr,
+                                       int offset)
+    {
+        int num_groups = instanceBatcher.batch(nodes, numNodes);
+        int idx = offset;
+
+        // Worst case for a single node is turning off and on every light,
+        // clip plane and texture plus the appearance components.
+        int reserve = (MAX_GL_LIGHTS + MAX_GL_CLIPS + MAX_GL_TEXTURES) * 2 +
+                      GUESS_NUM_COMPONENTS * 4;
+
+        for(int g = 0; g < num_groups && !terminate; g++)
+        {
+            if(instr.renderList.length - idx < reserve)
+                realloc(instr, idx + reserve);
+
+            int start = instanceBatcher.getGroupStart(g);
+            int size = instanceBatcher.getGroupSize(g);
+
+            if(instanceBatcher.isInstanced(g))
+                idx = appendInstances(nodes, start, size, instr, idx);
+            else
+            {
+                for(int i = start; i < start + size; i++)
+                {
+                    if(instr.renderList.length - idx < reserve)
+                        realloc(instr, idx + reserve);
+
+                    idx = appendObject(nodes[i], instr, idx);
+                }
+            }
+        }
+
+        return idx;
+    }
+
+    /**
+     * Append a run of nodes that share geometry and state as a single
+     * instanced draw. The state is taken from the first node.
+     *
+     * @param nodes The list of nodes to take the run from
+     * @param start The index of the first node of the run
+     * @param count The number of nodes in the run
+     * @param instr Instruction instant to put the details into
+     * @param offset The distance into instr array of values to start
+     * @return The completed offset into the instr array we finished at
+     */
+    protected int appendInstances(GraphicsCullOutputDetails[] nodes,
+                                  int start,
+                                  int count,
+                                  GraphicsInstructions instr,
+                                  int offset)
+    {
+        int idx = appendObject(nodes[start], instr, offset);
+
+        // appendObject always ends with the geometry for a 3D shape, so
+        // convert that into the instanced version.
+        instr.renderOps[idx - 1] = RenderOp.RENDER_GEOMETRY_INSTANCED;
+        InstanceBatcher.writeTransforms(nodes, start, count, instr.renderList[idx - 1]);
+
+        return idx;
+    }
+
     /**
      * Append a single object onto the existing list. Checks versus existing
      * state and starts and stops as required.
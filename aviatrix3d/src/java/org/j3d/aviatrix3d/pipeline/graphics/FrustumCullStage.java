@@ -564,6 +564,65 @@ public class FrustumCullStage extends BaseCullStage
     // Local methods
     //---------------------------------------------------------------
 
+    /**
+     * Copy the view frustum state of another stage into this one, ready to
+     * walk part of the same scene. Any global lights found by a previous walk
+     * are discarded.
+     *
+     * @param src The stage to copy the view state from
+     */
+    void copyViewState(FrustumCullStage src)
+    {
+        for(int i = 0; i < 6; i++)
+            frustumPlanes[i].set(src.frustumPlanes[i]);
+
+        viewMatrix.set(src.viewMatrix);
+        angularResolution = src.angularResolution;
+
+        for(int i = 0; i < lastGlobalLight; i++)
+            globalLightList[i] = null;
+
+        for(int i = 0; i < lastGlobalBoundedLight; i++)
+            globalBoundedLightList[i] = null;
+
+        lastGlobalLight = 0;
+        lastGlobalBoundedLight = 0;
+    }
+
+    /**
+     * Append the global lights found by another stage to the end of the
+     * lists in this stage, in the order the other stage found them.
+     *
+     * @param src The stage to copy the global lights from
+     */
+    void appendGlobalLights(FrustumCullStage src)
+    {
+        for(int i = 0; i < src.lastGlobalLight; i++)
+        {
+            resizeGlobalLightList();
+            globalLightList[lastGlobalLight] = src.globalLightList[i];
+            System.arraycopy(src.globalLightTxList[i],
+                             0,
+                             globalLightTxList[lastGlobalLight],
+                             0,
+                             16);
+            lastGlobalLight++;
+        }
+
+        for(int i = 0; i < src.lastGlobalBoundedLight; i++)
+        {
+            resizeGlobalBoundedLightList();
+            globalBoundedLightList[lastGlobalBoundedLight] =
+                src.globalBoundedLightList[i];
+            System.arraycopy(src.globalBoundedLightTxList[i],
+                             0,
+                             globalBoundedLightTxList[lastGlobalBoundedLight],
+                             0,
+                             16);
+            lastGlobalBoundedLight++;
+        }
+    }
+
     /**
      * Recursive walk of the tree to find all the renderable nodes, starting
      * from a Cullable object.
@@ -1481,266 +1540,313 @@ public class FrustumCullStage extends BaseCullStage
             }
         }
 
+        ret_val = cullGroupChildren(group,
+                                   kids,
+                                   size,
+                                   childAllInBounds,
+                                   ret_val);
+
+        // Pop the valid lights from the stack
+        for(int i = 0; i < num_lights; i++) {
+            lightList[--lastLight] = null;
+        }
+        for(int i = 0; i < num_clips; i++) {
+            clipList[--lastClip] = null;
+        }
+
+        if(have_local_fog)
+        {
+            fogStack[lastFogStack] = null;
+            lastFogStack--;
+        }
+
+        if(have_local_appearance)
+        {
+            appearanceStack[lastAppearanceStack] = null;
+            lastAppearanceStack--;
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Walk the children of a group, once the effects that are local to that
+     * group have been placed on the stacks. The default implementation
+     * processes the children in order on the calling thread. Package private
+     * so that the parallel culling implementation can split the work.
+     *
+     * @param group The parent group that is being walked
+     * @param kids The cullable children of the group
+     * @param size The number of valid children in the array
+     * @param allInBounds All of this group is inside the view frustum
+     * @param cullEndIndex The current last item on the cull list
+     * @return The index of the last item on the cull list
+     */
+    int cullGroupChildren(GroupCullable group,
+                          Cullable[] kids,
+                          int size,
+                          boolean allInBounds,
+                          int cullEndIndex)
+    {
+        int ret_val = cullEndIndex;
+
         for(int i = 0; i < size && !terminate; i++)
+            ret_val = cullChild(kids[i], allInBounds, ret_val);
+
+        return ret_val;
+    }
+
+    /**
+     * Process a single child of a group, pushing its transform if it has one
+     * and then walking into it or adding it to the cull list as needed.
+     *
+     * @param kid The child to process
+     * @param allInBounds The parent of this child is completely inside the
+     *    view frustum
+     * @param cullEndIndex The current last item on the cull list
+     * @return The index of the last item on the cull list
+     */
+    int cullChild(Cullable kid, boolean allInBounds, int cullEndIndex)
+    {
+        int ret_val = cullEndIndex;
+
+        // If a tg, push the new TX onto the stack
+        boolean is_tx = (kid instanceof TransformCullable);
+
+        if(is_tx)
         {
-            // If a tg, push the new TX onto the stack
-            boolean is_tx = (kids[i] instanceof TransformCullable);
+            resizeStack();
+            TransformCullable tg = (TransformCullable)kid;
+            tg.getTransform(transformStack[lastTxStack + 1]);
 
-            if(is_tx)
-            {
-                resizeStack();
-                TransformCullable tg = (TransformCullable)kids[i];
-                tg.getTransform(transformStack[lastTxStack + 1]);
+            transformStack[lastTxStack + 1].mul(transformStack[lastTxStack],
+                                              transformStack[lastTxStack + 1]);
+            lastTxStack++;
+        }
 
-                transformStack[lastTxStack + 1].mul(transformStack[lastTxStack],
-                                                  transformStack[lastTxStack + 1]);
-                lastTxStack++;
-            }
+        if(kid instanceof GroupCullable)
+        {
+            ret_val = findAllNodes((GroupCullable)kid,
+                                   allInBounds,
+                                   is_tx,
+                                   ret_val);
+        }
+        else if(kid instanceof LeafCullable)
+        {
+            LeafCullable cullable = (LeafCullable)kid;
 
-            if(kids[i] instanceof GroupCullable)
-            {
-                ret_val = findAllNodes((GroupCullable)kids[i],
-                                       childAllInBounds,
-                                       is_tx,
-                                       ret_val);
-            }
-            else if(kids[i] instanceof LeafCullable)
+            if(cullable.getCullableType() == LeafCullable.GEOMETRY_CULLABLE)
             {
-                LeafCullable cullable = (LeafCullable)kids[i];
+                Renderable r = cullable.getRenderable();
 
-                if(cullable.getCullableType() == LeafCullable.GEOMETRY_CULLABLE)
+                if(r instanceof ShapeRenderable)
                 {
-                    Renderable r = cullable.getRenderable();
+                    ShapeRenderable sr = (ShapeRenderable)r;
 
-                    if(r instanceof ShapeRenderable)
-                    {
-                        ShapeRenderable sr = (ShapeRenderable)r;
+                    if(!sr.isVisible())
+                        return ret_val;
 
-                        if(!sr.isVisible())
-                            continue;
+                    GeometryRenderable gr = sr.getGeometryRenderable();
+                    if(gr instanceof CustomGeometryRenderable)
+                    {
+                        CustomGeometryRenderable cgr = (CustomGeometryRenderable)gr;
 
-                        GeometryRenderable gr = sr.getGeometryRenderable();
-                        if(gr instanceof CustomGeometryRenderable)
-                        {
-                            CustomGeometryRenderable cgr = (CustomGeometryRenderable)gr;
+                        workCullList[ret_val].customData =
+                            cgr.processCull(transformStack[lastTxStack],
+                                            viewMatrix,
+                                            frustumPlanes,
+                                            angularResolution);
+                    }
 
-                            workCullList[ret_val].customData =
-                                cgr.processCull(transformStack[lastTxStack],
-                                                viewMatrix,
-                                                frustumPlanes,
-                                                angularResolution);
-                        }
+                    // Check the visibility state and ignore if not visible.
+                    if(sr.is2D())
+                    {
+                        resizeCullList(cullEndIndex);
+                        workCullList[ret_val].renderable = (Renderable)kid;
+                        workCullList[ret_val].numLights = 0;
+                        workCullList[ret_val].numClipPlanes = 0;
 
-                        // Check the visibility state and ignore if not visible.
-                        if(sr.is2D())
-                        {
-                            resizeCullList(cullEndIndex);
-                            workCullList[ret_val].renderable = (Renderable)kids[i];
-                            workCullList[ret_val].numLights = 0;
-                            workCullList[ret_val].numClipPlanes = 0;
+                        Matrix4f mat = transformStack[lastTxStack];
 
-                            Matrix4f mat = transformStack[lastTxStack];
+                        // Transpose the matrix in place as it is being copied
+                        workCullList[ret_val].transform.set(mat);
 
-                            // Transpose the matrix in place as it is being copied
-                            workCullList[ret_val].transform.set(mat);
+                        ret_val++;
+                    }
+                    else
+                    {
+                        // Walk into the shape and check that we don't have any
+                        // offscreen textures to render.
+                        if(checkOffscreens)
+                            checkForOffscreens(sr);
 
-                            ret_val++;
-                        }
-                        else
+                        resizeCullList(ret_val);
+                        if(lastAppearanceStack != 0)
                         {
-                            // Walk into the shape and check that we don't have any
-                            // offscreen textures to render.
-                            if(checkOffscreens)
-                                checkForOffscreens(sr);
+                            OverrideRenderable ovr =
+                                appearanceStack[lastAppearanceStack];
 
-                            resizeCullList(ret_val);
-                            if(lastAppearanceStack != 0)
-                            {
-                                OverrideRenderable ovr =
-                                    appearanceStack[lastAppearanceStack];
+                            AppearanceRenderable app_r =
+                                ovr.getAppearanceRenderable();
 
-                                AppearanceRenderable app_r =
-                                    ovr.getAppearanceRenderable();
+                            if(!ovr.useLocalOnlyAppearance())
+                            {
+                                AppearanceRenderable leaf_app =
+                                    sr.getAppearanceRenderable();
 
-                                if(!ovr.useLocalOnlyAppearance())
-                                {
-                                    AppearanceRenderable leaf_app =
-                                        sr.getAppearanceRenderable();
+                                app_r =
+                                    new OverrideAppearanceProxyRenderable(app_r,
+                                                                          leaf_app);
+                            }
 
-                                    app_r =
-                                        new OverrideAppearanceProxyRenderable(app_r,
-                                                                              leaf_app);
-                                }
+                            OverrideShapeProxyRenderable proxy_r =
+                                new OverrideShapeProxyRenderable(sr, app_r);
+                            workCullList[ret_val].renderable = proxy_r;
+                        }
+                        else
+                            workCullList[ret_val].renderable = r;
 
-                                OverrideShapeProxyRenderable proxy_r =
-                                    new OverrideShapeProxyRenderable(sr, app_r);
-                                workCullList[ret_val].renderable = proxy_r;
-                            }
-                            else
-                                workCullList[ret_val].renderable = r;
+                        workCullList[ret_val].localFog = fogStack[lastFogStack];
 
-                            workCullList[ret_val].localFog = fogStack[lastFogStack];
+                        Matrix4f mat = transformStack[lastTxStack];
 
-                            Matrix4f mat = transformStack[lastTxStack];
+                        workCullList[ret_val].transform.set(mat);
 
-                            workCullList[ret_val].transform.set(mat);
+                        int src_size = (workCullList[ret_val].lights == null) ?
+                                        0 :
+                                        workCullList[ret_val].lights.length;
 
-                            int src_size = (workCullList[ret_val].lights == null) ?
-                                            0 :
-                                            workCullList[ret_val].lights.length;
+                        //int req_size = lastLight + lastGlobalLight +
+                        //               lastGlobalBoundedLight;
+                        int req_size = lastLight;
 
-                            //int req_size = lastLight + lastGlobalLight +
-                            //               lastGlobalBoundedLight;
-                            int req_size = lastLight;
+                        if(src_size < req_size)
+                        {
+                            // up the size of the array
 
-                            if(src_size < req_size)
+                            VisualDetails[] tmp = new VisualDetails[req_size];
+                            if(src_size != 0)
                             {
-                                // up the size of the array
+                                System.arraycopy(workCullList[ret_val].lights,
+                                                 0,
+                                                 tmp,
+                                                 0,
+                                                 src_size);
+                            }
 
-                                VisualDetails[] tmp = new VisualDetails[req_size];
-                                if(src_size != 0)
-                                {
-                                    System.arraycopy(workCullList[ret_val].lights,
-                                                     0,
-                                                     tmp,
-                                                     0,
-                                                     src_size);
-                                }
+                            for(int j = src_size; j < req_size; j++)
+                                tmp[j] = new VisualDetails();
 
-                                for(int j = src_size; j < req_size; j++)
-                                    tmp[j] = new VisualDetails();
+                            workCullList[ret_val].lights = tmp;
+                        }
 
-                                workCullList[ret_val].lights = tmp;
-                            }
+                        // copy in the light information.
+                        int valid_lights = 0;
+                        BoundingVolume bv = cullable.getBounds();
+                        workCullList[ret_val].cullableBounds = bv;
+                        VisualDetails[] l_tmp = workCullList[ret_val].lights;
+                        /*
+                        for(int j = 0; j < lastGlobalLight; j++)
+                        {
+                            l_tmp[valid_lights].update(globalLightList[j],
+                                                       globalLightTxList[j]);
+                            valid_lights++;
+                        }
 
-                            // copy in the light information.
-                            int valid_lights = 0;
-                            BoundingVolume bv = cullable.getBounds();
-                            workCullList[ret_val].cullableBounds = bv;
-                            VisualDetails[] l_tmp = workCullList[ret_val].lights;
-                            /*
-                            for(int j = 0; j < lastGlobalLight; j++)
+                        for(int j = 0; j < lastGlobalBoundedLight; j++)
+                        {
+                            BoundingVolume effect =
+                                globalBoundedLightList[j].getEffectBounds();
+
+                            if(checkBoundsIntersect(bv,
+                                                    mat,
+                                                    effect,
+                                                    globalBoundedLightTxList[j]))
                             {
-                                l_tmp[valid_lights].update(globalLightList[j],
-                                                           globalLightTxList[j]);
+                                l_tmp[valid_lights].update(
+                                    //lightList[j],
+                                    globalBoundedLightList[j],
+                                    globalBoundedLightTxList[j]);
                                 valid_lights++;
                             }
+                        }
+                        */
+                        for(int j = 0; j < lastLight; j++)
+                        {
+                            BoundingVolume effect = lightList[j].getEffectBounds();
 
-                            for(int j = 0; j < lastGlobalBoundedLight; j++)
-                            {
-                                BoundingVolume effect =
-                                    globalBoundedLightList[j].getEffectBounds();
-
-                                if(checkBoundsIntersect(bv,
-                                                        mat,
-                                                        effect,
-                                                        globalBoundedLightTxList[j]))
-                                {
-                                    l_tmp[valid_lights].update(
-                                        //lightList[j],
-                                        globalBoundedLightList[j],
-                                        globalBoundedLightTxList[j]);
-                                    valid_lights++;
-                                }
-                            }
-                            */
-                            for(int j = 0; j < lastLight; j++)
+                            if((effect == null) ||
+                               checkBoundsIntersect(bv,
+                                                    mat,
+                                                    effect,
+                                                    lightTxList[j]))
                             {
-                                BoundingVolume effect = lightList[j].getEffectBounds();
-
-                                if((effect == null) ||
-                                   checkBoundsIntersect(bv,
-                                                        mat,
-                                                        effect,
-                                                        lightTxList[j]))
-                                {
-                                    l_tmp[valid_lights].update(lightList[j],
-                                                               lightTxList[j]);
-                                    valid_lights++;
-                                }
+                                l_tmp[valid_lights].update(lightList[j],
+                                                           lightTxList[j]);
+                                valid_lights++;
                             }
+                        }
 
-                            workCullList[ret_val].numLights = valid_lights;
+                        workCullList[ret_val].numLights = valid_lights;
 
-                            // Same thing again but for clip planes
-                            src_size = (workCullList[ret_val].clipPlanes == null) ?
-                                        0 :
-                                        workCullList[ret_val].clipPlanes.length;
+                        // Same thing again but for clip planes
+                        src_size = (workCullList[ret_val].clipPlanes == null) ?
+                                    0 :
+                                    workCullList[ret_val].clipPlanes.length;
 
-                            if(src_size < lastClip)
+                        if(src_size < lastClip)
+                        {
+                            // up the size of the array
+                            VisualDetails[] tmp = new VisualDetails[lastClip];
+                            if(src_size != 0)
                             {
-                                // up the size of the array
-                                VisualDetails[] tmp = new VisualDetails[lastClip];
-                                if(src_size != 0)
-                                {
-                                    System.arraycopy(workCullList[ret_val].clipPlanes,
-                                                     0,
-                                                     tmp,
-                                                     0,
-                                                     src_size);
-                                }
-
-                                for(int j = src_size; j < lastClip; j++)
-                                    tmp[j] = new VisualDetails();
-
-                                workCullList[ret_val].clipPlanes = tmp;
+                                System.arraycopy(workCullList[ret_val].clipPlanes,
+                                                 0,
+                                                 tmp,
+                                                 0,
+                                                 src_size);
                             }
 
-                            // copy in the clip plane information.
-                            VisualDetails[] c_tmp = workCullList[ret_val].clipPlanes;
-                            workCullList[ret_val].numClipPlanes = lastClip;
+                            for(int j = src_size; j < lastClip; j++)
+                                tmp[j] = new VisualDetails();
 
-                            for(int j = 0; j < lastClip; j++)
-                                c_tmp[j].update(clipList[j], clipTxList[j]);
-                            ret_val++;
+                            workCullList[ret_val].clipPlanes = tmp;
                         }
-                    }
-                    else if(kids[i] instanceof CustomRenderable)
-                    {
-                        BoundingVolume bv = cullable.getBounds();
-                        ret_val = findAllNodes((CustomRenderable)kids[i],
-                                               ret_val,
-                                               bv);
+
+                        // copy in the clip plane information.
+                        VisualDetails[] c_tmp = workCullList[ret_val].clipPlanes;
+                        workCullList[ret_val].numClipPlanes = lastClip;
+
+                        for(int j = 0; j < lastClip; j++)
+                            c_tmp[j].update(clipList[j], clipTxList[j]);
+                        ret_val++;
                     }
                 }
+                else if(kid instanceof CustomRenderable)
+                {
+                    BoundingVolume bv = cullable.getBounds();
+                    ret_val = findAllNodes((CustomRenderable)kid,
+                                           ret_val,
+                                           bv);
+                }
             }
-            else if(kids[i] instanceof SingleCullable)
-            {
-                ret_val = findNextNode((SingleCullable)kids[i],
-                               childAllInBounds,
-                               false,
-                           ret_val);
-            }
-            else if(kids[i] instanceof CustomCullable)
-            {
-                ret_val = findAllNodes((CustomCullable)kids[i], ret_val);
-            }
-
-            // Now pop the stacks.
-            if(is_tx)
-                lastTxStack--;
-        }
-
-        // Pop the valid lights from the stack
-        for(int i = 0; i < num_lights; i++) {
-            lightList[--lastLight] = null;
         }
-        for(int i = 0; i < num_clips; i++) {
-            clipList[--lastClip] = null;
-        }
-
-        if(have_local_fog)
+        else if(kid instanceof SingleCullable)
         {
-            fogStack[lastFogStack] = null;
-            lastFogStack--;
+            ret_val = findNextNode((SingleCullable)kid,
+                           allInBounds,
+                           false,
+                       ret_val);
         }
-
-        if(have_local_appearance)
+        else if(kid instanceof CustomCullable)
         {
-            appearanceStack[lastAppearanceStack] = null;
-            lastAppearanceStack--;
+            ret_val = findAllNodes((CustomCullable)kid, ret_val);
         }
 
+        // Now pop the stacks.
+        if(is_tx)
+            lastTxStack--;
+
         return ret_val;
     }
 
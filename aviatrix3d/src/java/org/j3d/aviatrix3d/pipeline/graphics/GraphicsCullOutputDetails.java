@@ -44,6 +44,30 @@ public class GraphicsCullOutputDetails extends CullOutputDetails
     /** If a locally declared fog is set, use it */
     public EffectRenderable localFog;
 
+    /**
+     * Packed 64 bit sort key used by the radix sort stages. Only valid
+     * during the sort stage that generated it.
+     */
+    long sortKey;
+
+    /** The cached state part of the sort key from a previous frame */
+    long stateKey;
+
+    /** ID epoch of the key generator at the time stateKey was computed */
+    int stateKeyEpoch;
+
+    /** The appearance that the cached state key was computed from */
+    Object keyAppearance;
+
+    /** The shader that the cached state key was computed from */
+    Object keyShader;
+
+    /** The first texture that the cached state key was computed from */
+    Object keyTexture;
+
+    /** The material that the cached state key was computed from */
+    Object keyMaterial;
+
     /**
      * Construct a default instance of the output details. None of the arrays
      * are instantiated to start with.
@@ -51,4 +75,18 @@ public class GraphicsCullOutputDetails extends CullOutputDetails
     public GraphicsCullOutputDetails()
     {
     }
+
+    /**
+     * Drop the cached state key and the references it was computed from.
+     * Called when the details object is recycled so that it does not hold
+     * on to appearance state that is no longer part of the scene.
+     */
+    void clearStateKey()
+    {
+        stateKeyEpoch = 0;
+        keyAppearance = null;
+        keyShader = null;
+        keyTexture = null;
+        keyMaterial = null;
+    }
 }
@@ -13,7 +13,7 @@
 package org.j3d.aviatrix3d.pipeline.graphics;
 
 // External imports
-// None
+import java.nio.FloatBuffer;
 
 // Local imports
 import org.j3d.aviatrix3d.pipeline.RenderDetails;
@@ -29,7 +29,17 @@ public class GraphicsDetails extends RenderDetails
 {
     /** The transform from the root of the scene graph to here */
     public float[] transform;
-    
+
+    /**
+     * Per-instance transforms for an instanced draw, as column major 4x4
+     * matrices packed one after the other. Only valid when the operation is
+     * RENDER_GEOMETRY_INSTANCED. Direct buffer in native byte order.
+     */
+    public FloatBuffer instanceTransforms;
+
+    /** Number of valid instances in the instanceTransforms buffer */
+    public int numInstances;
+
     /**
      * Construct a default instance with nothing initialised.
      */
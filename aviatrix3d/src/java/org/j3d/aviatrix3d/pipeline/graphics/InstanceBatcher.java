@@ -0,0 +1,499 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.IdentityHashMap;
+
+import javax.vecmath.Matrix4f;
+
+// Local imports
+import org.j3d.aviatrix3d.rendering.*;
+
+/**
+ * Detects cull output that shares the same geometry and rendering state so
+ * that it can be issued as a single instanced draw instruction.
+ * <p>
+ *
+ * Heavy use of DEF/USE in a scene produces many shapes that point at the
+ * same geometry and appearance, differing only by their transform. Two
+ * nodes can be batched together if they have the identical geometry,
+ * appearance, local fog, lights and clip planes. Only 3D shapes with
+ * standard geometry are considered. 2D shapes, custom geometry and custom
+ * renderables are always left as single items.
+ * <p>
+ *
+ * The batcher works in two steps. {@link #batch} regroups the node list in
+ * place so that every group of compatible nodes is contiguous, in the
+ * order of the first node of each group. As every member of a group has
+ * the same state as the first member, a list that was state sorted before
+ * batching remains state sorted. The caller then walks the groups and uses
+ * {@link #writeTransforms} to fill in the per-instance transforms for any
+ * group that is large enough to be instanced.
+ * <p>
+ *
+ * This class is not thread safe. Each sort stage should have its own
+ * instance.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class InstanceBatcher
+{
+    /** Default minimum number of nodes needed to create an instanced draw */
+    private static final int DEFAULT_MIN_INSTANCES = 2;
+
+    /** Number of floats used for a single instance transform */
+    public static final int FLOATS_PER_INSTANCE = 16;
+
+    /** Initial size of the working arrays */
+    private static final int LIST_START_SIZE = 64;
+
+    /** Minimum group size that is turned into an instanced draw */
+    private int minInstances;
+
+    /** Map of geometry to the first group that uses it */
+    private IdentityHashMap<GeometryRenderable, Integer> geometryGroups;
+
+    /** Index of the group each node belongs to */
+    private int[] nodeGroup;
+
+    /** Index of the first node of each group, prior to reordering */
+    private int[] groupFirst;
+
+    /** After reordering, the start of each group in the node list */
+    private int[] groupStart;
+
+    /** Number of nodes in each group */
+    private int[] groupSize;
+
+    /** Next group that shares the same geometry, or -1 */
+    private int[] groupNext;
+
+    /** Scratch space used when reordering the nodes */
+    private GraphicsCullOutputDetails[] tmpNodes;
+
+    /** Number of groups found in the last batch */
+    private int numGroups;
+
+    /** Number of groups in the last batch large enough to instance */
+    private int lastBatchCount;
+
+    /** Number of nodes rendered as part of an instanced group last batch */
+    private int lastInstanceCount;
+
+    /** Running total of draw instructions saved */
+    private long totalDrawsSaved;
+
+    /**
+     * Create a new batcher with the default minimum instance count of 2.
+     */
+    public InstanceBatcher()
+    {
+        minInstances = DEFAULT_MIN_INSTANCES;
+        geometryGroups = new IdentityHashMap<>();
+
+        nodeGroup = new int[LIST_START_SIZE];
+        groupFirst = new int[LIST_START_SIZE];
+        groupStart = new int[LIST_START_SIZE];
+        groupSize = new int[LIST_START_SIZE];
+        groupNext = new int[LIST_START_SIZE];
+        tmpNodes = new GraphicsCullOutputDetails[LIST_START_SIZE];
+    }
+
+    /**
+     * Set the minimum number of compatible nodes needed before they are
+     * rendered as an instanced draw. Smaller groups are rendered as normal.
+     *
+     * @param count The minimum count. Must be at least 2
+     * @throws IllegalArgumentException The count was less than 2
+     */
+    public void setMinInstances(int count)
+    {
+        if(count < 2)
+            throw new IllegalArgumentException("Minimum instance count < 2");
+
+        minInstances = count;
+    }
+
+    /**
+     * Get the minimum number of compatible nodes needed before they are
+     * rendered as an instanced draw.
+     *
+     * @return A value of 2 or more
+     */
+    public int getMinInstances()
+    {
+        return minInstances;
+    }
+
+    /**
+     * Get the number of instanced draw instructions produced by the last
+     * call to {@link #batch}.
+     *
+     * @return A non-negative count
+     */
+    public int getLastBatchCount()
+    {
+        return lastBatchCount;
+    }
+
+    /**
+     * Get the number of nodes that were folded into instanced draws by the
+     * last call to {@link #batch}.
+     *
+     * @return A non-negative count
+     */
+    public int getLastInstanceCount()
+    {
+        return lastInstanceCount;
+    }
+
+    /**
+     * Get the number of draw instructions saved by the last call to
+     * {@link #batch}. This is the number of instanced nodes less the number
+     * of instanced draws that replace them.
+     *
+     * @return A non-negative count
+     */
+    public int getLastDrawsSaved()
+    {
+        return lastInstanceCount - lastBatchCount;
+    }
+
+    /**
+     * Get the total number of draw instructions saved since this batcher
+     * was created or the counters were last reset.
+     *
+     * @return A non-negative count
+     */
+    public long getTotalDrawsSaved()
+    {
+        return totalDrawsSaved;
+    }
+
+    /**
+     * Reset the running total of draws saved back to zero.
+     */
+    public void resetCounters()
+    {
+        totalDrawsSaved = 0;
+    }
+
+    /**
+     * Regroup the nodes so that all nodes that can be drawn as instances of
+     * each other are contiguous. Ordering is stable: groups appear in the
+     * order of their first member and members keep their relative order.
+     *
+     * @param nodes The list of nodes to group. Reordered in place
+     * @param numNodes The number of valid nodes in the list
+     * @return The number of groups found
+     */
+    public int batch(GraphicsCullOutputDetails[] nodes, int numNodes)
+    {
+        ensureCapacity(numNodes);
+
+        numGroups = 0;
+        lastBatchCount = 0;
+        lastInstanceCount = 0;
+
+        for(int i = 0; i < numNodes; i++)
+        {
+            GraphicsCullOutputDetails node = nodes[i];
+            GeometryRenderable geom = instanceGeometry(node);
+
+            if(geom == null)
+            {
+                nodeGroup[i] = newGroup(i);
+                continue;
+            }
+
+            Integer head = geometryGroups.get(geom);
+            int group = -1;
+
+            if(head != null)
+            {
+                int last = -1;
+
+                for(int g = head; g != -1; g = groupNext[g])
+                {
+                    if(isCompatible(nodes[groupFirst[g]], node))
+                    {
+                        group = g;
+                        break;
+                    }
+
+                    last = g;
+                }
+
+                if(group == -1)
+                {
+                    group = newGroup(i);
+                    groupNext[last] = group;
+                }
+                else
+                    groupSize[group]++;
+            }
+            else
+            {
+                group = newGroup(i);
+                geometryGroups.put(geom, group);
+            }
+
+            nodeGroup[i] = group;
+        }
+
+        geometryGroups.clear();
+
+        // Nothing shared, so nothing to move.
+        if(numGroups == numNodes)
+        {
+            for(int g = 0; g < numGroups; g++)
+                groupStart[g] = g;
+
+            return numGroups;
+        }
+
+        int pos = 0;
+        for(int g = 0; g < numGroups; g++)
+        {
+            groupStart[g] = pos;
+            pos += groupSize[g];
+
+            if(groupSize[g] >= minInstances)
+            {
+                lastBatchCount++;
+                lastInstanceCount += groupSize[g];
+            }
+        }
+
+        // Use groupFirst as the running insert position for each group now
+        // that the first member is no longer needed.
+        for(int g = 0; g < numGroups; g++)
+            groupFirst[g] = groupStart[g];
+
+        for(int i = 0; i < numNodes; i++)
+            tmpNodes[groupFirst[nodeGroup[i]]++] = nodes[i];
+
+        System.arraycopy(tmpNodes, 0, nodes, 0, numNodes);
+
+        for(int i = 0; i < numNodes; i++)
+            tmpNodes[i] = null;
+
+        totalDrawsSaved += lastInstanceCount - lastBatchCount;
+
+        return numGroups;
+    }
+
+    /**
+     * Get the index in the node list of the first node of the given group.
+     * Only valid after a call to {@link #batch}.
+     *
+     * @param group The index of the group
+     * @return The index into the node list
+     */
+    public int getGroupStart(int group)
+    {
+        return groupStart[group];
+    }
+
+    /**
+     * Get the number of nodes in the given group. Only valid after a call to
+     * {@link #batch}.
+     *
+     * @param group The index of the group
+     * @return The number of nodes, at least 1
+     */
+    public int getGroupSize(int group)
+    {
+        return groupSize[group];
+    }
+
+    /**
+     * Check to see if the given group should be rendered as instances. Only
+     * valid after a call to {@link #batch}.
+     *
+     * @param group The index of the group
+     * @return true if the group is large enough to instance
+     */
+    public boolean isInstanced(int group)
+    {
+        return groupSize[group] >= minInstances;
+    }
+
+    /**
+     * Copy the transforms of a run of nodes into the instance transform
+     * buffer of the details. The buffer is a direct, native ordered buffer
+     * holding one column major 4x4 matrix per instance, as expected by
+     * glMultMatrixf or an instanced vertex attribute. The buffer is reused
+     * if it has enough room.
+     *
+     * @param nodes The source node list
+     * @param start The index of the first node to copy
+     * @param count The number of nodes to copy
+     * @param details The render details to write into
+     */
+    public static void writeTransforms(GraphicsCullOutputDetails[] nodes,
+                                       int start,
+                                       int count,
+                                       GraphicsDetails details)
+    {
+        int reqd = count * FLOATS_PER_INSTANCE;
+        FloatBuffer buf = details.instanceTransforms;
+
+        if(buf == null || buf.capacity() < reqd)
+        {
+            // Grow by half again to avoid reallocating every frame as the
+            // group size creeps up.
+            int size = reqd + (reqd >> 1);
+
+            buf = ByteBuffer.allocateDirect(size * 4).
+                      order(ByteOrder.nativeOrder()).
+                      asFloatBuffer();
+            details.instanceTransforms = buf;
+        }
+
+        buf.clear();
+
+        for(int i = start; i < start + count; i++)
+        {
+            Matrix4f tx = nodes[i].transform;
+
+            buf.put(tx.m00);
+            buf.put(tx.m10);
+            buf.put(tx.m20);
+            buf.put(tx.m30);
+
+            buf.put(tx.m01);
+            buf.put(tx.m11);
+            buf.put(tx.m21);
+            buf.put(tx.m31);
+
+            buf.put(tx.m02);
+            buf.put(tx.m12);
+            buf.put(tx.m22);
+            buf.put(tx.m32);
+
+            buf.put(tx.m03);
+            buf.put(tx.m13);
+            buf.put(tx.m23);
+            buf.put(tx.m33);
+        }
+
+        buf.flip();
+        details.numInstances = count;
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Get the geometry of the node if it is a candidate for instancing.
+     *
+     * @param node The node to check
+     * @return The geometry or null if this node can't be instanced
+     */
+    private GeometryRenderable instanceGeometry(GraphicsCullOutputDetails node)
+    {
+        if(!(node.renderable instanceof ShapeRenderable))
+            return null;
+
+        ShapeRenderable shape = (ShapeRenderable)node.renderable;
+
+        if(shape.is2D())
+            return null;
+
+        GeometryRenderable geom = shape.getGeometryRenderable();
+
+        if(geom instanceof CustomGeometryRenderable)
+            return null;
+
+        return geom;
+    }
+
+    /**
+     * Check whether the two nodes, already known to share geometry, have
+     * identical rendering state.
+     *
+     * @param n1 The first node to compare
+     * @param n2 The second node to compare
+     * @return true if they can be drawn as instances of each other
+     */
+    private boolean isCompatible(GraphicsCullOutputDetails n1,
+                                 GraphicsCullOutputDetails n2)
+    {
+        ShapeRenderable s1 = (ShapeRenderable)n1.renderable;
+        ShapeRenderable s2 = (ShapeRenderable)n2.renderable;
+
+        if(s1.getAppearanceRenderable() != s2.getAppearanceRenderable() ||
+           n1.localFog != n2.localFog ||
+           n1.numLights != n2.numLights ||
+           n1.numClipPlanes != n2.numClipPlanes)
+            return false;
+
+        for(int i = 0; i < n1.numLights; i++)
+        {
+            if(!n1.lights[i].equals(n2.lights[i]))
+                return false;
+        }
+
+        for(int i = 0; i < n1.numClipPlanes; i++)
+        {
+            if(!n1.clipPlanes[i].equals(n2.clipPlanes[i]))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Create a new group starting with the given node.
+     *
+     * @param first The index of the first node in the group
+     * @return The index of the new group
+     */
+    private int newGroup(int first)
+    {
+        int g = numGroups++;
+
+        groupFirst[g] = first;
+        groupSize[g] = 1;
+        groupNext[g] = -1;
+
+        return g;
+    }
+
+    /**
+     * Make sure the working arrays can hold the given number of nodes.
+     *
+     * @param numNodes The number of nodes required
+     */
+    private void ensureCapacity(int numNodes)
+    {
+        if(nodeGroup.length >= numNodes)
+            return;
+
+        nodeGroup = new int[numNodes];
+        groupFirst = new int[numNodes];
+        groupStart = new int[numNodes];
+        groupSize = new int[numNodes];
+        groupNext = new int[numNodes];
+        tmpNodes = new GraphicsCullOutputDetails[numNodes];
+    }
+}
@@ -0,0 +1,834 @@
+/*****************************************************************************
+ *                        j3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.vecmath.Matrix4f;
+
+// Local imports
+import org.j3d.aviatrix3d.BoundingVoid;
+import org.j3d.aviatrix3d.rendering.*;
+
+import org.j3d.aviatrix3d.pipeline.RenderableRequestData;
+
+/**
+ * Frustum culling implementation that also removes objects hidden behind
+ * a set of nominated occluders, using a software hierarchical depth buffer.
+ * <p>
+ *
+ * After the scene has been frustum culled in the same way as
+ * {@link FrustumCullStage}, every visible shape that has been registered as
+ * an occluder is rasterised into a low resolution depth buffer on the CPU.
+ * A max-depth pyramid is then built from that buffer and the bounds of
+ * every other item on the cull list are tested against it. Anything whose
+ * screen footprint is entirely behind the occluders is removed from the
+ * output before it reaches the sort stage. No graphics hardware is used.
+ * <p>
+ *
+ * Occluders are registered either with a low-poly mesh that lies within the
+ * real geometry, or with no mesh at all, in which case the bounding box of
+ * the shape is used. Only use the bounding box for shapes that really fill
+ * their box, such as walls and buildings, as anything behind the box will be
+ * removed. Occluders themselves are never removed. Coverage is sampled at
+ * the centre of each depth buffer pixel, so the results are approximate at
+ * the scale of a single pixel of the depth buffer.
+ * <p>
+ *
+ * Occlusion is only applied to the main single pass scenes. Multipass
+ * rendering and 2D scenes are frustum culled only.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class OcclusionCullStage extends FrustumCullStage
+{
+    /** Default width of the depth buffer in pixels */
+    private static final int DEFAULT_DEPTH_WIDTH = 256;
+
+    /** Default height of the depth buffer in pixels */
+    private static final int DEFAULT_DEPTH_HEIGHT = 128;
+
+    /** Smallest clip space W value that is considered in front of the eye */
+    private static final float MIN_W = 1e-5f;
+
+    /** The widest block of texels checked at a single pyramid level */
+    private static final int MAX_TEST_TEXELS = 4;
+
+    /** Marker for occluders that use their bounds rather than a mesh */
+    private static final float[] BOUNDS_OCCLUDER = new float[0];
+
+    /** Corner indices for the 12 triangles of a box from getExtents */
+    private static final int[] BOX_TRIANGLES =
+    {
+        0, 1, 3,  0, 3, 2,   // -x
+        4, 6, 7,  4, 7, 5,   // +x
+        0, 4, 5,  0, 5, 1,   // -y
+        2, 3, 7,  2, 7, 6,   // +y
+        0, 2, 6,  0, 6, 4,   // -z
+        1, 5, 7,  1, 7, 3    // +z
+    };
+
+    /**
+     * The registered occluders and their meshes. Copied on write so that the
+     * cull can work from a consistent snapshot while the application thread
+     * changes the set.
+     */
+    private volatile Map<ShapeRenderable, float[]> occluders;
+
+    /** Lock for changes to the occluders */
+    private final Object occluderLock = new Object();
+
+    /** Is occlusion testing currently enabled */
+    private boolean occlusionEnabled;
+
+    /** Width of the depth buffer at level 0 */
+    private int depthWidth;
+
+    /** Height of the depth buffer at level 0 */
+    private int depthHeight;
+
+    /** Depth pyramid. Level 0 is the full resolution buffer */
+    private float[][] depthLevels;
+
+    /** The width of each pyramid level */
+    private int[] levelWidths;
+
+    /** The height of each pyramid level */
+    private int[] levelHeights;
+
+    /** Projection matrix from the view environment */
+    private float[] projectionArray;
+
+    /** Matrix from the scene root to clip space */
+    private Matrix4f clipMatrix;
+
+    /** Matrix from a node's local space to clip space */
+    private Matrix4f localClipMatrix;
+
+    /** Working matrix for the inverse view */
+    private Matrix4f invViewMatrix;
+
+    /** Working var for the bounds minimum extents */
+    private float[] minExtents;
+
+    /** Working var for the bounds maximum extents */
+    private float[] maxExtents;
+
+    /** Screen coordinates (x, y, depth) of the working vertices */
+    private float[] screenCoords;
+
+    /** Flags for the working vertices that could not be projected */
+    private boolean[] clipped;
+
+    /** Number of occluders rasterised during the last cull */
+    private int lastOccluderCount;
+
+    /** Number of bounds tested during the last cull */
+    private int lastTestedCount;
+
+    /** Number of objects removed by occlusion during the last cull */
+    private int lastOccludedCount;
+
+    /** Number of objects removed by occlusion since creation */
+    private long totalOccludedCount;
+
+    /**
+     * Create a basic instance of this class with the list assuming there are
+     * no off-screen buffers in use for the initial internal setup.
+     */
+    public OcclusionCullStage()
+    {
+        this(LIST_START_LENGTH);
+    }
+
+    /**
+     * Create a basic instance of this class with the list initial internal
+     * setup for the given number of renderable surfaces. The size is just an
+     * initial estimate, and is used for optimisation purposes to prevent
+     * frequent array reallocations internally. As such, the number does not
+     * have to be perfect, just good enough.
+     *
+     * @param numSurfaces Total number of surfaces to prepare rendering for
+     */
+    public OcclusionCullStage(int numSurfaces)
+    {
+        super(numSurfaces);
+
+        occluders = new HashMap<>();
+        occlusionEnabled = true;
+
+        projectionArray = new float[16];
+        clipMatrix = new Matrix4f();
+        localClipMatrix = new Matrix4f();
+        invViewMatrix = new Matrix4f();
+
+        minExtents = new float[3];
+        maxExtents = new float[3];
+        screenCoords = new float[8 * 3];
+        clipped = new boolean[8];
+
+        setDepthBufferSize(DEFAULT_DEPTH_WIDTH, DEFAULT_DEPTH_HEIGHT);
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by CullStage
+    //---------------------------------------------------------------
+
+    /**
+     * Update and cull the scenegraph defined by a set of layers. This
+     * generates an ordered list of nodes to render. It will not return until
+     * the culling is complete.
+     *
+     * @param otherData data to be passed along unprocessed
+     * @param profilingData The timing and load data on each stage
+     * @param layers The collection of layers, in order, to render
+     * @param numLayers The number of valid layers to use
+     */
+    @Override
+    public void cull(RenderableRequestData otherData,
+                     ProfilingData profilingData,
+                     LayerCullable[] layers,
+                     int numLayers)
+    {
+        lastOccluderCount = 0;
+        lastTestedCount = 0;
+        lastOccludedCount = 0;
+
+        super.cull(otherData, profilingData, layers, numLayers);
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by BaseCullStage
+    //---------------------------------------------------------------
+
+    /**
+     * Update and cull the scenegraph. This generates an ordered list
+     * of nodes to render. It will not return until the culling is complete.
+     *
+     * @param scene The scene instance to cull
+     * @param subsceneId The index of the subscene in the viewport output
+     * @param layerId The index of the layer in the output
+     * @param viewIndex The index of the viewport in the parent
+     *    ViewportCollection
+     * @param layerIndex The index of the layer within the viewport
+     */
+    @Override
+    protected void cullScene(RenderPassCullable scene,
+                             int subsceneId,
+                             int layerId,
+                             int viewIndex,
+                             int layerIndex)
+    {
+        super.cullScene(scene, subsceneId, layerId, viewIndex, layerIndex);
+
+        Map<ShapeRenderable, float[]> current_occluders = occluders;
+
+        if(!occlusionEnabled || current_occluders.isEmpty() || terminate)
+            return;
+
+        SceneRenderBucket bucket =
+            workLayers[subsceneId][layerId].viewports[viewIndex].scenes[layerIndex];
+
+        if(bucket.numNodes < 2)
+            return;
+
+        updateClipMatrix(scene.getViewCullable(), bucket.data);
+        occludeBucket(bucket, current_occluders);
+    }
+
+    //---------------------------------------------------------------
+    // Local methods
+    //---------------------------------------------------------------
+
+    /**
+     * Register a shape as an occluder that uses its bounding box as the
+     * occluding volume. Only use this for shapes that completely fill their
+     * bounds. If the shape is already registered, its mesh is replaced.
+     *
+     * @param shape The shape to register
+     */
+    public void addOccluder(ShapeRenderable shape)
+    {
+        if(shape != null)
+            putOccluder(shape, BOUNDS_OCCLUDER);
+    }
+
+    /**
+     * Register a shape as an occluder using a low-poly mesh. The mesh is a
+     * flat list of triangles, 9 values per triangle, in the local coordinate
+     * system of the shape. It must lie within the real geometry of the
+     * shape. The array is referenced, not copied.
+     *
+     * @param shape The shape to register
+     * @param triangles The triangle coordinates of the occluder mesh
+     * @param numTriangles The number of triangles to use from the array
+     * @throws IllegalArgumentException The array is too short for the
+     *    number of triangles
+     */
+    public void addOccluder(ShapeRenderable shape,
+                            float[] triangles,
+                            int numTriangles)
+    {
+        if(shape == null)
+            return;
+
+        if(triangles == null || numTriangles == 0)
+        {
+            putOccluder(shape, BOUNDS_OCCLUDER);
+            return;
+        }
+
+        if(triangles.length < numTriangles * 9)
+            throw new IllegalArgumentException("Occluder mesh too short");
+
+        if(triangles.length == numTriangles * 9)
+        {
+            putOccluder(shape, triangles);
+        }
+        else
+        {
+            float[] tmp = new float[numTriangles * 9];
+            System.arraycopy(triangles, 0, tmp, 0, tmp.length);
+            putOccluder(shape, tmp);
+        }
+    }
+
+    /**
+     * Remove a shape from the set of occluders. If it is not registered,
+     * the request is silently ignored.
+     *
+     * @param shape The shape to remove
+     */
+    public void removeOccluder(ShapeRenderable shape)
+    {
+        synchronized(occluderLock)
+        {
+            if(!occluders.containsKey(shape))
+                return;
+
+            Map<ShapeRenderable, float[]> tmp = new HashMap<>(occluders);
+            tmp.remove(shape);
+            occluders = tmp;
+        }
+    }
+
+    /**
+     * Remove all the registered occluders.
+     */
+    public void clearOccluders()
+    {
+        synchronized(occluderLock)
+        {
+            occluders = new HashMap<>();
+        }
+    }
+
+    /**
+     * Enable or disable the occlusion pass. When disabled, this behaves
+     * exactly as a {@link FrustumCullStage}.
+     *
+     * @param state true to enable occlusion testing
+     */
+    public void setOcclusionEnabled(boolean state)
+    {
+        occlusionEnabled = state;
+    }
+
+    /**
+     * Check to see if the occlusion pass is enabled.
+     *
+     * @return true if occlusion testing is enabled
+     */
+    public boolean isOcclusionEnabled()
+    {
+        return occlusionEnabled;
+    }
+
+    /**
+     * Set the size of the software depth buffer. Larger buffers are more
+     * accurate, but take longer to fill and test.
+     *
+     * @param width The width of the buffer in pixels
+     * @param height The height of the buffer in pixels
+     * @throws IllegalArgumentException Either dimension was less than 1
+     */
+    public void setDepthBufferSize(int width, int height)
+    {
+        if(width < 1 || height < 1)
+            throw new IllegalArgumentException("Depth buffer size < 1");
+
+        depthWidth = width;
+        depthHeight = height;
+
+        int num_levels = 1;
+        int w = width;
+        int h = height;
+
+        while(w > 1 || h > 1)
+        {
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+            num_levels++;
+        }
+
+        depthLevels = new float[num_levels][];
+        levelWidths = new int[num_levels];
+        levelHeights = new int[num_levels];
+
+        w = width;
+        h = height;
+
+        for(int i = 0; i < num_levels; i++)
+        {
+            levelWidths[i] = w;
+            levelHeights[i] = h;
+            depthLevels[i] = new float[w * h];
+
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+        }
+    }
+
+    /**
+     * Get the number of occluders that were rasterised during the last cull.
+     *
+     * @return A non-negative count
+     */
+    public int getLastOccluderCount()
+    {
+        return lastOccluderCount;
+    }
+
+    /**
+     * Get the number of objects that had their bounds tested against the
+     * depth buffer during the last cull.
+     *
+     * @return A non-negative count
+     */
+    public int getLastTestedCount()
+    {
+        return lastTestedCount;
+    }
+
+    /**
+     * Get the number of objects that were removed by occlusion during the
+     * last cull.
+     *
+     * @return A non-negative count
+     */
+    public int getLastOccludedCount()
+    {
+        return lastOccludedCount;
+    }
+
+    /**
+     * Get the total number of objects that have been removed by occlusion
+     * since this stage was created.
+     *
+     * @return A non-negative count
+     */
+    public long getTotalOccludedCount()
+    {
+        return totalOccludedCount;
+    }
+
+    /**
+     * Add or replace an occluder by swapping in a new copy of the map.
+     *
+     * @param shape The shape to register
+     * @param mesh The mesh of the shape or BOUNDS_OCCLUDER
+     */
+    private void putOccluder(ShapeRenderable shape, float[] mesh)
+    {
+        synchronized(occluderLock)
+        {
+            Map<ShapeRenderable, float[]> tmp = new HashMap<>(occluders);
+            tmp.put(shape, mesh);
+            occluders = tmp;
+        }
+    }
+
+    /**
+     * Rasterise the occluders in the bucket, then remove everything that is
+     * hidden behind them. The order of the remaining items is unchanged.
+     *
+     * @param bucket The bucket holding the frustum culled output
+     * @param currentOccluders The occluders to use for this cull
+     */
+    private void occludeBucket(SceneRenderBucket bucket,
+                               Map<ShapeRenderable, float[]> currentOccluders)
+    {
+        GraphicsCullOutputDetails[] nodes = bucket.nodes;
+        int num_nodes = bucket.numNodes;
+
+        float[] depth = depthLevels[0];
+        for(int i = 0; i < depth.length; i++)
+            depth[i] = 1;
+
+        int num_occluders = 0;
+
+        for(int i = 0; i < num_nodes; i++)
+        {
+            float[] mesh = currentOccluders.get(nodes[i].renderable);
+
+            if(mesh == null)
+                continue;
+
+            localClipMatrix.mul(clipMatrix, nodes[i].transform);
+
+            if(mesh == BOUNDS_OCCLUDER)
+                rasteriseBounds(nodes[i].cullableBounds);
+            else
+                rasteriseMesh(mesh);
+
+            num_occluders++;
+        }
+
+        lastOccluderCount += num_occluders;
+
+        if(num_occluders == 0)
+            return;
+
+        buildPyramid();
+
+        int num_kept = 0;
+
+        for(int i = 0; i < num_nodes; i++)
+        {
+            GraphicsCullOutputDetails details = nodes[i];
+            boolean keep = true;
+
+            if(!currentOccluders.containsKey(details.renderable) &&
+               details.cullableBounds != null &&
+               !(details.cullableBounds instanceof BoundingVoid))
+            {
+                lastTestedCount++;
+                localClipMatrix.mul(clipMatrix, details.transform);
+                keep = !isOccluded(details.cullableBounds);
+            }
+
+            if(keep)
+            {
+                // Shuffle the removed details to the end of the list so
+                // that they are cleaned up with the rest of the unused ones.
+                if(num_kept != i)
+                {
+                    nodes[i] = nodes[num_kept];
+                    nodes[num_kept] = details;
+                }
+
+                num_kept++;
+            }
+        }
+
+        int removed = num_nodes - num_kept;
+        lastOccludedCount += removed;
+        totalOccludedCount += removed;
+        bucket.numNodes = num_kept;
+    }
+
+    /**
+     * Rasterise the bounding box of an occluder with the current local clip
+     * matrix.
+     *
+     * @param bounds The bounds of the occluder
+     */
+    private void rasteriseBounds(BoundingVolume bounds)
+    {
+        if(bounds == null || bounds instanceof BoundingVoid)
+            return;
+
+        projectBox(bounds);
+
+        for(int i = 0; i < BOX_TRIANGLES.length; i += 3)
+            rasteriseTriangle(BOX_TRIANGLES[i],
+                              BOX_TRIANGLES[i + 1],
+                              BOX_TRIANGLES[i + 2]);
+    }
+
+    /**
+     * Rasterise an occluder mesh with the current local clip matrix.
+     *
+     * @param mesh The flat list of triangle coordinates
+     */
+    private void rasteriseMesh(float[] mesh)
+    {
+        for(int i = 0; i < mesh.length; i += 9)
+        {
+            projectVertex(mesh[i], mesh[i + 1], mesh[i + 2], 0);
+            projectVertex(mesh[i + 3], mesh[i + 4], mesh[i + 5], 1);
+            projectVertex(mesh[i + 6], mesh[i + 7], mesh[i + 8], 2);
+
+            rasteriseTriangle(0, 1, 2);
+        }
+    }
+
+    /**
+     * Rasterise a single triangle from the working screen coordinates into
+     * the level 0 depth buffer. Triangles that cross the near clip plane are
+     * ignored, which can only make the occlusion less aggressive.
+     *
+     * @param v0 Index of the first vertex in the working list
+     * @param v1 Index of the second vertex in the working list
+     * @param v2 Index of the third vertex in the working list
+     */
+    private void rasteriseTriangle(int v0, int v1, int v2)
+    {
+        if(clipped[v0] || clipped[v1] || clipped[v2])
+            return;
+
+        float x0 = screenCoords[v0 * 3];
+        float y0 = screenCoords[v0 * 3 + 1];
+        float z0 = screenCoords[v0 * 3 + 2];
+        float x1 = screenCoords[v1 * 3];
+        float y1 = screenCoords[v1 * 3 + 1];
+        float z1 = screenCoords[v1 * 3 + 2];
+        float x2 = screenCoords[v2 * 3];
+        float y2 = screenCoords[v2 * 3 + 1];
+        float z2 = screenCoords[v2 * 3 + 2];
+
+        float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+
+        if(area == 0)
+            return;
+
+        int min_x = (int)Math.ceil(Math.min(x0, Math.min(x1, x2)) - 0.5f);
+        int max_x = (int)Math.floor(Math.max(x0, Math.max(x1, x2)) - 0.5f);
+        int min_y = (int)Math.ceil(Math.min(y0, Math.min(y1, y2)) - 0.5f);
+        int max_y = (int)Math.floor(Math.max(y0, Math.max(y1, y2)) - 0.5f);
+
+        if(min_x < 0)
+            min_x = 0;
+
+        if(min_y < 0)
+            min_y = 0;
+
+        if(max_x >= depthWidth)
+            max_x = depthWidth - 1;
+
+        if(max_y >= depthHeight)
+            max_y = depthHeight - 1;
+
+        float inv_area = 1 / area;
+        float[] depth = depthLevels[0];
+
+        for(int y = min_y; y <= max_y; y++)
+        {
+            float py = y + 0.5f;
+            int row = y * depthWidth;
+
+            for(int x = min_x; x <= max_x; x++)
+            {
+                float px = x + 0.5f;
+
+                float b0 = ((x2 - x1) * (py - y1) - (px - x1) * (y2 - y1)) * inv_area;
+                float b1 = ((x0 - x2) * (py - y2) - (px - x2) * (y0 - y2)) * inv_area;
+                float b2 = 1 - b0 - b1;
+
+                if(b0 < 0 || b1 < 0 || b2 < 0)
+                    continue;
+
+                float z = b0 * z0 + b1 * z1 + b2 * z2;
+
+                if(z < depth[row + x])
+                    depth[row + x] = z;
+            }
+        }
+    }
+
+    /**
+     * Build the max-depth pyramid from the level 0 buffer.
+     */
+    private void buildPyramid()
+    {
+        for(int l = 1; l < depthLevels.length; l++)
+        {
+            float[] src = depthLevels[l - 1];
+            float[] dest = depthLevels[l];
+            int src_w = levelWidths[l - 1];
+            int src_h = levelHeights[l - 1];
+            int w = levelWidths[l];
+            int h = levelHeights[l];
+
+            for(int y = 0; y < h; y++)
+            {
+                int sy0 = (y << 1) * src_w;
+                int sy1 = Math.min((y << 1) + 1, src_h - 1) * src_w;
+
+                for(int x = 0; x < w; x++)
+                {
+                    int sx0 = x << 1;
+                    int sx1 = Math.min(sx0 + 1, src_w - 1);
+
+                    float d = Math.max(Math.max(src[sy0 + sx0], src[sy0 + sx1]),
+                                       Math.max(src[sy1 + sx0], src[sy1 + sx1]));
+
+                    dest[y * w + x] = d;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check to see if the given bounds, using the current local clip
+     * matrix, are completely hidden by the depth pyramid.
+     *
+     * @param bounds The bounds to check
+     * @return true if nothing of the bounds can be seen
+     */
+    private boolean isOccluded(BoundingVolume bounds)
+    {
+        projectBox(bounds);
+
+        float min_x = Float.POSITIVE_INFINITY;
+        float max_x = Float.NEGATIVE_INFINITY;
+        float min_y = Float.POSITIVE_INFINITY;
+        float max_y = Float.NEGATIVE_INFINITY;
+        float min_z = Float.POSITIVE_INFINITY;
+
+        for(int i = 0; i < 8; i++)
+        {
+            // Crossing the near plane means it is right in front of us.
+            if(clipped[i])
+                return false;
+
+            float x = screenCoords[i * 3];
+            float y = screenCoords[i * 3 + 1];
+            float z = screenCoords[i * 3 + 2];
+
+            if(x < min_x)
+                min_x = x;
+
+            if(x > max_x)
+                max_x = x;
+
+            if(y < min_y)
+                min_y = y;
+
+            if(y > max_y)
+                max_y = y;
+
+            if(z < min_z)
+                min_z = z;
+        }
+
+        int x0 = Math.max((int)Math.floor(min_x), 0);
+        int y0 = Math.max((int)Math.floor(min_y), 0);
+        int x1 = Math.min((int)Math.floor(max_x), depthWidth - 1);
+        int y1 = Math.min((int)Math.floor(max_y), depthHeight - 1);
+
+        if(x0 > x1 || y0 > y1)
+            return false;
+
+        int level = 0;
+
+        while(level < depthLevels.length - 1 &&
+              (((x1 >> level) - (x0 >> level)) >= MAX_TEST_TEXELS ||
+               ((y1 >> level) - (y0 >> level)) >= MAX_TEST_TEXELS))
+            level++;
+
+        float[] depth = depthLevels[level];
+        int w = levelWidths[level];
+        int lx0 = x0 >> level;
+        int lx1 = x1 >> level;
+        int ly0 = y0 >> level;
+        int ly1 = y1 >> level;
+
+        for(int y = ly0; y <= ly1; y++)
+        {
+            int row = y * w;
+
+            for(int x = lx0; x <= lx1; x++)
+            {
+                if(depth[row + x] >= min_z)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Project the 8 corners of the bounds extents into the working screen
+     * coordinate list using the current local clip matrix.
+     *
+     * @param bounds The bounds to project
+     */
+    private void projectBox(BoundingVolume bounds)
+    {
+        bounds.getExtents(minExtents, maxExtents);
+
+        for(int i = 0; i < 8; i++)
+        {
+            float x = (i & 4) == 0 ? minExtents[0] : maxExtents[0];
+            float y = (i & 2) == 0 ? minExtents[1] : maxExtents[1];
+            float z = (i & 1) == 0 ? minExtents[2] : maxExtents[2];
+
+            projectVertex(x, y, z, i);
+        }
+    }
+
+    /**
+     * Transform a single vertex with the local clip matrix and place the
+     * resulting depth buffer coordinates in the working list.
+     *
+     * @param x The x coordinate of the vertex
+     * @param y The y coordinate of the vertex
+     * @param z The z coordinate of the vertex
+     * @param index The index of the vertex in the working list
+     */
+    private void projectVertex(float x, float y, float z, int index)
+    {
+        Matrix4f m = localClipMatrix;
+
+        float cx = m.m00 * x + m.m01 * y + m.m02 * z + m.m03;
+        float cy = m.m10 * x + m.m11 * y + m.m12 * z + m.m13;
+        float cz = m.m20 * x + m.m21 * y + m.m22 * z + m.m23;
+        float cw = m.m30 * x + m.m31 * y + m.m32 * z + m.m33;
+
+        if(cw < MIN_W || cz < -cw)
+        {
+            clipped[index] = true;
+            return;
+        }
+
+        clipped[index] = false;
+
+        float inv_w = 1 / cw;
+        int pos = index * 3;
+
+        screenCoords[pos] = (cx * inv_w * 0.5f + 0.5f) * depthWidth;
+        screenCoords[pos + 1] = (cy * inv_w * 0.5f + 0.5f) * depthHeight;
+        screenCoords[pos + 2] = cz * inv_w;
+    }
+
+    /**
+     * Recalculate the matrix from the scene root to clip space for the given
+     * view environment.
+     *
+     * @param viewEnv Current viewing environment data from the scene
+     * @param envData The place to source the view transform from
+     */
+    private void updateClipMatrix(ViewEnvironmentCullable viewEnv,
+                                  GraphicsEnvironmentData envData)
+    {
+        viewEnv.getProjectionMatrix(projectionArray);
+        clipMatrix.set(projectionArray);
+
+        matrixUtils.inverse(envData.viewTransform, invViewMatrix);
+        clipMatrix.mul(invViewMatrix);
+    }
+}
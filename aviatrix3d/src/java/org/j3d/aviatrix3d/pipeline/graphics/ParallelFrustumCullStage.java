@@ -0,0 +1,748 @@
+/*****************************************************************************
+ *                        j3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.vecmath.Matrix4f;
+
+// Local imports
+import org.j3d.aviatrix3d.rendering.*;
+
+import org.j3d.aviatrix3d.pipeline.RenderableRequestData;
+
+/**
+ * Frustum culling implementation that splits the children of large groups
+ * near the top of the scene graph across a fork-join pool.
+ * <p>
+ *
+ * The traversal rules are identical to {@link FrustumCullStage}. When the
+ * walk reaches a group within the split depth that has at least the minimum
+ * number of children, the children are divided into contiguous ranges and
+ * each range is culled by its own worker. Every worker has private
+ * transform, light, clip plane, fog and appearance stacks, primed with the
+ * state of the parent group at the split point. Once all workers have
+ * completed, their output is appended to the cull list in child order so
+ * the result is exactly the same list that the single threaded stage would
+ * produce for the same scene.
+ * <p>
+ *
+ * Offscreen textures and global lights found by the workers are also
+ * processed back on the calling thread in child order.
+ * <p>
+ *
+ * Any {@link CustomCullable} or {@link CustomGeometryRenderable} in the scene
+ * may be called from one of the pool threads rather than the thread that
+ * called {@link #cull}, and several different instances may be called at the
+ * same time. If the scene contains custom culling code that is not safe to
+ * call this way, use {@link FrustumCullStage} instead.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class ParallelFrustumCullStage extends FrustumCullStage
+{
+    /** Default minimum number of children a group needs before splitting */
+    private static final int DEFAULT_MIN_CHILDREN = 64;
+
+    /** Default number of group levels below the root that may be split */
+    private static final int DEFAULT_SPLIT_DEPTH = 4;
+
+    /** The number of ranges to create per thread in the pool */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /** Initial size of the cull list for each worker */
+    private static final int WORKER_LIST_SIZE = 64;
+
+    /** The pool to run the workers with */
+    private final ForkJoinPool pool;
+
+    /** Minimum number of children in a group before it is split */
+    private int minParallelChildren;
+
+    /** Maximum depth of group below the root that may be split */
+    private int maxSplitDepth;
+
+    /** Depth of the group currently being walked on the calling thread */
+    private int groupDepth;
+
+    /** Worker stages, one per range. Kept between frames for reuse */
+    private CullWorker[] workers;
+
+    /** Task instances, one per range. Kept between frames for reuse */
+    private RangeTask[] rangeTasks;
+
+    /** Number of times a group was split during the last call to cull */
+    private int lastSplitCount;
+
+    /**
+     * Task that culls a single range of children using its own worker.
+     */
+    private static class RangeTask extends RecursiveAction
+    {
+        /** Version ID for serialization */
+        private static final long serialVersionUID = 1L;
+
+        /** The worker used to process the range */
+        final CullWorker worker;
+
+        /** The stage that the state is copied from */
+        FrustumCullStage source;
+
+        /** The children of the group being split */
+        Cullable[] kids;
+
+        /** The first child index to process */
+        int start;
+
+        /** The index after the last child to process */
+        int end;
+
+        /** Is the parent group completely inside the view frustum */
+        boolean allInBounds;
+
+        /**
+         * Create a new task that uses the given worker.
+         *
+         * @param worker The worker to do the culling with
+         */
+        RangeTask(CullWorker worker)
+        {
+            this.worker = worker;
+        }
+
+        @Override
+        protected void compute()
+        {
+            worker.cullRange(source, kids, start, end, allInBounds);
+        }
+    }
+
+    /**
+     * Task that forks all the range tasks and waits for them to complete.
+     */
+    private static class SplitTask extends RecursiveAction
+    {
+        /** Version ID for serialization */
+        private static final long serialVersionUID = 1L;
+
+        /** The list of tasks to run */
+        private final RangeTask[] tasks;
+
+        /** The number of valid tasks in the list */
+        private final int numTasks;
+
+        /**
+         * Create a new task to run the given set of range tasks.
+         *
+         * @param tasks The tasks to run
+         * @param numTasks The number of valid tasks in the list
+         */
+        SplitTask(RangeTask[] tasks, int numTasks)
+        {
+            this.tasks = tasks;
+            this.numTasks = numTasks;
+        }
+
+        @Override
+        protected void compute()
+        {
+            for(int i = 1; i < numTasks; i++)
+                tasks[i].fork();
+
+            tasks[0].invoke();
+
+            // Join in reverse so that any tasks that were not stolen are
+            // run directly on this thread.
+            for(int i = numTasks - 1; i > 0; i--)
+                tasks[i].join();
+        }
+    }
+
+    /**
+     * Cull stage used to walk a single range of children from a split group.
+     * Offscreen texture checks are recorded rather than processed so that the
+     * parent stage can process them in the same order as a sequential walk.
+     */
+    private static class CullWorker extends FrustumCullStage
+    {
+        /** Shapes that need to be checked for offscreen textures */
+        private ShapeRenderable[] offscreenShapes;
+
+        /** Number of valid shapes in the offscreen list */
+        private int numOffscreenShapes;
+
+        /** Number of valid items in the cull list after the last range */
+        private int numNodes;
+
+        /**
+         * Create a new worker instance.
+         */
+        CullWorker()
+        {
+            super(1);
+
+            workCullList = new GraphicsCullOutputDetails[WORKER_LIST_SIZE];
+            for(int i = 0; i < WORKER_LIST_SIZE; i++)
+                workCullList[i] = new GraphicsCullOutputDetails();
+
+            offscreenShapes = new ShapeRenderable[LIST_INCREMENT];
+        }
+
+        /**
+         * Record the shape so that the parent stage can check it.
+         *
+         * @param shape The object instance to process
+         */
+        @Override
+        protected void checkForOffscreens(ShapeRenderable shape)
+        {
+            if(numOffscreenShapes == offscreenShapes.length)
+            {
+                ShapeRenderable[] tmp =
+                    new ShapeRenderable[numOffscreenShapes + LIST_INCREMENT];
+                System.arraycopy(offscreenShapes,
+                                 0,
+                                 tmp,
+                                 0,
+                                 numOffscreenShapes);
+                offscreenShapes = tmp;
+            }
+
+            offscreenShapes[numOffscreenShapes++] = shape;
+        }
+
+        /**
+         * Cull a range of children of a group, starting with the current
+         * stack state of the source stage.
+         *
+         * @param src The stage to take the view and stack state from
+         * @param kids The children of the group being split
+         * @param start The first child index to process
+         * @param end The index after the last child to process
+         * @param allInBounds The parent group is completely inside the view
+         *    frustum
+         */
+        void cullRange(FrustumCullStage src,
+                       Cullable[] kids,
+                       int start,
+                       int end,
+                       boolean allInBounds)
+        {
+            copyViewState(src);
+            copyStacks(src);
+
+            terminate = false;
+            checkOffscreens = src.checkOffscreens;
+            numOffscreenShapes = 0;
+
+            int count = 0;
+
+            for(int i = start; i < end && !terminate; i++)
+                count = cullChild(kids[i], allInBounds, count);
+
+            numNodes = count;
+        }
+
+        /**
+         * Release the references held from the last range once the output
+         * has been taken by the parent stage.
+         */
+        void clear()
+        {
+            for(int i = 0; i <= lastTxStack; i++)
+                transformStack[i].setIdentity();
+
+            for(int i = 0; i < lastLight; i++)
+                lightList[i] = null;
+
+            for(int i = 0; i < lastClip; i++)
+                clipList[i] = null;
+
+            for(int i = 0; i <= lastFogStack; i++)
+                fogStack[i] = null;
+
+            for(int i = 0; i <= lastAppearanceStack; i++)
+                appearanceStack[i] = null;
+
+            for(int i = 0; i < numOffscreenShapes; i++)
+                offscreenShapes[i] = null;
+
+            lastTxStack = 0;
+            lastLight = 0;
+            lastClip = 0;
+            lastFogStack = 0;
+            lastAppearanceStack = 0;
+            numOffscreenShapes = 0;
+            numNodes = 0;
+
+            cleanupOldRefs();
+        }
+
+        /**
+         * Copy the current transform and effect stacks from the source.
+         *
+         * @param src The stage to copy the state from
+         */
+        private void copyStacks(FrustumCullStage src)
+        {
+            if(transformStack.length < src.transformStack.length)
+            {
+                int old_size = transformStack.length;
+                Matrix4f[] tmp = new Matrix4f[src.transformStack.length];
+                System.arraycopy(transformStack, 0, tmp, 0, old_size);
+
+                for(int i = old_size; i < tmp.length; i++)
+                    tmp[i] = new Matrix4f();
+
+                transformStack = tmp;
+            }
+
+            lastTxStack = src.lastTxStack;
+            for(int i = 0; i <= lastTxStack; i++)
+                transformStack[i].set(src.transformStack[i]);
+
+            if(lightList.length < src.lightList.length)
+            {
+                lightList = new EffectRenderable[src.lightList.length];
+                lightTxList = new float[src.lightList.length][16];
+            }
+
+            lastLight = src.lastLight;
+            for(int i = 0; i < lastLight; i++)
+            {
+                lightList[i] = src.lightList[i];
+                System.arraycopy(src.lightTxList[i], 0, lightTxList[i], 0, 16);
+            }
+
+            if(clipList.length < src.clipList.length)
+            {
+                clipList = new EffectRenderable[src.clipList.length];
+                clipTxList = new float[src.clipList.length][16];
+            }
+
+            lastClip = src.lastClip;
+            for(int i = 0; i < lastClip; i++)
+            {
+                clipList[i] = src.clipList[i];
+                System.arraycopy(src.clipTxList[i], 0, clipTxList[i], 0, 16);
+            }
+
+            if(fogStack.length < src.fogStack.length)
+                fogStack = new EffectRenderable[src.fogStack.length];
+
+            lastFogStack = src.lastFogStack;
+            System.arraycopy(src.fogStack, 0, fogStack, 0, lastFogStack + 1);
+
+            if(appearanceStack.length < src.appearanceStack.length)
+                appearanceStack =
+                    new OverrideRenderable[src.appearanceStack.length];
+
+            lastAppearanceStack = src.lastAppearanceStack;
+            System.arraycopy(src.appearanceStack,
+                             0,
+                             appearanceStack,
+                             0,
+                             lastAppearanceStack + 1);
+        }
+    }
+
+    /**
+     * Create a basic instance of this class with the list assuming there are
+     * no off-screen buffers in use for the initial internal setup. The common
+     * fork-join pool is used to run the workers.
+     */
+    public ParallelFrustumCullStage()
+    {
+        this(LIST_START_LENGTH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a basic instance of this class with the list initial internal
+     * setup for the given number of renderable surfaces. The common fork-join
+     * pool is used to run the workers.
+     *
+     * @param numSurfaces Total number of surfaces to prepare rendering for
+     */
+    public ParallelFrustumCullStage(int numSurfaces)
+    {
+        this(numSurfaces, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an instance of this class that runs the workers with the given
+     * pool. The size is just an initial estimate, and is used for
+     * optimisation purposes to prevent frequent array reallocations
+     * internally.
+     *
+     * @param numSurfaces Total number of surfaces to prepare rendering for
+     * @param pool The pool to run the culling workers in
+     * @throws IllegalArgumentException The pool was null
+     */
+    public ParallelFrustumCullStage(int numSurfaces, ForkJoinPool pool)
+    {
+        super(numSurfaces);
+
+        if(pool == null)
+            throw new IllegalArgumentException("Fork join pool is null");
+
+        this.pool = pool;
+
+        minParallelChildren = DEFAULT_MIN_CHILDREN;
+        maxSplitDepth = DEFAULT_SPLIT_DEPTH;
+
+        workers = new CullWorker[0];
+        rangeTasks = new RangeTask[0];
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by CullStage
+    //---------------------------------------------------------------
+
+    /**
+     * Update and cull the scenegraph defined by a set of layers. This
+     * generates an ordered list of nodes to render. It will not return until
+     * the culling is complete.
+     *
+     * @param otherData data to be passed along unprocessed
+     * @param profilingData The timing and load data on each stage
+     * @param layers The collection of layers, in order, to render
+     * @param numLayers The number of valid layers to use
+     */
+    @Override
+    public void cull(RenderableRequestData otherData,
+                     ProfilingData profilingData,
+                     LayerCullable[] layers,
+                     int numLayers)
+    {
+        lastSplitCount = 0;
+
+        super.cull(otherData, profilingData, layers, numLayers);
+    }
+
+    /**
+     * Force a halt of the current processing. Any processing in progress,
+     * including that of the worker threads, should exit immediately.
+     */
+    @Override
+    public void halt()
+    {
+        super.halt();
+
+        for(int i = 0; i < workers.length; i++)
+            workers[i].halt();
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by BaseCullStage
+    //---------------------------------------------------------------
+
+    /**
+     * Update and cull the scenegraph. This generates an ordered list
+     * of nodes to render. It will not return until the culling is complete.
+     *
+     * @param scene The scene instance to cull
+     * @param subsceneId The index of the subscene in the viewport output
+     * @param layerId The index of the layer in the output
+     * @param viewIndex The index of the viewport in the parent
+     *    ViewportCollection
+     * @param layerIndex The index of the layer within the viewport
+     */
+    @Override
+    protected void cullScene(RenderPassCullable scene,
+                             int subsceneId,
+                             int layerId,
+                             int viewIndex,
+                             int layerIndex)
+    {
+        groupDepth = 0;
+        super.cullScene(scene, subsceneId, layerId, viewIndex, layerIndex);
+    }
+
+    /**
+     * Update and cull the a single pass from a multipass rendering.
+     *
+     * @param pass The rendering pass instance to cull
+     * @param passNumber The index of the pass being culled
+     * @param subsceneId The index of the subscene in the viewport output
+     * @param layerId The index of the layer in the output
+     * @param viewIndex The index of the viewport in the parent
+     *    ViewportCollection
+     * @param layerIndex The index of the layer within the viewport
+     */
+    @Override
+    protected void cullRenderPass(RenderPassCullable pass,
+                                  int passNumber,
+                                  int subsceneId,
+                                  int layerId,
+                                  int viewIndex,
+                                  int layerIndex)
+    {
+        groupDepth = 0;
+        super.cullRenderPass(pass,
+                             passNumber,
+                             subsceneId,
+                             layerId,
+                             viewIndex,
+                             layerIndex);
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by FrustumCullStage
+    //---------------------------------------------------------------
+
+    /**
+     * Walk the children of a group. If the group is large enough and close
+     * enough to the root, the children are split across the pool, otherwise
+     * they are walked on the calling thread.
+     *
+     * @param group The parent group that is being walked
+     * @param kids The cullable children of the group
+     * @param size The number of valid children in the array
+     * @param allInBounds All of this group is inside the view frustum
+     * @param cullEndIndex The current last item on the cull list
+     * @return The index of the last item on the cull list
+     */
+    @Override
+    int cullGroupChildren(GroupCullable group,
+                          Cullable[] kids,
+                          int size,
+                          boolean allInBounds,
+                          int cullEndIndex)
+    {
+        int num_ranges = Math.min(size / 2,
+                                  pool.getParallelism() * RANGES_PER_THREAD);
+
+        if(size < minParallelChildren ||
+           groupDepth > maxSplitDepth ||
+           num_ranges < 2)
+        {
+            groupDepth++;
+            int ret_val = super.cullGroupChildren(group,
+                                                  kids,
+                                                  size,
+                                                  allInBounds,
+                                                  cullEndIndex);
+            groupDepth--;
+
+            return ret_val;
+        }
+
+        return splitGroupChildren(kids,
+                                  size,
+                                  num_ranges,
+                                  allInBounds,
+                                  cullEndIndex);
+    }
+
+    //---------------------------------------------------------------
+    // Local methods
+    //---------------------------------------------------------------
+
+    /**
+     * Set the minimum number of children a group must have before the
+     * children are split across the pool. Smaller groups are walked on the
+     * calling thread.
+     *
+     * @param size The minimum number of children. Must be at least 2
+     * @throws IllegalArgumentException The size was less than 2
+     */
+    public void setMinParallelChildren(int size)
+    {
+        if(size < 2)
+            throw new IllegalArgumentException("Minimum children < 2");
+
+        minParallelChildren = size;
+    }
+
+    /**
+     * Get the minimum number of children a group must have before the
+     * children are split across the pool.
+     *
+     * @return A value of 2 or greater
+     */
+    public int getMinParallelChildren()
+    {
+        return minParallelChildren;
+    }
+
+    /**
+     * Set the number of levels of group below the root that are candidates
+     * for splitting. A value of zero only considers the root group of each
+     * scene.
+     *
+     * @param depth The maximum depth. Must be non-negative
+     * @throws IllegalArgumentException The depth was negative
+     */
+    public void setMaxSplitDepth(int depth)
+    {
+        if(depth < 0)
+            throw new IllegalArgumentException("Split depth is negative");
+
+        maxSplitDepth = depth;
+    }
+
+    /**
+     * Get the number of levels of group below the root that are candidates
+     * for splitting.
+     *
+     * @return A non-negative value
+     */
+    public int getMaxSplitDepth()
+    {
+        return maxSplitDepth;
+    }
+
+    /**
+     * Get the number of groups that were split across the pool during the
+     * last call to cull.
+     *
+     * @return A non-negative count
+     */
+    public int getLastSplitCount()
+    {
+        return lastSplitCount;
+    }
+
+    /**
+     * Split the children of the group into ranges, cull each range in the
+     * pool and then merge the output in child order.
+     *
+     * @param kids The cullable children of the group
+     * @param size The number of valid children in the array
+     * @param numRanges The number of ranges to divide the children into
+     * @param allInBounds All of this group is inside the view frustum
+     * @param cullEndIndex The current last item on the cull list
+     * @return The index of the last item on the cull list
+     */
+    private int splitGroupChildren(Cullable[] kids,
+                                   int size,
+                                   int numRanges,
+                                   boolean allInBounds,
+                                   int cullEndIndex)
+    {
+        resizeWorkers(numRanges);
+
+        for(int i = 0; i < numRanges; i++)
+        {
+            RangeTask task = rangeTasks[i];
+            task.reinitialize();
+            task.source = this;
+            task.kids = kids;
+            task.start = (int)((long)size * i / numRanges);
+            task.end = (int)((long)size * (i + 1) / numRanges);
+            task.allInBounds = allInBounds;
+        }
+
+        pool.invoke(new SplitTask(rangeTasks, numRanges));
+
+        lastSplitCount++;
+
+        int required = cullEndIndex;
+        for(int i = 0; i < numRanges; i++)
+            required += workers[i].numNodes;
+
+        ensureCullListSize(required + 1);
+
+        int ret_val = cullEndIndex;
+
+        for(int i = 0; i < numRanges; i++)
+        {
+            CullWorker worker = workers[i];
+            GraphicsCullOutputDetails[] w_list = worker.workCullList;
+
+            // Swap the details objects rather than copying the contents
+            // so that both lists keep their allocated light arrays.
+            for(int j = 0; j < worker.numNodes; j++)
+            {
+                GraphicsCullOutputDetails tmp = workCullList[ret_val];
+                workCullList[ret_val] = w_list[j];
+
+                tmp.renderable = null;
+                tmp.localFog = null;
+                tmp.customData = null;
+                tmp.cullableBounds = null;
+                tmp.clearStateKey();
+                w_list[j] = tmp;
+
+                ret_val++;
+            }
+
+            for(int j = 0; j < worker.numOffscreenShapes; j++)
+                checkForOffscreens(worker.offscreenShapes[j]);
+
+            appendGlobalLights(worker);
+
+            worker.clear();
+
+            rangeTasks[i].source = null;
+            rangeTasks[i].kids = null;
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Make sure the cull list is at least the given size, filling any new
+     * entries with fresh instances.
+     *
+     * @param size The minimum size required
+     */
+    private void ensureCullListSize(int size)
+    {
+        if(workCullList.length >= size)
+            return;
+
+        int old_size = workCullList.length;
+        int new_size = size + LIST_INCREMENT;
+
+        GraphicsCullOutputDetails[] tmp_nodes =
+            new GraphicsCullOutputDetails[new_size];
+
+        System.arraycopy(workCullList, 0, tmp_nodes, 0, old_size);
+
+        for(int i = old_size; i < new_size; i++)
+            tmp_nodes[i] = new GraphicsCullOutputDetails();
+
+        workCullList = tmp_nodes;
+    }
+
+    /**
+     * Make sure there are at least the given number of workers and tasks.
+     *
+     * @param size The number of workers required
+     */
+    private void resizeWorkers(int size)
+    {
+        if(workers.length >= size)
+            return;
+
+        CullWorker[] tmp_w = new CullWorker[size];
+        RangeTask[] tmp_t = new RangeTask[size];
+
+        System.arraycopy(workers, 0, tmp_w, 0, workers.length);
+        System.arraycopy(rangeTasks, 0, tmp_t, 0, rangeTasks.length);
+
+        for(int i = workers.length; i < size; i++)
+        {
+            tmp_w[i] = new CullWorker();
+            tmp_w[i].setErrorReporter(errorReporter);
+            tmp_t[i] = new RangeTask(tmp_w[i]);
+        }
+
+        workers = tmp_w;
+        rangeTasks = tmp_t;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+// None
+
+// Local imports
+// None
+
+/**
+ * Stable least significant digit radix sort of output details by a parallel
+ * array of 64 bit keys.
+ * <p>
+ *
+ * Keys are treated as unsigned values and sorted into ascending order using
+ * 8 bit digits. The histograms for all digits are built in a single pass
+ * over the keys, and any digit where every key has the same value is skipped.
+ * For typical state keys, where only a few of the high bytes vary, this
+ * means most of the passes are never run.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+final class RadixKeySorter
+{
+    /** Number of bits in a single digit */
+    private static final int DIGIT_BITS = 8;
+
+    /** Number of buckets per digit */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /** Maximum number of digits in a key */
+    private static final int MAX_DIGITS = 64 / DIGIT_BITS;
+
+    /** Histogram counts for all the digits */
+    private int[] counts;
+
+    /** Scratch key array for the ping-pong passes */
+    private long[] tmpKeys;
+
+    /** Scratch item array for the ping-pong passes */
+    private GraphicsCullOutputDetails[] tmpItems;
+
+    /** The number of scatter passes executed in the last sort */
+    private int lastPassCount;
+
+    /**
+     * Create a new sorter with no scratch space allocated.
+     */
+    RadixKeySorter()
+    {
+        counts = new int[MAX_DIGITS * RADIX];
+        tmpKeys = new long[0];
+        tmpItems = new GraphicsCullOutputDetails[0];
+    }
+
+    /**
+     * Sort the items in place, ascending by their keys. Both arrays are
+     * reordered. Only the lowest numBits of the keys are considered.
+     *
+     * @param keys The keys for each item
+     * @param items The items to sort
+     * @param num The number of valid entries in both arrays
+     * @param numBits The number of low bits of the key that may be non-zero
+     */
+    void sort(long[] keys,
+              GraphicsCullOutputDetails[] items,
+              int num,
+              int numBits)
+    {
+        lastPassCount = 0;
+
+        if(num < 2)
+            return;
+
+        if(tmpKeys.length < num)
+        {
+            tmpKeys = new long[num];
+            tmpItems = new GraphicsCullOutputDetails[num];
+        }
+
+        int num_digits = (numBits + DIGIT_BITS - 1) / DIGIT_BITS;
+        if(num_digits > MAX_DIGITS)
+            num_digits = MAX_DIGITS;
+
+        for(int i = 0; i < num_digits * RADIX; i++)
+            counts[i] = 0;
+
+        for(int i = 0; i < num; i++)
+        {
+            long k = keys[i];
+
+            for(int d = 0; d < num_digits; d++)
+            {
+                counts[d * RADIX + (int)(k & (RADIX - 1))]++;
+                k >>>= DIGIT_BITS;
+            }
+        }
+
+        long[] src_keys = keys;
+        long[] dst_keys = tmpKeys;
+        GraphicsCullOutputDetails[] src_items = items;
+        GraphicsCullOutputDetails[] dst_items = tmpItems;
+
+        for(int d = 0; d < num_digits; d++)
+        {
+            int base = d * RADIX;
+            int shift = d * DIGIT_BITS;
+
+            // All keys share this digit so the order would not change.
+            if(counts[base + (int)((src_keys[0] >>> shift) & (RADIX - 1))] == num)
+                continue;
+
+            // Convert to starting offsets
+            int total = 0;
+            for(int i = 0; i < RADIX; i++)
+            {
+                int c = counts[base + i];
+                counts[base + i] = total;
+                total += c;
+            }
+
+            for(int i = 0; i < num; i++)
+            {
+                long k = src_keys[i];
+                int pos = counts[base + (int)((k >>> shift) & (RADIX - 1))]++;
+
+                dst_keys[pos] = k;
+                dst_items[pos] = src_items[i];
+            }
+
+            long[] t_keys = src_keys;
+            src_keys = dst_keys;
+            dst_keys = t_keys;
+
+            GraphicsCullOutputDetails[] t_items = src_items;
+            src_items = dst_items;
+            dst_items = t_items;
+
+            lastPassCount++;
+        }
+
+        if(src_keys != keys)
+        {
+            System.arraycopy(src_keys, 0, keys, 0, num);
+            System.arraycopy(src_items, 0, items, 0, num);
+        }
+
+        // Don't hold on to references the cull stage may want to release.
+        for(int i = 0; i < num; i++)
+            tmpItems[i] = null;
+    }
+
+    /**
+     * Get the number of scatter passes the last sort needed.
+     *
+     * @return A number between 0 and 8
+     */
+    int getLastPassCount()
+    {
+        return lastPassCount;
+    }
+}
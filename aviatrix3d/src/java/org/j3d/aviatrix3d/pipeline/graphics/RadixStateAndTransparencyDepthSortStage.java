@@ -0,0 +1,609 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+import org.j3d.util.I18nManager;
+
+// Local imports
+import org.j3d.aviatrix3d.rendering.*;
+
+import org.j3d.aviatrix3d.pipeline.RenderOp;
+
+/**
+ * Implementation of the sort stage that does state sorting and depth sorted
+ * transparency using packed integer keys and a radix sort, rather than
+ * a comparator.
+ * <p>
+ *
+ * Each node is given a 64 bit key. For opaque objects, the key is made of
+ * the shader, first texture and material IDs, followed by a 16 bit
+ * quantised depth so that objects with the same state are drawn front to
+ * back. For transparent objects the quantised depth makes up the top of the
+ * key so that they are drawn back to front, with the state IDs used to
+ * group items at the same depth. The state part of the key is cached with
+ * the cull output so that static objects do not need to look up their IDs
+ * every frame.
+ * <p>
+ *
+ * Unlike the {@link StateAndTransparencyDepthSortStage}, lights, clip
+ * planes and fog are not considered when sorting. In exchange the sort
+ * runs in linear time.
+ * <p>
+ *
+ * <b>Internationalisation Resource Names</b>
+ * <ul>
+ * <li>invalidDepthMsg: Message when the user provides a number of depth bits
+ *     that are out of range</li>
+ * <li>invalidRenderableMsg: Message when we encounter an unknown renderable type
+ *     during state sorting</li>
+ * </ul>
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class RadixStateAndTransparencyDepthSortStage extends BaseStateSortStage
+{
+    /** Message when the number of depth bits is out of range */
+    private static final String INVALID_DEPTH_MSG_PROP =
+        "org.j3d.aviatrix3d.pipeline.graphics.RadixStateAndTransparencyDepthSortStage.invalidDepthMsg";
+
+    /** Message when an unknown renderable is found */
+    private static final String INVALID_REND_MSG_PROP =
+        "org.j3d.aviatrix3d.pipeline.graphics.RadixStateAndTransparencyDepthSortStage.invalidRenderableMsg";
+
+    /** Node classification for opaque objects */
+    private static final int OPAQUE = 0;
+
+    /** Node classification for transparent objects */
+    private static final int TRANSPARENT = 1;
+
+    /** Node classification for renderables that can't be handled */
+    private static final int UNKNOWN = 2;
+
+    /** The initial size of the working lists */
+    private static final int LIST_SIZE = 200;
+
+    /** Default accuracy bits. Matches most common video cards */
+    private static final int DEFAULT_DEPTH_BITS = 16;
+
+    /**
+     * Number of bits the state key is shifted down to make room for the
+     * depth at the top of the transparent keys.
+     */
+    private static final int TRANSPARENT_STATE_SHIFT = SortKeyGenerator.DEPTH_BITS;
+
+    /** Bit position of the depth in the transparent keys */
+    private static final int TRANSPARENT_DEPTH_SHIFT = 63 - SortKeyGenerator.DEPTH_BITS;
+
+    /** The number of bits of depth used for transparent objects */
+    private final int depthBits;
+
+    /** Temporary array for holding the transparent objects */
+    private GraphicsCullOutputDetails[] transparentList;
+
+    /** Temporary array for holding the opaque objects */
+    private GraphicsCullOutputDetails[] opaqueList;
+
+    /** Sort keys matching the opaque list */
+    private long[] opaqueKeys;
+
+    /** Sort keys matching the transparent list */
+    private long[] transparentKeys;
+
+    /** Temporary array for holding the camera space depths */
+    private float[] depthList;
+
+    /** Generator for the per-node keys */
+    private SortKeyGenerator keyGenerator;
+
+    /** The sorter implementation */
+    private RadixKeySorter sorter;
+
+    /** The requested size for the arrays */
+    private int reqdSize;
+
+    /**
+     * Create an empty sorting stage that assumes just a single renderable
+     * output.
+     */
+    public RadixStateAndTransparencyDepthSortStage()
+    {
+        this(LIST_START_SIZE, DEFAULT_DEPTH_BITS);
+    }
+
+    /**
+     * Create an empty sorting stage that initialises the internal structures
+     * to assume that there is a minumum number of surfaces, both on and
+     * offscreen. The number of depth bits is set to 16.
+     *
+     * @param numSurfaces The number of surfaces that we're likely to
+     *    encounter. Must be a non-negative number
+     * @throws IllegalArgumentException numSurfaces was < 0
+     */
+    public RadixStateAndTransparencyDepthSortStage(int numSurfaces)
+    {
+        this(numSurfaces, DEFAULT_DEPTH_BITS);
+    }
+
+    /**
+     * Create an empty sorting stage that initialises the internal structures
+     * to assume that there is a minumum number of surfaces, both on and
+     * offscreen.
+     *
+     * @param numSurfaces The number of surfaces to start the internal lists
+     *     sizes at.
+     * @param depthBits The number of bits of depth precision to quantize the
+     *     transparency depth sorting to. Must be between 1 and 16
+     * @throws IllegalArgumentException Depth bits is out of range or num
+     *     surfaces is negative
+     */
+    public RadixStateAndTransparencyDepthSortStage(int numSurfaces, int depthBits)
+    {
+        super(numSurfaces);
+
+        if(depthBits < 1 || depthBits > SortKeyGenerator.DEPTH_BITS)
+        {
+            I18nManager intl_mgr = I18nManager.getManager();
+            String msg_pattern = intl_mgr.getString(INVALID_DEPTH_MSG_PROP);
+
+            Locale lcl = intl_mgr.getFoundLocale();
+
+            NumberFormat n_fmt = NumberFormat.getNumberInstance(lcl);
+
+            Object[] msg_args = { depthBits, SortKeyGenerator.DEPTH_BITS };
+            Format[] fmts = { n_fmt, n_fmt };
+            MessageFormat msg_fmt =
+                new MessageFormat(msg_pattern, lcl);
+            msg_fmt.setFormats(fmts);
+            String msg = msg_fmt.format(msg_args);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.depthBits = depthBits;
+
+        transparentList = new GraphicsCullOutputDetails[LIST_SIZE];
+        opaqueList = new GraphicsCullOutputDetails[LIST_SIZE];
+        opaqueKeys = new long[LIST_SIZE];
+        transparentKeys = new long[LIST_SIZE];
+        depthList = new float[LIST_SIZE];
+
+        keyGenerator = new SortKeyGenerator();
+        sorter = new RadixKeySorter();
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by BaseSortStage
+    //---------------------------------------------------------------
+
+    @Override
+    protected int estimateInstructionSize(SceneRenderBucket scene)
+    {
+        return 4 + scene.numNodes * GUESS_NUM_COMPONENTS;
+    }
+
+    @Override
+    protected int estimateInstructionSize(MultipassRenderBucket scene)
+    {
+        int instr_count = 2;
+
+        for(int i = 0; i < scene.mainScene.numPasses; i++)
+        {
+            // Start/stop pass commands + up to 4 buffer state start
+            // and stop commands.
+            instr_count += 10 + scene.mainScene.numNodes[i] * GUESS_NUM_COMPONENTS;
+        }
+
+        return instr_count;
+    }
+
+    @Override
+    protected int sortNodes(GraphicsCullOutputDetails[] nodes,
+                            int numNodes,
+                            GraphicsEnvironmentData data,
+                            GraphicsInstructions instr,
+                            int instrCount)
+    {
+        int new_size = estimateInstructionSize(nodes, numNodes);
+
+        if(new_size > reqdSize)
+        {
+            reqdSize = new_size;
+
+            realloc(instr, reqdSize);
+            reqdSize = instr.renderList.length;
+        }
+
+        if(opaqueList.length < numNodes)
+        {
+            transparentList = new GraphicsCullOutputDetails[numNodes];
+            opaqueList = new GraphicsCullOutputDetails[numNodes];
+            opaqueKeys = new long[numNodes];
+            transparentKeys = new long[numNodes];
+            depthList = new float[numNodes];
+        }
+
+        int idx = instrCount;
+        int trans = 0;
+        int opaque = 0;
+
+        for(int i = 0; i < numNodes && !terminate; i++)
+        {
+            switch(classify(nodes[i]))
+            {
+                case TRANSPARENT:
+                    transparentList[trans++] = nodes[i];
+                    break;
+
+                case OPAQUE:
+                    opaqueList[opaque++] = nodes[i];
+                    break;
+            }
+        }
+
+        if(terminate)
+            return idx;
+
+        keyGenerator.beginFrame(data.viewTransform);
+
+        generateOpaqueKeys(opaque);
+        sorter.sort(opaqueKeys, opaqueList, opaque, 63);
+
+        if(terminate)
+            return idx;
+
+        int start = 0;
+        boolean done = false;
+
+        if(instanceBatcher != null)
+        {
+            idx = appendBatchedObjects(opaqueList, opaque, instr, idx);
+            done = true;
+        }
+
+        while(!done)
+        {
+            try
+            {
+                for(int i = start; i < opaque && !terminate; i++)
+                    idx = appendObject(opaqueList[i], instr, idx);
+
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                start = idx;
+
+                realloc(instr, reqdSize);
+            }
+        }
+
+        done = false;
+
+        while(!done)
+        {
+            try
+            {
+                idx = cleanupObjects(instr, idx);
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                realloc(instr, reqdSize);
+            }
+        }
+
+        for(int i = 0; i < opaque; i++)
+            opaqueList[i] = null;
+
+        new_size = idx + 1 + trans << 1;
+
+        if(new_size > reqdSize)
+            reqdSize = new_size;
+
+        if(trans > 0 && instr.renderList.length < reqdSize)
+            realloc(instr, reqdSize);
+
+        if(terminate || trans == 0)
+            return idx;
+
+        generateTransparentKeys(trans);
+        sorter.sort(transparentKeys,
+                    transparentList,
+                    trans,
+                    TRANSPARENT_DEPTH_SHIFT + depthBits);
+
+        instr.renderOps[idx++] = RenderOp.START_TRANSPARENT;
+
+        done = false;
+        start = 0;
+
+        while(!done)
+        {
+            try
+            {
+                for(int i = start; i < trans && !terminate; i++)
+                {
+                    idx = appendObject(transparentList[i], instr, idx);
+
+                    // clear it from the list
+                    transparentList[i] = null;
+                }
+
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                start = idx;
+
+                realloc(instr, reqdSize);
+            }
+        }
+
+        done = false;
+
+        while(!done)
+        {
+            try
+            {
+                idx = cleanupObjects(instr, idx);
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                realloc(instr, reqdSize);
+            }
+        }
+
+        instr.renderOps[idx++] = RenderOp.STOP_TRANSPARENT;
+
+        return idx;
+    }
+
+    @Override
+    protected int sort2DNodes(GraphicsCullOutputDetails[] nodes,
+                              int numNodes,
+                              GraphicsEnvironmentData data,
+                              GraphicsInstructions instr,
+                              int instrCount)
+    {
+        // No depth in 2D, so just draw the opaque items in the order given
+        // followed by the transparent ones.
+        if(transparentList.length < numNodes)
+            transparentList = new GraphicsCullOutputDetails[numNodes];
+
+        int idx = instrCount;
+        int trans = 0;
+
+        for(int i = 0; i < numNodes && !terminate; i++)
+        {
+            switch(classify(nodes[i]))
+            {
+                case TRANSPARENT:
+                    transparentList[trans++] = nodes[i];
+                    break;
+
+                case OPAQUE:
+                    idx = appendObject(nodes[i], instr, idx);
+                    break;
+            }
+        }
+
+        if(trans == 0)
+            return idx;
+
+        instr.renderOps[idx++] = RenderOp.START_TRANSPARENT;
+
+        for(int i = 0; i < trans && !terminate; i++)
+        {
+            idx = appendObject(transparentList[i], instr, idx);
+
+            // clear it from the list
+            transparentList[i] = null;
+        }
+
+        instr.renderOps[idx++] = RenderOp.STOP_TRANSPARENT;
+        return idx;
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Clear all the cached state IDs. Useful to call after a large scene
+     * change, such as loading a new world, so that references to the old
+     * scene's appearance objects are released.
+     */
+    public void clearCachedKeys()
+    {
+        keyGenerator.clear();
+    }
+
+    /**
+     * Get the number of nodes in the last sorted scene that were able to
+     * reuse their state key from the previous frame.
+     *
+     * @return A non-negative count
+     */
+    public int getLastCachedKeyCount()
+    {
+        return keyGenerator.getCacheHits();
+    }
+
+    /**
+     * Get the number of radix passes the last sort of the opaque or
+     * transparent lists needed.
+     *
+     * @return A number between 0 and 8
+     */
+    int getLastPassCount()
+    {
+        return sorter.getLastPassCount();
+    }
+
+    /**
+     * Generate the keys for the opaque list. The depth is quantised over
+     * the range of the current list and inverted so that nearer objects
+     * sort first.
+     *
+     * @param num The number of valid items in the opaque list
+     */
+    private void generateOpaqueKeys(int num)
+    {
+        float min_depth = Float.POSITIVE_INFINITY;
+        float max_depth = Float.NEGATIVE_INFINITY;
+
+        for(int i = 0; i < num; i++)
+        {
+            float z = keyGenerator.cameraDepth(opaqueList[i]);
+            depthList[i] = z;
+
+            if(z < min_depth)
+                min_depth = z;
+
+            if(z > max_depth)
+                max_depth = z;
+        }
+
+        float range = max_depth - min_depth;
+        float quanta = range > 0 ? SortKeyGenerator.DEPTH_MASK / range : 0;
+
+        for(int i = 0; i < num; i++)
+        {
+            long depth = (long)((max_depth - depthList[i]) * quanta);
+
+            opaqueKeys[i] = keyGenerator.stateKey(opaqueList[i]) |
+                            (depth & SortKeyGenerator.DEPTH_MASK);
+        }
+    }
+
+    /**
+     * Generate the keys for the transparent list. Furthest objects have the
+     * lowest depth value so that they sort first.
+     *
+     * @param num The number of valid items in the transparent list
+     */
+    private void generateTransparentKeys(int num)
+    {
+        float min_depth = Float.POSITIVE_INFINITY;
+        float max_depth = Float.NEGATIVE_INFINITY;
+
+        for(int i = 0; i < num; i++)
+        {
+            float z = keyGenerator.cameraDepth(transparentList[i]);
+            depthList[i] = z;
+
+            if(z < min_depth)
+                min_depth = z;
+
+            if(z > max_depth)
+                max_depth = z;
+        }
+
+        long depth_mask = (1L << depthBits) - 1;
+        float range = max_depth - min_depth;
+        float quanta = range > 0 ? depth_mask / range : 0;
+
+        for(int i = 0; i < num; i++)
+        {
+            long depth = (long)((depthList[i] - min_depth) * quanta);
+            long state = keyGenerator.stateKey(transparentList[i]);
+
+            transparentKeys[i] =
+                ((depth & depth_mask) << TRANSPARENT_DEPTH_SHIFT) |
+                (state >>> TRANSPARENT_STATE_SHIFT);
+        }
+    }
+
+    /**
+     * Work out which list the node belongs in. Unknown renderable types are
+     * reported and should be ignored.
+     *
+     * @param node The node to check
+     * @return One of OPAQUE, TRANSPARENT or UNKNOWN
+     */
+    private int classify(GraphicsCullOutputDetails node)
+    {
+        if(node.renderable instanceof ShapeRenderable)
+        {
+            ShapeRenderable shape = (ShapeRenderable)node.renderable;
+
+            AppearanceRenderable app = shape.getAppearanceRenderable();
+            GeometryRenderable geom = shape.getGeometryRenderable();
+
+            if(app != null)
+            {
+                if(app.hasTransparency())
+                    return TRANSPARENT;
+                else if(app.hasTransparencyInfo())
+                    return OPAQUE;
+            }
+
+            return geom.hasTransparency() ? TRANSPARENT : OPAQUE;
+        }
+        else if(node.renderable instanceof CustomRenderable)
+        {
+            return ((CustomRenderable)node.renderable).hasTransparency() ?
+                   TRANSPARENT : OPAQUE;
+        }
+
+        I18nManager intl_mgr = I18nManager.getManager();
+        Locale lcl = intl_mgr.getFoundLocale();
+        String msg_pattern = intl_mgr.getString(INVALID_REND_MSG_PROP);
+
+        String arg = null;
+
+        if(node.renderable != null)
+            arg = node.renderable.getClass().getName();
+
+        Object[] msg_args = { arg };
+
+        MessageFormat msg_fmt = new MessageFormat(msg_pattern, lcl);
+
+        String msg = msg_fmt.format(msg_args);
+
+        errorReporter.warningReport(msg, null);
+
+        return UNKNOWN;
+    }
+
+    /**
+     * Estimate the required size of the instruction list needed for this scene
+     * to be processed.
+     *
+     * @param nodes The list of nodes to be sorted
+     * @param numNodes The number of valid nodes in the list
+     * @return A greater than zero value
+     */
+    private int estimateInstructionSize(GraphicsCullOutputDetails[] nodes,
+                                        int numNodes)
+    {
+        int instr_count = 4 + numNodes << 1;
+        for(int m = 0; m < numNodes; m++)
+        {
+            instr_count += (nodes[m].numLights << 1) +
+                           (nodes[m].numClipPlanes << 1);
+        }
+
+        return instr_count;
+    }
+}
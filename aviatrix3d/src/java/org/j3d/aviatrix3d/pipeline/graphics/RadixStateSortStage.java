@@ -0,0 +1,268 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+// None
+
+// Local imports
+// None
+
+/**
+ * Implementation of the sort stage that does only state sorting and ignores
+ * transparency, using packed integer keys and a radix sort.
+ * <p>
+ *
+ * This is the radix sorted equivalent of {@link StateSortStage}. Each node
+ * is keyed on the shader, first texture and material, with a quantised
+ * depth as the lowest part of the key so that objects with the same state
+ * are drawn front to back. Lights, clip planes and fog are not considered
+ * when sorting. For 2D nodes, it just expands the array directly.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class RadixStateSortStage extends BaseStateSortStage
+{
+    /** The initial size of the key list */
+    private static final int LIST_SIZE = 200;
+
+    /** Sort keys matching the node list */
+    private long[] keys;
+
+    /** Temporary array for holding the camera space depths */
+    private float[] depthList;
+
+    /** Generator for the per-node keys */
+    private SortKeyGenerator keyGenerator;
+
+    /** The sorter implementation */
+    private RadixKeySorter sorter;
+
+    /**
+     * Create an empty sorting stage that assumes just a single renderable
+     * output.
+     */
+    public RadixStateSortStage()
+    {
+        this(LIST_START_SIZE);
+    }
+
+    /**
+     * Create an empty sorting stage that initialises the internal structures
+     * to assume that there is a minimum number of surfaces, both on and
+     * offscreen.
+     *
+     * @param numSurfaces The number of surfaces that we're likely to
+     *    encounter. Must be a non-negative number
+     */
+    public RadixStateSortStage(int numSurfaces)
+    {
+        super(numSurfaces);
+
+        keys = new long[LIST_SIZE];
+        depthList = new float[LIST_SIZE];
+
+        keyGenerator = new SortKeyGenerator();
+        sorter = new RadixKeySorter();
+    }
+
+    //---------------------------------------------------------------
+    // Methods defined by BaseSortStage
+    //---------------------------------------------------------------
+
+    @Override
+    protected int sortNodes(GraphicsCullOutputDetails[] nodes,
+                            int numNodes,
+                            GraphicsEnvironmentData data,
+                            GraphicsInstructions instr,
+                            int instrCount)
+    {
+        if(keys.length < numNodes)
+        {
+            keys = new long[numNodes];
+            depthList = new float[numNodes];
+        }
+
+        keyGenerator.beginFrame(data.viewTransform);
+
+        float min_depth = Float.POSITIVE_INFINITY;
+        float max_depth = Float.NEGATIVE_INFINITY;
+
+        for(int i = 0; i < numNodes; i++)
+        {
+            float z = keyGenerator.cameraDepth(nodes[i]);
+            depthList[i] = z;
+
+            if(z < min_depth)
+                min_depth = z;
+
+            if(z > max_depth)
+                max_depth = z;
+        }
+
+        float range = max_depth - min_depth;
+        float quanta = range > 0 ? SortKeyGenerator.DEPTH_MASK / range : 0;
+
+        for(int i = 0; i < numNodes; i++)
+        {
+            long depth = (long)((max_depth - depthList[i]) * quanta);
+
+            keys[i] = keyGenerator.stateKey(nodes[i]) |
+                      (depth & SortKeyGenerator.DEPTH_MASK);
+        }
+
+        sorter.sort(keys, nodes, numNodes, 63);
+
+        int idx = instrCount;
+
+        int start = 0;
+        boolean done = false;
+
+        if(instanceBatcher != null)
+        {
+            idx = appendBatchedObjects(nodes, numNodes, instr, idx);
+            done = true;
+        }
+
+        while(!done)
+        {
+            try
+            {
+                for(int i = start; i < numNodes && !terminate; i++)
+                    idx = appendObject(nodes[i], instr, idx);
+
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                start = idx;
+
+                realloc(instr, instr.numValid);
+            }
+        }
+
+        done = false;
+
+        while(!done)
+        {
+            try
+            {
+                idx = cleanupObjects(instr, idx);
+
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                realloc(instr, instr.numValid);
+            }
+        }
+
+        return idx;
+    }
+
+    @Override
+    protected int sort2DNodes(GraphicsCullOutputDetails[] nodes,
+                              int numNodes,
+                              GraphicsEnvironmentData data,
+                              GraphicsInstructions instr,
+                              int instrCount)
+    {
+        int idx = instrCount;
+        int start = 0;
+        boolean done = false;
+
+        while(!done)
+        {
+            try
+            {
+                for(int i = start; i < numNodes && !terminate; i++)
+                    idx = appendObject(nodes[i], instr, idx);
+
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                start = idx;
+
+                realloc(instr, instr.numValid);
+            }
+        }
+
+        done = false;
+
+        while(!done)
+        {
+            try
+            {
+                idx = cleanupObjects(instr, idx);
+
+                done = true;
+            }
+            catch(ArrayIndexOutOfBoundsException be)
+            {
+                realloc(instr, instr.numValid);
+            }
+        }
+
+        return idx;
+    }
+
+    @Override
+    protected int estimateInstructionSize(SceneRenderBucket scene)
+    {
+        return 4 + scene.numNodes * GUESS_NUM_COMPONENTS;
+    }
+
+    @Override
+    protected int estimateInstructionSize(MultipassRenderBucket scene)
+    {
+        int instr_count = 2;
+
+        for(int i = 0; i < scene.mainScene.numPasses; i++)
+        {
+            // Start/stop pass commands + up to 4 buffer state start
+            // and stop commands.
+            instr_count += 10 + scene.mainScene.numNodes[i] * GUESS_NUM_COMPONENTS;
+        }
+
+        return instr_count;
+    }
+
+    //---------------------------------------------------------------
+    // Local Methods
+    //---------------------------------------------------------------
+
+    /**
+     * Clear all the cached state IDs. Useful to call after a large scene
+     * change, such as loading a new world, so that references to the old
+     * scene's appearance objects are released.
+     */
+    public void clearCachedKeys()
+    {
+        keyGenerator.clear();
+    }
+
+    /**
+     * Get the number of nodes in the last sorted scene that were able to
+     * reuse their state key from the previous frame.
+     *
+     * @return A non-negative count
+     */
+    public int getLastCachedKeyCount()
+    {
+        return keyGenerator.getCacheHits();
+    }
+}
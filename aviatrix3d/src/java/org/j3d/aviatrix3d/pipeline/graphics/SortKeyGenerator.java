@@ -0,0 +1,301 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+// External imports
+import java.util.IdentityHashMap;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Point3f;
+
+import org.j3d.util.MatrixUtils;
+
+// Local imports
+import org.j3d.aviatrix3d.rendering.*;
+
+/**
+ * Generator of the packed 64 bit sort keys used by the radix sort stages.
+ * <p>
+ *
+ * The state portion of the key is built from small integer IDs assigned to
+ * each shader, first texture unit and material seen. Key layout, from the
+ * most significant bit down, is:
+ * <pre>
+ *   63     : always 0
+ *   47..62 : shader ID
+ *   31..46 : texture unit 0 ID
+ *   16..30 : material ID
+ *    0..15 : free for quantised depth
+ * </pre>
+ * ID 0 is reserved for "not set", so shapes without an appearance sort
+ * before everything else. IDs are handed out on first sight. The tables are
+ * cleared and the epoch incremented every {@link #TABLE_AGE_FRAMES} sorts,
+ * so that state which has left the scene is not held on to, and also after
+ * any frame where the ID space for one type ran out. Any keys cached on a
+ * {@link GraphicsCullOutputDetails} from an earlier epoch are then
+ * regenerated on next use.
+ * <p>
+ *
+ * The state key is cached on the output details object along with the
+ * references it was computed from. Since the cull stages reuse details
+ * objects from frame to frame, a static scene will find the same renderable
+ * in the same details object each frame and the ID table lookups are skipped.
+ * <p>
+ *
+ * Lights, clip planes and fog are not part of the key. These are handled
+ * as state changes by the instruction generation as normal.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+final class SortKeyGenerator
+{
+    /** Bit position of the shader ID */
+    private static final int SHADER_SHIFT = 47;
+
+    /** Bit position of the texture ID */
+    private static final int TEXTURE_SHIFT = 31;
+
+    /** Bit position of the material ID */
+    private static final int MATERIAL_SHIFT = 16;
+
+    /** Largest shader or texture ID that can be assigned */
+    private static final int MAX_16_BIT_ID = 0xFFFF;
+
+    /** Largest material ID that can be assigned */
+    private static final int MAX_15_BIT_ID = 0x7FFF;
+
+    /** Number of sorts the ID tables are kept before being cleared */
+    static final int TABLE_AGE_FRAMES = 256;
+
+    /** Number of bits in the key available for depth values */
+    static final int DEPTH_BITS = 16;
+
+    /** Mask for the depth portion of the key */
+    static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    /** Map of shader instance to ID */
+    private IdentityHashMap<Object, Integer> shaderIds;
+
+    /** Map of texture instance to ID */
+    private IdentityHashMap<Object, Integer> textureIds;
+
+    /** Map of material instance to ID */
+    private IdentityHashMap<Object, Integer> materialIds;
+
+    /** The current ID epoch. Incremented each time the tables are cleared */
+    private int epoch;
+
+    /** Number of frames since the ID tables were last cleared */
+    private int tableAge;
+
+    /** Set when an ID table ran out of space and started reusing IDs */
+    private boolean tableOverflow;
+
+    /** Number of state keys reused from the details cache this frame */
+    private int cacheHits;
+
+    /** Inverted camera matrix for the current frame */
+    private Matrix4f cameraMatrix;
+
+    /** Temp matrix used to hold the local to vworld values */
+    private Matrix4f modelMatrix;
+
+    /** Temporary point location while working out the camera-space depth */
+    private Point3f wkPoint;
+
+    /** Temporary array for fetching the center position */
+    private float[] center;
+
+    /** Matrix utility code for doing inversions */
+    private MatrixUtils matrixUtils;
+
+    /**
+     * Construct a new generator with empty ID tables.
+     */
+    SortKeyGenerator()
+    {
+        shaderIds = new IdentityHashMap<>();
+        textureIds = new IdentityHashMap<>();
+        materialIds = new IdentityHashMap<>();
+
+        // Start at 1 so that a freshly created details object, with an
+        // epoch of 0, never looks like it has a valid cached key.
+        epoch = 1;
+
+        cameraMatrix = new Matrix4f();
+        modelMatrix = new Matrix4f();
+        wkPoint = new Point3f();
+        center = new float[3];
+        matrixUtils = new MatrixUtils();
+    }
+
+    /**
+     * Prepare for generating keys of a new set of nodes. The ID tables are
+     * only ever cleared here, so the IDs within a single sort are always
+     * consistent. That happens once the tables reach their maximum age, or
+     * if the last frame ran out of IDs.
+     *
+     * @param viewTransform The camera to world transform for this scene
+     */
+    void beginFrame(Matrix4f viewTransform)
+    {
+        cacheHits = 0;
+
+        if(tableOverflow || ++tableAge >= TABLE_AGE_FRAMES)
+            clear();
+
+        matrixUtils.inverse(viewTransform, cameraMatrix);
+    }
+
+    /**
+     * Clear all the assigned IDs and invalidate any cached keys.
+     */
+    void clear()
+    {
+        shaderIds.clear();
+        textureIds.clear();
+        materialIds.clear();
+        epoch++;
+        tableAge = 0;
+        tableOverflow = false;
+    }
+
+    /**
+     * Get the number of state keys that were reused from the cache since the
+     * last call to {@link #beginFrame}.
+     *
+     * @return A non-negative count
+     */
+    int getCacheHits()
+    {
+        return cacheHits;
+    }
+
+    /**
+     * Get the current ID epoch.
+     *
+     * @return The epoch count
+     */
+    int getEpoch()
+    {
+        return epoch;
+    }
+
+    /**
+     * Generate the state part of the key for the given node. The lower
+     * {@link #DEPTH_BITS} bits are always zero.
+     *
+     * @param details The node to generate the key for
+     * @return The state key
+     */
+    long stateKey(GraphicsCullOutputDetails details)
+    {
+        if(!(details.renderable instanceof ShapeRenderable))
+            return 0;
+
+        ShapeRenderable shape = (ShapeRenderable)details.renderable;
+        AppearanceRenderable app = shape.getAppearanceRenderable();
+
+        if(app == null)
+            return 0;
+
+        ShaderRenderable shader = app.getShaderRenderable();
+        TextureRenderable tex = app.numTextureRenderables() != 0 ?
+                                app.getTextureRenderable(0) :
+                                null;
+        TransparentObjectRenderable mat = app.getMaterialRenderable();
+
+        if(details.stateKeyEpoch == epoch &&
+           details.keyAppearance == app &&
+           details.keyShader == shader &&
+           details.keyTexture == tex &&
+           details.keyMaterial == mat)
+        {
+            cacheHits++;
+            return details.stateKey;
+        }
+
+        long key = ((long)getId(shaderIds, shader, MAX_16_BIT_ID) << SHADER_SHIFT) |
+                   ((long)getId(textureIds, tex, MAX_16_BIT_ID) << TEXTURE_SHIFT) |
+                   ((long)getId(materialIds, mat, MAX_15_BIT_ID) << MATERIAL_SHIFT);
+
+        details.stateKey = key;
+        details.stateKeyEpoch = epoch;
+        details.keyAppearance = app;
+        details.keyShader = shader;
+        details.keyTexture = tex;
+        details.keyMaterial = mat;
+
+        return key;
+    }
+
+    /**
+     * Calculate the camera space depth of the node. For shapes this uses
+     * the center of the bounds, for everything else the origin of the local
+     * coordinate system.
+     *
+     * @param details The node to find the depth of
+     * @return The Z value in camera space. More negative is further away
+     */
+    float cameraDepth(GraphicsCullOutputDetails details)
+    {
+        if(details.renderable instanceof ShapeRenderable)
+        {
+            ((ShapeRenderable)details.renderable).getCenter(center);
+
+            wkPoint.x = center[0];
+            wkPoint.y = center[1];
+            wkPoint.z = center[2];
+        }
+        else
+        {
+            wkPoint.x = 0;
+            wkPoint.y = 0;
+            wkPoint.z = 0;
+        }
+
+        modelMatrix.set(details.transform);
+        modelMatrix.transform(wkPoint);
+        cameraMatrix.transform(wkPoint);
+
+        return wkPoint.z;
+    }
+
+    /**
+     * Look up or assign an ID for the given object. Null is always ID 0. If
+     * the table is full, IDs wrap around and sorting degrades to partial
+     * grouping for the rest of this frame. The tables are cleared at the
+     * start of the next one.
+     */
+    private int getId(IdentityHashMap<Object, Integer> map, Object obj, int max)
+    {
+        if(obj == null)
+            return 0;
+
+        Integer id = map.get(obj);
+
+        if(id == null)
+        {
+            if(map.size() >= max)
+                tableOverflow = true;
+
+            id = (map.size() % max) + 1;
+            map.put(obj, id);
+        }
+
+        return id;
+    }
+}
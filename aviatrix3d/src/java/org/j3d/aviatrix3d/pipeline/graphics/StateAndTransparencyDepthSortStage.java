@@ -341,6 +341,12 @@ public class StateAndTransparencyDepthSortStage extends BaseStateSortStage
         int start = 0;
         boolean done = false;
 
+        if(instanceBatcher != null)
+        {
+            idx = appendBatchedObjects(opaqueList, opaque, instr, idx);
+            done = true;
+        }
+
         while(!done)
         {
             try
@@ -70,6 +70,12 @@ public class StateSortStage extends BaseStateSortStage
         int start = 0;
         boolean done = false;
 
+        if(instanceBatcher != null)
+        {
+            idx = appendBatchedObjects(nodes, numNodes, instr, idx);
+            done = true;
+        }
+
         while(!done)
         {
             try
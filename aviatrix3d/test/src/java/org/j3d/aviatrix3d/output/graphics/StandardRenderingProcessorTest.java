@@ -14,6 +14,8 @@
 
 package org.j3d.aviatrix3d.output.graphics;
 
+import java.nio.FloatBuffer;
+
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GLContext;
 import com.jogamp.opengl.GLDrawable;
@@ -31,6 +33,7 @@ import static org.testng.Assert.*;
 
 import org.j3d.aviatrix3d.pipeline.RenderOp;
 import org.j3d.aviatrix3d.pipeline.graphics.*;
+import org.j3d.aviatrix3d.rendering.GeometryRenderable;
 import org.j3d.aviatrix3d.rendering.ObjectRenderable;
 import org.j3d.aviatrix3d.rendering.ViewEnvironmentCullable;
 import org.j3d.aviatrix3d.test.MockGL2;
@@ -203,4 +206,60 @@ public class StandardRenderingProcessorTest
 
         assertEquals(test_profile_data.numRenderables, 2, "Should have registered renderables");
     }
+
+    @Test(groups = "unit", dependsOnMethods = "testRenderNoContent")
+    public void testInstancedRendering() throws Exception
+    {
+        final int NUM_INSTANCES = 3;
+
+        ObjectRenderable test_state = mock(ObjectRenderable.class);
+        GeometryRenderable test_geometry = mock(GeometryRenderable.class);
+
+        GraphicsRequestData test_request_data = new GraphicsRequestData();
+
+        GraphicsDetails test_state_details = new GraphicsDetails();
+        test_state_details.renderable = test_state;
+
+        GraphicsDetails test_geom_details = new GraphicsDetails();
+        test_geom_details.renderable = test_geometry;
+        test_geom_details.numInstances = NUM_INSTANCES;
+        test_geom_details.instanceTransforms =
+            FloatBuffer.allocate(NUM_INSTANCES * InstanceBatcher.FLOATS_PER_INSTANCE);
+
+        GraphicsDetails[] test_nodes =
+            { test_state_details, test_geom_details, test_state_details };
+
+        RenderOp[] test_ops =
+            { RenderOp.START_RENDER, RenderOp.RENDER_GEOMETRY_INSTANCED, RenderOp.STOP_RENDER };
+
+        GraphicsEnvironmentData test_env_data = new GraphicsEnvironmentData();
+        test_env_data.viewProjectionType = ViewEnvironmentCullable.PERSPECTIVE_PROJECTION;
+        GraphicsEnvironmentData[] test_env_data_list = { test_env_data };
+
+        MainCanvasDescriptor test_descriptor = new MainCanvasDescriptor();
+
+        when(mockContext.makeCurrent()).thenReturn(GLContext.CONTEXT_CURRENT);
+
+        GraphicsProfilingData test_profile_data = new GraphicsProfilingData();
+        StandardRenderingProcessor class_under_test = new StandardRenderingProcessor(mockOutputDevice);
+        class_under_test.setOwnerBuffer(test_descriptor);
+        class_under_test.prepareData(mockContext);
+        class_under_test.setDrawableObjects(test_request_data, test_nodes, test_ops, test_ops.length, test_env_data_list);
+
+        class_under_test.render(mockContext, test_profile_data);
+
+        verify(test_geometry, times(NUM_INSTANCES)).render(mockGL2);
+
+        // One for the start render and one per instance
+        for(int i = 0; i < NUM_INSTANCES + 1; i++)
+            mockGL2.verifyCall("glPushMatrix");
+
+        mockGL2.verifyCall("glMultMatrixf", avAny(float[].class), 0);
+
+        for(int i = 0; i < NUM_INSTANCES; i++)
+            mockGL2.verifyCall("glMultMatrixf", avAny(FloatBuffer.class));
+
+        assertEquals(test_geom_details.instanceTransforms.position(), 0,
+                     "Transform buffer should be rewound");
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+import java.nio.FloatBuffer;
+
+import javax.vecmath.Matrix4f;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import org.j3d.util.I18nManager;
+
+import org.j3d.aviatrix3d.*;
+import org.j3d.aviatrix3d.pipeline.RenderOp;
+
+/**
+ * Unit tests for the instance batching logic and its use in the state
+ * sort stages.
+ *
+ * @author agent
+ */
+public class InstanceBatcherTest
+{
+    /** Geometry shared by most of the test shapes */
+    private TriangleArray sharedGeom;
+
+    /** Appearance shared by most of the test shapes */
+    private Appearance sharedApp;
+
+    @BeforeClass(groups = "unit")
+    public void setupClass() throws Exception
+    {
+        I18nManager intl_mgr = I18nManager.getManager();
+        intl_mgr.setApplication(getClass().getName(), "config.i18n.av3dResources");
+    }
+
+    @BeforeMethod(groups = "unit")
+    public void setupTests() throws Exception
+    {
+        sharedGeom = createGeometry();
+
+        sharedApp = new Appearance();
+        sharedApp.setMaterial(new Material());
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidMinInstances() throws Exception
+    {
+        InstanceBatcher class_under_test = new InstanceBatcher();
+        class_under_test.setMinInstances(1);
+    }
+
+    @Test(groups = "unit")
+    public void testNothingShared() throws Exception
+    {
+        GraphicsCullOutputDetails[] nodes =
+        {
+            createDetails(createGeometry(), sharedApp, 0),
+            createDetails(createGeometry(), sharedApp, 1),
+            createDetails(createGeometry(), sharedApp, 2)
+        };
+
+        GraphicsCullOutputDetails[] orig = nodes.clone();
+
+        InstanceBatcher class_under_test = new InstanceBatcher();
+
+        assertEquals(class_under_test.batch(nodes, nodes.length), 3, "Wrong group count");
+        assertEquals(class_under_test.getLastBatchCount(), 0, "Nothing to batch");
+        assertEquals(class_under_test.getLastDrawsSaved(), 0, "No draws saved");
+
+        for(int i = 0; i < nodes.length; i++)
+            assertSame(nodes[i], orig[i], "Order should not change");
+    }
+
+    @Test(groups = "unit")
+    public void testSharedGeometryGrouped() throws Exception
+    {
+        Appearance other_app = new Appearance();
+
+        GraphicsCullOutputDetails a0 = createDetails(sharedGeom, sharedApp, 0);
+        GraphicsCullOutputDetails b0 = createDetails(createGeometry(), sharedApp, 1);
+        GraphicsCullOutputDetails a1 = createDetails(sharedGeom, sharedApp, 2);
+        GraphicsCullOutputDetails c0 = createDetails(sharedGeom, other_app, 3);
+        GraphicsCullOutputDetails a2 = createDetails(sharedGeom, sharedApp, 4);
+
+        GraphicsCullOutputDetails[] nodes = { a0, b0, a1, c0, a2 };
+
+        InstanceBatcher class_under_test = new InstanceBatcher();
+        int groups = class_under_test.batch(nodes, nodes.length);
+
+        assertEquals(groups, 3, "Wrong group count");
+
+        // Groups in order of first appearance, members in original order
+        GraphicsCullOutputDetails[] expected = { a0, a1, a2, b0, c0 };
+        for(int i = 0; i < expected.length; i++)
+            assertSame(nodes[i], expected[i], "Wrong node at " + i);
+
+        assertEquals(class_under_test.getGroupStart(0), 0, "Wrong first group start");
+        assertEquals(class_under_test.getGroupSize(0), 3, "Wrong first group size");
+        assertTrue(class_under_test.isInstanced(0), "First group should be instanced");
+        assertFalse(class_under_test.isInstanced(1), "Single node should not be instanced");
+
+        assertEquals(class_under_test.getLastBatchCount(), 1, "Wrong batch count");
+        assertEquals(class_under_test.getLastInstanceCount(), 3, "Wrong instance count");
+        assertEquals(class_under_test.getLastDrawsSaved(), 2, "Wrong draws saved");
+
+        nodes = new GraphicsCullOutputDetails[] { a0, b0, a1, c0, a2 };
+        class_under_test.batch(nodes, nodes.length);
+
+        assertEquals(class_under_test.getTotalDrawsSaved(), 4, "Wrong running total");
+
+        class_under_test.setMinInstances(4);
+        class_under_test.batch(nodes, nodes.length);
+
+        assertEquals(class_under_test.getLastBatchCount(), 0, "Group below the minimum");
+    }
+
+    @Test(groups = "unit")
+    public void testDifferentLightsNotGrouped() throws Exception
+    {
+        float[] tx = new float[16];
+
+        VisualDetails light_1 = new VisualDetails();
+        light_1.update(new DirectionalLight(), tx);
+
+        VisualDetails light_2 = new VisualDetails();
+        light_2.update(new DirectionalLight(), tx);
+
+        GraphicsCullOutputDetails n0 = createDetails(sharedGeom, sharedApp, 0);
+        n0.lights = new VisualDetails[] { light_1 };
+        n0.numLights = 1;
+
+        GraphicsCullOutputDetails n1 = createDetails(sharedGeom, sharedApp, 1);
+        n1.lights = new VisualDetails[] { light_2 };
+        n1.numLights = 1;
+
+        GraphicsCullOutputDetails n2 = createDetails(sharedGeom, sharedApp, 2);
+        n2.lights = new VisualDetails[] { light_1 };
+        n2.numLights = 1;
+
+        GraphicsCullOutputDetails[] nodes = { n0, n1, n2 };
+
+        InstanceBatcher class_under_test = new InstanceBatcher();
+
+        assertEquals(class_under_test.batch(nodes, nodes.length), 2, "Wrong group count");
+        assertSame(nodes[0], n0, "Wrong first node");
+        assertSame(nodes[1], n2, "Same light should be grouped");
+        assertSame(nodes[2], n1, "Different light should be separate");
+    }
+
+    @Test(groups = "unit")
+    public void testWriteTransforms() throws Exception
+    {
+        GraphicsCullOutputDetails[] nodes =
+        {
+            createDetails(sharedGeom, sharedApp, 1),
+            createDetails(sharedGeom, sharedApp, 2)
+        };
+
+        GraphicsDetails details = new GraphicsDetails();
+        InstanceBatcher.writeTransforms(nodes, 0, 2, details);
+
+        FloatBuffer buf = details.instanceTransforms;
+
+        assertTrue(buf.isDirect(), "Buffer should be direct");
+        assertEquals(details.numInstances, 2, "Wrong instance count");
+        assertEquals(buf.remaining(), 32, "Wrong number of floats");
+
+        // Column major, so translation is the 13th value
+        assertEquals(buf.get(12), 1f, "Wrong first translation");
+        assertEquals(buf.get(16 + 12), 2f, "Wrong second translation");
+        assertEquals(buf.get(15), 1f, "Wrong first m33");
+
+        InstanceBatcher.writeTransforms(nodes, 1, 1, details);
+        assertSame(details.instanceTransforms, buf, "Buffer should be reused");
+        assertEquals(buf.remaining(), 16, "Wrong number of floats");
+        assertEquals(buf.get(12), 2f, "Wrong translation after reuse");
+    }
+
+    @Test(groups = "unit")
+    public void testStateSortInstancing() throws Exception
+    {
+        GraphicsCullOutputDetails[] nodes =
+        {
+            createDetails(sharedGeom, sharedApp, 0),
+            createDetails(createGeometry(), sharedApp, 1),
+            createDetails(sharedGeom, sharedApp, 2),
+            createDetails(sharedGeom, sharedApp, 3)
+        };
+
+        GraphicsEnvironmentData env_data = new GraphicsEnvironmentData();
+        env_data.viewTransform = new Matrix4f();
+        env_data.viewTransform.setIdentity();
+
+        StateSortStage class_under_test = new StateSortStage();
+
+        assertFalse(class_under_test.isInstancingEnabled(), "Should default to disabled");
+        assertNull(class_under_test.getInstanceBatcher(), "No batcher when disabled");
+
+        class_under_test.setInstancingEnabled(true);
+
+        GraphicsInstructions instr = new GraphicsInstructions();
+        int num = class_under_test.sortNodes(nodes, nodes.length, env_data, instr, 0);
+
+        int instanced = 0;
+        int single = 0;
+
+        for(int i = 0; i < num; i++)
+        {
+            if(instr.renderOps[i] == RenderOp.RENDER_GEOMETRY_INSTANCED)
+            {
+                instanced++;
+                assertSame(instr.renderList[i].renderable, sharedGeom, "Wrong instanced geometry");
+                assertEquals(instr.renderList[i].numInstances, 3, "Wrong instance count");
+            }
+            else if(instr.renderOps[i] == RenderOp.RENDER_GEOMETRY)
+                single++;
+        }
+
+        assertEquals(instanced, 1, "Should be one instanced draw");
+        assertEquals(single, 1, "Should be one normal draw");
+        assertEquals(class_under_test.getInstanceBatcher().getLastDrawsSaved(), 2,
+                     "Wrong draws saved");
+    }
+
+    /**
+     * Create cull output for a shape using the given geometry and appearance
+     * translated along the X axis.
+     */
+    private GraphicsCullOutputDetails createDetails(TriangleArray geom,
+                                                    Appearance app,
+                                                    float x)
+    {
+        Shape3D shape = new Shape3D();
+        shape.setGeometry(geom);
+        shape.setAppearance(app);
+
+        GraphicsCullOutputDetails ret_val = new GraphicsCullOutputDetails();
+        ret_val.renderable = shape;
+        ret_val.transform = new Matrix4f();
+        ret_val.transform.setIdentity();
+        ret_val.transform.m03 = x;
+
+        return ret_val;
+    }
+
+    /**
+     * Create a single triangle geometry.
+     */
+    private TriangleArray createGeometry()
+    {
+        float[] coords = { -0.1f, -0.1f, 0, 0.1f, -0.1f, 0, 0, 0.1f, 0 };
+
+        TriangleArray geom = new TriangleArray();
+        geom.setVertices(TriangleArray.COORDINATE_3, coords, 3);
+
+        return geom;
+    }
+}
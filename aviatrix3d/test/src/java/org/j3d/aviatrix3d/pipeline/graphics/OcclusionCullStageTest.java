@@ -0,0 +1,284 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import org.j3d.aviatrix3d.*;
+import org.j3d.aviatrix3d.rendering.LayerCullable;
+import org.j3d.aviatrix3d.rendering.OffscreenBufferRenderable;
+
+/**
+ * Unit tests for the software occlusion cull stage.
+ *
+ * @author agent
+ */
+public class OcclusionCullStageTest
+{
+    /** Half size of the wall used as the occluder */
+    private static final float WALL_SIZE = 3;
+
+    private Shape3D wall;
+    private Shape3D inFront;
+    private Shape3D beside;
+    private List<Shape3D> hidden;
+    private Layer[] layers;
+
+    @BeforeMethod(groups = "unit")
+    public void setupTests() throws Exception
+    {
+        Viewpoint vp = new Viewpoint();
+
+        Matrix4f mat = new Matrix4f();
+        mat.setIdentity();
+        mat.setTranslation(new Vector3f(0, 0, 20));
+
+        TransformGroup vp_tx = new TransformGroup();
+        vp_tx.setTransform(mat);
+        vp_tx.addChild(vp);
+
+        Group root = new Group();
+        root.addChild(vp_tx);
+
+        float[] wall_coords =
+        {
+            -WALL_SIZE, -WALL_SIZE, 0,  WALL_SIZE, -WALL_SIZE, 0,
+             WALL_SIZE,  WALL_SIZE, 0, -WALL_SIZE, -WALL_SIZE, 0,
+             WALL_SIZE,  WALL_SIZE, 0, -WALL_SIZE,  WALL_SIZE, 0
+        };
+
+        wall = createShape(wall_coords);
+        root.addChild(createGroup(wall, 0, 0, 5));
+
+        hidden = new ArrayList<>();
+        for(int i = -1; i <= 1; i++)
+        {
+            Shape3D shape = createTriangle();
+            hidden.add(shape);
+            root.addChild(createGroup(shape, i, i * 1.5f, -5));
+        }
+
+        inFront = createTriangle();
+        root.addChild(createGroup(inFront, 0, 0, 10));
+
+        beside = createTriangle();
+        root.addChild(createGroup(beside, 8, 0, -5));
+
+        SimpleScene scene = new SimpleScene();
+        scene.setRenderedGeometry(root);
+        scene.setActiveView(vp);
+
+        SimpleViewport view = new SimpleViewport();
+        view.setDimensions(0, 0, 500, 500);
+        view.setScene(scene);
+
+        SimpleLayer layer = new SimpleLayer();
+        layer.setViewport(view);
+
+        layers = new Layer[] { layer };
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidDepthBufferSize() throws Exception
+    {
+        OcclusionCullStage class_under_test = new OcclusionCullStage();
+        class_under_test.setDepthBufferSize(0, 10);
+    }
+
+    @Test(groups = "unit")
+    public void testNoOccluders() throws Exception
+    {
+        OcclusionCullStage class_under_test = new OcclusionCullStage();
+
+        List<Object> expected = cull(new FrustumCullStage());
+        List<Object> actual = cull(class_under_test);
+
+        assertEquals(actual, expected, "Output should match the frustum culler");
+        assertEquals(class_under_test.getLastOccluderCount(), 0, "No occluders registered");
+        assertEquals(class_under_test.getLastOccludedCount(), 0, "Nothing should be occluded");
+    }
+
+    @Test(groups = "unit")
+    public void testBoundsOccluder() throws Exception
+    {
+        OcclusionCullStage class_under_test = new OcclusionCullStage();
+        class_under_test.addOccluder(wall);
+
+        List<Object> frustum = cull(new FrustumCullStage());
+        assertTrue(frustum.containsAll(hidden), "Hidden shapes should pass the frustum");
+
+        List<Object> actual = cull(class_under_test);
+
+        checkOccluded(class_under_test, actual);
+
+        // Run again to make sure the counters reset each frame
+        actual = cull(class_under_test);
+        checkOccluded(class_under_test, actual);
+
+        assertEquals(class_under_test.getTotalOccludedCount(), hidden.size() * 2, "Wrong total count");
+    }
+
+    @Test(groups = "unit")
+    public void testMeshOccluder() throws Exception
+    {
+        // Only the lower half of the wall, so only the lowest shape is hidden
+        float[] mesh =
+        {
+            -WALL_SIZE, -WALL_SIZE, 0,  WALL_SIZE, -WALL_SIZE, 0, WALL_SIZE, -0.5f, 0,
+            -WALL_SIZE, -WALL_SIZE, 0,  WALL_SIZE, -0.5f, 0, -WALL_SIZE, -0.5f, 0
+        };
+
+        OcclusionCullStage class_under_test = new OcclusionCullStage();
+        class_under_test.addOccluder(wall, mesh, 2);
+
+        List<Object> actual = cull(class_under_test);
+
+        assertFalse(actual.contains(hidden.get(0)), "Lowest shape should be hidden");
+        assertTrue(actual.contains(hidden.get(1)), "Middle shape should be visible");
+        assertTrue(actual.contains(hidden.get(2)), "Top shape should be visible");
+        assertEquals(class_under_test.getLastOccludedCount(), 1, "Wrong occluded count");
+    }
+
+    @Test(groups = "unit")
+    public void testDisabled() throws Exception
+    {
+        OcclusionCullStage class_under_test = new OcclusionCullStage();
+        class_under_test.addOccluder(wall);
+        class_under_test.setOcclusionEnabled(false);
+
+        List<Object> expected = cull(new FrustumCullStage());
+        List<Object> actual = cull(class_under_test);
+
+        assertEquals(actual, expected, "Output should match the frustum culler");
+        assertEquals(class_under_test.getLastTestedCount(), 0, "Nothing should be tested");
+    }
+
+    /**
+     * Check the output of the standard scene with the wall occluding.
+     */
+    private void checkOccluded(OcclusionCullStage stage, List<Object> output)
+    {
+        assertTrue(output.contains(wall), "Occluder should be kept");
+        assertTrue(output.contains(inFront), "Shape in front should be kept");
+        assertTrue(output.contains(beside), "Shape beside the wall should be kept");
+
+        for(Shape3D s: hidden)
+            assertFalse(output.contains(s), "Shape behind the wall should be removed");
+
+        assertEquals(stage.getLastOccluderCount(), 1, "Wrong occluder count");
+        assertEquals(stage.getLastTestedCount(), hidden.size() + 2, "Wrong tested count");
+        assertEquals(stage.getLastOccludedCount(), hidden.size(), "Wrong occluded count");
+    }
+
+    /**
+     * Run a single cull of the layers through the given stage and return the
+     * renderables from the main scene.
+     */
+    private List<Object> cull(BaseCullStage stage)
+    {
+        final List<Object> ret_val = new ArrayList<>();
+
+        stage.setCulledGeometryReceiver(new CulledGeometryReceiver()
+        {
+            @Override
+            public void culledOutput(GraphicsRequestData otherData,
+                                     GraphicsProfilingData profilingData,
+                                     ViewportCollection[][] outputLayers,
+                                     int[] numLayers,
+                                     int numScenes,
+                                     OffscreenBufferRenderable[][] sceneParent)
+            {
+                SceneRenderBucket bucket =
+                    outputLayers[0][0].viewports[0].scenes[0];
+
+                for(int i = 0; i < bucket.numNodes; i++)
+                    ret_val.add(bucket.nodes[i].renderable);
+            }
+        });
+
+        LayerCullable[] cullables = { (LayerCullable)layers[0] };
+
+        stage.cull(new GraphicsRequestData(),
+                   new GraphicsProfilingData(),
+                   cullables,
+                   1);
+
+        return ret_val;
+    }
+
+    /**
+     * Create a small triangle shape about the origin.
+     */
+    private Shape3D createTriangle()
+    {
+        float[] coords = { -0.1f, -0.1f, 0, 0.1f, -0.1f, 0, 0, 0.1f, 0 };
+
+        return createShape(coords);
+    }
+
+    /**
+     * Create a shape from the given list of triangle coordinates.
+     */
+    private Shape3D createShape(float[] coords)
+    {
+        TriangleArray geom = new TriangleArray();
+        geom.setVertices(TriangleArray.COORDINATE_3, coords, coords.length / 3);
+
+        // Bounds are not calculated until the scene is live, so set them
+        // explicitly from the coordinates.
+        float[] min = { coords[0], coords[1], coords[2] };
+        float[] max = { coords[0], coords[1], coords[2] };
+
+        for(int i = 3; i < coords.length; i += 3)
+        {
+            for(int j = 0; j < 3; j++)
+            {
+                min[j] = Math.min(min[j], coords[i + j]);
+                max[j] = Math.max(max[j], coords[i + j]);
+            }
+        }
+
+        Shape3D shape = new Shape3D();
+        shape.setGeometry(geom);
+        shape.setBounds(new BoundingBox(min, max));
+
+        return shape;
+    }
+
+    /**
+     * Create a transform group holding the shape at the given position.
+     */
+    private TransformGroup createGroup(Shape3D shape, float x, float y, float z)
+    {
+        Matrix4f mat = new Matrix4f();
+        mat.setIdentity();
+        mat.setTranslation(new Vector3f(x, y, z));
+
+        TransformGroup tx = new TransformGroup();
+        tx.setTransform(mat);
+        tx.addChild(shape);
+
+        return tx;
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Vector3f;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.GLDrawable;
+
+import org.j3d.util.I18nManager;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import org.j3d.aviatrix3d.*;
+import org.j3d.aviatrix3d.output.graphics.BaseBufferDescriptor;
+import org.j3d.aviatrix3d.output.graphics.StandardRenderingProcessor;
+import org.j3d.aviatrix3d.pipeline.graphics.GraphicsOutputDevice;
+import org.j3d.aviatrix3d.rendering.LayerCullable;
+import org.j3d.aviatrix3d.rendering.OffscreenBufferRenderable;
+import org.j3d.aviatrix3d.test.MockGL2;
+
+/**
+ * Unit tests for the parallel frustum cull stage, checking the output
+ * against the single threaded frustum cull stage, both directly and once
+ * it has been rendered to a mock GL2 instance.
+ *
+ * @author agent
+ */
+public class ParallelFrustumCullStageTest
+{
+    /** Number of transform groups directly under the root */
+    private static final int NUM_ROOT_CHILDREN = 150;
+
+    /** Number of transform groups in the nested group */
+    private static final int NUM_NESTED_CHILDREN = 90;
+
+    @Mock
+    private GL mockGL;
+
+    @Mock
+    private GLContext mockContext;
+
+    @Mock
+    private GraphicsOutputDevice mockOutputDevice;
+
+    @Mock
+    private GLDrawable mockDrawable;
+
+    private ForkJoinPool testPool;
+
+    @BeforeMethod(groups = "unit")
+    public void setupTests() throws Exception
+    {
+        MockitoAnnotations.openMocks(this);
+
+        I18nManager intl_mgr = I18nManager.getManager();
+        intl_mgr.setApplication("ParallelFrustumCullStageTest", "config.i18n.av3dResources");
+
+        when(mockContext.getGL()).thenReturn(mockGL);
+        when(mockContext.getGLDrawable()).thenReturn(mockDrawable);
+        when(mockContext.makeCurrent()).thenReturn(GLContext.CONTEXT_CURRENT);
+
+        testPool = new ForkJoinPool(4);
+    }
+
+    @AfterMethod(groups = "unit")
+    public void cleanupTests() throws Exception
+    {
+        testPool.shutdown();
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testNullPool() throws Exception
+    {
+        new ParallelFrustumCullStage(1, null);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidMinChildren() throws Exception
+    {
+        ParallelFrustumCullStage class_under_test =
+            new ParallelFrustumCullStage(1, testPool);
+        class_under_test.setMinParallelChildren(1);
+    }
+
+    @Test(groups = "unit")
+    public void testSmallSceneNotSplit() throws Exception
+    {
+        Layer[] layers = createScene(4, 0);
+
+        ParallelFrustumCullStage class_under_test =
+            new ParallelFrustumCullStage(1, testPool);
+
+        List<CullResult> expected = cull(new FrustumCullStage(), layers);
+        List<CullResult> actual = cull(class_under_test, layers);
+
+        assertEquals(class_under_test.getLastSplitCount(), 0, "Small group should not split");
+        compareResults(expected, actual);
+    }
+
+    @Test(groups = "unit")
+    public void testMatchesSingleThreaded() throws Exception
+    {
+        Layer[] layers = createScene(NUM_ROOT_CHILDREN, NUM_NESTED_CHILDREN);
+
+        ParallelFrustumCullStage class_under_test =
+            new ParallelFrustumCullStage(1, testPool);
+
+        List<CullResult> expected = cull(new FrustumCullStage(), layers);
+        List<CullResult> actual = cull(class_under_test, layers);
+
+        assertTrue(class_under_test.getLastSplitCount() > 0, "Root group should have been split");
+        assertTrue(expected.size() > 0, "Nothing visible in the test scene");
+        assertTrue(expected.size() < NUM_ROOT_CHILDREN + NUM_NESTED_CHILDREN,
+                   "Nothing culled from the test scene");
+
+        compareResults(expected, actual);
+
+        // Second frame reuses the workers and the swapped output details.
+        actual = cull(class_under_test, layers);
+        compareResults(expected, actual);
+    }
+
+    @Test(groups = "unit")
+    public void testNestedSplit() throws Exception
+    {
+        Layer[] layers = createScene(4, NUM_NESTED_CHILDREN);
+
+        ParallelFrustumCullStage class_under_test =
+            new ParallelFrustumCullStage(1, testPool);
+
+        List<CullResult> expected = cull(new FrustumCullStage(), layers);
+        List<CullResult> actual = cull(class_under_test, layers);
+
+        assertEquals(class_under_test.getLastSplitCount(), 1, "Nested group should split");
+        compareResults(expected, actual);
+
+        class_under_test.setMaxSplitDepth(0);
+        actual = cull(class_under_test, layers);
+
+        assertEquals(class_under_test.getLastSplitCount(), 0, "Nested group is too deep to split");
+        compareResults(expected, actual);
+    }
+
+    @Test(groups = "unit")
+    public void testRenderMatchesSingleThreaded() throws Exception
+    {
+        Layer[] layers = createScene(NUM_ROOT_CHILDREN, NUM_NESTED_CHILDREN);
+
+        ParallelFrustumCullStage class_under_test =
+            new ParallelFrustumCullStage(1, testPool);
+
+        int num_visible = cull(new FrustumCullStage(), layers).size();
+
+        MockGL2 expected_gl = render(new FrustumCullStage(), layers);
+        MockGL2 actual_gl = render(class_under_test, layers);
+
+        assertTrue(class_under_test.getLastSplitCount() > 0, "Root group should have been split");
+        assertTrue(expected_gl.getCallCount() > 0, "Nothing rendered by the single threaded cull");
+        assertEquals(actual_gl.getCallCount(), expected_gl.getCallCount(),
+                     "Different GL calls made for the parallel cull");
+
+        for(int i = 0; i < num_visible; i++)
+            actual_gl.verifyCall("glDrawArrays", GL.GL_TRIANGLES, 0, 3);
+    }
+
+    /**
+     * Run a single frame of the layers through the given cull stage, an
+     * unsorted sort stage and the standard rendering processor, drawing
+     * into a mock GL2 instance. Returns the GL instance that the frame was
+     * drawn with.
+     */
+    private MockGL2 render(BaseCullStage stage, Layer[] layers)
+    {
+        final MockGL2 ret_val = new MockGL2(mockContext);
+        when(mockGL.getGL2()).thenReturn(ret_val);
+
+        final StandardRenderingProcessor processor =
+            new StandardRenderingProcessor(mockOutputDevice);
+        processor.setOwnerBuffer(mock(BaseBufferDescriptor.class));
+        processor.prepareData(mockContext);
+
+        NullSortStage sorter = new NullSortStage();
+        sorter.setSortedGeometryReceiver(new SortedGeometryReceiver()
+        {
+            @Override
+            public void sortedOutput(GraphicsRequestData otherData,
+                                     GraphicsProfilingData profilingData,
+                                     GraphicsInstructions[] commands,
+                                     int numValid)
+            {
+                GraphicsInstructions instr = commands[0];
+
+                processor.setDrawableObjects(otherData,
+                                             instr.renderList,
+                                             instr.renderOps,
+                                             instr.numValid,
+                                             instr.renderData);
+                processor.render(mockContext, profilingData);
+            }
+        });
+
+        CullToSingleSortListener listener = new CullToSingleSortListener();
+        listener.setSorter(sorter);
+        stage.setCulledGeometryReceiver(listener);
+
+        LayerCullable[] cullables = new LayerCullable[layers.length];
+        for(int i = 0; i < layers.length; i++)
+            cullables[i] = (LayerCullable)layers[i];
+
+        stage.cull(new GraphicsRequestData(),
+                   new GraphicsProfilingData(),
+                   cullables,
+                   cullables.length);
+
+        return ret_val;
+    }
+
+    /**
+     * Run a single cull of the layers through the given stage and return a
+     * copy of the output from the main scene.
+     */
+    private List<CullResult> cull(BaseCullStage stage, Layer[] layers)
+    {
+        final List<CullResult> ret_val = new ArrayList<>();
+
+        stage.setCulledGeometryReceiver(new CulledGeometryReceiver()
+        {
+            @Override
+            public void culledOutput(GraphicsRequestData otherData,
+                                     GraphicsProfilingData profilingData,
+                                     ViewportCollection[][] outputLayers,
+                                     int[] numLayers,
+                                     int numScenes,
+                                     OffscreenBufferRenderable[][] sceneParent)
+            {
+                SceneRenderBucket bucket =
+                    outputLayers[0][0].viewports[0].scenes[0];
+
+                for(int i = 0; i < bucket.numNodes; i++)
+                    ret_val.add(new CullResult(bucket.nodes[i]));
+            }
+        });
+
+        LayerCullable[] cullables = new LayerCullable[layers.length];
+        for(int i = 0; i < layers.length; i++)
+            cullables[i] = (LayerCullable)layers[i];
+
+        stage.cull(new GraphicsRequestData(),
+                   new GraphicsProfilingData(),
+                   cullables,
+                   cullables.length);
+
+        return ret_val;
+    }
+
+    /**
+     * Check that the two sets of output are identical.
+     */
+    private void compareResults(List<CullResult> expected,
+                                List<CullResult> actual)
+    {
+        assertEquals(actual.size(), expected.size(), "Wrong number of culled nodes");
+
+        for(int i = 0; i < expected.size(); i++)
+        {
+            CullResult e = expected.get(i);
+            CullResult a = actual.get(i);
+
+            assertSame(a.renderable, e.renderable, "Wrong renderable at " + i);
+            assertEquals(a.transform, e.transform, "Wrong transform at " + i);
+            assertEquals(a.numLights, e.numLights, "Wrong light count at " + i);
+            assertEquals(a.numClipPlanes, e.numClipPlanes, "Wrong clip count at " + i);
+        }
+    }
+
+    /**
+     * Create a scene with a row of shapes under the root, some of which are
+     * outside the view, and optionally a nested group of more shapes.
+     */
+    private Layer[] createScene(int numRoot, int numNested)
+    {
+        Viewpoint vp = new Viewpoint();
+
+        Matrix4f mat = new Matrix4f();
+        mat.setIdentity();
+        mat.setTranslation(new Vector3f(0, 0, 20));
+
+        TransformGroup vp_tx = new TransformGroup();
+        vp_tx.setTransform(mat);
+        vp_tx.addChild(vp);
+
+        Group root = new Group();
+        root.addChild(vp_tx);
+
+        SpotLight light = new SpotLight();
+        light.setGlobalOnly(false);
+        root.addChild(light);
+
+        for(int i = 0; i < numRoot; i++)
+            root.addChild(createShapeGroup((i - numRoot / 2) * 0.5f, 0));
+
+        if(numNested != 0)
+        {
+            Group nested = new Group();
+            for(int i = 0; i < numNested; i++)
+                nested.addChild(createShapeGroup((i - numNested / 2) * 0.5f, 2));
+
+            TransformGroup nested_tx = new TransformGroup();
+            nested_tx.addChild(nested);
+            root.addChild(nested_tx);
+        }
+
+        SimpleScene scene = new SimpleScene();
+        scene.setRenderedGeometry(root);
+        scene.setActiveView(vp);
+
+        SimpleViewport view = new SimpleViewport();
+        view.setDimensions(0, 0, 500, 500);
+        view.setScene(scene);
+
+        SimpleLayer layer = new SimpleLayer();
+        layer.setViewport(view);
+
+        Layer[] layers = { layer };
+
+        return layers;
+    }
+
+    /**
+     * Create a transform group holding a single triangle shape.
+     */
+    private TransformGroup createShapeGroup(float x, float y)
+    {
+        float[] coords = { -0.1f, -0.1f, 0, 0.1f, -0.1f, 0, 0, 0.1f, 0 };
+
+        TriangleArray geom = new TriangleArray();
+        geom.setVertices(TriangleArray.COORDINATE_3, coords, 3);
+
+        Shape3D shape = new Shape3D();
+        shape.setGeometry(geom);
+
+        Matrix4f mat = new Matrix4f();
+        mat.setIdentity();
+        mat.setTranslation(new Vector3f(x, y, 0));
+
+        TransformGroup tx = new TransformGroup();
+        tx.setTransform(mat);
+        tx.addChild(shape);
+
+        return tx;
+    }
+
+    /**
+     * Copy of the interesting parts of a single cull output item.
+     */
+    private static class CullResult
+    {
+        final Object renderable;
+        final Matrix4f transform;
+        final int numLights;
+        final int numClipPlanes;
+
+        CullResult(GraphicsCullOutputDetails details)
+        {
+            renderable = details.renderable;
+            transform = new Matrix4f(details.transform);
+            numLights = details.numLights;
+            numClipPlanes = details.numClipPlanes;
+        }
+    }
+}
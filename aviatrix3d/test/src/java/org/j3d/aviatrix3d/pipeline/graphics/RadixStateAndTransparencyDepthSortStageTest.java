@@ -0,0 +1,451 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.vecmath.Matrix4f;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+import org.j3d.util.I18nManager;
+
+import org.j3d.aviatrix3d.*;
+import org.j3d.aviatrix3d.pipeline.RenderOp;
+
+/**
+ * Unit tests for the radix key based state and transparency sort stage.
+ *
+ * @author agent
+ */
+public class RadixStateAndTransparencyDepthSortStageTest
+{
+    /** Number of different materials used for the opaque shapes */
+    private static final int NUM_MATERIALS = 3;
+
+    /** Number of shapes per material */
+    private static final int SHAPES_PER_MATERIAL = 5;
+
+    /** Map of the geometry instance back to the shape that holds it */
+    private Map<Object, Shape3D> geomToShape;
+
+    /** Camera at the origin */
+    private GraphicsEnvironmentData envData;
+
+    @BeforeClass(groups = "unit")
+    public void setupClass() throws Exception
+    {
+        I18nManager intl_mgr = I18nManager.getManager();
+        intl_mgr.setApplication(getClass().getName(), "config.i18n.av3dResources");
+    }
+
+    @BeforeMethod(groups = "unit")
+    public void setupTests() throws Exception
+    {
+        geomToShape = new HashMap<>();
+
+        envData = new GraphicsEnvironmentData();
+        envData.viewTransform = new Matrix4f();
+        envData.viewTransform.setIdentity();
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testZeroDepthBits() throws Exception
+    {
+        new RadixStateAndTransparencyDepthSortStage(1, 0);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void testTooManyDepthBits() throws Exception
+    {
+        new RadixStateAndTransparencyDepthSortStage(1, 17);
+    }
+
+    @Test(groups = "unit")
+    public void testRadixSortStable() throws Exception
+    {
+        RadixKeySorter sorter = new RadixKeySorter();
+
+        GraphicsCullOutputDetails[] items = new GraphicsCullOutputDetails[6];
+        for(int i = 0; i < items.length; i++)
+            items[i] = new GraphicsCullOutputDetails();
+
+        GraphicsCullOutputDetails[] orig = items.clone();
+
+        // Only the top byte differs, so a single pass should be needed.
+        long[] keys =
+        {
+            3L << 56, 1L << 56, 3L << 56, 2L << 56, 1L << 56, 2L << 56
+        };
+
+        sorter.sort(keys, items, items.length, 64);
+
+        assertEquals(sorter.getLastPassCount(), 1, "Constant digits should be skipped");
+
+        int[] expected = { 1, 4, 3, 5, 0, 2 };
+        for(int i = 0; i < expected.length; i++)
+            assertSame(items[i], orig[expected[i]], "Wrong order at " + i);
+
+        for(int i = 1; i < keys.length; i++)
+            assertTrue(keys[i - 1] <= keys[i], "Keys not sorted at " + i);
+    }
+
+    @Test(groups = "unit")
+    public void testOpaqueGroupedByState() throws Exception
+    {
+        Material[] materials = new Material[NUM_MATERIALS];
+        for(int i = 0; i < NUM_MATERIALS; i++)
+            materials[i] = new Material();
+
+        // Interleave materials and depths so the input is unsorted.
+        List<GraphicsCullOutputDetails> input = new ArrayList<>();
+        for(int i = 0; i < NUM_MATERIALS * SHAPES_PER_MATERIAL; i++)
+        {
+            Shape3D shape = createShape(materials[i % NUM_MATERIALS]);
+            float z = -1 - ((i * 7) % 13);
+            input.add(createDetails(shape, z));
+        }
+
+        GraphicsCullOutputDetails[] nodes =
+            input.toArray(new GraphicsCullOutputDetails[input.size()]);
+
+        RadixStateAndTransparencyDepthSortStage class_under_test =
+            new RadixStateAndTransparencyDepthSortStage();
+
+        List<Shape3D> output = sort(class_under_test, nodes, nodes.length);
+
+        assertEquals(output.size(), nodes.length, "Wrong number of rendered shapes");
+
+        // Each material should be in one contiguous run, with depths
+        // running front to back within the run.
+        int changes = 0;
+        Object last_mat = null;
+        float last_z = 0;
+
+        for(Shape3D shape: output)
+        {
+            Object mat = ((Appearance)shape.getAppearance()).getMaterial();
+            float z = depthOf(input, shape);
+
+            if(mat != last_mat)
+            {
+                changes++;
+                last_mat = mat;
+            }
+            else
+                assertTrue(z <= last_z, "Not front to back within a state");
+
+            last_z = z;
+        }
+
+        assertEquals(changes, NUM_MATERIALS, "Materials not grouped");
+    }
+
+    @Test(groups = "unit")
+    public void testTransparentBackToFront() throws Exception
+    {
+        float[] depths = { -3, -9, -1, -5, -7 };
+
+        GraphicsCullOutputDetails[] nodes =
+            new GraphicsCullOutputDetails[depths.length + 1];
+
+        List<GraphicsCullOutputDetails> input = new ArrayList<>();
+
+        for(int i = 0; i < depths.length; i++)
+        {
+            Material mat = new Material();
+            mat.setTransparency(0.5f);
+
+            nodes[i] = createDetails(createShape(mat), depths[i]);
+            input.add(nodes[i]);
+        }
+
+        Shape3D opaque = createShape(new Material());
+        nodes[depths.length] = createDetails(opaque, -20);
+        input.add(nodes[depths.length]);
+
+        RadixStateAndTransparencyDepthSortStage class_under_test =
+            new RadixStateAndTransparencyDepthSortStage();
+
+        GraphicsInstructions instr = new GraphicsInstructions();
+        int num = class_under_test.sortNodes(nodes, nodes.length, envData, instr, 0);
+
+        List<Shape3D> output = new ArrayList<>();
+        boolean in_trans = false;
+        boolean seen_trans = false;
+
+        for(int i = 0; i < num; i++)
+        {
+            if(instr.renderOps[i] == RenderOp.START_TRANSPARENT)
+            {
+                in_trans = true;
+                seen_trans = true;
+            }
+            else if(instr.renderOps[i] == RenderOp.STOP_TRANSPARENT)
+                in_trans = false;
+            else if(instr.renderOps[i] == RenderOp.RENDER_GEOMETRY)
+            {
+                Shape3D shape = geomToShape.get(instr.renderList[i].renderable);
+
+                if(in_trans)
+                    output.add(shape);
+                else
+                    assertSame(shape, opaque, "Transparent shape rendered as opaque");
+            }
+        }
+
+        assertTrue(seen_trans, "No transparent block");
+        assertEquals(output.size(), depths.length, "Wrong transparent count");
+
+        for(int i = 1; i < output.size(); i++)
+            assertTrue(depthOf(input, output.get(i - 1)) < depthOf(input, output.get(i)),
+                       "Not back to front at " + i);
+    }
+
+    @Test(groups = "unit")
+    public void testKeyCaching() throws Exception
+    {
+        Material mat = new Material();
+
+        GraphicsCullOutputDetails[] nodes = new GraphicsCullOutputDetails[4];
+        for(int i = 0; i < nodes.length; i++)
+            nodes[i] = createDetails(createShape(mat), -1 - i);
+
+        RadixStateAndTransparencyDepthSortStage class_under_test =
+            new RadixStateAndTransparencyDepthSortStage();
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), 0, "Nothing cached first frame");
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), nodes.length,
+                     "All keys should be reused");
+
+        // Change the state of one shape. It must be rekeyed.
+        Shape3D shape = (Shape3D)nodes[2].renderable;
+        ((Appearance)shape.getAppearance()).setMaterial(new Material());
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), nodes.length - 1,
+                     "Changed state should not use the cache");
+
+        class_under_test.clearCachedKeys();
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), 0,
+                     "Clearing should invalidate the cache");
+    }
+
+    @Test(groups = "unit")
+    public void testKeyTablesAged() throws Exception
+    {
+        GraphicsCullOutputDetails[] nodes = new GraphicsCullOutputDetails[4];
+        for(int i = 0; i < nodes.length; i++)
+            nodes[i] = createDetails(createShape(new Material()), -1 - i);
+
+        RadixStateAndTransparencyDepthSortStage class_under_test =
+            new RadixStateAndTransparencyDepthSortStage();
+
+        sort(class_under_test, nodes, nodes.length);
+
+        for(int i = 1; i < SortKeyGenerator.TABLE_AGE_FRAMES - 1; i++)
+        {
+            sort(class_under_test, nodes, nodes.length);
+            assertEquals(class_under_test.getLastCachedKeyCount(), nodes.length,
+                         "Keys should be reused on sort " + i);
+        }
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), 0,
+                     "ID tables should have been cleared once old");
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), nodes.length,
+                     "Keys should be reused after the tables are cleared");
+    }
+
+    @Test(groups = "unit")
+    public void testLargeSceneKeepsCache() throws Exception
+    {
+        // More nodes than there are material IDs, but only one material,
+        // so the tables never fill and must not be cleared.
+        Shape3D shape = createShape(new Material());
+
+        GraphicsCullOutputDetails[] nodes = new GraphicsCullOutputDetails[40000];
+        for(int i = 0; i < nodes.length; i++)
+            nodes[i] = createDetails(shape, -1 - i);
+
+        RadixStateAndTransparencyDepthSortStage class_under_test =
+            new RadixStateAndTransparencyDepthSortStage();
+
+        sort(class_under_test, nodes, nodes.length);
+        sort(class_under_test, nodes, nodes.length);
+
+        assertEquals(class_under_test.getLastCachedKeyCount(), nodes.length,
+                     "Large scene should still reuse keys");
+    }
+
+    @Test(groups = "unit")
+    public void testRecycledDetailsReleaseState() throws Exception
+    {
+        Material mat = new Material();
+        GraphicsCullOutputDetails[] nodes = {
+            createDetails(createShape(mat), -1)
+        };
+
+        RadixStateAndTransparencyDepthSortStage class_under_test =
+            new RadixStateAndTransparencyDepthSortStage();
+
+        sort(class_under_test, nodes, nodes.length);
+        assertSame(nodes[0].keyMaterial, mat, "Material not cached");
+
+        nodes[0].clearStateKey();
+
+        assertNull(nodes[0].keyAppearance, "Appearance still held");
+        assertNull(nodes[0].keyShader, "Shader still held");
+        assertNull(nodes[0].keyTexture, "Texture still held");
+        assertNull(nodes[0].keyMaterial, "Material still held");
+
+        sort(class_under_test, nodes, nodes.length);
+        assertEquals(class_under_test.getLastCachedKeyCount(), 0,
+                     "Recycled details should not reuse the old key");
+    }
+
+    @Test(groups = "unit")
+    public void testStateOnlyStage() throws Exception
+    {
+        Material mat_a = new Material();
+        Material mat_b = new Material();
+
+        GraphicsCullOutputDetails[] nodes = new GraphicsCullOutputDetails[6];
+        for(int i = 0; i < nodes.length; i++)
+            nodes[i] = createDetails(createShape(i % 2 == 0 ? mat_a : mat_b), -1 - i);
+
+        RadixStateSortStage class_under_test = new RadixStateSortStage();
+
+        GraphicsInstructions instr = new GraphicsInstructions();
+        int num = class_under_test.sortNodes(nodes, nodes.length, envData, instr, 0);
+
+        int changes = 0;
+        int count = 0;
+        Object last_mat = null;
+
+        for(int i = 0; i < num; i++)
+        {
+            if(instr.renderOps[i] != RenderOp.RENDER_GEOMETRY)
+                continue;
+
+            Shape3D shape = geomToShape.get(instr.renderList[i].renderable);
+            Object mat = ((Appearance)shape.getAppearance()).getMaterial();
+
+            if(mat != last_mat)
+            {
+                changes++;
+                last_mat = mat;
+            }
+
+            count++;
+        }
+
+        assertEquals(count, nodes.length, "Wrong number of rendered shapes");
+        assertEquals(changes, 2, "Materials not grouped");
+    }
+
+    /**
+     * Run the nodes through the sort stage and return the shapes in the
+     * order they are rendered.
+     */
+    private List<Shape3D> sort(BaseSortStage stage,
+                               GraphicsCullOutputDetails[] nodes,
+                               int numNodes)
+    {
+        GraphicsInstructions instr = new GraphicsInstructions();
+
+        // The stage reorders the array, so work from a copy.
+        GraphicsCullOutputDetails[] copy = nodes.clone();
+        int num = stage.sortNodes(copy, numNodes, envData, instr, 0);
+
+        List<Shape3D> ret_val = new ArrayList<>();
+
+        for(int i = 0; i < num; i++)
+        {
+            if(instr.renderOps[i] == RenderOp.RENDER_GEOMETRY)
+                ret_val.add(geomToShape.get(instr.renderList[i].renderable));
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Find the depth the given shape was placed at.
+     */
+    private float depthOf(List<GraphicsCullOutputDetails> nodes, Shape3D shape)
+    {
+        for(GraphicsCullOutputDetails d: nodes)
+        {
+            if(d.renderable == shape)
+                return d.transform.m23;
+        }
+
+        fail("Shape not in the input");
+        return 0;
+    }
+
+    /**
+     * Create cull output for the shape at the given depth in front of the
+     * camera.
+     */
+    private GraphicsCullOutputDetails createDetails(Shape3D shape, float z)
+    {
+        GraphicsCullOutputDetails ret_val = new GraphicsCullOutputDetails();
+        ret_val.renderable = shape;
+        ret_val.transform = new Matrix4f();
+        ret_val.transform.setIdentity();
+        ret_val.transform.m23 = z;
+
+        return ret_val;
+    }
+
+    /**
+     * Create a small triangle shape using the given material.
+     */
+    private Shape3D createShape(Material mat)
+    {
+        float[] coords = { -0.1f, -0.1f, 0, 0.1f, -0.1f, 0, 0, 0.1f, 0 };
+
+        TriangleArray geom = new TriangleArray();
+        geom.setVertices(TriangleArray.COORDINATE_3, coords, 3);
+
+        Appearance app = new Appearance();
+        app.setMaterial(mat);
+
+        Shape3D shape = new Shape3D();
+        shape.setGeometry(geom);
+        shape.setAppearance(app);
+        shape.setBounds(new BoundingBox(new float[] { -0.1f, -0.1f, 0 },
+                                        new float[] { 0.1f, 0.1f, 0 }));
+
+        geomToShape.put(geom, shape);
+
+        return shape;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * **************************************************************************
+ *                        Copyright j3d.org (c) 2000 - 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read docs/lgpl.txt for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ * **************************************************************************
+ */
+
+package org.j3d.aviatrix3d.pipeline.graphics;
+
+import java.util.Random;
+
+import javax.vecmath.Matrix4f;
+
+import org.j3d.util.I18nManager;
+
+import org.j3d.aviatrix3d.*;
+
+/**
+ * Simple timing comparison of the comparator based sort stages against the
+ * radix key based sort stages.
+ * <p>
+ *
+ * Not a unit test. Run from the command line with optional arguments of the
+ * number of shapes, the number of distinct materials and the percentage of
+ * transparent shapes:
+ * <pre>
+ * java org.j3d.aviatrix3d.pipeline.graphics.SortStageBenchmark 10000 50 10
+ * </pre>
+ * Each stage sorts the same static scene repeatedly, so the radix stages
+ * get the benefit of their cached state keys after the first frame, which
+ * is the common case for a scene with a stationary set of objects.
+ *
+ * @author agent
+ */
+public class SortStageBenchmark
+{
+    /** Number of untimed frames to let the JIT settle */
+    private static final int WARMUP_FRAMES = 200;
+
+    /** Number of timed frames */
+    private static final int TIMED_FRAMES = 500;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Optional shape count, material count and transparent
+     *    percentage
+     */
+    public static void main(String[] args)
+    {
+        int num_shapes = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int num_materials = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int trans_percent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        I18nManager intl_mgr = I18nManager.getManager();
+        intl_mgr.setApplication("SortStageBenchmark", "config.i18n.av3dResources");
+
+        GraphicsCullOutputDetails[] nodes =
+            createScene(num_shapes, num_materials, trans_percent);
+
+        GraphicsEnvironmentData data = new GraphicsEnvironmentData();
+        data.viewTransform = new Matrix4f();
+        data.viewTransform.setIdentity();
+
+        System.out.println("Shapes: " + num_shapes +
+                           " materials: " + num_materials +
+                           " transparent: " + trans_percent + "%");
+
+        run("StateSortStage", new StateSortStage(), nodes, data);
+        run("RadixStateSortStage", new RadixStateSortStage(), nodes, data);
+        run("StateAndTransparencyDepthSortStage",
+            new StateAndTransparencyDepthSortStage(),
+            nodes,
+            data);
+        run("RadixStateAndTransparencyDepthSortStage",
+            new RadixStateAndTransparencyDepthSortStage(),
+            nodes,
+            data);
+    }
+
+    /**
+     * Time a single stage over the scene and print the result.
+     */
+    private static void run(String name,
+                            BaseSortStage stage,
+                            GraphicsCullOutputDetails[] nodes,
+                            GraphicsEnvironmentData data)
+    {
+        GraphicsInstructions instr = new GraphicsInstructions();
+        GraphicsCullOutputDetails[] work =
+            new GraphicsCullOutputDetails[nodes.length];
+
+        for(int i = 0; i < WARMUP_FRAMES; i++)
+        {
+            System.arraycopy(nodes, 0, work, 0, nodes.length);
+            stage.sortNodes(work, work.length, data, instr, 0);
+        }
+
+        long total = 0;
+
+        for(int i = 0; i < TIMED_FRAMES; i++)
+        {
+            // Always start from the same unsorted order
+            System.arraycopy(nodes, 0, work, 0, nodes.length);
+
+            long start = System.nanoTime();
+            stage.sortNodes(work, work.length, data, instr, 0);
+            total += System.nanoTime() - start;
+        }
+
+        double avg_us = total / (TIMED_FRAMES * 1000.0);
+
+        System.out.printf("%-42s %10.1f us/frame%n", name, avg_us);
+    }
+
+    /**
+     * Create the cull output for a scene of shapes spread out in front of
+     * the camera using a random selection of the materials.
+     */
+    private static GraphicsCullOutputDetails[] createScene(int numShapes,
+                                                          int numMaterials,
+                                                          int transPercent)
+    {
+        Random rand = new Random(42);
+
+        Material[] materials = new Material[numMaterials];
+        for(int i = 0; i < numMaterials; i++)
+        {
+            // Distinct colours so that the comparator based stages see
+            // different state too, not just different instances.
+            float[] colour = { (float)i / numMaterials, 0.5f, 0.5f };
+
+            materials[i] = new Material();
+            materials[i].setDiffuseColor(colour);
+        }
+
+        float[] coords = { -0.1f, -0.1f, 0, 0.1f, -0.1f, 0, 0, 0.1f, 0 };
+        BoundingBox bounds = new BoundingBox(new float[] { -0.1f, -0.1f, 0 },
+                                             new float[] { 0.1f, 0.1f, 0 });
+
+        GraphicsCullOutputDetails[] ret_val =
+            new GraphicsCullOutputDetails[numShapes];
+
+        for(int i = 0; i < numShapes; i++)
+        {
+            TriangleArray geom = new TriangleArray();
+            geom.setVertices(TriangleArray.COORDINATE_3, coords, 3);
+
+            Appearance app = new Appearance();
+
+            if(rand.nextInt(100) < transPercent)
+            {
+                Material mat = new Material();
+                mat.setTransparency(0.5f);
+                app.setMaterial(mat);
+            }
+            else
+                app.setMaterial(materials[rand.nextInt(numMaterials)]);
+
+            Shape3D shape = new Shape3D();
+            shape.setGeometry(geom);
+            shape.setAppearance(app);
+            shape.setBounds(bounds);
+
+            GraphicsCullOutputDetails details = new GraphicsCullOutputDetails();
+            details.renderable = shape;
+            details.transform = new Matrix4f();
+            details.transform.setIdentity();
+            details.transform.m03 = rand.nextFloat() * 100 - 50;
+            details.transform.m13 = rand.nextFloat() * 100 - 50;
+            details.transform.m23 = -1 - rand.nextFloat() * 1000;
+
+            ret_val[i] = details;
+        }
+
+        // Shuffle so the cull order doesn't match the allocation order.
+        for(int i = numShapes - 1; i > 0; i--)
+        {
+            int j = rand.nextInt(i + 1);
+            GraphicsCullOutputDetails tmp = ret_val[i];
+            ret_val[i] = ret_val[j];
+            ret_val[j] = tmp;
+        }
+
+        return ret_val;
+    }
+}
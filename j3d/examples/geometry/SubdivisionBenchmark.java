@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *               J3D.org Copyright (c) 2026
+ *                             Java Source
+ *
+ *  This source is licensed under the GNU LGPL v2.1
+ *  Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ******************************************************************************/
+
+// External imports
+// None
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.geom.subdivision.HalfEdgeCatmullClarkGenerator;
+import org.j3d.geom.subdivision.SubdivisionTypes;
+
+/**
+ * Commandline app that times Catmull-Clark subdivision of a large control
+ * mesh at several levels and prints the rate of faces generated.
+ * <p>
+ *
+ * Usage: <code>SubdivisionBenchmark [size] [levels] [runs]</code>. The
+ * control mesh is a torus of size by size quads, default 256, with every
+ * eighth ring of edges tagged as a crease. Each level from 1 up to the
+ * given count, default 3, is generated once to warm up and then the given
+ * number of times, default 3, and the fastest run is reported.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class SubdivisionBenchmark
+{
+    /** The number of quads around each direction if not told otherwise */
+    private static final int DEFAULT_SIZE = 256;
+
+    /** The number of levels if not told otherwise */
+    private static final int DEFAULT_LEVELS = 3;
+
+    /** The number of timed runs if not told otherwise */
+    private static final int DEFAULT_RUNS = 3;
+
+    /** The number of quads around each direction of the torus */
+    private final int size;
+
+    /** The highest level to time */
+    private final int levels;
+
+    /** The number of timed runs of each level */
+    private final int runs;
+
+    /**
+     * Create a benchmark for a torus control mesh.
+     *
+     * @param size The number of quads around each direction
+     * @param levels The highest level to time
+     * @param runs The number of timed runs of each level
+     */
+    public SubdivisionBenchmark(int size, int levels, int runs)
+    {
+        this.size = size;
+        this.levels = levels;
+        this.runs = runs;
+    }
+
+    /**
+     * Build the control mesh and time each level.
+     */
+    private void run()
+    {
+        int num_faces = size * size;
+        float[] coords = new float[num_faces * 3];
+        int[] faces = new int[num_faces * 4];
+        int[] counts = new int[num_faces];
+        int[] edge_flags = new int[num_faces * 4];
+
+        for(int i = 0; i < size; i++)
+        {
+            double u = 2 * Math.PI * i / size;
+
+            for(int j = 0; j < size; j++)
+            {
+                double v = 2 * Math.PI * j / size;
+                double r = 3 + Math.cos(v);
+                int idx = (i * size + j) * 3;
+
+                coords[idx] = (float)(r * Math.cos(u));
+                coords[idx + 1] = (float)(r * Math.sin(u));
+                coords[idx + 2] = (float)Math.sin(v);
+            }
+        }
+
+        for(int i = 0; i < size; i++)
+        {
+            int i1 = (i + 1) % size;
+
+            for(int j = 0; j < size; j++)
+            {
+                int j1 = (j + 1) % size;
+                int f = (i * size + j) * 4;
+
+                faces[f] = i * size + j;
+                faces[f + 1] = i1 * size + j;
+                faces[f + 2] = i1 * size + j1;
+                faces[f + 3] = i * size + j1;
+                counts[i * size + j] = 4;
+
+                if(i % 8 == 0)
+                    edge_flags[f + 3] = SubdivisionTypes.CREASE_EDGE;
+            }
+        }
+
+        HalfEdgeCatmullClarkGenerator gen = new HalfEdgeCatmullClarkGenerator();
+        GeometryData data = new GeometryData();
+        data.geometryType = GeometryData.INDEXED_QUADS;
+        data.geometryComponents = GeometryData.NORMAL_DATA;
+
+        System.out.println("Control mesh " + num_faces + " quads, " +
+                           Runtime.getRuntime().availableProcessors() +
+                           " processors");
+
+        for(int level = 1; level <= levels; level++)
+        {
+            gen.setNumSubdivisions(level);
+
+            long best = Long.MAX_VALUE;
+
+            for(int i = 0; i <= runs; i++)
+            {
+                // A new control mesh forces the surface to be rebuilt
+                long start = System.nanoTime();
+                gen.setControlMesh(coords, faces, counts, num_faces, null, edge_flags);
+                data.coordinates = null;
+                data.normals = null;
+                data.indexes = null;
+                gen.generate(data);
+                long time = System.nanoTime() - start;
+
+                if(i != 0)
+                    best = Math.min(best, time);
+            }
+
+            double secs = best / 1e9;
+            int out_faces = gen.getFaceCount();
+
+            System.out.printf("Level %d %10d quads %8.3f s %12.0f quads/s%n",
+                              level,
+                              out_faces,
+                              secs,
+                              out_faces / secs);
+        }
+    }
+
+    //---------------------------------------------------------------
+    // Local methods
+    //---------------------------------------------------------------
+
+    public static void main(String[] args)
+    {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        int levels = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_LEVELS;
+        int runs = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_RUNS;
+
+        if(size < 3 || levels < 1 || runs < 1)
+        {
+            System.out.println("Usage: SubdivisionBenchmark [size] [levels] [runs]");
+            return;
+        }
+
+        new SubdivisionBenchmark(size, levels, runs).run();
+    }
+}
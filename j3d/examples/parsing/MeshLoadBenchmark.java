@@ -0,0 +1,269 @@
+/*******************************************************************************
+ *               J3D.org Copyright (c) 2026
+ *                             Java Source
+ *
+ *  This source is licensed under the GNU LGPL v2.1
+ *  Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ******************************************************************************/
+
+// External imports
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.loaders.discreet.MaxChunkReader;
+import org.j3d.loaders.discreet.MaxParser;
+import org.j3d.loaders.discreet.ObjectMesh;
+import org.j3d.loaders.obj.OBJBulkParser;
+import org.j3d.loaders.obj.OBJFileReader;
+import org.j3d.loaders.stl.STLBulkReader;
+import org.j3d.loaders.stl.STLFileReader;
+
+/**
+ * Commandline app that times loading a binary STL, OBJ or 3DS file with the
+ * original reader and with the bulk reader, and prints the throughput of
+ * each.
+ * <p>
+ *
+ * Usage: <code>MeshLoadBenchmark file [runs]</code>. The file type is taken
+ * from the extension. Each reader is run once to warm up, then the given
+ * number of times, default 3, and the fastest run is reported.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class MeshLoadBenchmark
+{
+    /** The number of timed runs if not told otherwise */
+    private static final int DEFAULT_RUNS = 3;
+
+    /** The file being loaded */
+    private final File file;
+
+    /** The number of timed runs of each reader */
+    private final int runs;
+
+    /** The number of triangles or faces read by the last run */
+    private long itemCount;
+
+    /**
+     * Create a benchmark for a file.
+     *
+     * @param file The file to load
+     * @param runs The number of timed runs of each reader
+     */
+    public MeshLoadBenchmark(File file, int runs)
+    {
+        this.file = file;
+        this.runs = runs;
+    }
+
+    /**
+     * Time both readers for the file type.
+     */
+    private void run() throws IOException
+    {
+        String name = file.getName().toLowerCase();
+
+        if(name.endsWith(".stl"))
+        {
+            time("STLFileReader", this::readSTL);
+            time("STLBulkReader", this::readSTLBulk);
+        }
+        else if(name.endsWith(".obj"))
+        {
+            time("OBJFileReader", this::readOBJ);
+            time("OBJBulkParser", this::readOBJBulk);
+        }
+        else if(name.endsWith(".3ds"))
+        {
+            time("MaxParser", this::read3DS);
+            time("MaxChunkReader", this::read3DSChunks);
+        }
+        else
+        {
+            System.out.println("Unknown file type " + file);
+        }
+    }
+
+    /**
+     * Time one reader and print the fastest run.
+     *
+     * @param label The name of the reader
+     * @param load The code that loads the file
+     */
+    private void time(String label, Load load) throws IOException
+    {
+        load.load();
+
+        long best = Long.MAX_VALUE;
+
+        for(int i = 0; i < runs; i++)
+        {
+            long start = System.nanoTime();
+            load.load();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double secs = best / 1e9;
+        double mb = file.length() / (1024.0 * 1024.0);
+
+        System.out.printf("%-14s %8.3f s %10.1f MB/s %12.0f items/s%n",
+                          label,
+                          secs,
+                          mb / secs,
+                          itemCount / secs);
+    }
+
+    /**
+     * Read the STL file a facet at a time.
+     */
+    private void readSTL() throws IOException
+    {
+        STLFileReader reader = new STLFileReader(file);
+        double[] normal = new double[3];
+        double[][] vertices = new double[3][3];
+
+        int num = reader.getNumOfFacets()[0];
+        float[] coords = new float[num * 9];
+        int idx = 0;
+
+        for(int i = 0; i < num; i++)
+        {
+            reader.getNextFacet(normal, vertices);
+
+            for(int j = 0; j < 3; j++)
+            {
+                coords[idx++] = (float)vertices[j][0];
+                coords[idx++] = (float)vertices[j][1];
+                coords[idx++] = (float)vertices[j][2];
+            }
+        }
+
+        reader.close();
+        itemCount = num;
+    }
+
+    /**
+     * Read the STL file with the bulk reader.
+     */
+    private void readSTLBulk() throws IOException
+    {
+        STLBulkReader reader = new STLBulkReader(file);
+        int num = reader.getNumOfFacets();
+
+        reader.readFacets(new float[num * 9], new float[num * 3]);
+        reader.close();
+
+        itemCount = num;
+    }
+
+    /**
+     * Read every object of the OBJ file a line at a time.
+     */
+    private void readOBJ() throws IOException
+    {
+        OBJFileReader reader = new OBJFileReader(file);
+        GeometryData data;
+        long faces = 0;
+
+        while((data = reader.getNextObject()) != null)
+            faces += data.indexes.length - data.indexesCount;
+
+        reader.close();
+        itemCount = faces;
+    }
+
+    /**
+     * Read the OBJ file with the chunked parser.
+     */
+    private void readOBJBulk() throws IOException
+    {
+        GeometryData data = new OBJBulkParser().parse(file);
+        itemCount = (data == null) ? 0 : data.indexes.length - data.indexesCount;
+    }
+
+    /**
+     * Read the 3DS file with the sequential parser.
+     */
+    private void read3DS() throws IOException
+    {
+        try(FileInputStream is = new FileInputStream(file))
+        {
+            itemCount = countFaces(new MaxParser(is).parse());
+        }
+    }
+
+    /**
+     * Read the 3DS file with the chunk reader.
+     */
+    private void read3DSChunks() throws IOException
+    {
+        itemCount = countFaces(new MaxChunkReader(file).readObjectMesh());
+    }
+
+    /**
+     * Count the faces of every mesh of a 3DS model.
+     *
+     * @param model The model to count
+     * @return The total face count
+     */
+    private long countFaces(ObjectMesh model)
+    {
+        long faces = 0;
+
+        for(int i = 0; i < model.numBlocks; i++)
+        {
+            for(int j = 0; j < model.blocks[i].numMeshes; j++)
+                faces += model.blocks[i].meshes[j].numFaces;
+        }
+
+        return faces;
+    }
+
+    /**
+     * A single load of the file.
+     */
+    private interface Load
+    {
+        /**
+         * Load the file.
+         */
+        void load() throws IOException;
+    }
+
+    //---------------------------------------------------------------
+    // Local methods
+    //---------------------------------------------------------------
+
+    public static void main(String[] args)
+    {
+        if(args.length < 1)
+        {
+            System.out.println("Usage: MeshLoadBenchmark file [runs]");
+            return;
+        }
+
+        File file = new File(args[0]);
+
+        if(!file.exists())
+        {
+            System.out.println("File " + args[0] + " does not exist");
+            return;
+        }
+
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+
+        try
+        {
+            new MeshLoadBenchmark(file, runs).run();
+        }
+        catch(IOException ioe)
+        {
+            System.out.println("IO Error reading file " + ioe);
+        }
+    }
+}
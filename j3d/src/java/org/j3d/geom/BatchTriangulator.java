@@ -0,0 +1,554 @@
+/*****************************************************************************
+ *                          J3D.org Copyright (c) 2026
+ *                                Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom;
+
+// External imports
+import java.text.MessageFormat;
+import java.util.stream.IntStream;
+
+// Local imports
+import org.j3d.util.DefaultErrorReporter;
+import org.j3d.util.ErrorReporter;
+import org.j3d.util.I18nManager;
+
+/**
+ * Triangulates all of the faces of an indexed polygon set in one call,
+ * spreading independent faces across the available processors.
+ * <p>
+ *
+ * Faces are given in the same form as the coordIndex field of an X3D
+ * IndexedFaceSet: a start position in the index list and a vertex count for
+ * each face. The output does not hold coordinate indices, but positions in
+ * the index list. That lets the caller look up the matching coordinate,
+ * normal, colour and texture coordinate index of every triangle corner from
+ * the one result.
+ * <p>
+ *
+ * Each face is given <code>n - 2</code> triangle slots in the output, where
+ * <code>n</code> is its vertex count. Faces that are convex, or that have
+ * only a single concave vertex, are fanned directly from that vertex, which
+ * covers the common cases of concave quads and pentagons without building
+ * any intermediate structures. Everything else is passed to an ear cutting
+ * triangulator. Each worker thread keeps its own triangulator and working
+ * arrays, so they are reused between faces and calls.
+ * <p>
+ *
+ * As with {@link TriangulationUtils}, a face that could not be completely
+ * triangulated gives a negative triangle count. The number still indicates
+ * the number of triangles written for that face.
+ * <p>
+ *
+ * <b>Internationalisation Resource Names</b>
+ * <ul>
+ * <li>invalidIndexMsg: Message when a face refers to a position outside
+ *     the arrays</li>
+ * </ul>
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class BatchTriangulator
+{
+    /** Message when a face indexes outside the arrays */
+    private static final String INVALID_INDEX_PROP =
+        "org.j3d.geom.BatchTriangulator.invalidIndexMsg";
+
+    /** Below this number of faces, work in the calling thread */
+    private static final int PARALLEL_FACE_THRESHOLD = 256;
+
+    /** Working state for each thread */
+    private final ThreadLocal<Scratch> scratch;
+
+    /** Reporter for faces that can't be processed */
+    private ErrorReporter errorReporter;
+
+    /** Whether large batches are split across threads */
+    private boolean parallel;
+
+    /**
+     * Working arrays and triangulator used by a single thread.
+     */
+    private static class Scratch
+    {
+        /** Ear cutter for the faces the fan can't handle */
+        final TriangulationUtils triangulator;
+
+        /** Normal of the current face */
+        final float[] normal;
+
+        /** The position of each vertex within the face, 0 to n - 1 */
+        int[] positions;
+
+        /** Coordinate index output of the ear cutter, not used */
+        int[] coordOutput;
+
+        /** Position output of the ear cutter */
+        int[] positionOutput;
+
+        /** Triangle count of a single face */
+        final int[] singleCount;
+
+        /**
+         * Create the state for a new thread.
+         */
+        Scratch()
+        {
+            triangulator = new TriangulationUtils();
+            normal = new float[3];
+            positions = new int[0];
+            coordOutput = new int[0];
+            positionOutput = new int[0];
+            singleCount = new int[1];
+        }
+
+        /**
+         * Make sure the arrays can hold a face of the given size.
+         *
+         * @param size The number of vertices in the face
+         */
+        void ensureCapacity(int size)
+        {
+            if(positions.length >= size)
+                return;
+
+            positions = new int[size];
+            coordOutput = new int[size * 3];
+            positionOutput = new int[size * 3];
+
+            for(int i = 0; i < size; i++)
+                positions[i] = i;
+        }
+    }
+
+    /**
+     * Create a new triangulator that runs in parallel for large batches.
+     */
+    public BatchTriangulator()
+    {
+        scratch = ThreadLocal.withInitial(Scratch::new);
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+        parallel = true;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Register an error reporter with the triangulator so that any errors
+     * generated can be reported in a nice manner. Setting a value of null
+     * will clear the currently set reporter and revert to the default.
+     *
+     * @param reporter The new ErrorReporter to use.
+     */
+    public void setErrorReporter(ErrorReporter reporter)
+    {
+        if(reporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
+        else
+            errorReporter = reporter;
+    }
+
+    /**
+     * Set whether large batches are split across threads. When disabled,
+     * all faces are processed in the calling thread.
+     *
+     * @param enable true to allow parallel processing
+     */
+    public void setParallel(boolean enable)
+    {
+        parallel = enable;
+    }
+
+    /**
+     * Check whether large batches are split across threads.
+     *
+     * @return true if parallel processing is allowed
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    /**
+     * Work out the number of triangle slots needed for the given faces, as
+     * required by the output array of
+     * {@link #triangulateConcavePolygons}.
+     *
+     * @param faceSize The number of vertices of each face
+     * @param numFaces The number of faces to use
+     * @return The number of triangles that may be generated
+     */
+    public static int getMaxTriangleCount(int[] faceSize, int numFaces)
+    {
+        int ret_val = 0;
+
+        for(int i = 0; i < numFaces; i++)
+        {
+            if(faceSize[i] > 2)
+                ret_val += faceSize[i] - 2;
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Triangulate a set of polygons that may be concave. The face normals
+     * are calculated from the vertices. If the faces are wound clockwise,
+     * set ccw to false, so that the normal is flipped to match.
+     *
+     * @param coords Flat array of the vertex positions
+     * @param coordIndex The index list that the faces are read from
+     * @param faceStart The position of the first vertex of each face in
+     *    coordIndex
+     * @param faceSize The number of vertices of each face
+     * @param numFaces The number of faces to triangulate
+     * @param ccw true if the faces are wound counter-clockwise
+     * @param triangleStart Array at least numFaces + 1 long to write the
+     *    first triangle slot of each face to. The last entry is the total
+     *    number of slots
+     * @param triangleCount Array to write the number of triangles generated
+     *    for each face to. Negative for faces that had errors
+     * @param output Array to write the coordIndex positions of the triangle
+     *    corners to, 3 per triangle slot
+     * @return The total number of triangles generated
+     * @throws InvalidArraySizeException One of the output arrays is not big
+     *    enough for the faces
+     */
+    public int triangulateConcavePolygons(float[] coords,
+                                          int[] coordIndex,
+                                          int[] faceStart,
+                                          int[] faceSize,
+                                          int numFaces,
+                                          boolean ccw,
+                                          int[] triangleStart,
+                                          int[] triangleCount,
+                                          int[] output)
+        throws InvalidArraySizeException
+    {
+        if(triangleStart.length < numFaces + 1)
+            throw new InvalidArraySizeException("Triangle start",
+                                                triangleStart.length,
+                                                numFaces + 1);
+
+        if(triangleCount.length < numFaces)
+            throw new InvalidArraySizeException("Triangle count",
+                                                triangleCount.length,
+                                                numFaces);
+
+        int slots = 0;
+
+        for(int i = 0; i < numFaces; i++)
+        {
+            triangleStart[i] = slots;
+
+            if(faceSize[i] > 2)
+                slots += faceSize[i] - 2;
+        }
+
+        triangleStart[numFaces] = slots;
+
+        if(output.length < slots * 3)
+            throw new InvalidArraySizeException("Triangle output",
+                                                output.length,
+                                                slots * 3);
+
+        if(parallel && numFaces >= PARALLEL_FACE_THRESHOLD)
+        {
+            return IntStream.range(0, numFaces).parallel().map(f ->
+                triangulateFace(scratch.get(),
+                                coords,
+                                coordIndex,
+                                faceStart[f],
+                                faceSize[f],
+                                ccw,
+                                f,
+                                triangleStart[f],
+                                triangleCount,
+                                output)).sum();
+        }
+        else
+        {
+            Scratch work = scratch.get();
+            int total = 0;
+
+            for(int f = 0; f < numFaces; f++)
+                total += triangulateFace(work,
+                                         coords,
+                                         coordIndex,
+                                         faceStart[f],
+                                         faceSize[f],
+                                         ccw,
+                                         f,
+                                         triangleStart[f],
+                                         triangleCount,
+                                         output);
+
+            return total;
+        }
+    }
+
+    /**
+     * Triangulate a single polygon that may be concave, in the calling
+     * thread. The result is the same as that given for the face by
+     * {@link #triangulateConcavePolygons}.
+     *
+     * @param coords Flat array of the vertex positions
+     * @param coordIndex The index list that the face is read from
+     * @param start The position of the first vertex in coordIndex
+     * @param size The number of vertices in the face
+     * @param ccw true if the face is wound counter-clockwise
+     * @param output Array to write the coordIndex positions of the triangle
+     *    corners to, at least 3 * (size - 2) long
+     * @return The number of triangles generated, negative on error
+     */
+    public int triangulateConcavePolygon(float[] coords,
+                                         int[] coordIndex,
+                                         int start,
+                                         int size,
+                                         boolean ccw,
+                                         int[] output)
+    {
+        Scratch work = scratch.get();
+
+        triangulateFace(work,
+                        coords,
+                        coordIndex,
+                        start,
+                        size,
+                        ccw,
+                        0,
+                        0,
+                        work.singleCount,
+                        output);
+
+        return work.singleCount[0];
+    }
+
+    /**
+     * Triangulate a single face into its output slots.
+     *
+     * @param work The working state of this thread
+     * @param coords Flat array of the vertex positions
+     * @param coordIndex The index list that the face is read from
+     * @param start The position of the first vertex in coordIndex
+     * @param size The number of vertices in the face
+     * @param ccw true if the face is wound counter-clockwise
+     * @param face The index of the face
+     * @param firstSlot The first triangle slot of the face
+     * @param triangleCount Array to write the triangle count to
+     * @param output Array to write the corner positions to
+     * @return The number of triangles written
+     */
+    private int triangulateFace(Scratch work,
+                                float[] coords,
+                                int[] coordIndex,
+                                int start,
+                                int size,
+                                boolean ccw,
+                                int face,
+                                int firstSlot,
+                                int[] triangleCount,
+                                int[] output)
+    {
+        if(size < 3)
+        {
+            triangleCount[face] = 0;
+            return 0;
+        }
+
+        int out = firstSlot * 3;
+
+        try
+        {
+            if(size == 3)
+            {
+                output[out] = start;
+                output[out + 1] = start + 1;
+                output[out + 2] = start + 2;
+                triangleCount[face] = 1;
+
+                return 1;
+            }
+
+            work.ensureCapacity(size);
+
+            float[] normal = work.normal;
+            createFaceNormal(coords, coordIndex, start, size, ccw, normal);
+
+            // Look for the concave vertices. Any vertex in line with its
+            // neighbours leaves it to the ear cutter to sort out.
+            int concave = -1;
+            int num_concave = 0;
+            boolean degenerate = false;
+
+            for(int i = 0; i < size && !degenerate && num_concave < 2; i++)
+            {
+                int p0 = coordIndex[start + (i + size - 1) % size] * 3;
+                int p = coordIndex[start + i] * 3;
+                int p1 = coordIndex[start + (i + 1) % size] * 3;
+
+                float turn = turnDirection(coords, p0, p, p1, normal);
+
+                if(turn == 0)
+                {
+                    degenerate = true;
+                }
+                else if(turn < 0)
+                {
+                    concave = i;
+                    num_concave++;
+                }
+            }
+
+            if(!degenerate && num_concave < 2)
+            {
+                // Convex, or the single concave vertex can see every other
+                // vertex, so fan from it.
+                int apex = (concave == -1) ? 0 : concave;
+
+                for(int i = 1; i < size - 1; i++)
+                {
+                    output[out++] = start + apex;
+                    output[out++] = start + (apex + i) % size;
+                    output[out++] = start + (apex + i + 1) % size;
+                }
+
+                triangleCount[face] = size - 2;
+
+                return size - 2;
+            }
+
+            int num_tris = work.triangulator.triangulateConcavePolygon(
+                coords,
+                start,
+                size,
+                coordIndex,
+                0,
+                work.positions,
+                0,
+                null,
+                0,
+                null,
+                work.coordOutput,
+                work.positionOutput,
+                null,
+                null,
+                normal);
+
+            int abs_tris = Math.abs(num_tris);
+            int[] positions = work.positionOutput;
+
+            for(int i = 0; i < abs_tris * 3; i++)
+                output[out + i] = start + positions[i];
+
+            triangleCount[face] = num_tris;
+
+            return abs_tris;
+        }
+        catch(ArrayIndexOutOfBoundsException aiob)
+        {
+            I18nManager intl_mgr = I18nManager.getManager();
+            String msg_pattern = intl_mgr.getString(INVALID_INDEX_PROP);
+
+            Object[] msg_args = { face };
+            MessageFormat msg_fmt =
+                new MessageFormat(msg_pattern, intl_mgr.getFoundLocale());
+            String msg = msg_fmt.format(msg_args);
+
+            errorReporter.warningReport(msg, aiob);
+
+            triangleCount[face] = 0;
+
+            return 0;
+        }
+    }
+
+    /**
+     * Calculate the normal of a face using Newell's method, normalised and
+     * flipped for clockwise faces.
+     *
+     * @param coords Flat array of the vertex positions
+     * @param coordIndex The index list that the face is read from
+     * @param start The position of the first vertex in coordIndex
+     * @param size The number of vertices in the face
+     * @param ccw true if the face is wound counter-clockwise
+     * @param res Array to write the normal to
+     */
+    private static void createFaceNormal(float[] coords,
+                                         int[] coordIndex,
+                                         int start,
+                                         int size,
+                                         boolean ccw,
+                                         float[] res)
+    {
+        float nx = 0;
+        float ny = 0;
+        float nz = 0;
+
+        for(int i = 0; i < size; i++)
+        {
+            int p0 = coordIndex[start + i] * 3;
+            int p1 = coordIndex[start + (i + 1) % size] * 3;
+
+            nx += (coords[p0 + 1] - coords[p1 + 1]) * (coords[p0 + 2] + coords[p1 + 2]);
+            ny += (coords[p0 + 2] - coords[p1 + 2]) * (coords[p0] + coords[p1]);
+            nz += (coords[p0] - coords[p1]) * (coords[p0 + 1] + coords[p1 + 1]);
+        }
+
+        double len = nx * nx + ny * ny + nz * nz;
+
+        if(len != 0)
+        {
+            len = (ccw ? 1 : -1) / Math.sqrt(len);
+            nx *= len;
+            ny *= len;
+            nz *= len;
+        }
+
+        res[0] = nx;
+        res[1] = ny;
+        res[2] = nz;
+    }
+
+    /**
+     * Find which way the boundary turns at a vertex, relative to the face
+     * normal. This uses the same test as
+     * {@link TriangulationUtils#isConvexVertex}, but keeps the value so that
+     * vertices in line with their neighbours can be told apart.
+     *
+     * @param coords The array to read coodinate values from
+     * @param p0 The index of the previous vertex to the one in question
+     * @param p The index of the vertex being tested
+     * @param p1 The index after the vertex after the one in question
+     * @param normal The normal to the face
+     * @return Positive for convex, negative for concave, zero if in line
+     */
+    private static float turnDirection(float[] coords,
+                                       int p0,
+                                       int p,
+                                       int p1,
+                                       float[] normal)
+    {
+        float x1 = coords[p] - coords[p0];
+        float y1 = coords[p + 1] - coords[p0 + 1];
+        float z1 = coords[p + 2] - coords[p0 + 2];
+
+        float x2 = coords[p1] - coords[p];
+        float y2 = coords[p1 + 1] - coords[p + 1];
+        float z2 = coords[p1 + 2] - coords[p + 2];
+
+        float cross_x = y1 * z2 - z1 * y2;
+        float cross_y = z1 * x2 - x1 * z2;
+        float cross_z = x1 * y2 - y1 * x2;
+
+        return cross_x * normal[0] + cross_y * normal[1] + cross_z * normal[2];
+    }
+}
@@ -14,7 +14,6 @@ package org.j3d.geom;
 
 // Local imports
 import org.j3d.util.HashSet;
-import org.j3d.util.ObjectArray;
 
 
 /**
@@ -45,8 +44,14 @@ class EarCutTriangulator
     /** The default size of the polygon values */
     private static final int DEFAULT_POLY_SIZE = 6;
 
-    /** Cache of polygon vertex structures for efficiency */
-    private static ObjectArray vertexCache;
+    /**
+     * Cache of polygon vertex structures for efficiency. Kept per instance
+     * so that triangulators used by different threads don't contend.
+     */
+    private PolyVertex[] vertexCache;
+
+    /** The number of vertices held in the cache */
+    private int numCachedVertices;
 
     /** Set of concave vertices for this polygon */
     private HashSet<PolyVertex> concaveVertices;
@@ -60,14 +65,6 @@ class EarCutTriangulator
     /** Array for reading out the concave vertices from the hashset */
     private PolyVertex[] tmpArray;
 
-    /**
-     * Static construct.
-     */
-    static
-    {
-        vertexCache = new ObjectArray();
-    }
-
     /**
      * Construct a new instance of the triangulation utilities. Assumes a
      * default max polygon size of 6 vertices.
@@ -92,6 +89,7 @@ class EarCutTriangulator
         faceNormal = new float[3];
         working2dCoords = new float[6];
         tmpArray = new PolyVertex[size];
+        vertexCache = new PolyVertex[size];
     }
 
     /**
@@ -474,7 +472,10 @@ while(tmp != first)
      */
     public void clearCachedObjects()
     {
-        vertexCache.clear();
+        for(int i = 0; i < numCachedVertices; i++)
+            vertexCache[i] = null;
+
+        numCachedVertices = 0;
     }
 
     //----------------------------------------------------------
@@ -1028,16 +1029,13 @@ for(int i = 0; i < output_index; i += 3)
      *
      * @return an available entry object
      */
-    private static PolyVertex newVertex()
+    private PolyVertex newVertex()
     {
-        PolyVertex ret_val;
-
-        synchronized(vertexCache) {
+        if(numCachedVertices == 0)
+            return new PolyVertex();
 
-            ret_val = (vertexCache.size() == 0) ?
-               new PolyVertex() :
-               (PolyVertex)vertexCache.remove(0);
-        }
+        PolyVertex ret_val = vertexCache[--numCachedVertices];
+        vertexCache[numCachedVertices] = null;
 
         return ret_val;
     }
@@ -1048,10 +1046,15 @@ for(int i = 0; i < output_index; i += 3)
      *
      * @param e The entry to put back in the list
      */
-    private static void freeVertex(PolyVertex e)
+    private void freeVertex(PolyVertex e)
     {
-        synchronized(vertexCache) {
-            vertexCache.add(e);
+        if(numCachedVertices == vertexCache.length)
+        {
+            PolyVertex[] tmp = new PolyVertex[numCachedVertices * 2 + 1];
+            System.arraycopy(vertexCache, 0, tmp, 0, numCachedVertices);
+            vertexCache = tmp;
         }
+
+        vertexCache[numCachedVertices++] = e;
     }
 }
@@ -0,0 +1,509 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom;
+
+// External imports
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Local imports
+// None
+
+/**
+ * Cache of generated primitive geometry, so that shapes of the same size
+ * and tessellation are only generated once.
+ * <p>
+ *
+ * Each of the primitive generators works out its trigonometry tables and
+ * allocates new arrays every time it is asked for geometry. A scene with
+ * many identical spheres or cylinders repeats that work for every one. This
+ * class keys the generated geometry on the kind of shape, its dimensions,
+ * the facet counts and the geometry type, components and sub-type of the
+ * request, and hands back the same arrays for every matching request.
+ * <p>
+ *
+ * <b>Shared arrays</b>
+ * <p>
+ *
+ * Each call returns a new {@link GeometryData} instance, but the arrays it
+ * holds are shared with every other caller of the same shape. They must be
+ * treated as read only. Callers that need to change the values should clone
+ * the returned data first. Any arrays set in the request are ignored, as
+ * the request is only used to describe the geometry wanted.
+ * <p>
+ *
+ * Once the cache holds the maximum number of shapes, new shapes are still
+ * generated but are no longer kept. All the methods may be called from
+ * multiple threads at once.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class GeometryCache
+{
+    /** The default number of shapes to keep */
+    private static final int DEFAULT_MAX_ENTRIES = 512;
+
+    /** Key type for boxes */
+    private static final int BOX = 1;
+
+    /** Key type for cones */
+    private static final int CONE = 2;
+
+    /** Key type for cylinders */
+    private static final int CYLINDER = 3;
+
+    /** Key type for spheres */
+    private static final int SPHERE = 4;
+
+    /** Key type for tori */
+    private static final int TORUS = 5;
+
+    /** The shared instance */
+    private static final GeometryCache defaultCache = new GeometryCache();
+
+    /** Generated geometry for each shape */
+    private final ConcurrentHashMap<ShapeKey, GeometryData> entries;
+
+    /** The number of requests answered from the cache */
+    private final AtomicLong hitCount;
+
+    /** The number of requests that needed geometry generated */
+    private final AtomicLong missCount;
+
+    /** The maximum number of shapes to keep */
+    private volatile int maxEntries;
+
+    /**
+     * Identity of a generated shape.
+     */
+    private static final class ShapeKey
+    {
+        /** The kind of shape */
+        private final int shape;
+
+        /** The dimensions of the shape */
+        private final float[] dimensions;
+
+        /** Facet counts, flags and the requested geometry details */
+        private final int[] details;
+
+        /** Hash of all the values */
+        private final int hash;
+
+        /**
+         * Create a key from the values describing a shape.
+         *
+         * @param shape The kind of shape
+         * @param dimensions The dimensions of the shape
+         * @param details Facet counts, flags and geometry details
+         */
+        ShapeKey(int shape, float[] dimensions, int[] details)
+        {
+            this.shape = shape;
+            this.dimensions = dimensions;
+            this.details = details;
+
+            hash = (shape * 31 + Arrays.hashCode(dimensions)) * 31 +
+                   Arrays.hashCode(details);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof ShapeKey))
+                return false;
+
+            ShapeKey key = (ShapeKey)o;
+
+            return (shape == key.shape) &&
+                   Arrays.equals(dimensions, key.dimensions) &&
+                   Arrays.equals(details, key.details);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    /**
+     * Create a new, empty cache.
+     */
+    public GeometryCache()
+    {
+        entries = new ConcurrentHashMap<>();
+        hitCount = new AtomicLong();
+        missCount = new AtomicLong();
+        maxEntries = DEFAULT_MAX_ENTRIES;
+    }
+
+    /**
+     * Get the cache shared by everything in the application.
+     *
+     * @return The shared cache instance
+     */
+    public static GeometryCache getDefaultCache()
+    {
+        return defaultCache;
+    }
+
+    /**
+     * Set the number of shapes to keep. Shapes already in the cache are not
+     * removed if the new limit is lower.
+     *
+     * @param max The maximum number of shapes, zero to keep none
+     * @throws IllegalArgumentException The number is negative
+     */
+    public void setMaxEntries(int max)
+    {
+        if(max < 0)
+            throw new IllegalArgumentException("Negative maximum entries " + max);
+
+        maxEntries = max;
+    }
+
+    /**
+     * Get the number of shapes that will be kept.
+     *
+     * @return The maximum number of shapes
+     */
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * Get the geometry of a box.
+     *
+     * @param width The width of the box
+     * @param height The height of the box
+     * @param depth The depth of the box
+     * @param request The type and components of the geometry wanted
+     * @return Geometry holding shared arrays
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry requested
+     * @see BoxGenerator
+     */
+    public GeometryData getBox(float width,
+                               float height,
+                               float depth,
+                               GeometryData request)
+    {
+        ShapeKey key = createKey(BOX,
+                                 new float[] { width, height, depth },
+                                 new int[0],
+                                 request);
+
+        return lookup(key,
+                      request,
+                      () -> new BoxGenerator(width, height, depth));
+    }
+
+    /**
+     * Get the geometry of a cone.
+     *
+     * @param height The height of the cone
+     * @param radius The radius of the bottom of the cone
+     * @param facets The number of facets on the side of the cone
+     * @param hasTop True to generate faces for the top
+     * @param hasBottom True to generate faces for the bottom
+     * @param request The type and components of the geometry wanted
+     * @return Geometry holding shared arrays
+     * @throws IllegalArgumentException The number of facets is less than 3
+     *    or the radius is not positive
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry requested
+     * @see ConeGenerator
+     */
+    public GeometryData getCone(float height,
+                                float radius,
+                                int facets,
+                                boolean hasTop,
+                                boolean hasBottom,
+                                GeometryData request)
+    {
+        ShapeKey key = createKey(CONE,
+                                 new float[] { height, radius },
+                                 new int[] { facets, flags(hasTop, hasBottom, false) },
+                                 request);
+
+        return lookup(key,
+                      request,
+                      () -> new ConeGenerator(height, radius, facets, hasTop, hasBottom));
+    }
+
+    /**
+     * Get the geometry of a cylinder.
+     *
+     * @param height The height of the cylinder
+     * @param radius The radius of the cylinder
+     * @param facets The number of faces to use around the radius
+     * @param top True to generate the top of the cylinder
+     * @param bottom True to generate the bottom of the cylinder
+     * @param side True to generate the side of the cylinder
+     * @param request The type and components of the geometry wanted
+     * @return Geometry holding shared arrays
+     * @throws IllegalArgumentException The number of facets is less than 3
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry requested
+     * @see CylinderGenerator
+     */
+    public GeometryData getCylinder(float height,
+                                    float radius,
+                                    int facets,
+                                    boolean top,
+                                    boolean bottom,
+                                    boolean side,
+                                    GeometryData request)
+    {
+        ShapeKey key = createKey(CYLINDER,
+                                 new float[] { height, radius },
+                                 new int[] { facets, flags(top, bottom, side) },
+                                 request);
+
+        return lookup(key,
+                      request,
+                      () -> new CylinderGenerator(height, radius, facets, top, bottom, side));
+    }
+
+    /**
+     * Get the geometry of a sphere.
+     *
+     * @param radius The radius of the sphere
+     * @param facets The number of facets around the sphere
+     * @param half True to generate a hemisphere
+     * @param request The type and components of the geometry wanted
+     * @return Geometry holding shared arrays
+     * @throws IllegalArgumentException The number of facets is less than 4
+     *    or not divisible by 2
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry requested
+     * @see SphereGenerator
+     */
+    public GeometryData getSphere(float radius,
+                                  int facets,
+                                  boolean half,
+                                  GeometryData request)
+    {
+        ShapeKey key = createKey(SPHERE,
+                                 new float[] { radius },
+                                 new int[] { facets, flags(half, false, false) },
+                                 request);
+
+        return lookup(key,
+                      request,
+                      () -> new SphereGenerator(radius, facets, half));
+    }
+
+    /**
+     * Get the geometry of a torus.
+     *
+     * @param innerRadius The radius of the tube
+     * @param outerRadius The radius of the ring
+     * @param innerFacets The number of faces around the tube
+     * @param outerFacets The number of faces around the ring
+     * @param request The type and components of the geometry wanted
+     * @return Geometry holding shared arrays
+     * @throws IllegalArgumentException A facet count is too small
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry requested
+     * @see TorusGenerator
+     */
+    public GeometryData getTorus(float innerRadius,
+                                 float outerRadius,
+                                 int innerFacets,
+                                 int outerFacets,
+                                 GeometryData request)
+    {
+        ShapeKey key = createKey(TORUS,
+                                 new float[] { innerRadius, outerRadius },
+                                 new int[] { innerFacets, outerFacets },
+                                 request);
+
+        return lookup(key,
+                      request,
+                      () -> new TorusGenerator(innerRadius,
+                                               outerRadius,
+                                               innerFacets,
+                                               outerFacets));
+    }
+
+    /**
+     * Get the number of requests that were answered from the cache.
+     *
+     * @return The hit count
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of requests that needed geometry generated.
+     *
+     * @return The miss count
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Get the number of shapes currently in the cache.
+     *
+     * @return The shape count
+     */
+    public int getCachedCount()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Remove every shape from the cache and reset the counts. Geometry
+     * already handed out is not affected.
+     */
+    public void clear()
+    {
+        entries.clear();
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    //---------------------------------------------------------------
+    // Local methods
+    //---------------------------------------------------------------
+
+    /**
+     * Build the key for a shape and a request.
+     *
+     * @param shape The kind of shape
+     * @param dimensions The dimensions of the shape
+     * @param counts Facet counts and flags of the shape
+     * @param request The type and components of the geometry wanted
+     * @return The new key
+     */
+    private ShapeKey createKey(int shape,
+                               float[] dimensions,
+                               int[] counts,
+                               GeometryData request)
+    {
+        int[] details = Arrays.copyOf(counts, counts.length + 3);
+        details[counts.length] = request.geometryType;
+        details[counts.length + 1] = request.geometryComponents;
+        details[counts.length + 2] = request.geometrySubType;
+
+        return new ShapeKey(shape, dimensions, details);
+    }
+
+    /**
+     * Pack boolean options of a shape into a single value.
+     *
+     * @param a The first option
+     * @param b The second option
+     * @param c The third option
+     * @return The options as bits
+     */
+    private static int flags(boolean a, boolean b, boolean c)
+    {
+        return (a ? 1 : 0) | (b ? 2 : 0) | (c ? 4 : 0);
+    }
+
+    /**
+     * Find the geometry for a key, generating it if it is not in the cache.
+     *
+     * @param key The identity of the shape
+     * @param request The type and components of the geometry wanted
+     * @param factory Creates a generator set up for the shape
+     * @return Geometry holding the shared arrays
+     */
+    private GeometryData lookup(ShapeKey key,
+                                GeometryData request,
+                                Supplier<GeometryGenerator> factory)
+    {
+        GeometryData ret_val = entries.get(key);
+
+        if(ret_val != null)
+        {
+            hitCount.incrementAndGet();
+            return shallowCopy(ret_val);
+        }
+
+        if(entries.size() >= maxEntries)
+        {
+            missCount.incrementAndGet();
+            return generate(request, factory);
+        }
+
+        GeometryData[] made = new GeometryData[1];
+
+        ret_val = entries.computeIfAbsent(key,
+                                          k -> made[0] = generate(request, factory));
+
+        if(made[0] == null)
+            hitCount.incrementAndGet();
+        else
+            missCount.incrementAndGet();
+
+        return shallowCopy(ret_val);
+    }
+
+    /**
+     * Generate the geometry for a request.
+     *
+     * @param request The type and components of the geometry wanted
+     * @param factory Creates a generator set up for the shape
+     * @return The new geometry
+     */
+    private GeometryData generate(GeometryData request,
+                                  Supplier<GeometryGenerator> factory)
+    {
+        GeometryData ret_val = new GeometryData();
+        ret_val.geometryType = request.geometryType;
+        ret_val.geometryComponents = request.geometryComponents;
+        ret_val.geometrySubType = request.geometrySubType;
+
+        factory.get().generate(ret_val);
+
+        return ret_val;
+    }
+
+    /**
+     * Create a new holder that refers to the same arrays as the cached
+     * geometry.
+     *
+     * @param src The cached geometry
+     * @return A new holder of the shared arrays
+     */
+    private GeometryData shallowCopy(GeometryData src)
+    {
+        GeometryData ret_val = new GeometryData();
+        ret_val.geometryType = src.geometryType;
+        ret_val.geometrySubType = src.geometrySubType;
+        ret_val.geometryComponents = src.geometryComponents;
+        ret_val.vertexCount = src.vertexCount;
+        ret_val.coordinates = src.coordinates;
+        ret_val.normals = src.normals;
+        ret_val.indexesCount = src.indexesCount;
+        ret_val.indexes = src.indexes;
+        ret_val.numStrips = src.numStrips;
+        ret_val.stripCounts = src.stripCounts;
+        ret_val.textureCoordinates = src.textureCoordinates;
+        ret_val.colors = src.colors;
+        ret_val.normalIndexes = src.normalIndexes;
+        ret_val.texCoordIndexes = src.texCoordIndexes;
+        ret_val.colorIndexes = src.colorIndexes;
+
+        return ret_val;
+    }
+}
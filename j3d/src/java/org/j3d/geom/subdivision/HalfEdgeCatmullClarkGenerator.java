@@ -0,0 +1,574 @@
+/*****************************************************************************
+ *                        J3D.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom.subdivision;
+
+// External imports
+import java.util.stream.IntStream;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.geom.GeometryGenerator;
+import org.j3d.geom.InvalidArraySizeException;
+import org.j3d.geom.UnsupportedTypeException;
+
+/**
+ * Catmull-Clark subdivision surface generator that works on a half-edge
+ * mesh held in primitive arrays and evaluates each level in parallel.
+ * <p>
+ *
+ * The control mesh is given as an indexed face set, in the same style as an
+ * X3D IndexedFaceSet with the face sizes held separately. Faces may have any
+ * number of sides. After the first level of subdivision the surface is made
+ * entirely of quads. Vertices may be tagged as corners or creases using the
+ * values of {@link SubdivisionTypes} and edges tagged as creases. Open edges
+ * are treated as creases.
+ * <p>
+ *
+ * The weights are taken from the {@link QuadRule} variants shared with the
+ * rest of this package. Each level is built with no per-element objects,
+ * which keeps large meshes to a handful of arrays and lets the topology,
+ * face, edge and vertex passes each run across all available processors.
+ * The result of the last generation is kept, so asking for the same surface
+ * in a different form does not subdivide it again.
+ * <p>
+ *
+ * Supported output types are quads and triangles, indexed or not. Normals
+ * are the average of the face normals around each vertex. Texture
+ * coordinates are not generated.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class HalfEdgeCatmullClarkGenerator extends GeometryGenerator
+{
+    /** Stencils shared by every generator instance */
+    private static final QuadStencils STENCILS = new QuadStencils();
+
+    /** The control mesh, or null if not set */
+    private HalfEdgeMesh controlMesh;
+
+    /** The subdivided mesh from the last generation */
+    private HalfEdgeMesh surface;
+
+    /** The number of levels of subdivision to generate */
+    private int totalSubdivisions;
+
+    /**
+     * Construct a new generator with no control mesh set and one level of
+     * subdivision.
+     */
+    public HalfEdgeCatmullClarkGenerator()
+    {
+        totalSubdivisions = 1;
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by GeometryGenerator
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of vertices that this generator will create for the
+     * shape given in the definition.
+     *
+     * @param data The data to base the calculations on
+     * @return The vertex count for the object
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry you have requested.
+     */
+    @Override
+    public int getVertexCount(GeometryData data)
+        throws UnsupportedTypeException
+    {
+        if(controlMesh == null)
+            return 0;
+
+        int ret_val;
+
+        switch(data.geometryType)
+        {
+            case GeometryData.QUADS:
+                ret_val = getFaceCount() * 4;
+                break;
+
+            case GeometryData.TRIANGLES:
+                ret_val = getFaceCount() * 6;
+                break;
+
+            case GeometryData.INDEXED_QUADS:
+            case GeometryData.INDEXED_TRIANGLES:
+                long verts = controlMesh.numVertices;
+                long faces = controlMesh.numFaces;
+                long edges = controlMesh.numEdges;
+                long half_edges = controlMesh.numHalfEdges;
+
+                for(int i = 0; i < totalSubdivisions; i++)
+                {
+                    verts += faces + edges;
+                    edges = edges * 2 + half_edges;
+                    faces = half_edges;
+                    half_edges *= 4;
+                }
+
+                ret_val = (int)verts;
+                break;
+
+            default:
+                throw new UnsupportedTypeException("Unknown geometry type: " +
+                                                   data.geometryType);
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Generate a new set of geometry items based on the passed data. If the
+     * data does not contain the right minimum array lengths an exception will
+     * be generated. If the array reference is null, this will create arrays
+     * of the correct length and assign them to the return value.
+     *
+     * @param data The data to base the calculations on
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     * @throws UnsupportedTypeException The generator cannot handle the type
+     *   of geometry you have requested
+     */
+    @Override
+    public void generate(GeometryData data)
+        throws UnsupportedTypeException, InvalidArraySizeException
+    {
+        switch(data.geometryType)
+        {
+            case GeometryData.QUADS:
+            case GeometryData.TRIANGLES:
+            case GeometryData.INDEXED_QUADS:
+            case GeometryData.INDEXED_TRIANGLES:
+                break;
+
+            default:
+                throw new UnsupportedTypeException("Unknown geometry type: " +
+                                                   data.geometryType);
+        }
+
+        if(controlMesh == null)
+        {
+            data.vertexCount = 0;
+            data.indexesCount = 0;
+            return;
+        }
+
+        regenerateSubdivision();
+
+        switch(data.geometryType)
+        {
+            case GeometryData.QUADS:
+                unindexedQuads(data);
+                break;
+
+            case GeometryData.TRIANGLES:
+                unindexedTriangles(data);
+                break;
+
+            case GeometryData.INDEXED_QUADS:
+                indexedQuads(data);
+                break;
+
+            case GeometryData.INDEXED_TRIANGLES:
+                indexedTriangles(data);
+                break;
+        }
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Set the number of levels of subdivision to be used. Zero outputs the
+     * control mesh, which must then be made of quads.
+     *
+     * @param level The new level to set
+     * @throws IllegalArgumentException The level was negative
+     */
+    public void setNumSubdivisions(int level)
+    {
+        if(level < 0)
+            throw new IllegalArgumentException("Negative subdivision level");
+
+        if(level != totalSubdivisions)
+        {
+            totalSubdivisions = level;
+            surface = null;
+        }
+    }
+
+    /**
+     * Get the number of levels of subdivision currently in use.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public int getNumSubdivisions()
+    {
+        return totalSubdivisions;
+    }
+
+    /**
+     * Set the control mesh with all edges untagged.
+     *
+     * @param coords Flat array of the control vertex positions
+     * @param faceIndexes The vertex indexes of all the faces, in order
+     * @param faceIndexCounts The number of indexes used by each face
+     * @param numFaces The number of faces to use
+     * @param vertexFlags The tag of each vertex, or null for all smooth
+     */
+    public void setControlMesh(float[] coords,
+                               int[] faceIndexes,
+                               int[] faceIndexCounts,
+                               int numFaces,
+                               int[] vertexFlags)
+    {
+        setControlMesh(coords,
+                       faceIndexes,
+                       faceIndexCounts,
+                       numFaces,
+                       vertexFlags,
+                       null);
+    }
+
+    /**
+     * Set the control mesh. Edge tags are given per face index and apply to
+     * the edge from that index to the next one around the face. A crease tag
+     * on either side of an edge makes it a crease.
+     *
+     * @param coords Flat array of the control vertex positions
+     * @param faceIndexes The vertex indexes of all the faces, in order
+     * @param faceIndexCounts The number of indexes used by each face
+     * @param numFaces The number of faces to use
+     * @param vertexFlags The tag of each vertex, or null for all smooth
+     * @param edgeFlags The tag of each face edge, or null for no creases
+     * @throws IllegalArgumentException A face had less than three sides
+     */
+    public void setControlMesh(float[] coords,
+                               int[] faceIndexes,
+                               int[] faceIndexCounts,
+                               int numFaces,
+                               int[] vertexFlags,
+                               int[] edgeFlags)
+    {
+        for(int i = 0; i < numFaces; i++)
+        {
+            if(faceIndexCounts[i] < 3)
+                throw new IllegalArgumentException("Face " + i +
+                                                   " has less than 3 sides");
+        }
+
+        controlMesh = HalfEdgeMesh.create(coords,
+                                          faceIndexes,
+                                          faceIndexCounts,
+                                          numFaces,
+                                          vertexFlags,
+                                          edgeFlags);
+        surface = null;
+    }
+
+    /**
+     * Set the angle of the sector of a corner vertex that lies within a
+     * face. The angle is used when weighting points next to the corner.
+     * Sectors without an angle are treated as right angles.
+     *
+     * @param face The index of the face in the control mesh
+     * @param vertex The position of the corner within the face
+     * @param theta The sector angle in radians
+     * @throws IllegalStateException No control mesh has been set
+     */
+    public void setCornerAngle(int face, int vertex, float theta)
+    {
+        if(controlMesh == null)
+            throw new IllegalStateException("No control mesh set");
+
+        controlMesh.setCornerAngle(face, vertex, theta);
+        surface = null;
+    }
+
+    /**
+     * Get the number of quads in the surface at the current subdivision
+     * level.
+     *
+     * @return The number of faces generated
+     */
+    public int getFaceCount()
+    {
+        if(controlMesh == null)
+            return 0;
+
+        if(totalSubdivisions == 0)
+            return controlMesh.numFaces;
+
+        long faces = controlMesh.numHalfEdges;
+
+        for(int i = 1; i < totalSubdivisions; i++)
+            faces *= 4;
+
+        return (int)faces;
+    }
+
+    /**
+     * Regenerate the surface if the control mesh or level has changed since
+     * the last time.
+     */
+    private void regenerateSubdivision()
+    {
+        if(surface != null)
+            return;
+
+        HalfEdgeMesh mesh = controlMesh;
+
+        for(int i = 0; i < totalSubdivisions; i++)
+            mesh = mesh.subdivide(STENCILS);
+
+        surface = mesh;
+    }
+
+    /**
+     * Generate the coordinates and quad indexes of the surface.
+     *
+     * @param data The data to base the calculations on
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     */
+    private void indexedQuads(GeometryData data)
+        throws InvalidArraySizeException
+    {
+        checkQuads();
+        generateIndexedCoordinates(data);
+
+        int num_faces = surface.numFaces;
+        int index_size = num_faces * 4;
+
+        if(data.indexes == null)
+            data.indexes = new int[index_size];
+        else if(data.indexes.length < index_size)
+            throw new InvalidArraySizeException("Coord Indexes",
+                                                data.indexes.length,
+                                                index_size);
+
+        int[] indexes = data.indexes;
+        int[] he_vertex = surface.heVertex;
+        int[] face_start = surface.faceStart;
+
+        IntStream.range(0, num_faces).parallel().forEach(f ->
+        {
+            int h = face_start[f];
+
+            indexes[f * 4] = he_vertex[h];
+            indexes[f * 4 + 1] = he_vertex[h + 1];
+            indexes[f * 4 + 2] = he_vertex[h + 2];
+            indexes[f * 4 + 3] = he_vertex[h + 3];
+        });
+
+        data.indexesCount = index_size;
+    }
+
+    /**
+     * Generate the coordinates and triangle indexes of the surface. Each quad
+     * is split along its first diagonal.
+     *
+     * @param data The data to base the calculations on
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     */
+    private void indexedTriangles(GeometryData data)
+        throws InvalidArraySizeException
+    {
+        checkQuads();
+        generateIndexedCoordinates(data);
+
+        int num_faces = surface.numFaces;
+        int index_size = num_faces * 6;
+
+        if(data.indexes == null)
+            data.indexes = new int[index_size];
+        else if(data.indexes.length < index_size)
+            throw new InvalidArraySizeException("Coord Indexes",
+                                                data.indexes.length,
+                                                index_size);
+
+        int[] indexes = data.indexes;
+        int[] he_vertex = surface.heVertex;
+        int[] face_start = surface.faceStart;
+
+        IntStream.range(0, num_faces).parallel().forEach(f ->
+        {
+            int h = face_start[f];
+            int i = f * 6;
+
+            indexes[i] = he_vertex[h];
+            indexes[i + 1] = he_vertex[h + 1];
+            indexes[i + 2] = he_vertex[h + 2];
+            indexes[i + 3] = he_vertex[h];
+            indexes[i + 4] = he_vertex[h + 2];
+            indexes[i + 5] = he_vertex[h + 3];
+        });
+
+        data.indexesCount = index_size;
+    }
+
+    /**
+     * Generate the coordinates of the surface as unindexed quads.
+     *
+     * @param data The data to base the calculations on
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     */
+    private void unindexedQuads(GeometryData data)
+        throws InvalidArraySizeException
+    {
+        checkQuads();
+        generateUnindexed(data, new int[] { 0, 1, 2, 3 });
+    }
+
+    /**
+     * Generate the coordinates of the surface as unindexed triangles.
+     *
+     * @param data The data to base the calculations on
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     */
+    private void unindexedTriangles(GeometryData data)
+        throws InvalidArraySizeException
+    {
+        checkQuads();
+        generateUnindexed(data, new int[] { 0, 1, 2, 0, 2, 3 });
+    }
+
+    /**
+     * Copy the surface vertices, and normals if requested, straight into the
+     * data.
+     *
+     * @param data The data to base the calculations on
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     */
+    private void generateIndexedCoordinates(GeometryData data)
+        throws InvalidArraySizeException
+    {
+        int vtx_count = surface.numVertices;
+
+        if(data.coordinates == null)
+            data.coordinates = new float[vtx_count * 3];
+        else if(data.coordinates.length < vtx_count * 3)
+            throw new InvalidArraySizeException("Coordinates",
+                                                data.coordinates.length,
+                                                vtx_count * 3);
+
+        System.arraycopy(surface.coords, 0, data.coordinates, 0, vtx_count * 3);
+        data.vertexCount = vtx_count;
+
+        if((data.geometryComponents & GeometryData.NORMAL_DATA) == 0)
+            return;
+
+        if(data.normals == null)
+            data.normals = new float[vtx_count * 3];
+        else if(data.normals.length < vtx_count * 3)
+            throw new InvalidArraySizeException("Normals",
+                                                data.normals.length,
+                                                vtx_count * 3);
+
+        surface.computeVertexNormals(data.normals);
+    }
+
+    /**
+     * Write out the vertices of every face in the order given by the
+     * pattern of corners.
+     *
+     * @param data The data to base the calculations on
+     * @param pattern The corners of a quad to output, in order
+     * @throws InvalidArraySizeException The array is not big enough to contain
+     *   the requested geometry
+     */
+    private void generateUnindexed(GeometryData data, int[] pattern)
+        throws InvalidArraySizeException
+    {
+        int num_faces = surface.numFaces;
+        int per_face = pattern.length;
+        int vtx_count = num_faces * per_face;
+
+        if(data.coordinates == null)
+            data.coordinates = new float[vtx_count * 3];
+        else if(data.coordinates.length < vtx_count * 3)
+            throw new InvalidArraySizeException("Coordinates",
+                                                data.coordinates.length,
+                                                vtx_count * 3);
+
+        boolean do_normals =
+            (data.geometryComponents & GeometryData.NORMAL_DATA) != 0;
+        float[] vtx_normals = null;
+
+        if(do_normals)
+        {
+            if(data.normals == null)
+                data.normals = new float[vtx_count * 3];
+            else if(data.normals.length < vtx_count * 3)
+                throw new InvalidArraySizeException("Normals",
+                                                    data.normals.length,
+                                                    vtx_count * 3);
+
+            vtx_normals = new float[surface.numVertices * 3];
+            surface.computeVertexNormals(vtx_normals);
+        }
+
+        float[] coords = data.coordinates;
+        float[] normals = data.normals;
+        float[] src_normals = vtx_normals;
+        float[] src = surface.coords;
+        int[] he_vertex = surface.heVertex;
+        int[] face_start = surface.faceStart;
+
+        IntStream.range(0, num_faces).parallel().forEach(f ->
+        {
+            int h = face_start[f];
+            int out = f * per_face * 3;
+
+            for(int i = 0; i < per_face; i++)
+            {
+                int v = he_vertex[h + pattern[i]] * 3;
+
+                coords[out] = src[v];
+                coords[out + 1] = src[v + 1];
+                coords[out + 2] = src[v + 2];
+
+                if(src_normals != null)
+                {
+                    normals[out] = src_normals[v];
+                    normals[out + 1] = src_normals[v + 1];
+                    normals[out + 2] = src_normals[v + 2];
+                }
+
+                out += 3;
+            }
+        });
+
+        data.vertexCount = vtx_count;
+    }
+
+    /**
+     * Make sure the surface is made of quads. That is only not the case when
+     * no subdivision was asked for.
+     *
+     * @throws UnsupportedTypeException The control mesh is output directly
+     *   and is not all quads
+     */
+    private void checkQuads()
+        throws UnsupportedTypeException
+    {
+        if(surface.numHalfEdges != surface.numFaces * 4)
+            throw new UnsupportedTypeException(
+                "Control mesh is not all quads at subdivision level 0");
+    }
+}
@@ -0,0 +1,880 @@
+/*****************************************************************************
+ *                        J3D.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom.subdivision;
+
+// External imports
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Local imports
+// None
+
+/**
+ * Half-edge polygon mesh held entirely in primitive arrays, with a
+ * Catmull-Clark subdivision step that is evaluated in parallel.
+ * <p>
+ *
+ * The half-edges of each face are stored contiguously, in order, so face
+ * <code>f</code> owns half-edges <code>faceStart[f]</code> up to
+ * <code>faceStart[f + 1] - 1</code>. Each half-edge records the vertex it
+ * leaves from, its neighbours around the face, the half-edge going the
+ * other way along the same edge (-1 on a boundary), its face and the index
+ * of its undirected edge. Every vertex keeps one outgoing half-edge. For
+ * vertices on the boundary that is the outgoing boundary half-edge, so that
+ * turning around the vertex from it visits every face.
+ * <p>
+ *
+ * <b>Subdivision</b>
+ * <p>
+ *
+ * Each level replaces every half-edge with a quad made of the vertex it
+ * leaves from, the points on its edge and the previous edge, and the point
+ * of its face. The child numbering is a direct function of the parent, so
+ * the new topology is built in one parallel pass with no searching. The new
+ * vertices are ordered as the updated original vertices, then one per face
+ * and then one per edge.
+ * <p>
+ *
+ * New positions are weighted sums of the neighbourhood described by the
+ * {@link QuadRule} for the vertex. Smooth and dart vertices use the
+ * interior rule, vertices with two crease edges use the crease rule and
+ * corners, or vertices with more than two crease edges, use the convex or
+ * concave corner rule. Boundary edges are treated as creases. Faces with
+ * other than four sides are handled by standing in a virtual fourth vertex
+ * that gives the face its correct centroid, which makes the rules reduce to
+ * the usual Catmull-Clark rules. The flatness and normal modifications
+ * attached to sectors are not applied.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+final class HalfEdgeMesh
+{
+    /** The vertex is smooth, or a dart */
+    private static final int SMOOTH_RULE = 0;
+
+    /** The vertex lies on a crease or the boundary */
+    private static final int CREASE_RULE = 1;
+
+    /** The vertex is a corner and does not move */
+    private static final int CORNER_RULE = 2;
+
+    /** Number of vertices */
+    final int numVertices;
+
+    /** Number of faces */
+    final int numFaces;
+
+    /** Number of half-edges */
+    final int numHalfEdges;
+
+    /** Number of undirected edges */
+    int numEdges;
+
+    /** Vertex positions, 3 per vertex */
+    final float[] coords;
+
+    /** Tag of each vertex from SubdivisionTypes */
+    final int[] vertexTags;
+
+    /** One outgoing half-edge per vertex, -1 for unused vertices */
+    final int[] vertexEdge;
+
+    /** Index of the first half-edge of each face, plus a final end index */
+    final int[] faceStart;
+
+    /** The vertex each half-edge leaves from */
+    final int[] heVertex;
+
+    /** The next half-edge around the face */
+    final int[] heNext;
+
+    /** The previous half-edge around the face */
+    final int[] hePrev;
+
+    /** The opposite half-edge, or -1 on a boundary */
+    final int[] heTwin;
+
+    /** The face of each half-edge */
+    final int[] heFace;
+
+    /** The undirected edge of each half-edge */
+    final int[] heEdge;
+
+    /** True if the edge of the half-edge is tagged as a crease */
+    final boolean[] heCrease;
+
+    /** Corner sector angle at the vertex the half-edge leaves from, or NaN */
+    final float[] heTheta;
+
+    /**
+     * Allocate the arrays for a mesh of the given size.
+     *
+     * @param numVertices The number of vertices
+     * @param numFaces The number of faces
+     * @param numHalfEdges The number of half-edges
+     */
+    private HalfEdgeMesh(int numVertices, int numFaces, int numHalfEdges)
+    {
+        this.numVertices = numVertices;
+        this.numFaces = numFaces;
+        this.numHalfEdges = numHalfEdges;
+
+        coords = new float[numVertices * 3];
+        vertexTags = new int[numVertices];
+        vertexEdge = new int[numVertices];
+        faceStart = new int[numFaces + 1];
+
+        heVertex = new int[numHalfEdges];
+        heNext = new int[numHalfEdges];
+        hePrev = new int[numHalfEdges];
+        heTwin = new int[numHalfEdges];
+        heFace = new int[numHalfEdges];
+        heEdge = new int[numHalfEdges];
+        heCrease = new boolean[numHalfEdges];
+        heTheta = new float[numHalfEdges];
+    }
+
+    /**
+     * Build the mesh from an indexed face list. Edges are matched between
+     * faces that use them in opposite directions. Any edge shared by more
+     * than two faces, or by two faces of opposite orientation, is left as a
+     * boundary.
+     *
+     * @param coordinates Flat array of vertex positions
+     * @param faceIndexes The vertex indexes of all the faces
+     * @param faceIndexCounts The number of indexes used by each face
+     * @param numFaces The number of faces
+     * @param vertexFlags The tag of each vertex, or null for all smooth
+     * @param edgeFlags Tag of the edge from each face index to the next, or
+     *    null for no creases
+     * @return The new mesh
+     */
+    static HalfEdgeMesh create(float[] coordinates,
+                               int[] faceIndexes,
+                               int[] faceIndexCounts,
+                               int numFaces,
+                               int[] vertexFlags,
+                               int[] edgeFlags)
+    {
+        int num_vtx = coordinates.length / 3;
+        int num_he = 0;
+
+        for(int i = 0; i < numFaces; i++)
+            num_he += faceIndexCounts[i];
+
+        HalfEdgeMesh mesh = new HalfEdgeMesh(num_vtx, numFaces, num_he);
+
+        System.arraycopy(coordinates, 0, mesh.coords, 0, num_vtx * 3);
+
+        if(vertexFlags != null)
+            System.arraycopy(vertexFlags, 0, mesh.vertexTags, 0, num_vtx);
+
+        int he = 0;
+
+        for(int i = 0; i < numFaces; i++)
+        {
+            int size = faceIndexCounts[i];
+            mesh.faceStart[i] = he;
+
+            for(int j = 0; j < size; j++)
+            {
+                int h = he + j;
+
+                mesh.heVertex[h] = faceIndexes[h];
+                mesh.heNext[h] = he + (j + 1) % size;
+                mesh.hePrev[h] = he + (j + size - 1) % size;
+                mesh.heFace[h] = i;
+                mesh.heCrease[h] = (edgeFlags != null) &&
+                                   (edgeFlags[h] == SubdivisionTypes.CREASE_EDGE);
+            }
+
+            he += size;
+        }
+
+        mesh.faceStart[numFaces] = he;
+        Arrays.fill(mesh.heTheta, Float.NaN);
+
+        // Outgoing half-edges grouped by vertex, used to find the twins
+        int[] out_start = new int[num_vtx + 1];
+
+        for(int h = 0; h < num_he; h++)
+            out_start[mesh.heVertex[h] + 1]++;
+
+        for(int v = 0; v < num_vtx; v++)
+            out_start[v + 1] += out_start[v];
+
+        int[] fill = Arrays.copyOf(out_start, num_vtx);
+        int[] out_edges = new int[num_he];
+
+        for(int h = 0; h < num_he; h++)
+            out_edges[fill[mesh.heVertex[h]]++] = h;
+
+        int[] next = mesh.heNext;
+        int[] verts = mesh.heVertex;
+        int[] twin = mesh.heTwin;
+
+        IntStream.range(0, num_he).parallel().forEach(h ->
+        {
+            int a = verts[h];
+            int b = verts[next[h]];
+            int found = -1;
+
+            for(int i = out_start[b]; i < out_start[b + 1]; i++)
+            {
+                int o = out_edges[i];
+
+                if(verts[next[o]] == a)
+                {
+                    // More than one means a non-manifold edge
+                    found = (found == -1) ? o : -2;
+                }
+            }
+
+            twin[h] = (found < 0) ? -1 : found;
+        });
+
+        // Keep only matches that agree both ways, then share crease tags
+        for(int h = 0; h < num_he; h++)
+        {
+            int t = twin[h];
+
+            if(t >= 0 && twin[t] != h)
+                twin[h] = -1;
+        }
+
+        for(int h = 0; h < num_he; h++)
+        {
+            int t = twin[h];
+
+            if(t >= 0 && mesh.heCrease[t])
+                mesh.heCrease[h] = true;
+        }
+
+        mesh.buildEdgesAndVertices();
+
+        return mesh;
+    }
+
+    /**
+     * Number the undirected edges and pick the outgoing half-edge of each
+     * vertex.
+     */
+    private void buildEdgesAndVertices()
+    {
+        int edges = 0;
+
+        for(int h = 0; h < numHalfEdges; h++)
+        {
+            if(isEdgeOwner(h))
+                heEdge[h] = edges++;
+        }
+
+        for(int h = 0; h < numHalfEdges; h++)
+        {
+            if(!isEdgeOwner(h))
+                heEdge[h] = heEdge[heTwin[h]];
+        }
+
+        numEdges = edges;
+
+        Arrays.fill(vertexEdge, -1);
+
+        for(int h = 0; h < numHalfEdges; h++)
+        {
+            int v = heVertex[h];
+
+            if(vertexEdge[v] == -1 || heTwin[h] == -1)
+                vertexEdge[v] = h;
+        }
+    }
+
+    /**
+     * Set the corner sector angle for a vertex of a face.
+     *
+     * @param face The index of the face
+     * @param vertex The position of the vertex within the face
+     * @param theta The angle of the sector
+     */
+    void setCornerAngle(int face, int vertex, float theta)
+    {
+        heTheta[faceStart[face] + vertex] = theta;
+    }
+
+    /**
+     * Create the next level of subdivision of this mesh.
+     *
+     * @param stencils The rules to weight the new positions with
+     * @return The subdivided mesh, made entirely of quads
+     */
+    HalfEdgeMesh subdivide(QuadStencils stencils)
+    {
+        int face_base = numVertices;
+        int edge_base = numVertices + numFaces;
+
+        HalfEdgeMesh child = new HalfEdgeMesh(edge_base + numEdges,
+                                              numHalfEdges,
+                                              numHalfEdges * 4);
+
+        child.numEdges = numEdges * 2 + numHalfEdges;
+
+        buildChildTopology(child, face_base, edge_base);
+
+        // Face points are needed by both of the other passes
+        float[] dest = child.coords;
+
+        IntStream.range(0, numFaces).parallel().forEach(f ->
+        {
+            int start = faceStart[f];
+            int end = faceStart[f + 1];
+            float x = 0;
+            float y = 0;
+            float z = 0;
+
+            for(int h = start; h < end; h++)
+            {
+                int v = heVertex[h] * 3;
+                x += coords[v];
+                y += coords[v + 1];
+                z += coords[v + 2];
+            }
+
+            float inv = 1 / (float)(end - start);
+            int idx = (face_base + f) * 3;
+
+            dest[idx] = x * inv;
+            dest[idx + 1] = y * inv;
+            dest[idx + 2] = z * inv;
+        });
+
+        int[] rule_type = new int[numVertices];
+        int[] valence = new int[numVertices];
+
+        IntStream.range(0, numVertices).parallel().forEach(v ->
+            classifyVertex(v, rule_type, valence));
+
+        IntStream.range(0, numHalfEdges).parallel().forEach(h ->
+        {
+            if(isEdgeOwner(h))
+                computeEdgePoint(h, stencils, rule_type, valence, dest, face_base, edge_base);
+        });
+
+        IntStream.range(0, numVertices).parallel().forEach(v ->
+            computeVertexPoint(v, stencils, rule_type, valence, dest, face_base));
+
+        return child;
+    }
+
+    /**
+     * Calculate the smooth normal of every vertex as the normalised sum of
+     * the normals of the faces around it.
+     *
+     * @param normals Array to write 3 values per vertex into
+     */
+    void computeVertexNormals(float[] normals)
+    {
+        float[] face_normals = new float[numFaces * 3];
+
+        IntStream.range(0, numFaces).parallel().forEach(f ->
+        {
+            int start = faceStart[f];
+            int end = faceStart[f + 1];
+            float x = 0;
+            float y = 0;
+            float z = 0;
+
+            // Newell's method works for any polygon
+            for(int h = start; h < end; h++)
+            {
+                int p0 = heVertex[h] * 3;
+                int p1 = heVertex[heNext[h]] * 3;
+
+                x += (coords[p0 + 1] - coords[p1 + 1]) * (coords[p0 + 2] + coords[p1 + 2]);
+                y += (coords[p0 + 2] - coords[p1 + 2]) * (coords[p0] + coords[p1]);
+                z += (coords[p0] - coords[p1]) * (coords[p0 + 1] + coords[p1 + 1]);
+            }
+
+            face_normals[f * 3] = x;
+            face_normals[f * 3 + 1] = y;
+            face_normals[f * 3 + 2] = z;
+        });
+
+        IntStream.range(0, numVertices).parallel().forEach(v ->
+        {
+            float x = 0;
+            float y = 0;
+            float z = 0;
+
+            int start = vertexEdge[v];
+            int h = start;
+            int count = 0;
+
+            while(h != -1 && count++ < numHalfEdges)
+            {
+                int f = heFace[h] * 3;
+                x += face_normals[f];
+                y += face_normals[f + 1];
+                z += face_normals[f + 2];
+
+                h = heTwin[hePrev[h]];
+
+                if(h == start)
+                    break;
+            }
+
+            float len = (float)Math.sqrt(x * x + y * y + z * z);
+
+            if(len != 0)
+            {
+                x /= len;
+                y /= len;
+                z /= len;
+            }
+
+            normals[v * 3] = x;
+            normals[v * 3 + 1] = y;
+            normals[v * 3 + 2] = z;
+        });
+    }
+
+    /**
+     * Fill in the child connectivity. Each parent half-edge becomes one child
+     * quad, so every index is a direct function of the parent.
+     *
+     * @param child The mesh to fill in
+     * @param faceBase Index of the first face point in the child
+     * @param edgeBase Index of the first edge point in the child
+     */
+    private void buildChildTopology(HalfEdgeMesh child, int faceBase, int edgeBase)
+    {
+        int edge_count = numEdges;
+
+        IntStream.range(0, numHalfEdges).parallel().forEach(h ->
+        {
+            int p = hePrev[h];
+            int n = heNext[h];
+            int t = heTwin[h];
+            int tp = heTwin[p];
+            int c = h * 4;
+
+            child.faceStart[h] = c;
+
+            child.heVertex[c] = heVertex[h];
+            child.heVertex[c + 1] = edgeBase + heEdge[h];
+            child.heVertex[c + 2] = faceBase + heFace[h];
+            child.heVertex[c + 3] = edgeBase + heEdge[p];
+
+            for(int i = 0; i < 4; i++)
+            {
+                child.heNext[c + i] = c + ((i + 1) & 3);
+                child.hePrev[c + i] = c + ((i + 3) & 3);
+                child.heFace[c + i] = h;
+                child.heTheta[c + i] = Float.NaN;
+            }
+
+            child.heTwin[c] = (t >= 0) ? heNext[t] * 4 + 3 : -1;
+            child.heTwin[c + 1] = n * 4 + 2;
+            child.heTwin[c + 2] = p * 4 + 1;
+            child.heTwin[c + 3] = (tp >= 0) ? tp * 4 : -1;
+
+            // Each parent edge splits in two, numbered from the end its
+            // owning half-edge leaves, then one new edge per half-edge.
+            child.heEdge[c] = heEdge[h] * 2 + (isEdgeOwner(h) ? 0 : 1);
+            child.heEdge[c + 1] = edge_count * 2 + h;
+            child.heEdge[c + 2] = edge_count * 2 + p;
+            child.heEdge[c + 3] = heEdge[p] * 2 + (isEdgeOwner(p) ? 1 : 0);
+
+            child.heCrease[c] = heCrease[h];
+            child.heCrease[c + 3] = heCrease[p];
+
+            child.heTheta[c] = heTheta[h];
+
+            // The edge point belongs to the owner. Boundary points must
+            // start from the outgoing boundary half-edge.
+            if(isEdgeOwner(h))
+            {
+                int ep = edgeBase + heEdge[h];
+
+                child.vertexEdge[ep] = (t < 0) ? n * 4 + 3 : c + 1;
+                child.vertexTags[ep] = (t < 0 || heCrease[h]) ?
+                    SubdivisionTypes.CREASE_VERTEX :
+                    SubdivisionTypes.SMOOTH_VERTEX;
+            }
+        });
+
+        child.faceStart[numHalfEdges] = numHalfEdges * 4;
+
+        IntStream.range(0, numFaces).parallel().forEach(f ->
+        {
+            child.vertexEdge[faceBase + f] = faceStart[f] * 4 + 2;
+            child.vertexTags[faceBase + f] = SubdivisionTypes.SMOOTH_VERTEX;
+        });
+
+        IntStream.range(0, numVertices).parallel().forEach(v ->
+        {
+            int e = vertexEdge[v];
+
+            child.vertexEdge[v] = (e < 0) ? -1 : e * 4;
+            child.vertexTags[v] = vertexTags[v];
+        });
+    }
+
+    /**
+     * Work out which rule applies to a vertex and how many faces surround
+     * it. The tags are corrected where they don't match the creases.
+     *
+     * @param v The vertex to classify
+     * @param ruleType Array to write the rule type to
+     * @param valence Array to write the face count to
+     */
+    private void classifyVertex(int v, int[] ruleType, int[] valence)
+    {
+        int start = vertexEdge[v];
+        int faces = 0;
+        int creases = 0;
+        int h = start;
+
+        while(h != -1 && faces < numHalfEdges)
+        {
+            faces++;
+
+            if(heCrease[h] || heTwin[h] < 0)
+                creases++;
+
+            int p = hePrev[h];
+
+            if(heTwin[p] < 0)
+            {
+                creases++;
+                break;
+            }
+
+            h = heTwin[p];
+
+            if(h == start)
+                break;
+        }
+
+        valence[v] = faces;
+
+        if(vertexTags[v] == SubdivisionTypes.CORNER_VERTEX || creases > 2)
+            ruleType[v] = CORNER_RULE;
+        else if(creases == 2)
+            ruleType[v] = CREASE_RULE;
+        else
+            ruleType[v] = SMOOTH_RULE;
+    }
+
+    /**
+     * Calculate the new position of an original vertex.
+     *
+     * @param v The vertex to move
+     * @param stencils The rules to weight the position with
+     * @param ruleType The rule type of each vertex
+     * @param valence The face count of each vertex
+     * @param dest The child coordinates, with face points filled in
+     * @param faceBase Index of the first face point in the child
+     */
+    private void computeVertexPoint(int v,
+                                    QuadStencils stencils,
+                                    int[] ruleType,
+                                    int[] valence,
+                                    float[] dest,
+                                    int faceBase)
+    {
+        int idx = v * 3;
+        int k = valence[v];
+
+        if(k == 0 || ruleType[v] == CORNER_RULE)
+        {
+            dest[idx] = coords[idx];
+            dest[idx + 1] = coords[idx + 1];
+            dest[idx + 2] = coords[idx + 2];
+            return;
+        }
+
+        int start = vertexEdge[v];
+        float x;
+        float y;
+        float z;
+
+        if(ruleType[v] == CREASE_RULE)
+        {
+            QuadRule rule = stencils.crease(k);
+            float w_c = rule.sub.center;
+            float w_e = rule.sub.edge[0];
+
+            x = w_c * coords[idx];
+            y = w_c * coords[idx + 1];
+            z = w_c * coords[idx + 2];
+
+            int h = start;
+
+            for(int i = 0; i < k; i++)
+            {
+                if(heCrease[h] || heTwin[h] < 0)
+                {
+                    int e = heVertex[heNext[h]] * 3;
+                    x += w_e * coords[e];
+                    y += w_e * coords[e + 1];
+                    z += w_e * coords[e + 2];
+                }
+
+                int p = hePrev[h];
+
+                if(heTwin[p] < 0)
+                {
+                    int e = heVertex[p] * 3;
+                    x += w_e * coords[e];
+                    y += w_e * coords[e + 1];
+                    z += w_e * coords[e + 2];
+                    break;
+                }
+
+                h = heTwin[p];
+            }
+        }
+        else
+        {
+            QuadRule rule = stencils.interior(k);
+            float w_c = rule.sub.center;
+
+            x = w_c * coords[idx];
+            y = w_c * coords[idx + 1];
+            z = w_c * coords[idx + 2];
+
+            int h = start;
+
+            for(int i = 0; i < k; i++)
+            {
+                float w_e = rule.sub.edge[i];
+                float w_f = rule.sub.face[i];
+
+                int p = hePrev[h];
+                int e0 = heVertex[heNext[h]] * 3;
+                int e1 = heVertex[p] * 3;
+                int c = (faceBase + heFace[h]) * 3;
+
+                // The face term is the vertex opposite in a quad. Other
+                // faces use the point giving the same centroid.
+                x += w_e * coords[e0] +
+                     w_f * (4 * dest[c] - coords[idx] - coords[e0] - coords[e1]);
+                y += w_e * coords[e0 + 1] +
+                     w_f * (4 * dest[c + 1] - coords[idx + 1] - coords[e0 + 1] - coords[e1 + 1]);
+                z += w_e * coords[e0 + 2] +
+                     w_f * (4 * dest[c + 2] - coords[idx + 2] - coords[e0 + 2] - coords[e1 + 2]);
+
+                h = heTwin[p];
+            }
+        }
+
+        dest[idx] = x;
+        dest[idx + 1] = y;
+        dest[idx + 2] = z;
+    }
+
+    /**
+     * Calculate the point on an edge.
+     *
+     * @param h The owning half-edge of the edge
+     * @param stencils The rules to weight the position with
+     * @param ruleType The rule type of each vertex
+     * @param valence The face count of each vertex
+     * @param dest The child coordinates, with face points filled in
+     * @param faceBase Index of the first face point in the child
+     * @param edgeBase Index of the first edge point in the child
+     */
+    private void computeEdgePoint(int h,
+                                  QuadStencils stencils,
+                                  int[] ruleType,
+                                  int[] valence,
+                                  float[] dest,
+                                  int faceBase,
+                                  int edgeBase)
+    {
+        int t = heTwin[h];
+        int a = heVertex[h];
+        int b = heVertex[heNext[h]];
+        int idx = (edgeBase + heEdge[h]) * 3;
+
+        if(t < 0 || heCrease[h])
+        {
+            float[] w = stencils.interior(4).creaseSub;
+            int pa = a * 3;
+            int pb = b * 3;
+
+            dest[idx] = w[0] * coords[pa] + w[3] * coords[pb];
+            dest[idx + 1] = w[0] * coords[pa + 1] + w[3] * coords[pb + 1];
+            dest[idx + 2] = w[0] * coords[pa + 2] + w[3] * coords[pb + 2];
+            return;
+        }
+
+        boolean a_special = ruleType[a] != SMOOTH_RULE;
+        boolean b_special = ruleType[b] != SMOOTH_RULE;
+
+        if(a_special && b_special)
+        {
+            float[] tmp = new float[3];
+            QuadRule rule_a = edgeRule(h, stencils, ruleType, valence);
+            QuadRule rule_b = edgeRule(t, stencils, ruleType, valence);
+
+            applyEdgeStencil(h, rule_a, faceBase, dest, dest, idx);
+            applyEdgeStencil(t, rule_b, faceBase, dest, tmp, 0);
+
+            dest[idx] = 0.5f * (dest[idx] + tmp[0]);
+            dest[idx + 1] = 0.5f * (dest[idx + 1] + tmp[1]);
+            dest[idx + 2] = 0.5f * (dest[idx + 2] + tmp[2]);
+        }
+        else
+        {
+            // Weight from the special end, if there is one
+            int from = b_special ? t : h;
+            QuadRule rule = edgeRule(from, stencils, ruleType, valence);
+
+            applyEdgeStencil(from, rule, faceBase, dest, dest, idx);
+        }
+    }
+
+    /**
+     * Find the rule that weights an interior edge from the end the
+     * half-edge leaves. Crease and corner rules depend on the number of faces
+     * in the sector between the creases that holds the edge.
+     *
+     * @param h The half-edge leaving the vertex whose rule is wanted
+     * @param stencils The rules to choose from
+     * @param ruleType The rule type of each vertex
+     * @param valence The face count of each vertex
+     * @return The rule for the edge
+     */
+    private QuadRule edgeRule(int h,
+                              QuadStencils stencils,
+                              int[] ruleType,
+                              int[] valence)
+    {
+        int v = heVertex[h];
+
+        if(ruleType[v] == SMOOTH_RULE)
+            return stencils.interior(valence[v]);
+
+        int k = 1;
+        int x = h;
+        boolean closed = false;
+
+        // Forwards around the vertex until crossing a crease
+        while(true)
+        {
+            int p = hePrev[x];
+
+            if(heCrease[p] || heTwin[p] < 0)
+                break;
+
+            x = heTwin[p];
+
+            if(x == h)
+            {
+                closed = true;
+                break;
+            }
+
+            k++;
+        }
+
+        // Then backwards from the other side of the edge
+        x = h;
+
+        while(!closed)
+        {
+            if(heCrease[x] || heTwin[x] < 0)
+                break;
+
+            x = heNext[heTwin[x]];
+
+            if(x == h)
+                break;
+
+            k++;
+        }
+
+        if(ruleType[v] == CREASE_RULE)
+            return stencils.crease(k);
+
+        float theta = heTheta[h];
+
+        if(Float.isNaN(theta))
+            theta = heTheta[heNext[heTwin[h]]];
+
+        if(Float.isNaN(theta))
+            theta = QuadStencils.DEFAULT_CORNER_THETA;
+
+        return stencils.corner(k, theta);
+    }
+
+    /**
+     * Weight the neighbourhood of an interior edge by the edge stencil of a
+     * rule. The rule's weights are for the vertex the half-edge leaves, the
+     * other end, and the two other vertices of each face.
+     *
+     * @param h The half-edge leaving the vertex the rule belongs to
+     * @param rule The rule to use
+     * @param faceBase Index of the first face point in the child
+     * @param child The child coordinates, with face points filled in
+     * @param dest The array to write the point to
+     * @param idx The index in dest of the x value
+     */
+    private void applyEdgeStencil(int h,
+                                  QuadRule rule,
+                                  int faceBase,
+                                  float[] child,
+                                  float[] dest,
+                                  int idx)
+    {
+        float[] w = rule.edgeSub;
+        int t = heTwin[h];
+
+        int pa = heVertex[h] * 3;
+        int pb = heVertex[t] * 3;
+
+        // Vertex after the edge in this face, and in the opposite face
+        int c1 = heVertex[heNext[heNext[h]]] * 3;
+        int c2 = heVertex[heNext[heNext[t]]] * 3;
+
+        int f1 = (faceBase + heFace[h]) * 3;
+        int f2 = (faceBase + heFace[t]) * 3;
+
+        for(int i = 0; i < 3; i++)
+        {
+            float a = coords[pa + i];
+            float b = coords[pb + i];
+            float p1 = coords[c1 + i];
+            float p2 = coords[c2 + i];
+
+            // The remaining vertex of each face, as if it were a quad
+            float q1 = 4 * child[f1 + i] - a - b - p1;
+            float q2 = 4 * child[f2 + i] - a - b - p2;
+
+            dest[idx + i] = w[0] * a + w[1] * p1 + w[2] * q1 + w[3] * b +
+                            w[4] * p2 + w[5] * q2;
+        }
+    }
+
+    /**
+     * Check whether a half-edge carries the index of its edge. That is the
+     * lower numbered of a pair, or any boundary half-edge.
+     *
+     * @param h The half-edge to check
+     * @return true if it owns its edge
+     */
+    private boolean isEdgeOwner(int h)
+    {
+        int t = heTwin[h];
+
+        return t < 0 || h < t;
+    }
+}
@@ -0,0 +1,105 @@
+/*****************************************************************************
+ *                        J3D.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom.subdivision;
+
+// External imports
+import java.util.concurrent.ConcurrentHashMap;
+
+// Local imports
+// None
+
+/**
+ * Shared cache of the quad rules, used as the stencil weights when
+ * subdividing a {@link HalfEdgeMesh}.
+ * <p>
+ *
+ * Rules depend only on the number of faces in the sector and, for corners,
+ * the sector angle, so a single instance of each is created and shared
+ * between all threads evaluating a level. Rules are never changed after
+ * construction, so they are safe to read concurrently once published
+ * through the map.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class QuadStencils
+{
+    /** Angle used for corner sectors that have not been given one */
+    static final float DEFAULT_CORNER_THETA = (float)(Math.PI / 2);
+
+    /** Key type for the interior rules */
+    private static final long INTERIOR_KEY = 1L << 62;
+
+    /** Key type for the crease rules */
+    private static final long CREASE_KEY = 2L << 62;
+
+    /** Key type for the corner rules */
+    private static final long CORNER_KEY = 3L << 62;
+
+    /** All the rules created so far */
+    private final ConcurrentHashMap<Long, QuadRule> rules;
+
+    /**
+     * Construct a new, empty, set of stencils.
+     */
+    QuadStencils()
+    {
+        rules = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the rule for a smooth vertex of the given valence.
+     *
+     * @param k The number of faces around the vertex
+     * @return The matching rule
+     */
+    QuadRule interior(int k)
+    {
+        Long key = INTERIOR_KEY | ((long)k << 32);
+
+        return rules.computeIfAbsent(key, n -> new InteriorQuadRule(k, 0));
+    }
+
+    /**
+     * Get the rule for a sector of a crease vertex.
+     *
+     * @param k The number of faces in the sector
+     * @return The matching rule
+     */
+    QuadRule crease(int k)
+    {
+        Long key = CREASE_KEY | ((long)k << 32);
+
+        return rules.computeIfAbsent(key,
+                                     n -> new CreaseQuadRule(k, (float)Math.PI));
+    }
+
+    /**
+     * Get the rule for a sector of a corner vertex. Angles up to pi are
+     * convex, above that concave.
+     *
+     * @param k The number of faces in the sector
+     * @param theta The angle of the sector
+     * @return The matching rule
+     */
+    QuadRule corner(int k, float theta)
+    {
+        Long key = CORNER_KEY | ((long)k << 32) |
+                   (Float.floatToIntBits(theta) & 0xFFFFFFFFL);
+
+        return rules.computeIfAbsent(key, n ->
+        {
+            if(theta <= Math.PI)
+                return new ConvexQuadRule(k, theta);
+            else
+                return new ConcaveQuadRule(k, theta);
+        });
+    }
+}
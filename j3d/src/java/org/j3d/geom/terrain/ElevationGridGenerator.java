@@ -10,6 +10,8 @@
 package org.j3d.geom.terrain;
 
 // Standard imports
+import java.util.stream.IntStream;
+
 import javax.vecmath.Vector3f;
 
 // Application specific imports
@@ -32,6 +34,11 @@ import org.j3d.geom.UnsupportedTypeException;
  *
  * Points are defined in the height arrays in width first order. Normals, are
  * always smooth blended.
+ * <p>
+ *
+ * Large grids have their coordinates, normals and texture coordinates
+ * generated in bands of rows across several threads. See
+ * {@link #setParallel(boolean)}.
  *
  * Alan: There are some cases where texture generation is not complete.
  * Especially in regards to 3D textures.
@@ -56,6 +63,12 @@ public class ElevationGridGenerator extends GeometryGenerator
     /** The default base height of the terrain */
     private static final float DEFAULT_HEIGHT = 2;
 
+    /** Grids with at least this many points are generated in parallel */
+    private static final int PARALLEL_POINT_THRESHOLD = 65536;
+
+    /** The number of points in each band of rows of a parallel grid */
+    private static final int BAND_POINTS = 16384;
+
     /** Current width of the terrain */
     private float terrainWidth;
 
@@ -107,6 +120,9 @@ public class ElevationGridGenerator extends GeometryGenerator
     /** Whether to use the center as origin or the left corner */
     private boolean centerOrigin;
 
+    /** Whether large grids may be generated across several threads */
+    private boolean parallel;
+
     /**
      * Construct a default terrain with the following properties:<BR>
      * Size: 100x100
@@ -244,6 +260,7 @@ public class ElevationGridGenerator extends GeometryGenerator
         terrainChanged = true;
         normalsChanged = true;
         texcoordsChanged = true;
+        parallel = true;
     }
 
     /**
@@ -289,6 +306,7 @@ public class ElevationGridGenerator extends GeometryGenerator
         terrainChanged = true;
         normalsChanged = true;
         texcoordsChanged = true;
+        parallel = true;
     }
 
     /**
@@ -372,6 +390,29 @@ public class ElevationGridGenerator extends GeometryGenerator
         normalsChanged = true;
     }
 
+    /**
+     * Set whether large grids may be generated across several threads. The
+     * coordinates, normals and texture coordinates of grids with many
+     * points are then worked out in bands of rows. The result is the same
+     * either way. Enabled by default.
+     *
+     * @param enable true to allow parallel generation
+     */
+    public void setParallel(boolean enable)
+    {
+        parallel = enable;
+    }
+
+    /**
+     * Check whether large grids may be generated across several threads.
+     *
+     * @return true if parallel generation is allowed
+     */
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
     /**
      * Get the number of vertices that this generator will create for the
      * shape given in the definition based on the current width and height
@@ -1547,66 +1588,47 @@ public class ElevationGridGenerator extends GeometryGenerator
             terrainCoordinates = new float[numTerrainValues];
         }
 
-        float d;
-        float w;
+        processRows(this::regenerateBaseRows);
+    }
 
-        if (centerOrigin)
-        {
-            d = -terrainDepth / 2;
-            w = -terrainWidth / 2;
-        }
-        else
-        {
-            d = 0;
-            w = 0;
-        }
+    /**
+     * Regenerate the base coordinate points for a band of rows.
+     *
+     * @param firstRow The first row to generate
+     * @param endRow The row after the last one to generate
+     */
+    private void regenerateBaseRows(int firstRow, int endRow)
+    {
+        float start_w = centerOrigin ? -terrainWidth / 2 : 0;
+        float d = centerOrigin ? -terrainDepth / 2 : 0;
 
         float width_inc = terrainWidth / (widthPoints - 1);
         float depth_inc = terrainDepth / (depthPoints - 1);
 
-        int count = 0;
+        // Step down to the first row the same way a single pass would, so
+        // the values don't depend on how the rows were split up
+        for(int i = 0; i < firstRow; i++)
+            d += depth_inc;
+
+        int count = firstRow * widthPoints * 3;
 
-        if(flatHeights != null)
+        for(int i = firstRow; i < endRow; i++)
         {
-            int num = numTerrainValues / 3;
-            for(int i = 1; i <= num; i++)
+            float w = start_w;
+            int row = i * widthPoints;
+
+            for(int j = 0; j < widthPoints; j++)
             {
                 terrainCoordinates[count++] = w;
-                terrainCoordinates[count++] = flatHeights[i-1];
+                terrainCoordinates[count++] = (flatHeights != null) ?
+                                              flatHeights[row + j] :
+                                              arrayHeights[i][j];
                 terrainCoordinates[count++] = d;
 
                 w += width_inc;
-
-                if(((i % (widthPoints)) == 0))
-                {
-                    d += depth_inc;
-                    if (centerOrigin)
-                        w = -terrainWidth / 2;
-                    else
-                        w = 0;
-                }
             }
-        }
-        else
-        {
-            for(int i = 0; i < depthPoints; i++)
-            {
-                for(int j = 0;  j < widthPoints; j++)
-                {
-                    terrainCoordinates[count++] = w;
-                    terrainCoordinates[count++] = arrayHeights[i][j];
-                    terrainCoordinates[count++] = d;
 
-                    w += width_inc;
-                }
-
-                d += depth_inc;
-
-                if (centerOrigin)
-                    w = -terrainWidth / 2;
-                else
-                    w = 0;
-            }
+            d += depth_inc;
         }
     }
 
@@ -1629,287 +1651,307 @@ public class ElevationGridGenerator extends GeometryGenerator
             terrainNormals = new float[numTerrainValues];
         }
 
-        Vector3f norm;
-        int count = 0;
-        int base_count;
-        int i, j;
-        int width_inc = widthPoints * 3;
+        processRows((first, end) -> new NormalBand().regenerate(first, end));
+    }
 
-        // The first edge
-        // corner point - normal based on only that face
-        norm = createFaceNormal(terrainCoordinates, width_inc, 0, 3);
+    /**
+     * Regenerate the texture coordinate points.
+     * Assumes regenerateBase has been called before this
+     */
+    private void regenerateTexcoords()
+    {
+        if(!texcoordsChanged)
+            return;
 
-        terrainNormals[count++] = norm.x;
-        terrainNormals[count++] = norm.y;
-        terrainNormals[count++] = norm.z;
+        texcoordsChanged = false;
 
-        base_count = 3;
+        numTexcoordValues = widthPoints * depthPoints * 2;
 
-        for(i = 1; i < (widthPoints - 1); i++)
+        if((terrainTexcoords == null) ||
+           (numTexcoordValues > terrainTexcoords.length))
         {
-            norm = calcSideAverageNormal(terrainCoordinates,
-                                         base_count,
-                                         base_count + 3,
-                                         base_count + width_inc,
-                                         base_count - 3);
-
-            terrainNormals[count++] = norm.x;
-            terrainNormals[count++] = norm.y;
-            terrainNormals[count++] = norm.z;
-
-            base_count += 3;
+            terrainTexcoords = new float[numTexcoordValues];
         }
 
-        // Last corner point of the first row
-        norm = createFaceNormal(terrainCoordinates,
-                                base_count,
-                                base_count + width_inc,
-                                base_count - 3);
-
-        terrainNormals[count++] = norm.x;
-        terrainNormals[count++] = norm.y;
-        terrainNormals[count++] = norm.z;
-
-        base_count += 3;
+        processRows(this::regenerateTexcoordRows);
+    }
 
-        // Now, process all of the internal points
-        for(i = 1; i < (depthPoints - 1); i++)
-        {
+    /**
+     * Regenerate the texture coordinate points for a band of rows.
+     *
+     * @param firstRow The first row to generate
+     * @param endRow The row after the last one to generate
+     */
+    private void regenerateTexcoordRows(int firstRow, int endRow)
+    {
+        float d = 0;
+        float width_inc = 1.0f / (widthPoints - 1);
+        float depth_inc = 1.0f / (depthPoints - 1);
 
-            norm = calcSideAverageNormal(terrainCoordinates,
-                                         base_count,
-                                         base_count - width_inc,
-                                         base_count + 3,
-                                         base_count + width_inc);
+        for(int i = 0; i < firstRow; i++)
+            d += depth_inc;
 
-            terrainNormals[count++] = norm.x;
-            terrainNormals[count++] = norm.y;
-            terrainNormals[count++] = norm.z;
+        int count = firstRow * widthPoints * 2;
 
-            base_count += 3;
+        for(int i = firstRow; i < endRow; i++)
+        {
+            float w = 0;
 
-            for(j = 1; j < (widthPoints - 1); j++)
+            for(int j = 0;  j < widthPoints; j++)
             {
+                terrainTexcoords[count++] = w;
+                terrainTexcoords[count++] = d;
 
-                norm = calcQuadAverageNormal(terrainCoordinates,
-                                             base_count,
-                                             base_count + 3,
-                                             base_count + width_inc,
-                                             base_count - 3,
-                                             base_count - width_inc);
-
-                terrainNormals[count++] = norm.x;
-                terrainNormals[count++] = norm.y;
-                terrainNormals[count++] = norm.z;
-
-                base_count += 3;
+                w += width_inc;
             }
 
-            // Last point of the row
-            norm = calcSideAverageNormal(terrainCoordinates,
-                                         base_count,
-                                         base_count + width_inc,
-                                         base_count - 3,
-                                         base_count - width_inc);
-
-            terrainNormals[count++] = norm.x;
-            terrainNormals[count++] = norm.y;
-            terrainNormals[count++] = norm.z;
-
-            base_count += 3;
+            d += depth_inc;
         }
+    }
 
-        // The last edge
-        // corner point - normal based on only that face
-        norm = createFaceNormal(terrainCoordinates,
-                                base_count,
-                                base_count - width_inc,
-                                base_count + 3);
-
-        terrainNormals[count++] = norm.x;
-        terrainNormals[count++] = norm.y;
-        terrainNormals[count++] = norm.z;
-
-        base_count += 3;
-
-        for(i = 1; i < (widthPoints - 1); i++)
+    /**
+     * Run a piece of per-row work over every row of the grid. Large grids
+     * are split into bands of rows that are processed in parallel.
+     *
+     * @param band The work to do for a band of rows
+     */
+    private void processRows(RowBand band)
+    {
+        if(!parallel || (widthPoints * depthPoints < PARALLEL_POINT_THRESHOLD))
         {
-            norm = calcSideAverageNormal(terrainCoordinates,
-                                         base_count,
-                                         base_count - 3,
-                                         base_count - width_inc,
-                                         base_count + 3);
-
-            terrainNormals[count++] = norm.x;
-            terrainNormals[count++] = norm.y;
-            terrainNormals[count++] = norm.z;
-
-            base_count += 3;
+            band.process(0, depthPoints);
+            return;
         }
 
-        // Last corner point of the first row
-        norm = createFaceNormal(terrainCoordinates,
-                                base_count,
-                                base_count - 3,
-                                base_count - width_inc);
+        int band_rows = Math.max(1, BAND_POINTS / widthPoints);
+        int num_bands = (depthPoints + band_rows - 1) / band_rows;
 
-        terrainNormals[count++] = norm.x;
-        terrainNormals[count++] = norm.y;
-        terrainNormals[count++] = norm.z;
+        IntStream.range(0, num_bands).parallel().forEach(
+            b -> band.process(b * band_rows,
+                              Math.min((b + 1) * band_rows, depthPoints)));
     }
 
     /**
-     * Convenience method to calculate the average normal value between
-     * two quads - ie along the side of an object
-     *
-     * @param coords The coordinates to generate from
-     * @param p The centre point
-     * @param p1 The first point of the first side
-     * @param p2 The middle, shared side point
-     * @param p3 The last point of the second side
-     * @return The averaged vector
+     * Work done on a band of rows of the grid.
      */
-    private Vector3f calcSideAverageNormal(float[] coords,
-                                           int p,
-                                           int p1,
-                                           int p2,
-                                           int p3)
+    private interface RowBand
     {
-        Vector3f norm;
-        float x, y, z;
-
-        // Normal first for the previous quad
-        norm = createFaceNormal(terrainCoordinates, p, p1, p2);
-        x = norm.x;
-        y = norm.y;
-        z = norm.z;
-
-        // Normal for the next quad
-        norm = createFaceNormal(terrainCoordinates, p, p2, p3);
-
-        // create the average of each compoenent for the final normal
-        norm.x = (norm.x + x) / 2;
-        norm.y = (norm.y + y) / 2;
-        norm.z = (norm.z + z) / 2;
-
-        norm.normalize();
-
-        return norm;
+        /**
+         * Process the rows of the band.
+         *
+         * @param firstRow The first row to process
+         * @param endRow The row after the last one to process
+         */
+        void process(int firstRow, int endRow);
     }
 
     /**
-     * Convenience method to create quad average normal amongst four
-     * quads based around a common centre point (the one having the normal
-     * calculated).
-     *
-     * @param coords The coordinates to generate from
-     * @param p The centre point
-     * @param p1 shared point between first and last quad
-     * @param p2 shared point between first and second quad
-     * @param p3 shared point between second and third quad
-     * @param p4 shared point between third and fourth quad
-     * @return The averaged vector
+     * Calculates the smoothed normals of a band of rows. Each band has its
+     * own working vectors so that bands may run at the same time.
      */
-    private Vector3f calcQuadAverageNormal(float[] coords,
-                                           int p,
-                                           int p1,
-                                           int p2,
-                                           int p3,
-                                           int p4)
+    private class NormalBand
     {
-        Vector3f norm;
-        float x, y, z;
+        /** Working values for the normal generation */
+        private final Vector3f normal;
+        private final Vector3f v0;
+        private final Vector3f v1;
+
+        /**
+         * Create the working vectors for a band.
+         */
+        NormalBand()
+        {
+            normal = new Vector3f();
+            v0 = new Vector3f();
+            v1 = new Vector3f();
+        }
 
-        // Normal first for quads 1 & 2
-        norm = createFaceNormal(terrainCoordinates, p, p2, p1);
-        x = norm.x;
-        y = norm.y;
-        z = norm.z;
+        /**
+         * Regenerate the normals for a band of rows. The corner points use
+         * the normal of their one face, other points along the edges the
+         * average of their two faces and interior points the average of
+         * their four faces.
+         *
+         * @param firstRow The first row to generate
+         * @param endRow The row after the last one to generate
+         */
+        void regenerate(int firstRow, int endRow)
+        {
+            int width_inc = widthPoints * 3;
+            int last_row = depthPoints - 1;
+            int last_col = widthPoints - 1;
+            int count = firstRow * width_inc;
 
-        // Normal for the quads 2 & 3
-        norm = createFaceNormal(terrainCoordinates, p, p2, p3);
+            for(int i = firstRow; i < endRow; i++)
+            {
+                for(int j = 0; j < widthPoints; j++)
+                {
+                    int p = count;
+                    Vector3f norm;
+
+                    if(i == 0)
+                    {
+                        if(j == 0)
+                            norm = faceNormal(p + width_inc, p, p + 3);
+                        else if(j == last_col)
+                            norm = faceNormal(p, p + width_inc, p - 3);
+                        else
+                            norm = sideAverageNormal(p,
+                                                     p + 3,
+                                                     p + width_inc,
+                                                     p - 3);
+                    }
+                    else if(i == last_row)
+                    {
+                        if(j == 0)
+                            norm = faceNormal(p, p - width_inc, p + 3);
+                        else if(j == last_col)
+                            norm = faceNormal(p, p - 3, p - width_inc);
+                        else
+                            norm = sideAverageNormal(p,
+                                                     p - 3,
+                                                     p - width_inc,
+                                                     p + 3);
+                    }
+                    else if(j == 0)
+                    {
+                        norm = sideAverageNormal(p,
+                                                 p - width_inc,
+                                                 p + 3,
+                                                 p + width_inc);
+                    }
+                    else if(j == last_col)
+                    {
+                        norm = sideAverageNormal(p,
+                                                 p + width_inc,
+                                                 p - 3,
+                                                 p - width_inc);
+                    }
+                    else
+                    {
+                        norm = quadAverageNormal(p,
+                                                 p + 3,
+                                                 p + width_inc,
+                                                 p - 3,
+                                                 p - width_inc);
+                    }
+
+                    terrainNormals[count++] = norm.x;
+                    terrainNormals[count++] = norm.y;
+                    terrainNormals[count++] = norm.z;
+                }
+            }
+        }
+
+        /**
+         * Create the normal of one face from the cross product of the two
+         * vectors described by the middle and two end points. The same
+         * calculation as createFaceNormal(), using this band's vectors.
+         *
+         * @param p The index of the middle point
+         * @param p1 The index of the first point
+         * @param p2 The index of the second point
+         * @return A temporary value containing the normal value
+         */
+        private Vector3f faceNormal(int p, int p1, int p2)
+        {
+            float[] coords = terrainCoordinates;
 
-        x += norm.x;
-        y += norm.y;
-        z += norm.z;
+            v0.x = coords[p1]     - coords[p];
+            v0.y = coords[p1 + 1] - coords[p + 1];
+            v0.z = coords[p1 + 2] - coords[p + 2];
 
-        // Normal for quads 3 & 4
-        norm = createFaceNormal(terrainCoordinates, p, p3, p4);
+            v1.x = coords[p]     - coords[p2];
+            v1.y = coords[p + 1] - coords[p2 + 1];
+            v1.z = coords[p + 2] - coords[p2 + 2];
 
-        x += norm.x;
-        y += norm.y;
-        z += norm.z;
+            normal.cross(v0, v1);
+            normal.normalize();
 
-        // Normal for quads 1 & 4
-        norm = createFaceNormal(terrainCoordinates, p, p4, p1);
+            return normal;
+        }
 
-        // create the average of each compoenent for the final normal
-        norm.x = (norm.x + x) / 4;
-        norm.y = (norm.y + y) / 4;
-        norm.z = (norm.z + z) / 4;
+        /**
+         * Calculate the average normal value between two quads - ie along
+         * the side of an object
+         *
+         * @param p The centre point
+         * @param p1 The first point of the first side
+         * @param p2 The middle, shared side point
+         * @param p3 The last point of the second side
+         * @return The averaged vector
+         */
+        private Vector3f sideAverageNormal(int p, int p1, int p2, int p3)
+        {
+            Vector3f norm;
+            float x, y, z;
 
-        norm.normalize();
+            // Normal first for the previous quad
+            norm = faceNormal(p, p1, p2);
+            x = norm.x;
+            y = norm.y;
+            z = norm.z;
 
-        return norm;
-    }
+            // Normal for the next quad
+            norm = faceNormal(p, p2, p3);
 
-    /**
-     * Regenerate the texture coordinate points.
-     * Assumes regenerateBase has been called before this
-     */
-    private void regenerateTexcoords()
-    {
-        if(!texcoordsChanged)
-            return;
+            // create the average of each compoenent for the final normal
+            norm.x = (norm.x + x) / 2;
+            norm.y = (norm.y + y) / 2;
+            norm.z = (norm.z + z) / 2;
 
-        texcoordsChanged = false;
+            norm.normalize();
 
-        numTexcoordValues = widthPoints * depthPoints * 2;
+            return norm;
+        }
 
-        if((terrainTexcoords == null) ||
-           (numTexcoordValues > terrainTexcoords.length))
+        /**
+         * Calculate the average normal amongst four quads based around a
+         * common centre point (the one having the normal calculated).
+         *
+         * @param p The centre point
+         * @param p1 shared point between first and last quad
+         * @param p2 shared point between first and second quad
+         * @param p3 shared point between second and third quad
+         * @param p4 shared point between third and fourth quad
+         * @return The averaged vector
+         */
+        private Vector3f quadAverageNormal(int p, int p1, int p2, int p3, int p4)
         {
-            terrainTexcoords = new float[numTexcoordValues];
-        }
+            Vector3f norm;
+            float x, y, z;
 
-        float d = 0;
-        float w = 0;
-        float width_inc = 1.0f / (widthPoints - 1);
-        float depth_inc = 1.0f / (depthPoints - 1);
+            // Normal first for quads 1 & 2
+            norm = faceNormal(p, p2, p1);
+            x = norm.x;
+            y = norm.y;
+            z = norm.z;
 
-        int count = 0;
+            // Normal for the quads 2 & 3
+            norm = faceNormal(p, p2, p3);
 
-        if(flatHeights != null)
-        {
-            int num = numTerrainValues / 3;
-            for(int i = 1; i <= num; i++)
-            {
-                terrainTexcoords[count++] = w;
-                terrainTexcoords[count++] = d;
-                w += width_inc;
+            x += norm.x;
+            y += norm.y;
+            z += norm.z;
 
-                if(((i % (widthPoints)) == 0))
-                {
-                    d += depth_inc;
-                    w = 0;
-                }
-            }
-        }
-        else
-        {
-            for(int i = 0; i < depthPoints; i++)
-            {
-                for(int j = 0;  j < widthPoints; j++)
-                {
-                    terrainTexcoords[count++] = w;
-                    terrainTexcoords[count++] = d;
+            // Normal for quads 3 & 4
+            norm = faceNormal(p, p3, p4);
 
-                    w += width_inc;
-                }
+            x += norm.x;
+            y += norm.y;
+            z += norm.z;
 
-                d += depth_inc;
-                w = 0;
-            }
+            // Normal for quads 1 & 4
+            norm = faceNormal(p, p4, p1);
+
+            // create the average of each compoenent for the final normal
+            norm.x = (norm.x + x) / 4;
+            norm.y = (norm.y + y) / 4;
+            norm.z = (norm.z + z) / 4;
+
+            norm.normalize();
+
+            return norm;
         }
     }
 }
@@ -0,0 +1,927 @@
+/*****************************************************************************
+ *                            (c) j3d.org 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders;
+
+// External imports
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Local imports
+import org.j3d.terrain.AbstractTiledTerrainData;
+import org.j3d.util.IntHashMap;
+import org.j3d.util.interpolator.ColorInterpolator;
+
+/**
+ * Implementation of the {@link org.j3d.terrain.TiledTerrainData} that reads
+ * heights on demand from a memory mapped file, for grids too large to keep
+ * in memory as a <code>float[][]</code>.
+ * <p>
+ *
+ * The file holds the samples of the grid as raw binary values, one column
+ * after the other, as used by the BT format. Nothing is read when the data
+ * is created. Instead, the file is mapped read-only and the heights of a
+ * tile are decoded into a <code>float</code> array the first time any height
+ * in that tile is asked for. A fixed number of tiles are kept, with the least
+ * recently used tile dropped to make room for a new one, so memory use stays
+ * flat however large the file is. The tile arrays are reused rather than
+ * reallocated.
+ * <p>
+ *
+ * The active bounds set by the terrain renderer are decoded straight away and
+ * are the last to be dropped. If the active area holds more tiles than the
+ * cache, the cache grows to fit it.
+ * <p>
+ *
+ * The channel must stay open for as long as this data is used. Access to the
+ * tiles is synchronized so the data may be shared between threads.
+ * <p>
+ *
+ * If a color interpolator is not provided, then color is not supported in this
+ * terrain.
+ *
+ * @author  agent
+ * @version $Revision: 1.1 $
+ */
+public class MappedTiledTerrainData extends AbstractTiledTerrainData
+{
+    /** Samples are 2 byte signed integers */
+    public static final int SAMPLE_SHORT = 0;
+
+    /** Samples are 4 byte signed integers */
+    public static final int SAMPLE_INT = 1;
+
+    /** Samples are 4 byte IEEE floating point values */
+    public static final int SAMPLE_FLOAT = 2;
+
+    /** The number of tiles kept in memory if not told otherwise */
+    public static final int DEFAULT_MAX_TILES = 64;
+
+    /** The largest number of bytes that may be mapped in one buffer */
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * A single decoded tile. Tiles form a doubly linked list in order of
+     * use, with the most recently used at the head.
+     */
+    private static class Tile
+    {
+        /** The key of the tile in the map, or -1 if unused */
+        int key;
+
+        /** The grid coordinate of the first column of the tile */
+        int startX;
+
+        /** The grid coordinate of the first row of the tile */
+        int startY;
+
+        /** The decoded heights in [column][row] order */
+        final float[] heights;
+
+        /** The tile used just before this one */
+        Tile previous;
+
+        /** The tile used just after this one */
+        Tile next;
+
+        Tile(int size)
+        {
+            heights = new float[size * size];
+            key = -1;
+        }
+    }
+
+    /** The width of the terrain in grid points. (X coordinate) */
+    private final int gridWidth;
+
+    /** The depth of the terrain in grid points. (Y coordinate) */
+    private final int gridDepth;
+
+    /** The maximum tile number in the width */
+    private int maxWidthTile;
+
+    /** The maximum tile number in the depth */
+    private int maxDepthTile;
+
+    /** The number of tiles in the depth, for building tile keys */
+    private int numDepthTiles;
+
+    /** The type of each sample, one of the SAMPLE_ constants */
+    private final int sampleType;
+
+    /** Shift to convert a sample index to a byte offset */
+    private final int sampleShift;
+
+    /** Scale factor applied to each sample read */
+    private final float heightScale;
+
+    /** The mapped file, each buffer holding columnsPerChunk columns */
+    private final MappedByteBuffer[] chunks;
+
+    /** The number of whole columns held by each mapped buffer */
+    private final int columnsPerChunk;
+
+    /** Map of tile key to the decoded tile */
+    private final IntHashMap<Tile> tileMap;
+
+    /** The most recently used tile */
+    private Tile head;
+
+    /** The least recently used tile */
+    private Tile tail;
+
+    /** The number of tiles created so far */
+    private int numTiles;
+
+    /** The largest number of tiles to keep */
+    private int maxTiles;
+
+    /** The size asked for by the user, before growing for active bounds */
+    private final int requestedMaxTiles;
+
+    /** The active area in tile coordinates, or null for none */
+    private Rectangle activeBounds;
+
+    /** The number of tiles decoded from the file, for diagnostics */
+    private long tilesDecoded;
+
+    /** The colour interpolator used by this class */
+    private ColorInterpolator colorInterp;
+
+    /**
+     * Create a new instance that maps the height data of the given file.
+     * The samples of each column are stored contiguously, with the columns
+     * following each other from the data offset.
+     *
+     * @param channel The open channel of the file to read
+     * @param dataOffset The position in the file of the first sample
+     * @param order The byte order of the samples
+     * @param sampleType The type of each sample, one of the SAMPLE_
+     *    constants
+     * @param columns The number of columns in the grid
+     * @param rows The number of rows in the grid
+     * @param heightScale Scale factor to apply to each sample read
+     * @param stepDetails The distance between each height value in the X and
+     *    Z coordinates (Y in terrain parlance)
+     * @param maxTiles The largest number of decoded tiles to keep in memory
+     * @throws IOException The file could not be mapped
+     * @throws IllegalArgumentException The sample type is unknown, the grid
+     *    is smaller than 2x2 or maxTiles is less than 1
+     */
+    public MappedTiledTerrainData(FileChannel channel,
+                                  long dataOffset,
+                                  ByteOrder order,
+                                  int sampleType,
+                                  int columns,
+                                  int rows,
+                                  float heightScale,
+                                  float[] stepDetails,
+                                  int maxTiles)
+        throws IOException
+    {
+        switch(sampleType)
+        {
+            case SAMPLE_SHORT:
+                sampleShift = 1;
+                break;
+
+            case SAMPLE_INT:
+            case SAMPLE_FLOAT:
+                sampleShift = 2;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown sample type " +
+                                                   sampleType);
+        }
+
+        if(columns < 2 || rows < 2)
+            throw new IllegalArgumentException("Grid must be at least 2x2");
+
+        if(maxTiles < 1)
+            throw new IllegalArgumentException("maxTiles must be at least 1");
+
+        this.sampleType = sampleType;
+        this.heightScale = heightScale;
+        this.maxTiles = maxTiles;
+        requestedMaxTiles = maxTiles;
+
+        gridWidth = columns;
+        gridDepth = rows;
+
+        gridStepX = stepDetails[0];
+        gridStepY = stepDetails[1];
+
+        calcTileSize();
+
+        // Map the file in buffers of whole columns so that a column never
+        // straddles two buffers. Mapping does not read anything; the pages
+        // are only brought in as tiles are decoded.
+        long column_size = (long)rows << sampleShift;
+        columnsPerChunk = (int)Math.max(1, MAX_CHUNK_SIZE / column_size);
+
+        int num_chunks = (columns + columnsPerChunk - 1) / columnsPerChunk;
+        chunks = new MappedByteBuffer[num_chunks];
+
+        for(int i = 0; i < num_chunks; i++)
+        {
+            int first = i * columnsPerChunk;
+            int num_cols = Math.min(columnsPerChunk, columns - first);
+
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                    dataOffset + first * column_size,
+                                    num_cols * column_size);
+            chunks[i].order(order);
+        }
+
+        tileMap = new IntHashMap<>(maxTiles * 2);
+    }
+
+    //----------------------------------------------------------
+    // Methods required by TiledTerrainData
+    //----------------------------------------------------------
+
+    /**
+     * Fetch the area, in tile coordinates of the area that is currently
+     * available in memory. The whole grid may be fetched on demand, so this
+     * is always the full extent of the terrain.
+     *
+     * @param bounds The bounds of the available data, to be filled in by the
+     *    implementation of this class
+     */
+    @Override
+    public void getTilesAvailableBounds(Rectangle bounds)
+    {
+        bounds.x = 0;
+        bounds.y = 0;
+        bounds.width = maxWidthTile;
+        bounds.height = maxDepthTile;
+    }
+
+    /**
+     * Set the bounding information, in number of tiles, of the area that the
+     * terrain rendering code will be limiting its access to. The tiles in
+     * this area are decoded now and kept in preference to any others.
+     *
+     * @param bounds The bounds of the area, in tile coordinates, that will be
+     *    accessed
+     */
+    @Override
+    public synchronized void setActiveBounds(Rectangle bounds)
+    {
+        if(bounds == null)
+        {
+            activeBounds = null;
+            maxTiles = requestedMaxTiles;
+            return;
+        }
+
+        int x0 = Math.max(0, bounds.x);
+        int y0 = Math.max(0, bounds.y);
+        int x1 = Math.min(maxWidthTile, bounds.x + bounds.width);
+        int y1 = Math.min(maxDepthTile, bounds.y + bounds.height);
+
+        if(x1 < x0 || y1 < y0)
+        {
+            activeBounds = null;
+            maxTiles = requestedMaxTiles;
+            return;
+        }
+
+        activeBounds = new Rectangle(x0, y0, x1 - x0, y1 - y0);
+
+        int active = (x1 - x0 + 1) * (y1 - y0 + 1);
+        maxTiles = Math.max(requestedMaxTiles, active);
+
+        for(int i = x0; i <= x1; i++)
+        {
+            for(int j = y0; j <= y1; j++)
+                fetchTile(i, j);
+        }
+    }
+
+    //----------------------------------------------------------
+    // Methods required by HeightDataSource
+    //----------------------------------------------------------
+
+    /**
+     * Get the height at the given X,Z coordinate in the local coordinate
+     * system.
+     *
+     * @param x The x coordinate for the height sampling
+     * @param z The z coordinate for the height sampling
+     * @return The height at the current point or NaN
+     */
+    @Override
+    public float getHeight(float x, float z)
+    {
+        float rel_x_pos = x / (float)gridStepX;
+        float rel_y_pos = z / (float)gridStepY;
+
+        int x_coord = (int)Math.floor(rel_x_pos);
+        int y_coord = (int)Math.floor(rel_y_pos);
+
+        if((x_coord < 0) || (y_coord < 0) ||
+            (x_coord + 1 > gridWidth) || (y_coord + 1 > gridDepth))
+        {
+           return Float.NaN;
+        }
+
+        int x2 = x_coord + 1 == gridWidth ? x_coord : x_coord + 1;
+        int y2 = y_coord + 1 == gridDepth ? y_coord : y_coord + 1;
+
+        float h1 = sample(x_coord, y_coord);
+        float h2 = sample(x_coord, y2);
+        float h3 = sample(x2, y_coord);
+        float h4 = sample(x2, y2);
+
+        float t_x = (x % (float)gridStepX) / (float)gridStepX;
+        float t_y = (z % (float)gridStepY) / (float)gridStepY;
+
+        float avg_x_1 = h1 + (h2 - h1) * t_x;
+        float avg_x_2 = h3 + (h4 - h3) * t_x;
+
+        return avg_x_1 + (avg_x_2 - avg_x_1) * t_y;
+    }
+
+    //----------------------------------------------------------
+    // Methods required by TerrainData
+    //----------------------------------------------------------
+
+    /**
+     * Get the coordinate of the point in the grid.
+     *
+     * @param coord the x, y, and z coordinates will be placed in the
+     *    first three elements of the array.
+     * @param gridX The X coordinate of the position in the grid
+     * @param gridY The Y coordinate of the position in the grid
+     */
+    @Override
+    public void getCoordinate(float[] coord, int gridX, int gridY)
+    {
+
+        coord[0] = gridX * (float)gridStepX;
+        coord[2] = -gridY * (float)gridStepY;
+
+        int g_x = 0;
+        int g_y = 0;
+
+        if(gridX >= gridWidth)
+            g_x = gridWidth - 1;
+        else if(gridX > 0)
+            g_x = gridX;
+
+        if(gridY >= gridDepth)
+            g_y = gridDepth - 1;
+        else if(gridY > 0)
+            g_y = gridY;
+
+        coord[1] = sample(g_x, g_y);
+    }
+
+    /**
+     * Get the coordinate with all the information - texture and colors.
+     *
+     * @param coord he x, y, and z coordinates will be placed in the first
+     *   three elements of the array.
+     * @param tex 2D coordinates are placed in the first two elements
+     * @param color 3 component colors are placed in the first 3 elements
+     * @param gridX The X coordinate of the position in the grid
+     * @param gridY The Y coordinate of the position in the grid
+     */
+    @Override
+    public void getCoordinate(float[] coord,
+                              float[] tex,
+                              float[] color,
+                              int gridX,
+                              int gridY)
+    {
+        int g_x = 0;
+        int g_y = 0;
+
+        if(gridX >= gridWidth)
+            g_x = gridWidth - 1;
+        else if(gridX > 0)
+            g_x = gridX;
+
+        if(gridY >= gridDepth)
+            g_y = gridDepth - 1;
+        else if(gridY > 0)
+            g_y = gridY;
+
+        coord[1] = sample(g_x, g_y);
+
+        coord[0] = gridX * (float)gridStepX;
+        coord[2] = -gridY * (float)gridStepY;
+
+        tex[0] = ((float)gridX) / (gridWidth - 1);
+        tex[1] = ((float)gridY) / (gridDepth - 1);
+
+        if(gridX >= 0 && gridY >= 0 && gridX < gridWidth && gridY < gridDepth)
+        {
+            if(colorInterp != null)
+            {
+            float[] rgb = colorInterp.floatRGBValue(coord[1]);
+            color[0] = rgb[0];
+            color[1] = rgb[1];
+            color[2] = rgb[2];
+        }
+        }
+        else
+        {
+            color[0] = 1;
+            color[1] = 1;
+            color[2] = 1;
+        }
+    }
+
+    /**
+     * Get the coordinate of the point and correspond texture coordinate in
+     * the grid. Assumes that the grid covers a single large texture rather
+     * than multiple smaller textures.
+     *
+     * @param coord he x, y, and z coordinates will be placed in the first
+     *   three elements of the array.
+     * @param textureCoord 2D coordinates are placed in the first two elements
+     * @param gridX The X coordinate of the position in the grid
+     * @param gridY The Y coordinate of the position in the grid
+     * @param patchX
+     * @param patchY
+     */
+    @Override
+    public void getCoordinateWithTexture(float[] coord,
+                                         float[] textureCoord,
+                                         int gridX,
+                                         int gridY,
+                                         int patchX,
+                                         int patchY)
+    {
+        int g_x = 0;
+        int g_y = 0;
+
+        if (tileGenerator == null)
+        {
+            if(gridX >= gridWidth)
+                g_x = gridWidth - 1;
+            else if(gridX > 0)
+                g_x = gridX;
+
+            if(gridY >= gridDepth)
+                g_y = gridDepth - 1;
+            else if(gridY > 0)
+                g_y = gridY;
+
+            coord[1] = sample(g_x, g_y);
+
+            coord[0] = gridX * (float)gridStepX;
+            coord[2] = -gridY * (float)gridStepY;
+
+            textureCoord[0] = ((float)gridX) / (gridWidth - 1);
+            textureCoord[1] = ((float)gridY) / (gridDepth - 1);
+        }
+        else
+        {
+            if(gridX >= gridWidth)
+                g_x = gridWidth - 1;
+            else if(gridX > 0)
+                g_x = gridX;
+
+            if(gridY >= gridDepth)
+                g_y = gridDepth - 1;
+            else if(gridY > 0)
+                g_y = gridY;
+
+            coord[1] = sample(g_x, g_y);
+
+            coord[0] = gridX * (float)gridStepX;
+            coord[2] = -gridY * (float)gridStepY;
+
+            if (patchY % 2 == 0)
+            {
+                if (gridY < 0)
+                {
+                    if (gridY % 128 == 0)
+                        textureCoord[1] = 0;
+                    else
+                        textureCoord[1] = 1 + (gridY % 64) / 64.0f;
+                }
+                else
+                {
+                    if (gridY % 64 == 0 && gridY % 128 != 0)
+                        textureCoord[1] = 1;
+                    else
+                        textureCoord[1] = (gridY % 64) / 64.0f;
+                }
+            }
+            else
+            {
+                if (gridY <= 0)
+                {
+                    if (gridY % 64 == 0 && gridY % 128 != 0)
+                        textureCoord[1] = 0;
+                    else
+                       textureCoord[1] = 1 + (gridY % 64) / 64.0f;
+                }
+                else
+                {
+                    if (gridY % 128 == 0)
+                        textureCoord[1] = 1;
+                    else
+                        textureCoord[1] = (gridY % 64) / 64.0f;
+                }
+            }
+
+            if (patchX % 2 == 0)
+            {
+                if (gridX < 0)
+                {
+                    if (gridX % 64 == 0 && gridX % 128 != 0)
+                        textureCoord[0] = 0;
+                    else
+                        textureCoord[0] = 1 + (gridX % 64) / 64.0f;
+                }
+                else
+                {
+                    if (gridX % 128 == 0)
+                        textureCoord[0] = 1;
+                    else
+                        textureCoord[0] = (gridX % 64) / 64.0f;
+                }
+            }
+            else
+            {
+                if (gridX <= 0)
+                {
+                    if (gridX % 128 == 0)
+                        textureCoord[0] = 0;
+                    else
+                       textureCoord[0] = 1 + (gridX % 64) / 64.0f;
+                }
+                else
+                {
+                    if (gridX % 64 == 0 && gridX % 128 != 0)
+                        textureCoord[0] = 1;
+                    else
+                        textureCoord[0] = (gridX % 64) / 64.0f;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the coordinate of the point and the corresponding color value in
+     * the grid. Color values are used when there is no texture supplied, so
+     * this should always provide something useful.
+     *
+     * @param coord he x, y, and z coordinates will be placed in the first
+     *   three elements of the array.
+     * @param color 3 component colors are placed in the first 3 elements
+     * @param gridX The X coordinate of the position in the grid
+     * @param gridY The Y coordinate of the position in the grid
+     */
+    @Override
+    public void getCoordinateWithColor(float[] coord,
+                                       float[] color,
+                                       int gridX,
+                                       int gridY)
+    {
+        int g_x = 0;
+        int g_y = 0;
+
+        if(gridX >= gridWidth)
+            g_x = gridWidth - 1;
+        else if(gridX > 0)
+            g_x = gridX;
+
+        if(gridY >= gridDepth)
+            g_y = gridDepth - 1;
+        else if(gridY > 0)
+            g_y = gridY;
+
+        float height = sample(g_x, g_y);
+
+        coord[0] = gridX * (float)gridStepX;
+        coord[1] = height;
+        coord[2] = -gridY * (float)gridStepY;
+
+        if(gridX >= 0 && gridY >= 0 && gridX < gridWidth && gridY < gridDepth)
+        {
+            if(colorInterp != null)
+            {
+            float[] rgb = colorInterp.floatRGBValue(coord[1]);
+            color[0] = rgb[0];
+            color[1] = rgb[1];
+            color[2] = rgb[2];
+        }
+        }
+        else
+        {
+            color[0] = 1;
+            color[1] = 1;
+            color[2] = 1;
+        }
+    }
+
+    /**
+     * Get the height at the specified grid position.
+     *
+     * @param gridX The X coordinate of the position in the grid
+     * @param gridY The Y coordinate of the position in the grid
+     * @return The height at the given grid position
+     */
+    @Override
+    public float getHeightFromGrid(int gridX, int gridY)
+    {
+        int g_x = 0;
+        int g_y = 0;
+
+        if(gridX >= gridWidth)
+            g_x = gridWidth - 1;
+        else if(gridX > 0)
+            g_x = gridX;
+
+        if(gridY >= gridDepth)
+            g_y = gridDepth - 1;
+        else if(gridY > 0)
+            g_y = gridY;
+
+        return sample(g_x, g_y);
+    }
+
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Set up a height color ramp to provide colour information. This should
+     * be set before passing the terrain data to a rendering algorithm as it
+     * sets the hasColor() flag to true. Heights should be based on sea-level
+     * as value zero. A value of null clears the current reference.
+     *
+     * @param interp The interpolator instance to use
+     */
+    public void setColorInterpolator(ColorInterpolator interp)
+    {
+        colorInterp = interp;
+
+        colorAvailable = (colorInterp != null);
+    }
+
+    /**
+     * Get the largest number of tiles currently kept in memory. This is the
+     * number asked for when created, or the size of the active bounds if
+     * that is larger.
+     *
+     * @return The number of tiles that may be cached
+     */
+    public synchronized int getMaxCachedTiles()
+    {
+        return maxTiles;
+    }
+
+    /**
+     * Get the number of tiles currently decoded and held in memory.
+     *
+     * @return The number of cached tiles
+     */
+    public synchronized int getNumCachedTiles()
+    {
+        return tileMap.size();
+    }
+
+    /**
+     * Get the number of times a tile has been decoded from the file since
+     * this data was created. Comparing this against the number of tiles
+     * asked for shows how well the cache is working.
+     *
+     * @return The number of tile decodes
+     */
+    public synchronized long getTilesDecoded()
+    {
+        return tilesDecoded;
+    }
+
+    //----------------------------------------------------------
+    // Internal convenience methods
+    //----------------------------------------------------------
+
+    /**
+     * Fetch the height of one grid point, decoding its tile if needed. The
+     * coordinates must already be clamped to the grid.
+     *
+     * @param gridX The column of the point
+     * @param gridY The row of the point
+     * @return The scaled height
+     */
+    private synchronized float sample(int gridX, int gridY)
+    {
+        int t_x = gridX / gridPointsPerTile;
+        int t_y = gridY / gridPointsPerTile;
+
+        Tile tile = head;
+
+        if(tile == null || tile.key != t_x * numDepthTiles + t_y)
+            tile = fetchTile(t_x, t_y);
+
+        int idx = (gridX - tile.startX) * gridPointsPerTile +
+                  gridY - tile.startY;
+
+        return tile.heights[idx];
+    }
+
+    /**
+     * Fetch a tile, decoding it from the file if it is not held. The tile
+     * becomes the most recently used.
+     *
+     * @param tileX The tile column
+     * @param tileY The tile row
+     * @return The decoded tile
+     */
+    private Tile fetchTile(int tileX, int tileY)
+    {
+        int key = tileX * numDepthTiles + tileY;
+        Tile tile = tileMap.get(key);
+
+        if(tile != null)
+        {
+            if(tile != head)
+            {
+                unlink(tile);
+                addToHead(tile);
+            }
+
+            return tile;
+        }
+
+        if(numTiles < maxTiles)
+        {
+            tile = new Tile(gridPointsPerTile);
+            numTiles++;
+        }
+        else
+        {
+            tile = findVictim();
+            unlink(tile);
+            tileMap.remove(tile.key);
+        }
+
+        tile.key = key;
+        tile.startX = tileX * gridPointsPerTile;
+        tile.startY = tileY * gridPointsPerTile;
+
+        decodeTile(tile);
+
+        tileMap.put(key, tile);
+        addToHead(tile);
+
+        return tile;
+    }
+
+    /**
+     * Find the tile to drop to make room for another. This is the least
+     * recently used tile outside the active bounds, or the least recently
+     * used tile of all if every tile is active.
+     *
+     * @return The tile to reuse
+     */
+    private Tile findVictim()
+    {
+        if(activeBounds != null)
+        {
+            for(Tile t = tail; t != null; t = t.previous)
+            {
+                int t_x = t.startX / gridPointsPerTile;
+                int t_y = t.startY / gridPointsPerTile;
+
+                if(t_x < activeBounds.x ||
+                   t_x > activeBounds.x + activeBounds.width ||
+                   t_y < activeBounds.y ||
+                   t_y > activeBounds.y + activeBounds.height)
+                    return t;
+            }
+        }
+
+        return tail;
+    }
+
+    /**
+     * Read the heights of a tile from the mapped file. Points of the tile
+     * that fall beyond the edge of the grid are left as they were.
+     *
+     * @param tile The tile to fill, with its start coordinates set
+     */
+    private void decodeTile(Tile tile)
+    {
+        int size = gridPointsPerTile;
+        int end_x = Math.min(gridWidth, tile.startX + size);
+        int num_rows = Math.min(gridDepth, tile.startY + size) - tile.startY;
+        float[] heights = tile.heights;
+
+        for(int c = tile.startX; c < end_x; c++)
+        {
+            MappedByteBuffer buf = chunks[c / columnsPerChunk];
+            int column_start = (c % columnsPerChunk) * gridDepth + tile.startY;
+            int out = (c - tile.startX) * size;
+
+            switch(sampleType)
+            {
+                case SAMPLE_SHORT:
+                    for(int r = 0; r < num_rows; r++)
+                    {
+                        int pos = (column_start + r) << sampleShift;
+                        heights[out + r] = heightScale * buf.getShort(pos);
+                    }
+                    break;
+
+                case SAMPLE_INT:
+                    for(int r = 0; r < num_rows; r++)
+                    {
+                        int pos = (column_start + r) << sampleShift;
+                        heights[out + r] = heightScale * buf.getInt(pos);
+                    }
+                    break;
+
+                case SAMPLE_FLOAT:
+                    for(int r = 0; r < num_rows; r++)
+                    {
+                        int pos = (column_start + r) << sampleShift;
+                        heights[out + r] = heightScale * buf.getFloat(pos);
+                    }
+                    break;
+            }
+        }
+
+        tilesDecoded++;
+    }
+
+    /**
+     * Remove a tile from the usage list.
+     *
+     * @param tile The tile to remove
+     */
+    private void unlink(Tile tile)
+    {
+        if(tile.previous != null)
+            tile.previous.next = tile.next;
+        else
+            head = tile.next;
+
+        if(tile.next != null)
+            tile.next.previous = tile.previous;
+        else
+            tail = tile.previous;
+
+        tile.previous = null;
+        tile.next = null;
+    }
+
+    /**
+     * Place a tile at the head of the usage list.
+     *
+     * @param tile The tile to add
+     */
+    private void addToHead(Tile tile)
+    {
+        tile.next = head;
+
+        if(head != null)
+            head.previous = tile;
+        else
+            tail = tile;
+
+        head = tile;
+    }
+
+    /**
+     * Calculate the best tile size for the given grid size. Only ever called
+     * once at startup of the class.
+     */
+    private void calcTileSize()
+    {
+        // We like to start at 64 and work our way down until we find something
+        // that is exactly divisible in both directions. Should always have a
+        // grid of 2^n + 1 points.
+        int t_size = 64;
+        int depth = gridDepth - 1;
+        int width = gridWidth - 1;
+
+        while((depth % t_size) != 0 || (width % t_size) != 0)
+            t_size >>= 1;
+
+        gridPointsPerTile = t_size;
+
+        maxDepthTile = depth / t_size;
+        maxWidthTile = width / t_size;
+        numDepthTiles = maxDepthTile + 1;
+    }
+}
@@ -0,0 +1,755 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.c3d;
+
+// External imports
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+// Local imports
+import org.j3d.util.DefaultErrorReporter;
+import org.j3d.util.ErrorReporter;
+
+/**
+ * Random access reader of the frames of a C3D file, decoding just the frames
+ * asked for from a memory mapped file.
+ * <p>
+ *
+ * {@link C3DParser} reads a file from start to end and, when retaining data,
+ * keeps every frame in memory. Motion capture sessions can run to gigabytes,
+ * so this reader only parses the header and parameter blocks when it is
+ * created, using the parser, and leaves the frame data in the file. The data
+ * section is mapped in segments of up to 1GB, and any range of frames may be
+ * decoded on demand into flat arrays, from any thread. All three processor
+ * formats (Intel, DEC and MIPS) are handled, in both the integer and the
+ * floating point forms of the data.
+ * <p>
+ *
+ * The frames may also be streamed in order to a {@link C3DParseObserver},
+ * a block of frames at a time, without being kept. For playback,
+ * {@link #readMarker(int, int, int, float[])} gives the path of a single
+ * marker in the layout used for the key values of a position interpolator,
+ * with the frame times from {@link #getFrameTime(int)}.
+ * <p>
+ *
+ * The fourth word of each point is decoded as the C3D specification
+ * describes it: the high byte holds the mask of the cameras that saw the
+ * point and the low byte the residual, scaled by the 3D scale factor. A
+ * negative word marks a point that is not valid, which is returned with a
+ * residual of -1 and an empty camera mask. Analog samples are returned as
+ * stored in the file, without the analog scale and offset parameters being
+ * applied.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class C3DFrameReader
+{
+    /** Message when the user code generates an exception in a callback */
+    private static final String USER_OBSERVER_ERR =
+        "User code implementing C3DParseObserver has generated an exception " +
+        "during a callback.";
+
+    /** Message when the processor type is not one we know */
+    private static final String UNKNOWN_PROCESSOR_MSG =
+        "The C3D file has an unknown processor type: ";
+
+    /** Size of a block of a C3D file */
+    private static final int BLOCK_SIZE = 512;
+
+    /** The largest number of bytes mapped in one segment */
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /** The number of bytes of frame data decoded at once */
+    private static final int SCRATCH_SIZE = 1 << 20;
+
+    /** The channel to the file being read */
+    private FileChannel channel;
+
+    /** The header of the file */
+    private final C3DHeader header;
+
+    /** The parameter groups of the file */
+    private final C3DParameterGroup[] parameters;
+
+    /** The byte-swapping reader for the processor format of the file */
+    private final BufferReader reader;
+
+    /** True if the frame data is in floating point form */
+    private final boolean floatData;
+
+    /** The number of bytes in a single value of the frame data */
+    private final int valueSize;
+
+    /** The number of bytes in one frame of trajectory and analog data */
+    private final int frameSize;
+
+    /** The factor that converts integer coordinates and residuals */
+    private final float scale;
+
+    /** The number of trajectories in each frame */
+    private final int numTrajectories;
+
+    /** The number of analog values in each frame */
+    private final int numAnalogValues;
+
+    /** The number of frames in the file */
+    private final int numFrames;
+
+    /** The position of the first frame in the file */
+    private final long dataStart;
+
+    /** The number of frames in each mapped segment */
+    private final int framesPerSegment;
+
+    /** The mapped segments of the data, created as they are first used */
+    private MappedByteBuffer[] segments;
+
+    /** Buffer that frames are copied to for decoding */
+    private final byte[] scratch;
+
+    /** The labels of the trajectories */
+    private final String[] trajectoryLabels;
+
+    /** The descriptions of the trajectories */
+    private final String[] trajectoryDescriptions;
+
+    /** Error reporter used to send out messages */
+    private ErrorReporter errorReporter;
+
+    /**
+     * Open a C3D file, reading its header and parameters.
+     *
+     * @param file The file to read
+     * @throws IOException The file could not be read or is not a C3D file
+     */
+    public C3DFrameReader(File file) throws IOException
+    {
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+
+        try(FileInputStream is = new FileInputStream(file))
+        {
+            C3DParser parser = new C3DParser(is);
+            parser.parseParameters();
+
+            header = parser.getHeader();
+            parameters = parser.getParameters();
+        }
+
+        switch(header.processorType)
+        {
+            case 1:
+                reader = new IntelBufferReader();
+                break;
+
+            case 2:
+                reader = new DECBufferReader();
+                break;
+
+            case 3:
+                reader = new MIPSBufferReader();
+                break;
+
+            default:
+                throw new IOException(UNKNOWN_PROCESSOR_MSG +
+                                      header.processorType);
+        }
+
+        floatData = header.scaleFactor < 0;
+        valueSize = floatData ? 4 : 2;
+        scale = Math.abs(header.scaleFactor);
+
+        numTrajectories = header.numTrajectories;
+        numAnalogValues =
+            header.numAnalogChannels * header.numAnalogSamplesPer3DFrame;
+        frameSize = (numTrajectories * 4 + numAnalogValues) * valueSize;
+
+        dataStart = (long)(header.startDataBlock - 1) * BLOCK_SIZE;
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        long available = (frameSize == 0) ?
+            0 : (channel.size() - dataStart) / frameSize;
+
+        numFrames = (int)Math.max(0,
+            Math.min(header.numTrajectorySamples, available));
+
+        framesPerSegment = Math.max(1, MAX_SEGMENT_SIZE / Math.max(1, frameSize));
+        segments = new MappedByteBuffer[(numFrames + framesPerSegment - 1) /
+                                        framesPerSegment];
+
+        scratch = new byte[Math.max(SCRATCH_SIZE, frameSize)];
+        reader.setBuffer(scratch);
+
+        trajectoryLabels = new String[numTrajectories];
+        trajectoryDescriptions = new String[numTrajectories];
+
+        C3DParameterGroup point_group = findGroup("POINT");
+        copyStrings(point_group, "LABELS", trajectoryLabels);
+        copyStrings(point_group, "DESCRIPTIONS", trajectoryDescriptions);
+    }
+
+    /**
+     * Register an error reporter with the engine so that any errors generated
+     * by the observer callbacks can be reported in a nice, pretty fashion.
+     * Setting a value of null will clear the currently set reporter. If one
+     * is already set, the new value replaces the old.
+     *
+     * @param reporter The instance to use or null
+     */
+    public void setErrorReporter(ErrorReporter reporter)
+    {
+        if(reporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
+        else
+            errorReporter = reporter;
+    }
+
+    /**
+     * Get the header of the file.
+     *
+     * @return The header information
+     */
+    public C3DHeader getHeader()
+    {
+        return header;
+    }
+
+    /**
+     * Get the parameter groups of the file.
+     *
+     * @return The groups read from the parameter blocks
+     */
+    public C3DParameterGroup[] getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Get the number of frames that can be read from the file. This is the
+     * number given in the header, or less if the file is short.
+     *
+     * @return The frame count
+     */
+    public int getNumFrames()
+    {
+        return numFrames;
+    }
+
+    /**
+     * Get the number of trajectories in each frame.
+     *
+     * @return The trajectory count
+     */
+    public int getNumTrajectories()
+    {
+        return numTrajectories;
+    }
+
+    /**
+     * Get the number of analog values in each frame, which is the number of
+     * channels times the number of samples per frame.
+     *
+     * @return The analog value count
+     */
+    public int getNumAnalogValues()
+    {
+        return numAnalogValues;
+    }
+
+    /**
+     * Get the label of a trajectory, with the padding removed.
+     *
+     * @param trajectory The index of the trajectory
+     * @return The label or null if the file has none
+     */
+    public String getTrajectoryLabel(int trajectory)
+    {
+        return trajectoryLabels[trajectory];
+    }
+
+    /**
+     * Get the time of a frame from the start of the data, in seconds.
+     *
+     * @param frame The index of the frame
+     * @return The time of the frame
+     */
+    public float getFrameTime(int frame)
+    {
+        return frame / header.trajectorySampleRate;
+    }
+
+    /**
+     * Release the file. No more frames may be read after this.
+     *
+     * @throws IOException The file could not be closed
+     */
+    public synchronized void close() throws IOException
+    {
+        if(channel != null)
+        {
+            channel.close();
+            channel = null;
+            segments = null;
+        }
+    }
+
+    /**
+     * Read the trajectories of a range of frames. The coordinates are
+     * written as x, y, z for each trajectory of the first frame, then for
+     * each trajectory of the next and so on. Camera masks and residuals are
+     * written one per trajectory in the same order.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames to read
+     * @param coords Array for 3 values per trajectory per frame
+     * @param cameraMasks Array for the camera masks, or null
+     * @param residuals Array for the residuals, or null
+     * @throws IllegalArgumentException The range is not in the file or an
+     *    array is too small
+     * @throws IOException The file could not be read
+     */
+    public void readFrames(int start,
+                           int count,
+                           float[] coords,
+                           short[] cameraMasks,
+                           float[] residuals)
+        throws IOException
+    {
+        decode(start, count, 0, numTrajectories, coords, cameraMasks, residuals);
+    }
+
+    /**
+     * Read the path of one trajectory over a range of frames. The
+     * coordinates are written as x, y, z for each frame, ready to be used as
+     * the key values of a position interpolator, where the key of frame i is
+     * <code>i / (count - 1)</code>.
+     *
+     * @param trajectory The index of the trajectory
+     * @param start The index of the first frame
+     * @param count The number of frames to read
+     * @param coords Array for 3 values per frame
+     * @throws IllegalArgumentException The trajectory or range is not in the
+     *    file or the array is too small
+     * @throws IOException The file could not be read
+     */
+    public void readMarker(int trajectory, int start, int count, float[] coords)
+        throws IOException
+    {
+        if(trajectory < 0 || trajectory >= numTrajectories)
+            throw new IllegalArgumentException("Invalid trajectory " + trajectory);
+
+        decode(start, count, trajectory, 1, coords, null, null);
+    }
+
+    /**
+     * Read a range of frames into the data objects used by the parser, one
+     * for each trajectory.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames to read
+     * @return The data of each trajectory over the range
+     * @throws IllegalArgumentException The range is not in the file
+     * @throws IOException The file could not be read
+     */
+    public C3DTrajectoryData[] readTrajectories(int start, int count)
+        throws IOException
+    {
+        C3DTrajectoryData[] ret_val = new C3DTrajectoryData[numTrajectories];
+
+        for(int i = 0; i < numTrajectories; i++)
+            ret_val[i] = new C3DTrajectoryData(trajectoryLabels[i],
+                                               trajectoryDescriptions[i],
+                                               count);
+
+        readTrajectories(start, count, ret_val);
+
+        return ret_val;
+    }
+
+    /**
+     * Read the analog values of a range of frames. For each frame, the
+     * values of every channel are written for the first sample, then for
+     * the next sample and so on, as they are stored in the file.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames to read
+     * @param samples Array for the analog values of each frame
+     * @throws IllegalArgumentException The range is not in the file or the
+     *    array is too small
+     * @throws IOException The file could not be read
+     */
+    public synchronized void readAnalog(int start, int count, float[] samples)
+        throws IOException
+    {
+        checkRange(start, count);
+        checkLength(samples, count * (long)numAnalogValues);
+
+        int analog_offset = numTrajectories * 4 * valueSize;
+        int out = 0;
+        int done = 0;
+
+        while(done < count)
+        {
+            int num = fetch(start + done, count - done);
+
+            for(int i = 0; i < num; i++)
+            {
+                int pos = i * frameSize + analog_offset;
+
+                for(int j = 0; j < numAnalogValues; j++)
+                {
+                    samples[out++] = floatData ?
+                        reader.readFloat(pos) : (short)reader.readShort(pos);
+
+                    pos += valueSize;
+                }
+            }
+
+            done += num;
+        }
+    }
+
+    /**
+     * Stream every frame in order to an observer, without keeping them. The
+     * observer is sent the header and the parameters, then the trajectories
+     * a block of frames at a time. The same data objects are reused for
+     * every block, with <code>numFrames</code> set to the number of frames
+     * in that block. Streaming stops early if the observer returns false
+     * from any callback.
+     *
+     * @param observer The observer to send the frames to
+     * @param blockFrames The largest number of frames sent at once
+     * @throws IllegalArgumentException The block size is less than 1
+     * @throws IOException The file could not be read
+     */
+    public void stream(C3DParseObserver observer, int blockFrames)
+        throws IOException
+    {
+        if(blockFrames < 1)
+            throw new IllegalArgumentException("Block size must be positive");
+
+        try
+        {
+            if(!observer.headerComplete(header))
+                return;
+        }
+        catch(Exception e)
+        {
+            errorReporter.errorReport(USER_OBSERVER_ERR, e);
+        }
+
+        try
+        {
+            if(!observer.parametersComplete(parameters))
+                return;
+        }
+        catch(Exception e)
+        {
+            errorReporter.errorReport(USER_OBSERVER_ERR, e);
+        }
+
+        int block_size = Math.min(blockFrames, Math.max(numFrames, 1));
+        C3DTrajectoryData[] data = new C3DTrajectoryData[numTrajectories];
+
+        for(int i = 0; i < numTrajectories; i++)
+            data[i] = new C3DTrajectoryData(trajectoryLabels[i],
+                                            trajectoryDescriptions[i],
+                                            block_size);
+
+        for(int frame = 0; frame < numFrames; frame += block_size)
+        {
+            int count = Math.min(block_size, numFrames - frame);
+
+            for(C3DTrajectoryData d : data)
+                d.numFrames = count;
+
+            readTrajectories(frame, count, data);
+
+            try
+            {
+                if(!observer.trackDataAvailable(data))
+                    return;
+            }
+            catch(Exception e)
+            {
+                errorReporter.errorReport(USER_OBSERVER_ERR, e);
+            }
+        }
+    }
+
+    /**
+     * Read a range of frames into existing trajectory data objects, which
+     * must hold at least that many frames.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames to read
+     * @param data The data object of each trajectory
+     * @throws IOException The file could not be read
+     */
+    private synchronized void readTrajectories(int start,
+                                               int count,
+                                               C3DTrajectoryData[] data)
+        throws IOException
+    {
+        checkRange(start, count);
+
+        int point_size = 4 * valueSize;
+        int done = 0;
+
+        while(done < count)
+        {
+            int num = fetch(start + done, count - done);
+
+            for(int j = 0; j < numTrajectories; j++)
+            {
+                C3DTrajectoryData d = data[j];
+                int pos = j * point_size;
+
+                for(int i = 0; i < num; i++)
+                {
+                    int frame = done + i;
+
+                    readPoint(pos, d.coordinates, frame * 3,
+                              d.cameraMasks, d.residuals, frame);
+
+                    pos += frameSize;
+                }
+            }
+
+            done += num;
+        }
+    }
+
+    /**
+     * Decode a set of trajectories over a range of frames into flat arrays,
+     * ordered by frame then trajectory.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames to read
+     * @param first The index of the first trajectory
+     * @param num The number of trajectories
+     * @param coords Array for 3 values per trajectory per frame
+     * @param cameraMasks Array for the camera masks, or null
+     * @param residuals Array for the residuals, or null
+     * @throws IOException The file could not be read
+     */
+    private synchronized void decode(int start,
+                                     int count,
+                                     int first,
+                                     int num,
+                                     float[] coords,
+                                     short[] cameraMasks,
+                                     float[] residuals)
+        throws IOException
+    {
+        checkRange(start, count);
+
+        long values = count * (long)num;
+        checkLength(coords, values * 3);
+
+        if(cameraMasks != null && cameraMasks.length < values)
+            throw new IllegalArgumentException("Camera mask array too small");
+
+        checkLength(residuals, values);
+
+        int point_size = 4 * valueSize;
+        int out = 0;
+        int done = 0;
+
+        while(done < count)
+        {
+            int frames = fetch(start + done, count - done);
+
+            for(int i = 0; i < frames; i++)
+            {
+                int pos = i * frameSize + first * point_size;
+
+                for(int j = 0; j < num; j++)
+                {
+                    readPoint(pos, coords, out * 3, cameraMasks, residuals, out);
+                    pos += point_size;
+                    out++;
+                }
+            }
+
+            done += frames;
+        }
+    }
+
+    /**
+     * Decode one point from the scratch buffer.
+     *
+     * @param pos The position of the point in the scratch buffer
+     * @param coords The array to write the coordinate to
+     * @param coordIdx The index of the coordinate in the array
+     * @param cameraMasks The array to write the camera mask to, or null
+     * @param residuals The array to write the residual to, or null
+     * @param idx The index of the mask and residual in their arrays
+     */
+    private void readPoint(int pos,
+                           float[] coords,
+                           int coordIdx,
+                           short[] cameraMasks,
+                           float[] residuals,
+                           int idx)
+    {
+        int word;
+
+        if(floatData)
+        {
+            coords[coordIdx] = reader.readFloat(pos);
+            coords[coordIdx + 1] = reader.readFloat(pos + 4);
+            coords[coordIdx + 2] = reader.readFloat(pos + 8);
+            word = (int)reader.readFloat(pos + 12);
+        }
+        else
+        {
+            coords[coordIdx] = (short)reader.readShort(pos) * scale;
+            coords[coordIdx + 1] = (short)reader.readShort(pos + 2) * scale;
+            coords[coordIdx + 2] = (short)reader.readShort(pos + 4) * scale;
+            word = (short)reader.readShort(pos + 6);
+        }
+
+        if(cameraMasks != null)
+            cameraMasks[idx] = (word < 0) ? 0 : (short)((word >> 8) & 0xFF);
+
+        if(residuals != null)
+            residuals[idx] = (word < 0) ? -1 : (word & 0xFF) * scale;
+    }
+
+    /**
+     * Copy as many frames as fit from the start of a range into the scratch
+     * buffer.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames wanted
+     * @return The number of frames copied
+     * @throws IOException The file could not be read
+     */
+    private int fetch(int start, int count) throws IOException
+    {
+        if(channel == null)
+            throw new IOException("The reader has been closed");
+
+        int frames = Math.min(count, scratch.length / frameSize);
+        int done = 0;
+
+        while(done < frames)
+        {
+            int frame = start + done;
+            int seg = frame / framesPerSegment;
+            int local = frame - seg * framesPerSegment;
+            int num = Math.min(frames - done, framesPerSegment - local);
+
+            if(segments[seg] == null)
+            {
+                long seg_start = (long)seg * framesPerSegment;
+                int seg_frames = (int)Math.min(framesPerSegment,
+                                               numFrames - seg_start);
+
+                segments[seg] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                            dataStart + seg_start * frameSize,
+                                            (long)seg_frames * frameSize);
+            }
+
+            ByteBuffer buffer = segments[seg].duplicate();
+            buffer.position(local * frameSize);
+            buffer.get(scratch, done * frameSize, num * frameSize);
+
+            done += num;
+        }
+
+        return frames;
+    }
+
+    /**
+     * Check that a range of frames is in the file.
+     *
+     * @param start The index of the first frame
+     * @param count The number of frames
+     */
+    private void checkRange(int start, int count)
+    {
+        if(start < 0 || count < 0 || start > numFrames - count)
+            throw new IllegalArgumentException("Frames " + start + " to " +
+                (start + count) + " are not in the file of " + numFrames);
+    }
+
+    /**
+     * Check that an optional array holds enough values.
+     *
+     * @param array The array to check, or null
+     * @param length The number of values needed
+     */
+    private void checkLength(float[] array, long length)
+    {
+        if(array != null && array.length < length)
+            throw new IllegalArgumentException("Array too small, needs " +
+                                               length + " values");
+    }
+
+    /**
+     * Find a parameter group by name.
+     *
+     * @param name The name of the group
+     * @return The group or null if the file does not have it
+     */
+    private C3DParameterGroup findGroup(String name)
+    {
+        if(parameters == null)
+            return null;
+
+        for(C3DParameterGroup grp : parameters)
+        {
+            if(name.equals(grp.getName()))
+                return grp;
+        }
+
+        return null;
+    }
+
+    /**
+     * Copy the trimmed values of a string parameter into an array. Missing
+     * values are left null.
+     *
+     * @param group The group holding the parameter, or null
+     * @param name The name of the parameter
+     * @param values The array to copy the values to
+     */
+    private void copyStrings(C3DParameterGroup group,
+                             String name,
+                             String[] values)
+    {
+        if(group == null)
+            return;
+
+        C3DParameter param = group.getParameter(name);
+
+        if(!(param instanceof C3DStringParameter))
+            return;
+
+        Object value = param.getValue();
+
+        if(!(value instanceof String[]))
+            return;
+
+        String[] strings = (String[])value;
+        int size = Math.min(strings.length, values.length);
+
+        for(int i = 0; i < size; i++)
+            values[i] = strings[i].trim();
+    }
+}
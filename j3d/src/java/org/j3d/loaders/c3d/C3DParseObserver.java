@@ -49,9 +49,13 @@ public interface C3DParseObserver
     boolean parametersComplete(C3DParameterGroup[] groups);
 
     /**
+     * A block of trajectory data has been read. There is one object for each
+     * trajectory, holding the frames of the block. When streaming from a
+     * {@link C3DFrameReader} the objects are reused for the following block,
+     * so copy out any values that need to be kept.
      *
-     * @param data
-     * @return
+     * @param data The trajectory data of the block
+     * @return true if to keep reading
      */
     boolean trackDataAvailable(C3DTrajectoryData[] data);
 }
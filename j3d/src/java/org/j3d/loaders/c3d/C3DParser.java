@@ -281,6 +281,21 @@ public class C3DParser
             header = null;
     }
 
+    /**
+     * Parse only the header and parameter blocks of the stream, leaving the
+     * trajectory and analog data unread. Both are retained and available
+     * from {@link #getHeader()} and {@link #getParameters()} afterwards. Used
+     * by readers that fetch the frame data themselves, such as
+     * {@link C3DFrameReader}.
+     *
+     * @throws IOException some problem reading the basic file.
+     */
+    public void parseParameters() throws IOException
+    {
+        if(parseHeader())
+            parseParams(true);
+    }
+
     /**
      * Parse the header block from the file.
      *
@@ -387,8 +402,11 @@ public class C3DParser
         buffer = param_buffer;
         reader.setBuffer(buffer);
 
-        // Readjust the read values to be more useful
-        header.numAnalogChannels /= header.numAnalogSamplesPer3DFrame;
+        // Readjust the read values to be more useful. Files without analog
+        // data have no samples per frame.
+        if(header.numAnalogSamplesPer3DFrame != 0)
+            header.numAnalogChannels /= header.numAnalogSamplesPer3DFrame;
+
         header.analogSampleRate = header.trajectorySampleRate *
                                   header.numAnalogSamplesPer3DFrame;
 
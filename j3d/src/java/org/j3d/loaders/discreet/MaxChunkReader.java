@@ -0,0 +1,810 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.discreet;
+
+// External imports
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Local imports
+// None
+
+/**
+ * Reader of 3DS files that memory maps the file and decodes the named
+ * objects on demand.
+ * <p>
+ *
+ * Where {@link MaxParser} reads the chunks one after the other and builds the
+ * complete object model before anything can be used, this reader walks the
+ * chunk headers once when the file is opened and records where each named
+ * object lives, without decoding any of them. Objects can then be decoded one
+ * at a time in any order, or all of them in parallel. Triangle mesh chunks
+ * are decoded straight from the mapped file into the arrays of
+ * {@link TriangleMesh}, so a loader can start building the geometry of the
+ * first objects of a large model while the rest are still being decoded.
+ * <p>
+ *
+ * The decoding methods may be called from several threads at once. Lights
+ * and cameras are decoded by a {@link MaxParser}, as are the materials,
+ * keyframes and scene settings read by {@link #readObjectMesh()}. The file is
+ * mapped for as long as the reader is in use.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ * @see MaxParser
+ */
+public class MaxChunkReader
+{
+    /** Size of a chunk header, the ID and length */
+    private static final int HEADER_SIZE = 6;
+
+    /** Initial size of the object index arrays */
+    private static final int INITIAL_OBJECTS = 64;
+
+    /** The whole file, mapped read only */
+    private ByteBuffer buffer;
+
+    /** Offset of the first sub-chunk of each named object */
+    private int[] objectStart;
+
+    /** Offset of the end of each named object */
+    private int[] objectEnd;
+
+    /** The name of each named object */
+    private String[] objectNames;
+
+    /** The number of triangle mesh chunks in each named object */
+    private int[] meshCounts;
+
+    /** The number of named objects in the file */
+    private int numObjects;
+
+    /**
+     * Open a 3DS file and index the named objects in it.
+     *
+     * @param file The file to read
+     * @throws IOException The file could not be read or is not a 3DS file
+     */
+    public MaxChunkReader(File file)
+        throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file.toPath(),
+                                                   StandardOpenOption.READ))
+        {
+            long length = channel.size();
+
+            // Chunk lengths are 32 bit so no valid file can be longer
+            if(length > Integer.MAX_VALUE)
+                throw new IOException("File is too large for a 3DS file: " +
+                                      length);
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        objectStart = new int[INITIAL_OBJECTS];
+        objectEnd = new int[INITIAL_OBJECTS];
+        objectNames = new String[INITIAL_OBJECTS];
+        meshCounts = new int[INITIAL_OBJECTS];
+
+        buildIndex();
+    }
+
+    /**
+     * Get the number of named objects in the file.
+     *
+     * @return The object count
+     */
+    public int getNumObjects()
+    {
+        return numObjects;
+    }
+
+    /**
+     * Get the name of a named object.
+     *
+     * @param index The index of the object, in file order
+     * @return The name of the object
+     * @throws IndexOutOfBoundsException The index is not a valid object
+     */
+    public String getObjectName(int index)
+    {
+        checkIndex(index);
+
+        return objectNames[index];
+    }
+
+    /**
+     * Get the number of triangle meshes in a named object. Objects that only
+     * hold a light or camera have none.
+     *
+     * @param index The index of the object, in file order
+     * @return The number of meshes
+     * @throws IndexOutOfBoundsException The index is not a valid object
+     */
+    public int getNumMeshes(int index)
+    {
+        checkIndex(index);
+
+        return meshCounts[index];
+    }
+
+    /**
+     * Decode just the triangle meshes of a named object.
+     *
+     * @param index The index of the object, in file order
+     * @return The meshes, which may be a zero length array
+     * @throws IndexOutOfBoundsException The index is not a valid object
+     * @throws IOException The object chunk is badly formed
+     */
+    public TriangleMesh[] readMeshes(int index)
+        throws IOException
+    {
+        ObjectBlock block = decodeObject(index, true);
+
+        TriangleMesh[] ret_val = new TriangleMesh[block.numMeshes];
+        System.arraycopy(block.meshes, 0, ret_val, 0, block.numMeshes);
+
+        return ret_val;
+    }
+
+    /**
+     * Decode a complete named object, with its meshes, lights and cameras.
+     *
+     * @param index The index of the object, in file order
+     * @return The decoded object
+     * @throws IndexOutOfBoundsException The index is not a valid object
+     * @throws IOException The object chunk is badly formed
+     */
+    public ObjectBlock readObject(int index)
+        throws IOException
+    {
+        return decodeObject(index, false);
+    }
+
+    /**
+     * Decode every named object in the file in parallel.
+     *
+     * @return The decoded objects, in file order
+     * @throws IOException One of the object chunks is badly formed
+     */
+    public ObjectBlock[] readObjects()
+        throws IOException
+    {
+        ObjectBlock[] ret_val = new ObjectBlock[numObjects];
+
+        try
+        {
+            IntStream.range(0, numObjects).parallel().forEach(
+                i -> ret_val[i] = decodeUnchecked(i));
+        }
+        catch(UncheckedIOException uioe)
+        {
+            throw uioe.getCause();
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Decode every named object in the file in parallel, handing each one
+     * over as soon as it is ready. The consumer is called from the decoding
+     * threads, in no particular order, so must be safe to call from several
+     * threads at once. This method returns once every object has been
+     * handed over.
+     *
+     * @param consumer The receiver of the decoded objects
+     * @throws IOException One of the object chunks is badly formed
+     */
+    public void readObjects(Consumer<ObjectBlock> consumer)
+        throws IOException
+    {
+        try
+        {
+            IntStream.range(0, numObjects).parallel().forEach(
+                i -> consumer.accept(decodeUnchecked(i)));
+        }
+        catch(UncheckedIOException uioe)
+        {
+            throw uioe.getCause();
+        }
+    }
+
+    /**
+     * Read the whole file into the same object model as
+     * {@link MaxParser#parse()}. The parser reads everything but the named
+     * objects, which are then decoded in parallel.
+     *
+     * @return A completed object mesh representative of the file
+     * @throws IOException The file is badly formed
+     */
+    public ObjectMesh readObjectMesh()
+        throws IOException
+    {
+        MaxParser parser =
+            new MaxParser(new BufferInputStream(slice(0, buffer.limit())));
+        parser.setSkipNamedObjects(true);
+
+        ObjectMesh ret_val = parser.parse();
+        ObjectBlock[] blocks = readObjects();
+
+        if(blocks.length > ret_val.blocks.length)
+            ret_val.blocks = blocks;
+        else
+            System.arraycopy(blocks, 0, ret_val.blocks, 0, blocks.length);
+
+        ret_val.numBlocks = blocks.length;
+
+        return ret_val;
+    }
+
+    //---------------------------------------------------------------
+    // Local methods
+    //---------------------------------------------------------------
+
+    /**
+     * Walk the chunk headers of the file and record every named object.
+     *
+     * @throws IOException The file is not a 3DS file
+     */
+    private void buildIndex()
+        throws IOException
+    {
+        int length = buffer.limit();
+
+        if(length < HEADER_SIZE)
+            throw new IOException("File is too short for a 3DS file");
+
+        if((buffer.getShort(0) & 0xFFFF) != MaxConstants.MAIN_CHUNK)
+            throw new IOException("Wrong main chunk in file");
+
+        int end = chunkEnd(0, length);
+        int pos = HEADER_SIZE;
+
+        while(pos < end)
+        {
+            int chunk_end = chunkEnd(pos, end);
+
+            if((buffer.getShort(pos) & 0xFFFF) == MaxConstants.MESH_DATA)
+                indexMeshData(pos + HEADER_SIZE, chunk_end);
+
+            pos = chunk_end;
+        }
+    }
+
+    /**
+     * Record the named objects of a mesh data chunk.
+     *
+     * @param start Offset of the first sub-chunk
+     * @param end Offset of the end of the chunk
+     * @throws IOException A chunk size is out of range
+     */
+    private void indexMeshData(int start, int end)
+        throws IOException
+    {
+        int pos = start;
+
+        while(pos < end)
+        {
+            int chunk_end = chunkEnd(pos, end);
+
+            if((buffer.getShort(pos) & 0xFFFF) == MaxConstants.NAMED_OBJECT)
+                indexObject(pos + HEADER_SIZE, chunk_end);
+
+            pos = chunk_end;
+        }
+    }
+
+    /**
+     * Record a named object and count its triangle meshes.
+     *
+     * @param start Offset of the object name
+     * @param end Offset of the end of the chunk
+     * @throws IOException A chunk size is out of range
+     */
+    private void indexObject(int start, int end)
+        throws IOException
+    {
+        if(numObjects == objectStart.length)
+        {
+            int size = numObjects * 2;
+
+            int[] tmp = new int[size];
+            System.arraycopy(objectStart, 0, tmp, 0, numObjects);
+            objectStart = tmp;
+
+            tmp = new int[size];
+            System.arraycopy(objectEnd, 0, tmp, 0, numObjects);
+            objectEnd = tmp;
+
+            tmp = new int[size];
+            System.arraycopy(meshCounts, 0, tmp, 0, numObjects);
+            meshCounts = tmp;
+
+            String[] names = new String[size];
+            System.arraycopy(objectNames, 0, names, 0, numObjects);
+            objectNames = names;
+        }
+
+        ByteBuffer buf = slice(start, end);
+        String name = readString(buf);
+
+        int pos = buf.position();
+        int meshes = 0;
+
+        while(pos < end)
+        {
+            int chunk_end = chunkEnd(pos, end);
+
+            if((buffer.getShort(pos) & 0xFFFF) == MaxConstants.TRI_MESH)
+                meshes++;
+
+            pos = chunk_end;
+        }
+
+        objectStart[numObjects] = buf.position();
+        objectEnd[numObjects] = end;
+        objectNames[numObjects] = name;
+        meshCounts[numObjects] = meshes;
+        numObjects++;
+    }
+
+    /**
+     * Find the end of the chunk at the given offset, checking that it fits
+     * inside its parent.
+     *
+     * @param pos Offset of the chunk header
+     * @param parentEnd Offset of the end of the parent chunk
+     * @return The offset of the end of the chunk
+     * @throws IOException The chunk size is out of range
+     */
+    private int chunkEnd(int pos, int parentEnd)
+        throws IOException
+    {
+        if(parentEnd - pos < HEADER_SIZE)
+            throw new IOException("Truncated chunk header at " + pos);
+
+        int size = buffer.getInt(pos + 2);
+
+        if(size < HEADER_SIZE || size > parentEnd - pos)
+            throw new IOException("Invalid size " + size +
+                                  " for chunk at " + pos);
+
+        return pos + size;
+    }
+
+    /**
+     * Make sure an object index is in range.
+     *
+     * @param index The index to check
+     * @throws IndexOutOfBoundsException The index is not a valid object
+     */
+    private void checkIndex(int index)
+    {
+        if(index < 0 || index >= numObjects)
+            throw new IndexOutOfBoundsException("Object " + index +
+                " is not in the file of " + numObjects);
+    }
+
+    /**
+     * Create a view of part of the file with its own position.
+     *
+     * @param start Offset of the first byte
+     * @param end Offset of the end of the view
+     * @return A little endian buffer positioned at the start
+     */
+    private ByteBuffer slice(int start, int end)
+    {
+        ByteBuffer ret_val = buffer.duplicate();
+        ret_val.limit(end);
+        ret_val.position(start);
+        ret_val.order(ByteOrder.LITTLE_ENDIAN);
+
+        return ret_val;
+    }
+
+    /**
+     * Decode an object, wrapping any IO error for use in a stream.
+     *
+     * @param index The index of the object
+     * @return The decoded object
+     */
+    private ObjectBlock decodeUnchecked(int index)
+    {
+        try
+        {
+            return decodeObject(index, false);
+        }
+        catch(IOException ioe)
+        {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Decode the sub-chunks of a named object.
+     *
+     * @param index The index of the object
+     * @param meshesOnly true to skip over the lights and cameras
+     * @return The decoded object
+     * @throws IOException The object chunk is badly formed
+     */
+    private ObjectBlock decodeObject(int index, boolean meshesOnly)
+        throws IOException
+    {
+        checkIndex(index);
+
+        ObjectBlock ret_val = new ObjectBlock();
+        ret_val.name = objectNames[index];
+
+        if(meshCounts[index] > ret_val.meshes.length)
+            ret_val.meshes = new TriangleMesh[meshCounts[index]];
+
+        int end = objectEnd[index];
+        ByteBuffer buf = slice(objectStart[index], end);
+
+        try
+        {
+            while(buf.hasRemaining())
+            {
+                int start = buf.position();
+                int type = buf.getShort() & 0xFFFF;
+                int chunk_end = start + buf.getInt();
+
+                switch(type)
+                {
+                    case MaxConstants.TRI_MESH:
+                        ret_val.meshes[ret_val.numMeshes++] =
+                            decodeTriMesh(buf, chunk_end);
+                        break;
+
+                    case MaxConstants.N_DIRECTIONAL_LIGHT:
+                    case MaxConstants.N_CAMERA:
+                        if(meshesOnly)
+                            break;
+
+                        int body = buf.position();
+                        MaxParser parser =
+                            new MaxParser(new BufferInputStream(slice(body, chunk_end)));
+                        parser.readObjectChunk(type, chunk_end - body, ret_val);
+                        break;
+
+                    // Ignore, zero size.
+                    case MaxConstants.VIS_LOFTER:
+                    case MaxConstants.NO_CAST:
+                    case MaxConstants.OBJ_MATTE:
+                    case MaxConstants.OBJ_FAST:
+                    case MaxConstants.OBJ_PROCEDURAL:
+                    case MaxConstants.OBJ_FROZEN:
+                    case MaxConstants.OBJ_NOT_SHADOWED:
+                        break;
+
+                    default:
+                        System.out.println("Unknown object block chunk ID 0x" +
+                                           Integer.toHexString(type));
+                }
+
+                buf.position(chunk_end);
+            }
+        }
+        catch(BufferUnderflowException | IllegalArgumentException e)
+        {
+            throw new IOException("Badly formed chunk in object " +
+                                  objectNames[index]);
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Decode a triangle mesh chunk.
+     *
+     * @param buf The buffer positioned at the first sub-chunk
+     * @param end Offset of the end of the chunk
+     * @return The decoded mesh
+     * @throws IOException A sub-chunk is badly formed
+     */
+    private TriangleMesh decodeTriMesh(ByteBuffer buf, int end)
+        throws IOException
+    {
+        TriangleMesh mesh = new TriangleMesh();
+
+        while(buf.position() < end)
+        {
+            int type = buf.getShort() & 0xFFFF;
+            int chunk_end = subChunkEnd(buf, end);
+
+            switch(type)
+            {
+                case MaxConstants.VERTEX_LIST:
+                    mesh.numVertices = buf.getShort() & 0xFFFF;
+                    checkData(buf, mesh.numVertices * 12, chunk_end);
+
+                    float[] vertices = new float[mesh.numVertices * 3];
+
+                    // Swap from Z up to Y up, as readPoint() does
+                    for(int i = 0; i < vertices.length; i += 3)
+                    {
+                        vertices[i] = buf.getFloat();
+                        vertices[i + 2] = buf.getFloat();
+                        vertices[i + 1] = buf.getFloat();
+                    }
+
+                    mesh.vertices = vertices;
+                    break;
+
+                case MaxConstants.TEXCOORD_LIST:
+                    mesh.numTexCoords = buf.getShort() & 0xFFFF;
+                    checkData(buf, mesh.numTexCoords * 8, chunk_end);
+
+                    float[] tex_coords = new float[mesh.numTexCoords * 2];
+
+                    for(int i = 0; i < tex_coords.length; i++)
+                        tex_coords[i] = buf.getFloat();
+
+                    mesh.texCoords = tex_coords;
+                    break;
+
+                case MaxConstants.MESH_MATRIX:
+                    checkData(buf, 48, chunk_end);
+
+                    mesh.localCoords = new float[12];
+                    for(int i = 0; i < 12; i++)
+                        mesh.localCoords[i] = buf.getFloat();
+                    break;
+
+                case MaxConstants.FACE_LIST:
+                    decodeFaceList(buf, chunk_end, mesh);
+                    break;
+
+                case MaxConstants.BOX_MAP:
+                    mesh.boxMapMaterials = new String[6];
+
+                    for(int i = 0; i < 6; i++)
+                        mesh.boxMapMaterials[i] = readString(buf);
+                    break;
+
+                // These are deliberately ignored as they are useless.
+                case MaxConstants.VERTEX_FLAG:
+                case MaxConstants.MESH_COLOR:
+                case MaxConstants.MESH_TEXTURE_INFO:
+                    break;
+
+                default:
+                    System.out.println("Unknown trimesh chunk ID 0x" +
+                                       Integer.toHexString(type));
+            }
+
+            buf.position(chunk_end);
+        }
+
+        return mesh;
+    }
+
+    /**
+     * Decode a face list chunk and its smoothing and material sub-chunks.
+     *
+     * @param buf The buffer positioned at the face count
+     * @param end Offset of the end of the chunk
+     * @param mesh The mesh to put the faces into
+     * @throws IOException A sub-chunk is badly formed
+     */
+    private void decodeFaceList(ByteBuffer buf, int end, TriangleMesh mesh)
+        throws IOException
+    {
+        mesh.numFaces = buf.getShort() & 0xFFFF;
+        checkData(buf, mesh.numFaces * 8, end);
+
+        int[] faces = new int[mesh.numFaces * 3];
+
+        for(int i = 0; i < faces.length; i += 3)
+        {
+            faces[i] = buf.getShort() & 0xFFFF;
+            faces[i + 1] = buf.getShort() & 0xFFFF;
+            faces[i + 2] = buf.getShort() & 0xFFFF;
+
+            // Face flags are not used
+            buf.getShort();
+        }
+
+        mesh.faces = faces;
+
+        while(buf.position() < end)
+        {
+            int type = buf.getShort() & 0xFFFF;
+            int chunk_end = subChunkEnd(buf, end);
+
+            switch(type)
+            {
+                case MaxConstants.SMOOTH_LIST:
+                    checkData(buf, mesh.numFaces * 4, chunk_end);
+
+                    mesh.smoothgroups = new int[mesh.numFaces];
+
+                    for(int i = 0; i < mesh.numFaces; i++)
+                        mesh.smoothgroups[i] = buf.getInt();
+                    break;
+
+                case MaxConstants.MATERIAL_LIST:
+                    decodeMaterialList(buf, chunk_end, mesh);
+                    break;
+
+                default:
+                    System.out.println("Unknown subface list ID 0x" +
+                                       Integer.toHexString(type));
+            }
+
+            buf.position(chunk_end);
+        }
+    }
+
+    /**
+     * Decode a face material list chunk.
+     *
+     * @param buf The buffer positioned at the material name
+     * @param end Offset of the end of the chunk
+     * @param mesh The mesh to add the material group to
+     * @throws IOException The chunk is badly formed
+     */
+    private void decodeMaterialList(ByteBuffer buf, int end, TriangleMesh mesh)
+        throws IOException
+    {
+        if((mesh.materials == null) || (mesh.materials.length == mesh.numMaterials))
+        {
+            MaterialData[] tmp = new MaterialData[mesh.numMaterials + 4];
+
+            if(mesh.numMaterials != 0)
+                System.arraycopy(mesh.materials, 0, tmp, 0, mesh.numMaterials);
+
+            mesh.materials = tmp;
+        }
+
+        MaterialData mat = new MaterialData();
+        mat.materialName = readString(buf);
+        mat.numFaces = buf.getShort() & 0xFFFF;
+        checkData(buf, mat.numFaces * 2, end);
+
+        mat.faceList = new int[mat.numFaces];
+
+        for(int i = 0; i < mat.numFaces; i++)
+            mat.faceList[i] = buf.getShort() & 0xFFFF;
+
+        mesh.materials[mesh.numMaterials] = mat;
+        mesh.numMaterials++;
+    }
+
+    /**
+     * Read the size of a sub-chunk whose ID has just been read, and check
+     * that it fits inside its parent.
+     *
+     * @param buf The buffer positioned at the chunk size
+     * @param parentEnd Offset of the end of the parent chunk
+     * @return The offset of the end of the sub-chunk
+     * @throws IOException The chunk size is out of range
+     */
+    private int subChunkEnd(ByteBuffer buf, int parentEnd)
+        throws IOException
+    {
+        int pos = buf.position() - 2;
+        int size = buf.getInt();
+
+        if(size < HEADER_SIZE || size > parentEnd - pos)
+            throw new IOException("Invalid size " + size +
+                                  " for chunk at " + pos);
+
+        return pos + size;
+    }
+
+    /**
+     * Check that a list of values fits in what is left of its chunk.
+     *
+     * @param buf The buffer positioned at the start of the list
+     * @param bytes The number of bytes the list needs
+     * @param end Offset of the end of the chunk
+     * @throws IOException The list runs past the end of the chunk
+     */
+    private void checkData(ByteBuffer buf, int bytes, int end)
+        throws IOException
+    {
+        if(bytes > end - buf.position())
+            throw new IOException("List of " + bytes + " bytes runs past " +
+                                  "the end of the chunk at " + buf.position());
+    }
+
+    /**
+     * Read a string up to and including the terminating \0.
+     *
+     * @param buf The buffer positioned at the first character
+     * @return The characters read as a string
+     */
+    private String readString(ByteBuffer buf)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        while(buf.hasRemaining())
+        {
+            int ch = buf.get() & 0xFF;
+
+            if(ch == 0)
+                break;
+
+            sb.append((char)ch);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Stream over a buffer so that the parser can read parts of the mapped
+     * file without a copy.
+     */
+    private static class BufferInputStream extends InputStream
+    {
+        /** The bytes to read */
+        private final ByteBuffer data;
+
+        /**
+         * Create a stream that reads from the position to the limit of the
+         * buffer.
+         *
+         * @param data The bytes to read
+         */
+        BufferInputStream(ByteBuffer data)
+        {
+            this.data = data;
+        }
+
+        @Override
+        public int read()
+        {
+            return data.hasRemaining() ? (data.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if(len == 0)
+                return 0;
+
+            if(!data.hasRemaining())
+                return -1;
+
+            int num = Math.min(len, data.remaining());
+            data.get(b, off, num);
+
+            return num;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            int num = (int)Math.max(0, Math.min(n, data.remaining()));
+            data.position(data.position() + num);
+
+            return num;
+        }
+
+        @Override
+        public int available()
+        {
+            return data.remaining();
+        }
+    }
+}
@@ -48,6 +48,9 @@ public class MaxParser
     /** The version of the mesh structures we're reading */
     private int releaseVersion;
 
+    /** Flag to skip over the named object chunks without decoding them */
+    private boolean skipNamedObjects;
+
     /**
      * Construct a new parser with no stream set.
      */
@@ -107,6 +110,46 @@ public class MaxParser
         return decodedMesh;
     }
 
+    /**
+     * Set whether the named object chunks should be skipped. Used by the
+     * {@link MaxChunkReader} to read everything else in the file while it
+     * decodes the objects itself. The resulting mesh has no blocks.
+     *
+     * @param skip true to skip the named objects
+     */
+    void setSkipNamedObjects(boolean skip)
+    {
+        skipNamedObjects = skip;
+    }
+
+    /**
+     * Read a single light or camera chunk of a named object from the current
+     * position of the stream. The chunk header must already have been read.
+     *
+     * @param type The ID of the chunk
+     * @param bytesToRead number of bytes requiring processing
+     * @param data The object block to put the light or camera into
+     * @throws IOException The chunk is not a light or camera
+     */
+    void readObjectChunk(int type, int bytesToRead, ObjectBlock data)
+        throws IOException
+    {
+        switch(type)
+        {
+            case MaxConstants.N_DIRECTIONAL_LIGHT:
+                readLightBlock(bytesToRead, data);
+                break;
+
+            case MaxConstants.N_CAMERA:
+                readCameraBlock(bytesToRead, data);
+                break;
+
+            default:
+                throw new IOException("Not a light or camera chunk 0x" +
+                                      Integer.toHexString(type));
+        }
+    }
+
     /**
      * Do all the parsing work. Convenience method for all to call internally
      *
@@ -206,7 +249,10 @@ public class MaxParser
             switch(type)
             {
                 case MaxConstants.NAMED_OBJECT:
-                    readObjectBlock(size - 6, data);
+                    if(skipNamedObjects)
+                        skipBytes(size - 6);
+                    else
+                        readObjectBlock(size - 6, data);
                     break;
 
                 case MaxConstants.MATERIAL_BLOCK:
@@ -0,0 +1,292 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.ldraw;
+
+// External imports
+// None
+
+// Local parser
+// None
+
+/**
+ * Immutable, fully flattened geometry of an LDraw file with all of its
+ * subfile references expanded into the file's own coordinate space.
+ * <p>
+ *
+ * Quads are split into triangles and all triangles are wound counter
+ * clockwise. Each triangle and line keeps the LDraw colour index it was
+ * declared with. The main colour, index 16, and the edge colour, index 24,
+ * are left in place so that the same geometry can be shared by every
+ * reference to the file and coloured as each reference is instantiated.
+ * Optional lines are not included.
+ * <p>
+ *
+ * Instances never change after creation, so they may be freely shared
+ * between threads. The accessors copy the data into user supplied arrays.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class LDrawGeometry
+{
+    /** The LDraw index of the colour inherited from the referencing file */
+    public static final int MAIN_COLOR = 16;
+
+    /** The LDraw index of the edge colour of the inherited main colour */
+    public static final int EDGE_COLOR = 24;
+
+    /** Geometry that has nothing in it */
+    static final LDrawGeometry EMPTY =
+        new LDrawGeometry(new float[0], new int[0], new float[0], new int[0]);
+
+    /** Triangle vertices, 9 floats per triangle */
+    private final float[] triangleCoords;
+
+    /** The colour index of each triangle */
+    private final int[] triangleColors;
+
+    /** Line end points, 6 floats per line */
+    private final float[] lineCoords;
+
+    /** The colour index of each line */
+    private final int[] lineColors;
+
+    /**
+     * Create geometry that takes ownership of the given arrays. The caller
+     * must not change them afterwards.
+     *
+     * @param triCoords Triangle vertices, 9 floats per triangle
+     * @param triColors The colour index of each triangle
+     * @param lnCoords Line end points, 6 floats per line
+     * @param lnColors The colour index of each line
+     */
+    LDrawGeometry(float[] triCoords,
+                  int[] triColors,
+                  float[] lnCoords,
+                  int[] lnColors)
+    {
+        triangleCoords = triCoords;
+        triangleColors = triColors;
+        lineCoords = lnCoords;
+        lineColors = lnColors;
+    }
+
+    //------------------------------------------------------------------------
+    // Methods defined by Object
+    //------------------------------------------------------------------------
+
+    @Override
+    public String toString()
+    {
+        StringBuilder bldr = new StringBuilder("LDraw Geometry ");
+        bldr.append(triangleColors.length);
+        bldr.append(" triangles ");
+        bldr.append(lineColors.length);
+        bldr.append(" lines");
+
+        return bldr.toString();
+    }
+
+    //------------------------------------------------------------------------
+    // Local Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Get the number of triangles in the geometry.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public int getTriangleCount()
+    {
+        return triangleColors.length;
+    }
+
+    /**
+     * Get the number of lines in the geometry.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public int getLineCount()
+    {
+        return lineColors.length;
+    }
+
+    /**
+     * Copy the triangle vertices into the given array, 9 values per
+     * triangle.
+     *
+     * @param coords An array at least 9 * getTriangleCount() long
+     */
+    public void getTriangleCoordinates(float[] coords)
+    {
+        System.arraycopy(triangleCoords, 0, coords, 0, triangleCoords.length);
+    }
+
+    /**
+     * Copy the LDraw colour index of each triangle into the given array.
+     *
+     * @param colors An array at least getTriangleCount() long
+     */
+    public void getTriangleColors(int[] colors)
+    {
+        System.arraycopy(triangleColors, 0, colors, 0, triangleColors.length);
+    }
+
+    /**
+     * Copy the line end points into the given array, 6 values per line.
+     *
+     * @param coords An array at least 6 * getLineCount() long
+     */
+    public void getLineCoordinates(float[] coords)
+    {
+        System.arraycopy(lineCoords, 0, coords, 0, lineCoords.length);
+    }
+
+    /**
+     * Copy the LDraw colour index of each line into the given array.
+     *
+     * @param colors An array at least getLineCount() long
+     */
+    public void getLineColors(int[] colors)
+    {
+        System.arraycopy(lineColors, 0, colors, 0, lineColors.length);
+    }
+
+    /**
+     * Create an instance of this geometry placed by a file reference. The
+     * vertices are transformed by the matrix, main colour entries take the
+     * given colour and the winding is flipped if the matrix mirrors the
+     * geometry or the reference was inverted, but not both.
+     *
+     * @param matrix Row major 4x4 transformation matrix of the reference
+     * @param color The colour index of the reference
+     * @param invert true if the reference was marked with BFC INVERTNEXT
+     * @return A new geometry instance in the referencing file's space
+     */
+    public LDrawGeometry transform(double[] matrix, int color, boolean invert)
+    {
+        int num_tris = triangleColors.length;
+        int num_lines = lineColors.length;
+
+        float[] tri_coords = new float[num_tris * 9];
+        int[] tri_colors = new int[num_tris];
+        float[] ln_coords = new float[num_lines * 6];
+        int[] ln_colors = new int[num_lines];
+
+        copyInto(matrix,
+                 color,
+                 invert,
+                 tri_coords,
+                 tri_colors,
+                 0,
+                 ln_coords,
+                 ln_colors,
+                 0);
+
+        return new LDrawGeometry(tri_coords, tri_colors, ln_coords, ln_colors);
+    }
+
+    /**
+     * Transformed copy of this geometry into the arrays of the geometry
+     * being built for a referencing file.
+     *
+     * @param matrix Row major 4x4 transformation matrix of the reference
+     * @param color The colour index of the reference
+     * @param invert true if the reference was marked with BFC INVERTNEXT
+     * @param triCoords The array to write triangle vertices to
+     * @param triColors The array to write triangle colours to
+     * @param triOffset The index of the first triangle to write
+     * @param lnCoords The array to write line end points to
+     * @param lnColors The array to write line colours to
+     * @param lnOffset The index of the first line to write
+     */
+    void copyInto(double[] matrix,
+                  int color,
+                  boolean invert,
+                  float[] triCoords,
+                  int[] triColors,
+                  int triOffset,
+                  float[] lnCoords,
+                  int[] lnColors,
+                  int lnOffset)
+    {
+        double det =
+            matrix[0] * (matrix[5] * matrix[10] - matrix[6] * matrix[9]) -
+            matrix[1] * (matrix[4] * matrix[10] - matrix[6] * matrix[8]) +
+            matrix[2] * (matrix[4] * matrix[9] - matrix[5] * matrix[8]);
+
+        boolean flip = (det < 0) != invert;
+
+        int num_tris = triangleColors.length;
+
+        for(int i = 0; i < num_tris; i++)
+        {
+            int src = i * 9;
+            int dest = (triOffset + i) * 9;
+
+            transformPoint(matrix, triangleCoords, src, triCoords, dest);
+
+            if(flip)
+            {
+                transformPoint(matrix, triangleCoords, src + 6, triCoords, dest + 3);
+                transformPoint(matrix, triangleCoords, src + 3, triCoords, dest + 6);
+            }
+            else
+            {
+                transformPoint(matrix, triangleCoords, src + 3, triCoords, dest + 3);
+                transformPoint(matrix, triangleCoords, src + 6, triCoords, dest + 6);
+            }
+
+            int c = triangleColors[i];
+            triColors[triOffset + i] = (c == MAIN_COLOR) ? color : c;
+        }
+
+        int num_lines = lineColors.length;
+
+        for(int i = 0; i < num_lines; i++)
+        {
+            int src = i * 6;
+            int dest = (lnOffset + i) * 6;
+
+            transformPoint(matrix, lineCoords, src, lnCoords, dest);
+            transformPoint(matrix, lineCoords, src + 3, lnCoords, dest + 3);
+
+            int c = lineColors[i];
+            lnColors[lnOffset + i] = (c == MAIN_COLOR) ? color : c;
+        }
+    }
+
+    /**
+     * Transform a single point by a row major matrix.
+     *
+     * @param matrix Row major 4x4 transformation matrix
+     * @param src The array holding the point to transform
+     * @param srcIdx The index of the point's x value
+     * @param dest The array to write the transformed point to
+     * @param destIdx The index to write the transformed x value to
+     */
+    private static void transformPoint(double[] matrix,
+                                       float[] src,
+                                       int srcIdx,
+                                       float[] dest,
+                                       int destIdx)
+    {
+        double x = src[srcIdx];
+        double y = src[srcIdx + 1];
+        double z = src[srcIdx + 2];
+
+        dest[destIdx] =
+            (float)(matrix[0] * x + matrix[1] * y + matrix[2] * z + matrix[3]);
+        dest[destIdx + 1] =
+            (float)(matrix[4] * x + matrix[5] * y + matrix[6] * z + matrix[7]);
+        dest[destIdx + 2] =
+            (float)(matrix[8] * x + matrix[9] * y + matrix[10] * z + matrix[11]);
+    }
+}
@@ -219,6 +219,14 @@ public class LDrawParser
         STD_OFFICIAL_HEADERS.add(NAME_HEADER);
         STD_OFFICIAL_HEADERS.add(BFC_HEADER);
         STD_OFFICIAL_HEADERS.add(LDRAW_HEADER);
+
+        // The colours register themselves with LDrawColor as each class is
+        // loaded, so make sure that has happened before the first lookup.
+        LDrawStdColor.INTERNAL_16.getIndex();
+        LDrawOtherColor.CHROME_60.getIndex();
+        LDrawGlitterColor.GLITTER_114.getIndex();
+        LDrawMilkyColor.MILKY_21.getIndex();
+        LDrawSpeckleColor.SPECKLE_75.getIndex();
     }
 
     /**
@@ -1189,6 +1197,7 @@ public class LDrawParser
         strtok.wordChars(1, 127);
         strtok.eolIsSignificant(true);
         strtok.whitespaceChars('\r', '\r');
+        strtok.whitespaceChars('\n', '\n');
 
         String last_word = null;
 
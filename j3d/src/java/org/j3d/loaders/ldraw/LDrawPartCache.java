@@ -0,0 +1,943 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.ldraw;
+
+// External imports
+import java.io.*;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Local parser
+import org.j3d.util.DefaultErrorReporter;
+import org.j3d.util.ErrorReporter;
+import org.j3d.util.I18nManager;
+
+/**
+ * Loader service that reads each LDraw subfile once and shares the flattened
+ * result between every reference to it.
+ * <p>
+ *
+ * {@link LDrawParser} hands file references to the observer without
+ * following them, so a model built from thousands of bricks would otherwise
+ * read and parse the same brick and stud files thousands of times. This
+ * class resolves references against a list of search directories, parses
+ * each distinct file once and caches it as immutable
+ * {@link LDrawGeometry}. Loading happens one level of the reference tree at
+ * a time, with all the distinct files of a level parsed concurrently.
+ * <p>
+ *
+ * <b>Caching</b>
+ * <p>
+ *
+ * Cached geometry is keyed by the file name and the colour it was built
+ * with. The shared copy of each file keeps the main colour, index 16, as a
+ * placeholder so a single copy serves every reference. A copy with the main
+ * colour replaced can be asked for with {@link #getPart(String, int)} and is
+ * cached separately. File names are matched case insensitively and either
+ * slash may be used as the path separator, as references in LDraw files
+ * do. A reference that cannot be found or read is reported to the error
+ * reporter and left out of the geometry. So is a reference back to a file
+ * that is already being expanded.
+ * <p>
+ *
+ * <b>Statistics</b>
+ * <p>
+ *
+ * Each time a file is expanded, every distinct file it references is
+ * looked up in the cache once. The number of those lookups found in the
+ * cache and the number that had to be built are available, along with the
+ * number of files actually read.
+ * <p>
+ *
+ * All the methods may be called from multiple threads at once.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class LDrawPartCache
+{
+    /** Message when a referenced file cannot be found on the search path */
+    private static final String MISSING_FILE_PROP =
+        "org.j3d.loaders.ldraw.LDrawPartCache.missingFileMsg";
+
+    /** Message when a referenced file failed to load */
+    private static final String LOAD_FAILED_PROP =
+        "org.j3d.loaders.ldraw.LDrawPartCache.loadFailedMsg";
+
+    /** Message when a file ends up referencing itself */
+    private static final String RECURSIVE_REF_PROP =
+        "org.j3d.loaders.ldraw.LDrawPartCache.recursiveRefMsg";
+
+    /** Identity matrix used when only the colour of a part changes */
+    private static final double[] IDENTITY_MATRIX =
+    {
+        1, 0, 0, 0,
+        0, 1, 0, 0,
+        0, 0, 1, 0,
+        0, 0, 0, 1
+    };
+
+    /** The directories searched, in order, for referenced files */
+    private final List<File> searchPath;
+
+    /** Parsed, but not yet flattened, files by normalised name */
+    private final ConcurrentHashMap<String, CompletableFuture<FileContents>> parsedFiles;
+
+    /** Flattened geometry by name and colour */
+    private final ConcurrentHashMap<PartKey, LDrawGeometry> geometryCache;
+
+    /** Number of lookups found in the geometry cache */
+    private final AtomicLong hitCount;
+
+    /** Number of lookups that had to build the geometry */
+    private final AtomicLong missCount;
+
+    /** Number of files read from the search path */
+    private final AtomicLong parseCount;
+
+    /** Reporter instance for messages */
+    private volatile ErrorReporter errorReporter;
+
+    /**
+     * Key of a flattened file in the geometry cache.
+     */
+    private static final class PartKey
+    {
+        /** Normalised file name */
+        private final String name;
+
+        /** The colour index the main colour is replaced with */
+        private final int color;
+
+        /**
+         * Create a key for the name and colour.
+         *
+         * @param name Normalised file name
+         * @param color The colour index the main colour is replaced with
+         */
+        PartKey(String name, int color)
+        {
+            this.name = name;
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof PartKey))
+                return false;
+
+            PartKey key = (PartKey)o;
+
+            return color == key.color && name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return name.hashCode() * 31 + color;
+        }
+    }
+
+    /**
+     * A file reference read from a file, before it has been resolved.
+     */
+    private static final class Reference
+    {
+        /** Normalised name of the referenced file */
+        private final String name;
+
+        /** Row major transformation matrix */
+        private final double[] matrix;
+
+        /** The colour index to render the referenced file in */
+        private final int color;
+
+        /** True if the winding is to be inverted */
+        private final boolean invert;
+
+        /**
+         * Create a reference from the parsed details.
+         *
+         * @param name Normalised name of the referenced file
+         * @param matrix Row major transformation matrix
+         * @param color The colour index to render the referenced file in
+         * @param invert True if the winding is to be inverted
+         */
+        Reference(String name, double[] matrix, int color, boolean invert)
+        {
+            this.name = name;
+            this.matrix = matrix;
+            this.color = color;
+            this.invert = invert;
+        }
+    }
+
+    /**
+     * The primitives and references of a single file, collected from the
+     * parser and converted to arrays at the end.
+     */
+    private static final class FileContents implements LDrawParseObserver
+    {
+        /** Triangle vertices, 9 per triangle */
+        private float[] triangleCoords;
+
+        /** Colour index of each triangle */
+        private int[] triangleColors;
+
+        /** Line end points, 6 per line */
+        private float[] lineCoords;
+
+        /** Colour index of each line */
+        private int[] lineColors;
+
+        /** The references in the order read */
+        private final List<Reference> references;
+
+        /** Distinct names of the referenced files */
+        private final Set<String> referencedNames;
+
+        /** The triangles and quads as read */
+        private List<LDrawRenderable> polygons;
+
+        /** True for each polygon wound clockwise */
+        private BitSet clockwise;
+
+        /** The lines as read */
+        private List<LDrawLine> lines;
+
+        /** Current winding direction of the file */
+        private boolean ccw;
+
+        /** The number of triangles after splitting quads */
+        private int numTriangles;
+
+        /**
+         * Create an empty set of contents.
+         */
+        FileContents()
+        {
+            references = new ArrayList<>();
+            referencedNames = new LinkedHashSet<>();
+            polygons = new ArrayList<>();
+            clockwise = new BitSet();
+            lines = new ArrayList<>();
+            ccw = true;
+        }
+
+        //--------------------------------------------------------------------
+        // Methods defined by LDrawParseObserver
+        //--------------------------------------------------------------------
+
+        @Override
+        public boolean header(LDrawHeader hdr)
+        {
+            ccw = hdr.isCCW();
+            return true;
+        }
+
+        @Override
+        public boolean bfcStatement(boolean ccw, boolean cull)
+        {
+            this.ccw = ccw;
+            return true;
+        }
+
+        @Override
+        public boolean fileReference(LDrawFileReference ref)
+        {
+            String name = normaliseName(ref.getReference());
+
+            if(name.isEmpty())
+                return true;
+
+            references.add(new Reference(name,
+                                         ref.getMatrix(),
+                                         colorIndex(ref),
+                                         ref.isInvertedWinding()));
+            referencedNames.add(name);
+
+            return true;
+        }
+
+        @Override
+        public boolean renderable(LDrawRenderable rend)
+        {
+            if(rend instanceof LDrawLine)
+            {
+                lines.add((LDrawLine)rend);
+            }
+            else
+            {
+                if(!ccw)
+                    clockwise.set(polygons.size());
+
+                polygons.add(rend);
+                numTriangles += (rend instanceof LDrawQuad) ? 2 : 1;
+            }
+
+            return true;
+        }
+
+        //--------------------------------------------------------------------
+        // Local Methods
+        //--------------------------------------------------------------------
+
+        /**
+         * Convert the collected primitives to arrays, with all polygons wound
+         * counter clockwise, and release the parser objects.
+         */
+        void complete()
+        {
+            triangleCoords = new float[numTriangles * 9];
+            triangleColors = new int[numTriangles];
+
+            int tri = 0;
+
+            for(int i = 0; i < polygons.size(); i++)
+            {
+                LDrawRenderable poly = polygons.get(i);
+                int color = colorIndex(poly);
+                boolean cw = clockwise.get(i);
+
+                double[] p1 = poly.getStartPoint();
+                double[] p2;
+                double[] p3;
+                double[] p4 = null;
+
+                if(poly instanceof LDrawQuad)
+                {
+                    LDrawQuad quad = (LDrawQuad)poly;
+                    p2 = quad.getMiddlePoint1();
+                    p3 = quad.getMiddlePoint2();
+                    p4 = quad.getEndPoint();
+                }
+                else
+                {
+                    p2 = ((LDrawTriangle)poly).getMiddlePoint();
+                    p3 = poly.getEndPoint();
+                }
+
+                tri = addTriangle(tri, color, cw, p1, p2, p3);
+
+                if(p4 != null)
+                    tri = addTriangle(tri, color, cw, p1, p3, p4);
+            }
+
+            lineCoords = new float[lines.size() * 6];
+            lineColors = new int[lines.size()];
+
+            for(int i = 0; i < lines.size(); i++)
+            {
+                LDrawLine line = lines.get(i);
+
+                copyPoint(line.getStartPoint(), lineCoords, i * 6);
+                copyPoint(line.getEndPoint(), lineCoords, i * 6 + 3);
+                lineColors[i] = colorIndex(line);
+            }
+
+            polygons = null;
+            clockwise = null;
+            lines = null;
+        }
+
+        /**
+         * Write a single triangle to the arrays.
+         *
+         * @param tri The index of the triangle to write
+         * @param color The colour index of the triangle
+         * @param cw true if the points are wound clockwise
+         * @param p1 The first point
+         * @param p2 The second point
+         * @param p3 The third point
+         * @return The index of the next triangle
+         */
+        private int addTriangle(int tri,
+                                int color,
+                                boolean cw,
+                                double[] p1,
+                                double[] p2,
+                                double[] p3)
+        {
+            copyPoint(p1, triangleCoords, tri * 9);
+            copyPoint(cw ? p3 : p2, triangleCoords, tri * 9 + 3);
+            copyPoint(cw ? p2 : p3, triangleCoords, tri * 9 + 6);
+            triangleColors[tri] = color;
+
+            return tri + 1;
+        }
+
+        /**
+         * Copy a point into a float array.
+         *
+         * @param p The point to copy
+         * @param dest The array to copy to
+         * @param idx The index to write the x value to
+         */
+        private static void copyPoint(double[] p, float[] dest, int idx)
+        {
+            dest[idx] = (float)p[0];
+            dest[idx + 1] = (float)p[1];
+            dest[idx + 2] = (float)p[2];
+        }
+    }
+
+    /**
+     * Create a cache that looks for referenced files in the given
+     * directories, in the order given. For a standard LDraw library these
+     * are normally the <code>parts</code>, <code>p</code> and
+     * <code>models</code> directories.
+     *
+     * @param dirs The directories to search
+     */
+    public LDrawPartCache(File... dirs)
+    {
+        searchPath = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(dirs)));
+        parsedFiles = new ConcurrentHashMap<>();
+        geometryCache = new ConcurrentHashMap<>();
+        hitCount = new AtomicLong();
+        missCount = new AtomicLong();
+        parseCount = new AtomicLong();
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+    }
+
+    //------------------------------------------------------------------------
+    // Local Methods
+    //------------------------------------------------------------------------
+
+    /**
+     * Register an error reporter with the engine so that any errors generated
+     * by the loading internals can be reported in a nice, pretty fashion.
+     * Setting a value of null will clear the currently set reporter. If one
+     * is already set, the new value replaces the old.
+     *
+     * @param reporter The instance to use or null
+     */
+    public void setErrorReporter(ErrorReporter reporter)
+    {
+        if(reporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
+        else
+            errorReporter = reporter;
+    }
+
+    /**
+     * Get the directories searched for referenced files.
+     *
+     * @return An unmodifiable list of the directories
+     */
+    public List<File> getSearchPath()
+    {
+        return searchPath;
+    }
+
+    /**
+     * Load a model file and flatten it, along with everything it references,
+     * into a single piece of geometry. The model file itself is read from
+     * the given location and is not cached, but everything it references is.
+     *
+     * @param file The model file to read
+     * @return The flattened geometry of the model
+     * @throws IOException The model file could not be read
+     */
+    public LDrawGeometry loadModel(File file) throws IOException
+    {
+        FileContents contents;
+
+        try(InputStream is = new FileInputStream(file))
+        {
+            contents = parse(is);
+        }
+
+        preload(contents.referencedNames);
+
+        return build(contents, Collections.<String>emptySet());
+    }
+
+    /**
+     * Get the flattened geometry of a file on the search path, with the main
+     * colour left as a placeholder. Loads the file, and everything it
+     * references, the first time it is asked for.
+     *
+     * @param name The file name, as it would appear in a file reference
+     * @return The shared geometry of the file
+     * @throws FileNotFoundException The file is not on the search path
+     * @throws IOException The file could not be read
+     */
+    public LDrawGeometry getPart(String name) throws IOException
+    {
+        String key = normaliseName(name);
+
+        LDrawGeometry geom = geometryCache.get(new PartKey(key, LDrawGeometry.MAIN_COLOR));
+
+        if(geom != null)
+        {
+            hitCount.incrementAndGet();
+            return geom;
+        }
+
+        // Make sure the file itself loads so its error can be thrown
+        CompletableFuture<FileContents> future = requestParse(key);
+
+        try
+        {
+            future.join();
+        }
+        catch(CompletionException ce)
+        {
+            Throwable cause = ce.getCause();
+
+            if(cause instanceof IOException)
+                throw (IOException)cause;
+
+            throw ce;
+        }
+
+        preload(Collections.singleton(key));
+
+        geom = flatten(key, Collections.<String>emptySet());
+
+        return (geom == null) ? LDrawGeometry.EMPTY : geom;
+    }
+
+    /**
+     * Get the flattened geometry of a file on the search path, with the main
+     * colour replaced by the given colour. Each combination of file and
+     * colour is built once from the shared geometry of the file.
+     *
+     * @param name The file name, as it would appear in a file reference
+     * @param color The LDraw colour index to use for the main colour
+     * @return The geometry of the file in that colour
+     * @throws FileNotFoundException The file is not on the search path
+     * @throws IOException The file could not be read
+     */
+    public LDrawGeometry getPart(String name, int color) throws IOException
+    {
+        if(color == LDrawGeometry.MAIN_COLOR)
+            return getPart(name);
+
+        PartKey key = new PartKey(normaliseName(name), color);
+        LDrawGeometry geom = geometryCache.get(key);
+
+        if(geom != null)
+        {
+            hitCount.incrementAndGet();
+            return geom;
+        }
+
+        missCount.incrementAndGet();
+
+        geom = getPart(name).transform(IDENTITY_MATRIX, color, false);
+
+        LDrawGeometry existing = geometryCache.putIfAbsent(key, geom);
+
+        return (existing != null) ? existing : geom;
+    }
+
+    /**
+     * Create an instance of the file that a reference points to, placed,
+     * coloured and wound as the reference says.
+     *
+     * @param ref The reference to instantiate
+     * @return Geometry in the space of the file holding the reference
+     * @throws FileNotFoundException The file is not on the search path
+     * @throws IOException The file could not be read
+     */
+    public LDrawGeometry instantiate(LDrawFileReference ref) throws IOException
+    {
+        LDrawGeometry part = getPart(ref.getReference());
+
+        return part.transform(ref.getMatrix(),
+                              colorIndex(ref),
+                              ref.isInvertedWinding());
+    }
+
+    /**
+     * Get the number of cache lookups that found geometry already built.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of cache lookups that had to build the geometry.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    /**
+     * Get the number of files that have been read from the search path.
+     * Model files passed to {@link #loadModel(File)} are not counted.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public long getFilesParsed()
+    {
+        return parseCount.get();
+    }
+
+    /**
+     * Get the number of pieces of geometry currently cached, counting each
+     * colour of a file separately.
+     *
+     * @return A value greater than or equal to zero
+     */
+    public int getCachedPartCount()
+    {
+        return geometryCache.size();
+    }
+
+    /**
+     * Throw away everything cached and reset the statistics. Files will be
+     * read again the next time they are needed.
+     */
+    public void clear()
+    {
+        parsedFiles.clear();
+        geometryCache.clear();
+        hitCount.set(0);
+        missCount.set(0);
+        parseCount.set(0);
+    }
+
+    /**
+     * Make sure the named files, and everything they reference, have been
+     * parsed. Works down the reference tree a level at a time, parsing all
+     * the new files of a level concurrently.
+     *
+     * @param names Normalised names of the files to start from
+     */
+    private void preload(Collection<String> names)
+    {
+        Set<String> seen = new HashSet<>(names);
+        List<String> level = new ArrayList<>(names);
+
+        while(!level.isEmpty())
+        {
+            List<CompletableFuture<FileContents>> futures = new ArrayList<>();
+
+            for(String name : level)
+                futures.add(requestParse(name));
+
+            List<String> next = new ArrayList<>();
+
+            for(CompletableFuture<FileContents> future : futures)
+            {
+                FileContents contents = getContents(future);
+
+                if(contents == null)
+                    continue;
+
+                for(String child : contents.referencedNames)
+                {
+                    if(seen.add(child))
+                        next.add(child);
+                }
+            }
+
+            level = next;
+        }
+    }
+
+    /**
+     * Start parsing a file if nobody has yet.
+     *
+     * @param name Normalised name of the file
+     * @return The parse in progress or already complete
+     */
+    private CompletableFuture<FileContents> requestParse(String name)
+    {
+        CompletableFuture<FileContents> future = parsedFiles.get(name);
+
+        if(future != null)
+            return future;
+
+        return parsedFiles.computeIfAbsent(name,
+            n -> CompletableFuture.supplyAsync(() -> parseSubfile(n)));
+    }
+
+    /**
+     * Locate and parse a file from the search path. Problems are reported
+     * here, once per file, and then passed on to whoever waits on the
+     * result.
+     *
+     * @param name Normalised name of the file
+     * @return The contents of the file
+     */
+    private FileContents parseSubfile(String name)
+    {
+        I18nManager intl_mgr = I18nManager.getManager();
+        File file = findFile(name);
+
+        if(file == null)
+        {
+            String msg_pattern = intl_mgr.getString(MISSING_FILE_PROP);
+            Object[] msg_args = { name };
+            MessageFormat msg_fmt = new MessageFormat(msg_pattern,
+                                                      intl_mgr.getFoundLocale());
+            String msg = msg_fmt.format(msg_args);
+
+            errorReporter.warningReport(msg, null);
+
+            throw new CompletionException(new FileNotFoundException(msg));
+        }
+
+        try(InputStream is = new FileInputStream(file))
+        {
+            FileContents contents = parse(is);
+            parseCount.incrementAndGet();
+
+            return contents;
+        }
+        catch(IOException | RuntimeException e)
+        {
+            String msg_pattern = intl_mgr.getString(LOAD_FAILED_PROP);
+            Object[] msg_args = { file };
+            MessageFormat msg_fmt = new MessageFormat(msg_pattern,
+                                                      intl_mgr.getFoundLocale());
+            String msg = msg_fmt.format(msg_args);
+
+            errorReporter.errorReport(msg, e);
+
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Parse a single file into its contents.
+     *
+     * @param is The stream to read the file from
+     * @return The contents of the file
+     * @throws IOException The stream could not be read
+     */
+    private FileContents parse(InputStream is) throws IOException
+    {
+        FileContents contents = new FileContents();
+
+        LDrawParser parser = new LDrawParser(new BufferedInputStream(is));
+        parser.setErrorReporter(errorReporter);
+        parser.setParseObserver(contents);
+
+        // The header is only passed to the observer when the data is kept
+        parser.parse(true);
+        parser.clear();
+
+        contents.complete();
+
+        return contents;
+    }
+
+    /**
+     * Get the flattened geometry of a parsed file, building it from the
+     * geometry of the files it references if not already cached.
+     *
+     * @param name Normalised name of the file
+     * @param ancestors Names of the files being expanded above this one
+     * @return The geometry, or null if the file could not be loaded
+     */
+    private LDrawGeometry flatten(String name, Set<String> ancestors)
+    {
+        PartKey key = new PartKey(name, LDrawGeometry.MAIN_COLOR);
+        LDrawGeometry geom = geometryCache.get(key);
+
+        if(geom != null)
+        {
+            hitCount.incrementAndGet();
+            return geom;
+        }
+
+        missCount.incrementAndGet();
+
+        FileContents contents = getContents(requestParse(name));
+
+        if(contents == null)
+            return null;
+
+        Set<String> path = new HashSet<>(ancestors);
+        path.add(name);
+
+        geom = build(contents, path);
+
+        LDrawGeometry existing = geometryCache.putIfAbsent(key, geom);
+
+        return (existing != null) ? existing : geom;
+    }
+
+    /**
+     * Combine the primitives of a file with instances of everything it
+     * references. The distinct referenced files are flattened concurrently.
+     *
+     * @param contents The parsed file
+     * @param ancestors Names of the files being expanded, including this one
+     * @return The flattened geometry
+     */
+    private LDrawGeometry build(FileContents contents, Set<String> ancestors)
+    {
+        List<String> names = new ArrayList<>(contents.referencedNames);
+        LDrawGeometry[] children = new LDrawGeometry[names.size()];
+
+        IntStream.range(0, children.length).parallel().forEach(i ->
+        {
+            String n = names.get(i);
+
+            if(ancestors.contains(n))
+            {
+                I18nManager intl_mgr = I18nManager.getManager();
+                String msg_pattern = intl_mgr.getString(RECURSIVE_REF_PROP);
+                Object[] msg_args = { n };
+                MessageFormat msg_fmt =
+                    new MessageFormat(msg_pattern, intl_mgr.getFoundLocale());
+                String msg = msg_fmt.format(msg_args);
+
+                errorReporter.warningReport(msg, null);
+            }
+            else
+            {
+                children[i] = flatten(n, ancestors);
+            }
+        });
+
+        Map<String, LDrawGeometry> geometry = new HashMap<>();
+
+        for(int i = 0; i < children.length; i++)
+        {
+            if(children[i] != null)
+                geometry.put(names.get(i), children[i]);
+        }
+
+        int num_tris = contents.triangleColors.length;
+        int num_lines = contents.lineColors.length;
+
+        for(Reference ref : contents.references)
+        {
+            LDrawGeometry child = geometry.get(ref.name);
+
+            if(child != null)
+            {
+                num_tris += child.getTriangleCount();
+                num_lines += child.getLineCount();
+            }
+        }
+
+        float[] tri_coords = Arrays.copyOf(contents.triangleCoords, num_tris * 9);
+        int[] tri_colors = Arrays.copyOf(contents.triangleColors, num_tris);
+        float[] ln_coords = Arrays.copyOf(contents.lineCoords, num_lines * 6);
+        int[] ln_colors = Arrays.copyOf(contents.lineColors, num_lines);
+
+        int tri = contents.triangleColors.length;
+        int line = contents.lineColors.length;
+
+        for(Reference ref : contents.references)
+        {
+            LDrawGeometry child = geometry.get(ref.name);
+
+            if(child == null)
+                continue;
+
+            child.copyInto(ref.matrix,
+                           ref.color,
+                           ref.invert,
+                           tri_coords,
+                           tri_colors,
+                           tri,
+                           ln_coords,
+                           ln_colors,
+                           line);
+
+            tri += child.getTriangleCount();
+            line += child.getLineCount();
+        }
+
+        return new LDrawGeometry(tri_coords, tri_colors, ln_coords, ln_colors);
+    }
+
+    /**
+     * Wait for a parse to finish. Failures have already been reported by
+     * the parse itself.
+     *
+     * @param future The parse to wait for
+     * @return The contents of the file or null if it failed
+     */
+    private static FileContents getContents(CompletableFuture<FileContents> future)
+    {
+        try
+        {
+            return future.join();
+        }
+        catch(CompletionException ce)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Find a file on the search path. The name is already in lower case,
+     * which is how the official library is distributed.
+     *
+     * @param name Normalised name of the file
+     * @return The file found or null if there isn't one
+     */
+    private File findFile(String name)
+    {
+        String path = name.replace('/', File.separatorChar);
+
+        for(File dir : searchPath)
+        {
+            File file = new File(dir, path);
+
+            if(file.isFile())
+                return file;
+        }
+
+        return null;
+    }
+
+    /**
+     * Turn a reference name into the form used as the cache key. Surrounding
+     * spaces are removed, backslashes become forward slashes and the name is
+     * put in lower case.
+     *
+     * @param name The name as read from a file reference
+     * @return The normalised name
+     */
+    private static String normaliseName(String name)
+    {
+        if(name == null)
+            return "";
+
+        return name.trim().replace('\\', '/').toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Get the LDraw colour index of a part. Colours the parser does not know
+     * about are treated as the main colour.
+     *
+     * @param part The part to get the colour of
+     * @return The colour index
+     */
+    private static int colorIndex(LDrawColoredPart part)
+    {
+        LDrawColor color = part.getColor();
+
+        return (color == null) ? LDrawGeometry.MAIN_COLOR : color.getIndex();
+    }
+}
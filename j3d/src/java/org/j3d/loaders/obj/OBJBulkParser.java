@@ -0,0 +1,1221 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.obj;
+
+// External imports
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.loaders.InvalidFormatException;
+import org.j3d.util.I18nManager;
+
+/**
+ * Parser of OBJ files that splits the file into large chunks and tokenizes
+ * the chunks in parallel, for multi-gigabyte files where the line by line
+ * parsing of {@link OBJFileReader} is too slow.
+ * <p>
+ *
+ * The file is cut into chunks at line ends, taking care not to break a
+ * statement continued with a backslash. Each chunk is read with a single
+ * positioned read and scanned as bytes, with the vertices, normals, texture
+ * coordinates and faces collected into primitive arrays of its own. Once
+ * every chunk is done, the chunk results are offset by the counts of the
+ * chunks before them and copied in parallel into one {@link GeometryData}.
+ * Relative (negative) indices are resolved against the vertices read before
+ * the face, as they are by the line by line parser.
+ * <p>
+ *
+ * Unlike {@link OBJFileReader}, which returns one geometry for each object,
+ * the whole file is returned as one geometry. Object, group, smoothing and
+ * material statements are ignored. Texture coordinate and normal indices are
+ * only returned if every face vertex has them.
+ * <p>
+ *
+ * Numbers are decoded directly from the bytes when they are simple decimals
+ * that can be converted exactly, and by <code>Double.parseDouble</code>
+ * otherwise, so that the values match those of the line by line parser.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ * @see OBJFileReader
+ */
+public class OBJBulkParser
+{
+    /** The number of bytes scanned by one task if not told otherwise */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /** Max number of unsupported messages before we go silent */
+    private static final int UNSUPPORTED_MAX_MSGS = 10;
+
+    /** The number of bytes read when looking for a line end */
+    private static final int SCAN_SIZE = 4096;
+
+    /** The largest mantissa that is exactly held by a double */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /** Powers of ten that are exactly held by a double */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Unexpected data is encountered during parsing */
+    private static final String INVALID_NORMAL_DATA_MSG_PROP =
+        "org.j3d.loaders.stl.OBJASCIIParser.invalidNormalDataMsg";
+
+    /** Unexpected data is encountered during parsing */
+    private static final String INVALID_VERTEX_DATA_MSG_PROP =
+        "org.j3d.loaders.stl.OBJASCIIParser.invalidVertexDataMsg";
+
+    /** Unexpected data is encountered during parsing */
+    private static final String INVALID_FACE_DATA_MSG_PROP =
+        "org.j3d.loaders.stl.OBJASCIIParser.invalidFaceDataMsg";
+
+    /**
+     * Exception used to carry a format error out of a parallel task.
+     */
+    private static class ChunkFormatException extends RuntimeException
+    {
+        /** Version ID for serialization */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Wrap a format error.
+         *
+         * @param cause The error found
+         */
+        ChunkFormatException(InvalidFormatException cause)
+        {
+            super(cause);
+        }
+    }
+
+    /**
+     * Growable array of float values.
+     */
+    private static class FloatList
+    {
+        /** The values */
+        float[] data = new float[1024];
+
+        /** The number of values used */
+        int size;
+
+        /**
+         * Add a value to the end of the list.
+         *
+         * @param value The value to add
+         */
+        void add(float value)
+        {
+            if(size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+
+            data[size++] = value;
+        }
+    }
+
+    /**
+     * Growable array of int values.
+     */
+    private static class IntList
+    {
+        /** The values */
+        int[] data = new int[1024];
+
+        /** The number of values used */
+        int size;
+
+        /**
+         * Add a value to the end of the list.
+         *
+         * @param value The value to add
+         */
+        void add(int value)
+        {
+            if(size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+
+            data[size++] = value;
+        }
+    }
+
+    /**
+     * The data read from one chunk of the file. Absolute indices are stored
+     * zero based. Relative indices are stored as an offset from the first
+     * item of the chunk, which may be negative, and their positions noted so
+     * they can be moved once the counts of the earlier chunks are known.
+     */
+    private static class Chunk
+    {
+        /** Position of the first byte of the chunk in the file */
+        final long start;
+
+        /** The number of bytes in the chunk */
+        final int length;
+
+        /** Vertex coordinates, 3 per vertex */
+        final FloatList coords = new FloatList();
+
+        /** Normals, 3 per normal */
+        final FloatList normals = new FloatList();
+
+        /** Texture coordinates, 2 per coordinate */
+        final FloatList texCoords = new FloatList();
+
+        /** The number of vertices in each face */
+        final IntList faceSizes = new IntList();
+
+        /** The coordinate index of each face vertex */
+        final IntList coordIndexes = new IntList();
+
+        /** The texture coordinate index of each face vertex, or -1 */
+        final IntList texCoordIndexes = new IntList();
+
+        /** The normal index of each face vertex, or -1 */
+        final IntList normalIndexes = new IntList();
+
+        /** Positions in coordIndexes of relative indices */
+        final IntList relativeCoords = new IntList();
+
+        /** Positions in texCoordIndexes of relative indices */
+        final IntList relativeTexCoords = new IntList();
+
+        /** Positions in normalIndexes of relative indices */
+        final IntList relativeNormals = new IntList();
+
+        /** The largest number of vertices in a face */
+        int maxFaceSize;
+
+        /** Some face vertex did not have a texture coordinate index */
+        boolean texCoordMissing;
+
+        /** Some face vertex did not have a normal index */
+        boolean normalMissing;
+
+        /** The number of unsupported geometry statements found */
+        int unsupportedCount;
+
+        /** The number of vertices in earlier chunks */
+        int coordBase;
+
+        /** The number of normals in earlier chunks */
+        int normalBase;
+
+        /** The number of texture coordinates in earlier chunks */
+        int texCoordBase;
+
+        /** The number of faces in earlier chunks */
+        int faceBase;
+
+        /** The number of face indices in earlier chunks */
+        int indexBase;
+
+        /**
+         * Create a chunk covering part of the file.
+         *
+         * @param start Position of the first byte of the chunk
+         * @param length The number of bytes in the chunk
+         */
+        Chunk(long start, int length)
+        {
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /** The number of bytes scanned by one task */
+    private int chunkSize;
+
+    /** Do we strictly parse or try harder */
+    private boolean strictParsing;
+
+    /** Detailed parsing messages or null if none */
+    private List<String> parsingMessages;
+
+    /**
+     * Create a new parser that parses loosely.
+     */
+    public OBJBulkParser()
+    {
+        this(false);
+    }
+
+    /**
+     * Create a new parser.
+     *
+     * @param strict Attempt to deal with crappy data or short downloads.
+     * Will try to return any usable geometry.
+     */
+    public OBJBulkParser(boolean strict)
+    {
+        strictParsing = strict;
+        chunkSize = DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Change the number of bytes scanned by one task. Smaller chunks spread
+     * the work better over the processors, but cost more to combine.
+     *
+     * @param size The number of bytes in a chunk
+     * @throws IllegalArgumentException The size is less than 1
+     */
+    public void setChunkSize(int size)
+    {
+        if(size < 1)
+            throw new IllegalArgumentException("Chunk size must be positive");
+
+        chunkSize = size;
+    }
+
+    /**
+     * Get the number of bytes scanned by one task.
+     *
+     * @return The chunk size
+     */
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Get detailed messages on what was wrong when parsing.  Only can happen
+     * when strictParsing is false.
+     *
+     * @return The list of messages or null if there were none
+     */
+    public List<String> getParsingMessages()
+    {
+        return parsingMessages;
+    }
+
+    /**
+     * Parse a whole file into a single geometry.
+     *
+     * @param file The file to read
+     * @return The geometry of the file, or null if it has no vertices
+     * @throws InvalidFormatException The file held bad data
+     * @throws IOException The file could not be read
+     */
+    public GeometryData parse(File file)
+        throws InvalidFormatException, IOException
+    {
+        parsingMessages = null;
+
+        Chunk[] chunks;
+
+        try(FileChannel channel =
+                FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            chunks = splitFile(channel);
+
+            try
+            {
+                IntStream.range(0, chunks.length).parallel().forEach(
+                    i -> readChunk(channel, chunks[i]));
+            }
+            catch(UncheckedIOException uioe)
+            {
+                throw uioe.getCause();
+            }
+            catch(ChunkFormatException cfe)
+            {
+                throw (InvalidFormatException)cfe.getCause();
+            }
+        }
+
+        return combine(chunks);
+    }
+
+    /**
+     * Cut the file into chunks that each end after a complete statement.
+     *
+     * @param channel The channel to the file
+     * @return The chunks covering the whole file
+     * @throws IOException The file could not be read
+     */
+    private Chunk[] splitFile(FileChannel channel) throws IOException
+    {
+        long length = channel.size();
+        List<Chunk> ret_val = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+
+        long start = 0;
+
+        while(start < length)
+        {
+            long end = start + chunkSize;
+
+            if(end >= length)
+            {
+                end = length;
+            }
+            else
+            {
+                // Look for a line end that does not continue the statement.
+                // The byte before the nominal end is included so a line end
+                // exactly at the boundary is seen.
+                long pos = end - 1;
+                int last_byte = ' ';
+                end = length;
+
+                search:
+                while(pos < length)
+                {
+                    buffer.clear();
+                    int read = channel.read(buffer, pos);
+
+                    if(read <= 0)
+                        break;
+
+                    for(int i = 0; i < read; i++)
+                    {
+                        int b = buffer.get(i);
+
+                        if(b == '\n' && last_byte != '\\')
+                        {
+                            end = pos + i + 1;
+                            break search;
+                        }
+
+                        if(b != '\r')
+                            last_byte = b;
+                    }
+
+                    pos += read;
+                }
+            }
+
+            long size = end - start;
+
+            if(size > Integer.MAX_VALUE)
+                throw new InvalidFormatException("Statement too long at " +
+                    "file position " + start);
+
+            ret_val.add(new Chunk(start, (int)size));
+            start = end;
+        }
+
+        return ret_val.toArray(new Chunk[ret_val.size()]);
+    }
+
+    /**
+     * Read and tokenize one chunk. Errors are wrapped in unchecked
+     * exceptions to get them out of the parallel stream.
+     *
+     * @param channel The channel to the file
+     * @param chunk The chunk to read
+     */
+    private void readChunk(FileChannel channel, Chunk chunk)
+    {
+        byte[] bytes = new byte[chunk.length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try
+        {
+            while(buffer.hasRemaining())
+            {
+                if(channel.read(buffer, chunk.start + buffer.position()) < 0)
+                    throw new IOException("File shrank while reading");
+            }
+
+            new Tokenizer(bytes, chunk).parse();
+        }
+        catch(InvalidFormatException ife)
+        {
+            throw new ChunkFormatException(ife);
+        }
+        catch(IOException ioe)
+        {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Combine the data of all the chunks into a single geometry.
+     *
+     * @param chunks The chunks read
+     * @return The combined geometry, or null if there were no vertices
+     * @throws InvalidFormatException An index was out of range
+     */
+    private GeometryData combine(final Chunk[] chunks)
+        throws InvalidFormatException
+    {
+        int num_coords = 0;
+        int num_normals = 0;
+        int num_tex_coords = 0;
+        int num_faces = 0;
+        long num_indexes = 0;
+        int max_face_size = 0;
+        int unsupported = 0;
+        boolean tex_missing = false;
+        boolean normal_missing = false;
+
+        for(Chunk c : chunks)
+        {
+            c.coordBase = num_coords;
+            c.normalBase = num_normals;
+            c.texCoordBase = num_tex_coords;
+            c.faceBase = num_faces;
+            c.indexBase = (int)num_indexes;
+
+            num_coords += c.coords.size / 3;
+            num_normals += c.normals.size / 3;
+            num_tex_coords += c.texCoords.size / 2;
+            num_faces += c.faceSizes.size;
+            num_indexes += c.coordIndexes.size;
+
+            max_face_size = Math.max(max_face_size, c.maxFaceSize);
+            unsupported += c.unsupportedCount;
+            tex_missing |= c.texCoordMissing;
+            normal_missing |= c.normalMissing;
+        }
+
+        if(num_indexes + num_faces > Integer.MAX_VALUE)
+            throw new InvalidFormatException("Too many face indices for a " +
+                "single geometry: " + num_indexes);
+
+        for(int i = 0; i < unsupported && i < UNSUPPORTED_MAX_MSGS; i++)
+            addMessage("Unsupported geometry: cstype");
+
+        if(num_coords == 0)
+            return null;
+
+        switch(max_face_size)
+        {
+            case 0:
+            case 1:
+                throw new InvalidFormatException("No valid lines or triangles found");
+        }
+
+        final GeometryData ret_val = new GeometryData();
+        ret_val.vertexCount = num_coords;
+        ret_val.indexesCount = (int)num_indexes;
+        ret_val.coordinates = new float[num_coords * 3];
+        ret_val.indexes = new int[(int)num_indexes + num_faces];
+
+        switch(max_face_size)
+        {
+            case 2:
+                ret_val.geometryType = GeometryData.INDEXED_LINES;
+                break;
+
+            case 3:
+                ret_val.geometryType = GeometryData.INDEXED_TRIANGLES;
+                break;
+
+            case 4:
+                ret_val.geometryType = GeometryData.INDEXED_QUADS;
+                break;
+
+            default:
+                ret_val.geometryType = GeometryData.INDEXED_POLYGONS;
+                break;
+        }
+
+        boolean use_normals = !normal_missing && num_normals > 0;
+        boolean use_tex_coords = !tex_missing && num_tex_coords > 0;
+
+        if(use_normals)
+            ret_val.normals = new float[num_normals * 3];
+
+        if(use_tex_coords)
+            ret_val.textureCoordinates = new float[num_tex_coords * 2];
+
+        final int total_coords = num_coords;
+        final int total_normals = num_normals;
+        final int total_tex_coords = num_tex_coords;
+        final boolean copy_normals = use_normals;
+        final boolean copy_tex_coords = use_tex_coords;
+
+        if(copy_normals)
+            ret_val.normalIndexes = new int[ret_val.indexes.length];
+
+        if(copy_tex_coords)
+            ret_val.texCoordIndexes = new int[ret_val.indexes.length];
+
+        // Each slot is set by the chunk that finds a bad index of that type
+        final boolean[] bad_index = new boolean[3];
+
+        IntStream.range(0, chunks.length).parallel().forEach(i ->
+        {
+            Chunk c = chunks[i];
+
+            System.arraycopy(c.coords.data, 0,
+                             ret_val.coordinates, c.coordBase * 3,
+                             c.coords.size);
+
+            if(!copyIndexes(c, c.coordIndexes, c.relativeCoords,
+                            c.coordBase, total_coords, ret_val.indexes))
+                bad_index[0] = true;
+
+            if(copy_normals)
+            {
+                System.arraycopy(c.normals.data, 0,
+                                 ret_val.normals, c.normalBase * 3,
+                                 c.normals.size);
+
+                if(!copyIndexes(c, c.normalIndexes, c.relativeNormals,
+                                c.normalBase, total_normals,
+                                ret_val.normalIndexes))
+                    bad_index[1] = true;
+            }
+
+            if(copy_tex_coords)
+            {
+                System.arraycopy(c.texCoords.data, 0,
+                                 ret_val.textureCoordinates,
+                                 c.texCoordBase * 2,
+                                 c.texCoords.size);
+
+                if(!copyIndexes(c, c.texCoordIndexes, c.relativeTexCoords,
+                                c.texCoordBase, total_tex_coords,
+                                ret_val.texCoordIndexes))
+                    bad_index[2] = true;
+            }
+        });
+
+        if(bad_index[0])
+            throw new InvalidFormatException("Coordinate index out of bounds");
+
+        if(bad_index[1])
+        {
+            if(strictParsing)
+                throw new InvalidFormatException("Normal index out of bounds");
+
+            addMessage("Normal index out of bounds, normals ignored");
+            ret_val.normals = null;
+            ret_val.normalIndexes = null;
+        }
+        else if(copy_normals)
+        {
+            ret_val.geometryComponents |= GeometryData.NORMAL_DATA;
+        }
+
+        if(bad_index[2])
+        {
+            if(strictParsing)
+                throw new InvalidFormatException("TextureCoordinate index out of bounds");
+
+            addMessage("TextureCoordinate index out of bounds, texture " +
+                       "coordinates ignored");
+            ret_val.textureCoordinates = null;
+            ret_val.texCoordIndexes = null;
+        }
+        else if(copy_tex_coords)
+        {
+            ret_val.geometryComponents |= GeometryData.TEXTURE_2D_DATA;
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Copy one set of face indices of a chunk into the combined array,
+     * resolving them against the items of the earlier chunks and adding a
+     * -1 after each face.
+     *
+     * @param chunk The chunk to copy from
+     * @param indexes The indices of the chunk
+     * @param relative The positions of relative indices
+     * @param base The number of items in earlier chunks
+     * @param total The number of items in all chunks
+     * @param dest The combined index array
+     * @return false if any index was out of range
+     */
+    private static boolean copyIndexes(Chunk chunk,
+                                       IntList indexes,
+                                       IntList relative,
+                                       int base,
+                                       int total,
+                                       int[] dest)
+    {
+        int[] src = indexes.data;
+
+        for(int i = 0; i < relative.size; i++)
+            src[relative.data[i]] += base;
+
+        int[] sizes = chunk.faceSizes.data;
+        int num_faces = chunk.faceSizes.size;
+        int in = 0;
+        int out = chunk.indexBase + chunk.faceBase;
+        boolean ok = true;
+
+        for(int i = 0; i < num_faces; i++)
+        {
+            int size = sizes[i];
+
+            for(int j = 0; j < size; j++)
+            {
+                int idx = src[in++];
+
+                if(idx < 0 || idx >= total)
+                    ok = false;
+
+                dest[out++] = idx;
+            }
+
+            dest[out++] = -1;
+        }
+
+        return ok;
+    }
+
+    /**
+     * Add a message to the list of parsing messages.
+     *
+     * @param msg The message to add
+     */
+    private void addMessage(String msg)
+    {
+        if(parsingMessages == null)
+            parsingMessages = new ArrayList<>();
+
+        parsingMessages.add(msg);
+    }
+
+    /**
+     * Scanner of the statements in one chunk of bytes.
+     */
+    private class Tokenizer
+    {
+        /** The bytes of the chunk */
+        private final byte[] bytes;
+
+        /** The chunk the results are written to */
+        private final Chunk chunk;
+
+        /** Start of the current token */
+        private int tokenStart;
+
+        /** End of the current token, exclusive */
+        private int tokenEnd;
+
+        /** Position of the next byte to scan */
+        private int pos;
+
+        /**
+         * Create a tokenizer for a chunk.
+         *
+         * @param bytes The bytes of the chunk
+         * @param chunk The chunk the results are written to
+         */
+        Tokenizer(byte[] bytes, Chunk chunk)
+        {
+            this.bytes = bytes;
+            this.chunk = chunk;
+        }
+
+        /**
+         * Parse every statement in the chunk.
+         *
+         * @throws InvalidFormatException A number could not be read
+         */
+        void parse() throws InvalidFormatException
+        {
+            int len = bytes.length;
+
+            while(pos < len)
+            {
+                if(!nextToken())
+                {
+                    // Blank line
+                    pos++;
+                    continue;
+                }
+
+                int start = tokenStart;
+                int size = tokenEnd - tokenStart;
+                byte first = bytes[start];
+
+                if(first == '#')
+                {
+                    // Comments end at the line end, whatever is on it
+                    while(pos < len && bytes[pos] != '\n')
+                        pos++;
+                }
+                else if(first == 'v' && size == 1)
+                {
+                    readValues(chunk.coords, 3, INVALID_VERTEX_DATA_MSG_PROP);
+                }
+                else if(first == 'v' && size == 2 && bytes[start + 1] == 'n')
+                {
+                    readValues(chunk.normals, 3, INVALID_NORMAL_DATA_MSG_PROP);
+                }
+                else if(first == 'v' && size == 2 && bytes[start + 1] == 't')
+                {
+                    readValues(chunk.texCoords, 2, INVALID_VERTEX_DATA_MSG_PROP);
+                }
+                else if(first == 'f' && size == 1)
+                {
+                    readFace();
+                }
+                else
+                {
+                    if(isKeyword("cstype"))
+                        chunk.unsupportedCount++;
+
+                    skipStatement();
+                }
+
+                // Step over the line end
+                pos++;
+            }
+        }
+
+        /**
+         * Find the next token of the current statement. A backslash before
+         * a line end continues the statement on the next line.
+         *
+         * @return false if the statement has no more tokens
+         */
+        private boolean nextToken()
+        {
+            int len = bytes.length;
+
+            while(pos < len)
+            {
+                byte b = bytes[pos];
+
+                if(b == ' ' || b == '\t' || b == '\r')
+                {
+                    pos++;
+                }
+                else if(b == '\\' && isContinuation(pos))
+                {
+                    // Move past the line end
+                    while(bytes[pos] != '\n')
+                        pos++;
+
+                    pos++;
+                }
+                else
+                {
+                    break;
+                }
+            }
+
+            if(pos >= len || bytes[pos] == '\n')
+                return false;
+
+            tokenStart = pos;
+
+            while(pos < len)
+            {
+                byte b = bytes[pos];
+
+                if(b == ' ' || b == '\t' || b == '\r' || b == '\n' ||
+                   (b == '\\' && isContinuation(pos)))
+                    break;
+
+                pos++;
+            }
+
+            tokenEnd = pos;
+
+            return true;
+        }
+
+        /**
+         * Check if a backslash is the last thing on its line.
+         *
+         * @param idx The position of the backslash
+         * @return true if only a line end follows it
+         */
+        private boolean isContinuation(int idx)
+        {
+            int len = bytes.length;
+            idx++;
+
+            if(idx < len && bytes[idx] == '\r')
+                idx++;
+
+            return idx < len && bytes[idx] == '\n';
+        }
+
+        /**
+         * Move to the line end of the current statement.
+         */
+        private void skipStatement()
+        {
+            while(nextToken())
+            {
+                // Nothing to do, just dropping tokens
+            }
+        }
+
+        /**
+         * Check if the current token is the given keyword.
+         *
+         * @param word The keyword to check
+         * @return true if it matches
+         */
+        private boolean isKeyword(String word)
+        {
+            if(tokenEnd - tokenStart != word.length())
+                return false;
+
+            for(int i = 0; i < word.length(); i++)
+            {
+                if(bytes[tokenStart + i] != word.charAt(i))
+                    return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Read a fixed number of values into a list. Missing values are set
+         * to 0 and extra values are ignored.
+         *
+         * @param list The list to add to
+         * @param num The number of values to read
+         * @param msgProp Property of the message used if a value is bad
+         * @throws InvalidFormatException A value could not be read
+         */
+        private void readValues(FloatList list, int num, String msgProp)
+            throws InvalidFormatException
+        {
+            for(int i = 0; i < num; i++)
+            {
+                if(nextToken())
+                    list.add((float)parseNumber(msgProp));
+                else
+                    list.add(0);
+            }
+
+            skipStatement();
+        }
+
+        /**
+         * Read the vertices of a face statement.
+         *
+         * @throws InvalidFormatException An index could not be read
+         */
+        private void readFace() throws InvalidFormatException
+        {
+            int size = 0;
+
+            int num_coords = chunk.coords.size / 3;
+            int num_normals = chunk.normals.size / 3;
+            int num_tex_coords = chunk.texCoords.size / 2;
+
+            while(nextToken())
+            {
+                int end = tokenEnd;
+                int slash1 = indexOf('/', tokenStart, end);
+                int slash2 = (slash1 < 0) ? -1 : indexOf('/', slash1 + 1, end);
+
+                int coord_end = (slash1 < 0) ? end : slash1;
+                readIndex(tokenStart, coord_end, num_coords,
+                          chunk.coordIndexes, chunk.relativeCoords);
+
+                int tex_end = (slash2 < 0) ? end : slash2;
+
+                if(slash1 >= 0 && tex_end > slash1 + 1)
+                {
+                    readIndex(slash1 + 1, tex_end, num_tex_coords,
+                              chunk.texCoordIndexes, chunk.relativeTexCoords);
+                }
+                else
+                {
+                    chunk.texCoordIndexes.add(-1);
+                    chunk.texCoordMissing = true;
+                }
+
+                if(slash2 >= 0 && end > slash2 + 1)
+                {
+                    readIndex(slash2 + 1, end, num_normals,
+                              chunk.normalIndexes, chunk.relativeNormals);
+                }
+                else
+                {
+                    chunk.normalIndexes.add(-1);
+                    chunk.normalMissing = true;
+                }
+
+                size++;
+            }
+
+            chunk.faceSizes.add(size);
+
+            if(size > chunk.maxFaceSize)
+                chunk.maxFaceSize = size;
+        }
+
+        /**
+         * Find a byte in a range of the chunk.
+         *
+         * @param b The byte to look for
+         * @param start The first position to look at
+         * @param end The end of the range, exclusive
+         * @return The position of the byte or -1 if not found
+         */
+        private int indexOf(int b, int start, int end)
+        {
+            for(int i = start; i < end; i++)
+            {
+                if(bytes[i] == b)
+                    return i;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Read a one based index and add it to a list, zero based. Negative
+         * indices count back from the item count.
+         *
+         * @param start Start of the index text
+         * @param end End of the index text, exclusive
+         * @param count The number of items of the chunk read so far
+         * @param list The list to add the index to
+         * @param relative The list of the positions of relative indices
+         * @throws InvalidFormatException The index could not be read
+         */
+        private void readIndex(int start,
+                               int end,
+                               int count,
+                               IntList list,
+                               IntList relative)
+            throws InvalidFormatException
+        {
+            boolean negative = false;
+            int i = start;
+
+            if(bytes[i] == '-')
+            {
+                negative = true;
+                i++;
+            }
+            else if(bytes[i] == '+')
+            {
+                i++;
+            }
+
+            long value = 0;
+
+            if(i == end)
+                throw faceError(start, end);
+
+            for(; i < end; i++)
+            {
+                int digit = bytes[i] - '0';
+
+                if(digit < 0 || digit > 9 || value > Integer.MAX_VALUE)
+                    throw faceError(start, end);
+
+                value = value * 10 + digit;
+            }
+
+            if(value == 0 || value > Integer.MAX_VALUE)
+                throw faceError(start, end);
+
+            if(negative)
+            {
+                relative.add(list.size);
+                list.add(count - (int)value);
+            }
+            else
+            {
+                list.add((int)value - 1);
+            }
+        }
+
+        /**
+         * Create the error for a face index that could not be read.
+         *
+         * @param start Start of the index text
+         * @param end End of the index text, exclusive
+         * @return The exception to throw
+         */
+        private InvalidFormatException faceError(int start, int end)
+        {
+            I18nManager intl_mgr = I18nManager.getManager();
+
+            String msg = intl_mgr.getString(INVALID_FACE_DATA_MSG_PROP) +
+                ": Cannot parse face index: " +
+                new String(bytes, start, end - start);
+
+            return new InvalidFormatException(msg);
+        }
+
+        /**
+         * Decode the current token as a number. Simple decimals with at most
+         * 15 significant digits are decoded directly, as the result is then
+         * exact. Anything else goes through <code>Double.parseDouble</code>,
+         * with the same fallback for comma decimals as the line by line
+         * parser.
+         *
+         * @param msgProp Property of the message used if the token is bad
+         * @return The value
+         * @throws InvalidFormatException The token is not a number
+         */
+        private double parseNumber(String msgProp)
+            throws InvalidFormatException
+        {
+            int i = tokenStart;
+            int end = tokenEnd;
+            boolean negative = false;
+
+            if(bytes[i] == '-')
+            {
+                negative = true;
+                i++;
+            }
+            else if(bytes[i] == '+')
+            {
+                i++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean seen_digit = false;
+            boolean fast = true;
+
+            for(; i < end; i++)
+            {
+                int digit = bytes[i] - '0';
+
+                if(digit < 0 || digit > 9)
+                    break;
+
+                seen_digit = true;
+
+                if(mantissa != 0 || digit != 0)
+                    digits++;
+
+                mantissa = mantissa * 10 + digit;
+
+                if(digits > 15)
+                {
+                    fast = false;
+                    break;
+                }
+            }
+
+            if(fast && i < end && bytes[i] == '.')
+            {
+                for(i++; i < end; i++)
+                {
+                    int digit = bytes[i] - '0';
+
+                    if(digit < 0 || digit > 9)
+                        break;
+
+                    seen_digit = true;
+
+                    if(mantissa != 0 || digit != 0)
+                        digits++;
+
+                    mantissa = mantissa * 10 + digit;
+                    exponent--;
+
+                    if(digits > 15)
+                    {
+                        fast = false;
+                        break;
+                    }
+                }
+            }
+
+            if(fast && seen_digit && i < end &&
+               (bytes[i] == 'e' || bytes[i] == 'E'))
+            {
+                i++;
+                boolean neg_exp = false;
+
+                if(i < end && (bytes[i] == '-' || bytes[i] == '+'))
+                {
+                    neg_exp = bytes[i] == '-';
+                    i++;
+                }
+
+                int exp = 0;
+                boolean seen_exp = false;
+
+                for(; i < end && exp < 1000; i++)
+                {
+                    int digit = bytes[i] - '0';
+
+                    if(digit < 0 || digit > 9)
+                        break;
+
+                    seen_exp = true;
+                    exp = exp * 10 + digit;
+                }
+
+                if(!seen_exp)
+                    fast = false;
+
+                exponent += neg_exp ? -exp : exp;
+            }
+
+            if(fast && seen_digit && i == end && mantissa < MAX_EXACT_MANTISSA)
+            {
+                double value = mantissa;
+
+                if(exponent < 0 && exponent >= -22)
+                {
+                    value /= POWERS_OF_TEN[-exponent];
+                    return negative ? -value : value;
+                }
+                else if(exponent >= 0 && exponent <= 22)
+                {
+                    value *= POWERS_OF_TEN[exponent];
+                    return negative ? -value : value;
+                }
+            }
+
+            String num_str = new String(bytes,
+                                        tokenStart,
+                                        tokenEnd - tokenStart,
+                                        StandardCharsets.US_ASCII);
+
+            try
+            {
+                return Double.parseDouble(num_str);
+            }
+            catch(NumberFormatException e)
+            {
+                if(!strictParsing)
+                {
+                    // Common error is to use commas instead of . in Europe
+                    try
+                    {
+                        return Double.parseDouble(num_str.replace(",", "."));
+                    }
+                    catch(NumberFormatException e2)
+                    {
+                        // Fall through to the error
+                    }
+                }
+
+                I18nManager intl_mgr = I18nManager.getManager();
+
+                String msg = intl_mgr.getString(msgProp) +
+                    ": Cannot parse value: " + num_str;
+                throw new InvalidFormatException(msg);
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.stl;
+
+// External imports
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.loaders.InvalidFormatException;
+
+/**
+ * Reader of binary STL files that decodes all of the facets in one call,
+ * straight into flat <code>float</code> arrays.
+ * <p>
+ *
+ * Where {@link STLFileReader} hands back one facet at a time as
+ * <code>double</code> arrays, this reader memory maps the file and splits the
+ * facets into fixed size chunks that are decoded in parallel, each into its
+ * own range of the output arrays. It is meant for scanned meshes with tens
+ * of millions of facets, where the per-facet calls and conversions dominate
+ * the load time.
+ * <p>
+ *
+ * Only the binary format is supported. ASCII files should be read with
+ * {@link STLFileReader}. The facet count in the header is checked against the
+ * length of the file in the same way as the binary parser of
+ * {@link STLFileReader}. When not parsing strictly a short file is read up
+ * to the last complete facet, and a message is added to the parsing
+ * messages.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ * @see STLFileReader
+ */
+public class STLBulkReader
+{
+    /** size of binary header */
+    private static final int HEADER_SIZE = 84;
+
+    /** size of one facet record in binary format */
+    private static final int RECORD_SIZE = 50;
+
+    /** size of comments in header */
+    private static final int COMMENT_SIZE = 80;
+
+    /** The number of facets decoded by one task */
+    private static final int FACETS_PER_CHUNK = 65536;
+
+    /** The channel to the file being read */
+    private FileChannel channel;
+
+    /** The number of facets that will be read */
+    private int numFacets;
+
+    /** The comment from the file header */
+    private String comment;
+
+    /** Do we strictly parse or try harder */
+    private boolean strictParsing;
+
+    /** Detailed parsing messages or null if none */
+    private List<String> parsingMessages;
+
+    /**
+     * Open a binary STL file for reading, parsing loosely.
+     *
+     * @param file The file to read
+     * @throws InvalidFormatException The file is not a binary STL file
+     * @throws IOException The file could not be read
+     */
+    public STLBulkReader(File file)
+        throws InvalidFormatException, IOException
+    {
+        this(file, false);
+    }
+
+    /**
+     * Open a binary STL file for reading.
+     *
+     * @param file The file to read
+     * @param strict Attempt to deal with crappy data or short downloads.
+     * Will try to return any usable geometry.
+     * @throws InvalidFormatException The file is not a binary STL file
+     * @throws IOException The file could not be read
+     */
+    public STLBulkReader(File file, boolean strict)
+        throws InvalidFormatException, IOException
+    {
+        strictParsing = strict;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try
+        {
+            readHeader();
+        }
+        catch(IOException ioe)
+        {
+            close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Get the number of facets that will be read from the file.
+     *
+     * @return The facet count
+     */
+    public int getNumOfFacets()
+    {
+        return numFacets;
+    }
+
+    /**
+     * Get the 80 character comment from the start of the file, without any
+     * trailing padding.
+     *
+     * @return The header comment
+     */
+    public String getComment()
+    {
+        return comment;
+    }
+
+    /**
+     * Get detailed messages on what was wrong when parsing.  Only can happen
+     * when strictParsing is false.
+     *
+     * @return The list of messages or null if there were none
+     */
+    public List<String> getParsingMessages()
+    {
+        return parsingMessages;
+    }
+
+    /**
+     * Release the file. No more facets may be read after this.
+     *
+     * @throws IOException The file could not be closed
+     */
+    public void close() throws IOException
+    {
+        if(channel != null)
+        {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Read every facet in the file. See
+     * {@link #readFacets(int, int, float[], float[])} for the array layouts.
+     *
+     * @param coords Array for 9 coordinate values per facet
+     * @param normals Array for 3 normal values per facet, or null
+     * @throws IOException The file could not be read
+     */
+    public void readFacets(float[] coords, float[] normals)
+        throws IOException
+    {
+        readFacets(0, numFacets, coords, normals);
+    }
+
+    /**
+     * Read a range of facets, so that very large files may be read in
+     * pieces. The three vertices of each facet are written to the coordinate
+     * array as 9 consecutive values, and the facet normal to the normal array
+     * as 3 values, starting at the beginning of the arrays. Normals that are
+     * not numbers are written as 0 0 0, as the format requires.
+     *
+     * @param start The index of the first facet to read
+     * @param count The number of facets to read
+     * @param coords Array for 9 coordinate values per facet
+     * @param normals Array for 3 normal values per facet, or null
+     * @throws IllegalArgumentException The range is outside the file or the
+     *    arrays are too small
+     * @throws IOException The file could not be read
+     */
+    public void readFacets(int start,
+                           int count,
+                           float[] coords,
+                           float[] normals)
+        throws IOException
+    {
+        if(start < 0 || count < 0 || start > numFacets - count)
+            throw new IllegalArgumentException("Facets " + start + " to " +
+                (start + count) + " are not in the file of " + numFacets);
+
+        if(coords.length < count * 9L)
+            throw new IllegalArgumentException("Coordinate array too small");
+
+        if(normals != null && normals.length < count * 3L)
+            throw new IllegalArgumentException("Normal array too small");
+
+        int num_chunks = (count + FACETS_PER_CHUNK - 1) / FACETS_PER_CHUNK;
+
+        try
+        {
+            IntStream.range(0, num_chunks).parallel().forEach(
+                chunk -> decodeChunk(start, count, chunk, coords, normals));
+        }
+        catch(UncheckedIOException uioe)
+        {
+            throw uioe.getCause();
+        }
+    }
+
+    /**
+     * Read the whole file as a list of triangles. The facet normal is copied
+     * to each of its three vertices.
+     *
+     * @return The geometry of the file
+     * @throws InvalidFormatException The file has too many facets to fit in
+     *    a single array
+     * @throws IOException The file could not be read
+     */
+    public GeometryData readGeometry()
+        throws InvalidFormatException, IOException
+    {
+        if(numFacets * 9L > Integer.MAX_VALUE)
+            throw new InvalidFormatException("Too many facets for a single " +
+                "geometry, read the file in ranges: " + numFacets);
+
+        GeometryData ret_val = new GeometryData();
+        ret_val.geometryType = GeometryData.TRIANGLES;
+        ret_val.geometryComponents = GeometryData.NORMAL_DATA;
+        ret_val.vertexCount = numFacets * 3;
+        ret_val.coordinates = new float[numFacets * 9];
+        ret_val.normals = new float[numFacets * 9];
+
+        float[] facet_normals = new float[numFacets * 3];
+        readFacets(ret_val.coordinates, facet_normals);
+
+        final float[] normals = ret_val.normals;
+        int num_chunks = (numFacets + FACETS_PER_CHUNK - 1) / FACETS_PER_CHUNK;
+
+        IntStream.range(0, num_chunks).parallel().forEach(chunk ->
+        {
+            int first = chunk * FACETS_PER_CHUNK;
+            int last = Math.min(first + FACETS_PER_CHUNK, numFacets);
+
+            for(int i = first; i < last; i++)
+            {
+                int src = i * 3;
+                int dest = i * 9;
+
+                for(int j = 0; j < 3; j++)
+                {
+                    normals[dest++] = facet_normals[src];
+                    normals[dest++] = facet_normals[src + 1];
+                    normals[dest++] = facet_normals[src + 2];
+                }
+            }
+        });
+
+        return ret_val;
+    }
+
+    /**
+     * Read the header and check the facet count against the file length.
+     *
+     * @throws InvalidFormatException The file is not a binary STL file
+     * @throws IOException The file could not be read
+     */
+    private void readHeader()
+        throws InvalidFormatException, IOException
+    {
+        long length = channel.size();
+
+        if(length < HEADER_SIZE)
+            throw new InvalidFormatException("File is too short for a " +
+                "binary STL header: " + length);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        while(header.hasRemaining())
+        {
+            if(channel.read(header, header.position()) < 0)
+                throw new InvalidFormatException("Unexpected end of file " +
+                    "reading the header");
+        }
+
+        byte[] text = new byte[COMMENT_SIZE];
+        header.flip();
+        header.get(text);
+
+        comment = new String(text, "US-ASCII").trim();
+
+        long facets = header.getInt() & 0xFFFFFFFFL;
+        long expected = facets * RECORD_SIZE + HEADER_SIZE;
+
+        if(length == expected)
+        {
+            numFacets = (int)facets;
+            return;
+        }
+
+        if(comment.startsWith("solid"))
+            throw new InvalidFormatException("File is ASCII STL, which " +
+                "must be read with the STLFileReader");
+
+        String msg = "File size does not match the expected size for" +
+            " the given number of facets. Given " +
+            facets + " facets for a total size of " +
+            expected + " but the file size is " + length;
+
+        if(strictParsing)
+            throw new InvalidFormatException(msg);
+
+        if(parsingMessages == null)
+            parsingMessages = new ArrayList<>();
+
+        parsingMessages.add(msg);
+
+        long available = (length - HEADER_SIZE) / RECORD_SIZE;
+        numFacets = (int)Math.min(Math.min(facets, available), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Decode one chunk of a range of facets.
+     *
+     * @param start The index of the first facet of the range
+     * @param count The number of facets in the range
+     * @param chunk The index of the chunk within the range
+     * @param coords Array for 9 coordinate values per facet
+     * @param normals Array for 3 normal values per facet, or null
+     */
+    private void decodeChunk(int start,
+                             int count,
+                             int chunk,
+                             float[] coords,
+                             float[] normals)
+    {
+        int first = chunk * FACETS_PER_CHUNK;
+        int num = Math.min(FACETS_PER_CHUNK, count - first);
+
+        ByteBuffer buffer;
+
+        try
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                 HEADER_SIZE + (long)(start + first) * RECORD_SIZE,
+                                 (long)num * RECORD_SIZE);
+        }
+        catch(IOException ioe)
+        {
+            throw new UncheckedIOException(ioe);
+        }
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int coord_idx = first * 9;
+        int normal_idx = first * 3;
+
+        for(int i = 0; i < num; i++)
+        {
+            int pos = i * RECORD_SIZE;
+
+            if(normals != null)
+            {
+                float x = buffer.getFloat(pos);
+                float y = buffer.getFloat(pos + 4);
+                float z = buffer.getFloat(pos + 8);
+
+                // STL spec says use 0 0 0 for autocalc
+                if(!Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z))
+                {
+                    x = 0;
+                    y = 0;
+                    z = 0;
+                }
+
+                normals[normal_idx++] = x;
+                normals[normal_idx++] = y;
+                normals[normal_idx++] = z;
+            }
+
+            pos += 12;
+
+            for(int j = 0; j < 9; j++)
+            {
+                coords[coord_idx++] = buffer.getFloat(pos);
+                pos += 4;
+            }
+        }
+    }
+}
@@ -14,6 +14,10 @@ import java.io.BufferedInputStream;
 import java.io.DataInput;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.text.MessageFormat;
 
 // Local parser
@@ -22,6 +26,7 @@ import org.j3d.io.LittleEndianDataInputStream;
 import org.j3d.loaders.HeightMapSource;
 import org.j3d.loaders.HeightMapSourceOrigin;
 import org.j3d.loaders.InvalidFormatException;
+import org.j3d.loaders.MappedTiledTerrainData;
 import org.j3d.loaders.UnsupportedFormatException;
 import org.j3d.util.I18nManager;
 
@@ -36,6 +41,11 @@ import org.j3d.util.I18nManager;
  * <a href="http://www.vterrain.org/Implementation/BT.html">
  *  http://www.vterrain.org/Implementation/BT.html
  * </a>
+ * <p>
+ *
+ * For files too large to hold in memory, {@link #parseMapped(FileChannel)}
+ * reads just the header and returns terrain data that decodes the heights
+ * from a memory mapping of the file as they are needed.
  *
  * @author  Paul Byrne, Justin Couch
  * @version $Revision: 1.7 $
@@ -64,6 +74,9 @@ public class BTParser implements HeightMapSource
     /** Header string constant representing V1.3 */
     private static final String VERSION_1_3 = "binterr1.3";
 
+    /** The size of the header of all versions, in bytes */
+    private static final int HEADER_SIZE = 256;
+
     /** Buffer while reading bytes from the stream */
     private byte[] buffer;
 
@@ -85,6 +98,18 @@ public class BTParser implements HeightMapSource
     /** Flag to say we've already read the stream */
     private boolean dataReady;
 
+    /** Flag to say the header has been read from the stream */
+    private boolean headerReady;
+
+    /** Are the heights floating point values */
+    private boolean floatsUsed;
+
+    /** Are the heights two bytes each rather than four */
+    private boolean twoByteHeights;
+
+    /** Scale factor applied to each height read */
+    private float heightScale;
+
     /**
      * Construct a new parser with no stream set.
      */
@@ -162,6 +187,7 @@ public class BTParser implements HeightMapSource
         input = new LittleEndianDataInputStream(bis);
 
         dataReady = false;
+        headerReady = false;
         header = null;
         heights = null;
     }
@@ -172,6 +198,7 @@ public class BTParser implements HeightMapSource
     public void clear()
     {
         dataReady = false;
+        headerReady = false;
         input = null;
         header = null;
         heights = null;
@@ -205,6 +232,62 @@ public class BTParser implements HeightMapSource
             throw new IOException(msg);
         }
 
+        parseHeader();
+
+        int rows = header.rows;
+        int columns = header.columns;
+
+        heights = new float[columns][rows];
+
+        // Read a column at a time and decode it from the byte array rather
+        // than pulling each sample through the data stream.
+        int sample_size = twoByteHeights ? 2 : 4;
+        byte[] column_bytes = new byte[rows * sample_size];
+        ByteBuffer column_buf = ByteBuffer.wrap(column_bytes);
+        column_buf.order(ByteOrder.LITTLE_ENDIAN);
+
+        for(int c = 0; c < columns; c++)
+        {
+            input.readFully(column_bytes);
+
+            float[] column = heights[c];
+
+            if(twoByteHeights)
+            {
+                for(int r = 0; r < rows; r++)
+                    column[r] = heightScale * column_buf.getShort(r << 1);
+            }
+            else if(floatsUsed)
+            {
+                for(int r = 0; r < rows; r++)
+                    column[r] = heightScale * column_buf.getFloat(r << 2);
+            }
+            else
+            {
+                for(int r = 0; r < rows; r++)
+                    column[r] = heightScale * column_buf.getInt(r << 2);
+            }
+        }
+
+        dataReady = true;
+
+        return heights;
+    }
+
+    /**
+     * Read just the header of the file, leaving the stream positioned at the
+     * start of the height data. If the header has already been read, this
+     * returns the existing header.
+     *
+     * @return The header read
+     * @throws IOException any I/O error reading the underlying stream
+     */
+    public BTHeader parseHeader()
+        throws IOException
+    {
+        if(headerReady)
+            return header;
+
         input.readFully(buffer, 0, 10);
 
         header = new BTHeader();
@@ -248,27 +331,24 @@ public class BTParser implements HeightMapSource
         header.columns = input.readInt();
         header.rows = input.readInt();
 
-        int rows = header.rows;
-        int columns = header.columns;
-        boolean floats_used = false;
-        boolean two_byte_heights;
+        floatsUsed = false;
 
         if(version > 0)
         {
-            two_byte_heights = parseByteSize(input.readShort());
-            floats_used = (input.readShort() == 1);
+            twoByteHeights = parseByteSize(input.readShort());
+            floatsUsed = (input.readShort() == 1);
         }
         else
         {
-            two_byte_heights = parseByteSize(input.readInt());
+            twoByteHeights = parseByteSize(input.readInt());
         }
 
-        float height_scale = 1.0f;
+        heightScale = 1.0f;
 
         switch(version)
         {
             case 0:
-                floats_used = readHeader1_0();
+                floatsUsed = readHeader1_0();
                 break;
 
             case 1:
@@ -280,7 +360,7 @@ public class BTParser implements HeightMapSource
                 break;
 
             case 3:
-                height_scale = readHeader1_3();
+                heightScale = readHeader1_3();
 
         }
 
@@ -304,65 +384,69 @@ public class BTParser implements HeightMapSource
 
         }
 
-        heights = new float[rows][columns];
-        int i = 0;
-
-        if(floats_used)
-        {
-            if(two_byte_heights)
-            {
-                for(int c = 0; c < columns; c++)
-                {
-                    for(int r = 0; r < rows; r++)
-                    {
-                        heights[c][r] = height_scale * input.readShort();
-                    }
-                }
-            }
-            else
-            {
-                for(int c = 0; c < columns; c++)
-                {
-                    for(int r = 0; r < rows; r++)
-                    {
-                        heights[c][r] = height_scale * input.readFloat();
-                    }
-                }
-            }
-        }
-        else
-        {
-            if(two_byte_heights)
-            {
-                for(int c = 0; c < columns; c++)
-                {
-                    for(int r = 0; r < rows; r++)
-                    {
-                        heights[c][r] = height_scale * input.readShort();
-                    }
-                }
-            }
-            else
-            {
-                for(int c = 0; c < columns; c++)
-                {
-                    for(int r = 0; r < rows; r++)
-                    {
-                        heights[c][r] = height_scale * input.readInt();
-                    }
-                }
-            }
-        }
-
         float width = (float)(header.rightExtent - header.leftExtent);
         float depth = (float)(header.topExtent - header.bottomExtent);
 
         gridStepData[0] = width / (header.rows - 1);
         gridStepData[1] = depth / (header.columns - 1);
 
-        dataReady = true;
+        headerReady = true;
 
-        return heights;
+        return header;
+    }
+
+    /**
+     * Read the header of a BT file from a channel and create terrain data
+     * that maps the height values from the file as they are needed, rather
+     * than reading them all into memory. The channel must stay open for as
+     * long as the terrain data is used. The header and grid step of this
+     * parser are set as though the file had been parsed, but
+     * {@link #getHeights()} remains null.
+     *
+     * @param channel The channel of the BT file, positioned at the start
+     * @param maxTiles The largest number of decoded tiles to keep in memory
+     * @return Terrain data backed by the mapped file
+     * @throws IOException any I/O error reading or mapping the file
+     */
+    public MappedTiledTerrainData parseMapped(FileChannel channel, int maxTiles)
+        throws IOException
+    {
+        reset(Channels.newInputStream(channel));
+        parseHeader();
+
+        int sample_type;
+
+        if(twoByteHeights)
+            sample_type = MappedTiledTerrainData.SAMPLE_SHORT;
+        else if(floatsUsed)
+            sample_type = MappedTiledTerrainData.SAMPLE_FLOAT;
+        else
+            sample_type = MappedTiledTerrainData.SAMPLE_INT;
+
+        return new MappedTiledTerrainData(channel,
+                                          HEADER_SIZE,
+                                          ByteOrder.LITTLE_ENDIAN,
+                                          sample_type,
+                                          header.columns,
+                                          header.rows,
+                                          heightScale,
+                                          gridStepData,
+                                          maxTiles);
+    }
+
+    /**
+     * Read the header of a BT file from a channel and create terrain data
+     * that maps the heights from the file, using the default number of
+     * cached tiles.
+     *
+     * @param channel The channel of the BT file, positioned at the start
+     * @return Terrain data backed by the mapped file
+     * @throws IOException any I/O error reading or mapping the file
+     */
+    public MappedTiledTerrainData parseMapped(FileChannel channel)
+        throws IOException
+    {
+        return parseMapped(channel, MappedTiledTerrainData.DEFAULT_MAX_TILES);
     }
 
     /**
@@ -0,0 +1,507 @@
+/*****************************************************************************
+ *                             (c) j3d.org 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.terrain.roam;
+
+// External imports
+// none
+
+// Local imports
+// none
+
+/**
+ * A queue manager that keeps the triangles and diamonds in indexed binary
+ * heaps.
+ * <p>
+ *
+ * Each queued item records its position in the heap, so removing an item or
+ * changing its priority is a sift from where it sits rather than a search,
+ * and adding an item that is already queued just moves it to match its new
+ * variance. The recorded position is checked against the heap before use,
+ * as tree nodes are pooled and may have been queued by another landscape. The heaps are plain arrays of items with a parallel array of
+ * priorities, which grow as needed but are never released, so a steady
+ * terrain queues without allocating.
+ * <p>
+ *
+ * The triangle heap is kept from one frame to the next. As the view moves a
+ * little each frame, most variances change a little and most updates only
+ * move an item a step or two. Call {@link #beginFrame()} before refreshing
+ * the queue for a new view and {@link #removeStaleTriangles()} once every
+ * triangle that should be queued has been added again, which drops the
+ * triangles that were not. The diamond heap is emptied at the start of each
+ * frame.
+ *
+ * @author  agent
+ * @version $Revision: 1.1 $
+ */
+class HeapQueueManager implements QueueManager
+{
+    /** The initial number of items each heap can hold */
+    private static final int DEFAULT_SIZE = 1024;
+
+    /** Triangles ordered with the largest variance on top */
+    private QueueItem[] triangles;
+
+    /** The variance each triangle was queued with */
+    private float[] triangleKeys;
+
+    /** The number of triangles queued */
+    private int numTriangles;
+
+    /** Diamonds ordered with the smallest variance on top */
+    private QueueItem[] diamonds;
+
+    /** The variance each diamond was queued with */
+    private float[] diamondKeys;
+
+    /** The number of diamonds queued */
+    private int numDiamonds;
+
+    /** The current frame, used to find triangles not queued again */
+    private int frame;
+
+    /**
+     * Creates new QueueManager.
+     */
+    HeapQueueManager()
+    {
+        triangles = new QueueItem[DEFAULT_SIZE];
+        triangleKeys = new float[DEFAULT_SIZE];
+        diamonds = new QueueItem[DEFAULT_SIZE];
+        diamondKeys = new float[DEFAULT_SIZE];
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by QueueManager
+    //----------------------------------------------------------
+
+    /**
+     * Add a new triangle to the queue. If the triangle is already queued,
+     * its position is updated to match its current variance.
+     *
+     * @param node The new node to add
+     */
+    @Override
+    public void addTriangle(QueueItem node)
+    {
+        node.queueFrame = frame;
+
+        int idx = node.triangleIndex;
+
+        if(idx >= 0 && idx < numTriangles && triangles[idx] == node)
+        {
+            float old_key = triangleKeys[idx];
+            triangleKeys[idx] = node.variance;
+
+            if(node.variance > old_key)
+                siftTriangleUp(idx);
+            else if(node.variance < old_key)
+                siftTriangleDown(idx);
+
+            return;
+        }
+
+        if(numTriangles == triangles.length)
+        {
+            int new_size = numTriangles << 1;
+
+            QueueItem[] tmp = new QueueItem[new_size];
+            System.arraycopy(triangles, 0, tmp, 0, numTriangles);
+            triangles = tmp;
+
+            float[] tmp_keys = new float[new_size];
+            System.arraycopy(triangleKeys, 0, tmp_keys, 0, numTriangles);
+            triangleKeys = tmp_keys;
+        }
+
+        idx = numTriangles++;
+        triangles[idx] = node;
+        triangleKeys[idx] = node.variance;
+        node.triangleIndex = idx;
+
+        siftTriangleUp(idx);
+    }
+
+    /**
+     * Remove the given triangle the queue. If it is not queued, the request
+     * is ignored.
+     *
+     * @param node The new node to remove
+     */
+    @Override
+    public void removeTriangle(QueueItem node)
+    {
+        int idx = node.triangleIndex;
+
+        if(idx < 0 || idx >= numTriangles || triangles[idx] != node)
+            return;
+
+        node.triangleIndex = -1;
+        numTriangles--;
+
+        if(idx == numTriangles)
+        {
+            triangles[idx] = null;
+            return;
+        }
+
+        // Move the last item into the hole and sift it whichever way it
+        // needs to go.
+        QueueItem last = triangles[numTriangles];
+        float key = triangleKeys[numTriangles];
+        triangles[numTriangles] = null;
+
+        triangles[idx] = last;
+        triangleKeys[idx] = key;
+        last.triangleIndex = idx;
+
+        siftTriangleUp(idx);
+        siftTriangleDown(last.triangleIndex);
+    }
+
+    /**
+     * Add a new diamond to the queue. If the diamond is already queued, its
+     * position is updated to match its current variance.
+     *
+     * @param node The new node to add
+     */
+    @Override
+    public void addDiamond(QueueItem node)
+    {
+        int idx = node.diamondIndex;
+
+        if(idx >= 0 && idx < numDiamonds && diamonds[idx] == node)
+        {
+            float old_key = diamondKeys[idx];
+            diamondKeys[idx] = node.variance;
+
+            if(node.variance < old_key)
+                siftDiamondUp(idx);
+            else if(node.variance > old_key)
+                siftDiamondDown(idx);
+
+            return;
+        }
+
+        if(numDiamonds == diamonds.length)
+        {
+            int new_size = numDiamonds << 1;
+
+            QueueItem[] tmp = new QueueItem[new_size];
+            System.arraycopy(diamonds, 0, tmp, 0, numDiamonds);
+            diamonds = tmp;
+
+            float[] tmp_keys = new float[new_size];
+            System.arraycopy(diamondKeys, 0, tmp_keys, 0, numDiamonds);
+            diamondKeys = tmp_keys;
+        }
+
+        idx = numDiamonds++;
+        diamonds[idx] = node;
+        diamondKeys[idx] = node.variance;
+        node.diamondIndex = idx;
+
+        siftDiamondUp(idx);
+    }
+
+    /**
+     * Remove the given diamond from the queue. If it is not queued, the
+     * request is ignored.
+     *
+     * @param node The new node to remove
+     */
+    @Override
+    public void removeDiamond(QueueItem node)
+    {
+        int idx = node.diamondIndex;
+
+        if(idx < 0 || idx >= numDiamonds || diamonds[idx] != node)
+            return;
+
+        node.diamondIndex = -1;
+        numDiamonds--;
+
+        if(idx == numDiamonds)
+        {
+            diamonds[idx] = null;
+            return;
+        }
+
+        QueueItem last = diamonds[numDiamonds];
+        float key = diamondKeys[numDiamonds];
+        diamonds[numDiamonds] = null;
+
+        diamonds[idx] = last;
+        diamondKeys[idx] = key;
+        last.diamondIndex = idx;
+
+        siftDiamondUp(idx);
+        siftDiamondDown(last.diamondIndex);
+    }
+
+    /**
+     * Clear everything from the queue.
+     */
+    @Override
+    public void clear()
+    {
+        for(int i = 0; i < numTriangles; i++)
+        {
+            triangles[i].triangleIndex = -1;
+            triangles[i] = null;
+        }
+
+        numTriangles = 0;
+
+        clearDiamonds();
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Start queueing for a new view. The diamonds are cleared and any
+     * triangle not added again before {@link #removeStaleTriangles()} is
+     * called will be dropped.
+     */
+    void beginFrame()
+    {
+        frame++;
+        clearDiamonds();
+    }
+
+    /**
+     * Drop every triangle that has not been added since the last call to
+     * {@link #beginFrame()}, and restore the heap order over those left.
+     *
+     * @return The number of triangles dropped
+     */
+    int removeStaleTriangles()
+    {
+        int kept = 0;
+
+        for(int i = 0; i < numTriangles; i++)
+        {
+            QueueItem item = triangles[i];
+
+            if(item.queueFrame != frame)
+            {
+                item.triangleIndex = -1;
+            }
+            else
+            {
+                triangles[kept] = item;
+                triangleKeys[kept] = triangleKeys[i];
+                item.triangleIndex = kept;
+                kept++;
+            }
+        }
+
+        int dropped = numTriangles - kept;
+
+        if(dropped == 0)
+            return 0;
+
+        for(int i = kept; i < numTriangles; i++)
+            triangles[i] = null;
+
+        numTriangles = kept;
+
+        // Rebuild bottom up, which is linear in the number kept.
+        for(int i = (numTriangles >> 1) - 1; i >= 0; i--)
+            siftTriangleDown(i);
+
+        return dropped;
+    }
+
+    /**
+     * Get the triangle with the largest variance.
+     *
+     * @return The triangle to split next or null if none are queued
+     */
+    TreeNode getSplitCandidate()
+    {
+        return numTriangles == 0 ? null : (TreeNode)triangles[0];
+    }
+
+    /**
+     * Get the diamond with the smallest variance.
+     *
+     * @return The diamond to merge next or null if none are queued
+     */
+    TreeNode getMergeCandidate()
+    {
+        return numDiamonds == 0 ? null : (TreeNode)diamonds[0];
+    }
+
+    /**
+     * Get the number of triangles currently queued.
+     *
+     * @return The triangle count
+     */
+    int getNumTriangles()
+    {
+        return numTriangles;
+    }
+
+    /**
+     * Get the number of diamonds currently queued.
+     *
+     * @return The diamond count
+     */
+    int getNumDiamonds()
+    {
+        return numDiamonds;
+    }
+
+    //----------------------------------------------------------
+    // Internal convenience methods
+    //----------------------------------------------------------
+
+    /**
+     * Empty the diamond heap.
+     */
+    private void clearDiamonds()
+    {
+        for(int i = 0; i < numDiamonds; i++)
+        {
+            diamonds[i].diamondIndex = -1;
+            diamonds[i] = null;
+        }
+
+        numDiamonds = 0;
+    }
+
+    /**
+     * Move a triangle towards the top while it is larger than its parent.
+     *
+     * @param idx The current position of the triangle
+     */
+    private void siftTriangleUp(int idx)
+    {
+        QueueItem item = triangles[idx];
+        float key = triangleKeys[idx];
+
+        while(idx > 0)
+        {
+            int parent = (idx - 1) >> 1;
+
+            if(triangleKeys[parent] >= key)
+                break;
+
+            triangles[idx] = triangles[parent];
+            triangleKeys[idx] = triangleKeys[parent];
+            triangles[idx].triangleIndex = idx;
+
+            idx = parent;
+        }
+
+        triangles[idx] = item;
+        triangleKeys[idx] = key;
+        item.triangleIndex = idx;
+    }
+
+    /**
+     * Move a triangle towards the bottom while a child is larger than it.
+     *
+     * @param idx The current position of the triangle
+     */
+    private void siftTriangleDown(int idx)
+    {
+        QueueItem item = triangles[idx];
+        float key = triangleKeys[idx];
+        int half = numTriangles >> 1;
+
+        while(idx < half)
+        {
+            int child = (idx << 1) + 1;
+            int right = child + 1;
+
+            if(right < numTriangles && triangleKeys[right] > triangleKeys[child])
+                child = right;
+
+            if(key >= triangleKeys[child])
+                break;
+
+            triangles[idx] = triangles[child];
+            triangleKeys[idx] = triangleKeys[child];
+            triangles[idx].triangleIndex = idx;
+
+            idx = child;
+        }
+
+        triangles[idx] = item;
+        triangleKeys[idx] = key;
+        item.triangleIndex = idx;
+    }
+
+    /**
+     * Move a diamond towards the top while it is smaller than its parent.
+     *
+     * @param idx The current position of the diamond
+     */
+    private void siftDiamondUp(int idx)
+    {
+        QueueItem item = diamonds[idx];
+        float key = diamondKeys[idx];
+
+        while(idx > 0)
+        {
+            int parent = (idx - 1) >> 1;
+
+            if(diamondKeys[parent] <= key)
+                break;
+
+            diamonds[idx] = diamonds[parent];
+            diamondKeys[idx] = diamondKeys[parent];
+            diamonds[idx].diamondIndex = idx;
+
+            idx = parent;
+        }
+
+        diamonds[idx] = item;
+        diamondKeys[idx] = key;
+        item.diamondIndex = idx;
+    }
+
+    /**
+     * Move a diamond towards the bottom while a child is smaller than it.
+     *
+     * @param idx The current position of the diamond
+     */
+    private void siftDiamondDown(int idx)
+    {
+        QueueItem item = diamonds[idx];
+        float key = diamondKeys[idx];
+        int half = numDiamonds >> 1;
+
+        while(idx < half)
+        {
+            int child = (idx << 1) + 1;
+            int right = child + 1;
+
+            if(right < numDiamonds && diamondKeys[right] < diamondKeys[child])
+                child = right;
+
+            if(key <= diamondKeys[child])
+                break;
+
+            diamonds[idx] = diamonds[child];
+            diamondKeys[idx] = diamondKeys[child];
+            diamonds[idx].diamondIndex = idx;
+
+            idx = child;
+        }
+
+        diamonds[idx] = item;
+        diamondKeys[idx] = key;
+        item.diamondIndex = idx;
+    }
+}
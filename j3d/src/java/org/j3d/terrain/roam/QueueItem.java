@@ -16,7 +16,7 @@ package org.j3d.terrain.roam;
 // none
 
 /**
- * Representation of an item in a FastQueue.
+ * Representation of an item in a FastQueue or HeapQueueManager.
  *
  * @author  Justin Couch
  * @version $Revision: 1.1 $
@@ -35,5 +35,14 @@ class QueueItem
 
     /** Variance value for the whole diamond */
     float diamondVariance = 0f;
+
+    /** Position in the heap manager's triangle heap, or -1 if not queued */
+    int triangleIndex = -1;
+
+    /** Position in the heap manager's diamond heap, or -1 if not queued */
+    int diamondIndex = -1;
+
+    /** The heap manager frame this item was last queued as a triangle */
+    int queueFrame;
 }
 
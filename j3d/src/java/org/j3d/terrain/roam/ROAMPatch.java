@@ -33,6 +33,15 @@ import org.j3d.util.frustum.ViewFrustum;
  *
  * This is an abstract representation that renderer-specific items should be
  * extending with their own geometry handling.
+ * <p>
+ *
+ * When the landscape updates in the background, the vertex data is filled
+ * on the update thread into a second {@link VertexData} instance, which is
+ * swapped with {@link #vertexData} at the next frame boundary before
+ * {@link #updateGeometry()} is called. {@link #createGeometry()} does
+ * nothing in that mode, as the vertex data is already complete. Derived
+ * classes should therefore read the arrays from <code>vertexData</code>
+ * each time they update rather than holding on to them.
  *
  * @author  Justin Couch, Paul Byrne
  * @version $Revision: 1.3 $
@@ -78,6 +87,12 @@ public abstract class ROAMPatch
     /** Raw vertex collection information */
     protected VertexData vertexData;
 
+    /** Vertex data being filled by the background updater, if used */
+    private VertexData backVertexData;
+
+    /** Flag to say the vertex data is filled by the background updater */
+    private boolean backgroundGeometry;
+
     /** The maximum Y for this patch */
     protected float maxY;
 
@@ -187,6 +202,9 @@ public abstract class ROAMPatch
 
         vertexData.reset();
 
+        if(backVertexData != null)
+            backVertexData.reset();
+
         NWTree.freeNode();
         SETree.freeNode();
 
@@ -485,13 +503,81 @@ public abstract class ROAMPatch
      */
     protected void createGeometry()
     {
-        vertexData.reset();
+        // Already filled in by the background updater and swapped in.
+        if(backgroundGeometry)
+            return;
+
+        fillGeometry(vertexData);
+    }
+
+    /**
+     * Fill in the background vertex data from the current state of the
+     * trees. Called on the background update thread, so the current vertex
+     * data is left untouched for the renderer to keep using.
+     */
+    void prepareGeometry()
+    {
+        if(vertexData == null || NWTree == null)
+            return;
+
+        if(backVertexData == null)
+        {
+            byte type = vertexData.dataType;
+
+            boolean has_color = (type == VertexData.COLOR_ONLY ||
+                                 type == VertexData.TEXTURE_AND_COLOR);
+            boolean has_texture = (type == VertexData.TEXTURE_ONLY ||
+                                   type == VertexData.TEXTURE_AND_COLOR);
+
+            backVertexData = new VertexData(PATCH_SIZE, has_texture, has_color);
+        }
+
+        fillGeometry(backVertexData);
+    }
+
+    /**
+     * Exchange the background vertex data prepared by
+     * {@link #prepareGeometry()} with the current vertex data. From here on
+     * {@link #createGeometry()} leaves the vertex data alone. Must only be
+     * called while the background updater is idle.
+     */
+    void swapGeometry()
+    {
+        if(backVertexData == null)
+            return;
+
+        VertexData tmp = vertexData;
+        vertexData = backVertexData;
+        backVertexData = tmp;
+
+        backgroundGeometry = true;
+    }
+
+    /**
+     * Go back to building the vertex data directly in
+     * {@link #createGeometry()}, dropping the background vertex data.
+     */
+    void endBackgroundGeometry()
+    {
+        backgroundGeometry = false;
+        backVertexData = null;
+    }
+
+    /**
+     * Fill the vertex data with the visible triangles of the two halves of
+     * the tree.
+     *
+     * @param data The vertex data to fill
+     */
+    private void fillGeometry(VertexData data)
+    {
+        data.reset();
 
         if(NWTree.visible != ViewFrustum.OUT)
-            NWTree.getTriangles(vertexData);
+            NWTree.getTriangles(data);
 
         if(SETree.visible != ViewFrustum.OUT)
-            SETree.getTriangles(vertexData);
+            SETree.getTriangles(data);
     }
 
     /**
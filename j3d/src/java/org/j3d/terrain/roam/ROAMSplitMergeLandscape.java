@@ -11,16 +11,19 @@ package org.j3d.terrain.roam;
 
 // External imports
 import java.awt.Rectangle;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.LinkedList;
 
 import javax.vecmath.Point3d;
+import javax.vecmath.Point3f;
 import javax.vecmath.Tuple3f;
 import javax.vecmath.Vector3f;
 
 // Local imports
 import org.j3d.terrain.*;
 
+import org.j3d.util.DefaultErrorReporter;
 import org.j3d.util.I18nManager;
 import org.j3d.util.frustum.ViewFrustum;
 
@@ -33,6 +36,15 @@ import org.j3d.util.frustum.ViewFrustum;
  * +ve x axis and the -ve z axis
  * <p>
  *
+ * By default all of the work for a new view is done in {@link #setView}.
+ * With {@link #setBackgroundUpdates(boolean)} the splitting, merging and
+ * building of the patch vertex data moves to a separate thread. Each call
+ * to setView then only swaps in the results of the last completed update,
+ * loads any new tiles and hands the latest view to the update thread. If an
+ * update is still running, setView returns straight away and the view is
+ * picked up by the next call.
+ * <p>
+ *
  * <b>Internationalisation Resource Names</b>
  * <p>
  * <ul>
@@ -42,6 +54,8 @@ import org.j3d.util.frustum.ViewFrustum;
  * <li>gridDepthSizeMsg: The patch size depth is not 2^n + 1 </li>
  * <li>unknownTerrainTypeMsg: The TerrainData instance provided is not
  *     of a handled form.</li>
+ * <li>backgroundUpdateMsg: An error occurred while updating the terrain on
+ *     the background thread.</li>
  * </ul>
  *
  *
@@ -70,12 +84,19 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
     private static final String INV_TERRAIN_TYPE_MSG_PROP =
         "org.j3d.terrain.roam.ROAMSplitMergeLandscape.unknownTerrainTypeMsg";
 
+    /** Message when the background update throws an exception */
+    private static final String BACKGROUND_UPDATE_MSG_PROP =
+        "org.j3d.terrain.roam.ROAMSplitMergeLandscape.backgroundUpdateMsg";
+
     /** ROAMPatch size in grid points if the user doesn't supply one */
     private static final int DEFAULT_PATCH_SIZE = 65;
 
     /** The number of tiles to use on an axis */
     private static final int AXIS_TILE_COUNT = 7;
 
+    /** Milliseconds the update thread waits before checking for collection */
+    private static final long COLLECTION_CHECK_INTERVAL = 1000;
+
     /** The patch size to use for this landscape */
     protected final int patchSize;
 
@@ -92,8 +113,135 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
     private ArrayList<ROAMPatch> patches = new ArrayList<>();
 
     /** Queue manager for the pathces needing splits or merges each frame */
-    private TreeQueueManager queueManager = new TreeQueueManager();
-//    private FastQueueManager queueManager = new FastQueueManager();
+    private HeapQueueManager queueManager = new HeapQueueManager();
+
+    /** Longest time to spend splitting and merging per frame, 0 for none */
+    private long splitMergeBudget;
+
+    /** The number of splits made in the last call to setView */
+    private int lastSplitCount;
+
+    /** The number of merges made in the last call to setView */
+    private int lastMergeCount;
+
+    /** The time taken by the last call to setView, in nanoseconds */
+    private long lastViewTime;
+
+    /** The time spent splitting and merging in the last setView */
+    private long lastSplitMergeTime;
+
+    /** Did the last call to setView stop on the time budget */
+    private boolean lastBudgetExceeded;
+
+    /** The number of splits made by the update in progress */
+    private int frameSplitCount;
+
+    /** The number of merges made by the update in progress */
+    private int frameMergeCount;
+
+    /** The split and merge time of the update in progress */
+    private long frameSplitMergeTime;
+
+    /** Did the update in progress stop on the time budget */
+    private boolean frameBudgetExceeded;
+
+    /** The total time of the last completed background update */
+    private long frameViewTime;
+
+    /** The thread running background updates, or null if not used */
+    private UpdateThread updateThread;
+
+    /** Lock guarding the hand over between setView and the update thread */
+    private final Object updateLock = new Object();
+
+    /** Copy of the view position the update thread is working from */
+    private final Point3f updatePosition = new Point3f();
+
+    /** Flag to say the update thread has a view to work on */
+    private boolean updatePending;
+
+    /** Flag to say the update thread has results waiting to be swapped in */
+    private boolean updateReady;
+
+    /**
+     * Thread that splits, merges and builds the patch vertex data for the
+     * latest view handed over by setView. The landscape is only held weakly
+     * while the thread is idle, so a landscape that is thrown away without
+     * turning background updates off can still be collected. The thread
+     * exits once that happens.
+     */
+    private static class UpdateThread extends Thread
+    {
+        /** The landscape being updated */
+        private final WeakReference<ROAMSplitMergeLandscape> landscapeRef;
+
+        /** The landscape's update lock */
+        private final Object lock;
+
+        /** Flag to keep the thread running */
+        private boolean running;
+
+        UpdateThread(ROAMSplitMergeLandscape landscape)
+        {
+            super("ROAM terrain updater");
+            setDaemon(true);
+
+            landscapeRef = new WeakReference<>(landscape);
+            lock = landscape.updateLock;
+            running = true;
+        }
+
+        @Override
+        public void run()
+        {
+            while(true)
+            {
+                ROAMSplitMergeLandscape landscape;
+
+                synchronized(lock)
+                {
+                    while(true)
+                    {
+                        if(!running)
+                            return;
+
+                        landscape = landscapeRef.get();
+
+                        if(landscape == null)
+                            return;
+
+                        if(landscape.updatePending)
+                            break;
+
+                        landscape = null;
+
+                        try
+                        {
+                            lock.wait(COLLECTION_CHECK_INTERVAL);
+                        }
+                        catch(InterruptedException ie)
+                        {
+                            // ignored, just check the state again
+                        }
+                    }
+                }
+
+                landscape.runBackgroundUpdate();
+            }
+        }
+
+        /**
+         * Stop the thread once any update in progress completes.
+         */
+        void shutdown()
+        {
+            synchronized(lock)
+            {
+                running = false;
+                lock.notifyAll();
+            }
+        }
+    }
 
     /** Number of visible triangles */
     private int triCount = 0;
@@ -237,11 +385,281 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
     @Override
     public void setView(Tuple3f position, Vector3f direction)
     {
-        queueManager.clear();
+        if(updateThread != null)
+        {
+            scheduleView(position, direction);
+            return;
+        }
+
+        long start_time = System.nanoTime();
+
+        prepareView(position, direction);
+        refineTerrain(position);
+
+        // Finally, tell the geometry to be updated at the Java3D level.
+        int size = patches.size();
+
+        for(int i = 0; i < size; i++)
+        {
+            ROAMPatch p = patches.get(i);
+            p.updateGeometry();
+        }
+
+        publishStatistics(System.nanoTime() - start_time);
+    }
+
+    /**
+     * Turn background updating of the terrain on or off. When on, splitting,
+     * merging and building the patch vertex data are done on a separate
+     * thread so that {@link #setView} does not wait on them. The results of
+     * each update are swapped into the patches at the start of the next call
+     * to setView. Turning background updates off waits for any update in
+     * progress to complete.
+     *
+     * @param enable true to update the terrain in the background
+     */
+    public void setBackgroundUpdates(boolean enable)
+    {
+        if(enable == (updateThread != null))
+            return;
+
+        if(enable)
+        {
+            updateThread = new UpdateThread(this);
+            updateThread.start();
+            return;
+        }
+
+        UpdateThread thread = updateThread;
+        thread.shutdown();
+
+        boolean interrupted = false;
+
+        while(thread.isAlive())
+        {
+            try
+            {
+                thread.join();
+            }
+            catch(InterruptedException ie)
+            {
+                interrupted = true;
+            }
+        }
+
+        if(interrupted)
+            Thread.currentThread().interrupt();
+
+        updateThread = null;
+
+        synchronized(updateLock)
+        {
+            // An update may have been queued but never started
+            if(updatePending)
+            {
+                updatePending = false;
+                queueManager.clear();
+            }
+
+            if(updateReady)
+                swapGeometry();
+
+            int size = patches.size();
+            for(int i = 0; i < size; i++)
+                patches.get(i).endBackgroundGeometry();
+
+            if(freePatchList != null)
+            {
+                for(ROAMPatch p : freePatchList)
+                    p.endBackgroundGeometry();
+            }
+        }
+    }
+
+    /**
+     * Check whether the terrain is being updated in the background.
+     *
+     * @return true if splits, merges and geometry are built on another thread
+     */
+    public boolean isBackgroundUpdates()
+    {
+        return updateThread != null;
+    }
+
+    /**
+     * Set the longest time each call to {@link #setView} may spend splitting
+     * and merging triangles. Once the time is used up, the remaining work is
+     * left queued and picked up on the next call, so the terrain converges
+     * on the required accuracy over a few frames rather than stalling one.
+     * A value of zero or less removes the limit, which is the default.
+     *
+     * @param nanos The time budget in nanoseconds
+     */
+    public void setSplitMergeBudget(long nanos)
+    {
+        splitMergeBudget = nanos < 0 ? 0 : nanos;
+    }
+
+    /**
+     * Get the time each call to {@link #setView} may spend splitting and
+     * merging triangles.
+     *
+     * @return The time budget in nanoseconds, or 0 for no limit
+     */
+    public long getSplitMergeBudget()
+    {
+        return splitMergeBudget;
+    }
+
+    /**
+     * Get the number of triangle splits made by the last call to
+     * {@link #setView}.
+     *
+     * @return The number of splits
+     */
+    public int getLastSplitCount()
+    {
+        return lastSplitCount;
+    }
+
+    /**
+     * Get the number of diamond merges made by the last call to
+     * {@link #setView}.
+     *
+     * @return The number of merges
+     */
+    public int getLastMergeCount()
+    {
+        return lastMergeCount;
+    }
+
+    /**
+     * Get the time taken by the last call to {@link #setView}, including
+     * tile loading, queue updates and geometry updates. With background
+     * updates, this and the other statistics describe the last update
+     * swapped in, and the time is that taken on the update thread.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getLastViewTime()
+    {
+        return lastViewTime;
+    }
+
+    /**
+     * Get the time the last call to {@link #setView} spent splitting and
+     * merging triangles.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getLastSplitMergeTime()
+    {
+        return lastSplitMergeTime;
+    }
+
+    /**
+     * Check whether the last call to {@link #setView} stopped splitting and
+     * merging because it ran out of time, leaving work for the next call.
+     *
+     * @return true if the time budget was used up
+     */
+    public boolean isSplitMergeBudgetExceeded()
+    {
+        return lastBudgetExceeded;
+    }
+
+    /**
+     * Split, merge and build the patch vertex data for the view handed over
+     * to the update thread, then flag the results as ready to swap in.
+     * Called on the update thread.
+     */
+    private void runBackgroundUpdate()
+    {
+        long start_time = System.nanoTime();
+
+        try
+        {
+            refineTerrain(updatePosition);
+
+            int size = patches.size();
+            for(int i = 0; i < size; i++)
+                patches.get(i).prepareGeometry();
+        }
+        catch(RuntimeException re)
+        {
+            I18nManager intl_mgr = I18nManager.getManager();
+            String msg = intl_mgr.getString(BACKGROUND_UPDATE_MSG_PROP);
+
+            DefaultErrorReporter.getDefaultReporter().errorReport(msg, re);
+        }
+
+        synchronized(updateLock)
+        {
+            frameViewTime = System.nanoTime() - start_time;
+            updatePending = false;
+            updateReady = true;
+            updateLock.notifyAll();
+        }
+    }
+
+    /**
+     * Hand a new view to the background update thread. If the thread is
+     * idle, the results of its last update are swapped in, new tiles are
+     * loaded and the thread is started on the view. If it is still busy,
+     * the view is ignored and the next call will try again.
+     *
+     * @param position The position of the camera
+     * @param direction The direction the camera is looking
+     */
+    private void scheduleView(Tuple3f position, Vector3f direction)
+    {
+        synchronized(updateLock)
+        {
+            if(updatePending)
+                return;
+
+            if(updateReady)
+                swapGeometry();
+
+            prepareView(position, direction);
+
+            updatePosition.set(position);
+            updatePending = true;
+            updateLock.notifyAll();
+        }
+    }
+
+    /**
+     * Swap the vertex data built by the last background update into the
+     * patches and have them update their geometry. Must be called holding
+     * the update lock while the update thread is idle.
+     */
+    private void swapGeometry()
+    {
+        int size = patches.size();
+
+        for(int i = 0; i < size; i++)
+        {
+            ROAMPatch p = patches.get(i);
+            p.swapGeometry();
+            p.updateGeometry();
+        }
+
+        updateReady = false;
+        publishStatistics(frameViewTime);
+    }
+
+    /**
+     * Start a new view. Sets up the queue and view frustum and loads any
+     * tiles needed for the new position.
+     *
+     * @param position The position of the camera
+     * @param direction The direction the camera is looking
+     */
+    private void prepareView(Tuple3f position, Vector3f direction)
+    {
+        queueManager.beginFrame();
         landscapeView.viewingPlatformMoved();
-        TreeNode splitCandidate;
-        TreeNode mergeCandidate;
-        boolean done;
 
         // Do terrain type specific processing first
         switch(terrainDataType)
@@ -269,21 +687,52 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
                 // do nothing
             default:
         }
+    }
+
+    /**
+     * Refresh the queue of triangles for the view and then split and merge
+     * until the terrain meets the required accuracy or the time budget runs
+     * out. The results are left in the frame statistics fields.
+     *
+     * @param position The position of the camera
+     */
+    private void refineTerrain(Tuple3f position)
+    {
+        TreeNode splitCandidate;
+        TreeNode mergeCandidate;
+        boolean done;
+        int splits = 0;
+        int merges = 0;
 
         int size = patches.size();
 
-        // Firstly set up the queue of triangles that need merging or splitting
+        // Firstly set up the queue of triangles that need merging or splitting.
+        // The queue is kept from the last frame, so this mostly nudges the
+        // existing entries to their new variances.
         for(int i = 0; i < size; i++)
         {
             ROAMPatch p = patches.get(i);
             p.setView(position, landscapeView, queueManager);
         }
 
+        queueManager.removeStaleTriangles();
+
         // ROAM away!
         done = false;
+        frameBudgetExceeded = false;
+
+        long roam_start = System.nanoTime();
+        long deadline = roam_start + splitMergeBudget;
 
         while(!done)
         {
+            if(splitMergeBudget > 0 && System.nanoTime() > deadline)
+            {
+                // Leave the rest of the queue for the next frame
+                frameBudgetExceeded = true;
+                break;
+            }
+
             splitCandidate = queueManager.getSplitCandidate();
             mergeCandidate = queueManager.getMergeCandidate();
 
@@ -296,6 +745,7 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
                     splitCandidate.forceSplit(position,
                                               landscapeView,
                                               queueManager);
+                    splits++;
                 }
                 else
                     done = true;
@@ -305,6 +755,7 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
                 if(mergeCandidate.variance < accuracy)
                 {
                     mergeCandidate.merge(queueManager);
+                    merges++;
                 }
                 else
                     done = true;
@@ -319,10 +770,12 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
                     splitCandidate.forceSplit(position,
                                               landscapeView,
                                               queueManager);
+                    splits++;
                 }
                 else if(mergeCandidate.variance < accuracy)
                 {
                     mergeCandidate.merge(queueManager);
+                    merges++;
                 }
             }
             else
@@ -331,14 +784,24 @@ public abstract class ROAMSplitMergeLandscape extends Landscape
             }
         }
 
-        // Finally, tell the geometry to be updated at the Java3D level.
-        for(int i = 0; i < size; i++)
-        {
-            ROAMPatch p = patches.get(i);
-            p.updateGeometry();
-        }
+        frameSplitCount = splits;
+        frameMergeCount = merges;
+        frameSplitMergeTime = System.nanoTime() - roam_start;
+    }
 
-        queueManager.clear();
+    /**
+     * Make the statistics of the update just completed visible through the
+     * getLast methods.
+     *
+     * @param viewTime The total time of the update
+     */
+    private void publishStatistics(long viewTime)
+    {
+        lastSplitCount = frameSplitCount;
+        lastMergeCount = frameMergeCount;
+        lastSplitMergeTime = frameSplitMergeTime;
+        lastBudgetExceeded = frameBudgetExceeded;
+        lastViewTime = viewTime;
     }
 
     /**
@@ -0,0 +1,307 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom;
+
+// External imports
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.util.ErrorReporter;
+
+/**
+ * Tests for the batch triangulation of polygon sets. Each result is checked
+ * by making sure every triangle faces the same way as its polygon and that
+ * the triangles add up to the polygon's area.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class BatchTriangulatorTest
+{
+    /** Allowed difference in areas */
+    private static final float EPSILON = 1e-4f;
+
+    /** Convex quad */
+    private static final float[] SQUARE = { 0, 0,  2, 0,  2, 2,  0, 2 };
+
+    /** Arrow head quad, concave at the third vertex */
+    private static final float[] DART = { 0, 0,  4, 2,  1, 2,  0, 4 };
+
+    /** House shape with the roof pushed in, concave at the fourth vertex */
+    private static final float[] NOTCHED = { 0, 0,  4, 0,  4, 4,  2, 1,  0, 4 };
+
+    /** U shape, concave at two vertices */
+    private static final float[] U_SHAPE =
+        { 0, 0,  3, 0,  3, 3,  2, 3,  2, 1,  1, 1,  1, 3,  0, 3 };
+
+    /** Square with a repeated corner, which must go to the ear cutter */
+    private static final float[] REPEATED = { 0, 0,  2, 0,  2, 0,  2, 2,  0, 2 };
+
+    @Test(groups = "unit")
+    public void testShapes()
+    {
+        float[][] shapes = { SQUARE, DART, NOTCHED, U_SHAPE, REPEATED };
+        PolygonSet set = new PolygonSet(shapes, 1);
+
+        BatchTriangulator triangulator = new BatchTriangulator();
+        int[] result = set.triangulate(triangulator);
+
+        // The repeated vertex gives one degenerate triangle less
+        assertEquals(result[0], 2 + 2 + 3 + 6 + 2, "Wrong triangle total");
+
+        assertEquals(set.triangleStart[1], 2, "Wrong slot start");
+        assertEquals(set.triangleStart[shapes.length], 2 + 2 + 3 + 6 + 3,
+                     "Wrong slot total");
+
+        set.check(shapes);
+    }
+
+    @Test(groups = "unit")
+    public void testParallelMatchesSerial()
+    {
+        float[][] shapes = { SQUARE, DART, NOTCHED, U_SHAPE, REPEATED };
+        PolygonSet set = new PolygonSet(shapes, 400);
+
+        BatchTriangulator triangulator = new BatchTriangulator();
+        triangulator.setParallel(false);
+        assertFalse(triangulator.isParallel(), "Parallel not disabled");
+
+        int serial = set.triangulate(triangulator)[0];
+        int[] serial_output = set.output.clone();
+        int[] serial_counts = set.triangleCount.clone();
+
+        triangulator.setParallel(true);
+        int parallel = set.triangulate(triangulator)[0];
+
+        assertEquals(parallel, serial, "Different triangle totals");
+        assertEquals(set.triangleCount, serial_counts, "Different face counts");
+        assertEquals(set.output, serial_output, "Different output");
+
+        set.check(shapes);
+    }
+
+    @Test(groups = "unit")
+    public void testErrors()
+    {
+        PolygonSet set = new PolygonSet(new float[][] { SQUARE, DART }, 1);
+
+        // Point the dart at a vertex that doesn't exist
+        set.coordIndex[set.faceStart[1] + 2] = 1000;
+
+        final List<String> messages = new ArrayList<>();
+
+        BatchTriangulator triangulator = new BatchTriangulator();
+        triangulator.setErrorReporter(new ErrorReporter()
+        {
+            @Override
+            public void partialReport(String msg)
+            {
+            }
+
+            @Override
+            public void messageReport(String msg)
+            {
+            }
+
+            @Override
+            public void warningReport(String msg, Throwable th)
+            {
+                messages.add(msg);
+            }
+
+            @Override
+            public void errorReport(String msg, Throwable th)
+            {
+                messages.add(msg);
+            }
+
+            @Override
+            public void fatalErrorReport(String msg, Throwable th)
+            {
+                messages.add(msg);
+            }
+        });
+
+        int[] result = set.triangulate(triangulator);
+
+        assertEquals(result[0], 2, "Bad face not skipped");
+        assertEquals(set.triangleCount[1], 0, "Bad face has triangles");
+        assertEquals(messages.size(), 1, "Bad face not reported");
+
+        try
+        {
+            triangulator.triangulateConcavePolygons(set.coords,
+                                                    set.coordIndex,
+                                                    set.faceStart,
+                                                    set.faceSize,
+                                                    set.numFaces,
+                                                    true,
+                                                    set.triangleStart,
+                                                    set.triangleCount,
+                                                    new int[3]);
+            fail("Short output accepted");
+        }
+        catch(InvalidArraySizeException iase)
+        {
+            // Expected
+        }
+    }
+
+    /**
+     * A set of flat polygons laid out in an IndexedFaceSet style index list,
+     * copied a number of times at different heights.
+     */
+    private static class PolygonSet
+    {
+        float[] coords;
+        int[] coordIndex;
+        int[] faceStart;
+        int[] faceSize;
+        int numFaces;
+        int[] triangleStart;
+        int[] triangleCount;
+        int[] output;
+
+        /**
+         * Build the set from 2D outlines.
+         *
+         * @param shapes The outlines, x and y per vertex
+         * @param copies The number of times to repeat the outlines
+         */
+        PolygonSet(float[][] shapes, int copies)
+        {
+            int num_vtx = 0;
+
+            for(float[] s : shapes)
+                num_vtx += s.length / 2;
+
+            numFaces = shapes.length * copies;
+            coords = new float[num_vtx * copies * 3];
+            coordIndex = new int[(num_vtx + shapes.length) * copies];
+            faceStart = new int[numFaces];
+            faceSize = new int[numFaces];
+
+            int vtx = 0;
+            int idx = 0;
+            int face = 0;
+
+            for(int c = 0; c < copies; c++)
+            {
+                for(float[] s : shapes)
+                {
+                    faceStart[face] = idx;
+                    faceSize[face] = s.length / 2;
+                    face++;
+
+                    for(int i = 0; i < s.length / 2; i++)
+                    {
+                        coords[vtx * 3] = s[i * 2];
+                        coords[vtx * 3 + 1] = s[i * 2 + 1];
+                        coords[vtx * 3 + 2] = c;
+                        coordIndex[idx++] = vtx++;
+                    }
+
+                    coordIndex[idx++] = -1;
+                }
+            }
+
+            triangleStart = new int[numFaces + 1];
+            triangleCount = new int[numFaces];
+            output = new int[BatchTriangulator.getMaxTriangleCount(faceSize, numFaces) * 3];
+        }
+
+        /**
+         * Run the triangulator over the set.
+         *
+         * @param triangulator The triangulator to use
+         * @return Single element holding the total triangle count
+         */
+        int[] triangulate(BatchTriangulator triangulator)
+        {
+            int total = triangulator.triangulateConcavePolygons(coords,
+                                                                coordIndex,
+                                                                faceStart,
+                                                                faceSize,
+                                                                numFaces,
+                                                                true,
+                                                                triangleStart,
+                                                                triangleCount,
+                                                                output);
+            return new int[] { total };
+        }
+
+        /**
+         * Check that every face is covered by its triangles.
+         *
+         * @param shapes The outlines the set was built from
+         */
+        void check(float[][] shapes)
+        {
+            for(int f = 0; f < numFaces; f++)
+            {
+                float[] shape = shapes[f % shapes.length];
+                int count = triangleCount[f];
+                float area = 0;
+
+                assertTrue(count > 0, "Face " + f + " failed");
+
+                for(int t = 0; t < count; t++)
+                {
+                    int out = (triangleStart[f] + t) * 3;
+                    int a = coordIndex[output[out]] * 3;
+                    int b = coordIndex[output[out + 1]] * 3;
+                    int c = coordIndex[output[out + 2]] * 3;
+
+                    for(int i = 0; i < 3; i++)
+                    {
+                        int pos = output[out + i];
+                        assertTrue(pos >= faceStart[f] &&
+                                   pos < faceStart[f] + faceSize[f],
+                                   "Position outside face " + f);
+                    }
+
+                    float tri = ((coords[b] - coords[a]) * (coords[c + 1] - coords[a + 1]) -
+                                 (coords[c] - coords[a]) * (coords[b + 1] - coords[a + 1])) / 2;
+
+                    assertTrue(tri >= 0, "Triangle " + t + " of face " + f + " flipped");
+                    area += tri;
+                }
+
+                assertEquals(area, polygonArea(shape), EPSILON,
+                             "Triangles don't cover face " + f);
+            }
+        }
+
+        /**
+         * Area of a 2D outline.
+         *
+         * @param shape The outline, x and y per vertex
+         * @return The area, positive for counter-clockwise outlines
+         */
+        private float polygonArea(float[] shape)
+        {
+            int n = shape.length / 2;
+            float area = 0;
+
+            for(int i = 0; i < n; i++)
+            {
+                int j = (i + 1) % n;
+                area += shape[i * 2] * shape[j * 2 + 1] - shape[j * 2] * shape[i * 2 + 1];
+            }
+
+            return area / 2;
+        }
+    }
+}
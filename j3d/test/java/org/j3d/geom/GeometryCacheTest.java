@@ -0,0 +1,140 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom;
+
+// External imports
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+// None
+
+/**
+ * Tests for the cache of generated primitive geometry.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class GeometryCacheTest
+{
+    @Test(groups = "unit")
+    public void testSharedArrays()
+    {
+        GeometryCache cache = new GeometryCache();
+
+        GeometryData first = cache.getSphere(1, 16, false, createRequest());
+        GeometryData second = cache.getSphere(1, 16, false, createRequest());
+
+        assertEquals(cache.getMissCount(), 1, "Wrong miss count");
+        assertEquals(cache.getHitCount(), 1, "Wrong hit count");
+        assertEquals(cache.getCachedCount(), 1, "Wrong cached count");
+
+        assertNotSame(second, first, "Holder not copied");
+        assertSame(second.coordinates, first.coordinates, "Coordinates not shared");
+        assertSame(second.normals, first.normals, "Normals not shared");
+        assertSame(second.textureCoordinates,
+                   first.textureCoordinates,
+                   "Texture coordinates not shared");
+        assertSame(second.stripCounts, first.stripCounts, "Strips not shared");
+        assertEquals(second.vertexCount, first.vertexCount, "Wrong vertex count");
+        assertEquals(second.numStrips, first.numStrips, "Wrong strip count");
+
+        // Compare to a freshly generated sphere
+        GeometryData direct = createRequest();
+        new SphereGenerator(1, 16, false).generate(direct);
+
+        assertEquals(first.vertexCount, direct.vertexCount, "Wrong vertex count");
+        assertEquals(first.coordinates, direct.coordinates, "Wrong coordinates");
+        assertEquals(first.normals, direct.normals, "Wrong normals");
+    }
+
+    @Test(groups = "unit")
+    public void testDifferentShapes()
+    {
+        GeometryCache cache = new GeometryCache();
+
+        GeometryData base = cache.getCylinder(2, 1, 16, true, true, true, createRequest());
+
+        assertNotSame(cache.getCylinder(2, 1, 16, false, true, true, createRequest()).coordinates,
+                      base.coordinates,
+                      "Flags ignored");
+        assertNotSame(cache.getCylinder(2, 1, 32, true, true, true, createRequest()).coordinates,
+                      base.coordinates,
+                      "Facets ignored");
+        assertNotSame(cache.getCylinder(3, 1, 16, true, true, true, createRequest()).coordinates,
+                      base.coordinates,
+                      "Height ignored");
+
+        GeometryData tris = new GeometryData();
+        tris.geometryType = GeometryData.TRIANGLES;
+
+        GeometryData tri_cyl = cache.getCylinder(2, 1, 16, true, true, true, tris);
+
+        assertNotSame(tri_cyl.coordinates, base.coordinates, "Type ignored");
+        assertNull(tri_cyl.normals, "Normals without request");
+
+        cache.getCone(2, 1, 16, true, true, tris);
+        cache.getTorus(0.25f, 1, 8, 16, createRequest());
+        cache.getBox(1, 2, 3, createRequest());
+
+        assertEquals(cache.getCachedCount(), 8, "Wrong cached count");
+        assertEquals(cache.getHitCount(), 0, "Unexpected hits");
+
+        cache.clear();
+
+        assertEquals(cache.getCachedCount(), 0, "Not cleared");
+        assertEquals(cache.getMissCount(), 0, "Counts not reset");
+    }
+
+    @Test(groups = "unit")
+    public void testMaxEntries()
+    {
+        GeometryCache cache = new GeometryCache();
+        cache.setMaxEntries(1);
+
+        GeometryData first = cache.getBox(1, 1, 1, createRequest());
+        GeometryData other = cache.getBox(2, 2, 2, createRequest());
+        GeometryData again = cache.getBox(2, 2, 2, createRequest());
+
+        assertEquals(cache.getCachedCount(), 1, "Limit not kept");
+        assertNotNull(other.coordinates, "Uncached shape not generated");
+        assertNotSame(again.coordinates, other.coordinates, "Uncached shape shared");
+        assertSame(cache.getBox(1, 1, 1, createRequest()).coordinates,
+                   first.coordinates,
+                   "Cached shape not shared");
+
+        try
+        {
+            cache.setMaxEntries(-1);
+            fail("Negative limit accepted");
+        }
+        catch(IllegalArgumentException iae)
+        {
+            // Expected
+        }
+    }
+
+    /**
+     * Create a request for triangle strips with normals and texture
+     * coordinates.
+     *
+     * @return A new request
+     */
+    private GeometryData createRequest()
+    {
+        GeometryData data = new GeometryData();
+        data.geometryType = GeometryData.TRIANGLE_STRIPS;
+        data.geometryComponents = GeometryData.NORMAL_DATA |
+                                  GeometryData.TEXTURE_2D_DATA;
+
+        return data;
+    }
+}
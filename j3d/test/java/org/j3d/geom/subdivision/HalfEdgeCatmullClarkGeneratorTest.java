@@ -0,0 +1,309 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom.subdivision;
+
+// External imports
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.geom.InvalidArraySizeException;
+
+/**
+ * Tests for the half-edge Catmull-Clark generator, checking the new points
+ * against the values given by the standard rules.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class HalfEdgeCatmullClarkGeneratorTest
+{
+    /** Allowed difference on a coordinate */
+    private static final float EPSILON = 1e-5f;
+
+    /** Corners of the cube from -1 to 1 */
+    private static final float[] CUBE_COORDS =
+    {
+        -1, -1, -1,   1, -1, -1,   1, 1, -1,   -1, 1, -1,
+        -1, -1,  1,   1, -1,  1,   1, 1,  1,   -1, 1,  1
+    };
+
+    /** Faces of the cube, wound outwards */
+    private static final int[] CUBE_FACES =
+    {
+        0, 3, 2, 1,
+        4, 5, 6, 7,
+        0, 1, 5, 4,
+        2, 3, 7, 6,
+        1, 2, 6, 5,
+        0, 4, 7, 3
+    };
+
+    /** Corners of a regular tetrahedron centred on the origin */
+    private static final float[] TETRA_COORDS =
+    {
+        1, 1, 1,   1, -1, -1,   -1, 1, -1,   -1, -1, 1
+    };
+
+    /** Faces of the tetrahedron */
+    private static final int[] TETRA_FACES =
+    {
+        0, 1, 2,
+        0, 3, 1,
+        0, 2, 3,
+        1, 3, 2
+    };
+
+    @Test(groups = "unit")
+    public void testCube()
+    {
+        HalfEdgeCatmullClarkGenerator gen = new HalfEdgeCatmullClarkGenerator();
+        gen.setControlMesh(CUBE_COORDS, CUBE_FACES, counts(6, 4), 6, null);
+
+        GeometryData data = new GeometryData();
+        data.geometryType = GeometryData.INDEXED_QUADS;
+        data.geometryComponents = GeometryData.NORMAL_DATA;
+
+        assertEquals(gen.getVertexCount(data), 26, "Wrong predicted count");
+
+        gen.generate(data);
+
+        assertEquals(data.vertexCount, 26, "Wrong vertex count");
+        assertEquals(data.indexesCount, 24 * 4, "Wrong index count");
+        assertEquals(gen.getFaceCount(), 24, "Wrong face count");
+
+        // Original corners keep their index
+        assertPoint(data.coordinates, 6, 5 / 9f, 5 / 9f, 5 / 9f);
+
+        // Face points follow the vertices
+        assertPoint(data.coordinates, 8 + 4, 1, 0, 0);
+
+        // Every edge point is 3/4 of the way out on two axes
+        for(int i = 14; i < 26; i++)
+        {
+            int zeros = 0;
+
+            for(int j = 0; j < 3; j++)
+            {
+                float v = Math.abs(data.coordinates[i * 3 + j]);
+
+                if(v < EPSILON)
+                    zeros++;
+                else
+                    assertEquals(v, 0.75f, EPSILON, "Wrong edge point " + i);
+            }
+
+            assertEquals(zeros, 1, "Edge point not on an axis plane " + i);
+        }
+
+        float n = (float)(1 / Math.sqrt(3));
+        assertPoint(data.normals, 6, n, n, n);
+
+        // Every vertex is used by at least three quads
+        int[] uses = new int[26];
+
+        for(int i = 0; i < data.indexesCount; i++)
+            uses[data.indexes[i]]++;
+
+        for(int i = 0; i < 26; i++)
+            assertTrue(uses[i] >= 3, "Vertex " + i + " used " + uses[i]);
+    }
+
+    @Test(groups = "unit")
+    public void testTetrahedron()
+    {
+        HalfEdgeCatmullClarkGenerator gen = new HalfEdgeCatmullClarkGenerator();
+        gen.setControlMesh(TETRA_COORDS, TETRA_FACES, counts(4, 3), 4, null);
+
+        GeometryData data = new GeometryData();
+        data.geometryType = GeometryData.INDEXED_TRIANGLES;
+
+        gen.generate(data);
+
+        assertEquals(data.vertexCount, 4 + 4 + 6, "Wrong vertex count");
+        assertEquals(data.indexesCount, 12 * 6, "Wrong index count");
+
+        // Original vertex moves to 7/27 of its position
+        float v = 7 / 27f;
+        assertPoint(data.coordinates, 0, v, v, v);
+        assertPoint(data.coordinates, 1, v, -v, -v);
+
+        // Face points are the triangle centroids
+        assertPoint(data.coordinates, 4, 1 / 3f, 1 / 3f, -1 / 3f);
+
+        // Edge points are a third of the sum of the end points. The first
+        // edge numbered is from vertex 0 to 1.
+        assertPoint(data.coordinates, 8, 2 / 3f, 0, 0);
+    }
+
+    @Test(groups = "unit")
+    public void testOpenGrid()
+    {
+        // 3x3 quads in the z = 0 plane, with the outer corners tagged
+        int size = 4;
+        float[] coords = new float[size * size * 3];
+        int[] tags = new int[size * size];
+        int[] faces = new int[9 * 4];
+
+        for(int i = 0; i < size; i++)
+        {
+            for(int j = 0; j < size; j++)
+            {
+                coords[(i * size + j) * 3] = j;
+                coords[(i * size + j) * 3 + 1] = i;
+            }
+        }
+
+        tags[0] = SubdivisionTypes.CORNER_VERTEX;
+        tags[size - 1] = SubdivisionTypes.CORNER_VERTEX;
+        tags[size * (size - 1)] = SubdivisionTypes.CORNER_VERTEX;
+        tags[size * size - 1] = SubdivisionTypes.CORNER_VERTEX;
+
+        int idx = 0;
+
+        for(int i = 0; i < size - 1; i++)
+        {
+            for(int j = 0; j < size - 1; j++)
+            {
+                int base = i * size + j;
+                faces[idx++] = base;
+                faces[idx++] = base + 1;
+                faces[idx++] = base + size + 1;
+                faces[idx++] = base + size;
+            }
+        }
+
+        HalfEdgeCatmullClarkGenerator gen = new HalfEdgeCatmullClarkGenerator();
+        gen.setControlMesh(coords, faces, counts(9, 4), 9, tags);
+        gen.setNumSubdivisions(3);
+
+        GeometryData data = new GeometryData();
+        data.geometryType = GeometryData.INDEXED_QUADS;
+
+        int expected = gen.getVertexCount(data);
+        gen.generate(data);
+
+        // A regular grid subdivides into a finer regular grid
+        int fine = 3 * 8 + 1;
+        assertEquals(expected, fine * fine, "Wrong predicted count");
+        assertEquals(data.vertexCount, expected, "Wrong vertex count");
+
+        for(int i = 0; i < data.vertexCount; i++)
+        {
+            assertEquals(data.coordinates[i * 3 + 2], 0, EPSILON,
+                         "Vertex left the plane " + i);
+            assertTrue(data.coordinates[i * 3] > -EPSILON &&
+                       data.coordinates[i * 3] < 3 + EPSILON,
+                       "Vertex outside the grid " + i);
+        }
+
+        assertPoint(data.coordinates, 0, 0, 0, 0);
+        assertPoint(data.coordinates, size - 1, 3, 0, 0);
+        assertPoint(data.coordinates, size * size - 1, 3, 3, 0);
+
+        // Untagged boundary vertices stay on the boundary line
+        assertEquals(data.coordinates[1 * 3 + 1], 0, EPSILON, "Left boundary");
+    }
+
+    @Test(groups = "unit")
+    public void testCreaseAndLevels()
+    {
+        int[] edge_flags = new int[CUBE_FACES.length];
+
+        // Crease all of the edges around the top face
+        for(int i = 4; i < 8; i++)
+            edge_flags[i] = SubdivisionTypes.CREASE_EDGE;
+
+        HalfEdgeCatmullClarkGenerator gen = new HalfEdgeCatmullClarkGenerator();
+        gen.setControlMesh(CUBE_COORDS, CUBE_FACES, counts(6, 4), 6, null, edge_flags);
+        gen.setNumSubdivisions(2);
+
+        GeometryData data = new GeometryData();
+        data.geometryType = GeometryData.TRIANGLES;
+        data.geometryComponents = GeometryData.NORMAL_DATA;
+
+        int expected = gen.getVertexCount(data);
+        gen.generate(data);
+
+        assertEquals(expected, 96 * 6, "Wrong predicted count");
+        assertEquals(data.vertexCount, expected, "Wrong vertex count");
+
+        // Go back a level, which must subdivide again
+        data = new GeometryData();
+        data.geometryType = GeometryData.INDEXED_QUADS;
+        gen.setNumSubdivisions(1);
+        gen.generate(data);
+
+        // Edge point of the crease edge 4-5 is its midpoint
+        boolean found = false;
+
+        for(int i = 14; i < 26; i++)
+        {
+            float x = data.coordinates[i * 3];
+            float y = data.coordinates[i * 3 + 1];
+            float z = data.coordinates[i * 3 + 2];
+
+            if(Math.abs(x) < EPSILON && Math.abs(y + 1) < EPSILON &&
+               Math.abs(z - 1) < EPSILON)
+                found = true;
+        }
+
+        assertTrue(found, "Crease edge point not at the midpoint");
+
+        // Top corners follow the crease curve rule
+        assertPoint(data.coordinates, 6, 0.75f, 0.75f, 1);
+
+        try
+        {
+            data.coordinates = new float[3];
+            gen.generate(data);
+            fail("Short array accepted");
+        }
+        catch(InvalidArraySizeException iase)
+        {
+            // Expected
+        }
+    }
+
+    /**
+     * Create a face count array with every face the same size.
+     *
+     * @param numFaces The number of faces
+     * @param size The number of vertices of each face
+     * @return The new array
+     */
+    private int[] counts(int numFaces, int size)
+    {
+        int[] ret_val = new int[numFaces];
+
+        for(int i = 0; i < numFaces; i++)
+            ret_val[i] = size;
+
+        return ret_val;
+    }
+
+    /**
+     * Check the value of a vertex in a flat array.
+     *
+     * @param coords The array to check
+     * @param vertex The index of the vertex
+     * @param x The expected x value
+     * @param y The expected y value
+     * @param z The expected z value
+     */
+    private void assertPoint(float[] coords, int vertex, float x, float y, float z)
+    {
+        assertEquals(coords[vertex * 3], x, EPSILON, "Wrong x for " + vertex);
+        assertEquals(coords[vertex * 3 + 1], y, EPSILON, "Wrong y for " + vertex);
+        assertEquals(coords[vertex * 3 + 2], z, EPSILON, "Wrong z for " + vertex);
+    }
+}
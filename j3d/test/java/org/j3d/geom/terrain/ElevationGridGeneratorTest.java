@@ -0,0 +1,90 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.geom.terrain;
+
+// External imports
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+
+/**
+ * Tests for the elevation grid generator, checking that large grids give
+ * the same result whether they are generated in parallel or not.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class ElevationGridGeneratorTest
+{
+    /** Points across a grid large enough to be split into bands */
+    private static final int WIDTH_POINTS = 300;
+
+    /** Points down a grid large enough to be split into bands */
+    private static final int DEPTH_POINTS = 257;
+
+    @Test(groups = "unit")
+    public void testParallelMatchesSerial()
+    {
+        float[] heights = new float[WIDTH_POINTS * DEPTH_POINTS];
+
+        for(int i = 0; i < heights.length; i++)
+            heights[i] = (float)Math.sin(i * 0.37) * (i % 11);
+
+        int[] types = {
+            GeometryData.TRIANGLES,
+            GeometryData.QUADS,
+            GeometryData.TRIANGLE_STRIPS,
+            GeometryData.INDEXED_TRIANGLE_STRIPS
+        };
+
+        for(int type : types)
+        {
+            GeometryData serial = generate(heights, type, false);
+            GeometryData parallel = generate(heights, type, true);
+
+            assertEquals(parallel.vertexCount, serial.vertexCount, "Wrong vertex count");
+            assertEquals(parallel.coordinates, serial.coordinates, "Wrong coordinates");
+            assertEquals(parallel.normals, serial.normals, "Wrong normals");
+            assertEquals(parallel.textureCoordinates,
+                         serial.textureCoordinates,
+                         "Wrong texture coordinates");
+        }
+    }
+
+    /**
+     * Generate a grid from the given heights.
+     *
+     * @param heights The height of each point
+     * @param type The geometry type to generate
+     * @param parallel true to allow parallel generation
+     * @return The generated geometry
+     */
+    private GeometryData generate(float[] heights, int type, boolean parallel)
+    {
+        ElevationGridGenerator generator =
+            new ElevationGridGenerator(40, 30, WIDTH_POINTS, DEPTH_POINTS,
+                                       heights, 0, true);
+        generator.setParallel(parallel);
+
+        assertEquals(generator.isParallel(), parallel, "Flag not set");
+
+        GeometryData data = new GeometryData();
+        data.geometryType = type;
+        data.geometryComponents = GeometryData.NORMAL_DATA |
+                                  GeometryData.TEXTURE_2D_DATA;
+
+        generator.generate(data);
+
+        return data;
+    }
+}
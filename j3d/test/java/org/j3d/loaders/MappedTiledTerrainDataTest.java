@@ -0,0 +1,219 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders;
+
+// External imports
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.loaders.vterrain.BTParser;
+
+/**
+ * Tests that the memory mapped terrain data matches the heights read by
+ * parsing a whole BT file, and that its tile cache stays bounded.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class MappedTiledTerrainDataTest
+{
+    /** Size of a BT header */
+    private static final int HEADER_SIZE = 256;
+
+    @Test(groups = "unit")
+    public void testFloatHeights() throws Exception
+    {
+        File file = writeBTFile(33, 17, false, 1);
+
+        float[][] expected = parseFile(file);
+
+        try(FileChannel channel = FileChannel.open(file.toPath()))
+        {
+            BTParser parser = new BTParser();
+            MappedTiledTerrainData data = parser.parseMapped(channel);
+
+            assertNull(parser.getHeights(), "Mapped parse should not read heights");
+            assertEquals(data.getTileSize(), 16, "Wrong tile size");
+
+            Rectangle bounds = new Rectangle();
+            data.getTilesAvailableBounds(bounds);
+            assertEquals(bounds.width, 2, "Wrong tile width");
+            assertEquals(bounds.height, 1, "Wrong tile depth");
+
+            for(int x = 0; x < 33; x++)
+                for(int y = 0; y < 17; y++)
+                    assertEquals(data.getHeightFromGrid(x, y),
+                                 expected[x][y],
+                                 "Wrong height at " + x + " " + y);
+
+            // Off the grid clamps to the edge
+            assertEquals(data.getHeightFromGrid(40, -3), expected[32][0],
+                         "Height not clamped");
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testScaledShortHeights() throws Exception
+    {
+        File file = writeBTFile(17, 17, true, 0.5f);
+
+        float[][] expected = parseFile(file);
+
+        try(FileChannel channel = FileChannel.open(file.toPath()))
+        {
+            MappedTiledTerrainData data = new BTParser().parseMapped(channel);
+
+            float[] coord = new float[3];
+
+            for(int x = 0; x < 17; x++)
+            {
+                for(int y = 0; y < 17; y++)
+                {
+                    data.getCoordinate(coord, x, y);
+                    assertEquals(coord[1], expected[x][y],
+                                 "Wrong height at " + x + " " + y);
+                }
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testTileCache() throws Exception
+    {
+        File file = writeBTFile(65, 65, false, 1);
+
+        try(FileChannel channel = FileChannel.open(file.toPath()))
+        {
+            // A 65x65 grid has 64 point tiles, making a 2x2 set of tiles.
+            // Only keep two of them.
+            MappedTiledTerrainData data =
+                new BTParser().parseMapped(channel, 2);
+
+            assertEquals(data.getNumCachedTiles(), 0, "Tiles decoded on open");
+
+            // Walk every point twice. Only two tiles are kept, so each tile
+            // is decoded again on the second pass.
+            for(int pass = 0; pass < 2; pass++)
+                for(int x = 0; x < 65; x++)
+                    for(int y = 0; y < 65; y++)
+                        data.getHeightFromGrid(x, y);
+
+            assertTrue(data.getNumCachedTiles() <= 2, "Cache not bounded");
+
+            // Repeated reads of the same point do not decode again
+            long decoded = data.getTilesDecoded();
+            data.getHeightFromGrid(3, 3);
+            long after_first = data.getTilesDecoded();
+            data.getHeightFromGrid(4, 5);
+            assertEquals(data.getTilesDecoded(), after_first,
+                         "Cached tile decoded again");
+            assertTrue(after_first - decoded <= 1, "Too many decodes");
+
+            // An active area larger than the cache grows it to fit
+            data.setActiveBounds(new Rectangle(0, 0, 1, 1));
+            assertEquals(data.getMaxCachedTiles(), 4, "Cache not grown");
+            assertEquals(data.getNumCachedTiles(), 4, "Active tiles not fetched");
+
+            decoded = data.getTilesDecoded();
+            for(int x = 0; x < 65; x++)
+                for(int y = 0; y < 65; y++)
+                    data.getHeightFromGrid(x, y);
+
+            assertEquals(data.getTilesDecoded(), decoded,
+                         "Active tiles decoded again");
+
+            data.setActiveBounds(null);
+            assertEquals(data.getMaxCachedTiles(), 2, "Cache not restored");
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Parse a whole BT file the normal way.
+     */
+    private float[][] parseFile(File file) throws IOException
+    {
+        try(FileInputStream is = new FileInputStream(file))
+        {
+            return new BTParser(is).parse();
+        }
+    }
+
+    /**
+     * Write a v1.3 BT file with distinct values at each point.
+     */
+    private File writeBTFile(int columns,
+                             int rows,
+                             boolean shorts,
+                             float scale)
+        throws IOException
+    {
+        int sample_size = shorts ? 2 : 4;
+        ByteBuffer buf =
+            ByteBuffer.allocate(HEADER_SIZE + columns * rows * sample_size);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+
+        buf.put("binterr1.3".getBytes("US-ASCII"));
+        buf.putInt(columns);
+        buf.putInt(rows);
+        buf.putShort((short)sample_size);
+        buf.putShort((short)(shorts ? 0 : 1));
+        buf.putShort((short)1);     // horizontal units
+        buf.putShort((short)0);     // UTM zone
+        buf.putShort((short)6326);  // datum
+        buf.putDouble(0);
+        buf.putDouble((rows - 1) * 10);
+        buf.putDouble(0);
+        buf.putDouble((columns - 1) * 10);
+        buf.putShort((short)0);     // external projection
+        buf.putFloat(scale);
+
+        buf.position(HEADER_SIZE);
+
+        for(int c = 0; c < columns; c++)
+        {
+            for(int r = 0; r < rows; r++)
+            {
+                if(shorts)
+                    buf.putShort((short)(c * 100 - r));
+                else
+                    buf.putFloat(c * 100.25f + r);
+            }
+        }
+
+        File file = File.createTempFile("terrain", ".bt");
+        Files.write(file.toPath(), buf.array(), StandardOpenOption.WRITE);
+
+        return file;
+    }
+}
@@ -0,0 +1,489 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.c3d;
+
+// External imports
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+// None
+
+/**
+ * Tests that the C3D frame reader decodes the frames of files written in each
+ * of the processor formats.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class C3DFrameReaderTest
+{
+    /** Processor type of Intel files */
+    private static final int INTEL = 1;
+
+    /** Processor type of DEC files */
+    private static final int DEC = 2;
+
+    /** Processor type of MIPS files */
+    private static final int MIPS = 3;
+
+    /** Size of a block of a C3D file */
+    private static final int BLOCK_SIZE = 512;
+
+    /** The number of trajectories written */
+    private static final int NUM_TRAJECTORIES = 3;
+
+    /** The number of analog channels written */
+    private static final int NUM_CHANNELS = 2;
+
+    /** The number of analog samples per frame written */
+    private static final int NUM_SAMPLES = 2;
+
+    /** The scale of integer data */
+    private static final float INT_SCALE = 0.5f;
+
+    @Test(groups = "unit")
+    public void testFloatFormats() throws Exception
+    {
+        // Enough frames to need more than one pass of the decode buffer
+        checkFile(INTEL, true, 40000);
+        checkFile(DEC, true, 300);
+        checkFile(MIPS, true, 300);
+    }
+
+    @Test(groups = "unit")
+    public void testIntFormats() throws Exception
+    {
+        // The frame count is limited to 16 bits by the header
+        checkFile(INTEL, false, 300);
+        checkFile(DEC, false, 300);
+        checkFile(MIPS, false, 60000);
+    }
+
+    @Test(groups = "unit")
+    public void testStream() throws Exception
+    {
+        final int num_frames = 1000;
+        File file = writeFile(INTEL, true, num_frames);
+
+        try
+        {
+            C3DFrameReader reader = new C3DFrameReader(file);
+
+            final int[] frames = new int[1];
+            final int[] blocks = new int[1];
+
+            C3DParseObserver obs = new C3DParseObserver()
+            {
+                @Override
+                public boolean headerComplete(C3DHeader header)
+                {
+                    return true;
+                }
+
+                @Override
+                public boolean parametersComplete(C3DParameterGroup[] groups)
+                {
+                    return true;
+                }
+
+                @Override
+                public boolean trackDataAvailable(C3DTrajectoryData[] data)
+                {
+                    assertEquals(data.length, NUM_TRAJECTORIES, "Wrong trajectories");
+
+                    for(int j = 0; j < data.length; j++)
+                    {
+                        assertEquals(data[j].label, "M" + j, "Wrong label");
+
+                        for(int i = 0; i < data[j].numFrames; i++)
+                        {
+                            int frame = frames[0] + i;
+
+                            assertEquals(data[j].coordinates[i * 3 + 1],
+                                         value(frame, j, 1, true),
+                                         "Wrong coordinate of frame " + frame);
+                            assertEquals(data[j].cameraMasks[i],
+                                         (short)Math.max(mask(frame, j), 0),
+                                         "Wrong mask of frame " + frame);
+                        }
+                    }
+
+                    frames[0] += data[0].numFrames;
+                    blocks[0]++;
+
+                    return blocks[0] < 5;
+                }
+            };
+
+            reader.stream(obs, 64);
+            assertEquals(blocks[0], 5, "Streaming did not stop");
+            assertEquals(frames[0], 5 * 64, "Wrong frames streamed");
+
+            frames[0] = 0;
+            blocks[0] = -100;
+            reader.stream(obs, 64);
+            assertEquals(frames[0], num_frames, "Not all frames streamed");
+
+            C3DTrajectoryData[] data = reader.readTrajectories(10, 20);
+            assertEquals(data[2].numFrames, 20, "Wrong frame count");
+            assertEquals(data[2].coordinates[0], value(10, 2, 0, true), "Wrong start");
+
+            reader.close();
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Write a file and check everything read from it.
+     *
+     * @param proc The processor type to write
+     * @param floats true to write floating point data
+     * @param numFrames The number of frames to write
+     */
+    private void checkFile(int proc, boolean floats, int numFrames)
+        throws IOException
+    {
+        File file = writeFile(proc, floats, numFrames);
+
+        try
+        {
+            C3DFrameReader reader = new C3DFrameReader(file);
+
+            assertEquals(reader.getNumFrames(), numFrames, "Wrong frame count");
+            assertEquals(reader.getNumTrajectories(), NUM_TRAJECTORIES,
+                         "Wrong trajectory count");
+            assertEquals(reader.getNumAnalogValues(), NUM_CHANNELS * NUM_SAMPLES,
+                         "Wrong analog count");
+            assertEquals(reader.getTrajectoryLabel(1), "M1", "Wrong label");
+            assertEquals(reader.getFrameTime(60), 0.5f, 1e-6f, "Wrong frame time");
+
+            float[] coords = new float[numFrames * NUM_TRAJECTORIES * 3];
+            short[] masks = new short[numFrames * NUM_TRAJECTORIES];
+            float[] residuals = new float[numFrames * NUM_TRAJECTORIES];
+
+            reader.readFrames(0, numFrames, coords, masks, residuals);
+
+            for(int i = 0; i < numFrames; i++)
+            {
+                for(int j = 0; j < NUM_TRAJECTORIES; j++)
+                {
+                    int idx = i * NUM_TRAJECTORIES + j;
+
+                    for(int k = 0; k < 3; k++)
+                        assertEquals(coords[idx * 3 + k], value(i, j, k, floats),
+                                     "Wrong coordinate at frame " + i);
+
+                    if(mask(i, j) < 0)
+                    {
+                        assertEquals(masks[idx], 0, "Invalid point has mask");
+                        assertEquals(residuals[idx], -1f, "Invalid point residual");
+                    }
+                    else
+                    {
+                        float scale = floats ? 1 : INT_SCALE;
+
+                        assertEquals(masks[idx], mask(i, j), "Wrong mask");
+                        assertEquals(residuals[idx], (i % 200) * scale,
+                                     "Wrong residual");
+                    }
+                }
+            }
+
+            int start = numFrames / 3;
+            int count = numFrames / 2;
+            float[] marker = new float[count * 3];
+            reader.readMarker(2, start, count, marker);
+
+            for(int i = 0; i < count; i++)
+                assertEquals(marker[i * 3 + 2], value(start + i, 2, 2, floats),
+                             "Wrong marker coordinate");
+
+            float[] analog = new float[count * NUM_CHANNELS * NUM_SAMPLES];
+            reader.readAnalog(start, count, analog);
+
+            for(int i = 0; i < analog.length; i++)
+                assertEquals(analog[i],
+                             (float)analog(start + i / (NUM_CHANNELS * NUM_SAMPLES),
+                                           i % (NUM_CHANNELS * NUM_SAMPLES)),
+                             "Wrong analog value");
+
+            try
+            {
+                reader.readFrames(numFrames - 1, 2, coords, null, null);
+                fail("Read past the last frame");
+            }
+            catch(IllegalArgumentException iae)
+            {
+                // Expected
+            }
+
+            reader.close();
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * The coordinate value written to the file.
+     */
+    private static float value(int frame, int trajectory, int axis, boolean floats)
+    {
+        int raw = ((frame * 7 + trajectory * 13 + axis * 5) % 20000) - 10000;
+
+        return floats ? raw * 0.25f : raw * INT_SCALE;
+    }
+
+    /**
+     * The camera mask written to the file, or -1 for an invalid point.
+     */
+    private static int mask(int frame, int trajectory)
+    {
+        return (frame % 50 == 0 && trajectory == 1) ? -1 : (frame + trajectory) & 0x7F;
+    }
+
+    /**
+     * The analog value written to the file.
+     */
+    private static int analog(int frame, int value)
+    {
+        return (frame * 3 + value) % 1000 - 500;
+    }
+
+    /**
+     * Write a C3D file with one header block, one parameter block and the
+     * frame data.
+     *
+     * @param proc The processor type to write
+     * @param floats true to write floating point data
+     * @param numFrames The number of frames to write
+     * @return The file written
+     */
+    private File writeFile(int proc, boolean floats, int numFrames)
+        throws IOException
+    {
+        int value_size = floats ? 4 : 2;
+        int frame_size =
+            (NUM_TRAJECTORIES * 4 + NUM_CHANNELS * NUM_SAMPLES) * value_size;
+
+        byte[] buf = new byte[BLOCK_SIZE * 2 + frame_size * numFrames];
+
+        // Header block
+        buf[0] = 2;
+        buf[1] = 0x50;
+        writeShort(buf, 2, NUM_TRAJECTORIES, proc);
+        writeShort(buf, 4, NUM_CHANNELS * NUM_SAMPLES, proc);
+        writeShort(buf, 6, 1, proc);
+        writeShort(buf, 8, numFrames, proc);
+        writeFloat(buf, 12, floats ? -1 : INT_SCALE, proc);
+        writeShort(buf, 16, 3, proc);
+        writeShort(buf, 18, NUM_SAMPLES, proc);
+        writeFloat(buf, 20, 120, proc);
+
+        // Parameter block
+        int pos = BLOCK_SIZE;
+        buf[pos] = 1;
+        buf[pos + 1] = 0x50;
+        buf[pos + 2] = 1;
+        buf[pos + 3] = (byte)(83 + proc);
+
+        String[] labels = new String[NUM_TRAJECTORIES];
+        for(int i = 0; i < NUM_TRAJECTORIES; i++)
+            labels[i] = "M" + i;
+
+        String[] channels = new String[NUM_CHANNELS];
+        for(int i = 0; i < NUM_CHANNELS; i++)
+            channels[i] = "A" + i;
+
+        pos += 4;
+        pos = writeGroup(buf, pos, "POINT", -1, proc);
+        pos = writeLabels(buf, pos, "LABELS", 1, labels, proc, false);
+        pos = writeLabels(buf, pos, "DESCRIPTIONS", 1, labels, proc, false);
+        pos = writeGroup(buf, pos, "ANALOG", -2, proc);
+        pos = writeLabels(buf, pos, "LABELS", 2, channels, proc, false);
+        pos = writeLabels(buf, pos, "DESCRIPTIONS", 2, channels, proc, true);
+
+        // Frame data, starting at block 3
+        pos = BLOCK_SIZE * 2;
+
+        for(int i = 0; i < numFrames; i++)
+        {
+            for(int j = 0; j < NUM_TRAJECTORIES; j++)
+            {
+                for(int k = 0; k < 3; k++)
+                {
+                    float v = value(i, j, k, floats);
+
+                    if(floats)
+                        writeFloat(buf, pos, v, proc);
+                    else
+                        writeShort(buf, pos, (int)(v / INT_SCALE), proc);
+
+                    pos += value_size;
+                }
+
+                int m = mask(i, j);
+                int word = (m < 0) ? -1 : (m << 8) | (i % 200);
+
+                if(floats)
+                    writeFloat(buf, pos, word, proc);
+                else
+                    writeShort(buf, pos, word, proc);
+
+                pos += value_size;
+            }
+
+            for(int j = 0; j < NUM_CHANNELS * NUM_SAMPLES; j++)
+            {
+                if(floats)
+                    writeFloat(buf, pos, analog(i, j), proc);
+                else
+                    writeShort(buf, pos, analog(i, j), proc);
+
+                pos += value_size;
+            }
+        }
+
+        File file = File.createTempFile("frames", ".c3d");
+        Files.write(file.toPath(), buf);
+
+        return file;
+    }
+
+    /**
+     * Write a group record to the parameter block.
+     */
+    private int writeGroup(byte[] buf, int pos, String name, int id, int proc)
+    {
+        buf[pos++] = (byte)name.length();
+        buf[pos++] = (byte)id;
+
+        for(int i = 0; i < name.length(); i++)
+            buf[pos++] = (byte)name.charAt(i);
+
+        writeShort(buf, pos, 3, proc);
+        pos += 2;
+
+        // No description
+        buf[pos++] = 0;
+
+        return pos;
+    }
+
+    /**
+     * Write a 2D string parameter record to the parameter block.
+     */
+    private int writeLabels(byte[] buf,
+                            int pos,
+                            String name,
+                            int id,
+                            String[] labels,
+                            int proc,
+                            boolean last)
+    {
+        int width = 4;
+
+        buf[pos++] = (byte)name.length();
+        buf[pos++] = (byte)id;
+
+        for(int i = 0; i < name.length(); i++)
+            buf[pos++] = (byte)name.charAt(i);
+
+        writeShort(buf, pos, last ? 0 : 1, proc);
+        pos += 2;
+
+        buf[pos++] = -1;
+        buf[pos++] = 2;
+        buf[pos++] = (byte)width;
+        buf[pos++] = (byte)labels.length;
+
+        for(String label : labels)
+        {
+            for(int i = 0; i < width; i++)
+                buf[pos++] = (byte)((i < label.length()) ? label.charAt(i) : ' ');
+        }
+
+        // No description
+        buf[pos++] = 0;
+
+        return pos;
+    }
+
+    /**
+     * Write a 16 bit value in the byte order of a processor type.
+     */
+    private static void writeShort(byte[] buf, int pos, int value, int proc)
+    {
+        byte lo = (byte)value;
+        byte hi = (byte)(value >> 8);
+
+        if(proc == MIPS)
+        {
+            buf[pos] = hi;
+            buf[pos + 1] = lo;
+        }
+        else
+        {
+            buf[pos] = lo;
+            buf[pos + 1] = hi;
+        }
+    }
+
+    /**
+     * Write a float in the format of a processor type.
+     */
+    private static void writeFloat(byte[] buf, int pos, float value, int proc)
+    {
+        int bits = Float.floatToIntBits(value);
+        byte b0 = (byte)bits;
+        byte b1 = (byte)(bits >> 8);
+        byte b2 = (byte)(bits >> 16);
+        byte b3 = (byte)(bits >> 24);
+
+        switch(proc)
+        {
+            case INTEL:
+                buf[pos] = b0;
+                buf[pos + 1] = b1;
+                buf[pos + 2] = b2;
+                buf[pos + 3] = b3;
+                break;
+
+            case DEC:
+                // DEC floats are a quarter of the IEEE value, with the words
+                // swapped. Zero stays as all zero bytes.
+                if(value != 0)
+                {
+                    buf[pos] = b2;
+                    buf[pos + 1] = (byte)(b3 + 1);
+                    buf[pos + 2] = b0;
+                    buf[pos + 3] = b1;
+                }
+                break;
+
+            case MIPS:
+                buf[pos] = b3;
+                buf[pos + 1] = b2;
+                buf[pos + 2] = b1;
+                buf[pos + 3] = b0;
+                break;
+        }
+    }
+}
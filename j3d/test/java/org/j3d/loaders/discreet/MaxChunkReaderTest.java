@@ -0,0 +1,463 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.discreet;
+
+// External imports
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+// None
+
+/**
+ * Tests for the memory mapped 3DS chunk reader, comparing what it decodes
+ * against the sequential {@link MaxParser}.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class MaxChunkReaderTest
+{
+    /** The number of boxes written to the large file */
+    private static final int NUM_BOXES = 300;
+
+    @Test(groups = "unit")
+    public void testIndex() throws Exception
+    {
+        File file = createFile(2);
+
+        try
+        {
+            MaxChunkReader reader = new MaxChunkReader(file);
+
+            assertEquals(reader.getNumObjects(), 4, "Wrong object count");
+            assertEquals(reader.getObjectName(0), "box0", "Wrong first name");
+            assertEquals(reader.getObjectName(2), "lamp", "Wrong light name");
+            assertEquals(reader.getObjectName(3), "pair", "Wrong last name");
+
+            assertEquals(reader.getNumMeshes(0), 1, "Wrong box mesh count");
+            assertEquals(reader.getNumMeshes(2), 0, "Light has meshes");
+            assertEquals(reader.getNumMeshes(3), 2, "Wrong pair mesh count");
+
+            // Decode out of order
+            TriangleMesh[] pair = reader.readMeshes(3);
+            assertEquals(pair.length, 2, "Wrong meshes decoded");
+            assertEquals(pair[1].numVertices, 4, "Wrong vertex count");
+
+            ObjectBlock lamp = reader.readObject(2);
+            assertEquals(lamp.numLights, 1, "Light not decoded");
+            assertEquals(lamp.lights[0].color, new float[] { 1, 0.5f, 0.25f },
+                         "Wrong light colour");
+            assertEquals(lamp.lights[0].multiple, 2f, "Wrong multiplier");
+
+            assertEquals(reader.readMeshes(2).length, 0, "Light has meshes");
+
+            try
+            {
+                reader.readObject(4);
+                fail("Object past the end accepted");
+            }
+            catch(IndexOutOfBoundsException ioobe)
+            {
+                // Expected
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testMatchesParser() throws Exception
+    {
+        File file = createFile(NUM_BOXES);
+
+        try
+        {
+            ObjectMesh expected;
+
+            try(FileInputStream is = new FileInputStream(file))
+            {
+                expected = new MaxParser(is).parse();
+            }
+
+            ObjectMesh actual = new MaxChunkReader(file).readObjectMesh();
+
+            assertEquals(actual.meshVersion, expected.meshVersion,
+                         "Wrong version");
+            assertEquals(actual.masterScale, expected.masterScale,
+                         "Wrong master scale");
+            assertEquals(actual.numBlocks, expected.numBlocks,
+                         "Wrong block count");
+
+            for(int i = 0; i < expected.numBlocks; i++)
+                assertBlock(actual.blocks[i], expected.blocks[i]);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testParallelConsumer() throws Exception
+    {
+        File file = createFile(NUM_BOXES);
+
+        try
+        {
+            MaxChunkReader reader = new MaxChunkReader(file);
+            Map<String, ObjectBlock> found = new ConcurrentHashMap<>();
+
+            reader.readObjects(block -> found.put(block.name, block));
+
+            assertEquals(found.size(), reader.getNumObjects(),
+                         "Objects missing");
+
+            ObjectBlock[] blocks = reader.readObjects();
+
+            for(int i = 0; i < blocks.length; i++)
+                assertBlock(found.get(reader.getObjectName(i)), blocks[i]);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testBadChunks() throws Exception
+    {
+        ChunkWriter out = new ChunkWriter();
+        writeScene(out, 1);
+
+        // Object chunk claims to run past the end of its parent
+        byte[] data = out.toByteArray();
+        int obj = findChunk(data, MaxConstants.NAMED_OBJECT);
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(obj + 2, data.length);
+
+        File file = writeFile(data);
+
+        try
+        {
+            new MaxChunkReader(file);
+            fail("Bad chunk size accepted");
+        }
+        catch(IOException ioe)
+        {
+            // Expected
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        // Vertex count larger than the list
+        data = out.toByteArray();
+        int vtx = findChunk(data, MaxConstants.VERTEX_LIST);
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN)
+            .putShort(vtx + 6, (short)1000);
+
+        file = writeFile(data);
+
+        try
+        {
+            MaxChunkReader reader = new MaxChunkReader(file);
+            reader.readMeshes(0);
+            fail("Bad vertex count accepted");
+        }
+        catch(IOException ioe)
+        {
+            // Expected
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Check that two decoded object blocks are the same.
+     *
+     * @param actual The block from the chunk reader
+     * @param expected The block from the parser
+     */
+    private void assertBlock(ObjectBlock actual, ObjectBlock expected)
+    {
+        String name = expected.name;
+
+        assertEquals(actual.name, name, "Wrong name");
+        assertEquals(actual.numMeshes, expected.numMeshes,
+                     "Wrong mesh count for " + name);
+        assertEquals(actual.numLights, expected.numLights,
+                     "Wrong light count for " + name);
+
+        for(int i = 0; i < expected.numMeshes; i++)
+        {
+            TriangleMesh a = actual.meshes[i];
+            TriangleMesh e = expected.meshes[i];
+
+            assertEquals(a.numVertices, e.numVertices, "Vertex count " + name);
+            assertEquals(a.vertices, e.vertices, "Vertices " + name);
+            assertEquals(a.numTexCoords, e.numTexCoords, "Texcoord count " + name);
+            assertEquals(a.texCoords, e.texCoords, "Texcoords " + name);
+            assertEquals(a.numFaces, e.numFaces, "Face count " + name);
+            assertEquals(a.faces, e.faces, "Faces " + name);
+            assertEquals(a.smoothgroups, e.smoothgroups, "Smoothing " + name);
+            assertEquals(a.localCoords, e.localCoords, "Matrix " + name);
+            assertEquals(a.numMaterials, e.numMaterials, "Materials " + name);
+
+            for(int j = 0; j < e.numMaterials; j++)
+            {
+                assertEquals(a.materials[j].materialName,
+                             e.materials[j].materialName,
+                             "Material name " + name);
+                assertEquals(a.materials[j].faceList,
+                             e.materials[j].faceList,
+                             "Material faces " + name);
+            }
+        }
+
+        for(int i = 0; i < expected.numLights; i++)
+        {
+            assertEquals(actual.lights[i].direction, expected.lights[i].direction,
+                         "Light direction " + name);
+            assertEquals(actual.lights[i].color, expected.lights[i].color,
+                         "Light colour " + name);
+        }
+    }
+
+    /**
+     * Find the first chunk of a type by scanning the bytes. Only safe for
+     * chunk types whose ID can't appear earlier in the data.
+     *
+     * @param data The file contents
+     * @param type The chunk ID to look for
+     * @return The offset of the chunk header
+     */
+    private int findChunk(byte[] data, int type)
+    {
+        ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+
+        for(int i = 0; i < data.length - 1; i++)
+        {
+            if((buf.getShort(i) & 0xFFFF) == type)
+                return i;
+        }
+
+        fail("Chunk not found 0x" + Integer.toHexString(type));
+        return -1;
+    }
+
+    /**
+     * Create a file with a number of boxes, a light and an object with two
+     * meshes.
+     *
+     * @param numBoxes The number of box objects to write
+     * @return The new temporary file
+     */
+    private File createFile(int numBoxes) throws IOException
+    {
+        ChunkWriter out = new ChunkWriter();
+        writeScene(out, numBoxes);
+
+        return writeFile(out.toByteArray());
+    }
+
+    /**
+     * Write bytes to a new temporary file.
+     *
+     * @param data The file contents
+     * @return The new temporary file
+     */
+    private File writeFile(byte[] data) throws IOException
+    {
+        File file = File.createTempFile("chunks", ".3ds");
+
+        try(FileOutputStream os = new FileOutputStream(file))
+        {
+            os.write(data);
+        }
+
+        return file;
+    }
+
+    /**
+     * Write a complete scene.
+     *
+     * @param out The writer to use
+     * @param numBoxes The number of box objects to write
+     */
+    private void writeScene(ChunkWriter out, int numBoxes)
+    {
+        out.start(MaxConstants.MAIN_CHUNK);
+
+        out.start(MaxConstants.VERSION);
+        out.buf.putInt(3);
+        out.end();
+
+        out.start(MaxConstants.MESH_DATA);
+
+        out.start(MaxConstants.MESH_VERSION);
+        out.buf.putInt(3);
+        out.end();
+
+        out.start(MaxConstants.MASTER_SCALE);
+        out.buf.putFloat(1.5f);
+        out.end();
+
+        for(int i = 0; i < numBoxes; i++)
+        {
+            out.start(MaxConstants.NAMED_OBJECT);
+            out.putString("box" + i);
+            writeMesh(out, i);
+            out.end();
+        }
+
+        out.start(MaxConstants.NAMED_OBJECT);
+        out.putString("lamp");
+        out.start(MaxConstants.N_DIRECTIONAL_LIGHT);
+        out.buf.putFloat(1).putFloat(2).putFloat(3);
+        out.start(MaxConstants.COLORF);
+        out.buf.putFloat(1).putFloat(0.5f).putFloat(0.25f);
+        out.end();
+        out.start(MaxConstants.DIR_LIGHT_MULTIPLIER);
+        out.buf.putFloat(2);
+        out.end();
+        out.end();
+        out.end();
+
+        out.start(MaxConstants.NAMED_OBJECT);
+        out.putString("pair");
+        writeMesh(out, 1000);
+        writeMesh(out, 2000);
+        out.end();
+
+        out.end();
+        out.end();
+    }
+
+    /**
+     * Write a triangle mesh chunk of a single quad.
+     *
+     * @param out The writer to use
+     * @param seed Value to offset the coordinates by
+     */
+    private void writeMesh(ChunkWriter out, int seed)
+    {
+        out.start(MaxConstants.TRI_MESH);
+
+        out.start(MaxConstants.VERTEX_LIST);
+        out.buf.putShort((short)4);
+        for(int i = 0; i < 4; i++)
+            out.buf.putFloat(seed + (i & 1)).putFloat(i >> 1).putFloat(i * 0.5f);
+        out.end();
+
+        out.start(MaxConstants.TEXCOORD_LIST);
+        out.buf.putShort((short)4);
+        for(int i = 0; i < 4; i++)
+            out.buf.putFloat(i & 1).putFloat(i >> 1);
+        out.end();
+
+        out.start(MaxConstants.FACE_LIST);
+        out.buf.putShort((short)2);
+        out.buf.putShort((short)0).putShort((short)1).putShort((short)2).putShort((short)7);
+        out.buf.putShort((short)1).putShort((short)3).putShort((short)2).putShort((short)7);
+
+        out.start(MaxConstants.SMOOTH_LIST);
+        out.buf.putInt(1).putInt(seed);
+        out.end();
+
+        out.start(MaxConstants.MATERIAL_LIST);
+        out.putString("red");
+        out.buf.putShort((short)2).putShort((short)0).putShort((short)1);
+        out.end();
+
+        out.end();
+
+        out.start(MaxConstants.MESH_MATRIX);
+        for(int i = 0; i < 12; i++)
+            out.buf.putFloat(i == seed % 12 ? 1 : 0);
+        out.end();
+
+        out.end();
+    }
+
+    /**
+     * Little endian writer of nested chunks.
+     */
+    private static class ChunkWriter
+    {
+        /** The bytes written so far */
+        ByteBuffer buf = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        /** Offsets of the size of each open chunk */
+        Deque<Integer> open = new ArrayDeque<>();
+
+        /**
+         * Start a new chunk.
+         *
+         * @param type The chunk ID
+         */
+        void start(int type)
+        {
+            buf.putShort((short)type);
+            open.push(buf.position());
+            buf.putInt(0);
+        }
+
+        /**
+         * Close the last chunk started and fill in its size.
+         */
+        void end()
+        {
+            int pos = open.pop();
+            buf.putInt(pos, buf.position() - pos + 2);
+        }
+
+        /**
+         * Write a null terminated string.
+         *
+         * @param str The characters to write
+         */
+        void putString(String str)
+        {
+            for(int i = 0; i < str.length(); i++)
+                buf.put((byte)str.charAt(i));
+
+            buf.put((byte)0);
+        }
+
+        /**
+         * Get a copy of everything written.
+         *
+         * @return The bytes written
+         */
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf(buf.array(), buf.position());
+        }
+    }
+}
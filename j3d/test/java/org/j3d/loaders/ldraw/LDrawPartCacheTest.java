@@ -0,0 +1,336 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.ldraw;
+
+// External imports
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.util.ErrorReporter;
+
+/**
+ * Tests for the shared LDraw subfile cache, using a small library written
+ * to a temporary directory.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class LDrawPartCacheTest
+{
+    /** A stud: one main colour triangle and one edge line */
+    private static final String STUD =
+        "0 Stud\r\n" +
+        "0 BFC CERTIFY CCW\r\n" +
+        "3 16 0 0 0 1 0 0 0 0 1\r\n" +
+        "2 24 0 0 0 1 0 0\r\n";
+
+    /**
+     * A brick: a quad, two plain studs, a mirrored and inverted stud and a
+     * reference to a file that does not exist.
+     */
+    private static final String BRICK =
+        "0 Brick\n" +
+        "0 BFC CERTIFY CCW\n" +
+        "4 16 0 0 0 2 0 0 2 0 2 0 0 2\n" +
+        "1 16 0 0 0 1 0 0 0 1 0 0 0 1 stud.dat\n" +
+        "1 4 1 0 0 1 0 0 0 1 0 0 0 1 STUD.DAT\n" +
+        "0 BFC INVERTNEXT\n" +
+        "1 16 0 5 0 -1 0 0 0 1 0 0 0 1 stud.dat\n" +
+        "1 16 0 0 0 1 0 0 0 1 0 0 0 1 missing.dat\n";
+
+    /** A file that references itself */
+    private static final String LOOP =
+        "3 2 0 0 0 1 0 0 0 1 0\n" +
+        "1 16 0 0 0 1 0 0 0 1 0 0 0 1 loop.dat\n";
+
+    /** Number of distinct parts used by the concurrent test */
+    private static final int NUM_PARTS = 50;
+
+    /** The library directory */
+    private File root;
+
+    /** The parts directory */
+    private File parts;
+
+    /** The primitives directory */
+    private File prims;
+
+    /** Messages collected by the reporter */
+    private List<String> messages;
+
+    /** Reporter that keeps the messages */
+    private ErrorReporter reporter;
+
+    @BeforeMethod(groups = "unit")
+    public void setUp() throws IOException
+    {
+        root = Files.createTempDirectory("ldraw").toFile();
+        parts = new File(root, "parts");
+        prims = new File(root, "p");
+        parts.mkdir();
+        prims.mkdir();
+
+        write(prims, "stud.dat", STUD);
+        write(parts, "brick.dat", BRICK);
+        write(parts, "loop.dat", LOOP);
+
+        messages = Collections.synchronizedList(new ArrayList<String>());
+
+        reporter = new ErrorReporter()
+        {
+            @Override
+            public void partialReport(String msg)
+            {
+            }
+
+            @Override
+            public void messageReport(String msg)
+            {
+            }
+
+            @Override
+            public void warningReport(String msg, Throwable th)
+            {
+                messages.add(msg);
+            }
+
+            @Override
+            public void errorReport(String msg, Throwable th)
+            {
+                messages.add(msg);
+            }
+
+            @Override
+            public void fatalErrorReport(String msg, Throwable th)
+            {
+                messages.add(msg);
+            }
+        };
+    }
+
+    @AfterMethod(groups = "unit")
+    public void tearDown()
+    {
+        for(File dir : new File[] { parts, prims, root })
+        {
+            File[] files = dir.listFiles();
+
+            if(files != null)
+            {
+                for(File f : files)
+                    f.delete();
+            }
+
+            dir.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testFlattenedModel() throws Exception
+    {
+        File model = write(root, "model.ldr",
+            "1 4 10 0 0 1 0 0 0 1 0 0 0 1 brick.dat\r\n" +
+            "1 4 20 0 0 1 0 0 0 1 0 0 0 1 brick.dat\r\n" +
+            "1 4 30 0 0 1 0 0 0 1 0 0 0 1 Brick.DAT\r\n" +
+            "1 1 0 0 0 1 0 0 0 1 0 0 0 1 brick.dat\r\n");
+
+        LDrawPartCache cache = new LDrawPartCache(parts, prims);
+        cache.setErrorReporter(reporter);
+
+        LDrawGeometry geom = cache.loadModel(model);
+
+        // Each brick is a split quad and three studs
+        assertEquals(geom.getTriangleCount(), 4 * 5, "Wrong triangle count");
+        assertEquals(geom.getLineCount(), 4 * 3, "Wrong line count");
+
+        assertEquals(cache.getFilesParsed(), 2, "Shared files read more than once");
+        assertEquals(cache.getMissCount(), 3, "Wrong miss count");
+        assertEquals(cache.getHitCount(), 0, "Wrong hit count");
+        assertEquals(messages.size(), 1, "Missing file not reported once");
+
+        int[] colors = new int[geom.getTriangleCount()];
+        geom.getTriangleColors(colors);
+
+        for(int i = 0; i < 15; i++)
+            assertEquals(colors[i], 4, "Main colour not replaced for " + i);
+
+        assertEquals(colors[15], 1, "Wrong colour of last brick");
+        assertEquals(colors[18], 4, "Explicit colour replaced");
+
+        int[] line_colors = new int[geom.getLineCount()];
+        geom.getLineColors(line_colors);
+
+        for(int c : line_colors)
+            assertEquals(c, LDrawGeometry.EDGE_COLOR, "Edge colour changed");
+
+        float[] coords = new float[geom.getTriangleCount() * 9];
+        geom.getTriangleCoordinates(coords);
+
+        // The quad of the first brick, moved along x
+        assertEquals(coords[0], 10f, "Wrong translation");
+        assertEquals(coords[3], 12f, "Wrong translation");
+
+        // Mirrored and inverted stud keeps its original winding with x
+        // negated, then moved up 5
+        int stud = 4 * 9;
+        float[] expected = { 10, 5, 0, 9, 5, 0, 10, 5, 1 };
+
+        for(int i = 0; i < 9; i++)
+            assertEquals(coords[stud + i], expected[i], "Wrong inverted stud " + i);
+
+        LDrawGeometry brick = cache.getPart("BRICK.dat");
+        assertEquals(cache.getHitCount(), 1, "Cached part not hit");
+        assertSame(cache.getPart("brick.dat"), brick,
+                   "Cached part not shared");
+
+        LDrawGeometry red = cache.getPart("brick.dat", 4);
+        assertSame(cache.getPart("brick.dat", 4), red, "Coloured part not shared");
+        assertEquals(cache.getCachedPartCount(), 3, "Wrong cached count");
+        assertEquals(cache.getFilesParsed(), 2, "Files read again");
+
+        cache.clear();
+        assertEquals(cache.getCachedPartCount(), 0, "Cache not cleared");
+        assertEquals(cache.getHitCount(), 0, "Statistics not cleared");
+    }
+
+    @Test(groups = "unit")
+    public void testInstantiate() throws Exception
+    {
+        LDrawPartCache cache = new LDrawPartCache(parts, prims);
+        cache.setErrorReporter(reporter);
+
+        LDrawParser parser = new LDrawParser(
+            new StringReader("1 2 1 2 3 0 0 1 0 1 0 1 0 0 stud.dat\n"));
+        parser.parse(true);
+
+        LDrawFileReference ref =
+            (LDrawFileReference)parser.getFileContents().get(0);
+
+        LDrawGeometry geom = cache.instantiate(ref);
+
+        assertEquals(geom.getTriangleCount(), 1, "Wrong triangle count");
+
+        float[] coords = new float[9];
+        geom.getTriangleCoordinates(coords);
+
+        // Swapping x and z mirrors, so the last two points change places
+        float[] expected = { 1, 2, 3, 2, 2, 3, 1, 2, 4 };
+        assertEquals(coords, expected, "Wrong instance");
+
+        int[] colors = new int[1];
+        geom.getTriangleColors(colors);
+        assertEquals(colors[0], 2, "Wrong colour");
+
+        try
+        {
+            cache.getPart("missing.dat");
+            fail("Missing file found");
+        }
+        catch(FileNotFoundException fnfe)
+        {
+            // Expected
+        }
+
+        LDrawGeometry loop = cache.getPart("loop.dat");
+        assertEquals(loop.getTriangleCount(), 1, "Recursive reference expanded");
+        assertEquals(messages.size(), 2, "Problems not reported");
+    }
+
+    @Test(groups = "unit")
+    public void testConcurrentLoads() throws Exception
+    {
+        StringBuilder bldr = new StringBuilder();
+
+        for(int i = 0; i < NUM_PARTS; i++)
+        {
+            write(parts, "part" + i + ".dat",
+                  "1 16 0 0 0 1 0 0 0 1 0 0 0 1 stud.dat\n" +
+                  "3 16 0 0 0 " + i + " 0 0 0 1 0\n");
+
+            bldr.append("1 ");
+            bldr.append(i % 16);
+            bldr.append(" 0 0 0 1 0 0 0 1 0 0 0 1 part");
+            bldr.append(i);
+            bldr.append(".dat\n");
+        }
+
+        final File model = write(root, "big.ldr", bldr.toString());
+        final LDrawPartCache cache = new LDrawPartCache(parts, prims);
+        cache.setErrorReporter(reporter);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<LDrawGeometry>> results = new ArrayList<>();
+
+        try
+        {
+            for(int i = 0; i < 8; i++)
+            {
+                Callable<LDrawGeometry> task = () -> cache.loadModel(model);
+                results.add(pool.submit(task));
+            }
+
+            for(Future<LDrawGeometry> f : results)
+            {
+                LDrawGeometry geom = f.get();
+                assertEquals(geom.getTriangleCount(), NUM_PARTS * 2,
+                             "Wrong triangle count");
+
+                int[] colors = new int[NUM_PARTS * 2];
+                geom.getTriangleColors(colors);
+
+                for(int i = 0; i < NUM_PARTS; i++)
+                {
+                    assertEquals(colors[i * 2], i % 16, "Wrong part colour");
+                    assertEquals(colors[i * 2 + 1], i % 16, "Wrong stud colour");
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        assertEquals(cache.getFilesParsed(), NUM_PARTS + 1, "File read twice");
+        assertTrue(messages.isEmpty(), "Unexpected messages " + messages);
+    }
+
+    /**
+     * Write a file into a directory.
+     *
+     * @param dir The directory to write to
+     * @param name The name of the file
+     * @param text The file contents
+     * @return The file written
+     */
+    private File write(File dir, String name, String text) throws IOException
+    {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), text.getBytes("US-ASCII"));
+
+        return file;
+    }
+}
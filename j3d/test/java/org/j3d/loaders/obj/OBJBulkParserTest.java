@@ -0,0 +1,241 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.obj;
+
+// External imports
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.loaders.InvalidFormatException;
+
+/**
+ * Tests that the chunked OBJ parser returns the same geometry as the line by
+ * line reader, whatever the chunk size.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class OBJBulkParserTest
+{
+    /** The number of vertices in the generated grid is this squared */
+    private static final int GRID_SIZE = 60;
+
+    @Test(groups = "unit")
+    public void testMatchesFileReader() throws Exception
+    {
+        File file = writeFile(createGrid());
+
+        try
+        {
+            OBJFileReader reader = new OBJFileReader(file);
+            GeometryData expected = reader.getNextObject();
+            reader.close();
+
+            OBJBulkParser parser = new OBJBulkParser(true);
+            assertEquals(parser.getChunkSize(),
+                         OBJBulkParser.DEFAULT_CHUNK_SIZE,
+                         "Wrong default chunk size");
+
+            compare(parser.parse(file), expected);
+
+            // Small chunks split the file many times, including inside the
+            // continued statement
+            for(int size : new int[] { 1, 37, 1000 })
+            {
+                parser.setChunkSize(size);
+                compare(parser.parse(file), expected);
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testRelativeIndices() throws Exception
+    {
+        String obj =
+            "v 0 0 0\n" +
+            "v 1 0 0\n" +
+            "v 1 1 0\n" +
+            "f -3 -2 -1\n" +
+            "v 0 1 0\n" +
+            "f 1 -2 -1\n" +
+            "v 0,5 0,5 1\n" +
+            "f -1 -2 -3 -4\n";
+
+        File file = writeFile(obj);
+
+        try
+        {
+            OBJBulkParser parser = new OBJBulkParser();
+            parser.setChunkSize(8);
+
+            GeometryData data = parser.parse(file);
+
+            assertEquals(data.vertexCount, 5, "Wrong vertex count");
+            assertEquals(data.geometryType, GeometryData.INDEXED_QUADS, "Wrong type");
+            assertEquals(data.indexesCount, 10, "Wrong index count");
+            assertEquals(data.indexes,
+                         new int[] { 0, 1, 2, -1, 0, 2, 3, -1, 4, 3, 2, 1, -1 },
+                         "Wrong indices");
+            assertEquals(data.coordinates[12], 0.5f, "Comma decimal not read");
+            assertNull(data.normals, "Normals without any being given");
+
+            try
+            {
+                new OBJBulkParser(true).parse(file);
+                fail("Comma decimal accepted when strict");
+            }
+            catch(InvalidFormatException ife)
+            {
+                // Expected
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        file = writeFile("v 0 0 0\nv 1 0 0\nf 1 2 3\n");
+
+        try
+        {
+            new OBJBulkParser().parse(file);
+            fail("Index out of bounds accepted");
+        }
+        catch(InvalidFormatException ife)
+        {
+            // Expected
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Compare the parts of two geometries set by the OBJ readers.
+     *
+     * @param data The geometry from the chunked parser
+     * @param expected The geometry from the line by line reader
+     */
+    private void compare(GeometryData data, GeometryData expected)
+    {
+        assertEquals(data.geometryType, expected.geometryType, "Wrong type");
+        assertEquals(data.geometryComponents,
+                     expected.geometryComponents,
+                     "Wrong components");
+        assertEquals(data.vertexCount, expected.vertexCount, "Wrong vertex count");
+        assertEquals(data.indexesCount, expected.indexesCount, "Wrong index count");
+        assertEquals(data.coordinates, expected.coordinates, "Wrong coordinates");
+        assertEquals(data.normals, expected.normals, "Wrong normals");
+        assertEquals(data.textureCoordinates,
+                     expected.textureCoordinates,
+                     "Wrong texture coordinates");
+        assertEquals(data.indexes, expected.indexes, "Wrong indices");
+        assertEquals(data.normalIndexes, expected.normalIndexes, "Wrong normal indices");
+        assertEquals(data.texCoordIndexes,
+                     expected.texCoordIndexes,
+                     "Wrong texture coordinate indices");
+    }
+
+    /**
+     * Create the text of a grid of triangles with normals and texture
+     * coordinates, using a mix of number formats.
+     *
+     * @return The OBJ text
+     */
+    private String createGrid()
+    {
+        Random rand = new Random(7);
+        StringBuilder buf = new StringBuilder();
+
+        buf.append("# Generated grid\r\n");
+        buf.append("o grid\n");
+
+        for(int i = 0; i < GRID_SIZE; i++)
+        {
+            for(int j = 0; j < GRID_SIZE; j++)
+            {
+                double height = rand.nextGaussian() * 1e-3;
+
+                buf.append("v ");
+                buf.append(i * 0.1);
+                buf.append(' ');
+                buf.append(height);
+                buf.append(' ');
+                buf.append(-j * 1.25e2);
+                buf.append('\n');
+
+                buf.append("vt  ");
+                buf.append((float)i / GRID_SIZE);
+                buf.append(' ');
+                buf.append(rand.nextDouble());
+                buf.append('\n');
+
+                buf.append("vn 0 1 ");
+                buf.append(rand.nextInt(1000) - 500);
+                buf.append('\n');
+            }
+        }
+
+        buf.append("g faces\ns 1\n");
+
+        for(int i = 0; i < GRID_SIZE - 1; i++)
+        {
+            for(int j = 0; j < GRID_SIZE - 1; j++)
+            {
+                int a = i * GRID_SIZE + j + 1;
+                int b = a + 1;
+                int c = a + GRID_SIZE;
+
+                buf.append("f ");
+                buf.append(a).append('/').append(a).append('/').append(a);
+                buf.append(' ');
+                buf.append(b).append('/').append(b).append('/').append(b);
+
+                // Continue one statement onto the next line
+                if(i == 10 && j == 10)
+                    buf.append(" \\\n ");
+                else
+                    buf.append(' ');
+
+                buf.append(c).append('/').append(c).append('/').append(c);
+                buf.append("\r\n");
+            }
+        }
+
+        return buf.toString();
+    }
+
+    /**
+     * Write the text to a temporary file.
+     *
+     * @param text The OBJ text
+     * @return The file written
+     */
+    private File writeFile(String text) throws IOException
+    {
+        File file = File.createTempFile("bulk", ".obj");
+        Files.write(file.toPath(), text.getBytes("US-ASCII"));
+
+        return file;
+    }
+}
@@ -0,0 +1,212 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.loaders.stl;
+
+// External imports
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.geom.GeometryData;
+import org.j3d.loaders.InvalidFormatException;
+
+/**
+ * Tests that the bulk STL reader returns the same facets as the facet at a
+ * time reader.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class STLBulkReaderTest
+{
+    /** Enough facets to need several decoding chunks */
+    private static final int NUM_FACETS = 150000;
+
+    @Test(groups = "unit")
+    public void testMatchesFileReader() throws Exception
+    {
+        File file = createFile(NUM_FACETS, NUM_FACETS);
+
+        try
+        {
+            STLBulkReader bulk = new STLBulkReader(file, true);
+            assertEquals(bulk.getNumOfFacets(), NUM_FACETS, "Wrong facet count");
+            assertEquals(bulk.getComment(), "bulk test", "Wrong comment");
+            assertNull(bulk.getParsingMessages(), "Messages for a good file");
+
+            float[] coords = new float[NUM_FACETS * 9];
+            float[] normals = new float[NUM_FACETS * 3];
+            bulk.readFacets(coords, normals);
+            bulk.close();
+
+            STLFileReader reader = new STLFileReader(file);
+            double[] normal = new double[3];
+            double[][] vertices = new double[3][3];
+
+            for(int i = 0; i < NUM_FACETS; i++)
+            {
+                reader.getNextFacet(normal, vertices);
+
+                for(int j = 0; j < 3; j++)
+                {
+                    assertEquals(normals[i * 3 + j], (float)normal[j],
+                                 "Wrong normal of facet " + i);
+
+                    for(int k = 0; k < 3; k++)
+                        assertEquals(coords[i * 9 + j * 3 + k],
+                                     (float)vertices[j][k],
+                                     "Wrong vertex of facet " + i);
+                }
+            }
+
+            reader.close();
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testRangeAndGeometry() throws Exception
+    {
+        File file = createFile(NUM_FACETS, NUM_FACETS);
+
+        try
+        {
+            STLBulkReader bulk = new STLBulkReader(file);
+
+            float[] all = new float[NUM_FACETS * 9];
+            float[] all_normals = new float[NUM_FACETS * 3];
+            bulk.readFacets(all, all_normals);
+
+            int start = 70000;
+            int count = 1000;
+            float[] part = new float[count * 9];
+            bulk.readFacets(start, count, part, null);
+
+            assertEquals(part,
+                         Arrays.copyOfRange(all, start * 9, (start + count) * 9),
+                         "Wrong range of facets");
+
+            GeometryData data = bulk.readGeometry();
+            bulk.close();
+
+            assertEquals(data.geometryType, GeometryData.TRIANGLES, "Wrong type");
+            assertEquals(data.vertexCount, NUM_FACETS * 3, "Wrong vertex count");
+            assertEquals(data.coordinates, all, "Wrong coordinates");
+
+            for(int i = 0; i < NUM_FACETS * 3; i++)
+            {
+                int facet = i / 3;
+
+                for(int j = 0; j < 3; j++)
+                    assertEquals(data.normals[i * 3 + j],
+                                 all_normals[facet * 3 + j],
+                                 "Normal not copied to vertex " + i);
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testShortFile() throws Exception
+    {
+        File file = createFile(100, 90);
+
+        try
+        {
+            try
+            {
+                new STLBulkReader(file, true);
+                fail("Short file accepted when strict");
+            }
+            catch(InvalidFormatException ife)
+            {
+                // Expected
+            }
+
+            STLBulkReader bulk = new STLBulkReader(file, false);
+            assertEquals(bulk.getNumOfFacets(), 90, "Count not clamped");
+            assertNotNull(bulk.getParsingMessages(), "No message for short file");
+            bulk.close();
+
+            File ascii = File.createTempFile("bulk", ".stl");
+
+            try
+            {
+                Files.write(ascii.toPath(), "solid test\nendsolid test\n".getBytes());
+                new STLBulkReader(ascii);
+                fail("ASCII file accepted");
+            }
+            catch(InvalidFormatException ife)
+            {
+                // Expected
+            }
+            finally
+            {
+                ascii.delete();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Write a binary STL file of random facets. Every 100th facet has a NaN
+     * normal.
+     *
+     * @param declared The facet count written to the header
+     * @param written The number of facets written
+     * @return The file written
+     */
+    private File createFile(int declared, int written) throws IOException
+    {
+        Random rand = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocate(84 + written * 50);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        byte[] comment = new byte[80];
+        byte[] text = "bulk test".getBytes("US-ASCII");
+        System.arraycopy(text, 0, comment, 0, text.length);
+        buffer.put(comment);
+        buffer.putInt(declared);
+
+        for(int i = 0; i < written; i++)
+        {
+            for(int j = 0; j < 3; j++)
+                buffer.putFloat((i % 100 == 0) ? Float.NaN : rand.nextFloat());
+
+            for(int j = 0; j < 9; j++)
+                buffer.putFloat(rand.nextFloat() * 100 - 50);
+
+            buffer.putShort((short)0);
+        }
+
+        File file = File.createTempFile("bulk", ".stl");
+        Files.write(file.toPath(), buffer.array());
+
+        return file;
+    }
+}
@@ -0,0 +1,167 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.terrain.roam;
+
+// External imports
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+// None
+
+/**
+ * Tests for the indexed heap queue manager used by the ROAM landscape.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class HeapQueueManagerTest
+{
+    @Test(groups = "unit")
+    public void testTriangleOrder() throws Exception
+    {
+        HeapQueueManager classUnderTest = new HeapQueueManager();
+        Random rand = new Random(42);
+        ArrayList<TreeNode> nodes = createNodes(2000, rand);
+
+        for(TreeNode n : nodes)
+            classUnderTest.addTriangle(n);
+
+        // Equal variances must not be collapsed into one entry
+        assertEquals(classUnderTest.getNumTriangles(), 2000,
+                     "Wrong number queued");
+
+        // Change the priority of half and remove a quarter
+        for(int i = 0; i < 1000; i++)
+        {
+            TreeNode n = nodes.get(i);
+            n.variance = rand.nextInt(100) * 0.01f;
+            classUnderTest.addTriangle(n);
+        }
+
+        for(int i = 1000; i < 1500; i++)
+            classUnderTest.removeTriangle(nodes.get(i));
+
+        // Removing twice is ignored
+        classUnderTest.removeTriangle(nodes.get(1000));
+
+        assertEquals(classUnderTest.getNumTriangles(), 1500,
+                     "Wrong number after updates");
+
+        float last = Float.POSITIVE_INFINITY;
+        int count = 0;
+
+        TreeNode top;
+        while((top = classUnderTest.getSplitCandidate()) != null)
+        {
+            assertTrue(top.variance <= last, "Triangles out of order");
+            last = top.variance;
+
+            classUnderTest.removeTriangle(top);
+            count++;
+        }
+
+        assertEquals(count, 1500, "Wrong number removed");
+    }
+
+    @Test(groups = "unit")
+    public void testDiamondOrder() throws Exception
+    {
+        HeapQueueManager classUnderTest = new HeapQueueManager();
+        Random rand = new Random(7);
+        ArrayList<TreeNode> nodes = createNodes(500, rand);
+
+        for(TreeNode n : nodes)
+            classUnderTest.addDiamond(n);
+
+        float last = Float.NEGATIVE_INFINITY;
+
+        TreeNode top;
+        while((top = classUnderTest.getMergeCandidate()) != null)
+        {
+            assertTrue(top.variance >= last, "Diamonds out of order");
+            last = top.variance;
+
+            classUnderTest.removeDiamond(top);
+        }
+
+        assertEquals(classUnderTest.getNumDiamonds(), 0, "Diamonds left");
+    }
+
+    @Test(groups = "unit")
+    public void testStaleTriangles() throws Exception
+    {
+        HeapQueueManager classUnderTest = new HeapQueueManager();
+        Random rand = new Random(3);
+        ArrayList<TreeNode> nodes = createNodes(100, rand);
+
+        for(TreeNode n : nodes)
+        {
+            classUnderTest.addTriangle(n);
+            classUnderTest.addDiamond(n);
+        }
+
+        // Next frame only queues the even nodes again
+        classUnderTest.beginFrame();
+
+        assertEquals(classUnderTest.getNumDiamonds(), 0,
+                     "Diamonds kept between frames");
+
+        for(int i = 0; i < 100; i += 2)
+            classUnderTest.addTriangle(nodes.get(i));
+
+        assertEquals(classUnderTest.removeStaleTriangles(), 50,
+                     "Wrong number of stale triangles");
+        assertEquals(classUnderTest.getNumTriangles(), 50,
+                     "Wrong number kept");
+
+        float last = Float.POSITIVE_INFINITY;
+
+        TreeNode top;
+        while((top = classUnderTest.getSplitCandidate()) != null)
+        {
+            assertEquals(nodes.indexOf(top) % 2, 0, "Stale triangle kept");
+            assertTrue(top.variance <= last, "Heap not rebuilt in order");
+            last = top.variance;
+
+            classUnderTest.removeTriangle(top);
+        }
+
+        // A dropped node can be queued again
+        classUnderTest.addTriangle(nodes.get(1));
+        assertSame(classUnderTest.getSplitCandidate(), nodes.get(1),
+                   "Dropped node not queued again");
+
+        classUnderTest.clear();
+        assertNull(classUnderTest.getSplitCandidate(), "Not cleared");
+        assertEquals(nodes.get(1).triangleIndex, -1, "Index not reset");
+    }
+
+    /**
+     * Create a collection of nodes with random variances, some repeated.
+     */
+    private ArrayList<TreeNode> createNodes(int count, Random rand)
+    {
+        ArrayList<TreeNode> ret_val = new ArrayList<>(count);
+
+        for(int i = 0; i < count; i++)
+        {
+            TreeNode n = TreeNode.getTreeNode();
+            n.variance = rand.nextInt(50) * 0.02f;
+            ret_val.add(n);
+        }
+
+        return ret_val;
+    }
+}
@@ -0,0 +1,256 @@
+/*****************************************************************************
+ *                      J3D.org Copyright (c) 2026
+ *                           Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ ****************************************************************************/
+
+package org.j3d.terrain.roam;
+
+// External imports
+import java.util.ArrayList;
+import java.util.Set;
+
+import javax.vecmath.Matrix4d;
+import javax.vecmath.Point3f;
+import javax.vecmath.Vector3f;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+// Local imports
+import org.j3d.loaders.SimpleTiledTerrainData;
+import org.j3d.terrain.TerrainData;
+import org.j3d.util.frustum.ViewFrustum;
+
+/**
+ * Tests the ROAM landscape updates with and without the background update
+ * thread, using a headless frustum and patches that only keep their vertex
+ * counts.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class ROAMSplitMergeLandscapeTest
+{
+    /** The number of grid points along each side of the terrain */
+    private static final int GRID_SIZE = 129;
+
+    /** Frustum that is a large box around the origin */
+    private static class BoxFrustum extends ViewFrustum
+    {
+        BoxFrustum()
+        {
+            super(1);
+        }
+
+        @Override
+        protected void getInverseWorldProjection(int id, Matrix4d matrix)
+        {
+            matrix.setIdentity();
+            matrix.setScale(1000);
+        }
+    }
+
+    /** Patch that builds its vertex data whenever asked to update */
+    private static class TestPatch extends ROAMPatch
+    {
+        /** The number of vertices at the last update */
+        int vertexCount;
+
+        TestPatch(TerrainData terrain, int patchSize, ViewFrustum frustum)
+        {
+            super(terrain, patchSize, frustum, 0, 0);
+
+            vertexData = new VertexData(patchSize, false, false);
+        }
+
+        @Override
+        public void updateGeometry()
+        {
+            createGeometry();
+            vertexCount = vertexData.getVertexCount();
+        }
+    }
+
+    /** Landscape that remembers the patches added to it */
+    private static class TestLandscape extends ROAMSplitMergeLandscape
+    {
+        /** The patches added */
+        private ArrayList<ROAMPatch> added = new ArrayList<>();
+
+        TestLandscape(ViewFrustum view, TerrainData data)
+        {
+            super(view, data);
+        }
+
+        @Override
+        protected ROAMPatch createPatch(int eastPosition,
+                                        int northPosition,
+                                        int xTile,
+                                        int yTile)
+        {
+            return new TestPatch(terrainData, patchSize, landscapeView);
+        }
+
+        @Override
+        protected void updatePatch(ROAMPatch patch, int xTile, int yTile)
+        {
+        }
+
+        @Override
+        protected void addPatch(ROAMPatch patch)
+        {
+            added.add(patch);
+        }
+
+        /** Total vertices over all the patches at their last update */
+        int getVertexCount()
+        {
+            int ret_val = 0;
+
+            for(ROAMPatch p : added)
+                ret_val += ((TestPatch)p).vertexCount;
+
+            return ret_val;
+        }
+    }
+
+    @Test(groups = "unit")
+    public void testSynchronousUpdate() throws Exception
+    {
+        TestLandscape landscape = createLandscape();
+
+        Point3f position = new Point3f(64, 20, -64);
+        Vector3f direction = new Vector3f(0, 0, -1);
+
+        landscape.initialize(position, direction);
+
+        assertTrue(landscape.getLastSplitCount() > 0, "No splits made");
+        assertTrue(landscape.getVertexCount() > 0, "No geometry built");
+        assertFalse(landscape.isSplitMergeBudgetExceeded(),
+                    "Budget exceeded without a budget");
+
+        // The same view again has nothing more to split
+        landscape.setView(position, direction);
+        assertEquals(landscape.getLastSplitCount(), 0, "Split an unchanged view");
+    }
+
+    @Test(groups = "unit")
+    public void testBackgroundUpdate() throws Exception
+    {
+        Point3f position = new Point3f(64, 20, -64);
+        Vector3f direction = new Vector3f(0, 0, -1);
+
+        TestLandscape sync_landscape = createLandscape();
+        sync_landscape.initialize(position, direction);
+
+        int expected = sync_landscape.getVertexCount();
+
+        TestLandscape landscape = createLandscape();
+        landscape.setBackgroundUpdates(true);
+        assertTrue(landscape.isBackgroundUpdates(), "Not in background mode");
+
+        landscape.initialize(position, direction);
+
+        // Keep asking for the same view until the results are swapped in
+        long end_time = System.currentTimeMillis() + 10_000;
+
+        while(landscape.getVertexCount() != expected &&
+              System.currentTimeMillis() < end_time)
+        {
+            Thread.sleep(5);
+            landscape.setView(position, direction);
+        }
+
+        assertEquals(landscape.getVertexCount(), expected,
+                     "Background geometry does not match");
+
+        landscape.setBackgroundUpdates(false);
+        assertFalse(landscape.isBackgroundUpdates(), "Still in background mode");
+
+        // Back to the normal path after turning the thread off
+        landscape.setView(position, direction);
+        assertEquals(landscape.getVertexCount(), expected,
+                     "Synchronous geometry does not match");
+    }
+
+    @Test(groups = "unit")
+    public void testAbandonedLandscape() throws Exception
+    {
+        Set<Thread> existing = Thread.getAllStackTraces().keySet();
+
+        TestLandscape landscape = createLandscape();
+        landscape.setBackgroundUpdates(true);
+        landscape.initialize(new Point3f(64, 20, -64), new Vector3f(0, 0, -1));
+
+        Thread updater = null;
+
+        for(Thread t : Thread.getAllStackTraces().keySet())
+        {
+            if(!existing.contains(t) && t.getName().equals("ROAM terrain updater"))
+                updater = t;
+        }
+
+        assertNotNull(updater, "No update thread started");
+
+        // Drop the landscape without turning background updates off
+        landscape = null;
+
+        long end_time = System.currentTimeMillis() + 10_000;
+
+        while(updater.isAlive() && System.currentTimeMillis() < end_time)
+        {
+            System.gc();
+            updater.join(100);
+        }
+
+        assertFalse(updater.isAlive(), "Update thread kept running");
+    }
+
+    @Test(groups = "unit")
+    public void testSplitMergeBudget() throws Exception
+    {
+        TestLandscape landscape = createLandscape();
+        landscape.setSplitMergeBudget(1);
+
+        Point3f position = new Point3f(64, 20, -64);
+        Vector3f direction = new Vector3f(0, 0, -1);
+
+        landscape.initialize(position, direction);
+
+        assertTrue(landscape.isSplitMergeBudgetExceeded(), "Budget not used up");
+
+        // With the budget removed, the remaining work completes
+        landscape.setSplitMergeBudget(0);
+        landscape.setView(position, direction);
+
+        assertFalse(landscape.isSplitMergeBudgetExceeded(), "Budget still used up");
+
+        TestLandscape full = createLandscape();
+        full.initialize(position, direction);
+
+        assertEquals(landscape.getVertexCount(), full.getVertexCount(),
+                     "Budgeted terrain did not converge");
+    }
+
+    /**
+     * Create a landscape over a simple rolling terrain.
+     */
+    private TestLandscape createLandscape()
+    {
+        float[][] heights = new float[GRID_SIZE][GRID_SIZE];
+
+        for(int i = 0; i < GRID_SIZE; i++)
+            for(int j = 0; j < GRID_SIZE; j++)
+                heights[i][j] = (float)(Math.sin(i * 0.2) * Math.cos(j * 0.3) * 5);
+
+        SimpleTiledTerrainData data =
+            new SimpleTiledTerrainData(heights, false, new float[] { 1, 1 });
+
+        return new TestLandscape(new BoxFrustum(), data);
+    }
+}
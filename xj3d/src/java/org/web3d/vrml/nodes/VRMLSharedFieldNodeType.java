@@ -0,0 +1,39 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+package org.web3d.vrml.nodes;
+
+/**
+ * <p>
+ * Marker for a node whose large MF field arrays are shared with the node it
+ * was copied from, rather than copied.
+ * </p>
+ * <p>
+ * When a node is made from another, such as each instance of the body of a
+ * PROTO, the backing arrays of the big fields are shared by both nodes. The
+ * shared arrays are never changed in place. The first write to a shared field
+ * through <code>setValue()</code> or the field setter gives that node its own
+ * copy, leaving the other untouched.
+ * </p>
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public interface VRMLSharedFieldNodeType extends VRMLNodeType {
+
+    /**
+     * Get the number of bytes of field data that this node currently shares
+     * with other nodes instead of holding its own copy.
+     *
+     * @return A non-negative number of bytes
+     */
+    long getSharedFieldBytes();
+}
@@ -0,0 +1,286 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.nodes.proto;
+
+// External imports
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.j3d.util.ErrorReporter;
+
+// Local imports
+import org.web3d.vrml.lang.FieldConstants;
+import org.web3d.vrml.lang.VRMLFieldDeclaration;
+import org.web3d.vrml.lang.VRMLNode;
+import org.web3d.vrml.nodes.ImportNodeProxy;
+import org.web3d.vrml.nodes.VRMLNodeType;
+
+/**
+ * The pre-resolved steps needed to turn a copy of a proto body into a
+ * working instance.
+ * <p>
+ *
+ * Building an instance means wiring up the DEF names, internal routes, IS
+ * connections and field values of the declaration against the copied body
+ * nodes. Working out the field indices involves looking up each field by
+ * name in both the declaration and the copy. Since every instance of a
+ * declaration copies the same body nodes with the same node factory, those
+ * indices are the same every time, so they are resolved once from the
+ * first instance and held here as flat arrays to replay for the rest.
+ * <p>
+ *
+ * Template nodes are held by reference and are mapped to the copies of the
+ * current instance by the creator. Each index is held with the name of its
+ * field so that the creator can check it against the current copy before
+ * use. An index of -1 means it could not be resolved from the first
+ * instance, either because the node is IMPORTed and the proxy assigns its
+ * own indices or because the node was not copied, so it must be looked up
+ * by name on each instance.
+ * <p>
+ *
+ * The plan is immutable once built. A {@link PrototypeDecl} throws its plan
+ * away if the declaration is changed.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class ProtoInstancePlan {
+
+    /** The DEF names used in the body */
+    public final String[] defNames;
+
+    /** The template node for each DEF name */
+    public final VRMLNode[] defNodes;
+
+    /** The template source node of each internal route */
+    public final VRMLNode[] routeSources;
+
+    /** Index of the source field in the copied node, or -1 to look up */
+    public final int[] routeSourceFields;
+
+    /** Name of the source field of each internal route */
+    public final String[] routeSourceFieldNames;
+
+    /** The template destination node of each internal route */
+    public final VRMLNode[] routeDestinations;
+
+    /** Index of the destination field in the copied node, or -1 to look up */
+    public final int[] routeDestinationFields;
+
+    /** Name of the destination field of each internal route */
+    public final String[] routeDestinationFieldNames;
+
+    /** Name of each declaration field that has IS connections */
+    public final String[] isFieldNames;
+
+    /** Index of each IS field in the instance */
+    public final int[] isFields;
+
+    /** The template nodes connected to each IS field */
+    public final VRMLNode[][] isNodes;
+
+    /** Index of the connected field in each copied node, or -1 to look up */
+    public final int[][] isNodeFields;
+
+    /** Name of the connected field in each node */
+    public final String[][] isNodeFieldNames;
+
+    /** Name of each declaration field that holds a value */
+    public final String[] valueFieldNames;
+
+    /** Index of each value field in the declaration */
+    public final int[] valueSourceFields;
+
+    /** Index of each value field in the instance */
+    public final int[] valueFields;
+
+    /** The number of values per element of each value field */
+    public final int[] valueFieldSizes;
+
+    /**
+     * Compile the plan for the declaration from its first instance. The
+     * body of the instance must have been copied already. Routes and IS
+     * connections to nodes that were not copied are kept with an index of
+     * -1 for the creator to deal with on each instance.
+     *
+     * @param decl The declaration to compile the plan for
+     * @param instance The instance the body was copied into
+     * @param nodeMap Map of the template nodes to their copies
+     * @param reporter The place to send warnings
+     */
+    public ProtoInstancePlan(PrototypeDecl decl,
+                             VRMLNodeType instance,
+                             Map<VRMLNode, VRMLNode> nodeMap,
+                             ErrorReporter reporter) {
+
+        // DEFs
+        Map<String, VRMLNode> defs = decl.getDEFMap();
+        defNames = new String[defs.size()];
+        defNodes = new VRMLNode[defs.size()];
+
+        int count = 0;
+        for(Entry<String, VRMLNode> e : defs.entrySet()) {
+            defNames[count] = e.getKey();
+            defNodes[count] = e.getValue();
+            count++;
+        }
+
+        // Routes
+        Set<ProtoROUTE> routes = decl.getRouteDecls();
+        int size = routes.size();
+
+        VRMLNode[] r_src = new VRMLNode[size];
+        VRMLNode[] r_dest = new VRMLNode[size];
+        int[] r_src_field = new int[size];
+        int[] r_dest_field = new int[size];
+        String[] r_src_name = new String[size];
+        String[] r_dest_name = new String[size];
+
+        count = 0;
+        for(ProtoROUTE route : routes) {
+            VRMLNode src = route.getSourceNode();
+            VRMLNode dest = route.getDestinationNode();
+
+            VRMLFieldDeclaration src_decl =
+                src.getFieldDeclaration(route.getSourceIndex());
+            VRMLFieldDeclaration dest_decl =
+                dest.getFieldDeclaration(route.getDestinationIndex());
+
+            if(src_decl == null || dest_decl == null) {
+                reporter.warningReport("Unable to find the fields for " +
+                                       "route " + route, null);
+                continue;
+            }
+
+            r_src[count] = src;
+            r_dest[count] = dest;
+            r_src_name[count] = src_decl.getName();
+            r_dest_name[count] = dest_decl.getName();
+            r_src_field[count] = resolveField(src, r_src_name[count], nodeMap);
+            r_dest_field[count] =
+                resolveField(dest, r_dest_name[count], nodeMap);
+            count++;
+        }
+
+        routeSources = Arrays.copyOf(r_src, count);
+        routeDestinations = Arrays.copyOf(r_dest, count);
+        routeSourceFields = Arrays.copyOf(r_src_field, count);
+        routeDestinationFields = Arrays.copyOf(r_dest_field, count);
+        routeSourceFieldNames = Arrays.copyOf(r_src_name, count);
+        routeDestinationFieldNames = Arrays.copyOf(r_dest_name, count);
+
+        // IS connections
+        Map<Integer, List<ProtoFieldInfo>> is_map = decl.getISMaps();
+        size = is_map.size();
+
+        isFieldNames = new String[size];
+        isFields = new int[size];
+        isNodes = new VRMLNode[size][];
+        isNodeFields = new int[size][];
+        isNodeFieldNames = new String[size][];
+
+        count = 0;
+        for(Entry<Integer, List<ProtoFieldInfo>> e : is_map.entrySet()) {
+            String name = decl.getFieldDeclaration(e.getKey()).getName();
+            List<ProtoFieldInfo> dest_list = e.getValue();
+
+            VRMLNode[] nodes = new VRMLNode[dest_list.size()];
+            int[] fields = new int[dest_list.size()];
+            String[] field_names = new String[dest_list.size()];
+            int num_valid = 0;
+
+            for(ProtoFieldInfo info : dest_list) {
+                VRMLFieldDeclaration field_decl =
+                    info.node.getFieldDeclaration(info.field);
+
+                if(field_decl == null) {
+                    reporter.messageReport("Unable to find IS dest field: " +
+                                           info + "\nSource for IS " + name +
+                                           "\nIS ignored");
+                    continue;
+                }
+
+                nodes[num_valid] = info.node;
+                field_names[num_valid] = field_decl.getName();
+                fields[num_valid] =
+                    resolveField(info.node, field_names[num_valid], nodeMap);
+                num_valid++;
+            }
+
+            isFieldNames[count] = name;
+            isFields[count] = instance.getFieldIndex(name);
+            isNodes[count] = Arrays.copyOf(nodes, num_valid);
+            isNodeFields[count] = Arrays.copyOf(fields, num_valid);
+            isNodeFieldNames[count] = Arrays.copyOf(field_names, num_valid);
+            count++;
+        }
+
+        // Field values. Events have no value to set.
+        List<VRMLFieldDeclaration> all_fields = decl.getAllFields();
+        size = all_fields.size();
+
+        String[] v_names = new String[size];
+        int[] v_src = new int[size];
+        int[] v_dest = new int[size];
+        int[] v_size = new int[size];
+
+        count = 0;
+        for(VRMLFieldDeclaration field : all_fields) {
+            if(field == null)
+                continue;
+
+            int access = field.getAccessType();
+
+            if((access == FieldConstants.EVENTIN) ||
+               (access == FieldConstants.EVENTOUT))
+               continue;
+
+            String name = field.getName();
+
+            v_names[count] = name;
+            v_src[count] = decl.getFieldIndex(name);
+            v_dest[count] = instance.getFieldIndex(name);
+            v_size[count] = field.getFieldSize();
+            count++;
+        }
+
+        valueFieldNames = Arrays.copyOf(v_names, count);
+        valueSourceFields = Arrays.copyOf(v_src, count);
+        valueFields = Arrays.copyOf(v_dest, count);
+        valueFieldSizes = Arrays.copyOf(v_size, count);
+    }
+
+    /**
+     * Work out the index of a template node's field in its copy.
+     *
+     * @param template The template node
+     * @param name The name of the field
+     * @param nodeMap Map of the template nodes to their copies
+     * @return The index in the copy or -1 if it must be looked up on each
+     *    instance
+     */
+    private static int resolveField(VRMLNode template,
+                                    String name,
+                                    Map<VRMLNode, VRMLNode> nodeMap) {
+
+        if(template instanceof ImportNodeProxy)
+            return -1;
+
+        VRMLNode copy = nodeMap.get(template);
+
+        if(copy == null)
+            return -1;
+
+        return copy.getFieldIndex(name);
+    }
+}
@@ -14,6 +14,7 @@ package org.web3d.vrml.nodes.proto;
 
 // External imports
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.j3d.util.IntHashMap;
 
@@ -94,6 +95,18 @@ public class PrototypeDecl extends AbstractProto
     /** The document locator to find error information */
     private DocumentLocator locator;
 
+    /** The number of instances that have been created from this proto */
+    private final AtomicLong instanceCount;
+
+    /** Bytes of MF field data the instances share rather than copy */
+    private final AtomicLong sharedFieldBytes;
+
+    /** Total time spent building instances, in nanoseconds */
+    private final AtomicLong instanceTime;
+
+    /** The compiled instance plan, or null until the first instance */
+    private volatile ProtoInstancePlan instancePlan;
+
     /**
      * Create a new instance of a proto that has the given name that may have
      * its IS semantics defined according to the different specification
@@ -120,6 +133,10 @@ public class PrototypeDecl extends AbstractProto
         imports = new HashMap<>();
         defs = new HashMap<>();
         protos = new ArrayList<>();
+
+        instanceCount = new AtomicLong();
+        sharedFieldBytes = new AtomicLong();
+        instanceTime = new AtomicLong();
     }
 
     //----------------------------------------------------------
@@ -167,6 +184,26 @@ public class PrototypeDecl extends AbstractProto
         return ret_val;
     }
 
+    /**
+     * Append a field declaration to this node. Clears the instance plan as
+     * the field layout has changed.
+     *
+     * @param field The new field to add
+     * @return The index that this field was added at
+     * @throws FieldExistsException A conflicting field of the same name
+     *   already exists for this node
+     * @throws InvalidFieldException The field type is not valid for this
+     *   specification version
+     */
+    @Override
+    public int appendField(VRMLFieldDeclaration field)
+            throws FieldExistsException, InvalidFieldException {
+
+        instancePlan = null;
+
+        return super.appendField(field);
+    }
+
     //----------------------------------------------------------
     // Methods defined by VRMLProtoDeclare
     //----------------------------------------------------------
@@ -280,6 +317,7 @@ public class PrototypeDecl extends AbstractProto
      */
     public void addPrototypeDecl(VRMLNodeTemplate proto) {
         protos.add(proto);
+        instancePlan = null;
     }
 
     /**
@@ -300,6 +338,7 @@ public class PrototypeDecl extends AbstractProto
      */
     public void addRouteDecl(ProtoROUTE route) {
         routes.add(route);
+        instancePlan = null;
     }
 
     /**
@@ -323,6 +362,7 @@ public class PrototypeDecl extends AbstractProto
      */
     public void addImportDecl(String name, ImportNodeProxy node) {
         imports.put(name, node);
+        instancePlan = null;
     }
 
     /**
@@ -343,6 +383,7 @@ public class PrototypeDecl extends AbstractProto
      */
     public void setDEFMap(Map<String, VRMLNode> map) {
         defs.putAll(map);
+        instancePlan = null;
     }
 
     /**
@@ -460,6 +501,7 @@ public class PrototypeDecl extends AbstractProto
         }
 
         dest_list.add(new ProtoFieldInfo(destNode, destField));
+        instancePlan = null;
     }
 
     /**
@@ -477,6 +519,83 @@ public class PrototypeDecl extends AbstractProto
       return Collections.unmodifiableMap(isMap);
     }
 
+    /**
+     * Get the compiled plan for building instances of this declaration.
+     *
+     * @return The current plan or null if there is none yet
+     */
+    public ProtoInstancePlan getInstancePlan() {
+        return instancePlan;
+    }
+
+    /**
+     * Set the compiled plan for building instances of this declaration. The
+     * plan is cleared any time the routes, IS connections, DEFs, imports,
+     * fields or nested declarations are changed.
+     *
+     * @param plan The plan to use or null to clear it
+     */
+    public void setInstancePlan(ProtoInstancePlan plan) {
+        instancePlan = plan;
+    }
+
+    /**
+     * Record that a new instance has been built from this declaration. The
+     * field data in the instance body that was shared with the declaration,
+     * and so did not need to be copied, is added to the running total.
+     *
+     * @param sharedBytes The number of bytes of field data that were shared
+     * @param buildTime The time taken to build the instance in nanoseconds
+     */
+    public void recordInstance(long sharedBytes, long buildTime) {
+        instanceCount.incrementAndGet();
+        sharedFieldBytes.addAndGet(sharedBytes);
+        instanceTime.addAndGet(buildTime);
+    }
+
+    /**
+     * Get the total time spent building instances of this declaration.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getInstanceTime() {
+        return instanceTime.get();
+    }
+
+    /**
+     * Get the average number of instances built per second of build time.
+     *
+     * @return The rate, or zero if no instances have been built
+     */
+    public double getInstanceRate() {
+        long time = instanceTime.get();
+
+        return (time == 0) ? 0 : instanceCount.get() * 1e9 / time;
+    }
+
+    /**
+     * Get the number of instances that have been built from this
+     * declaration.
+     *
+     * @return A non-negative count
+     */
+    public long getInstanceCount() {
+        return instanceCount.get();
+    }
+
+    /**
+     * Get the memory saved by sharing field data between the body of this
+     * declaration and all of its instances. Each instance is measured once
+     * its field values have been applied, so fields that were given their
+     * own values through the proto interface do not count. Later writes to
+     * an instance are not tracked.
+     *
+     * @return The total number of bytes saved
+     */
+    public long getSharedFieldBytes() {
+        return sharedFieldBytes.get();
+    }
+
     //----------------------------------------------------------
     // Private methods for local use
     //----------------------------------------------------------
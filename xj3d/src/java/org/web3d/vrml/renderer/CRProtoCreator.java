@@ -23,9 +23,9 @@ import org.web3d.vrml.nodes.*;
 
 import org.j3d.util.ErrorReporter;
 import org.web3d.vrml.nodes.proto.PrototypeDecl;
+import org.web3d.vrml.nodes.proto.ProtoInstancePlan;
 import org.web3d.vrml.nodes.proto.ProtoScene;
 import org.web3d.vrml.nodes.proto.ProtoFieldInfo;
-import org.web3d.vrml.nodes.proto.ProtoROUTE;
 
 /**
  * A class that is used to create real instances of protos from their
@@ -278,6 +278,8 @@ public abstract class CRProtoCreator
      * @param proto The decl of the proto
      */
     protected void finishCreate(PrototypeDecl proto) {
+        long start_time = System.nanoTime();
+
         VRMLGroupingNodeType src_body = proto.getBodyGroup();
 
         BasicScene parent_scene = rootSpace.getContainedScene();
@@ -308,25 +310,50 @@ public abstract class CRProtoCreator
 
         traverser.reset();
 
+        // The field indices are the same for every copy of the body, so
+        // they are worked out from the first instance and then reused.
+        ProtoInstancePlan plan = proto.getInstancePlan();
+
+        if(plan == null) {
+            plan = new ProtoInstancePlan(proto,
+                                         protoInstance,
+                                         nodeMap,
+                                         errorReporter);
+            proto.setInstancePlan(plan);
+        }
+
         // If there is an SF/MFNode field in the decl, we need to traverse that
         // and turn it into something real.
 
         // process the DEFs and IMPORTs first so that the clones are ready
         // to use by the other updates
         processProtoDecls(proto.getPrototypeDecls());
-        processDEFs(proto.getDEFMap());
+        processDEFs(plan);
         processImports(proto.getImportDecls());
 
         // Look at all the routes and build those from the nodeMap.
         // then process the IS mapping information
-        processRoutes(proto.getRouteDecls());
+        processRoutes(plan);
 
-        processIS(proto.getISMaps(), proto);
+        processIS(plan);
 
         // Now all the setup is done, grab the field values and assign those
         // to the proto interface. Because of the IS mapping now in place, that
         // should ensure all the contained nodes get set with the right values.
-        processFields(proto);
+        processFields(plan, proto);
+
+        // Body nodes share the big MF arrays of the declaration until they
+        // are written to. Total up what is still shared after the field
+        // values have gone in.
+        long shared_bytes = 0;
+
+        for(VRMLNode node : nodeMap.values()) {
+            if(node instanceof VRMLSharedFieldNodeType)
+                shared_bytes +=
+                    ((VRMLSharedFieldNodeType)node).getSharedFieldBytes();
+        }
+
+        proto.recordInstance(shared_bytes, System.nanoTime() - start_time);
 
         // All done now!
         protoInstance.setContainedScene(scene);
@@ -346,20 +373,19 @@ public abstract class CRProtoCreator
     }
 
     /**
-     * Process the DEF map to create another map that now contains the copied,
-     * live versions of the nodes, rather than the internal versions.
+     * Process the DEF names to create another map that now contains the
+     * copied, live versions of the nodes, rather than the internal versions.
+     *
+     * @param plan The compiled plan for the declaration
      */
-    private void processDEFs(Map<String, VRMLNode> defMappings) {
-        Set<Entry<String, VRMLNode>> def_set = defMappings.entrySet();
-        String name;
-        VRMLNodeType src_node;
-        VRMLNodeType dest_node;
-        for (Entry<String, VRMLNode> e : def_set) {
-            name = e.getKey();
-            src_node = (VRMLNodeType) e.getValue();
-            dest_node = (VRMLNodeType) nodeMap.get(src_node);
-
-            scene.addDEFNode(name, dest_node);
+    private void processDEFs(ProtoInstancePlan plan) {
+        String[] names = plan.defNames;
+        VRMLNode[] nodes = plan.defNodes;
+
+        for(int i = 0; i < names.length; i++) {
+            VRMLNodeType dest_node = (VRMLNodeType)nodeMap.get(nodes[i]);
+
+            scene.addDEFNode(names[i], dest_node);
         }
     }
 
@@ -419,59 +445,40 @@ public abstract class CRProtoCreator
      * Process the routes from the declared versions and place those in the
      * proto's scene info.
      *
-     * @param declRoutes The routes from the declaration
+     * @param plan The compiled plan for the declaration
      */
-    private void processRoutes(Set<ProtoROUTE> declRoutes) {
-        if(declRoutes.isEmpty())
-            return;
-
-        Iterator<ProtoROUTE> itr = declRoutes.iterator();
-
-        ROUTE src_route;
-        ROUTE dest_route;
-        VRMLFieldDeclaration field_decl;
-        VRMLNodeType src_node;
-        VRMLNodeType dest_node;
-        VRMLNode tmp_node;
+    private void processRoutes(ProtoInstancePlan plan) {
+        VRMLNode[] sources = plan.routeSources;
+        VRMLNode[] destinations = plan.routeDestinations;
 
-        int src_index;
-        int dest_index;
-
-        while(itr.hasNext()) {
-            src_route = itr.next();
+        for(int i = 0; i < sources.length; i++) {
+            VRMLNodeType src_node = (VRMLNodeType)nodeMap.get(sources[i]);
+            VRMLNodeType dest_node =
+                (VRMLNodeType)nodeMap.get(destinations[i]);
 
-            src_node = (VRMLNodeType) nodeMap.get(src_route.getSourceNode());
-
-            if(src_node == null) {
+            if(src_node == null || dest_node == null) {
                 errorReporter.warningReport(
-                    "Unable to find matching source node copy for route " +
-                     src_route, null);
+                    "Unable to find matching node copy for route from " +
+                    sources[i] + " to " + destinations[i], null);
                 continue;
             }
 
-            dest_node =
-                (VRMLNodeType) nodeMap.get(src_route.getDestinationNode());
+            int src_index = checkFieldIndex(src_node,
+                                            plan.routeSourceFieldNames[i],
+                                            plan.routeSourceFields[i]);
+            int dest_index = checkFieldIndex(dest_node,
+                                             plan.routeDestinationFieldNames[i],
+                                             plan.routeDestinationFields[i]);
 
-            if(dest_node == null) {
+            if(src_index < 0 || dest_index < 0) {
                 errorReporter.warningReport(
-                    "Unable to find matching destination node copy for route "+
-                     src_route, null);
+                    "Unable to find the fields for route from " +
+                    plan.routeSourceFieldNames[i] + " to " +
+                    plan.routeDestinationFieldNames[i], null);
                 continue;
             }
 
-            // now work out the field index, by going the long way around.
-            tmp_node = src_route.getSourceNode();
-            src_index = src_route.getSourceIndex();
-
-            field_decl = tmp_node.getFieldDeclaration(src_index);
-            src_index = src_node.getFieldIndex(field_decl.getName());
-
-            tmp_node = src_route.getDestinationNode();
-            dest_index = src_route.getDestinationIndex();
-            field_decl = tmp_node.getFieldDeclaration(dest_index);
-            dest_index = dest_node.getFieldIndex(field_decl.getName());
-
-            dest_route =
+            ROUTE dest_route =
                 new CRROUTE(src_node, src_index, dest_node, dest_index);
             scene.addRoute(dest_route);
         }
@@ -480,67 +487,45 @@ public abstract class CRProtoCreator
     /**
      * Process the IS representations to create real versions.
      *
-     * @param isDecls The list of IS declarations to process
-     * @param srcProto The declaration to take the field values from
+     * @param plan The compiled plan for the declaration
      */
-    private void processIS(Map<Integer, List<ProtoFieldInfo>> isDecls, PrototypeDecl srcProto) {
-        if(isDecls.isEmpty())
-            return;
-
-        Set<Integer> key_set = isDecls.keySet();
-        Iterator<Integer> itr = key_set.iterator();
-        Integer src_int;
-        VRMLFieldDeclaration field_decl;
-        int is_index;
-        int src_index;
-        int dest_index;
-        List<ProtoFieldInfo> src_list;
-        List<ProtoFieldInfo> dest_list;
-        ProtoFieldInfo src_info;
-        ProtoFieldInfo dest_info;
-        VRMLNodeType dest_node;
-
-        while(itr.hasNext()) {
-            src_int = itr.next();
-            src_index = src_int;
-            field_decl = srcProto.getFieldDeclaration(src_index);
-
-            is_index = protoInstance.getFieldIndex(field_decl.getName());
-
-            src_list = isDecls.get(src_int);
-            Iterator<ProtoFieldInfo> field_itr = src_list.iterator();
-            dest_list = new ArrayList<>(src_list.size());
+    private void processIS(ProtoInstancePlan plan) {
+        String[] names = plan.isFieldNames;
 
-            // loop through all of the field info decls in the list and
-            // replicate versions of these based on the runtime node info
-            while(field_itr.hasNext()) {
-                src_info = field_itr.next();
+        for(int i = 0; i < names.length; i++) {
+            VRMLNode[] nodes = plan.isNodes[i];
+            int[] fields = plan.isNodeFields[i];
+            String[] field_names = plan.isNodeFieldNames[i];
+            List<ProtoFieldInfo> dest_list = new ArrayList<>(nodes.length);
 
-                dest_node = (VRMLNodeType) nodeMap.get(src_info.node);
+            for(int j = 0; j < nodes.length; j++) {
+                VRMLNodeType dest_node = (VRMLNodeType)nodeMap.get(nodes[j]);
 
                 if(dest_node == null) {
                     errorReporter.messageReport(
-                        "Unable to find IS dest node copy: " + src_info +
-                        "\nSource for IS " + field_decl);
+                        "Unable to find IS dest node copy: " + nodes[j] +
+                        "\nSource for IS " + names[i]);
                     errorReporter.messageReport("IS ignored");
                     continue;
                 }
 
-                field_decl = src_info.node.getFieldDeclaration(src_info.field);
+                int field = checkFieldIndex(dest_node,
+                                            field_names[j],
+                                            fields[j]);
 
-                if(field_decl == null) {
-                    errorReporter.messageReport("Invalid source field for: " +
-                                                src_info.node);
+                if(field < 0) {
+                    errorReporter.messageReport(
+                        "Unable to find IS dest field " + field_names[j] +
+                        " in " + dest_node + "\nSource for IS " + names[i]);
                     errorReporter.messageReport("IS ignored");
                     continue;
                 }
 
-                dest_index = dest_node.getFieldIndex(field_decl.getName());
-                dest_info = new ProtoFieldInfo(dest_node, dest_index);
-
-                dest_list.add(dest_info);
+                dest_list.add(new ProtoFieldInfo(dest_node, field));
             }
 
+            int is_index =
+                checkFieldIndex(protoInstance, names[i], plan.isFields[i]);
             protoInstance.setIsMapping(is_index, dest_list);
         }
     }
@@ -549,34 +534,26 @@ public abstract class CRProtoCreator
      * Take the field values from the declaration node and set them in the
      * real instance. Assumes the IS values have been already set.
      *
+     * @param plan The compiled plan for the declaration
      * @param srcProto The declaration to take the field values from
      */
-    private void processFields(PrototypeDecl srcProto) {
-        List<VRMLFieldDeclaration> src_fields = srcProto.getAllFields();
-        Iterator<VRMLFieldDeclaration> itr = src_fields.iterator();
-        VRMLFieldDeclaration field;
-        int src_index, dest_index;
-        String name;
-        int access;
-
-        while(itr.hasNext()) {
-            field = itr.next();
-
-            access = field.getAccessType();
-
-            // no point trying to set fields that don't have values
-            if((access == FieldConstants.EVENTIN) ||
-               (access == FieldConstants.EVENTOUT))
-               continue;
+    private void processFields(ProtoInstancePlan plan,
+                               PrototypeDecl srcProto) {
+        String[] names = plan.valueFieldNames;
 
+        for(int i = 0; i < names.length; i++) {
             try {
-                name = field.getName();
-                src_index = srcProto.getFieldIndex(name);
-                dest_index = protoInstance.getFieldIndex(name);
-                VRMLFieldData raw_data = srcProto.getFieldValue(src_index);
+                int dest_index = checkFieldIndex(protoInstance,
+                                                 names[i],
+                                                 plan.valueFields[i]);
+                VRMLFieldData raw_data =
+                    srcProto.getFieldValue(plan.valueSourceFields[i]);
 
                 if(raw_data != null)
-                    setProtoField(protoInstance, dest_index, field.getFieldSize(), raw_data);
+                    setProtoField(protoInstance,
+                                  dest_index,
+                                  plan.valueFieldSizes[i],
+                                  raw_data);
             } catch(FieldException fe) {
                 // We should _never_ get this!
                 errorReporter.errorReport("Proto create field types don't match!", fe);
@@ -584,6 +561,29 @@ public abstract class CRProtoCreator
         }
     }
 
+    /**
+     * Check that a field index from the plan matches the field of the same
+     * name in a node of the current instance. Instances filled in from an
+     * EXTERNPROTO stub may lay their fields out differently, and the plan
+     * holds -1 for anything it could not resolve from the first instance,
+     * so look it up by name if not.
+     *
+     * @param node The node the field belongs to
+     * @param name The name of the field
+     * @param index The index given by the plan
+     * @return The index of the field in the node or -1 if it has none
+     */
+    private int checkFieldIndex(VRMLNode node, String name, int index) {
+        if(index >= 0 && index < node.getNumFields()) {
+            VRMLFieldDeclaration decl = node.getFieldDeclaration(index);
+
+            if(decl != null && name.equals(decl.getName()))
+                return index;
+        }
+
+        return node.getFieldIndex(name);
+    }
+
     /**
      * Process a single field of a contained, nested proto.
      *
@@ -0,0 +1,701 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.geospatial;
+
+// External imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+// Local imports
+// None
+
+/**
+ * Bulk conversion of geospatial coordinates into the local cartesian
+ * rendering system.
+ * <p>
+ *
+ * This class runs as a singleton sitting in front of {@link GTTransformUtils}.
+ * Transforms are cached per geoSystem definition, so nodes with the same
+ * geoSystem share one transform rather than each building their own. Whole
+ * arrays of points are converted in one call, and large arrays are split
+ * into chunks that are converted in parallel on the common fork/join pool.
+ * <p>
+ *
+ * The two most common geoSystems, geodetic ("GD") and geocentric ("GC") on
+ * the default WGS84 ellipsoid, do not go through GeoTools at all. Geocentric
+ * input is already in the output system, so it is a straight copy. Geodetic
+ * input uses the closed form ellipsoid equations directly on the arrays.
+ * All other systems use the GeoTools transform.
+ * <p>
+ *
+ * The GeoOrigin, or origin manager offset, is not part of the transform.
+ * It is applied afterwards while down-casting to floats for rendering. That
+ * allows the offset to be re-applied cheaply when the origin changes,
+ * without re-running the geospatial conversion.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class GeoConversionService {
+
+    /** Default number of points at which conversion goes parallel */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 16384;
+
+    /** Number of points converted by each parallel task */
+    private static final int CHUNK_SIZE = 8192;
+
+    /** Transform is not one we have a special case for */
+    private static final int KIND_GENERAL = 0;
+
+    /** Transform is the geocentric identity */
+    private static final int KIND_IDENTITY = 1;
+
+    /** Transform is WGS84 geodetic, latitude first */
+    private static final int KIND_GD_LAT_FIRST = 2;
+
+    /** Transform is WGS84 geodetic, longitude first */
+    private static final int KIND_GD_LONG_FIRST = 3;
+
+    /** WGS84 semi-major axis in metres */
+    private static final double WGS84_A = 6378137;
+
+    /** WGS84 inverse flattening */
+    private static final double WGS84_INV_F = 298.257223563;
+
+    /** WGS84 first eccentricity squared */
+    private static final double WGS84_E2;
+
+    /** The shared singleton instance */
+    private static GeoConversionService instance;
+
+    /** Transforms keyed by the joined geoSystem strings */
+    private Map<String, MathTransform> transformCache;
+
+    /** Coordinate swap flag for each of the cached transforms */
+    private Map<String, Boolean> swapCache;
+
+    /** The special case kind of each transform we have handed out */
+    private Map<MathTransform, Integer> transformKinds;
+
+    /** Minimum number of points before conversion runs in parallel */
+    private int parallelThreshold;
+
+    /** Flag to say whether the analytic special cases are used */
+    private boolean analyticEnabled;
+
+    /** Total number of points converted */
+    private AtomicLong pointsConverted;
+
+    /** Number of points converted without going through GeoTools */
+    private AtomicLong analyticPoints;
+
+    /** Total time spent converting, in nanoseconds */
+    private AtomicLong conversionTime;
+
+    /** Number of transform requests satisfied from the cache */
+    private AtomicLong cacheHits;
+
+    /** Number of transform requests that had to build a transform */
+    private AtomicLong cacheMisses;
+
+    static {
+        double f = 1 / WGS84_INV_F;
+        WGS84_E2 = f * (2 - f);
+    }
+
+    /**
+     * Create a default instance of this class.
+     */
+    private GeoConversionService() {
+        transformCache = new HashMap<>();
+        swapCache = new HashMap<>();
+        transformKinds = new IdentityHashMap<>();
+
+        parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        analyticEnabled = true;
+
+        pointsConverted = new AtomicLong();
+        analyticPoints = new AtomicLong();
+        conversionTime = new AtomicLong();
+        cacheHits = new AtomicLong();
+        cacheMisses = new AtomicLong();
+    }
+
+    /**
+     * Fetch the singleton instance of the service. If needed, a new instance
+     * will be created.
+     *
+     * @return The shared singleton instance of this class
+     */
+    public static synchronized GeoConversionService getInstance() {
+        if (instance == null) {
+            instance = new GeoConversionService();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Get the transform for the given geoSystem definition. The same
+     * transform instance is returned for every request with the same
+     * definition strings.
+     *
+     * @param systemDef The X3D system definition string
+     * @param coordSwap an array of length 1 for returning the primary
+     * coordinate swap flag
+     * @return A transform for taking geo coordinates to cartesian
+     * @throws FactoryException There was a problem creating the transform
+     */
+    public synchronized MathTransform getTransform(String[] systemDef,
+            boolean[] coordSwap)
+            throws FactoryException {
+
+        String key = String.join(",", systemDef);
+        MathTransform ret_val = transformCache.get(key);
+
+        if (ret_val != null) {
+            cacheHits.incrementAndGet();
+            coordSwap[0] = swapCache.get(key);
+            return ret_val;
+        }
+
+        cacheMisses.incrementAndGet();
+
+        GTTransformUtils gtu = GTTransformUtils.getInstance();
+        ret_val = gtu.createSystemTransform(systemDef, coordSwap);
+
+        transformCache.put(key, ret_val);
+        swapCache.put(key, coordSwap[0]);
+        transformKinds.put(ret_val, classify(systemDef));
+
+        return ret_val;
+    }
+
+    /**
+     * Check to see if the given transform will be converted analytically
+     * rather than through GeoTools.
+     *
+     * @param transform The transform to check
+     * @return true if the fast path will be used
+     */
+    public boolean isAnalytic(MathTransform transform) {
+        return analyticEnabled && getKind(transform) != KIND_GENERAL;
+    }
+
+    /**
+     * Convert an array of geospatial points into the output geocentric
+     * cartesian system. The source array is not modified, even when the
+     * coordinates need swapping. The source and destination may be the same
+     * array as long as the offsets are the same.
+     *
+     * @param transform The transform from {@link #getTransform}
+     * @param coordSwap true if the first two ordinates need swapping first
+     * @param src The source points as flat x, y, z values
+     * @param srcOffset Index of the first source value
+     * @param dst The array to write the converted points to
+     * @param dstOffset Index of the first destination value
+     * @param numPoints The number of 3D points to convert
+     * @throws TransformException The conversion failed
+     */
+    public void transform(MathTransform transform,
+                          boolean coordSwap,
+                          double[] src,
+                          int srcOffset,
+                          double[] dst,
+                          int dstOffset,
+                          int numPoints)
+        throws TransformException {
+
+        transform(transform,
+                  coordSwap,
+                  src,
+                  srcOffset,
+                  dst,
+                  dstOffset,
+                  null,
+                  0,
+                  null,
+                  numPoints);
+    }
+
+    /**
+     * Convert an array of geospatial points into the output geocentric
+     * cartesian system and, at the same time, generate the single precision
+     * rendering values relative to the given origin.
+     *
+     * @param transform The transform from {@link #getTransform}
+     * @param coordSwap true if the first two ordinates need swapping first
+     * @param src The source points as flat x, y, z values
+     * @param srcOffset Index of the first source value
+     * @param dst The array to write the converted points to
+     * @param dstOffset Index of the first destination value
+     * @param local The array to write the origin relative floats to or null
+     * @param localOffset Index of the first local value
+     * @param origin The origin to subtract for the local values or null
+     * @param numPoints The number of 3D points to convert
+     * @throws TransformException The conversion failed
+     */
+    public void transform(final MathTransform transform,
+                          final boolean coordSwap,
+                          final double[] src,
+                          final int srcOffset,
+                          final double[] dst,
+                          final int dstOffset,
+                          final float[] local,
+                          final int localOffset,
+                          final double[] origin,
+                          int numPoints)
+        throws TransformException {
+
+        if (numPoints <= 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        final int kind = analyticEnabled ? getKind(transform) : KIND_GENERAL;
+
+        runChunks(numPoints, (first, count) -> {
+            int s = srcOffset + first * 3;
+            int d = dstOffset + first * 3;
+
+            switch (kind) {
+                case KIND_IDENTITY:
+                    copy(src, s, dst, d, count, coordSwap);
+                    break;
+
+                case KIND_GD_LAT_FIRST:
+                    geodeticToGeocentric(src, s, dst, d, count, !coordSwap);
+                    break;
+
+                case KIND_GD_LONG_FIRST:
+                    geodeticToGeocentric(src, s, dst, d, count, coordSwap);
+                    break;
+
+                default:
+                    if (coordSwap) {
+                        copy(src, s, dst, d, count, true);
+                        transform.transform(dst, d, dst, d, count);
+                    } else {
+                        transform.transform(src, s, dst, d, count);
+                    }
+            }
+
+            if (local != null) {
+                toLocal(dst, d, local, localOffset + first * 3, origin, count);
+            }
+        });
+
+        pointsConverted.addAndGet(numPoints);
+        conversionTime.addAndGet(System.nanoTime() - start);
+
+        if (kind != KIND_GENERAL) {
+            analyticPoints.addAndGet(numPoints);
+        }
+    }
+
+    /**
+     * Generate the single precision rendering values for already converted
+     * points relative to a new origin. Used when the origin changes but the
+     * geospatial points do not.
+     *
+     * @param src The converted geocentric points
+     * @param srcOffset Index of the first source value
+     * @param local The array to write the origin relative floats to
+     * @param localOffset Index of the first local value
+     * @param origin The origin to subtract or null for none
+     * @param numPoints The number of 3D points to convert
+     */
+    public void offset(final double[] src,
+                       final int srcOffset,
+                       final float[] local,
+                       final int localOffset,
+                       final double[] origin,
+                       int numPoints) {
+
+        if (numPoints <= 0) {
+            return;
+        }
+
+        try {
+            runChunks(numPoints, (first, count) -> {
+                toLocal(src,
+                        srcOffset + first * 3,
+                        local,
+                        localOffset + first * 3,
+                        origin,
+                        count);
+            });
+        } catch (TransformException te) {
+            // Can't happen as toLocal() doesn't throw it.
+        }
+    }
+
+    /**
+     * Set the minimum number of points in a single request before the
+     * conversion is split up and run in parallel.
+     *
+     * @param numPoints The point count. Must be positive
+     * @throws IllegalArgumentException The count was not positive
+     */
+    public void setParallelThreshold(int numPoints) {
+        if (numPoints < 1) {
+            throw new IllegalArgumentException("Parallel threshold < 1");
+        }
+
+        parallelThreshold = numPoints;
+    }
+
+    /**
+     * Get the minimum number of points before conversion runs in parallel.
+     *
+     * @return A positive point count
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Enable or disable the analytic conversion of WGS84 geodetic and
+     * geocentric points. When disabled, everything goes through GeoTools.
+     * Enabled by default.
+     *
+     * @param enable true to use the analytic conversions
+     */
+    public void setAnalyticEnabled(boolean enable) {
+        analyticEnabled = enable;
+    }
+
+    /**
+     * Check to see if the analytic conversions are enabled.
+     *
+     * @return true if the analytic conversions are used
+     */
+    public boolean isAnalyticEnabled() {
+        return analyticEnabled;
+    }
+
+    /**
+     * Clear the cached transforms. Transforms already handed out keep
+     * working, but are no longer recognised for the analytic path.
+     */
+    public synchronized void clearCache() {
+        transformCache.clear();
+        swapCache.clear();
+        transformKinds.clear();
+    }
+
+    /**
+     * Get the total number of points converted since the last reset.
+     *
+     * @return A non-negative count
+     */
+    public long getPointsConverted() {
+        return pointsConverted.get();
+    }
+
+    /**
+     * Get the number of points converted by the analytic path since the last
+     * reset.
+     *
+     * @return A non-negative count
+     */
+    public long getAnalyticPointsConverted() {
+        return analyticPoints.get();
+    }
+
+    /**
+     * Get the total time spent converting points since the last reset.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getConversionTime() {
+        return conversionTime.get();
+    }
+
+    /**
+     * Get the average conversion throughput since the last reset.
+     *
+     * @return Points per second, or zero if nothing has been converted
+     */
+    public double getPointsPerSecond() {
+        long time = conversionTime.get();
+
+        return (time == 0) ? 0 : pointsConverted.get() * 1e9 / time;
+    }
+
+    /**
+     * Get the number of transform requests that were answered from the
+     * cache since the last reset.
+     *
+     * @return A non-negative count
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Get the number of transform requests that needed a new transform to
+     * be created since the last reset.
+     *
+     * @return A non-negative count
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Reset all of the throughput and cache counters to zero.
+     */
+    public void resetCounters() {
+        pointsConverted.set(0);
+        analyticPoints.set(0);
+        conversionTime.set(0);
+        cacheHits.set(0);
+        cacheMisses.set(0);
+    }
+
+    /**
+     * Convert WGS84 geodetic points, in degrees and metres, to the output
+     * cartesian system of {@link GTTransformUtils}. The output axes are
+     * geocentric X, geocentric Z and negative geocentric Y so that Y is up
+     * at the north pole. The source and destination may be the same array
+     * as long as the offsets are the same.
+     *
+     * @param src The source points as flat triples
+     * @param srcOffset Index of the first source value
+     * @param dst The array to write the converted points to
+     * @param dstOffset Index of the first destination value
+     * @param numPoints The number of 3D points to convert
+     * @param latitudeFirst true if the source is (lat, long, height),
+     *   false for (long, lat, height)
+     */
+    public static void geodeticToGeocentric(double[] src,
+                                            int srcOffset,
+                                            double[] dst,
+                                            int dstOffset,
+                                            int numPoints,
+                                            boolean latitudeFirst) {
+        int lat_idx = latitudeFirst ? 0 : 1;
+        int lon_idx = latitudeFirst ? 1 : 0;
+
+        int s = srcOffset;
+        int d = dstOffset;
+
+        for (int i = 0; i < numPoints; i++) {
+            double lat = Math.toRadians(src[s + lat_idx]);
+            double lon = Math.toRadians(src[s + lon_idx]);
+            double h = src[s + 2];
+
+            double sin_lat = Math.sin(lat);
+            double cos_lat = Math.cos(lat);
+
+            double n = WGS84_A / Math.sqrt(1 - WGS84_E2 * sin_lat * sin_lat);
+            double r = (n + h) * cos_lat;
+
+            dst[d] = r * Math.cos(lon);
+            dst[d + 1] = (n * (1 - WGS84_E2) + h) * sin_lat;
+            dst[d + 2] = -r * Math.sin(lon);
+
+            s += 3;
+            d += 3;
+        }
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * A section of a bulk conversion.
+     */
+    private interface Chunk {
+
+        /**
+         * Convert the given range of points.
+         *
+         * @param first Index of the first point
+         * @param count The number of points to convert
+         */
+        void run(int first, int count) throws TransformException;
+    }
+
+    /**
+     * Run the chunk over all the points, splitting the work up across the
+     * fork/join pool if there are enough points.
+     */
+    private void runChunks(int numPoints, Chunk chunk)
+        throws TransformException {
+
+        if (numPoints < parallelThreshold) {
+            chunk.run(0, numPoints);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < numPoints; i += CHUNK_SIZE) {
+            final int first = i;
+            final int count = Math.min(CHUNK_SIZE, numPoints - i);
+
+            tasks.add(() -> {
+                chunk.run(first, count);
+                return null;
+            });
+        }
+
+        List<Future<Void>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+
+        try {
+            for (Future<Void> f : results) {
+                f.get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+
+            if (cause instanceof TransformException) {
+                throw (TransformException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else {
+                throw new TransformException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * Look up the special case kind of the transform.
+     */
+    private synchronized int getKind(MathTransform transform) {
+        Integer kind = transformKinds.get(transform);
+
+        return (kind == null) ? KIND_GENERAL : kind;
+    }
+
+    /**
+     * Work out which, if any, of the special cases applies to the given
+     * geoSystem definition. Must match the way that GTTransformUtils builds
+     * the transform.
+     */
+    private static int classify(String[] systemDef) {
+        boolean geodetic = false;
+        boolean long_first = false;
+
+        for (String def : systemDef) {
+            switch (def) {
+                case "GC":
+                case "GCC":
+                    // Always an identity, regardless of anything else
+                    return KIND_IDENTITY;
+
+                case "GD":
+                case "GDC":
+                    geodetic = true;
+                    break;
+
+                case "longitude_first":
+                    long_first = true;
+                    break;
+
+                case "latitude_first":
+                case "WE":
+                case "WGS84":
+                    break;
+
+                default:
+                    // Some other ellipsoid or system we don't have a
+                    // special case for.
+                    return KIND_GENERAL;
+            }
+        }
+
+        if (!geodetic) {
+            return KIND_GENERAL;
+        }
+
+        return long_first ? KIND_GD_LONG_FIRST : KIND_GD_LAT_FIRST;
+    }
+
+    /**
+     * Copy points, optionally swapping the first two ordinates.
+     */
+    private static void copy(double[] src,
+                             int srcOffset,
+                             double[] dst,
+                             int dstOffset,
+                             int numPoints,
+                             boolean swap) {
+        if (!swap) {
+            if (src != dst || srcOffset != dstOffset) {
+                System.arraycopy(src, srcOffset, dst, dstOffset, numPoints * 3);
+            }
+
+            return;
+        }
+
+        int s = srcOffset;
+        int d = dstOffset;
+
+        for (int i = 0; i < numPoints; i++) {
+            double tmp = src[s];
+            dst[d] = src[s + 1];
+            dst[d + 1] = tmp;
+            dst[d + 2] = src[s + 2];
+
+            s += 3;
+            d += 3;
+        }
+    }
+
+    /**
+     * Down-cast points to floats relative to the origin.
+     */
+    private static void toLocal(double[] src,
+                                int srcOffset,
+                                float[] dst,
+                                int dstOffset,
+                                double[] origin,
+                                int numPoints) {
+        int s = srcOffset;
+        int d = dstOffset;
+
+        if (origin == null) {
+            for (int i = 0; i < numPoints * 3; i++) {
+                dst[d++] = (float)src[s++];
+            }
+        } else {
+            for (int i = 0; i < numPoints; i++) {
+                dst[d] = (float)(src[s] - origin[0]);
+                dst[d + 1] = (float)(src[s + 1] - origin[1]);
+                dst[d + 2] = (float)(src[s + 2] - origin[2]);
+
+                s += 3;
+                d += 3;
+            }
+        }
+    }
+}
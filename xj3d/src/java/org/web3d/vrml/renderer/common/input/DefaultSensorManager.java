@@ -379,7 +379,8 @@ public class DefaultSensorManager implements SensorManager {
                 break;
 
             case TypeConstants.PickingSensorNodeType:
-                pickManager.removeSensor((VRMLPickingSensorNodeType)node);
+                if(pickManager != null)
+                    pickManager.removeSensor((VRMLPickingSensorNodeType)node);
                 break;
 
             case TypeConstants.DeviceSensorNodeType:
@@ -464,7 +465,8 @@ public class DefaultSensorManager implements SensorManager {
                 break;
 
             case TypeConstants.PickingSensorNodeType:
-                pickManager.addSensor((VRMLPickingSensorNodeType)node);
+                if(pickManager != null)
+                    pickManager.addSensor((VRMLPickingSensorNodeType)node);
                 break;
 
             default:
@@ -31,12 +31,17 @@ import org.web3d.vrml.lang.VRMLException;
  * This includes normal and texture indexes.  These may not be needed by some
  * implementations like IndexedLineSet.  Just don't define the fields in the
  * static setup.
+ * <p>
+ * A copy made from another indexed node shares its index arrays. Index
+ * arrays are only ever replaced, never changed in place, so no copy is
+ * needed when either node is later given new indices.
  *
  * @author Justin Couch, Alan Hudson
  * @version $Revision: 1.16 $
  */
 public abstract class BaseIndexedGeometryNode
-    extends BaseComponentGeometryNode {
+    extends BaseComponentGeometryNode
+    implements VRMLSharedFieldNodeType {
 
     /** Index of the colorIndex MFInt32 field */
     protected static final int FIELD_COLORINDEX = LAST_GEOMETRY_INDEX + 1;
@@ -105,6 +110,12 @@ public abstract class BaseIndexedGeometryNode
     /** Number of valid values in vfColorIndex */
     protected int numTexCoordIndex;
 
+    /**
+     * The index arrays taken from the node this was copied from, in the
+     * order color, coord, normal, texCoord. Null if not a shared copy.
+     */
+    private int[][] sharedIndices;
+
     /**
      * Construct a default instance of this class with the bind flag set to
      * false and no time information set (effective value of zero).
@@ -139,6 +150,36 @@ public abstract class BaseIndexedGeometryNode
 
         super.copy(node);
 
+        if(node instanceof BaseIndexedGeometryNode) {
+            BaseIndexedGeometryNode src = (BaseIndexedGeometryNode)node;
+
+            if(src.numColorIndex != 0) {
+                vfColorIndex = src.vfColorIndex;
+                numColorIndex = src.numColorIndex;
+            }
+
+            if(src.numCoordIndex != 0) {
+                vfCoordIndex = src.vfCoordIndex;
+                numCoordIndex = src.numCoordIndex;
+            }
+
+            if(src.numNormalIndex != 0) {
+                vfNormalIndex = src.vfNormalIndex;
+                numNormalIndex = src.numNormalIndex;
+            }
+
+            if(src.numTexCoordIndex != 0) {
+                vfTexCoordIndex = src.vfTexCoordIndex;
+                numTexCoordIndex = src.numTexCoordIndex;
+            }
+
+            sharedIndices = new int[][] {
+                vfColorIndex, vfCoordIndex, vfNormalIndex, vfTexCoordIndex
+            };
+
+            return;
+        }
+
         try {
             int index = node.getFieldIndex("colorIndex");
             VRMLFieldData field = node.getFieldValue(index);
@@ -201,6 +242,31 @@ public abstract class BaseIndexedGeometryNode
         }
     }
 
+    //----------------------------------------------------------
+    // Methods defined by VRMLSharedFieldNodeType
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of bytes of field data that this node currently shares
+     * with other nodes instead of holding its own copy.
+     *
+     * @return A non-negative number of bytes
+     */
+    @Override
+    public long getSharedFieldBytes() {
+        if(sharedIndices == null)
+            return 0;
+
+        long ret_val = 0;
+
+        ret_val += sharedLength(sharedIndices[0], vfColorIndex);
+        ret_val += sharedLength(sharedIndices[1], vfCoordIndex);
+        ret_val += sharedLength(sharedIndices[2], vfNormalIndex);
+        ret_val += sharedLength(sharedIndices[3], vfTexCoordIndex);
+
+        return ret_val * 4;
+    }
+
     //----------------------------------------------------------
     // Methods required by the VRMLNodeType interface.
     //----------------------------------------------------------
@@ -449,4 +515,12 @@ public abstract class BaseIndexedGeometryNode
         numTexCoordIndex = numValid;
         changeFlags |= TEXCOORDS_INDEX_CHANGED;
     }
+
+    /**
+     * Number of values in the current array if it is still the one that was
+     * shared at copy time.
+     */
+    private int sharedLength(int[] shared, int[] current) {
+        return (current != null && current == shared) ? current.length : 0;
+    }
 }
@@ -114,6 +114,76 @@ public class GeometryUtils {
     private int nErrorCnt;
     private int coErrorCnt;
 
+    // Incremental update state. Only maintained when incrementalUpdates is set
+    /** Should partial coord/coordIndex changes be applied incrementally */
+    private boolean incrementalUpdates;
+
+    /** Number of valid values in the current coordinate source array */
+    private int numCoordValues;
+
+    /** Copy of the coordinates used in the last build, for change detection */
+    private float[] lastCoord;
+
+    /** Number of valid values in lastCoord */
+    private int lastCoordCount;
+
+    /** Copy of the coordIndex used in the last build, for change detection */
+    private int[] lastCoordIndex;
+
+    /** Number of valid values in lastCoordIndex */
+    private int lastCoordIndexCount;
+
+    /** The source polygon that each output triangle was generated from */
+    private int[] triangleFace;
+
+    /** The first output triangle generated for each source polygon */
+    private int[] faceTriangleStart;
+
+    /** The number of output triangles generated for each source polygon */
+    private int[] faceTriangleCount;
+
+    /** The offset into lfCoordIndex of the first vertex of each polygon */
+    private int[] faceIndexStart;
+
+    /** The number of valid entries in each of the vertexToFace lists */
+    private int[] vertexFaceCount;
+
+    /** Per-triangle marker used to collect the dirty triangle set */
+    private int[] dirtyTriangleMark;
+
+    /** Per-triangle marker used to collect the triangles needing normals */
+    private int[] normalTriangleMark;
+
+    /** The current marker value for the two mark arrays */
+    private int markStamp;
+
+    /** List of triangles whose output coordinates need rebuilding */
+    private int[] dirtyTriangles;
+
+    /** Number of valid entries in dirtyTriangles */
+    private int numDirtyTriangles;
+
+    /** List of triangles whose output normals need rebuilding */
+    private int[] normalTriangles;
+
+    /** Number of valid entries in normalTriangles */
+    private int numNormalTriangles;
+
+    /** Source vertex indices that changed in this update */
+    private int[] dirtyVertices;
+
+    /** Number of valid entries in dirtyVertices */
+    private int numDirtyVertices;
+
+    /** First output vertex written by the last build */
+    private int dirtyRangeStart;
+
+    /** One past the last output vertex written by the last build */
+    private int dirtyRangeEnd;
+
+    /** Number of output vertices written by the last build */
+    private int verticesRebuilt;
+
     public GeometryUtils() {
         cached = false;
     }
@@ -157,6 +227,65 @@ public class GeometryUtils {
         coErrorCnt = 0;
         cached = false;
 
+        lastCoord = null;
+        lastCoordIndex = null;
+        triangleFace = null;
+        faceTriangleStart = null;
+        faceTriangleCount = null;
+        faceIndexStart = null;
+        vertexFaceCount = null;
+        dirtyTriangleMark = null;
+        normalTriangleMark = null;
+        dirtyTriangles = null;
+        normalTriangles = null;
+        dirtyVertices = null;
+    }
+
+    /**
+     * Enable or disable incremental updates. When enabled, the utilities keep
+     * a copy of the last coordinate and coordIndex values used so that a
+     * later build where only those have changed can rebuild just the faces
+     * that reference the changed values, rather than the entire mesh. This
+     * costs an extra copy of the source arrays, so should only be enabled
+     * for geometry that is known to be changing. The caller must pass a
+     * GeometryHolder holding the output of the last build for this to have
+     * any effect, as only the changed values are written. Those writes are
+     * made in place, so callers whose output arrays are still in use by the
+     * renderer should pass a copy.
+     *
+     * @param enable true to keep state for incremental updates
+     */
+    public void setIncrementalUpdates(boolean enable) {
+        incrementalUpdates = enable;
+
+        if(!enable) {
+            lastCoord = null;
+            lastCoordIndex = null;
+        }
+    }
+
+    /**
+     * Get the number of output vertices that were written during the last
+     * call to generateTriangleArrays(). For a full build this is every
+     * vertex, for an incremental build just those of the affected faces.
+     *
+     * @return The number of vertices rebuilt
+     */
+    public int getVerticesRebuilt() {
+        return verticesRebuilt;
+    }
+
+    /**
+     * Get the range of output vertices that were modified by the last call to
+     * generateTriangleArrays(). The first value is the first vertex changed,
+     * the second is the number of vertices from there that may have changed.
+     * The count is zero if nothing was modified.
+     *
+     * @param range An array of length 2 to copy the values into
+     */
+    public void getDirtyRange(int[] range) {
+        range[0] = dirtyRangeStart;
+        range[1] = dirtyRangeEnd - dirtyRangeStart;
     }
 
     /**
@@ -302,6 +431,10 @@ public class GeometryUtils {
 
         boolean ret_val = initialBuild;
 
+        verticesRebuilt = 0;
+        dirtyRangeStart = 0;
+        dirtyRangeEnd = 0;
+
         this.geomData = geomData;
         this.changeFlags = changeFlags;
         this.vfCoordIndex = vfCoordIndex;
@@ -380,9 +513,24 @@ public class GeometryUtils {
 
                 geomData.vertexCount = num_items / 3;
                 lfCoord = vfCoord.getPointRef();
+                numCoordValues = num_items;
+            } else {
+                numCoordValues = lfCoord.length;
             }
         }
 
+        if(incrementalUpdates && !initialBuild &&
+           updateIncrementally(ccw, genNormals, vfNormal == null)) {
+
+            // Release vars set on entry and not cached
+            this.vfColorIndex = null;
+            this.vfCoordIndex = null;
+            this.vfNormalIndex = null;
+            this.vfTexCoordIndex = null;
+
+            return ret_val;
+        }
+
         if(((changeFlags & BaseComponentGeometryNode.COLORS_CHANGED) != 0) || initialBuild) {
             if(vfColor != null) {
                 num_items = vfColor.getNumColors();
@@ -654,6 +802,13 @@ public class GeometryUtils {
             updateColorArray();
         }
 
+        if(incrementalUpdates)
+            saveIncrementalState();
+
+        verticesRebuilt = triangleCount * 3;
+        dirtyRangeStart = 0;
+        dirtyRangeEnd = verticesRebuilt;
+
         // Release vars set on entry and not cached
         vfColorIndex = null;
         vfCoordIndex = null;
@@ -951,125 +1106,122 @@ public class GeometryUtils {
      * now running with the tesselated face.
      */
     private void generateNormals() {
-        int p;
         int i;
 
-        for(i = 0; i < triangleCount; i++) {
-
-            p = i * 3 * 3;
-
-            createFaceNormal(geomData.coordinates, p, 3,  faceNormals[i]);
-        }
+        for(i = 0; i < triangleCount; i++)
+            createFaceNormal(geomData.coordinates, i * 9, 3,  faceNormals[i]);
 
         // Now calculate the normals. If the creaseAngle is zero, that means
         // no averaging - each face has its own normals, so do a special case
         // handler for that to save a lot of calculation
         int num_normals = triangleCount * 9;
 
+        if((geomData.normals == null) ||
+           (geomData.normals.length < num_normals))
+            geomData.normals = new float[num_normals];
+
         if(vfCreaseAngle == 0) {
-            if((geomData.normals == null) ||
-               (geomData.normals.length < num_normals))
-                geomData.normals = new float[num_normals];
-
-            // Spread the face normals for the three vertices of the
-            // triangle.
-            for(i = 0; i < triangleCount; i++) {
-                geomData.normals[i * 9] = faceNormals[i][0];
-                geomData.normals[i * 9 + 1] = faceNormals[i][1];
-                geomData.normals[i * 9 + 2] = faceNormals[i][2];
-
-                geomData.normals[i * 9 + 3] = faceNormals[i][0];
-                geomData.normals[i * 9 + 4] = faceNormals[i][1];
-                geomData.normals[i * 9 + 5] = faceNormals[i][2];
-
-                geomData.normals[i * 9 + 6] = faceNormals[i][0];
-                geomData.normals[i * 9 + 7] = faceNormals[i][1];
-                geomData.normals[i * 9 + 8] = faceNormals[i][2];
-            }
+            for(i = 0; i < triangleCount; i++)
+                spreadFaceNormal(i);
         } else {
-            if((geomData.normals == null) ||
-               (geomData.normals.length < num_normals))
-                geomData.normals = new float[num_normals];
-
-            // The normal averaging is relatively dumb right now and calculates
-            // every vertex of every face rather than only calculating the
-            // shared vertices once.  A vector of smoothed face would need
-            // to be kept as a single boolean per vertex would not work.
-            //
-            // for each face
-            //    for each vertex
-            //        base_normal = face_normal
-            //        for each face sharing that vertex
-            //           if acos(current_normal dot shared_face) < cosCreaseAngle
-            //              add shared normal to base_normal
-            //    normalise(base_normal)
-            //
-            float face_x, face_y, face_z;
-            float norm_x, norm_y, norm_z;
-            int vertex_idx;
-/*
-            for(i = 0; i < maxIndexValue; i++)
-                normalCalculated[i] = false;
-*/
-            for(i = 0; i < triangleCount; i++) {
-                face_x = faceNormals[i][0];
-                face_y = faceNormals[i][1];
-                face_z = faceNormals[i][2];
-
-                for(int j = 0; j < 3; j++) {
-                    vertex_idx = tsCoordIndex[i * 3 + j];
-
-                    norm_x = face_x;
-                    norm_y = face_y;
-                    norm_z = face_z;
-
-                    int[] connected_faces = vertexToFace[vertex_idx];
-                    boolean needs_normalising = false;
-                    int num_cnx =
-                        connected_faces == null ? 0 : connected_faces.length;
+            for(i = 0; i < triangleCount; i++)
+                averageVertexNormals(i);
+        }
+    }
 
-                    for(int k = 0; k < num_cnx; k++) {
-                        int shared_face = connected_faces[k];
+    /**
+     * Spread the face normal for a triangle across its three vertices.
+     *
+     * @param tri The index of the triangle to process
+     */
+    private void spreadFaceNormal(int tri) {
+        float[] face_normal = faceNormals[tri];
+        int pos = tri * 9;
+
+        for(int j = 0; j < 3; j++) {
+            geomData.normals[pos++] = face_normal[0];
+            geomData.normals[pos++] = face_normal[1];
+            geomData.normals[pos++] = face_normal[2];
+        }
+    }
 
-                        //if(shared_face == i)
-                        // normal vector for wall of Extrusion should be averaged with neighbor wall Faces.
-                        // normal vector for cap of Extrusion should be averaged with neighhbor Cap Faces.
-                        if(shared_face == i || (nFaceType[i] != nFaceType[shared_face]) )
-                            continue;
+    /**
+     * Calculate the smoothed normals for each vertex of a single triangle
+     * using the crease angle and the triangles that share the vertex.
+     * <p>
+     *
+     * The normal averaging is relatively dumb right now and calculates
+     * every vertex of every face rather than only calculating the
+     * shared vertices once.  A vector of smoothed face would need
+     * to be kept as a single boolean per vertex would not work.
+     * <pre>
+     * for each vertex
+     *     base_normal = face_normal
+     *     for each face sharing that vertex
+     *        if acos(current_normal dot shared_face) &lt; cosCreaseAngle
+     *           add shared normal to base_normal
+     *     normalise(base_normal)
+     * </pre>
+     *
+     * @param tri The index of the triangle to process
+     */
+    private void averageVertexNormals(int tri) {
+        float face_x = faceNormals[tri][0];
+        float face_y = faceNormals[tri][1];
+        float face_z = faceNormals[tri][2];
+        float norm_x, norm_y, norm_z;
+        int vertex_idx;
+
+        for(int j = 0; j < 3; j++) {
+            vertex_idx = tsCoordIndex[tri * 3 + j];
+
+            norm_x = face_x;
+            norm_y = face_y;
+            norm_z = face_z;
+
+            int[] connected_faces = vertexToFace[vertex_idx];
+            boolean needs_normalising = false;
+            int num_cnx = vertexFaceCount[vertex_idx];
+
+            for(int k = 0; k < num_cnx; k++) {
+                int shared_face = connected_faces[k];
+
+                // normal vector for wall of Extrusion should be averaged with neighbor wall Faces.
+                // normal vector for cap of Extrusion should be averaged with neighhbor Cap Faces.
+                if(shared_face == tri || (nFaceType[tri] != nFaceType[shared_face]) )
+                    continue;
 
-                        // inline dot product
-                        float dot_prod = faceNormals[shared_face][0] * face_x +
-                                         faceNormals[shared_face][1] * face_y +
-                                         faceNormals[shared_face][2] * face_z;
+                // inline dot product
+                float dot_prod = faceNormals[shared_face][0] * face_x +
+                                 faceNormals[shared_face][1] * face_y +
+                                 faceNormals[shared_face][2] * face_z;
 
 
-                        // Check slightly > 1 as float roundoff cause some issues
-                        if(dot_prod < 1.01f && dot_prod >= cosCreaseAngle) {
-                            needs_normalising = true;
+                // Check slightly > 1 as float roundoff cause some issues
+                if(dot_prod < 1.01f && dot_prod >= cosCreaseAngle) {
+                    needs_normalising = true;
 
-                            norm_x += faceNormals[shared_face][0];
-                            norm_y += faceNormals[shared_face][1];
-                            norm_z += faceNormals[shared_face][2];
-                        }
-                    }
+                    norm_x += faceNormals[shared_face][0];
+                    norm_y += faceNormals[shared_face][1];
+                    norm_z += faceNormals[shared_face][2];
+                }
+            }
 
-                    if (needs_normalising) {
-                        double len = norm_x * norm_x +
-                                     norm_y * norm_y +
-                                     norm_z * norm_z;
+            if (needs_normalising) {
+                double len = norm_x * norm_x +
+                             norm_y * norm_y +
+                             norm_z * norm_z;
 
-                        if(len != 0) {
-                            len = 1 / Math.sqrt(len);
-                            norm_x = (float)(norm_x * len);
-                            norm_y = (float)(norm_y * len);
-                            norm_z = (float)(norm_z * len);
-                        }
-                    }
-                    geomData.normals[i * 9 + j * 3] = norm_x;
-                    geomData.normals[i * 9 + j * 3 + 1] = norm_y;
-                    geomData.normals[i * 9 + j * 3 + 2] = norm_z;
+                if(len != 0) {
+                    len = 1 / Math.sqrt(len);
+                    norm_x = (float)(norm_x * len);
+                    norm_y = (float)(norm_y * len);
+                    norm_z = (float)(norm_z * len);
                 }
             }
+            geomData.normals[tri * 9 + j * 3] = norm_x;
+            geomData.normals[tri * 9 + j * 3 + 1] = norm_y;
+            geomData.normals[tri * 9 + j * 3 + 2] = norm_z;
         }
     }
 
@@ -1216,65 +1368,57 @@ public class GeometryUtils {
                     maxIndexValue = vfCoordIndex[i];
             }
 
-            // run through the tesselated index list and build another vertex
-            // user count listing. The array is temporary that will be reused
-            // a number of times.
-            int[] idx_tmp = new int[maxIndexValue + 1];
-
-            int tri_index_cnt = triangleCount * 3;
-
-            if((vertexToFace == null) ||
-               (vertexToFace.length < idx_tmp.length))
-                vertexToFace = new int[idx_tmp.length][];
+            buildVertexToFace();
+        }
+    }
 
-            int idx;
-            for(i = 0; i < tri_index_cnt; i++) {
-                idx = tsCoordIndex[i];
+    /**
+     * Run through the tesselated index list and build the listing of the
+     * triangles that use each vertex. vertexToFace[17][0] means the first
+     * triangle that uses vertex #18. Assumes maxIndexValue is valid.
+     */
+    private void buildVertexToFace() {
+        int num_vtx = maxIndexValue + 1;
+        int tri_index_cnt = triangleCount * 3;
+        int i;
 
-                if (idx > -1)
-                    idx_tmp[idx]++;
-            }
+        if((vertexFaceCount == null) || (vertexFaceCount.length < num_vtx))
+            vertexFaceCount = new int[num_vtx];
+        else {
+            for(i = 0; i < num_vtx; i++)
+                vertexFaceCount[i] = 0;
+        }
 
-            // Finish allocating the vertexToFace list of the correct size
-            // using the vertex_user_count list above
-            // vertexToFace array means "what Faces are related to a vertex?"
-            // vertexToFace[17][0] means " 1st Face number related to vertex #18 "
-            for(i = 0; i < idx_tmp.length; i++) {
-                if((vertexToFace[i] == null) ||
-                   (vertexToFace[i].length < idx_tmp[i]))
-                    vertexToFace[i] = new int[idx_tmp[i]];
-            }
+        if((vertexToFace == null) ||
+           (vertexToFace.length < num_vtx))
+            vertexToFace = new int[num_vtx][];
 
-            // Finally, build the vertexToFace list. Use a temporary list to
-            // keep track of where we are in the list as we're setting the face
-            // numbers. First clear the temp array.
-            for(i = 0; i < idx_tmp.length; i++)
-                idx_tmp[i] = 0;
+        int idx;
+        for(i = 0; i < tri_index_cnt; i++) {
+            idx = tsCoordIndex[i];
 
-            int current_face = 0;
+            if (idx > -1)
+                vertexFaceCount[idx]++;
+        }
 
-            int pos;
-            for(i = 0; i < tri_index_cnt; i++) {
-                idx = tsCoordIndex[i];
+        // Finish allocating the vertexToFace list of the correct size
+        // using the vertex user count list above
+        for(i = 0; i < num_vtx; i++) {
+            if((vertexToFace[i] == null) ||
+               (vertexToFace[i].length < vertexFaceCount[i]))
+                vertexToFace[i] = new int[vertexFaceCount[i]];
 
-                if (idx > -1) {
-                    pos = idx_tmp[idx];
-                    vertexToFace[idx][pos] = current_face;
-                    idx_tmp[idx]++;
+            vertexFaceCount[i] = 0;
+        }
 
-                    if((i % 3) == 2)
-                        current_face++;
-                }
-            }
+        // Finally, build the vertexToFace list, using the count list to keep
+        // track of where we are in the list as we're setting the face
+        // numbers.
+        for(i = 0; i < tri_index_cnt; i++) {
+            idx = tsCoordIndex[i];
 
-/*
-            if((normalCalculated == null) ||
-               normalCalculated.length < maxIndexValue + 1) {
-
-                normalCalculated = new boolean[maxIndexValue + 1];
-                finalNormals = new float[(maxIndexValue + 1) * 3];
-            }
-*/
+            if (idx > -1)
+                vertexToFace[idx][vertexFaceCount[idx]++] = i / 3;
         }
     }
 
@@ -1294,14 +1438,24 @@ public class GeometryUtils {
         int i, j;
 
         if(required || (changeFlags & BaseIndexedGeometryNode.COORDS_INDEX_CHANGED) != 0) {
+            boolean track_faces = incrementalUpdates;
+
+            if(track_faces)
+                allocateFaceTables();
+
             for(i = 0; i < lfCoordIndex.length; i++) {
 
                 if(rawVerticesPerFace[face_index] < 3) {
+                    if(track_faces)
+                        recordFaceTriangles(face_index, i, ts_index / 3, ts_index / 3);
+
                     i += rawVerticesPerFace[face_index];
                     face_index++;
                     continue;
                 }
 
+                int first_tri = ts_index / 3;
+
                 for(j = 0; j < rawVerticesPerFace[face_index] - 2; j++) {
                     if(i + 3 + j > lfCoordIndex.length) {
                         if (cErrorCnt < MAX_ERRORS_PRINTED) {
@@ -1318,6 +1472,9 @@ public class GeometryUtils {
                     ts_index += 3;
                 }
 
+                if(track_faces)
+                    recordFaceTriangles(face_index, i, first_tri, ts_index / 3);
+
                 i += j + 2;
                 face_index++;
             }
@@ -1328,7 +1485,8 @@ public class GeometryUtils {
             // Not sure if this is optimal or not.
             // Upper level solution seems better. But Conceptually this direction is correct.
             // Create nFaceType
-            if(nFaceType == null)   nFaceType = new int[triangleCount];
+            if(nFaceType == null || nFaceType.length < triangleCount)
+                nFaceType = new int[triangleCount];
 
             ts_index = 0;
             face_index = 0;
@@ -1483,6 +1641,10 @@ public class GeometryUtils {
             int ts_index = 0;
             int face_index = 0;
             int i, j;
+            boolean track_faces = incrementalUpdates;
+
+            if(track_faces)
+                allocateFaceTables();
 
 			// NOTE: J3D's ear cutting algorithm throws exception if the texture cood index,
 			// normal index, or color index length are less than the coord index length. So
@@ -1503,11 +1665,15 @@ public class GeometryUtils {
             for(i = 0; i < lfCoordIndex.length; i++) {
 
                 if(rawVerticesPerFace[face_index] < 3) {
+                    if(track_faces)
+                        recordFaceTriangles(face_index, i, ts_index / 3, ts_index / 3);
+
                     i += rawVerticesPerFace[face_index];
                     face_index++;
                     continue;
                 }
 
+                int first_tri = ts_index / 3;
                 int num_tris = 0;
                 try {
                     // Need to pre-calculate the normal here for the face.
@@ -1577,6 +1743,9 @@ public class GeometryUtils {
                     ts_index += 3;
                 }
 
+                if(track_faces)
+                    recordFaceTriangles(face_index, i, first_tri, ts_index / 3);
+
                 // Triagulate based on the face.
                 i += rawVerticesPerFace[face_index];
                 face_index++;
@@ -1588,7 +1757,8 @@ public class GeometryUtils {
             // Not sure if this is optimal or not.
             // Upper level solution seems better. But Conceptually this direction is correct.
             // Create nFaceType
-            if(nFaceType == null)   nFaceType = new int[triangleCount];
+            if(nFaceType == null || nFaceType.length < triangleCount)
+                nFaceType = new int[triangleCount];
             for(i = 0; i < triangleCount; i++) nFaceType[i] = 0;        // Temporary
         }
     }
@@ -1768,6 +1938,509 @@ public class GeometryUtils {
         }
     }
 
+    /**
+     * Make sure the per-polygon and per-triangle lookup tables used for
+     * incremental updates are large enough for the current geometry.
+     */
+    private void allocateFaceTables() {
+        if((faceTriangleStart == null) ||
+           (faceTriangleStart.length < polygonCount)) {
+            faceTriangleStart = new int[polygonCount];
+            faceTriangleCount = new int[polygonCount];
+            faceIndexStart = new int[polygonCount];
+        }
+
+        int max_tris = tsCoordIndex.length / 3;
+
+        if((triangleFace == null) || (triangleFace.length < max_tris))
+            triangleFace = new int[max_tris];
+    }
+
+    /**
+     * Record the range of output triangles that were generated for a single
+     * source polygon.
+     *
+     * @param face The index of the source polygon
+     * @param indexStart The offset of the polygon in lfCoordIndex
+     * @param firstTri The first triangle generated for the polygon
+     * @param endTri One past the last triangle generated for the polygon
+     */
+    private void recordFaceTriangles(int face,
+                                     int indexStart,
+                                     int firstTri,
+                                     int endTri) {
+        faceIndexStart[face] = indexStart;
+        faceTriangleStart[face] = firstTri;
+        faceTriangleCount[face] = endTri - firstTri;
+
+        for(int i = firstTri; i < endTri; i++)
+            triangleFace[i] = face;
+    }
+
+    /**
+     * Take a copy of the coordinate and coordIndex values used for this
+     * build so that the next build can work out what has changed.
+     */
+    private void saveIncrementalState() {
+        if((lfCoord == null) || (vfCoordIndex == null))
+            return;
+
+        if((lastCoord == null) || (lastCoord.length < numCoordValues))
+            lastCoord = new float[numCoordValues];
+
+        System.arraycopy(lfCoord, 0, lastCoord, 0, numCoordValues);
+        lastCoordCount = numCoordValues;
+
+        if((lastCoordIndex == null) || (lastCoordIndex.length < numCoordIndex))
+            lastCoordIndex = new int[numCoordIndex];
+
+        System.arraycopy(vfCoordIndex, 0, lastCoordIndex, 0, numCoordIndex);
+        lastCoordIndexCount = numCoordIndex;
+    }
+
+    /**
+     * Attempt to apply the current changes by only rebuilding the faces that
+     * reference changed coordinates or coordIndex values. Handles the case of
+     * coordinate values changing, and coordIndex values changing without the
+     * number of vertices in each face changing. Anything else requires a full
+     * rebuild.
+     *
+     * @param ccw The ccw value passed to this build
+     * @param genNormals Should normals be generated if none are provided
+     * @param noNormals true if there is no explicit normal node
+     * @return true if the update was applied, false if a full rebuild is needed
+     */
+    private boolean updateIncrementally(boolean ccw,
+                                        boolean genNormals,
+                                        boolean noNormals) {
+
+        int coord_flags = BaseComponentGeometryNode.COORDS_CHANGED |
+                          BaseComponentGeometryNode.COORDS_INDEX_CHANGED;
+
+        if((changeFlags == 0) || ((changeFlags & ~coord_flags) != 0))
+            return false;
+
+        if(!ccw || (lastCoord == null) || (lastCoordIndex == null) ||
+           (triangleFace == null) || (vertexFaceCount == null) ||
+           (lfCoord == null) || (numCoordValues != lastCoordCount) ||
+           (geomData.coordinates == null) ||
+           (geomData.coordinates.length < triangleCount * 9))
+            return false;
+
+        boolean gen_normals = noNormals && genNormals;
+
+        if(gen_normals && ((faceNormals == null) || (geomData.normals == null) ||
+           (geomData.normals.length < triangleCount * 9)))
+            return false;
+
+        if((dirtyTriangleMark == null) ||
+           (dirtyTriangleMark.length < triangleCount)) {
+            dirtyTriangleMark = new int[triangleFace.length];
+            normalTriangleMark = new int[triangleFace.length];
+            dirtyTriangles = new int[64];
+            normalTriangles = new int[64];
+            dirtyVertices = new int[64];
+            markStamp = 0;
+        }
+
+        markStamp++;
+
+        if(markStamp == Integer.MAX_VALUE) {
+            for(int i = 0; i < dirtyTriangleMark.length; i++) {
+                dirtyTriangleMark[i] = 0;
+                normalTriangleMark[i] = 0;
+            }
+
+            markStamp = 1;
+        }
+
+        numDirtyTriangles = 0;
+        numNormalTriangles = 0;
+        numDirtyVertices = 0;
+
+        if((changeFlags & BaseComponentGeometryNode.COORDS_INDEX_CHANGED) != 0) {
+            // Colours and explicit normals are expanded through the coordIndex
+            // so leave those to the full rebuild.
+            if(!vfConvex || !noNormals || (lfColor != null) ||
+               !updateChangedFaces())
+                return false;
+        }
+
+        if((changeFlags & BaseComponentGeometryNode.COORDS_CHANGED) != 0) {
+            findChangedCoordinates();
+
+            if(!vfConvex && (maxPolySize > 3) && !checkConcaveFaces())
+                return false;
+        }
+
+        dirtyRangeStart = Integer.MAX_VALUE;
+        dirtyRangeEnd = 0;
+
+        if(!rebuildDirtyCoordinates())
+            return false;
+
+        int num_tris = numDirtyTriangles;
+
+        if(gen_normals) {
+            rebuildDirtyNormals();
+
+            if(numNormalTriangles > num_tris)
+                num_tris = numNormalTriangles;
+        }
+
+        verticesRebuilt = num_tris * 3;
+
+        if(num_tris == 0) {
+            dirtyRangeStart = 0;
+            dirtyRangeEnd = 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * Compare the coordIndex against the last build and update the tesselated
+     * index lists for any face that has changed. Assumes convex polygons so
+     * that the triangle fan for the face can be regenerated in place.
+     *
+     * @return true if the changes could be handled, false for a full rebuild
+     */
+    private boolean updateChangedFaces() {
+        if(numCoordIndex != lastCoordIndexCount)
+            return false;
+
+        int num_vtx = numCoordValues / 3;
+        boolean changed = false;
+        int i;
+
+        // Validate everything first so that nothing is modified if we have
+        // to bail out to the full rebuild.
+        for(i = 0; i < numCoordIndex; i++) {
+            int idx = vfCoordIndex[i];
+            int old_idx = lastCoordIndex[i];
+
+            if(idx == old_idx)
+                continue;
+
+            if((idx == -1) || (old_idx == -1) || (idx < 0) ||
+               (idx >= num_vtx) || (idx > maxIndexValue))
+                return false;
+
+            changed = true;
+        }
+
+        if(!changed)
+            return true;
+
+        buildIndexList(BaseIndexedGeometryNode.FIELD_COLORINDEX);
+        buildIndexList(BaseIndexedGeometryNode.FIELD_TEXCOORDINDEX);
+        buildIndexList(BaseIndexedGeometryNode.FIELD_NORMALINDEX);
+
+        for(int face = 0; face < polygonCount; face++) {
+            int start = faceIndexStart[face];
+            int num_vertex = rawVerticesPerFace[face];
+            boolean face_changed = false;
+
+            for(int j = start; j < start + num_vertex; j++) {
+                if(vfCoordIndex[j] != lastCoordIndex[j]) {
+                    // The faces that used the old vertex lose a neighbour
+                    addDirtyVertex(lastCoordIndex[j]);
+                    addDirtyVertex(vfCoordIndex[j]);
+
+                    lfCoordIndex[j] = vfCoordIndex[j];
+                    lastCoordIndex[j] = vfCoordIndex[j];
+                    face_changed = true;
+                }
+            }
+
+            if(!face_changed)
+                continue;
+
+            int first_tri = faceTriangleStart[face];
+            int num_tris = faceTriangleCount[face];
+
+            for(int j = 0; j < num_tris; j++) {
+                int ts_index = (first_tri + j) * 3;
+
+                tsCoordIndex[ts_index] = lfCoordIndex[start];
+                tsCoordIndex[ts_index + 1] = lfCoordIndex[start + 1 + j];
+                tsCoordIndex[ts_index + 2] = lfCoordIndex[start + 2 + j];
+
+                if(start + 2 + j < lfNormalIndex.length) {
+                    tsNormalIndex[ts_index] = lfNormalIndex[start];
+                    tsNormalIndex[ts_index + 1] = lfNormalIndex[start + 1 + j];
+                    tsNormalIndex[ts_index + 2] = lfNormalIndex[start + 2 + j];
+                }
+
+                if(start + 2 + j < lfTexCoordIndex.length) {
+                    tsTexCoordIndex[ts_index] = lfTexCoordIndex[start];
+                    tsTexCoordIndex[ts_index + 1] = lfTexCoordIndex[start + 1 + j];
+                    tsTexCoordIndex[ts_index + 2] = lfTexCoordIndex[start + 2 + j];
+                }
+
+                addDirtyTriangle(first_tri + j);
+            }
+        }
+
+        buildVertexToFace();
+
+        return true;
+    }
+
+    /**
+     * Compare the coordinates against the last build and mark every triangle
+     * that uses a changed vertex as dirty.
+     */
+    private void findChangedCoordinates() {
+        int num_vtx = numCoordValues / 3;
+        int pos = 0;
+
+        for(int i = 0; i < num_vtx; i++, pos += 3) {
+            if((lfCoord[pos] == lastCoord[pos]) &&
+               (lfCoord[pos + 1] == lastCoord[pos + 1]) &&
+               (lfCoord[pos + 2] == lastCoord[pos + 2]))
+                continue;
+
+            lastCoord[pos] = lfCoord[pos];
+            lastCoord[pos + 1] = lfCoord[pos + 1];
+            lastCoord[pos + 2] = lfCoord[pos + 2];
+
+            addDirtyVertex(i);
+
+            if(i > maxIndexValue)
+                continue;
+
+            int[] tris = vertexToFace[i];
+            int num_tris = vertexFaceCount[i];
+
+            for(int j = 0; j < num_tris; j++)
+                addDirtyTriangle(tris[j]);
+        }
+    }
+
+    /**
+     * Re-triangulate the concave faces that contain a dirty triangle. If the
+     * resulting triangulation differs from the existing one, the index lists
+     * would need to be rebuilt, so request a full rebuild.
+     *
+     * @return true if the existing triangulation is still valid
+     */
+    private boolean checkConcaveFaces() {
+        if((triangleOutput == null) || (normalTmp == null))
+            return false;
+
+        boolean has_color = (lfColor != null);
+        int last_face = -1;
+
+        for(int i = 0; i < numDirtyTriangles; i++) {
+            int face = triangleFace[dirtyTriangles[i]];
+
+            // Neighbouring dirty triangles often come from the same face, so
+            // skip the obvious repeats. Any other repeat only costs time.
+            if(face == last_face)
+                continue;
+
+            last_face = face;
+
+            int start = faceIndexStart[face];
+            int num_vertex = rawVerticesPerFace[face];
+            int first = faceTriangleStart[face] * 3;
+            int num_tris;
+
+            try {
+                createFaceNormal(lfCoord,
+                                 lfCoordIndex,
+                                 start,
+                                 num_vertex,
+                                 normalTmp);
+
+                num_tris =
+                    triangulator.triangulateConcavePolygon(lfCoord,
+                                                           start,
+                                                           num_vertex,
+                                                           lfCoordIndex,
+                                                           start,
+                                                           lfNormalIndex,
+                                                           start,
+                                                           lfColorIndex,
+                                                           start,
+                                                           lfTexCoordIndex,
+                                                           triangleOutput,
+                                                           normalOutput,
+                                                           colorOutput,
+                                                           texCoordOutput,
+                                                           normalTmp);
+            } catch(ArrayIndexOutOfBoundsException aiob) {
+                return false;
+            }
+
+            if(num_tris != faceTriangleCount[face])
+                return false;
+
+            for(int j = 0; j < num_tris * 3; j++) {
+                if((tsCoordIndex[first + j] != triangleOutput[j]) ||
+                   (tsNormalIndex[first + j] != normalOutput[j]) ||
+                   (tsTexCoordIndex[first + j] != texCoordOutput[j]) ||
+                   (has_color && (tsColorIndex[first + j] != colorOutput[j])))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Copy the source coordinates into the output array for each of the
+     * dirty triangles.
+     *
+     * @return false if an invalid coordinate index was found
+     */
+    private boolean rebuildDirtyCoordinates() {
+        float[] output = geomData.coordinates;
+
+        for(int i = 0; i < numDirtyTriangles; i++) {
+            int tri = dirtyTriangles[i];
+            int out_pos = tri * 9;
+
+            for(int j = 0; j < 3; j++) {
+                int pos = tsCoordIndex[tri * 3 + j] * 3;
+
+                if(pos > lfCoord.length - 3 || pos < 0)
+                    return false;
+
+                output[out_pos++] = lfCoord[pos];
+                output[out_pos++] = lfCoord[pos + 1];
+                output[out_pos++] = lfCoord[pos + 2];
+            }
+
+            extendDirtyRange(tri);
+        }
+
+        return true;
+    }
+
+    /**
+     * Regenerate the face normals of the dirty triangles, and then the vertex
+     * normals of every triangle that shares a vertex with one of them, as
+     * the smoothed normals of those depend on the changed faces.
+     */
+    private void rebuildDirtyNormals() {
+        int i;
+
+        for(i = 0; i < numDirtyTriangles; i++) {
+            int tri = dirtyTriangles[i];
+            createFaceNormal(geomData.coordinates, tri * 9, 3, faceNormals[tri]);
+        }
+
+        if(vfCreaseAngle == 0) {
+            for(i = 0; i < numDirtyTriangles; i++)
+                spreadFaceNormal(dirtyTriangles[i]);
+
+            return;
+        }
+
+        for(i = 0; i < numDirtyTriangles; i++) {
+            int pos = dirtyTriangles[i] * 3;
+
+            addNormalTriangles(tsCoordIndex[pos]);
+            addNormalTriangles(tsCoordIndex[pos + 1]);
+            addNormalTriangles(tsCoordIndex[pos + 2]);
+        }
+
+        for(i = 0; i < numDirtyVertices; i++)
+            addNormalTriangles(dirtyVertices[i]);
+
+        for(i = 0; i < numNormalTriangles; i++) {
+            int tri = normalTriangles[i];
+
+            averageVertexNormals(tri);
+            extendDirtyRange(tri);
+        }
+    }
+
+    /**
+     * Add a triangle to the dirty list, if not already there.
+     *
+     * @param tri The triangle index to add
+     */
+    private void addDirtyTriangle(int tri) {
+        if(dirtyTriangleMark[tri] == markStamp)
+            return;
+
+        dirtyTriangleMark[tri] = markStamp;
+
+        if(numDirtyTriangles == dirtyTriangles.length)
+            dirtyTriangles = growList(dirtyTriangles);
+
+        dirtyTriangles[numDirtyTriangles++] = tri;
+    }
+
+    /**
+     * Add all the triangles using the given vertex to the list of triangles
+     * needing their normals regenerated.
+     *
+     * @param vertex The source vertex index
+     */
+    private void addNormalTriangles(int vertex) {
+        if((vertex < 0) || (vertex > maxIndexValue))
+            return;
+
+        int[] tris = vertexToFace[vertex];
+        int num_tris = vertexFaceCount[vertex];
+
+        for(int i = 0; i < num_tris; i++) {
+            int tri = tris[i];
+
+            if(normalTriangleMark[tri] == markStamp)
+                continue;
+
+            normalTriangleMark[tri] = markStamp;
+
+            if(numNormalTriangles == normalTriangles.length)
+                normalTriangles = growList(normalTriangles);
+
+            normalTriangles[numNormalTriangles++] = tri;
+        }
+    }
+
+    /**
+     * Add a source vertex to the list of changed vertices.
+     *
+     * @param vertex The source vertex index
+     */
+    private void addDirtyVertex(int vertex) {
+        if(numDirtyVertices == dirtyVertices.length)
+            dirtyVertices = growList(dirtyVertices);
+
+        dirtyVertices[numDirtyVertices++] = vertex;
+    }
+
+    /**
+     * Extend the modified output range to include the given triangle.
+     *
+     * @param tri The triangle index that was written
+     */
+    private void extendDirtyRange(int tri) {
+        if(tri * 3 < dirtyRangeStart)
+            dirtyRangeStart = tri * 3;
+
+        if(tri * 3 + 3 > dirtyRangeEnd)
+            dirtyRangeEnd = tri * 3 + 3;
+    }
+
+    /**
+     * Double the size of a working list, keeping the existing values.
+     *
+     * @param list The list to grow
+     * @return The new, larger list
+     */
+    private int[] growList(int[] list) {
+        int[] ret_val = new int[list.length * 2];
+        System.arraycopy(list, 0, ret_val, 0, list.length);
+
+        return ret_val;
+    }
+
     /**
      * Convenience method to create a normal for the given vertex coordinates
      * and normal array. This performs a cross product of the two vectors
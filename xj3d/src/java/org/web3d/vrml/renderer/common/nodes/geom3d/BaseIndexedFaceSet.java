@@ -64,6 +64,9 @@ public abstract class BaseIndexedFaceSet extends BaseIndexedGeometryNode {
     /** Userdata kept in the triangle geometry */
     protected GeometryData geomData;
 
+    /** Number of output vertices rewritten by the most recent rebuild */
+    protected int verticesRebuilt;
+
     /**
      * Static constructor sets up the field declarations
      */
@@ -257,6 +260,22 @@ public abstract class BaseIndexedFaceSet extends BaseIndexedGeometryNode {
 
     }
 
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of rendered vertices that were regenerated by the most
+     * recent geometry rebuild. A full rebuild counts every vertex, while an
+     * update of just a few coordinates or coordIndex values only counts the
+     * vertices of the faces around those changes.
+     *
+     * @return The number of vertices rebuilt
+     */
+    public int getVerticesRebuilt() {
+        return verticesRebuilt;
+    }
+
     //----------------------------------------------------------
     // Methods required by the VRMLNodeType interface.
     //----------------------------------------------------------
@@ -27,7 +27,7 @@ import org.opengis.referencing.operation.TransformException;
 import org.web3d.vrml.lang.*;
 
 import org.web3d.vrml.nodes.*;
-import org.web3d.vrml.renderer.common.geospatial.GTTransformUtils;
+import org.web3d.vrml.renderer.common.geospatial.GeoConversionService;
 import org.web3d.vrml.renderer.common.nodes.BaseGeometricPropertyNode;
 
 import org.xj3d.core.eventmodel.OriginListener;
@@ -259,39 +259,8 @@ public abstract class BaseGeoCoordinate extends BaseGeometricPropertyNode
         // We have to send the new value here because it will be the
         // correct length.
         if(geoTransform != null) {
-            if(renderPoints == null || renderPoints.length < numValid)
-                renderPoints = new float[numValid];
-
             try {
-                // go straight to floats without using the double version
-                // since we need floats anyway for rendering.
-                if(geoCoordSwap) {
-                    // temporarily reverse the values in vfPoint, then swap
-                    // them back after doing the coordinate coversion.
-                    for(int i = 0; i < numValid; i+= 3) {
-                        float tmp = newPoint[i];
-                        newPoint[i] = newPoint[i + 1];
-                        newPoint[i + 1] = tmp;
-                    }
-
-                    geoTransform.transform(newPoint,
-                            0,
-                            renderPoints,
-                            0,
-                            numValid / 3);
-
-                    for(int i = 0; i < numValid; i+= 3) {
-                        float tmp = newPoint[i + 1];
-                        newPoint[i + 1] = newPoint[i];
-                        newPoint[i] = tmp;
-                    }
-                } else {
-                    geoTransform.transform(newPoint,
-                            0,
-                            renderPoints,
-                            0,
-                            numValid / 3);
-                }
+                convertPoints();
             } catch(TransformException te) {
                 errorReporter.warningReport(TRANSFORM_ERR_MSG, te);
             }
@@ -376,53 +345,16 @@ public abstract class BaseGeoCoordinate extends BaseGeometricPropertyNode
 
         // Fetch the geo transform and shift the first set of points
         try {
-            GTTransformUtils gtu = GTTransformUtils.getInstance();
+            GeoConversionService gcs = GeoConversionService.getInstance();
             boolean[] swap = new boolean[1];
 
-            geoTransform = gtu.createSystemTransform(vfGeoSystem, swap);
+            geoTransform = gcs.getTransform(vfGeoSystem, swap);
             geoCoordSwap = swap[0];
 
-            if(geoCoordSwap) {
-                // temporarily reverse the values in vfPoint, then swap them back
-                // after doing the coordinate coversion.
-                for(int i = 0; i < numPoint; i+= 3) {
-                    double tmp = vfPoint[i];
-                    vfPoint[i] = vfPoint[i + 1];
-                    vfPoint[i + 1] = tmp;
-                }
-
-                geoTransform.transform(vfPoint, 0, localCoords, 0, numPoint / 3);
-
-                for(int i = 0; i < numPoint; i+= 3) {
-                    double tmp = vfPoint[i + 1];
-                    vfPoint[i + 1] = vfPoint[i];
-                    vfPoint[i] = tmp;
-                }
-            } else {
-                geoTransform.transform(vfPoint, 0, localCoords, 0, numPoint / 3);
-            }
-
-            if(renderPoints == null || renderPoints.length < numPoint)
-                renderPoints = new float[numPoint];
-
-            // now generate float versions of each for rendering
-			if(local_origin == null) {
-                for(int i = 0; i < numPoint / 3; i++) {
-                    renderPoints[i * 3] = (float)localCoords[i * 3];
-                    renderPoints[i * 3 + 1] = (float)localCoords[i * 3 + 1];
-                    renderPoints[i * 3 + 2] = (float)localCoords[i * 3 + 2];
-                }
-            } else {
-                for(int i = 0; i < numPoint / 3; i++) {
-                    renderPoints[i * 3] = (float)(localCoords[i * 3] - local_origin[0]);
-                    renderPoints[i * 3 + 1] = (float)(localCoords[i * 3 + 1] - local_origin[1]);
-                    renderPoints[i * 3 + 2] = (float)(localCoords[i * 3 + 2] - local_origin[2]);
-                }
-            }
+            convertPoints();
 
             if(isStatic)
                 localCoords = null;
-
         } catch(FactoryException fe) {
             errorReporter.errorReport(FACTORY_ERR_MSG, fe);
         } catch(TransformException te) {
@@ -682,23 +614,16 @@ public abstract class BaseGeoCoordinate extends BaseGeometricPropertyNode
     @Override
     public void originChanged() {
 
-            configLocalOrigin();
+        configLocalOrigin();
 
-            if(local_origin == null) {
-                    for(int i = 0; i < numPoint / 3; i++) {
-                            renderPoints[i * 3] = (float)localCoords[i * 3];
-                            renderPoints[i * 3 + 1] = (float)localCoords[i * 3 + 1];
-                            renderPoints[i * 3 + 2] = (float)localCoords[i * 3 + 2];
-                    }
-            } else {
-                    for(int i = 0; i < numPoint / 3; i++) {
-                            renderPoints[i * 3] = (float)(localCoords[i * 3] - local_origin[0]);
-                            renderPoints[i * 3 + 1] = (float)(localCoords[i * 3 + 1] - local_origin[1]);
-                            renderPoints[i * 3 + 2] = (float)(localCoords[i * 3 + 2] - local_origin[2]);
-                    }
-            }
+        // Only the offset has changed, so there's no need to go back
+        // through the geospatial conversion.
+        if(localCoords != null) {
+            GeoConversionService gcs = GeoConversionService.getInstance();
+            gcs.offset(localCoords, 0, renderPoints, 0, local_origin, numPoint / 3);
+        }
 
-    fireComponentChanged(FIELD_POINT);
+        fireComponentChanged(FIELD_POINT);
     }
 
     //----------------------------------------------------------
@@ -729,52 +654,7 @@ public abstract class BaseGeoCoordinate extends BaseGeometricPropertyNode
 
         if(geoTransform != null) {
             try {
-                if(geoCoordSwap) {
-                    // temporarily reverse the values in vfPoint, then swap
-                    // them back after doing the coordinate coversion.
-                    for(int i = 0; i < numPoint; i+= 3) {
-                        double tmp = vfPoint[i];
-                        vfPoint[i] = vfPoint[i + 1];
-                        vfPoint[i + 1] = tmp;
-                    }
-
-                    geoTransform.transform(vfPoint,
-                            0,
-                            localCoords,
-                            0,
-                            numPoint / 3);
-
-                    for(int i = 0; i < numPoint; i+= 3) {
-                        double tmp = vfPoint[i + 1];
-                        vfPoint[i + 1] = vfPoint[i];
-                        vfPoint[i] = tmp;
-                    }
-                } else {
-                    geoTransform.transform(vfPoint,
-                            0,
-                            localCoords,
-                            0,
-                            numPoint / 3);
-                }
-
-                if(renderPoints == null || renderPoints.length < numValid)
-                    renderPoints = new float[numValid];
-
-                // now generate float versions of each for rendering
-				if(local_origin == null) {
-					for(int i = 0; i < numPoint / 3; i++) {
-						renderPoints[i * 3] = (float)localCoords[i * 3];
-						renderPoints[i * 3 + 1] = (float)localCoords[i * 3 + 1];
-						renderPoints[i * 3 + 2] = (float)localCoords[i * 3 + 2];
-					}
-				} else {
-					for(int i = 0; i < numPoint / 3; i++) {
-						renderPoints[i * 3] = (float)(localCoords[i * 3] - local_origin[0]);
-						renderPoints[i * 3 + 1] = (float)(localCoords[i * 3 + 1] - local_origin[1]);
-						renderPoints[i * 3 + 2] = (float)(localCoords[i * 3 + 2] - local_origin[2]);
-					}
-				}
-
+                convertPoints();
             } catch(TransformException te) {
                 errorReporter.warningReport(TRANSFORM_ERR_MSG, te);
             }
@@ -786,6 +666,32 @@ public abstract class BaseGeoCoordinate extends BaseGeometricPropertyNode
         fireFieldChanged(FIELD_POINT);
     }
 
+    /**
+     * Run the current points through the geo transform to generate both the
+     * local double precision coordinates and the float rendering values.
+     *
+     * @throws TransformException The conversion failed
+     */
+    private void convertPoints() throws TransformException {
+        if(localCoords == null || localCoords.length < numPoint)
+            localCoords = new double[numPoint];
+
+        if(renderPoints == null || renderPoints.length < numPoint)
+            renderPoints = new float[numPoint];
+
+        GeoConversionService gcs = GeoConversionService.getInstance();
+        gcs.transform(geoTransform,
+                      geoCoordSwap,
+                      vfPoint,
+                      0,
+                      localCoords,
+                      0,
+                      renderPoints,
+                      0,
+                      local_origin,
+                      numPoint / 3);
+    }
+
     /**
      * Set node content for the geoOrigin node.
      *
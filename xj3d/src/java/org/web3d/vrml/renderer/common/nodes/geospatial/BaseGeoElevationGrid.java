@@ -26,7 +26,7 @@ import org.web3d.vrml.nodes.*;
 import org.web3d.vrml.lang.*;
 
 import org.web3d.vrml.renderer.common.nodes.AbstractNode;
-import org.web3d.vrml.renderer.common.geospatial.GTTransformUtils;
+import org.web3d.vrml.renderer.common.geospatial.GeoConversionService;
 import org.web3d.vrml.util.FieldValidator;
 
 import org.xj3d.core.eventmodel.OriginManager;
@@ -890,10 +890,10 @@ public class BaseGeoElevationGrid extends AbstractNode
             vfGeoOrigin.setupFinished();
 
         try {
-            GTTransformUtils gtu = GTTransformUtils.getInstance();
+            GeoConversionService gcs = GeoConversionService.getInstance();
             boolean[] swap = new boolean[1];
 
-            geoTransform = gtu.createSystemTransform(vfGeoSystem, swap);
+            geoTransform = gcs.getTransform(vfGeoSystem, swap);
             geoCoordSwap = swap[0];
         } catch(FactoryException fe) {
             errorReporter.errorReport(FACTORY_ERR_MSG, fe);
@@ -1467,6 +1467,16 @@ public class BaseGeoElevationGrid extends AbstractNode
     // Local methods
     //----------------------------------------------------------
 
+    /**
+     * Get the number of grid points that this node will generate vertices
+     * for. Used to estimate the memory held by the node.
+     *
+     * @return The number of grid points, which may be zero
+     */
+    public int getVertexCount() {
+        return vfXDimension * vfZDimension;
+    }
+
     /**
      * Send the localColorsChanged event to LocalColorsListeners
      *
@@ -38,6 +38,7 @@ import org.web3d.vrml.util.URLChecker;
 
 import org.xj3d.core.eventmodel.OriginListener;
 import org.xj3d.core.eventmodel.OriginManager;
+import org.xj3d.core.loading.LoadPrioritySource;
 import org.xj3d.impl.core.eventmodel.OriginManagerFactory;
 
 /**
@@ -47,6 +48,12 @@ import org.xj3d.impl.core.eventmodel.OriginManagerFactory;
  * Internally the LOD keeps both the basic range and the values squared. This
  * makes computation much faster, eliminating the need to take expensive
  * square-roots each frame.
+ * <p>
+ *
+ * Child content is paged through the {@link GeoLODPagingManager} for the
+ * browser. Children may be requested before the viewer crosses the range,
+ * at a lower load priority than content that is needed immediately, and may
+ * be kept once the viewer leaves the range until the manager pages them out.
  *
  * The basic (X3D) definition of GeoLOD is:
  * <pre>
@@ -74,7 +81,11 @@ import org.xj3d.impl.core.eventmodel.OriginManagerFactory;
  * @version $Revision: 1.18 $
  */
 public abstract class BaseGeoLOD extends BaseGroupingNode
-    implements VRMLViewDependentNodeType, VRMLMultiExternalNodeType, OriginListener {
+    implements VRMLViewDependentNodeType,
+               VRMLMultiExternalNodeType,
+               OriginListener,
+               LoadPrioritySource,
+               GeoLODPagingManager.PagedTile {
 
     /** Secondary type constant */
     private static final int[] SECONDARY_TYPE = {
@@ -249,6 +260,30 @@ public abstract class BaseGeoLOD extends BaseGroupingNode
     /** The tile center coordinate, in gcc */
     protected double[] center;
 
+    /** Manager for paging the child content in and out */
+    protected GeoLODPagingManager pagingManager;
+
+    /** Flag indicating the children are being loaded ahead of the range */
+    protected boolean prefetching;
+
+    /** Load priority to give the children when not yet in range */
+    protected int childLoadPriority;
+
+    /** The viewer position from the last frame */
+    protected float[] lastViewPosition;
+
+    /** The viewer movement over the last frame */
+    protected float[] viewVelocity;
+
+    /** Flag indicating lastViewPosition has been set */
+    protected boolean hasViewPosition;
+
+    /**
+     * Flags for the children that have a load request outstanding. Only
+     * read or written while holding the array's lock.
+     */
+    protected boolean[] childRequested;
+
     /**
      * Static constructor builds the type lists for use by all instances as
      * well as the field handling.
@@ -407,6 +442,10 @@ public abstract class BaseGeoLOD extends BaseGroupingNode
         contentListeners = new ArrayList<>(1);
 
         center = new double[3];
+
+        lastViewPosition = new float[3];
+        viewVelocity = new float[3];
+        childRequested = new boolean[4];
     }
 
     /**
@@ -620,10 +659,15 @@ public abstract class BaseGeoLOD extends BaseGroupingNode
         case FIELD_CHILD2_URL:
         case FIELD_CHILD3_URL:
         case FIELD_CHILD4_URL:
-            if (childrenShown) {
-                return(loadState[index]);
-            } else {
-                return(VRMLExternalNodeType.LOAD_COMPLETE);
+            // The loader asks just before it starts on a request. Anything
+            // no longer wanted is dropped, so it must be asked for again.
+            synchronized(childRequested) {
+                if (childrenShown || prefetching) {
+                    return(loadState[index]);
+                } else {
+                    childRequested[index - FIELD_CHILD1_URL] = false;
+                    return(VRMLExternalNodeType.LOAD_COMPLETE);
+                }
             }
         default:
             return(loadState[index]);
@@ -640,6 +684,20 @@ public abstract class BaseGeoLOD extends BaseGroupingNode
     public void setLoadState(int index, int state) {
         loadState[index] = state;
 
+        switch(index) {
+            case FIELD_CHILD1_URL:
+            case FIELD_CHILD2_URL:
+            case FIELD_CHILD3_URL:
+            case FIELD_CHILD4_URL:
+                if((state == VRMLExternalNodeType.LOAD_COMPLETE) ||
+                   (state == VRMLExternalNodeType.LOAD_FAILED)) {
+                    synchronized(childRequested) {
+                        childRequested[index - FIELD_CHILD1_URL] = false;
+                    }
+                }
+                break;
+        }
+
         fireContentStateChanged(index);
     }
 
@@ -787,6 +845,8 @@ public abstract class BaseGeoLOD extends BaseGroupingNode
         originManager = OriginManagerFactory.getInstance(stateManager);
         useOriginManager = originManager.getEnabled();
 
+        pagingManager = GeoLODPagingManager.getInstance(stateManager);
+
         if(pGeoOrigin != null)
             pGeoOrigin.setupFinished();
         else if(vfGeoOrigin != null)
@@ -1266,10 +1326,177 @@ public abstract class BaseGeoLOD extends BaseGroupingNode
         }
     }
 
+    //----------------------------------------------------------
+    // Methods defined by LoadPrioritySource
+    //----------------------------------------------------------
+
+    /**
+     * Get the load priority for the content of the given field. Children
+     * that are needed right now go ahead of children being prefetched.
+     *
+     * @param index The field index of the URL being loaded
+     * @return The priority. Lower values are loaded first
+     */
+    @Override
+    public int getLoadPriority(int index) {
+        switch(index) {
+            case FIELD_CHILD1_URL:
+            case FIELD_CHILD2_URL:
+            case FIELD_CHILD3_URL:
+            case FIELD_CHILD4_URL:
+                return childrenShown ? 0 : childLoadPriority;
+
+            default:
+                return 0;
+        }
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by GeoLODPagingManager.PagedTile
+    //----------------------------------------------------------
+
+    /**
+     * Check to see if the child content can be paged out right now.
+     *
+     * @return true if the children are not being shown
+     */
+    @Override
+    public boolean isPageable() {
+        return !childrenShown;
+    }
+
+    /**
+     * Throw away all the loaded child content, along with the content of
+     * any GeoLODs nested inside it. Override to clear renderer-specific
+     * state, but remember to also call this implementation too.
+     */
+    @Override
+    public void pageOut() {
+        if(pagingManager != null)
+            pagingManager.tileReleased(this);
+
+        prefetching = false;
+
+        for(int i = 0; i < 4; i++) {
+            if(childScenes[i] == null)
+                continue;
+
+            List<VRMLNode> nested =
+                childScenes[i].getBySecondaryType(TypeConstants.ViewDependentNodeType);
+
+            for(int j = 0; j < nested.size(); j++) {
+                VRMLNode node = nested.get(j);
+                if(node instanceof BaseGeoLOD)
+                    ((BaseGeoLOD)node).pageOut();
+            }
+
+            synchronized(childRequested) {
+                childScenes[i] = null;
+                loadedScenes[i] = null;
+                childRequested[i] = false;
+            }
+        }
+    }
+
     //----------------------------------------------------------
     // Internal methods
     //----------------------------------------------------------
 
+    /**
+     * Update the paging state for a new viewer position. Tracks the viewer
+     * velocity, starts or cancels the prefetch of the children and lets the
+     * paging manager evict anything over budget. Call once per frame from
+     * the renderer-specific view tracking.
+     *
+     * @param x The x component of the viewer position
+     * @param y The y component of the viewer position
+     * @param z The z component of the viewer position
+     */
+    protected void updatePaging(float x, float y, float z) {
+        if(pagingManager == null)
+            return;
+
+        float[] velocity = null;
+
+        if(hasViewPosition) {
+            viewVelocity[0] = x - lastViewPosition[0];
+            viewVelocity[1] = y - lastViewPosition[1];
+            viewVelocity[2] = z - lastViewPosition[2];
+            velocity = viewVelocity;
+        }
+
+        lastViewPosition[0] = x;
+        lastViewPosition[1] = y;
+        lastViewPosition[2] = z;
+        hasViewPosition = true;
+
+        double d_sq = pagingManager.predictDistanceSquared(localCenter,
+                                                           lastViewPosition,
+                                                           velocity);
+
+        if(pagingManager.shouldPrefetch(d_sq, vfRange)) {
+            pagingManager.tileUsed(this);
+
+            if(!childrenShown && !prefetching) {
+                prefetching = true;
+                childLoadPriority = pagingManager.prefetchPriority(d_sq, vfRange);
+
+                if(requestChildren())
+                    pagingManager.recordPrefetch();
+            }
+        } else if(prefetching && !childrenShown) {
+            // Anything still queued will now be skipped by the loader
+            prefetching = false;
+        }
+
+        pagingManager.evict();
+    }
+
+    /**
+     * Request the load of any child content that is not yet loaded or
+     * being loaded.
+     *
+     * @return true if at least one request was made
+     */
+    protected boolean requestChildren() {
+        boolean ret_val = false;
+
+        for(int i = 0; i < 4; i++) {
+            if(requestChild(i))
+                ret_val = true;
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Request the load of one child, unless it has no URL, is already loaded
+     * or already has a request outstanding. The request stays outstanding
+     * until the load completes or fails, or the loader drops it because the
+     * level no longer wants it.
+     *
+     * @param child The index of the child, 0 to 3
+     * @return true if a request was made
+     */
+    protected boolean requestChild(int child) {
+        int field = FIELD_CHILD1_URL + child;
+
+        if(getUrl(field).length == 0)
+            return false;
+
+        synchronized(childRequested) {
+            if(((loadedScenes != null) && (loadedScenes[child] != null)) ||
+               childRequested[child])
+                return false;
+
+            childRequested[child] = true;
+        }
+
+        fireUrlChanged(field);
+
+        return true;
+    }
+
     /**
      * Clear the child node list of all children in the VRML node. Override
      * to provide.renderer-specific behaviour, but remember to also call this
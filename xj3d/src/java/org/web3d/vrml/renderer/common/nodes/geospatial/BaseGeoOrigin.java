@@ -25,7 +25,7 @@ import org.web3d.vrml.nodes.*;
 import org.web3d.vrml.lang.*;
 
 import org.web3d.vrml.renderer.common.nodes.AbstractNode;
-import org.web3d.vrml.renderer.common.geospatial.GTTransformUtils;
+import org.web3d.vrml.renderer.common.geospatial.GeoConversionService;
 
 /**
  * Common implementation of an GeoOrigin node.
@@ -219,10 +219,10 @@ public class BaseGeoOrigin extends AbstractNode implements VRMLLocalOriginNodeTy
 
         // Fetch the geo transform and shift the first set of points
         try {
-            GTTransformUtils gtu = GTTransformUtils.getInstance();
+            GeoConversionService gcs = GeoConversionService.getInstance();
             boolean[] swap = new boolean[1];
 
-            geoTransform = gtu.createSystemTransform(vfGeoSystem, swap);
+            geoTransform = gcs.getTransform(vfGeoSystem, swap);
             geoCoordSwap = swap[0];
 
             if(geoCoordSwap) {
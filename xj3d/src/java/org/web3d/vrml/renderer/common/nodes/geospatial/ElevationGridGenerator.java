@@ -21,7 +21,7 @@ import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 
 // Local imports
-// None
+import org.web3d.vrml.renderer.common.geospatial.GeoConversionService;
 
 /**
  * A generator that takes a set of height values as a grid and turns it into
@@ -316,88 +316,51 @@ public class ElevationGridGenerator {
         float depthDiv = 1.0f/( depthPoints - 1.0f );
 
         int count = 0;
-        int num = widthPoints * depthPoints;
         int texIndex = 0;
         double height;
 
-        if(localOrigin != null) {
-            int i = 0;
-            for(int z = 0; z < depthPoints; z++) {
-                for(int x = 0; x <widthPoints; x++) {
-                    i++;
-
-                    // Proposed behavior for missing values, issue warning?
-                    if (i > flatHeights.length)
-                        height = 0;
-                    else
-                        height = flatHeights[i - 1];
-
-                    inPosition.setPosition(d, w, height * yScale);
-
-                    transform.transform(inPosition, outPosition);
-
-                    double[] out = outPosition.getCoordinates();
-
-					vertex[count] = out[0];
-					vertex[count + 1] = out[1];
-					vertex[count + 2] = out[2];
-
-                    coords[count] = (float)(out[0] - localOrigin[0]);
-                    coords[count + 1] = (float)(out[1] - localOrigin[1]);
-                    coords[count + 2] = (float)(out[2] - localOrigin[2]);
-                    texCoords[texIndex++] = x * widthDiv;
-                    texCoords[texIndex++] = z * depthDiv;
-
-                    count += 3;
-                    w += width_inc;
-
-                    if(((i % (widthPoints)) == 0)) {
-                        d += depth_inc;
-                        w = gridOrigin[1];
-                    }
-                }
-            }
-        } else {
-            int i = 0;
-
-            for(int z = 0; z < depthPoints; z++) {
-                for(int x = 0; x <widthPoints; x++) {
-                    i++;
-                    // Proposed behavior for missing values, issue warning?
-                    if (i > flatHeights.length)
-                        height = 0;
-                    else
-                        height = flatHeights[i - 1];
-
-                    inPosition.setPosition(d, w, height * yScale);
+        // Lay out all the source positions in the vertex array first, then
+        // convert them in place in a single bulk call rather than one
+        // transform call per grid post.
+        int i = 0;
+        for(int z = 0; z < depthPoints; z++) {
+            for(int x = 0; x < widthPoints; x++) {
+                i++;
 
-                    transform.transform(inPosition, outPosition);
+                // Proposed behavior for missing values, issue warning?
+                if (i > flatHeights.length)
+                    height = 0;
+                else
+                    height = flatHeights[i - 1];
 
-                    double[] out = outPosition.getCoordinates();
+                vertex[count] = d;
+                vertex[count + 1] = w;
+                vertex[count + 2] = height * yScale;
 
-					vertex[count] = out[0];
-					vertex[count + 1] = out[1];
-					vertex[count + 2] = out[2];
+                texCoords[texIndex++] = x * widthDiv;
+                texCoords[texIndex++] = z * depthDiv;
 
-                    coords[count] = (float)out[0];
-                    coords[count + 1] = (float)out[1];
-                    coords[count + 2] = (float)out[2];
-
-                    texCoords[texIndex++] =  (x * widthDiv);
-                    texCoords[texIndex++] =  (z * depthDiv);
-                    count += 3;
-
-                    w += width_inc;
-
-                    if(((i % (widthPoints)) == 0)) {
-                        d += depth_inc;
-                        w = gridOrigin[1];
-                    }
+                count += 3;
+                w += width_inc;
 
+                if(((i % (widthPoints)) == 0)) {
+                    d += depth_inc;
+                    w = gridOrigin[1];
                 }
             }
         }
 
+        GeoConversionService gcs = GeoConversionService.getInstance();
+        gcs.transform(transform,
+                      false,
+                      vertex,
+                      0,
+                      vertex,
+                      0,
+                      coords,
+                      0,
+                      localOrigin,
+                      vtx_cnt);
 
         int index = 0;
         int[] values = data.indexes;
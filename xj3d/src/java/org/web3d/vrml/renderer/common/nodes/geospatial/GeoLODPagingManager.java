@@ -0,0 +1,602 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes.geospatial;
+
+// External imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Local imports
+import org.web3d.vrml.lang.BasicScene;
+import org.web3d.vrml.lang.TypeConstants;
+import org.web3d.vrml.lang.VRMLNode;
+
+import org.web3d.vrml.nodes.FrameStateManager;
+import org.web3d.vrml.nodes.VRMLCoordinateNodeType;
+
+/**
+ * Manages the paging of GeoLOD child content for a single browser instance.
+ * <p>
+ *
+ * The manager makes two decisions for the GeoLOD nodes. The first is when a
+ * GeoLOD should start loading its children before the viewer actually
+ * crosses the range, based on an enlarged prefetch range and where the
+ * viewer is predicted to be in a number of frames at its current velocity.
+ * The second is which loaded children to throw away. Each GeoLOD that holds
+ * child content is kept in least recently used order, where a use is any
+ * frame in which the node was visible. When the estimated bytes of all
+ * resident children exceed the memory budget, the coldest nodes that are not
+ * currently showing their children are asked to page them out.
+ * <p>
+ *
+ * A memory budget of zero turns off the retention of children once the
+ * viewer leaves the range, which is the behaviour of the spec. Velocity is
+ * measured per frame rather than per second, so that the decisions are the
+ * same for a given camera path regardless of the frame rate.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class GeoLODPagingManager {
+
+    /** Default memory budget in bytes */
+    private static final long DEFAULT_MEMORY_BUDGET = 128L * 1024 * 1024;
+
+    /** Default multiplier of the range used to start prefetching */
+    private static final float DEFAULT_PREFETCH_SCALE = 1.5f;
+
+    /** Default number of frames to predict the viewer position ahead */
+    private static final int DEFAULT_LOOK_AHEAD = 30;
+
+    /** Estimated bytes held per vertex of loaded geometry */
+    private static final int BYTES_PER_VERTEX = 48;
+
+    /** Fixed estimate of the overhead of a loaded scene */
+    private static final int SCENE_OVERHEAD = 16 * 1024;
+
+    /** Number of priority steps per range distance */
+    private static final int PRIORITY_STEPS = 16;
+
+    /** Largest priority handed out for a prefetch */
+    private static final int MAX_PRIORITY = 1 << 20;
+
+    /** Error message for a negative memory budget */
+    private static final String NEG_BUDGET_MSG =
+        "The memory budget must not be negative";
+
+    /** Error message for a prefetch range scale less than one */
+    private static final String SCALE_MSG =
+        "The prefetch range scale must be at least 1";
+
+    /** Error message for a negative look ahead */
+    private static final String LOOK_AHEAD_MSG =
+        "The look ahead frame count must not be negative";
+
+    /** The map of state managers to their paging managers */
+    private static final Map<FrameStateManager, GeoLODPagingManager> managers =
+        new HashMap<>();
+
+    /**
+     * A node that holds child content that can be paged out.
+     */
+    public interface PagedTile {
+
+        /**
+         * Check to see if the content can be paged out right now. Content
+         * that is currently rendered should never be.
+         *
+         * @return true if the content is not in use
+         */
+        boolean isPageable();
+
+        /**
+         * Throw away all the resident child content. Called without any
+         * lock held on the manager.
+         */
+        void pageOut();
+    }
+
+    /** The amount of memory held by a single tile */
+    private static class Residency {
+        /** Estimated bytes held */
+        long bytes;
+
+        /** Number of child scenes held */
+        int tiles;
+    }
+
+    /** Resident tiles in least to most recently used order */
+    private LinkedHashMap<PagedTile, Residency> resident;
+
+    /** The memory budget in bytes */
+    private long memoryBudget;
+
+    /** Multiplier of the LOD range that prefetching starts at */
+    private float prefetchRangeScale;
+
+    /** Number of frames to predict the viewer position ahead */
+    private int lookAheadFrames;
+
+    /** Estimated bytes held by all resident tiles */
+    private long residentBytes;
+
+    /** Largest value residentBytes has reached */
+    private long peakResidentBytes;
+
+    /** Number of resident child scenes */
+    private int residentTiles;
+
+    /** Count of level changes where the children were already resident */
+    private long hitCount;
+
+    /** Count of level changes that had to wait for the children to load */
+    private long stallCount;
+
+    /** Number of prefetches started */
+    private long prefetchCount;
+
+    /** Number of tiles evicted */
+    private long evictionCount;
+
+    /**
+     * Construct a new manager with the default settings.
+     */
+    GeoLODPagingManager() {
+        resident = new LinkedHashMap<>(16, 0.75f, true);
+
+        memoryBudget = DEFAULT_MEMORY_BUDGET;
+        prefetchRangeScale = DEFAULT_PREFETCH_SCALE;
+        lookAheadFrames = DEFAULT_LOOK_AHEAD;
+    }
+
+    /**
+     * Get the paging manager that belongs to the given state manager,
+     * creating it if needed.
+     *
+     * @param fsm The state manager of the browser
+     * @return The paging manager for that browser
+     */
+    public static synchronized GeoLODPagingManager getInstance(FrameStateManager fsm) {
+        GeoLODPagingManager ret_val = managers.get(fsm);
+
+        if(ret_val == null) {
+            ret_val = new GeoLODPagingManager();
+            managers.put(fsm, ret_val);
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Remove the paging manager that belongs to the given state manager.
+     *
+     * @param fsm The state manager of the browser
+     */
+    public static synchronized void removeInstance(FrameStateManager fsm) {
+        managers.remove(fsm);
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Set the number of bytes of child content that may be kept resident
+     * when it is not being shown. A value of zero disables retention.
+     *
+     * @param bytes The budget in bytes
+     * @throws IllegalArgumentException The budget is negative
+     */
+    public synchronized void setMemoryBudget(long bytes) {
+        if(bytes < 0)
+            throw new IllegalArgumentException(NEG_BUDGET_MSG);
+
+        memoryBudget = bytes;
+    }
+
+    /**
+     * Get the current memory budget.
+     *
+     * @return The budget in bytes
+     */
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Check to see if loaded children should be kept after the viewer leaves
+     * the range.
+     *
+     * @return true if the budget is non-zero
+     */
+    public synchronized boolean isRetentionEnabled() {
+        return memoryBudget > 0;
+    }
+
+    /**
+     * Set the multiple of the GeoLOD range at which the children start to
+     * be prefetched. A value of 1 only prefetches based on the predicted
+     * viewer position.
+     *
+     * @param scale The range multiplier
+     * @throws IllegalArgumentException The scale is less than 1
+     */
+    public synchronized void setPrefetchRangeScale(float scale) {
+        if(!(scale >= 1))
+            throw new IllegalArgumentException(SCALE_MSG);
+
+        prefetchRangeScale = scale;
+    }
+
+    /**
+     * Get the current prefetch range multiplier.
+     *
+     * @return A value of at least 1
+     */
+    public synchronized float getPrefetchRangeScale() {
+        return prefetchRangeScale;
+    }
+
+    /**
+     * Set the number of frames ahead to predict the viewer position. A
+     * value of zero only uses the current position.
+     *
+     * @param frames The number of frames
+     * @throws IllegalArgumentException The count is negative
+     */
+    public synchronized void setLookAheadFrames(int frames) {
+        if(frames < 0)
+            throw new IllegalArgumentException(LOOK_AHEAD_MSG);
+
+        lookAheadFrames = frames;
+    }
+
+    /**
+     * Get the number of frames ahead that the viewer position is predicted.
+     *
+     * @return A non-negative frame count
+     */
+    public synchronized int getLookAheadFrames() {
+        return lookAheadFrames;
+    }
+
+    /**
+     * Get the smallest squared distance between the given center and the
+     * path the viewer is predicted to take over the look ahead frames.
+     *
+     * @param center The center of the LOD
+     * @param position The current viewer position
+     * @param velocity The viewer movement per frame, or null if unknown
+     * @return The squared distance to the closest point of the path
+     */
+    public double predictDistanceSquared(double[] center,
+                                         float[] position,
+                                         float[] velocity) {
+        double dx = center[0] - position[0];
+        double dy = center[1] - position[1];
+        double dz = center[2] - position[2];
+
+        double d_sq = dx * dx + dy * dy + dz * dz;
+
+        int frames;
+        synchronized(this) {
+            frames = lookAheadFrames;
+        }
+
+        if(velocity == null || frames == 0)
+            return d_sq;
+
+        double vx = velocity[0] * frames;
+        double vy = velocity[1] * frames;
+        double vz = velocity[2] * frames;
+
+        double len_sq = vx * vx + vy * vy + vz * vz;
+
+        if(len_sq == 0)
+            return d_sq;
+
+        // Closest point on the segment from here to the predicted position
+        double t = (dx * vx + dy * vy + dz * vz) / len_sq;
+
+        if(t <= 0)
+            return d_sq;
+
+        if(t > 1)
+            t = 1;
+
+        dx -= vx * t;
+        dy -= vy * t;
+        dz -= vz * t;
+
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Check to see if the children of a LOD should be prefetched.
+     *
+     * @param distanceSquared The squared distance from the viewer path
+     * @param range The LOD range
+     * @return true if the viewer is within the prefetch range
+     */
+    public synchronized boolean shouldPrefetch(double distanceSquared, float range) {
+        double r = (double)range * prefetchRangeScale;
+
+        return distanceSquared <= r * r;
+    }
+
+    /**
+     * Get the load priority to use for a prefetch. Closer content gets a
+     * lower value so that it loads first. Always greater than zero so that
+     * content that is needed right now beats any prefetch.
+     *
+     * @param distanceSquared The squared distance from the viewer path
+     * @param range The LOD range
+     * @return A priority of at least 1
+     */
+    public int prefetchPriority(double distanceSquared, float range) {
+        if(range <= 0)
+            return MAX_PRIORITY;
+
+        double steps = Math.sqrt(distanceSquared) / range * PRIORITY_STEPS;
+
+        return steps >= MAX_PRIORITY - 1 ? MAX_PRIORITY : 1 + (int)steps;
+    }
+
+    /**
+     * Notification that a child scene of the tile has been loaded.
+     *
+     * @param tile The node holding the content
+     * @param bytes The estimated size of the content
+     */
+    public synchronized void tileLoaded(PagedTile tile, long bytes) {
+        Residency res = resident.get(tile);
+
+        if(res == null) {
+            res = new Residency();
+            resident.put(tile, res);
+        }
+
+        res.bytes += bytes;
+        res.tiles++;
+
+        residentBytes += bytes;
+        residentTiles++;
+
+        if(residentBytes > peakResidentBytes)
+            peakResidentBytes = residentBytes;
+    }
+
+    /**
+     * Notification that the tile was visible this frame, making it the most
+     * recently used.
+     *
+     * @param tile The node holding the content
+     */
+    public synchronized void tileUsed(PagedTile tile) {
+        resident.get(tile);
+    }
+
+    /**
+     * Notification that the tile no longer holds any child content.
+     *
+     * @param tile The node that held the content
+     */
+    public synchronized void tileReleased(PagedTile tile) {
+        Residency res = resident.remove(tile);
+
+        if(res != null) {
+            residentBytes -= res.bytes;
+            residentTiles -= res.tiles;
+        }
+    }
+
+    /**
+     * Check to see if the tile is holding any child content.
+     *
+     * @param tile The node to check
+     * @return true if it has resident content
+     */
+    public synchronized boolean isResident(PagedTile tile) {
+        return resident.containsKey(tile);
+    }
+
+    /**
+     * Page out the least recently used tiles until the resident content
+     * fits in the memory budget. Tiles that are currently in use are
+     * skipped. Should be called from the thread that manages the scene.
+     */
+    public void evict() {
+        List<PagedTile> evict_list = new ArrayList<>();
+
+        synchronized(this) {
+            if(residentBytes <= memoryBudget)
+                return;
+
+            long bytes = residentBytes;
+            Iterator<Map.Entry<PagedTile, Residency>> itr =
+                resident.entrySet().iterator();
+
+            while(bytes > memoryBudget && itr.hasNext()) {
+                Map.Entry<PagedTile, Residency> e = itr.next();
+                PagedTile tile = e.getKey();
+
+                if(!tile.isPageable())
+                    continue;
+
+                Residency res = e.getValue();
+
+                itr.remove();
+                bytes -= res.bytes;
+                residentBytes -= res.bytes;
+                residentTiles -= res.tiles;
+                evictionCount += res.tiles;
+
+                evict_list.add(tile);
+            }
+        }
+
+        // Page out outside the lock as nested tiles will release themselves.
+        for(int i = 0; i < evict_list.size(); i++)
+            evict_list.get(i).pageOut();
+    }
+
+    /**
+     * Release all resident tiles without paging them out, for example when
+     * the world is being replaced.
+     */
+    public synchronized void clear() {
+        resident.clear();
+        residentBytes = 0;
+        residentTiles = 0;
+    }
+
+    /**
+     * Record that a LOD switched to its children and they were all resident.
+     */
+    public synchronized void recordHit() {
+        hitCount++;
+    }
+
+    /**
+     * Record that a LOD switched to its children and had to wait for at
+     * least one of them to load.
+     */
+    public synchronized void recordStall() {
+        stallCount++;
+    }
+
+    /**
+     * Record that a LOD started to prefetch its children.
+     */
+    public synchronized void recordPrefetch() {
+        prefetchCount++;
+    }
+
+    /**
+     * Get the number of child scenes currently resident.
+     *
+     * @return A non-negative count
+     */
+    public synchronized int getResidentTileCount() {
+        return residentTiles;
+    }
+
+    /**
+     * Get the estimated bytes held by all the resident child scenes.
+     *
+     * @return A non-negative byte count
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Get the largest number of estimated bytes that have been resident
+     * since the counters were last reset.
+     *
+     * @return A non-negative byte count
+     */
+    public synchronized long getPeakResidentBytes() {
+        return peakResidentBytes;
+    }
+
+    /**
+     * Get the number of level changes that found all the children resident.
+     *
+     * @return A non-negative count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of level changes that had to wait for children to load.
+     *
+     * @return A non-negative count
+     */
+    public synchronized long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Get the fraction of level changes that found the children resident.
+     *
+     * @return A value between 0 and 1, or 0 if there were no level changes
+     */
+    public synchronized double getHitRate() {
+        long total = hitCount + stallCount;
+
+        return total == 0 ? 0 : (double)hitCount / total;
+    }
+
+    /**
+     * Get the number of prefetches started.
+     *
+     * @return A non-negative count
+     */
+    public synchronized long getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    /**
+     * Get the number of child scenes that have been evicted.
+     *
+     * @return A non-negative count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Reset the hit, stall, prefetch and eviction counters. The peak is
+     * reset to the current resident size.
+     */
+    public synchronized void resetCounters() {
+        hitCount = 0;
+        stallCount = 0;
+        prefetchCount = 0;
+        evictionCount = 0;
+        peakResidentBytes = residentBytes;
+    }
+
+    /**
+     * Estimate the number of bytes held by a loaded scene, based on the
+     * amount of coordinate and elevation grid data in it.
+     *
+     * @param scene The scene to look at
+     * @return An estimated byte count
+     */
+    public static long estimateSize(BasicScene scene) {
+        long vertices = 0;
+
+        List<VRMLNode> nodes = scene.getByPrimaryType(TypeConstants.CoordinateNodeType);
+        for(int i = 0; i < nodes.size(); i++) {
+            VRMLNode node = nodes.get(i);
+            if(node instanceof VRMLCoordinateNodeType)
+                vertices += ((VRMLCoordinateNodeType)node).getNumPoints() / 3;
+        }
+
+        nodes = scene.getByPrimaryType(TypeConstants.ComponentGeometryNodeType);
+        for(int i = 0; i < nodes.size(); i++) {
+            VRMLNode node = nodes.get(i);
+            if(node instanceof BaseGeoElevationGrid)
+                vertices += ((BaseGeoElevationGrid)node).getVertexCount();
+        }
+
+        return SCENE_OVERHEAD + vertices * BYTES_PER_VERTEX;
+    }
+}
@@ -16,14 +16,13 @@ package org.web3d.vrml.renderer.common.nodes.interpolator;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.j3d.util.interpolator.CoordinateInterpolator;
-
 // Application specific imports
 import org.web3d.vrml.lang.*;
 
 import org.web3d.vrml.nodes.VRMLNodeType;
 import org.web3d.vrml.nodes.VRMLFieldData;
 import org.web3d.vrml.nodes.VRMLInterpolatorNodeType;
+import org.web3d.vrml.nodes.VRMLSharedFieldNodeType;
 
 import org.web3d.vrml.renderer.common.nodes.BaseInterpolatorNode;
 
@@ -40,11 +39,16 @@ import org.web3d.vrml.renderer.common.nodes.BaseInterpolatorNode;
  * If the key and keyValue fields are not the same length then we take
  * the lesser of the two and only assign that many vertices to the
  * interpolator to handle.
+ * <p>
+ *
+ * A copy made from another interpolator of the same type shares its keyValue
+ * array until one of them is given new values.
  *
  * @author Justin Couch
  * @version $Revision: 1.24 $
  */
-public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
+public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode
+    implements VRMLSharedFieldNodeType {
 
     /** Number of fields constant */
     private static final int NUM_FIELDS = LAST_INTERPOLATOR_INDEX + 1;
@@ -72,14 +76,14 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
     /** The used length of the keyValue array */
     private int numKeyValue;
 
+    /** vfKeyValue is shared with another node and must be copied before writing */
+    private boolean keyValueShared;
+
     /** The value of the value field */
     private float[] vfValue;
 
     /** The interpolator we use to do the heavy work for us */
-    private CoordinateInterpolator interpolator;
-
-    /** A temporary array that we use to setup the interpolator */
-    private float[] coordKeySetup;
+    private FloatArrayInterpolator interpolator;
 
     /** The number of coordinates per key value in the vfKeyValue array */
     private int coordValuesPerKey;
@@ -164,6 +168,20 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
         checkNodeType(node);
         copy((VRMLInterpolatorNodeType)node);
 
+        if(node instanceof BaseCoordinateInterpolator) {
+            BaseCoordinateInterpolator src = (BaseCoordinateInterpolator)node;
+
+            if(src.numKeyValue != 0) {
+                vfKeyValue = src.vfKeyValue;
+                numKeyValue = src.numKeyValue;
+                coordValuesPerKey = numKeyValue / numKey;
+                keyValueShared = true;
+                src.keyValueShared = true;
+            }
+
+            return;
+        }
+
         try {
             int index = node.getFieldIndex("keyValue");
             VRMLFieldData field = node.getFieldValue(index);
@@ -197,8 +215,13 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
         // Only interpolate if the key field is non-null
         if(vfKey != null && vfKey.length > 0) {
             if (interpolator != null && vfKeyValue.length > 0) {
-                float[] value = interpolator.floatValue(vfFraction);
-                setValue(value, value.length);
+                if((vfValue == null) || (vfValue.length < coordValuesPerKey))
+                    vfValue = new float[coordValuesPerKey];
+
+                if(interpolator.interpolate(vfFraction, vfValue) && !inSetup) {
+                    hasChanged[FIELD_VALUE] = true;
+                    fireFieldChanged(FIELD_VALUE);
+                }
             }
         }
 
@@ -228,6 +251,21 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
         }
     }
 
+    //----------------------------------------------------------
+    // Methods defined by VRMLSharedFieldNodeType
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of bytes of field data that this node currently shares
+     * with other nodes instead of holding its own copy.
+     *
+     * @return A non-negative number of bytes
+     */
+    @Override
+    public long getSharedFieldBytes() {
+        return keyValueShared ? vfKeyValue.length * 4L : 0;
+    }
+
     //----------------------------------------------------------
     // Methods required by the BaseVRMLNodeTypeType interface.
     //----------------------------------------------------------
@@ -451,8 +489,10 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
         if(numValid == 0) {
             numKeyValue = 0;
         } else {
-            if(numValid > vfKeyValue.length)
+            if(keyValueShared || numValid > vfKeyValue.length) {
                 vfKeyValue = new float[numValid];
+                keyValueShared = false;
+            }
 
             numKeyValue = numValid;
             coordValuesPerKey = numKeyValue / numKey;
@@ -469,36 +509,10 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
         }
     }
 
-    /**
-     * Set the value (MFVec3f) to the new value. Null values will be ignored.
-     * The array length will always be set to the length needed for the
-     * list of coordinates generated from the interpolator. If the incoming
-     * value is greater than needed, it will be trimmed, if it is less than
-     * is needed, the existing remaining values are untouched.
-     *
-     * @param newValue The new value to use
-     */
-    private void setValue(float[] value, int numValid) {
-
-        if(numValid == 0)
-            return;
-
-        if((vfValue == null) || (numValid > vfValue.length))
-            vfValue = new float[numValid];
-
-        System.arraycopy(value, 0, vfValue, 0, coordValuesPerKey);
-
-        if (!inSetup) {
-            hasChanged[FIELD_VALUE] = true;
-            fireFieldChanged(FIELD_VALUE);
-        }
-    }
-
     /**
      * Internal method to rebuild the interpolator from the latest lot of key
-     * and value information. This is an expensive method as you must clear
-     * the entire interpolator and start from scratch. Obviously we don't
-     * expect people to be changing their key values every other frame.
+     * and value information. The interpolator works directly from the field
+     * arrays, so this must be called any time they are changed.
      * <p>
      * If the key and keyValue fields are not the same length then we take
      * the lesser of the two and only assign that many vertices to the
@@ -510,27 +524,9 @@ public abstract class BaseCoordinateInterpolator extends BaseInterpolatorNode {
             return;
         }
 
-        int size = (numKey < numKeyValue / 3) ? numKey : numKeyValue / 3;
-
-        interpolator = new CoordinateInterpolator(size);
-
-        int count = 0;
-
-        if((coordKeySetup == null) ||
-           (coordKeySetup.length < coordValuesPerKey)) {
-            coordKeySetup = new float[coordValuesPerKey];
-        }
-
-        for(int i = 0; i < size; i++) {
-            System.arraycopy(vfKeyValue,
-                             count,
-                             coordKeySetup,
-                             0,
-                             coordValuesPerKey);
+        if(interpolator == null)
+            interpolator = new FloatArrayInterpolator();
 
-            interpolator.addKeyFrame(vfKey[i], coordKeySetup);
-
-            count += coordValuesPerKey;
-        }
+        interpolator.setKeys(vfKey, numKey, vfKeyValue, numKeyValue, coordValuesPerKey);
     }
 }
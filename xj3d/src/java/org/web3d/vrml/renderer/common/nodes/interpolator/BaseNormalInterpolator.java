@@ -16,14 +16,13 @@ package org.web3d.vrml.renderer.common.nodes.interpolator;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.j3d.util.interpolator.NormalInterpolator;
-
 // Application specific imports
 import org.web3d.vrml.lang.*;
 
 import org.web3d.vrml.nodes.VRMLNodeType;
 import org.web3d.vrml.nodes.VRMLFieldData;
 import org.web3d.vrml.nodes.VRMLInterpolatorNodeType;
+import org.web3d.vrml.nodes.VRMLSharedFieldNodeType;
 
 import org.web3d.vrml.renderer.common.nodes.BaseInterpolatorNode;
 
@@ -40,11 +39,16 @@ import org.web3d.vrml.renderer.common.nodes.BaseInterpolatorNode;
  * If the key and keyValue fields are not the same length then we take
  * the lesser of the two and only assign that many vertices to the
  * interpolator to handle.
+ * <p>
+ *
+ * A copy made from another interpolator of the same type shares its keyValue
+ * array until one of them is given new values.
  *
  * @author Justin Couch
  * @version $Revision: 1.20 $
  */
-public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
+public abstract class BaseNormalInterpolator extends BaseInterpolatorNode
+    implements VRMLSharedFieldNodeType {
 
     /** Number of fields constant */
     private static final int NUM_FIELDS = LAST_INTERPOLATOR_INDEX + 1;
@@ -66,14 +70,14 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
     /** The used length of the keyValue array */
     private int numKeyValue;
 
+    /** vfKeyValue is shared with another node and must be copied before writing */
+    private boolean keyValueShared;
+
     /** The value of the value field */
     private float[] vfValue;
 
     /** The interpolator we use to do the heavy work for us */
-    private NormalInterpolator interpolator;
-
-    /** A temporary array that we use to setup the interpolator */
-    private float[] normalKeySetup;
+    private FloatArrayInterpolator interpolator;
 
     /** The number of normals per key value in the vfKeyValue array */
     private int normalValuesPerKey;
@@ -163,6 +167,20 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
 
         copy((VRMLInterpolatorNodeType)node);
 
+        if(node instanceof BaseNormalInterpolator) {
+            BaseNormalInterpolator src = (BaseNormalInterpolator)node;
+
+            if(src.numKeyValue != 0) {
+                vfKeyValue = src.vfKeyValue;
+                numKeyValue = src.numKeyValue;
+                normalValuesPerKey = numKeyValue / numKey;
+                keyValueShared = true;
+                src.keyValueShared = true;
+            }
+
+            return;
+        }
+
         try {
             int index = node.getFieldIndex("keyValue");
             VRMLFieldData field = node.getFieldValue(index);
@@ -199,8 +217,13 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
         // Only interpolate if the key field is non-null
         if(vfKey != null && vfKey.length > 0) {
             if (interpolator != null && vfKeyValue.length > 0) {
-                float[] value = interpolator.floatValue(vfFraction);
-                setValue(value, value.length);
+                if((vfValue == null) || (vfValue.length < normalValuesPerKey))
+                    vfValue = new float[normalValuesPerKey];
+
+                if(interpolator.interpolateNormals(vfFraction, vfValue) && !inSetup) {
+                    hasChanged[FIELD_VALUE] = true;
+                    fireFieldChanged(FIELD_VALUE);
+                }
             }
         }
 
@@ -228,6 +251,21 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
         }
     }
 
+    //----------------------------------------------------------
+    // Methods defined by VRMLSharedFieldNodeType
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of bytes of field data that this node currently shares
+     * with other nodes instead of holding its own copy.
+     *
+     * @return A non-negative number of bytes
+     */
+    @Override
+    public long getSharedFieldBytes() {
+        return keyValueShared ? vfKeyValue.length * 4L : 0;
+    }
+
     //----------------------------------------------------------
     // Methods required by the BaseVRMLNodeTypeType interface.
     //----------------------------------------------------------
@@ -454,8 +492,10 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
         numKeyValue = numValid;
 
         if(numKeyValue != 0) {
-            if(numValid > vfKeyValue.length)
+            if(keyValueShared || numValid > vfKeyValue.length) {
                 vfKeyValue = new float[numValid];
+                keyValueShared = false;
+            }
 
             normalValuesPerKey = numKeyValue / numKey;
             System.arraycopy(keyValues, 0, vfKeyValue, 0, numKeyValue);
@@ -472,36 +512,10 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
         }
     }
 
-    /**
-     * Set the value (MFVec3f) to the new value. Null values will be ignored.
-     * The array length will always be set to the length needed for the
-     * list of coordinates generated from the interpolator. If the incoming
-     * value is greater than needed, it will be trimmed, if it is less than
-     * is needed, the existing remaining values are untouched.
-     *
-     * @param newValue The new value to use
-     */
-    private void setValue(float[] value, int numValid) {
-
-        if(numValid == 0)
-            return;
-
-        if((vfValue == null) || (numValid > vfValue.length))
-            vfValue = new float[numValid];
-
-        System.arraycopy(value, 0, vfValue, 0, normalValuesPerKey);
-
-        if (!inSetup) {
-            hasChanged[FIELD_VALUE] = true;
-            fireFieldChanged(FIELD_VALUE);
-        }
-    }
-
     /**
      * Internal method to rebuild the interpolator from the latest lot of key
-     * and value information. This is an expensive method as you must clear
-     * the entire interpolator and start from scratch. Obviously we don't
-     * expect people to be changing their key values every other frame.
+     * and value information. The interpolator works directly from the field
+     * arrays, so this must be called any time they are changed.
      * <p>
      * If the key and keyValue fields are not the same length then we take
      * the lesser of the two and only assign that many vertices to the
@@ -513,27 +527,9 @@ public abstract class BaseNormalInterpolator extends BaseInterpolatorNode {
             return;
         }
 
-        int size = (numKey < numKeyValue / 3) ? numKey : numKeyValue / 3;
-
-        interpolator = new NormalInterpolator(size);
-
-        int count = 0;
-
-        if((normalKeySetup == null) ||
-           (normalKeySetup.length != normalValuesPerKey)) {
-            normalKeySetup = new float[normalValuesPerKey];
-        }
-
-        for(int i = 0; i < size; i++) {
-            System.arraycopy(vfKeyValue,
-                             count,
-                             normalKeySetup,
-                             0,
-                             normalValuesPerKey);
+        if(interpolator == null)
+            interpolator = new FloatArrayInterpolator();
 
-            interpolator.addKeyFrame(vfKey[i], normalKeySetup);
-
-            count += normalValuesPerKey;
-        }
+        interpolator.setKeys(vfKey, numKey, vfKeyValue, numKeyValue, normalValuesPerKey);
     }
 }
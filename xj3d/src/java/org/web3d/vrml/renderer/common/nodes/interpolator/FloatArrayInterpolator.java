@@ -0,0 +1,433 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes.interpolator;
+
+// External imports
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Local imports
+// None
+
+/**
+ * Evaluator for interpolators whose output is a large array of floats per
+ * key, such as the coordinate and normal interpolators.
+ * <p>
+ *
+ * Unlike the j3d.org interpolators, the key values are used directly from
+ * the node's flat keyValue array, with no per-key copies, and the result is
+ * written into an array supplied by the caller. The segment found for the
+ * last fraction is cached, so a fraction that stays in the same segment, or
+ * moves on to the next one as a TimeSensor would drive it, does not need a
+ * search. The linear blend is a single loop over contiguous arrays that
+ * the JIT compiler can turn into SIMD instructions. Arrays of more than the
+ * parallel threshold values are split across the common fork/join pool,
+ * when it has more than one thread.
+ * <p>
+ *
+ * The key handling matches the j3d.org interpolators. Fractions at or
+ * before the first key give the first value, fractions after the last key
+ * give the last value.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class FloatArrayInterpolator {
+
+    /** Default number of output values before going parallel */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 65536;
+
+    /** Number of output values per parallel task */
+    private static final int CHUNK_SIZE = 16384;
+
+    /** Error message for a threshold less than one */
+    private static final String THRESHOLD_MSG =
+        "The parallel threshold must be at least 1";
+
+    /** Number of output values needed to split the work across threads */
+    private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** The key fractions */
+    private float[] keys;
+
+    /** The flattened key values, valuesPerKey for each key */
+    private float[] keyValues;
+
+    /** The number of usable keys */
+    private int numKeys;
+
+    /** The number of floats in each key value */
+    private int valuesPerKey;
+
+    /** The index of the key at the start of the last segment used */
+    private int lastSegment;
+
+    /** The segment the angles were computed for, or -1 if none */
+    private int angleSegment;
+
+    /** Angle between each pair of normals for angleSegment */
+    private float[] angles;
+
+    /** Count of evaluations that did not need to search for the segment */
+    private long segmentHits;
+
+    /**
+     * A unit of work over a range of values in the output.
+     */
+    private interface Chunk {
+
+        /**
+         * Process the given range of values.
+         *
+         * @param start Index of the first value
+         * @param end Index after the last value
+         */
+        void run(int start, int end);
+    }
+
+    /**
+     * Construct a new interpolator with no keys.
+     */
+    public FloatArrayInterpolator() {
+        lastSegment = 0;
+        angleSegment = -1;
+    }
+
+    /**
+     * Set the number of output values needed before the interpolation is
+     * split across multiple threads. Applies to all instances.
+     *
+     * @param numValues The number of values. Must be at least 1
+     * @throws IllegalArgumentException The value is less than 1
+     */
+    public static void setParallelThreshold(int numValues) {
+        if(numValues < 1)
+            throw new IllegalArgumentException(THRESHOLD_MSG);
+
+        parallelThreshold = numValues;
+    }
+
+    /**
+     * Get the number of output values needed before the interpolation is
+     * split across multiple threads.
+     *
+     * @return A value of at least 1
+     */
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Set the keys and values to interpolate between. The arrays are used
+     * directly, not copied, so call this again any time they change. If the
+     * number of keys and values do not match, the lesser is used.
+     *
+     * @param keys The key fractions, in non-decreasing order
+     * @param numKeys The number of valid keys
+     * @param keyValues The flattened values for each key
+     * @param numKeyValues The number of valid values
+     * @param valuesPerKey The number of floats in each key value
+     */
+    public void setKeys(float[] keys,
+                        int numKeys,
+                        float[] keyValues,
+                        int numKeyValues,
+                        int valuesPerKey) {
+
+        this.keys = keys;
+        this.keyValues = keyValues;
+        this.valuesPerKey = valuesPerKey;
+
+        if(valuesPerKey == 0)
+            this.numKeys = 0;
+        else
+            this.numKeys = Math.min(numKeys, numKeyValues / valuesPerKey);
+
+        lastSegment = 0;
+        angleSegment = -1;
+    }
+
+    /**
+     * Get the number of floats in each value.
+     *
+     * @return A non-negative count
+     */
+    public int getValuesPerKey() {
+        return valuesPerKey;
+    }
+
+    /**
+     * Get the number of keys that are usable.
+     *
+     * @return A non-negative count
+     */
+    public int getNumKeys() {
+        return numKeys;
+    }
+
+    /**
+     * Get the number of evaluations that found the segment without having
+     * to search for it.
+     *
+     * @return A non-negative count
+     */
+    public long getSegmentHits() {
+        return segmentHits;
+    }
+
+    /**
+     * Linearly interpolate the values for the given fraction.
+     *
+     * @param fraction The fraction to evaluate
+     * @param output Array to write valuesPerKey values into
+     * @return false if there are no keys to interpolate
+     */
+    public boolean interpolate(float fraction, float[] output) {
+        if(numKeys == 0)
+            return false;
+
+        int loc = findSegment(fraction);
+
+        if(loc < 0) {
+            System.arraycopy(keyValues, 0, output, 0, valuesPerKey);
+        } else if(loc >= numKeys - 1) {
+            System.arraycopy(keyValues,
+                             (numKeys - 1) * valuesPerKey,
+                             output,
+                             0,
+                             valuesPerKey);
+        } else {
+            final float t = segmentFraction(loc, fraction);
+            final int p0 = loc * valuesPerKey;
+            final int p1 = p0 + valuesPerKey;
+            final float[] kv = keyValues;
+
+            runChunks(valuesPerKey, 1, (start, end) -> {
+                for(int i = start; i < end; i++) {
+                    float a = kv[p0 + i];
+                    output[i] = a + t * (kv[p1 + i] - a);
+                }
+            });
+        }
+
+        return true;
+    }
+
+    /**
+     * Spherically interpolate the values for the given fraction, treating
+     * them as a list of unit vectors. Each output vector is normalised. If
+     * a pair of vectors point in opposite directions, the nearer end value
+     * is used.
+     *
+     * @param fraction The fraction to evaluate
+     * @param output Array to write valuesPerKey values into
+     * @return false if there are no keys to interpolate
+     */
+    public boolean interpolateNormals(float fraction, float[] output) {
+        if(numKeys == 0)
+            return false;
+
+        int loc = findSegment(fraction);
+
+        if(loc < 0 || loc >= numKeys - 1) {
+            interpolate(fraction, output);
+            return true;
+        }
+
+        final float t = segmentFraction(loc, fraction);
+        final int p0 = loc * valuesPerKey;
+        final int p1 = p0 + valuesPerKey;
+        final float[] kv = keyValues;
+
+        computeAngles(loc);
+
+        final float[] ang = angles;
+
+        runChunks(valuesPerKey / 3, 3, (start, end) -> {
+            for(int i = start; i < end; i++) {
+                int vi = i * 3;
+                float a = ang[i];
+                float sa = (float)Math.sin((1 - t) * a);
+                float sb = (float)Math.sin(t * a);
+
+                float x = kv[p0 + vi] * sa + kv[p1 + vi] * sb;
+                float y = kv[p0 + vi + 1] * sa + kv[p1 + vi + 1] * sb;
+                float z = kv[p0 + vi + 2] * sa + kv[p1 + vi + 2] * sb;
+
+                float len = (float)Math.sqrt(x * x + y * y + z * z);
+
+                if(len == 0) {
+                    int src = (t < 0.5f) ? p0 : p1;
+                    output[vi] = kv[src + vi];
+                    output[vi + 1] = kv[src + vi + 1];
+                    output[vi + 2] = kv[src + vi + 2];
+                } else {
+                    output[vi] = x / len;
+                    output[vi + 1] = y / len;
+                    output[vi + 2] = z / len;
+                }
+            }
+        });
+
+        return true;
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Find the largest key index whose key is less than the fraction. Gives
+     * -1 if the fraction is at or before the first key and numKeys - 1 or
+     * more if at or after the last key.
+     *
+     * @param fraction The fraction to look for
+     * @return The index of the key starting the segment
+     */
+    int findSegment(float fraction) {
+        if(fraction <= keys[0])
+            return -1;
+
+        int last = numKeys - 1;
+
+        if(fraction >= keys[last])
+            return last;
+
+        // Same segment or the next one along
+        int seg = lastSegment;
+        if(seg < last && keys[seg] < fraction) {
+            if(fraction <= keys[seg + 1]) {
+                segmentHits++;
+                return seg;
+            }
+
+            if(seg + 1 < last && fraction <= keys[seg + 2]) {
+                segmentHits++;
+                lastSegment = seg + 1;
+                return seg + 1;
+            }
+        }
+
+        // Binary search for the largest i with keys[i] < fraction
+        int start = 0;
+        int end = last;
+
+        while(start < end) {
+            int mid = (start + end + 1) >>> 1;
+
+            if(keys[mid] < fraction)
+                start = mid;
+            else
+                end = mid - 1;
+        }
+
+        lastSegment = start;
+
+        return start;
+    }
+
+    /**
+     * Work out the fraction of the way through the segment.
+     */
+    private float segmentFraction(int loc, float fraction) {
+        float prev_key = keys[loc];
+        float next_key = keys[loc + 1];
+
+        return (next_key != prev_key) ?
+               (fraction - prev_key) / (next_key - prev_key) : 0;
+    }
+
+    /**
+     * Compute the angle between each pair of vectors in the segment, if not
+     * already done for this segment.
+     */
+    private void computeAngles(int loc) {
+        if(angleSegment == loc)
+            return;
+
+        int count = valuesPerKey / 3;
+
+        if(angles == null || angles.length != count)
+            angles = new float[count];
+
+        int p0 = loc * valuesPerKey;
+        int p1 = p0 + valuesPerKey;
+
+        for(int i = 0; i < count; i++) {
+            int vi = i * 3;
+
+            float dot = keyValues[p0 + vi] * keyValues[p1 + vi] +
+                        keyValues[p0 + vi + 1] * keyValues[p1 + vi + 1] +
+                        keyValues[p0 + vi + 2] * keyValues[p1 + vi + 2];
+
+            // Rounding can take this just outside the valid range
+            if(dot > 1)
+                dot = 1;
+            else if(dot < -1)
+                dot = -1;
+
+            angles[i] = (float)Math.acos(dot);
+        }
+
+        angleSegment = loc;
+    }
+
+    /**
+     * Run the chunk over all the items, splitting the work up across the
+     * fork/join pool if there are enough values.
+     *
+     * @param numItems The number of items to process
+     * @param itemSize The number of output values per item
+     * @param chunk The work to do
+     */
+    private void runChunks(int numItems, int itemSize, Chunk chunk) {
+        if((numItems * itemSize < parallelThreshold) ||
+           (ForkJoinPool.getCommonPoolParallelism() < 2)) {
+            chunk.run(0, numItems);
+            return;
+        }
+
+        int chunk_items = Math.max(1, CHUNK_SIZE / itemSize);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for(int i = 0; i < numItems; i += chunk_items) {
+            final int start = i;
+            final int end = Math.min(i + chunk_items, numItems);
+
+            tasks.add(() -> {
+                chunk.run(start, end);
+                return null;
+            });
+        }
+
+        List<Future<Void>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+
+        try {
+            for(Future<Void> f : results)
+                f.get();
+        } catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch(ExecutionException ee) {
+            Throwable cause = ee.getCause();
+
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            else
+                throw new RuntimeException(cause);
+        }
+    }
+}
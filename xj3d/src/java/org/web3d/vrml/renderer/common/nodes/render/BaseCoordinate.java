@@ -22,6 +22,7 @@ import org.web3d.vrml.lang.*;
 import org.web3d.vrml.nodes.VRMLNodeType;
 import org.web3d.vrml.nodes.VRMLFieldData;
 import org.web3d.vrml.nodes.VRMLCoordinateNodeType;
+import org.web3d.vrml.nodes.VRMLSharedFieldNodeType;
 import org.web3d.vrml.renderer.common.nodes.BaseGeometricPropertyNode;
 
 /**
@@ -36,12 +37,15 @@ import org.web3d.vrml.renderer.common.nodes.BaseGeometricPropertyNode;
  * a flat array of points rather than a 2D array. Receiving nodes should check
  * for this version as well. This implementation will handle being routed
  * either form.
+ * <p>
+ * A copy made from another coordinate node shares its point array until one
+ * of them sets a new value, when the writer takes its own copy.
  *
  * @author Alan Hudson
  * @version $Revision: 1.17 $
  */
 public abstract class BaseCoordinate extends BaseGeometricPropertyNode
-    implements VRMLCoordinateNodeType {
+    implements VRMLCoordinateNodeType, VRMLSharedFieldNodeType {
 
     /** Index of the point field */
     protected static final int FIELD_POINT = LAST_NODE_INDEX + 1;
@@ -69,6 +73,9 @@ public abstract class BaseCoordinate extends BaseGeometricPropertyNode
     /** actual length of vfPoint */
     protected int numPoint;
 
+    /** vfPoint is shared with another node and must be copied before writing */
+    protected boolean pointShared;
+
     // Static constructor
     static {
         nodeFields = new int[] { FIELD_METADATA };
@@ -118,6 +125,19 @@ public abstract class BaseCoordinate extends BaseGeometricPropertyNode
 
         checkNodeType(node);
 
+        if(node instanceof BaseCoordinate) {
+            BaseCoordinate src = (BaseCoordinate)node;
+
+            if(src.numPoint != 0) {
+                vfPoint = src.vfPoint;
+                numPoint = src.numPoint;
+                pointShared = true;
+                src.pointShared = true;
+            }
+
+            return;
+        }
+
         try {
             int index = node.getFieldIndex("point");
             VRMLFieldData field = node.getFieldValue(index);
@@ -147,8 +167,10 @@ public abstract class BaseCoordinate extends BaseGeometricPropertyNode
      */
     @Override
     public void setPoint(float[] newPoint, int numValid) {
-        if(numValid > vfPoint.length)
+        if(pointShared || numValid > vfPoint.length) {
             vfPoint = new float[numValid];
+            pointShared = false;
+        }
 
         numPoint = numValid;
         System.arraycopy(newPoint,0, vfPoint, 0, numPoint);
@@ -208,6 +230,21 @@ public abstract class BaseCoordinate extends BaseGeometricPropertyNode
         return vfPoint;
     }
 
+    //----------------------------------------------------------
+    // Methods defined by VRMLSharedFieldNodeType
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of bytes of field data that this node currently shares
+     * with other nodes instead of holding its own copy.
+     *
+     * @return A non-negative number of bytes
+     */
+    @Override
+    public long getSharedFieldBytes() {
+        return pointShared ? vfPoint.length * 4L : 0;
+    }
+
     //----------------------------------------------------------
     // Methods defined by VRMLNodeType
     //----------------------------------------------------------
@@ -22,6 +22,7 @@ import org.web3d.vrml.lang.*;
 import org.web3d.vrml.nodes.VRMLNodeType;
 import org.web3d.vrml.nodes.VRMLFieldData;
 import org.web3d.vrml.nodes.VRMLNormalNodeType;
+import org.web3d.vrml.nodes.VRMLSharedFieldNodeType;
 import org.web3d.vrml.renderer.common.nodes.BaseGeometricPropertyNode;
 
 /**
@@ -39,6 +40,11 @@ import org.web3d.vrml.renderer.common.nodes.BaseGeometricPropertyNode;
  * a flat array of points rather than a 2D array. Receiving nodes should check
  * for this version as well. This implementation will handle being routed
  * either form.
+ * <p>
+ *
+ * A copy made from another normal node shares its vector array until one of
+ * them sets a new value, when the writer takes its own copy.
+ * <p>
  *
  * The Normal node is defined by the X3D specification as:
  * <pre>
@@ -52,7 +58,7 @@ import org.web3d.vrml.renderer.common.nodes.BaseGeometricPropertyNode;
  * @version $Revision: 1.13 $
  */
 public abstract class BaseNormal extends BaseGeometricPropertyNode
-    implements VRMLNormalNodeType {
+    implements VRMLNormalNodeType, VRMLSharedFieldNodeType {
 
     /** Index of the vector field */
     protected static final int FIELD_VECTOR = LAST_NODE_INDEX + 1;
@@ -80,6 +86,9 @@ public abstract class BaseNormal extends BaseGeometricPropertyNode
     /** actual length of vfVector */
     protected int numVector;
 
+    /** vfVector is shared with another node and must be copied before writing */
+    protected boolean vectorShared;
+
     // Static constructor
     static {
         nodeFields = new int[] { FIELD_METADATA };
@@ -130,6 +139,19 @@ public abstract class BaseNormal extends BaseGeometricPropertyNode
 
         checkNodeType(node);
 
+        if(node instanceof BaseNormal) {
+            BaseNormal src = (BaseNormal)node;
+
+            if(src.numVector != 0) {
+                vfVector = src.vfVector;
+                numVector = src.numVector;
+                vectorShared = true;
+                src.vectorShared = true;
+            }
+
+            return;
+        }
+
         try {
             int index = node.getFieldIndex("vector");
             VRMLFieldData field = node.getFieldValue(index);
@@ -162,8 +184,10 @@ public abstract class BaseNormal extends BaseGeometricPropertyNode
      */
     @Override
     public void setVector(float[] newVector, int numValid) {
-        if(numValid > vfVector.length)
+        if(vectorShared || numValid > vfVector.length) {
             vfVector = new float[numValid];
+            vectorShared = false;
+        }
 
         numVector = numValid;
         System.arraycopy(newVector,0, vfVector, 0, numVector);
@@ -219,6 +243,21 @@ public abstract class BaseNormal extends BaseGeometricPropertyNode
         return vfVector;
     }
 
+    //----------------------------------------------------------
+    // Methods defined by VRMLSharedFieldNodeType
+    //----------------------------------------------------------
+
+    /**
+     * Get the number of bytes of field data that this node currently shares
+     * with other nodes instead of holding its own copy.
+     *
+     * @return A non-negative number of bytes
+     */
+    @Override
+    public long getSharedFieldBytes() {
+        return vectorShared ? vfVector.length * 4L : 0;
+    }
+
     //----------------------------------------------------------
     // Methods defined by VRMLNodeType
     //----------------------------------------------------------
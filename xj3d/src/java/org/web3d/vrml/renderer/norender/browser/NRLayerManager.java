@@ -0,0 +1,235 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.norender.browser;
+
+// External imports
+import javax.vecmath.AxisAngle4f;
+import javax.vecmath.Vector3f;
+
+// Local imports
+import org.j3d.util.DefaultErrorReporter;
+import org.j3d.util.ErrorReporter;
+import org.j3d.util.IntHashMap;
+
+import org.web3d.browser.NavigationStateListener;
+import org.web3d.browser.SensorStatusListener;
+import org.web3d.browser.ViewpointStatusListener;
+import org.web3d.browser.Xj3DConstants;
+
+import org.web3d.vrml.nodes.VRMLBindableNodeType;
+import org.web3d.vrml.nodes.VRMLLayerNodeType;
+import org.web3d.vrml.nodes.VRMLViewportNodeType;
+import org.web3d.vrml.nodes.VRMLWorldRootNodeType;
+
+import org.xj3d.core.eventmodel.BindableNodeManager;
+import org.xj3d.core.eventmodel.LayerManager;
+import org.xj3d.core.eventmodel.SensorManager;
+
+/**
+ * Layer manager for the null renderer.
+ * <p>
+ *
+ * There is no view and no user input, so the only real work is keeping the
+ * bindable node stacks for the event model. No default bindables are
+ * created. When the world starts, the first node of each stack is bound if
+ * the world has one.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class NRLayerManager implements LayerManager {
+
+    /** Reporter instance for handing out errors */
+    private ErrorReporter errorReporter;
+
+    /** The sensor manager supplying the clock */
+    private SensorManager sensorManager;
+
+    /** Map of bindable node type to the stack managing it */
+    private final IntHashMap<BindableNodeManager> bindablesMap;
+
+    /** The ID of this layer */
+    private int layerId;
+
+    /** Is this the layer taking navigation input */
+    private boolean navigationEnabled;
+
+    /** The current rendering style, kept only to hand back */
+    private int renderingStyle;
+
+    /**
+     * Create a new, empty layer manager.
+     */
+    public NRLayerManager() {
+        layerId = -1;
+        renderingStyle = Xj3DConstants.RENDER_SHADED;
+        bindablesMap = new IntHashMap<>();
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by LayerManager
+    //----------------------------------------------------------
+
+    @Override
+    public void setErrorReporter(ErrorReporter reporter) {
+        errorReporter = reporter;
+
+        if(errorReporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
+    }
+
+    @Override
+    public void initialise(SensorManager sensors) {
+        sensorManager = sensors;
+    }
+
+    @Override
+    public void setLayerId(int id) {
+        layerId = id;
+    }
+
+    @Override
+    public void setSpecVersion(int major, int minor) {
+    }
+
+    @Override
+    public void setActiveNavigationLayer(boolean state) {
+        navigationEnabled = state;
+    }
+
+    @Override
+    public boolean isActiveNavigationLayer() {
+        return navigationEnabled;
+    }
+
+    @Override
+    public boolean setNavigationMode(String mode) {
+        return false;
+    }
+
+    @Override
+    public void getUserPosition(Vector3f pos, AxisAngle4f ori) {
+    }
+
+    @Override
+    public void fitToWorld(boolean animated) {
+    }
+
+    @Override
+    public void setManagedNodes(VRMLWorldRootNodeType root) {
+    }
+
+    @Override
+    public void setManagedLayer(VRMLLayerNodeType layer) {
+    }
+
+    @Override
+    public void setHardwareFOV(float fov) {
+    }
+
+    @Override
+    public void setStereoEnabled(boolean enabled) {
+    }
+
+    @Override
+    public void setRenderingStyle(int style) {
+        renderingStyle = style;
+    }
+
+    @Override
+    public int getRenderingStyle() {
+        return renderingStyle;
+    }
+
+    /**
+     * Bind the first node of each stack that has one.
+     */
+    @Override
+    public void initialBind() {
+        double time = sensorManager.getVRMLClock().getTime();
+
+        int[] types = bindablesMap.keySet();
+
+        for(int type : types) {
+            VRMLBindableNodeType node = bindablesMap.get(type).getFirstNode();
+
+            if(node != null)
+                node.setBind(true, true, time);
+        }
+    }
+
+    @Override
+    public BindableNodeManager getBindableManager(int type) {
+        BindableNodeManager ret_val = bindablesMap.get(type);
+
+        if(ret_val == null) {
+            ret_val = new BindableNodeManager();
+            ret_val.setErrorReporter(errorReporter);
+            ret_val.setVRMLClock(sensorManager.getVRMLClock());
+            bindablesMap.put(type, ret_val);
+        }
+
+        return ret_val;
+    }
+
+    @Override
+    public int getViewportType() {
+        return VIEWPORT_FULLWINDOW;
+    }
+
+    @Override
+    public VRMLViewportNodeType getViewport() {
+        return null;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public void updateViewMatrix() {
+    }
+
+    @Override
+    public void clear() {
+        int[] types = bindablesMap.keySet();
+
+        for(int type : types)
+            bindablesMap.get(type).clearAll();
+    }
+
+    @Override
+    public void addNavigationStateListener(NavigationStateListener l) {
+    }
+
+    @Override
+    public void removeNavigationStateListener(NavigationStateListener l) {
+    }
+
+    @Override
+    public void addSensorStatusListener(SensorStatusListener l) {
+    }
+
+    @Override
+    public void removeSensorStatusListener(SensorStatusListener l) {
+    }
+
+    @Override
+    public void addViewpointStatusListener(ViewpointStatusListener l) {
+    }
+
+    @Override
+    public void removeViewpointStatusListener(ViewpointStatusListener l) {
+    }
+}
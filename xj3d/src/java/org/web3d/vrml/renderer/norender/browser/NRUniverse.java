@@ -29,6 +29,8 @@ import org.j3d.util.ErrorReporter;
 
 import org.xj3d.core.eventmodel.EventModelEvaluator;
 import org.xj3d.core.eventmodel.EventModelInitListener;
+import org.xj3d.core.eventmodel.LayerManager;
+import org.xj3d.core.eventmodel.LayerRenderingManager;
 
 
 /**
@@ -49,12 +51,18 @@ import org.xj3d.core.eventmodel.EventModelInitListener;
  * <p>
  * The universe is not responsible for loading more VRML content. To handle
  * anchors, it delegates to the supplied listener.
+ * <p>
+ * By default the universe runs its own thread that evaluates the event model
+ * as fast as it can against the wall clock. When created without that
+ * thread, the owner is responsible for calling
+ * {@link EventModelEvaluator#evaluate(long)} to step each frame, which is
+ * how a headless browser runs on a virtual clock.
  *
  * @author Justin Couch
  * @version $Revision: 1.29 $
  */
 public class NRUniverse
-    implements BrowserCore, EventModelInitListener {
+    implements BrowserCore, EventModelInitListener, LayerRenderingManager {
 
     /** What we define to be an infinite visibility limit. */
     private static final float INFINITE_VIS_LIMIT = 10_000;
@@ -77,7 +85,7 @@ public class NRUniverse
     /** List of the current DEF mappings */
     private Map<String, VRMLNode> defMap;
 
-    /** Frame manager for the update cycles */
+    /** Frame manager for the update cycles. Null if stepped externally */
     private PerFrameManager frameManager;
 
     /** Event model evaluator to use */
@@ -112,8 +120,20 @@ public class NRUniverse
      *
      * @param eme The event model evaluation processor
      */
-    @SuppressWarnings("unchecked") // cast from an empty Collections Map
     public NRUniverse(EventModelEvaluator eme) {
+        this(eme, true);
+    }
+
+    /**
+     * Construct an empty universe that contains no scene graph, optionally
+     * without a thread of its own to run the event model.
+     *
+     * @param eme The event model evaluation processor
+     * @param runFrames true to start a thread that evaluates the event
+     *    model, false if the caller will step the frames
+     */
+    @SuppressWarnings("unchecked") // cast from an empty Collections Map
+    public NRUniverse(EventModelEvaluator eme, boolean runFrames) {
         eventModel = eme;
         eventModel.setInitListener(NRUniverse.this);
 
@@ -121,9 +141,11 @@ public class NRUniverse
         coreListeners = new ArrayList<>();
         viewpointStatusListeners = new ArrayList<>(1);
 
-        frameManager = new PerFrameManager(eventModel);
-        frameManager.setEnable(false);
-        frameManager.start();
+        if(runFrames) {
+            frameManager = new PerFrameManager(eventModel);
+            frameManager.setEnable(false);
+            frameManager.start();
+        }
 
         frameCycleTime = 0;
         userCycleTime = 0;
@@ -163,7 +185,8 @@ public class NRUniverse
         if (currentScene == null)
             return;
 
-        frameManager.setEnable(false);
+        if(frameManager != null)
+            frameManager.setEnable(false);
 
         if(currentScene != null) {
             fireShutdownEvent();
@@ -179,7 +202,9 @@ public class NRUniverse
         // the clock starts, as per EAI spec.
         VRMLClock clk = eventModel.getVRMLClock();
         clk.resetTimeZero();
-        frameManager.setEnable(true);
+
+        if(frameManager != null)
+            frameManager.setEnable(true);
     }
 
     //----------------------------------------------------------
@@ -529,7 +554,8 @@ public class NRUniverse
         nextScene = scene;
         eventModel.setScene(scene, viewpoint);
 
-        frameManager.setEnable(true);
+        if(frameManager != null)
+            frameManager.setEnable(true);
     }
 
     /**
@@ -676,6 +702,70 @@ public class NRUniverse
     public void captureScreenEnd() {
     }
 
+    //----------------------------------------------------------
+    // Methods defined by LayerRenderingManager
+    //----------------------------------------------------------
+
+    /**
+     * Change the rendering style that the browser should currently be using
+     * for for a specific layer. Ignored as nothing is rendered.
+     *
+     * @param style One of the RENDER_* constants
+     * @param layerId The ID of the layer that should have the style changed
+     */
+    @Override
+    public void setRenderingStyle(int style, int layerId) {
+    }
+
+    /**
+     * Get the currently set rendering style for a specific layer.
+     *
+     * @return Always RENDER_SHADED
+     */
+    @Override
+    public int getRenderingStyle(int layerId) {
+        return Xj3DConstants.RENDER_SHADED;
+    }
+
+    /**
+     * Set the list of current layers that should be rendered. Ignored as
+     * nothing is rendered.
+     *
+     * @param layers The list of layer managers to be rendered
+     * @param numLayers The number of active items in the list
+     */
+    @Override
+    public void setActiveLayers(LayerManager[] layers, int numLayers) {
+    }
+
+    /**
+     * Set the rendering order for all the layers on this manager. Ignored as
+     * nothing is rendered.
+     *
+     * @param order The index of the list of rendered layers ids
+     * @param numValid The number of valid items in the order list
+     */
+    @Override
+    public void setRenderOrder(int[] order, int numValid) {
+    }
+
+    /**
+     * Shutdown the manager now, stopping the frame thread if there is one.
+     */
+    @Override
+    public void shutdown() {
+        if(frameManager != null)
+            frameManager.shutdown();
+    }
+
+    /**
+     * Force clearing all currently managed layers from this manager now.
+     * There are none to clear.
+     */
+    @Override
+    public void clear() {
+    }
+
     //----------------------------------------------------------
     // Local methods.
     //----------------------------------------------------------
@@ -697,7 +787,8 @@ public class NRUniverse
      */
     private void clearCurrentWorld() {
 
-        frameManager.setEnable(false);
+        if(frameManager != null)
+            frameManager.setEnable(false);
 
         currentSpace = null;
 
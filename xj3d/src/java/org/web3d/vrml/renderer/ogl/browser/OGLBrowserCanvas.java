@@ -40,6 +40,8 @@ import org.xj3d.core.loading.*;
 import org.web3d.vrml.parser.VRMLParserFactory;
 import org.web3d.vrml.parser.FactoryConfigurationError;
 
+import org.web3d.vrml.renderer.common.nodes.geospatial.GeoLODPagingManager;
+
 import org.web3d.vrml.renderer.ogl.OGLSceneBuilderFactory;
 
 import org.web3d.vrml.sav.InputSource;
@@ -1082,6 +1084,7 @@ public class OGLBrowserCanvas
     private void shutdownApp(boolean isShutdownThread) {
 
 	OriginManagerFactory.removeInstance(stateManager);
+        GeoLODPagingManager.removeInstance(stateManager);
 
         loadManager.shutdown();
 
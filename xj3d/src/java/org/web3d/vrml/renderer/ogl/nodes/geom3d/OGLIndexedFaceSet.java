@@ -72,6 +72,19 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
     /** The geometryUtils used */
     private GeometryUtils gutils;
 
+    /**
+     * The output of gutils. Kept between builds of dynamic geometry so that
+     * partial changes can be applied to a copy of the last output.
+     */
+    private GeometryHolder gholder;
+
+    /**
+     * The holder used by the build before the current one. Dynamic geometry
+     * alternates between this and gholder so that a rebuild never writes
+     * into arrays that implGeom may still be rendering from.
+     */
+    private GeometryHolder backHolder;
+
     /** The number of geometry builds.  Optimize for static till proven dynamic */
     private int numBuilds;
 
@@ -308,10 +321,25 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
         if(num_items < 3)
             return;
 
-        if (gutils == null)
+        if (gutils == null) {
             gutils = new GeometryUtils();
 
-        GeometryHolder gholder = new GeometryHolder();
+            // Anything built more than once is assumed to keep changing, so
+            // track enough state to only rebuild the faces that change.
+            if (numBuilds > 0)
+                gutils.setIncrementalUpdates(true);
+        }
+
+        // The current arrays belong to implGeom until the callbacks hand it
+        // new ones, so build into the other holder.
+        boolean swapped = false;
+
+        if (gholder == null) {
+            gholder = new GeometryHolder();
+        } else {
+            swapHolders();
+            swapped = true;
+        }
 
         gutils.generateTriangleArrays(changeFlags, true, true,
            vfCoord, vfColor, vfNormal, vfTexCoord,
@@ -326,6 +354,8 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
         if (initialBuild && gholder.coordinates == null)
             return;
 
+        verticesRebuilt = gutils.getVerticesRebuilt();
+
         if (!initialBuild) {
             vboChanged = true;
 
@@ -341,7 +371,7 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
         numTexSets = gholder.numTexSets;
         numUniqueTexSets = gholder.numUniqueTexSets;
 
-        if((changeFlags & COORDS_CHANGED) != 0 || initialBuild) {
+        if((changeFlags & COORDS_CHANGED) != 0 || initialBuild || swapped) {
             if (implGeom.isLive())
                 implGeom.boundsChanged(this);
             else
@@ -349,7 +379,8 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
         }
 
         if((((changeFlags & COORDS_CHANGED) != 0) && (vfNormal == null)) ||
-           ((changeFlags & NORMALS_CHANGED) != 0) || initialBuild) {
+           ((changeFlags & NORMALS_CHANGED) != 0) || initialBuild ||
+           (swapped && geomData.normals != null)) {
 
             normalsChanged = true;
             if (implGeom.isLive())
@@ -451,6 +482,8 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
         if(isStatic || numBuilds < 1) {
             gutils.reset();
             gutils = null;
+            gholder = null;
+            backHolder = null;
 
             if (inSetup) {
                 // We can ditch the tex coords as well
@@ -463,6 +496,54 @@ public class OGLIndexedFaceSet extends BaseIndexedFaceSet
         numBuilds++;
     }
 
+    /**
+     * Swap the output holders ahead of a rebuild so that gutils writes into
+     * arrays that implGeom is not using. An incremental rebuild only writes
+     * the faces that changed, so the coordinates and normals of the current
+     * output are copied across first. Colours and texture coordinates are
+     * only written by a full rebuild, which allocates them afresh.
+     */
+    private void swapHolders() {
+        GeometryHolder front = gholder;
+
+        if (backHolder == null)
+            backHolder = new GeometryHolder();
+
+        gholder = backHolder;
+        backHolder = front;
+
+        gholder.geometryType = front.geometryType;
+        gholder.geometrySubType = front.geometrySubType;
+        gholder.geometryComponents = front.geometryComponents;
+        gholder.vertexCount = front.vertexCount;
+        gholder.coordinates = copyArray(front.coordinates, gholder.coordinates);
+        gholder.normals = copyArray(front.normals, gholder.normals);
+        gholder.colors = null;
+        gholder.textureCoordinates = null;
+        gholder.numTexSets = front.numTexSets;
+        gholder.numUniqueTexSets = front.numUniqueTexSets;
+    }
+
+    /**
+     * Copy the source values into the destination array, reallocating the
+     * destination if it is not the same size.
+     *
+     * @param src The array to copy from
+     * @param dest The array to copy into, may be null
+     * @return The array holding the copy, or null if src is null
+     */
+    private float[] copyArray(float[] src, float[] dest) {
+        if (src == null)
+            return null;
+
+        if (dest == null || dest.length != src.length)
+            dest = new float[src.length];
+
+        System.arraycopy(src, 0, dest, 0, src.length);
+
+        return dest;
+    }
+
     /**
      * Get the value of the CCW field.
      *
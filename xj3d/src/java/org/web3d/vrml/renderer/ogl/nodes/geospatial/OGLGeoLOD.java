@@ -24,6 +24,7 @@ import org.j3d.geom.GeometryData;
 import org.web3d.vrml.lang.*;
 import org.web3d.vrml.nodes.*;
 import org.web3d.vrml.renderer.common.nodes.geospatial.BaseGeoLOD;
+import org.web3d.vrml.renderer.common.nodes.geospatial.GeoLODPagingManager;
 import org.web3d.vrml.renderer.common.nodes.geospatial.SceneWrapper;
 import org.web3d.vrml.renderer.ogl.nodes.OGLGlobalStatus;
 import org.web3d.vrml.renderer.ogl.nodes.OGLUserData;
@@ -448,7 +449,10 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 childScenes[0] = scene;
                 loadedScenes[0] = new SceneWrapper(scene);
 
-                stateManager.registerAddedScene(loadedScenes[0]);
+                // Prefetched content waits until the level is shown
+                if (childrenShown) {
+                    stateManager.registerAddedScene(loadedScenes[0]);
+                }
 
                 node = (VRMLNodeType) scene.getRootNode();
 
@@ -462,7 +466,10 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 childScenes[1] = scene;
                 loadedScenes[1] = new SceneWrapper(scene);
 
-                stateManager.registerAddedScene(loadedScenes[1]);
+                // Prefetched content waits until the level is shown
+                if (childrenShown) {
+                    stateManager.registerAddedScene(loadedScenes[1]);
+                }
 
                 node = (VRMLNodeType) scene.getRootNode();
 
@@ -476,7 +483,10 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 childScenes[2] = scene;
                 loadedScenes[2] = new SceneWrapper(scene);
 
-                stateManager.registerAddedScene(loadedScenes[2]);
+                // Prefetched content waits until the level is shown
+                if (childrenShown) {
+                    stateManager.registerAddedScene(loadedScenes[2]);
+                }
 
                 node = (VRMLNodeType) scene.getRootNode();
 
@@ -490,7 +500,10 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 childScenes[3] = scene;
                 loadedScenes[3] = new SceneWrapper(scene);
 
-                stateManager.registerAddedScene(loadedScenes[3]);
+                // Prefetched content waits until the level is shown
+                if (childrenShown) {
+                    stateManager.registerAddedScene(loadedScenes[3]);
+                }
 
                 node = (VRMLNodeType) scene.getRootNode();
 
@@ -503,6 +516,11 @@ public class OGLGeoLOD extends BaseGeoLOD implements
             for (int j = 0; j < layerIds.length; j++) {
                 node.updateRefCount(j, true);
             }
+
+            if (index != FIELD_ROOT_URL && pagingManager != null) {
+                pagingManager.tileLoaded(this,
+                    GeoLODPagingManager.estimateSize((VRMLScene) content));
+            }
         }
 
         if (rootGroupChanged) {
@@ -606,6 +624,8 @@ public class OGLGeoLOD extends BaseGeoLOD implements
             AxisAngle4f orientation,
             Matrix4f localPosition) {
 
+        updatePaging(position.x, position.y, position.z);
+
         // Do not account for the transformation stack for distance
         translation.x = (float) (localCenter[0]);
         translation.y = (float) (localCenter[1]);
@@ -624,10 +644,13 @@ public class OGLGeoLOD extends BaseGeoLOD implements
 
             if (childrenShown) {
                 // the range threshold to active the child level has been crossed
+                prefetching = false;
+
                 boolean allLoaded = true;
                 if (vfChild1Url.length != 0) {
                     if (loadedScenes[0] == null) {
-                        fireUrlChanged(FIELD_CHILD1_URL);
+                        // Does nothing if a prefetch is already outstanding
+                        requestChild(0);
                         allLoaded = false;
                     } else {
                         stateManager.registerAddedScene(loadedScenes[0]);
@@ -635,7 +658,8 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 }
                 if (vfChild2Url.length != 0) {
                     if (loadedScenes[1] == null) {
-                        fireUrlChanged(FIELD_CHILD2_URL);
+                        // Does nothing if a prefetch is already outstanding
+                        requestChild(1);
                         allLoaded = false;
                     } else {
                         stateManager.registerAddedScene(loadedScenes[1]);
@@ -643,7 +667,8 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 }
                 if (vfChild3Url.length != 0) {
                     if (loadedScenes[2] == null) {
-                        fireUrlChanged(FIELD_CHILD3_URL);
+                        // Does nothing if a prefetch is already outstanding
+                        requestChild(2);
                         allLoaded = false;
                     } else {
                         stateManager.registerAddedScene(loadedScenes[2]);
@@ -651,7 +676,8 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 }
                 if (vfChild4Url.length != 0) {
                     if (loadedScenes[3] == null) {
-                        fireUrlChanged(FIELD_CHILD4_URL);
+                        // Does nothing if a prefetch is already outstanding
+                        requestChild(3);
                         allLoaded = false;
                     } else {
                         stateManager.registerAddedScene(loadedScenes[3]);
@@ -662,6 +688,13 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                     groupsChanged = true;
                     stateManager.addEndOfThisFrameListener(this);
                 }
+                if (pagingManager != null) {
+                    if (allLoaded) {
+                        pagingManager.recordHit();
+                    } else {
+                        pagingManager.recordStall();
+                    }
+                }
                 if (rootSceneWrapper != null) {
                     stateManager.registerRemovedScene(rootSceneWrapper);
                     rootScene = null;
@@ -689,6 +722,20 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                     rootGroupChanged = true;
                     stateManager.addEndOfThisFrameListener(this);
                 }
+                // Keep the children for a quick return, as long as all their
+                // own external content made it in. The paging manager will
+                // throw them away when memory gets tight.
+                boolean retain = (pagingManager != null) &&
+                    pagingManager.isRetentionEnabled();
+
+                for (VRMLNode externalChild : childExternalList) {
+                    VRMLSingleExternalNodeType node = (VRMLSingleExternalNodeType) externalChild;
+                    if ((node != null) && (node.getLoadState() != VRMLExternalNodeType.LOAD_COMPLETE)) {
+                        retain = false;
+                        break;
+                    }
+                }
+
                 ////////////////////////////////////////////////////////////////////
                 // mark all the child externals as loaded. thus, if a request for
                 // loading is on the load queue - it will be ignored. requests that
@@ -704,11 +751,18 @@ public class OGLGeoLOD extends BaseGeoLOD implements
                 for (int i = 0; i < 4; i++) {
                     if (loadedScenes[i] != null) {
                         stateManager.registerRemovedScene(loadedScenes[i]);
-                        loadedChildUrls[i] = false;
-                        childScenes[i] = null;
-                        loadedScenes[i] = null;
+
+                        if (!retain) {
+                            loadedChildUrls[i] = false;
+                            childScenes[i] = null;
+                            loadedScenes[i] = null;
+                        }
                     }
                 }
+
+                if (!retain && pagingManager != null) {
+                    pagingManager.tileReleased(this);
+                }
             }
         }
     }
@@ -818,6 +872,26 @@ public class OGLGeoLOD extends BaseGeoLOD implements
         super.clearChildren();
     }
 
+    //----------------------------------------------------------
+    // Methods defined by GeoLODPagingManager.PagedTile
+    //----------------------------------------------------------
+
+    /**
+     * Throw away all the loaded child content.
+     */
+    @Override
+    public void pageOut() {
+        for (int i = 0; i < 4; i++) {
+            loadedChildUrls[i] = false;
+        }
+
+        super.pageOut();
+
+        // Only hidden content gets paged out, so these all belong to
+        // children that have never been shown.
+        childExternalList.clear();
+    }
+
     //----------------------------------------------------------
     // Methods defined by OriginListener
     //----------------------------------------------------------
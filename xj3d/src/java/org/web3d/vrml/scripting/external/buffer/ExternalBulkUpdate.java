@@ -0,0 +1,461 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.buffer;
+
+// External imports
+import java.util.Queue;
+
+// Local imports
+import org.web3d.vrml.lang.FieldConstants;
+import org.web3d.vrml.nodes.VRMLNodeType;
+
+/**
+ * A single event that writes many fields of many nodes from packed
+ * primitive arrays.
+ * <p>
+ *
+ * The normal field wrappers create one event per setValue call. For an
+ * application that updates thousands of fields every frame that means
+ * thousands of objects to create, queue and process. This event holds all
+ * of the updates of one call in flat arrays and applies them in a single
+ * loop when the queue is processed.
+ * <p>
+ *
+ * Every update in an event has the same number of values, the stride, and
+ * the values are all of one primitive kind: float, double or int. Boolean
+ * fields take int values with anything non-zero being true. The caller is
+ * expected to have checked that the fields are writable and of a type that
+ * matches the value kind, using {@link #getValueKind(int)}.
+ * <p>
+ *
+ * Instances are recycled. Once processed, an event returns itself to the
+ * free list it was created with. Nodes keep the arrays given to MF fields
+ * by reference, so each MF update is handed an array of its own. Only
+ * single valued fields, whose values the node copies, share a scratch
+ * array.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class ExternalBulkUpdate implements ExternalEvent {
+
+    /** Value kind for fields written from float values */
+    public static final int FLOAT_VALUES = 0;
+
+    /** Value kind for fields written from double values */
+    public static final int DOUBLE_VALUES = 1;
+
+    /** Value kind for fields written from int values */
+    public static final int INT_VALUES = 2;
+
+    /** The list to return this instance to once processed. May be null */
+    private final Queue<ExternalBulkUpdate> freeList;
+
+    /** The node of each update */
+    private VRMLNodeType[] nodes;
+
+    /** The field index of each update */
+    private int[] fields;
+
+    /** The FieldConstants type of the field of each update */
+    private int[] fieldTypes;
+
+    /** Packed values when the kind is FLOAT_VALUES */
+    private float[] floatValues;
+
+    /** Packed values when the kind is DOUBLE_VALUES */
+    private double[] doubleValues;
+
+    /** Packed values when the kind is INT_VALUES */
+    private int[] intValues;
+
+    /** Scratch array used to pass a single SF float update to the node */
+    private float[] floatScratch;
+
+    /** Scratch array used to pass a single SF double update to the node */
+    private double[] doubleScratch;
+
+    /** The kind of value held */
+    private int valueKind;
+
+    /** The number of values per update */
+    private int stride;
+
+    /** The number of updates held */
+    private int numUpdates;
+
+    /** The number of updates applied by the last doEvent */
+    private int numApplied;
+
+    /**
+     * Create a new, empty event.
+     *
+     * @param free The list to return this instance to once processed.
+     *    May be null for no recycling
+     */
+    public ExternalBulkUpdate(Queue<ExternalBulkUpdate> free) {
+        freeList = free;
+
+        nodes = new VRMLNodeType[0];
+        fields = new int[0];
+        fieldTypes = new int[0];
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by ExternalEvent
+    //----------------------------------------------------------
+
+    /**
+     * Write all of the values to the nodes. An update that the node rejects
+     * does not stop the rest from being applied. The first error is thrown
+     * once all of the updates have been attempted.
+     */
+    @Override
+    public void doEvent() {
+        RuntimeException first_error = null;
+        numApplied = 0;
+
+        for(int i = 0; i < numUpdates; i++) {
+            try {
+                switch(valueKind) {
+                    case FLOAT_VALUES:
+                        applyFloat(i);
+                        break;
+
+                    case DOUBLE_VALUES:
+                        applyDouble(i);
+                        break;
+
+                    case INT_VALUES:
+                        applyInt(i);
+                        break;
+                }
+
+                numApplied++;
+            } catch(RuntimeException re) {
+                if(first_error == null)
+                    first_error = re;
+            }
+        }
+
+        if(first_error != null)
+            throw first_error;
+    }
+
+    /**
+     * Bulk updates always replace the whole field value.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isConglomerating() {
+        return false;
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Work out which kind of values are used to write a field type.
+     *
+     * @param fieldType One of the FieldConstants types
+     * @return One of the value kinds or -1 if the type can't be bulk updated
+     */
+    public static int getValueKind(int fieldType) {
+        switch(fieldType) {
+            case FieldConstants.SFFLOAT:
+            case FieldConstants.MFFLOAT:
+            case FieldConstants.SFVEC2F:
+            case FieldConstants.MFVEC2F:
+            case FieldConstants.SFVEC3F:
+            case FieldConstants.MFVEC3F:
+            case FieldConstants.SFVEC4F:
+            case FieldConstants.MFVEC4F:
+            case FieldConstants.SFROTATION:
+            case FieldConstants.MFROTATION:
+            case FieldConstants.SFCOLOR:
+            case FieldConstants.MFCOLOR:
+            case FieldConstants.SFCOLORRGBA:
+            case FieldConstants.MFCOLORRGBA:
+            case FieldConstants.SFMATRIX3F:
+            case FieldConstants.MFMATRIX3F:
+            case FieldConstants.SFMATRIX4F:
+            case FieldConstants.MFMATRIX4F:
+                return FLOAT_VALUES;
+
+            case FieldConstants.SFDOUBLE:
+            case FieldConstants.MFDOUBLE:
+            case FieldConstants.SFTIME:
+            case FieldConstants.MFTIME:
+            case FieldConstants.SFVEC2D:
+            case FieldConstants.MFVEC2D:
+            case FieldConstants.SFVEC3D:
+            case FieldConstants.MFVEC3D:
+            case FieldConstants.SFVEC4D:
+            case FieldConstants.MFVEC4D:
+            case FieldConstants.SFMATRIX3D:
+            case FieldConstants.MFMATRIX3D:
+            case FieldConstants.SFMATRIX4D:
+            case FieldConstants.MFMATRIX4D:
+                return DOUBLE_VALUES;
+
+            case FieldConstants.SFINT32:
+            case FieldConstants.MFINT32:
+            case FieldConstants.SFBOOL:
+            case FieldConstants.MFBOOL:
+                return INT_VALUES;
+
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Check to see if a field type holds multiple values. The stride of an
+     * update to a single valued field must match the field size exactly.
+     *
+     * @param fieldType One of the FieldConstants types
+     * @return true if this is an MF type
+     */
+    public static boolean isMultiValued(int fieldType) {
+        switch(fieldType) {
+            case FieldConstants.MFBOOL:
+            case FieldConstants.MFINT32:
+            case FieldConstants.MFFLOAT:
+            case FieldConstants.MFDOUBLE:
+            case FieldConstants.MFTIME:
+            case FieldConstants.MFVEC2F:
+            case FieldConstants.MFVEC3F:
+            case FieldConstants.MFVEC4F:
+            case FieldConstants.MFVEC2D:
+            case FieldConstants.MFVEC3D:
+            case FieldConstants.MFVEC4D:
+            case FieldConstants.MFROTATION:
+            case FieldConstants.MFCOLOR:
+            case FieldConstants.MFCOLORRGBA:
+            case FieldConstants.MFMATRIX3F:
+            case FieldConstants.MFMATRIX4F:
+            case FieldConstants.MFMATRIX3D:
+            case FieldConstants.MFMATRIX4D:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Load the targets of the updates. Must be called before one of the
+     * value setters.
+     *
+     * @param num The number of updates
+     * @param targets The node of each update
+     * @param fieldIDs The field index of each update
+     * @param types The FieldConstants type of the field of each update
+     */
+    public void setTargets(int num,
+                           VRMLNodeType[] targets,
+                           int[] fieldIDs,
+                           int[] types) {
+        if(nodes.length < num) {
+            nodes = new VRMLNodeType[num];
+            fields = new int[num];
+            fieldTypes = new int[num];
+        }
+
+        System.arraycopy(targets, 0, nodes, 0, num);
+        System.arraycopy(fieldIDs, 0, fields, 0, num);
+        System.arraycopy(types, 0, fieldTypes, 0, num);
+
+        numUpdates = num;
+    }
+
+    /**
+     * Copy in float values for the updates.
+     *
+     * @param values The packed values, stride values per update
+     * @param size The number of values per update
+     */
+    public void setValues(float[] values, int size) {
+        int len = numUpdates * size;
+
+        if(floatValues == null || floatValues.length < len)
+            floatValues = new float[len];
+
+        System.arraycopy(values, 0, floatValues, 0, len);
+
+        valueKind = FLOAT_VALUES;
+        stride = size;
+    }
+
+    /**
+     * Copy in double values for the updates.
+     *
+     * @param values The packed values, stride values per update
+     * @param size The number of values per update
+     */
+    public void setValues(double[] values, int size) {
+        int len = numUpdates * size;
+
+        if(doubleValues == null || doubleValues.length < len)
+            doubleValues = new double[len];
+
+        System.arraycopy(values, 0, doubleValues, 0, len);
+
+        valueKind = DOUBLE_VALUES;
+        stride = size;
+    }
+
+    /**
+     * Copy in int values for the updates.
+     *
+     * @param values The packed values, stride values per update
+     * @param size The number of values per update
+     */
+    public void setValues(int[] values, int size) {
+        int len = numUpdates * size;
+
+        if(intValues == null || intValues.length < len)
+            intValues = new int[len];
+
+        System.arraycopy(values, 0, intValues, 0, len);
+
+        valueKind = INT_VALUES;
+        stride = size;
+    }
+
+    /**
+     * Get the number of updates held.
+     *
+     * @return The update count
+     */
+    public int getUpdateCount() {
+        return numUpdates;
+    }
+
+    /**
+     * Get the number of updates the last call to doEvent applied without
+     * error.
+     *
+     * @return The applied update count
+     */
+    public int getAppliedCount() {
+        return numApplied;
+    }
+
+    /**
+     * Clear the node references and return this instance to its free list.
+     * Must not be used again by the caller after this.
+     */
+    public void release() {
+        for(int i = 0; i < numUpdates; i++)
+            nodes[i] = null;
+
+        numUpdates = 0;
+
+        if(freeList != null)
+            freeList.offer(this);
+    }
+
+    /**
+     * Apply a single update with float values.
+     *
+     * @param idx The index of the update
+     */
+    private void applyFloat(int idx) {
+        int offset = idx * stride;
+
+        if(fieldTypes[idx] == FieldConstants.SFFLOAT) {
+            nodes[idx].setValue(fields[idx], floatValues[offset]);
+            return;
+        }
+
+        float[] data;
+
+        if(isMultiValued(fieldTypes[idx])) {
+            data = new float[stride];
+        } else {
+            if(floatScratch == null || floatScratch.length < stride)
+                floatScratch = new float[stride];
+
+            data = floatScratch;
+        }
+
+        System.arraycopy(floatValues, offset, data, 0, stride);
+        nodes[idx].setValue(fields[idx], data, stride);
+    }
+
+    /**
+     * Apply a single update with double values.
+     *
+     * @param idx The index of the update
+     */
+    private void applyDouble(int idx) {
+        int offset = idx * stride;
+
+        switch(fieldTypes[idx]) {
+            case FieldConstants.SFDOUBLE:
+            case FieldConstants.SFTIME:
+                nodes[idx].setValue(fields[idx], doubleValues[offset]);
+                return;
+        }
+
+        double[] data;
+
+        if(isMultiValued(fieldTypes[idx])) {
+            data = new double[stride];
+        } else {
+            if(doubleScratch == null || doubleScratch.length < stride)
+                doubleScratch = new double[stride];
+
+            data = doubleScratch;
+        }
+
+        System.arraycopy(doubleValues, offset, data, 0, stride);
+        nodes[idx].setValue(fields[idx], data, stride);
+    }
+
+    /**
+     * Apply a single update with int values.
+     *
+     * @param idx The index of the update
+     */
+    private void applyInt(int idx) {
+        int offset = idx * stride;
+
+        switch(fieldTypes[idx]) {
+            case FieldConstants.SFINT32:
+                nodes[idx].setValue(fields[idx], intValues[offset]);
+                return;
+
+            case FieldConstants.SFBOOL:
+                nodes[idx].setValue(fields[idx], intValues[offset] != 0);
+                return;
+
+            case FieldConstants.MFBOOL:
+                boolean[] flags = new boolean[stride];
+
+                for(int i = 0; i < stride; i++)
+                    flags[i] = intValues[offset + i] != 0;
+
+                nodes[idx].setValue(fields[idx], flags, stride);
+                return;
+        }
+
+        int[] data = new int[stride];
+
+        System.arraycopy(intValues, offset, data, 0, stride);
+        nodes[idx].setValue(fields[idx], data, stride);
+    }
+}
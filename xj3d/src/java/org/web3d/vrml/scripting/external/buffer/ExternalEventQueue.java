@@ -107,6 +107,22 @@ public class ExternalEventQueue implements ExternalView, NodeRealizationProcesso
      */
     ObjectArray eventsInProcessing;
 
+    /**
+     * The number of events processed in the last call to processEvents
+     */
+    private volatile int lastFrameEventCount;
+
+    /**
+     * The number of field updates applied from bulk updates in the last call
+     * to processEvents
+     */
+    private volatile int lastFrameBulkUpdateCount;
+
+    /**
+     * The total number of field updates applied from bulk updates
+     */
+    private volatile long totalBulkUpdateCount;
+
     /**
      * Basic constructor.
      *
@@ -289,6 +305,36 @@ public class ExternalEventQueue implements ExternalView, NodeRealizationProcesso
         }
     }
 
+    /**
+     * Get the number of queued events that were processed in the last
+     * frame. A bulk update counts as a single event.
+     *
+     * @return The event count
+     */
+    public int getLastFrameEventCount() {
+        return lastFrameEventCount;
+    }
+
+    /**
+     * Get the number of field updates applied from bulk updates in the last
+     * frame.
+     *
+     * @return The update count
+     */
+    public int getLastFrameBulkUpdateCount() {
+        return lastFrameBulkUpdateCount;
+    }
+
+    /**
+     * Get the total number of field updates applied from bulk updates since
+     * the queue was created.
+     *
+     * @return The update count
+     */
+    public long getTotalBulkUpdateCount() {
+        return totalBulkUpdateCount;
+    }
+
     /**
      * Clear out any held references
      */
@@ -326,6 +372,7 @@ public class ExternalEventQueue implements ExternalView, NodeRealizationProcesso
         }
         //processEvents should be the only code to use eventsInProcessing.
         int i;
+        int bulk_count = 0;
         for (i = 0; i < eventsInProcessing.size(); i++) {
             ExternalEvent event = (ExternalEvent) (eventsInProcessing.get(i));
             try {
@@ -344,8 +391,17 @@ public class ExternalEventQueue implements ExternalView, NodeRealizationProcesso
                 }
 
                 errorReporter.errorReport(msg, e);
+            } finally {
+                if (event instanceof ExternalBulkUpdate) {
+                    ExternalBulkUpdate bulk = (ExternalBulkUpdate) event;
+                    bulk_count += bulk.getAppliedCount();
+                    bulk.release();
+                }
             }
         }
+        lastFrameEventCount = eventsInProcessing.size();
+        lastFrameBulkUpdateCount = bulk_count;
+        totalBulkUpdateCount += bulk_count;
         eventsInProcessing.clear();
     }
 
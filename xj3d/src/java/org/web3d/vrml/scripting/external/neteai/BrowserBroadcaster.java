@@ -100,6 +100,8 @@ public class BrowserBroadcaster {
          */
         BroadcastTask(List<WorkEntry> workList) {
             toDoList = workList;
+            // Don't hold the application open once it has finished
+            setDaemon(true);
         }
 
         /**
@@ -12,6 +12,7 @@
 
 package org.web3d.vrml.scripting.external.neteai;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -27,6 +28,7 @@ import vrml.eai.event.BrowserListener;
 import vrml.eai.event.VrmlEventListener;
 import vrml.eai.field.EventIn;
 import vrml.eai.field.EventOut;
+import vrml.eai.field.InvalidFieldException;
 
 /**
  * ClientProcessingTask is the body of processing loop for
@@ -135,6 +137,18 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
     /** Object to synchronize writing on */
     private final Object writeLock;
 
+    /** The field types of the fields subscribed to coalesced changes */
+    private final IntHashMap<Integer> subscribedTypes;
+
+    /** Buffer the field changes of a frame are read into */
+    private byte[] changeData;
+
+    /** Field value sets collected by beginSetBatch. Null if not batching */
+    private FieldRequestBatch pendingSets;
+
+    /** The thread collecting field value sets */
+    private Thread batchingThread;
+
     ClientProcessingTask(InetAddress addr, int port,
         NetworkStartupListener listener,
         BrowserBroadcaster broadcaster,
@@ -142,6 +156,8 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
 
         remainOpen=true;
         serverConnection=new Socket(addr,port);
+        // Requests are small and each waits for its reply
+        serverConnection.setTcpNoDelay(true);
         blockingTaskTable=new IntHashMap<>();
         readLock=new SuspendedTaskData(0);
         writeLock=new Object();
@@ -150,6 +166,8 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
         eventQueue=queue;
         fieldAndNodeFactory=new DefaultEAIFieldAndNodeFactory(this,eventQueue);
         fieldBroadcaster=new GenericFieldBroadcaster(fieldAndNodeFactory);
+        subscribedTypes=new IntHashMap<>();
+        changeData=new byte[1024];
     }
 
     /** Ask the server to activate browser changed broadcasts */
@@ -591,6 +609,221 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
         }
     }
 
+    /**
+     * Send a batch of requests to the server in a single packet and wait
+     * for all of the replies.  The results are placed in the batch.
+     * @param batch The requests to send
+     */
+    public void processBatch(FieldRequestBatch batch) {
+        int count=batch.size();
+        if (count==0)
+            return;
+        PacketBuffer packet=batch.getPacket();
+        SuspendedTaskData data;
+        synchronized (writeLock) {
+            data=new SuspendedTaskData(NetworkProtocolConstants.BATCH_REQUEST);
+            blockingTaskTable.put(data.getTaskID(),data);
+            packet.setInt(0,data.requestType);
+            packet.setInt(4,data.getTaskID());
+            packet.setInt(8,count);
+            packet.setInt(12,packet.size()-FieldRequestBatch.HEADER_SIZE);
+            try {
+                packet.send(dos);
+            } catch (IOException ioe) {
+                blockingTaskTable.remove(data.getTaskID());
+                markAbortConnection();
+                throw new ConnectionException("Unable to send request.");
+            }
+        }
+        try {
+            data.waitForData();
+        } catch (InterruptedException ie) {
+            throw new ConnectionException("Interrupted waiting for data.");
+        }
+        byte replyData[];
+        try {
+            checkNormalResume(data);
+            dis.readInt();
+            replyData=new byte[dis.readInt()];
+            dis.readFully(replyData);
+            readLock.notifyDataAvailable();
+            blockingTaskTable.remove(data.getTaskID());
+        } catch (IOException ioe) {
+            blockingTaskTable.remove(data.getTaskID());
+            markAbortConnection();
+            readLock.notifyDataAvailable();
+            throw new ConnectionException("Error reading results after resume.");
+        }
+        // The replies are decoded after the reader thread has been released
+        DataInputStream in=new DataInputStream(new ByteArrayInputStream(replyData));
+        try {
+            for (int counter=0; counter<count; counter++) {
+                byte returnType=in.readByte();
+                if (returnType!=NetworkProtocolConstants.RESPONSE_OKAY) {
+                    String exceptionName=in.readUTF();
+                    String exceptionDescription=in.readUTF();
+                    batch.setException(counter,generateException(exceptionName,exceptionDescription));
+                    continue;
+                }
+                switch (batch.getEntryType(counter)) {
+                    case NetworkProtocolConstants.GET_EVENTIN_REQUEST: {
+                        int fieldID=in.readInt();
+                        int fieldType=in.readInt();
+                        batch.setResult(counter,fieldAndNodeFactory.generateEventIn(fieldID,fieldType));
+                    }
+                    break;
+                    case NetworkProtocolConstants.GET_EVENTOUT_REQUEST: {
+                        int fieldID=in.readInt();
+                        int fieldType=in.readInt();
+                        batch.setResult(counter,fieldAndNodeFactory.getEventOut(fieldID,fieldType));
+                    }
+                    break;
+                    case NetworkProtocolConstants.GET_FIELD_VALUE_REQUEST:
+                        batch.setResult(counter,fieldAndNodeFactory.getStoredEventOut(
+                            batch.getFieldID(counter),batch.getFieldType(counter),in));
+                        break;
+                    default:
+                        batch.setResult(counter,null);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new ConnectionException("Malformed batch reply.");
+        }
+    }
+
+    /**
+     * Start collecting the field value sets made by the calling thread
+     * into a single batch rather than sending each one.  Used while the
+     * event queue is flushed at the end of an update.
+     */
+    void beginSetBatch() {
+        if (pendingSets==null)
+            pendingSets=new FieldRequestBatch();
+        batchingThread=Thread.currentThread();
+    }
+
+    /**
+     * Send the field value sets collected since beginSetBatch.  Sets
+     * which failed are reported but do not stop the others.
+     */
+    void endSetBatch() {
+        FieldRequestBatch batch=pendingSets;
+        batchingThread=null;
+        if (batch==null)
+            return;
+        try {
+            processBatch(batch);
+            for (int counter=0; counter<batch.size(); counter++) {
+                RuntimeException e=batch.getException(counter);
+                if (e!=null)
+                    e.printStackTrace(System.err);
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Subscribe to the changes of a set of fields.  Instead of a message
+     * for each change, the server sends the fields which changed during
+     * a frame together, once per frame.  Fields changed to the value they
+     * already had are not sent.  The changes are delivered to the
+     * VrmlEventListeners of the fields.
+     * @param fields The fields to subscribe to
+     * @param numFields The number of fields to use from the array
+     */
+    public void subscribeFields(EventOut fields[], int numFields) {
+        sendSubscription(NetworkProtocolConstants.SUBSCRIBE_FIELDS_REQUEST,fields,numFields);
+    }
+
+    /**
+     * Stop the coalesced changes of a set of fields.
+     * @param fields The fields to unsubscribe from
+     * @param numFields The number of fields to use from the array
+     */
+    public void unsubscribeFields(EventOut fields[], int numFields) {
+        sendSubscription(NetworkProtocolConstants.UNSUBSCRIBE_FIELDS_REQUEST,fields,numFields);
+    }
+
+    /**
+     * Send a subscribe or unsubscribe request.
+     * @param type The request type
+     * @param fields The fields of the request
+     * @param numFields The number of fields to use from the array
+     */
+    private void sendSubscription(int type, EventOut fields[], int numFields) {
+        PacketBuffer packet=new PacketBuffer(12+numFields*4);
+        DataOutputStream out=packet.getOutput();
+        SuspendedTaskData data;
+        synchronized (writeLock) {
+            data=new SuspendedTaskData(type);
+            blockingTaskTable.put(data.getTaskID(),data);
+            try {
+                out.writeInt(data.requestType);
+                out.writeInt(data.getTaskID());
+                out.writeInt(numFields);
+                for (int counter=0; counter<numFields; counter++) {
+                    if (!(fields[counter] instanceof EventWrapper))
+                        throw new InvalidFieldException("Field does not belong to a network browser");
+                    EventWrapper wrapper=(EventWrapper)fields[counter];
+                    out.writeInt(wrapper.getFieldID());
+                    if (type==NetworkProtocolConstants.SUBSCRIBE_FIELDS_REQUEST)
+                        subscribedTypes.put(wrapper.getFieldID(),wrapper.getType());
+                }
+                packet.send(dos);
+            } catch (IOException ioe) {
+                blockingTaskTable.remove(data.getTaskID());
+                markAbortConnection();
+                throw new ConnectionException("Unable to send request.");
+            } catch (RuntimeException re) {
+                blockingTaskTable.remove(data.getTaskID());
+                throw re;
+            }
+        }
+        try {
+            data.waitForData();
+        } catch (InterruptedException ie) {
+            throw new ConnectionException("Interrupted waiting for data.");
+        }
+        try {
+            checkNormalResume(data);
+            readLock.notifyDataAvailable();
+            blockingTaskTable.remove(data.getTaskID());
+        } catch (IOException ioe) {
+            blockingTaskTable.remove(data.getTaskID());
+            markAbortConnection();
+            readLock.notifyDataAvailable();
+            throw new ConnectionException("Error reading results after resume.");
+        }
+        if (type==NetworkProtocolConstants.UNSUBSCRIBE_FIELDS_REQUEST) {
+            for (int counter=0; counter<numFields; counter++)
+                subscribedTypes.remove(((EventWrapper)fields[counter]).getFieldID());
+        }
+    }
+
+    /**
+     * Read a frame of field changes from the server and pass each one to
+     * the field broadcaster.  Called by the reading thread.
+     * @throws IOException Error reading from the server
+     */
+    private void readFieldChanges() throws IOException {
+        double timestamp=dis.readDouble();
+        int count=dis.readInt();
+        int length=dis.readInt();
+        if (changeData.length<length)
+            changeData=new byte[length];
+        dis.readFully(changeData,0,length);
+        DataInputStream in=new DataInputStream(new ByteArrayInputStream(changeData,0,length));
+        for (int counter=0; counter<count; counter++) {
+            int fieldID=in.readInt();
+            Integer fieldType=subscribedTypes.get(fieldID);
+            // Without the type the rest of the frame can't be read
+            if (fieldType==null)
+                return;
+            fieldBroadcaster.generateFieldBroadcast(fieldID,fieldType,timestamp,in);
+        }
+    }
+
     /** Ugly utility method for generating nodeID's.*/
     synchronized int getNextTaskID() {
         nextTaskID++;
@@ -939,9 +1172,11 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
                             case NetworkProtocolConstants.REPLACE_WORLD_REPLY:
                             case NetworkProtocolConstants.SET_DESCRIPTION_REPLY:
                             case NetworkProtocolConstants.SET_FIELD_VALUE_REPLY:
+                            case NetworkProtocolConstants.BATCH_REPLY:
+                            case NetworkProtocolConstants.SUBSCRIBE_FIELDS_REPLY:
+                            case NetworkProtocolConstants.UNSUBSCRIBE_FIELDS_REPLY:
                                 {
                                     taskID=dis.readInt();
-                                    System.out.println("Client reading packet type "+packetType+" ID"+taskID);
                                     SuspendedTaskData task=blockingTaskTable.get(taskID);
                                     try {
                                         task.notifyDataAvailable();
@@ -953,10 +1188,11 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
                                 }
                                 break;
                             case NetworkProtocolConstants.EVENTOUT_CHANGED_BROADCAST:
-                                System.out.println("EventOutChanged received.");
                                 int fieldID=dis.readInt();
                                 fieldBroadcaster.generateFieldBroadcast(fieldID,dis);
-                                System.out.println("Done with eventOutChanged.");
+                                break;
+                            case NetworkProtocolConstants.FIELD_CHANGES_BROADCAST:
+                                readFieldChanges();
                                 break;
                             case NetworkProtocolConstants.BROWSER_CHANGED_BROADCAST: {
                                 System.out.println("BrowserChanged received.");
@@ -968,7 +1204,6 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
                                 System.err.println("Unknown packet type "+packetType+" on client.");
                                 break;
                         }
-                        System.out.println("Client finished reading packet of type "+packetType+" ID"+taskID);
                     }
                 }
             } finally {
@@ -985,6 +1220,14 @@ public class ClientProcessingTask implements Runnable, FieldAndNodeRequestProces
 
     @Override
     public void setFieldValue(int fieldID, EventWrapper buffer) {
+        if (pendingSets!=null && Thread.currentThread()==batchingThread) {
+            try {
+                pendingSets.addSetFieldValue(buffer);
+            } catch (IOException ioe) {
+                throw new ConnectionException("Unable to buffer request.");
+            }
+            return;
+        }
         SuspendedTaskData data;
         synchronized (writeLock) {
             data=new SuspendedTaskData(NetworkProtocolConstants.SET_FIELD_VALUE_REQUEST);
@@ -68,6 +68,7 @@ public class EventOutMFVec3fWrapper extends EventOutMFVec3f
     ) throws IOException {
         this(fieldID,requestProcessor);
         loadFieldValue(source);
+        hasStoredValue=true;
     }
 
     /** Two fields are equal if they point to the same actual node and 
@@ -66,6 +66,7 @@ public class EventOutSFBoolWrapper extends EventOutSFBool
     ) throws IOException {
         this(fieldID,requestProcessor);
         loadFieldValue(source);
+        hasStoredValue=true;
     }
 
     /** Two fields are equal if they point to the same actual node and
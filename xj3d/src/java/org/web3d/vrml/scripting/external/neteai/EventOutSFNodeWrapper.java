@@ -74,6 +74,7 @@ public class EventOutSFNodeWrapper extends EventOutSFNode
     ) throws IOException {
         this(fieldID,requestProcessor,factory);
         loadFieldValue(source);
+        hasStoredValue=true;
     }
 
     /** Two fields are equal if they point to the same actual node and 
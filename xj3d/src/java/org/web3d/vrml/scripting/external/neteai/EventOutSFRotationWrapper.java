@@ -67,6 +67,7 @@ public class EventOutSFRotationWrapper extends EventOutSFRotation
         DataInputStream source) throws IOException {
         this(fieldID,requestProcessor);
         loadFieldValue(source);
+        hasStoredValue=true;
     }
 
     /** Two fields are equal if they point to the same actual node and 
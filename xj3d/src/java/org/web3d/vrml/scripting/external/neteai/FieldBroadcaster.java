@@ -34,6 +34,20 @@ public interface FieldBroadcaster {
      */
     void generateFieldBroadcast(int fieldID, DataInputStream dis) throws IOException;
 
+    /**
+     * Generate the broadcast of a field changed event for a field whose
+     * type and time stamp are already known, as when several changes
+     * arrive together.  The field value is read even if the field has no
+     * listeners.
+     * @param fieldID The network ID of the field which changed
+     * @param fieldType The type of the field
+     * @param timestamp The time of the change
+     * @param dis The input stream to read the field value from
+     * @throws java.io.IOException
+     */
+    void generateFieldBroadcast(int fieldID, int fieldType, double timestamp,
+        DataInputStream dis) throws IOException;
+
     /**
      * Remove a listener for a given field ID
      * @param fieldID The network field ID to remove a listener from
@@ -0,0 +1,319 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.neteai;
+
+// External imports
+import org.j3d.util.IntHashMap;
+
+// Local imports
+import org.web3d.vrml.nodes.VRMLNodeType;
+
+/**
+ * Server side record of the subscribed fields of a connection and of
+ * which of them have changed since the last frame.
+ * <p>
+ *
+ * A field that changes several times in a frame is only recorded once.
+ * When the frame is sent, the encoded value of each changed field is
+ * compared with the last value sent for it so that fields which were set
+ * to the value they already had are left out.
+ * <p>
+ *
+ * All methods are synchronized. Changes are marked from whichever thread
+ * sets the field while subscriptions arrive on the connection thread.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class FieldChangeCoalescer {
+
+    /** Details of one subscribed field */
+    private static class Subscription {
+
+        /** The network ID of the field */
+        final int fieldID;
+
+        /** The node holding the field */
+        final VRMLNodeType node;
+
+        /** The index of the field on the node */
+        final int fieldIndex;
+
+        /** Has the field changed since the last frame was sent */
+        boolean dirty;
+
+        /** The encoded value last sent. Null if never sent */
+        byte[] lastValue;
+
+        /** The number of valid bytes in lastValue */
+        int lastLength;
+
+        /**
+         * Create a new subscription record.
+         */
+        Subscription(int id, VRMLNodeType n, int index) {
+            fieldID = id;
+            node = n;
+            fieldIndex = index;
+        }
+    }
+
+    /** Map of network field ID to its subscription */
+    private final IntHashMap<Subscription> subscriptions;
+
+    /** The subscriptions that have changed since the last frame */
+    private Subscription[] dirtyFields;
+
+    /** The number of valid entries in dirtyFields */
+    private int numDirty;
+
+    /** The number of frames that had changes to send */
+    private long frameCount;
+
+    /** The number of field values sent */
+    private long sentCount;
+
+    /** The number of changes folded into one already marked */
+    private long coalescedCount;
+
+    /** The number of changes not sent because the value was the same */
+    private long suppressedCount;
+
+    /**
+     * Create a new, empty coalescer.
+     */
+    FieldChangeCoalescer() {
+        subscriptions = new IntHashMap<>();
+        dirtyFields = new Subscription[16];
+    }
+
+    /**
+     * Subscribe to a field. Subscribing to a field twice has no effect.
+     *
+     * @param fieldID The network ID of the field
+     * @param node The node holding the field
+     * @param fieldIndex The index of the field on the node
+     */
+    synchronized void subscribe(int fieldID, VRMLNodeType node, int fieldIndex) {
+        if(subscriptions.containsKey(fieldID))
+            return;
+
+        subscriptions.put(fieldID, new Subscription(fieldID, node, fieldIndex));
+    }
+
+    /**
+     * Remove the subscription of a field. A pending change of the field is
+     * dropped.
+     *
+     * @param fieldID The network ID of the field
+     * @return true if the field was subscribed
+     */
+    synchronized boolean unsubscribe(int fieldID) {
+        Subscription sub = subscriptions.remove(fieldID);
+
+        if(sub == null)
+            return false;
+
+        if(sub.dirty) {
+            for(int i = 0; i < numDirty; i++) {
+                if(dirtyFields[i] == sub) {
+                    System.arraycopy(dirtyFields, i + 1, dirtyFields, i, numDirty - i - 1);
+                    dirtyFields[--numDirty] = null;
+                    break;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Check to see if a field is subscribed.
+     *
+     * @param fieldID The network ID of the field
+     * @return true if the field is subscribed
+     */
+    synchronized boolean isSubscribed(int fieldID) {
+        return subscriptions.containsKey(fieldID);
+    }
+
+    /**
+     * Check to see if there are any subscriptions.
+     *
+     * @return true if no fields are subscribed
+     */
+    synchronized boolean isEmpty() {
+        return subscriptions.isEmpty();
+    }
+
+    /**
+     * Note that a field has changed.
+     *
+     * @param fieldID The network ID of the field
+     * @return true if the field is subscribed and so should not be
+     *    broadcast individually
+     */
+    synchronized boolean fieldChanged(int fieldID) {
+        Subscription sub = subscriptions.get(fieldID);
+
+        if(sub == null)
+            return false;
+
+        if(sub.dirty) {
+            coalescedCount++;
+            return true;
+        }
+
+        if(numDirty == dirtyFields.length) {
+            Subscription[] tmp = new Subscription[numDirty * 2];
+            System.arraycopy(dirtyFields, 0, tmp, 0, numDirty);
+            dirtyFields = tmp;
+        }
+
+        sub.dirty = true;
+        dirtyFields[numDirty++] = sub;
+
+        return true;
+    }
+
+    /**
+     * Get the number of fields changed since the last frame.
+     *
+     * @return The changed field count
+     */
+    synchronized int getDirtyCount() {
+        return numDirty;
+    }
+
+    /**
+     * Get the network ID of a changed field.
+     *
+     * @param idx The index of the field, less than getDirtyCount
+     * @return The network field ID
+     */
+    synchronized int getDirtyFieldID(int idx) {
+        return dirtyFields[idx].fieldID;
+    }
+
+    /**
+     * Get the node of a changed field.
+     *
+     * @param idx The index of the field, less than getDirtyCount
+     * @return The node holding the field
+     */
+    synchronized VRMLNodeType getDirtyNode(int idx) {
+        return dirtyFields[idx].node;
+    }
+
+    /**
+     * Get the index on its node of a changed field.
+     *
+     * @param idx The index of the field, less than getDirtyCount
+     * @return The field index on the node
+     */
+    synchronized int getDirtyFieldIndex(int idx) {
+        return dirtyFields[idx].fieldIndex;
+    }
+
+    /**
+     * Compare the encoded value of a changed field with the last value sent
+     * for it. If different, the value is kept as the last sent.
+     *
+     * @param idx The index of the field, less than getDirtyCount
+     * @param value The array holding the encoded value
+     * @param offset The offset of the value in the array
+     * @param length The number of bytes in the value
+     * @return true if the value differs and should be sent
+     */
+    synchronized boolean checkValueChanged(int idx,
+                                           byte[] value,
+                                           int offset,
+                                           int length) {
+        Subscription sub = dirtyFields[idx];
+
+        if(sub.lastValue != null && sub.lastLength == length) {
+            boolean same = true;
+            for(int i = 0; i < length && same; i++)
+                same = sub.lastValue[i] == value[offset + i];
+
+            if(same) {
+                suppressedCount++;
+                return false;
+            }
+        }
+
+        if(sub.lastValue == null || sub.lastValue.length < length)
+            sub.lastValue = new byte[length];
+
+        System.arraycopy(value, offset, sub.lastValue, 0, length);
+        sub.lastLength = length;
+        sentCount++;
+
+        return true;
+    }
+
+    /**
+     * Clear the changed fields once the frame has been sent.
+     *
+     * @param sent true if the frame had any values to send
+     */
+    synchronized void endFrame(boolean sent) {
+        for(int i = 0; i < numDirty; i++) {
+            dirtyFields[i].dirty = false;
+            dirtyFields[i] = null;
+        }
+
+        numDirty = 0;
+
+        if(sent)
+            frameCount++;
+    }
+
+    /**
+     * Get the number of frames that had changes to send.
+     *
+     * @return The frame count
+     */
+    synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Get the number of field values sent.
+     *
+     * @return The sent value count
+     */
+    synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Get the number of changes that were folded into a change already
+     * waiting to be sent.
+     *
+     * @return The coalesced change count
+     */
+    synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Get the number of changes not sent because the value was the same as
+     * the last one sent.
+     *
+     * @return The suppressed change count
+     */
+    synchronized long getSuppressedCount() {
+        return suppressedCount;
+    }
+}
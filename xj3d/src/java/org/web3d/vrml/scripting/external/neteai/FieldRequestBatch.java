@@ -0,0 +1,372 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.neteai;
+
+// External imports
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Local imports
+import vrml.eai.Node;
+import vrml.eai.field.EventIn;
+import vrml.eai.field.EventOut;
+
+/**
+ * A set of field requests sent to the server as a single packet.
+ * <p>
+ *
+ * Each request normally costs a network round trip. A client that needs to
+ * look up or read many fields at once, such as a dashboard starting up,
+ * adds them all to a batch and sends it with
+ * {@link NetworkBrowserClient#processBatch(FieldRequestBatch)}. The results
+ * are then fetched by the index returned when the request was added. A
+ * request that fails does not stop the others, its exception being held in
+ * place of the result.
+ * <p>
+ *
+ * A batch may be cleared and reused. It must not be used by more than one
+ * thread at a time.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class FieldRequestBatch {
+
+    /** Room left at the start of the packet for the header */
+    static final int HEADER_SIZE = 16;
+
+    /** Initial size of the packet buffer */
+    private static final int PACKET_BUFFER_SIZE = 1024;
+
+    /** Message when a field did not come from a network browser */
+    private static final String NOT_NETWORK_FIELD_MSG =
+        "Field does not belong to a network browser";
+
+    /** Message when a node did not come from a network browser */
+    private static final String NOT_NETWORK_NODE_MSG =
+        "Node does not belong to a network browser";
+
+    /** Message when asking for the wrong kind of result */
+    private static final String WRONG_RESULT_MSG =
+        "Request does not have a result of that kind: ";
+
+    /** The encoded requests, after the header space */
+    private final PacketBuffer packet;
+
+    /** The request type of each entry */
+    private int[] entryTypes;
+
+    /** The network field ID of each field value entry */
+    private int[] fieldIDs;
+
+    /** The field type of each field value entry */
+    private int[] fieldTypes;
+
+    /** The result of each entry, once processed */
+    private Object[] results;
+
+    /** The exception of each failed entry, once processed */
+    private RuntimeException[] exceptions;
+
+    /** The number of entries */
+    private int numEntries;
+
+    /**
+     * Create a new, empty batch.
+     */
+    public FieldRequestBatch() {
+        packet = new PacketBuffer(PACKET_BUFFER_SIZE);
+        entryTypes = new int[16];
+        fieldIDs = new int[16];
+        fieldTypes = new int[16];
+        results = new Object[16];
+        exceptions = new RuntimeException[16];
+
+        clear();
+    }
+
+    /**
+     * Add a request for an eventIn of a node. The result is an EventIn.
+     *
+     * @param node The node to get the field of
+     * @param fieldName The name of the field
+     * @return The index of the request
+     * @throws IllegalArgumentException The node is not from a network browser
+     */
+    public int addGetEventIn(Node node, String fieldName) {
+        return addFieldRequest(NetworkProtocolConstants.GET_EVENTIN_REQUEST,
+                               node,
+                               fieldName);
+    }
+
+    /**
+     * Add a request for an eventOut of a node. The result is an EventOut.
+     *
+     * @param node The node to get the field of
+     * @param fieldName The name of the field
+     * @return The index of the request
+     * @throws IllegalArgumentException The node is not from a network browser
+     */
+    public int addGetEventOut(Node node, String fieldName) {
+        return addFieldRequest(NetworkProtocolConstants.GET_EVENTOUT_REQUEST,
+                               node,
+                               fieldName);
+    }
+
+    /**
+     * Add a request for the current value of a field. The result is an
+     * EventOut of the same type holding the value at the time the batch was
+     * processed.
+     *
+     * @param field The field to read
+     * @return The index of the request
+     * @throws IllegalArgumentException The field is not from a network browser
+     */
+    public int addGetFieldValue(EventOut field) {
+        if(!(field instanceof EventWrapper))
+            throw new IllegalArgumentException(NOT_NETWORK_FIELD_MSG);
+
+        EventWrapper wrapper = (EventWrapper)field;
+        int idx = addEntry(NetworkProtocolConstants.GET_FIELD_VALUE_REQUEST);
+        fieldIDs[idx] = wrapper.getFieldID();
+        fieldTypes[idx] = wrapper.getType();
+
+        try {
+            DataOutputStream out = packet.getOutput();
+            out.writeInt(NetworkProtocolConstants.GET_FIELD_VALUE_REQUEST);
+            out.writeInt(wrapper.getFieldID());
+        } catch(IOException ioe) {
+            // Can't happen writing to memory
+        }
+
+        return idx;
+    }
+
+    /**
+     * Get the number of requests in the batch.
+     *
+     * @return The request count
+     */
+    public int size() {
+        return numEntries;
+    }
+
+    /**
+     * Remove all of the requests and results.
+     */
+    public void clear() {
+        for(int i = 0; i < numEntries; i++) {
+            results[i] = null;
+            exceptions[i] = null;
+        }
+
+        numEntries = 0;
+        packet.reset();
+
+        // Leave room for the header, filled in when sent
+        packet.write(new byte[HEADER_SIZE], 0, HEADER_SIZE);
+    }
+
+    /**
+     * Get the eventIn fetched by a request.
+     *
+     * @param idx The index of the request
+     * @return The field
+     * @throws IllegalArgumentException The request was not for an eventIn
+     * @throws RuntimeException The exception the request failed with
+     */
+    public EventIn getEventIn(int idx) {
+        if(entryTypes[idx] != NetworkProtocolConstants.GET_EVENTIN_REQUEST)
+            throw new IllegalArgumentException(WRONG_RESULT_MSG + idx);
+
+        if(exceptions[idx] != null)
+            throw exceptions[idx];
+
+        return (EventIn)results[idx];
+    }
+
+    /**
+     * Get the eventOut fetched by a request, or the value read by a field
+     * value request.
+     *
+     * @param idx The index of the request
+     * @return The field
+     * @throws IllegalArgumentException The request has no EventOut result
+     * @throws RuntimeException The exception the request failed with
+     */
+    public EventOut getEventOut(int idx) {
+        if(entryTypes[idx] != NetworkProtocolConstants.GET_EVENTOUT_REQUEST &&
+           entryTypes[idx] != NetworkProtocolConstants.GET_FIELD_VALUE_REQUEST)
+            throw new IllegalArgumentException(WRONG_RESULT_MSG + idx);
+
+        if(exceptions[idx] != null)
+            throw exceptions[idx];
+
+        return (EventOut)results[idx];
+    }
+
+    /**
+     * Get the exception a request failed with.
+     *
+     * @param idx The index of the request
+     * @return The exception or null if the request succeeded
+     */
+    public RuntimeException getException(int idx) {
+        return exceptions[idx];
+    }
+
+    //----------------------------------------------------------
+    // Package private methods
+    //----------------------------------------------------------
+
+    /**
+     * Add a request to set the value of a field to the value held by the
+     * field wrapper.
+     *
+     * @param field The field holding the value to send
+     * @return The index of the request
+     */
+    int addSetFieldValue(EventWrapper field) throws IOException {
+        int idx = addEntry(NetworkProtocolConstants.SET_FIELD_VALUE_REQUEST);
+
+        DataOutputStream out = packet.getOutput();
+        out.writeInt(NetworkProtocolConstants.SET_FIELD_VALUE_REQUEST);
+        out.writeInt(field.getFieldID());
+
+        // Length of the value, filled in once written
+        int length_pos = packet.size();
+        out.writeInt(0);
+        field.writeFieldValue(out);
+        packet.setInt(length_pos, packet.size() - length_pos - 4);
+
+        return idx;
+    }
+
+    /**
+     * Get the packet holding the requests with room for the header at the
+     * start.
+     *
+     * @return The request packet
+     */
+    PacketBuffer getPacket() {
+        return packet;
+    }
+
+    /**
+     * Get the request type of an entry.
+     *
+     * @param idx The index of the request
+     * @return One of the NetworkProtocolConstants request types
+     */
+    int getEntryType(int idx) {
+        return entryTypes[idx];
+    }
+
+    /**
+     * Get the network field ID of a field value request.
+     *
+     * @param idx The index of the request
+     * @return The network ID of the field
+     */
+    int getFieldID(int idx) {
+        return fieldIDs[idx];
+    }
+
+    /**
+     * Get the field type of a field value request.
+     *
+     * @param idx The index of the request
+     * @return The BaseField type of the field
+     */
+    int getFieldType(int idx) {
+        return fieldTypes[idx];
+    }
+
+    /**
+     * Set the result of a request.
+     *
+     * @param idx The index of the request
+     * @param result The result
+     */
+    void setResult(int idx, Object result) {
+        results[idx] = result;
+        exceptions[idx] = null;
+    }
+
+    /**
+     * Set the exception a request failed with.
+     *
+     * @param idx The index of the request
+     * @param e The exception
+     */
+    void setException(int idx, RuntimeException e) {
+        results[idx] = null;
+        exceptions[idx] = e;
+    }
+
+    /**
+     * Add a request for a field of a node.
+     */
+    private int addFieldRequest(int type, Node node, String fieldName) {
+        if(!(node instanceof NetEAINode))
+            throw new IllegalArgumentException(NOT_NETWORK_NODE_MSG);
+
+        int idx = addEntry(type);
+
+        try {
+            DataOutputStream out = packet.getOutput();
+            out.writeInt(type);
+            out.writeInt(((NetEAINode)node).nodeID);
+            out.writeUTF(fieldName);
+        } catch(IOException ioe) {
+            // Can't happen writing to memory
+        }
+
+        return idx;
+    }
+
+    /**
+     * Make room for another entry.
+     *
+     * @param type The request type of the entry
+     * @return The index of the entry
+     */
+    private int addEntry(int type) {
+        if(numEntries == entryTypes.length) {
+            int size = numEntries * 2;
+
+            int[] tmp = new int[size];
+            System.arraycopy(entryTypes, 0, tmp, 0, numEntries);
+            entryTypes = tmp;
+
+            tmp = new int[size];
+            System.arraycopy(fieldIDs, 0, tmp, 0, numEntries);
+            fieldIDs = tmp;
+
+            tmp = new int[size];
+            System.arraycopy(fieldTypes, 0, tmp, 0, numEntries);
+            fieldTypes = tmp;
+
+            Object[] tmp_results = new Object[size];
+            System.arraycopy(results, 0, tmp_results, 0, numEntries);
+            results = tmp_results;
+
+            RuntimeException[] tmp_ex = new RuntimeException[size];
+            System.arraycopy(exceptions, 0, tmp_ex, 0, numEntries);
+            exceptions = tmp_ex;
+        }
+
+        entryTypes[numEntries] = type;
+        return numEntries++;
+    }
+}
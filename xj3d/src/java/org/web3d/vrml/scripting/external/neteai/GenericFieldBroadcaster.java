@@ -66,6 +66,13 @@ public class GenericFieldBroadcaster implements FieldBroadcaster {
         //System.out.println("Broadcast for fieldID"+fieldID);
         int fieldType=typeTable.get(fieldID);
         double timestamp=dis.readDouble();
+        generateFieldBroadcast(fieldID,fieldType,timestamp,dis);
+    }
+
+    @Override
+    public synchronized void generateFieldBroadcast(int fieldID, int fieldType,
+        double timestamp, DataInputStream dis) throws IOException {
+
         EventOut field=fieldFactory.getStoredEventOut(fieldID,fieldType,dis);
 
         // Generate the broadcast.
@@ -156,6 +163,8 @@ public class GenericFieldBroadcaster implements FieldBroadcaster {
          */
         BroadcastTask(List<ToDoEntry> workList) {
             toDoList=workList;
+            // Don't hold the application open once it has finished
+            setDaemon(true);
         }
 
         /** * @see java.lang.Thread#run()  */
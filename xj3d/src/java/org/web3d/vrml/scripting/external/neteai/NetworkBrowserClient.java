@@ -25,6 +25,7 @@ import vrml.eai.InvalidVrmlException;
 import vrml.eai.Node;
 import vrml.eai.URLUnavailableException;
 import vrml.eai.event.BrowserListener;
+import vrml.eai.field.EventOut;
 import vrml.eai.field.InvalidEventInException;
 import vrml.eai.field.InvalidEventOutException;
 
@@ -282,7 +283,13 @@ public class NetworkBrowserClient implements Browser, NetworkStartupListener {
         if (requestProcessor == null) {
             throw new InvalidBrowserException(DISPOSED_BROWSER_MESSAGE);
         }
-        eventQueue.endUpdate();
+        // The sets queued since beginUpdate all go in one packet
+        requestProcessor.beginSetBatch();
+        try {
+            eventQueue.endUpdate();
+        } finally {
+            requestProcessor.endSetBatch();
+        }
     }
 
     /**
@@ -321,6 +328,51 @@ public class NetworkBrowserClient implements Browser, NetworkStartupListener {
         requestProcessor = null;
     }
 
+    /**
+     * Send a set of field requests to the server in a single packet and
+     * wait for all of the replies.
+     *
+     * @param batch The requests to send. The results are placed here
+     * @throws InvalidBrowserException The browser has been disposed
+     */
+    public void processBatch(FieldRequestBatch batch) throws InvalidBrowserException {
+        if (requestProcessor == null) {
+            throw new InvalidBrowserException(DISPOSED_BROWSER_MESSAGE);
+        }
+        requestProcessor.processBatch(batch);
+    }
+
+    /**
+     * Subscribe to the changes of a set of fields. The server sends the
+     * fields that changed during a frame together, once per frame, leaving
+     * out those set to the value they already had. Changes are delivered to
+     * the VrmlEventListeners of the fields.
+     *
+     * @param fields The fields to subscribe to
+     * @param numFields The number of fields to use from the array
+     * @throws InvalidBrowserException The browser has been disposed
+     */
+    public void subscribeFields(EventOut[] fields, int numFields) throws InvalidBrowserException {
+        if (requestProcessor == null) {
+            throw new InvalidBrowserException(DISPOSED_BROWSER_MESSAGE);
+        }
+        requestProcessor.subscribeFields(fields, numFields);
+    }
+
+    /**
+     * Stop the coalesced changes of a set of fields.
+     *
+     * @param fields The fields to unsubscribe from
+     * @param numFields The number of fields to use from the array
+     * @throws InvalidBrowserException The browser has been disposed
+     */
+    public void unsubscribeFields(EventOut[] fields, int numFields) throws InvalidBrowserException {
+        if (requestProcessor == null) {
+            throw new InvalidBrowserException(DISPOSED_BROWSER_MESSAGE);
+        }
+        requestProcessor.unsubscribeFields(fields, numFields);
+    }
+
     /**
      * * @see
      * org.web3d.vrml.scripting.external.neteai.NetworkStartupListener#notifyNetworkInitializationComplete()
@@ -56,6 +56,23 @@ package org.web3d.vrml.scripting.external.neteai;
  * Strings are transmitted using the readUTF and writeUTF methods.
  * All other field types (int, float, etc.) use the appropriate
  * read and write methods on the data input/output stream.
+ *
+ * Batched requests carry several of the field requests in one packet.
+ * The PACKET_DATA of a BATCH_REQUEST is the entry count, the byte length
+ * of the entries and then the entries, each being the request type of a
+ * single request followed by its PACKET_DATA. The value of a
+ * SET_FIELD_VALUE_REQUEST entry is preceded by its byte length so that the
+ * server can step over a value it could not use. The BATCH_REPLY uses the
+ * same layout with each entry being the RESPONSE_TYPE and reply data of
+ * that request. The length lets each side move a whole batch with a
+ * single read or write.
+ *
+ * Subscribed fields are not broadcast as they change. The server notes
+ * which have changed and once per frame sends a single
+ * FIELD_CHANGES_BROADCAST holding the time stamp, the field count, the
+ * byte length and then the field ID and value of each field. A field that
+ * changed several times in the frame is sent once, and one whose value is
+ * the same as the last one sent is not sent at all.
  */
 public abstract class NetworkProtocolConstants {
 
@@ -229,6 +246,28 @@ public abstract class NetworkProtocolConstants {
      *  a BrowserListener event */
     static final int BROWSER_CHANGED_BROADCAST = 80;
 
+    /** Request from client to server holding several field requests */
+    static final int BATCH_REQUEST = 90;
+
+    /** Response from server to client holding the replies of a batch */
+    static final int BATCH_REPLY = 91;
+
+    /** Request from client to server to send coalesced changes of fields */
+    static final int SUBSCRIBE_FIELDS_REQUEST = 92;
+
+    /** Response from server to client about a field subscription */
+    static final int SUBSCRIBE_FIELDS_REPLY = 93;
+
+    /** Request from client to server to stop sending changes of fields */
+    static final int UNSUBSCRIBE_FIELDS_REQUEST = 94;
+
+    /** Response from server to client about ending a field subscription */
+    static final int UNSUBSCRIBE_FIELDS_REPLY = 95;
+
+    /** Notification from server to client of the subscribed fields which
+     *  changed value in the last frame. */
+    static final int FIELD_CHANGES_BROADCAST = 100;
+
     /** Response type byte for a request which completed without error */
     static final byte RESPONSE_OKAY = 0;
 
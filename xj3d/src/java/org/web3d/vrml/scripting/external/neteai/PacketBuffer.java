@@ -0,0 +1,105 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.neteai;
+
+// External imports
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Local imports
+// None
+
+/**
+ * Reusable buffer that a whole packet is written into before being sent
+ * with a single write.
+ * <p>
+ *
+ * The batch and field change packets carry their entry count and byte
+ * length ahead of the entries. Those are not known until the entries have
+ * been written, so space is left for them and they are filled in
+ * afterwards with {@link #setInt(int, int)}. The buffer can also be wound
+ * back to drop an entry that turned out not to be needed.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class PacketBuffer extends ByteArrayOutputStream {
+
+    /** Data stream writing into this buffer */
+    private final DataOutputStream output;
+
+    /**
+     * Create a new buffer of the given starting size.
+     *
+     * @param size The initial capacity in bytes
+     */
+    PacketBuffer(int size) {
+        super(size);
+
+        output = new DataOutputStream(this);
+    }
+
+    /**
+     * Get the data stream that writes into this buffer.
+     *
+     * @return The stream for this buffer
+     */
+    DataOutputStream getOutput() {
+        return output;
+    }
+
+    /**
+     * Get the backing array. Only the first {@link #size()} bytes are valid.
+     *
+     * @return The current backing array
+     */
+    byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * Drop everything written after the given position.
+     *
+     * @param position The number of bytes to keep
+     */
+    void truncate(int position) {
+        count = position;
+    }
+
+    /**
+     * Overwrite a big-endian int at the given position, as written by
+     * DataOutputStream.writeInt.
+     *
+     * @param position The byte offset of the int
+     * @param value The value to write
+     */
+    void setInt(int position, int value) {
+        buf[position] = (byte)(value >>> 24);
+        buf[position + 1] = (byte)(value >>> 16);
+        buf[position + 2] = (byte)(value >>> 8);
+        buf[position + 3] = (byte)value;
+    }
+
+    /**
+     * Send the contents to a stream with one write and flush it.
+     *
+     * @param out The stream to send to
+     * @throws IOException The write failed
+     */
+    void send(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+        out.flush();
+    }
+}
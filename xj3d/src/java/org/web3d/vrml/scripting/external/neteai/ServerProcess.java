@@ -50,6 +50,7 @@ public class ServerProcess implements Runnable {
 		while (true) {
 			try {
 				Socket client=serverConnection.accept();
+				client.setTcpNoDelay(true);
 				ServerProcessingTask processor=new ServerProcessingTask(client, serverBrowserFactory.createBrowserInstance(), timeClock);
 				new Thread(processor).start();
 			} catch (IOException e) {
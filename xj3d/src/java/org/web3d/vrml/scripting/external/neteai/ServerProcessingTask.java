@@ -11,16 +11,19 @@
  **************************************************************************** */
 package org.web3d.vrml.scripting.external.neteai;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
 
+import org.j3d.util.IntHashMap;
 import org.web3d.browser.BrowserCoreListener;
 import org.web3d.vrml.nodes.VRMLClock;
 import org.web3d.vrml.nodes.VRMLFieldData;
 import org.web3d.vrml.nodes.VRMLNodeType;
 import org.web3d.vrml.nodes.VRMLScene;
+import org.web3d.vrml.nodes.VRMLTimeListener;
 import vrml.eai.event.BrowserEvent;
 import vrml.eai.field.BaseField;
 import vrml.eai.field.InvalidFieldException;
@@ -33,8 +36,15 @@ import vrml.eai.InvalidVrmlException;
 /**
  * ServerProcessingTask is the runnable which embodies the read and processing
  * loop for an individual connection.
+ *
+ * Changes to subscribed fields are collected as they happen and sent as
+ * a single packet on each tick of the clock.
  */
-class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChangeTransmitter {
+class ServerProcessingTask implements Runnable, BrowserCoreListener,
+    FieldChangeTransmitter, VRMLTimeListener {
+
+    /** Initial size of the packet buffers */
+    private static final int PACKET_BUFFER_SIZE = 4096;
 
     /**
      * The clock for generating time stamps
@@ -67,6 +77,24 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
      */
     DataOutputStream dos;
 
+    /** The subscribed fields and their changes since the last frame */
+    final FieldChangeCoalescer fieldChanges;
+
+    /** The fields with individual change broadcasts turned on */
+    private final IntHashMap<ServerProcessingTask> listenedFields;
+
+    /** Buffer the reply to a batch is built in */
+    private final PacketBuffer batchReply;
+
+    /** Buffer the field changes of a frame are built in */
+    private final PacketBuffer changePacket;
+
+    /** Buffer the entries of a batch are read into */
+    private byte[] batchData;
+
+    /** Is this listening to the clock for sending field changes */
+    private boolean clockListening;
+
     /**
      * Create a new instance to deal with a specified connection
      *
@@ -80,6 +108,11 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
         theServerBrowser.setCoreListener(ServerProcessingTask.this);
         theServerBrowser.setFieldChangeTransmitter(ServerProcessingTask.this);
         timeClock = clock;
+        fieldChanges = new FieldChangeCoalescer();
+        listenedFields = new IntHashMap<>();
+        batchReply = new PacketBuffer(PACKET_BUFFER_SIZE);
+        changePacket = new PacketBuffer(PACKET_BUFFER_SIZE);
+        batchData = new byte[PACKET_BUFFER_SIZE];
     }
 
     /**
@@ -107,8 +140,6 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
                 while (remainOpen) {
                     int packetType = dis.readInt();
                     int requestID = dis.readInt();
-                    System.out.println("Server received type " + packetType
-                            + " ID" + requestID);
                     switch (packetType) {
                         case NetworkProtocolConstants.ADD_EVENT_OUT_LISTENER_REQUEST: {
                             int fieldID = dis.readInt();
@@ -118,6 +149,7 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
                                 dos.writeInt(requestID);
                                 try {
                                     theServerBrowser.enableFieldBroadcast(fieldID);
+                                    listenedFields.put(fieldID, this);
                                     dos
                                             .writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
                                 } catch (IOException t) {
@@ -299,7 +331,7 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
                                             .getLocalFieldID(fieldID);
                                     dos
                                             .writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
-                                    transmitFieldValue(fieldID, node, localFieldID);
+                                    transmitFieldValue(fieldID, node, localFieldID, dos);
                                 } catch (InvalidNodeException ine) {
                                     sendExceptionPacket(ine, dos);
                                 } catch (IOException t) {
@@ -471,7 +503,10 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
                                         .writeInt(NetworkProtocolConstants.ADD_EVENT_OUT_LISTENER_REPLY);
                                 dos.writeInt(requestID);
                                 try {
-                                    theServerBrowser.disableFieldBroadcast(fieldID);
+                                    listenedFields.remove(fieldID);
+                                    if (!fieldChanges.isSubscribed(fieldID)) {
+                                        theServerBrowser.disableFieldBroadcast(fieldID);
+                                    }
                                     dos
                                             .writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
                                 } catch (IOException t) {
@@ -545,6 +580,44 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
                             }
                         }
                         break;
+                        case NetworkProtocolConstants.BATCH_REQUEST: {
+                            int count = dis.readInt();
+                            int length = dis.readInt();
+                            if (batchData.length < length) {
+                                batchData = new byte[length];
+                            }
+                            dis.readFully(batchData, 0, length);
+                            processBatch(requestID, count,
+                                    new DataInputStream(new ByteArrayInputStream(batchData, 0, length)));
+                        }
+                        break;
+                        case NetworkProtocolConstants.SUBSCRIBE_FIELDS_REQUEST:
+                        case NetworkProtocolConstants.UNSUBSCRIBE_FIELDS_REQUEST: {
+                            int count = dis.readInt();
+                            int fieldIDs[] = new int[count];
+                            for (int counter = 0; counter < count; counter++) {
+                                fieldIDs[counter] = dis.readInt();
+                            }
+                            boolean subscribe =
+                                    packetType == NetworkProtocolConstants.SUBSCRIBE_FIELDS_REQUEST;
+                            synchronized (writeLock) {
+                                dos.writeInt(subscribe
+                                        ? NetworkProtocolConstants.SUBSCRIBE_FIELDS_REPLY
+                                        : NetworkProtocolConstants.UNSUBSCRIBE_FIELDS_REPLY);
+                                dos.writeInt(requestID);
+                                try {
+                                    if (subscribe) {
+                                        subscribeFields(fieldIDs);
+                                    } else {
+                                        unsubscribeFields(fieldIDs);
+                                    }
+                                    dos.writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
+                                } catch (InvalidNodeException | InvalidFieldException ine) {
+                                    sendExceptionPacket(ine, dos);
+                                }
+                            }
+                        }
+                        break;
                         case NetworkProtocolConstants.SHUTDOWN_SYSTEM: {
                             remainOpen = false;
 
@@ -554,10 +627,9 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
                             System.err.println("Unhandled request received.  Packet type:" + packetType + " ID" + requestID);
                             throw new RuntimeException("Unknown request received.");
                     }
-                    System.out.println("Server done with type " + packetType
-                            + " ID" + requestID);
                 }
             } finally {
+                stopClockListening();
                 if (dos != null) {
                     dos.close();
                 }
@@ -599,6 +671,196 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
         }
     }
 
+    /**
+     * Process the entries of a batch request and send back all of the
+     * replies as one packet. An entry that fails does not stop the rest.
+     *
+     * @param requestID The ID of the batch request
+     * @param count The number of entries in the batch
+     * @param in The stream to read the entries from
+     */
+    private void processBatch(int requestID, int count, DataInputStream in)
+            throws IOException {
+        batchReply.reset();
+        DataOutputStream out = batchReply.getOutput();
+        out.writeInt(NetworkProtocolConstants.BATCH_REPLY);
+        out.writeInt(requestID);
+        out.writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
+        out.writeInt(count);
+        int lengthPosition = batchReply.size();
+        out.writeInt(0);
+        int start = batchReply.size();
+        for (int counter = 0; counter < count; counter++) {
+            int entryType = in.readInt();
+            switch (entryType) {
+                case NetworkProtocolConstants.GET_EVENTIN_REQUEST:
+                case NetworkProtocolConstants.GET_EVENTOUT_REQUEST: {
+                    int nodeID = in.readInt();
+                    String fieldName = in.readUTF();
+                    try {
+                        int fieldID = (entryType == NetworkProtocolConstants.GET_EVENTIN_REQUEST)
+                                ? theServerBrowser.getEventIn(nodeID, fieldName)
+                                : theServerBrowser.getEventOut(nodeID, fieldName);
+                        int fieldType = theServerBrowser.getFieldType(fieldID);
+                        out.writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
+                        out.writeInt(fieldID);
+                        out.writeInt(fieldType);
+                    } catch (InvalidNodeException | InvalidFieldException ine) {
+                        sendExceptionPacket(ine, out);
+                    }
+                }
+                break;
+                case NetworkProtocolConstants.GET_FIELD_VALUE_REQUEST: {
+                    int fieldID = in.readInt();
+                    int mark = batchReply.size();
+                    try {
+                        VRMLNodeType node = theServerBrowser.getNodeFromFieldID(fieldID);
+                        int localFieldID = theServerBrowser.getLocalFieldID(fieldID);
+                        out.writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
+                        transmitFieldValue(fieldID, node, localFieldID, out);
+                    } catch (InvalidNodeException | InvalidFieldException ine) {
+                        batchReply.truncate(mark);
+                        sendExceptionPacket(ine, out);
+                    }
+                }
+                break;
+                case NetworkProtocolConstants.SET_FIELD_VALUE_REQUEST: {
+                    int fieldID = in.readInt();
+                    int valueLength = in.readInt();
+                    int remaining = in.available() - valueLength;
+                    try {
+                        readAndSetField(fieldID, in);
+                        out.writeByte(NetworkProtocolConstants.RESPONSE_OKAY);
+                    } catch (RuntimeException re) {
+                        sendExceptionPacket(re, out);
+                    }
+                    // Step over whatever of the value was not read
+                    in.skipBytes(in.available() - remaining);
+                }
+                break;
+                default:
+                    throw new IOException("Unknown batch entry type " + entryType);
+            }
+        }
+        batchReply.setInt(lengthPosition, batchReply.size() - start);
+        synchronized (writeLock) {
+            batchReply.send(dos);
+        }
+    }
+
+    /**
+     * Subscribe to coalesced changes of a set of fields.
+     *
+     * @param fieldIDs The network IDs of the fields
+     */
+    private void subscribeFields(int fieldIDs[]) {
+        for (int fieldID : fieldIDs) {
+            VRMLNodeType node = theServerBrowser.getNodeFromFieldID(fieldID);
+            int localFieldID = theServerBrowser.getLocalFieldID(fieldID);
+            fieldChanges.subscribe(fieldID, node, localFieldID);
+            theServerBrowser.enableFieldBroadcast(fieldID);
+        }
+        if (!clockListening && timeClock != null) {
+            timeClock.addTimeListener(this);
+            clockListening = true;
+        }
+    }
+
+    /**
+     * Stop the coalesced changes of a set of fields.
+     *
+     * @param fieldIDs The network IDs of the fields
+     */
+    private void unsubscribeFields(int fieldIDs[]) {
+        for (int fieldID : fieldIDs) {
+            if (fieldChanges.unsubscribe(fieldID)
+                    && !listenedFields.containsKey(fieldID)) {
+                theServerBrowser.disableFieldBroadcast(fieldID);
+            }
+        }
+        if (fieldChanges.isEmpty()) {
+            stopClockListening();
+        }
+    }
+
+    /**
+     * Stop listening to the clock.
+     */
+    private void stopClockListening() {
+        if (clockListening) {
+            timeClock.removeTimeListener(this);
+            clockListening = false;
+        }
+    }
+
+    /**
+     * Send the values of the subscribed fields which changed since the last
+     * call as a single packet. Fields whose value is the same as the last
+     * one sent are left out, and nothing is sent if none are left.
+     *
+     * @throws IOException The packet could not be sent
+     */
+    void sendFieldChanges() throws IOException {
+        synchronized (fieldChanges) {
+            int numDirty = fieldChanges.getDirtyCount();
+            if (numDirty == 0) {
+                return;
+            }
+            try {
+                changePacket.reset();
+                DataOutputStream out = changePacket.getOutput();
+                out.writeInt(NetworkProtocolConstants.FIELD_CHANGES_BROADCAST);
+                out.writeDouble(timeClock == null ? 0 : timeClock.getTime());
+                int countPosition = changePacket.size();
+                out.writeInt(0);
+                out.writeInt(0);
+                int start = changePacket.size();
+                int numSent = 0;
+                for (int counter = 0; counter < numDirty; counter++) {
+                    int fieldID = fieldChanges.getDirtyFieldID(counter);
+                    int mark = changePacket.size();
+                    out.writeInt(fieldID);
+                    transmitFieldValue(fieldID,
+                            fieldChanges.getDirtyNode(counter),
+                            fieldChanges.getDirtyFieldIndex(counter),
+                            out);
+                    if (fieldChanges.checkValueChanged(counter,
+                            changePacket.getBuffer(), mark + 4,
+                            changePacket.size() - mark - 4)) {
+                        numSent++;
+                    } else {
+                        changePacket.truncate(mark);
+                    }
+                }
+                if (numSent != 0) {
+                    changePacket.setInt(countPosition, numSent);
+                    changePacket.setInt(countPosition + 4, changePacket.size() - start);
+                    synchronized (writeLock) {
+                        changePacket.send(dos);
+                    }
+                }
+                fieldChanges.endFrame(numSent != 0);
+            } catch (IOException ioe) {
+                fieldChanges.endFrame(false);
+                throw ioe;
+            }
+        }
+    }
+
+    /**
+     * Notification of a clock tick. Sends the field changes of the frame.
+     *
+     * @param time The current time
+     */
+    @Override
+    public void timeClick(long time) {
+        try {
+            sendFieldChanges();
+        } catch (IOException ioe) {
+            ioe.printStackTrace(System.err);
+        }
+    }
+
     /**
      * Reads field value from network and then call setFieldValue.
      *
@@ -842,12 +1104,15 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
     @Override
     public void transmitFieldChanged(int fieldID, VRMLNodeType node,
             int fieldIndex) {
+        if (fieldChanges.fieldChanged(fieldID)) {
+            return;
+        }
         synchronized (writeLock) {
             try {
                 dos.writeInt(NetworkProtocolConstants.EVENTOUT_CHANGED_BROADCAST);
                 dos.writeInt(fieldID);
                 dos.writeDouble(timeClock.getTime());
-                transmitFieldValue(fieldID, node, fieldIndex);
+                transmitFieldValue(fieldID, node, fieldIndex, dos);
             } catch (IOException e) {
                 e.printStackTrace(System.err);
             }
@@ -860,9 +1125,10 @@ class ServerProcessingTask implements Runnable, BrowserCoreListener, FieldChange
      * @param fieldID The network field ID
      * @param node The node to get the field value from
      * @param fieldIndex The index of the field to get the value of
+     * @param dos The stream to write the value to
      */
-    private void transmitFieldValue(int fieldID, VRMLNodeType node, int fieldIndex)
-            throws IOException {
+    private void transmitFieldValue(int fieldID, VRMLNodeType node, int fieldIndex,
+            DataOutputStream dos) throws IOException {
         VRMLFieldData data = node.getFieldValue(fieldIndex);
         //dos.writeInt(data.dataType);
         int innerCounter = 0;
@@ -70,17 +70,20 @@ class BufferedMappingSAIEventAdapterFactory implements SAIEventAdapterFactory {
     }
 
     /** Set the field factory to pass on. */
-    void setFieldFactory(SAIFieldFactory aFactory) {
+    @Override
+    public void setFieldFactory(SAIFieldFactory aFactory) {
         theFieldFactory=aFactory;
     }
 
     /** Shutdown the event adapter system. */
+    @Override
     public void shutdown() {
 	clear();
         thePool.shutdown();
     }
 
     /** Clear out the event adapters */
+    @Override
     public void clear() {
         adapterTable.clear();
     }
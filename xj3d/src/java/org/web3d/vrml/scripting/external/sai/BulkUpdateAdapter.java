@@ -0,0 +1,367 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.sai;
+
+// External imports
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Local imports
+import org.web3d.util.IntStack;
+
+import org.web3d.vrml.lang.FieldConstants;
+import org.web3d.vrml.lang.VRMLFieldDeclaration;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.scripting.external.buffer.ExternalBulkUpdate;
+import org.web3d.vrml.scripting.external.buffer.ExternalEventQueue;
+
+import org.web3d.x3d.sai.InvalidFieldException;
+import org.web3d.x3d.sai.InvalidNodeException;
+import org.web3d.x3d.sai.InvalidWritableFieldException;
+import org.web3d.x3d.sai.X3DNode;
+
+import org.xj3d.sai.Xj3DBulkUpdate;
+
+/**
+ * Implementation of the bulk field update interface that validates the
+ * packed updates and hands them to the {@link ExternalEventQueue} as a
+ * single {@link ExternalBulkUpdate} event.
+ * <p>
+ *
+ * Checking is done when the call is made so that errors are thrown back
+ * to the caller, the same as the individual field wrappers. Event
+ * instances are recycled once the queue has processed them.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class BulkUpdateAdapter implements Xj3DBulkUpdate {
+
+    /** Message when a node handle is out of range or released */
+    private static final String INVALID_HANDLE_MSG = "Invalid node handle ";
+
+    /** Message when a field index is not valid for the node */
+    private static final String INVALID_FIELD_MSG = "Invalid field index ";
+
+    /** Message when the field type does not match the values given */
+    private static final String WRONG_KIND_MSG =
+        "Field type does not match the values given for field ";
+
+    /** Message when the stride does not match the field size */
+    private static final String WRONG_STRIDE_MSG =
+        "Stride does not match the size of field ";
+
+    /** Message when the field can't be written right now */
+    private static final String NOT_WRITABLE_MSG =
+        "Field can not be written at this time: ";
+
+    /** Message when the arrays are too short */
+    private static final String SHORT_ARRAY_MSG =
+        "Arrays are too short for the given count and stride";
+
+    /** The queue the updates are sent to */
+    private final ExternalEventQueue eventQueue;
+
+    /** Processed events waiting to be reused */
+    private final ConcurrentLinkedQueue<ExternalBulkUpdate> freeUpdates;
+
+    /** The node of each handle. Released handles are null */
+    private VRMLNodeType[] handleNodes;
+
+    /** The number of handles issued, including released ones */
+    private int numHandles;
+
+    /** Released handles available for reuse */
+    private final IntStack freeHandles;
+
+    /** Map of node to its handle */
+    private final Map<VRMLNodeType, Integer> handleMap;
+
+    /** Scratch array of the resolved nodes of the current call */
+    private VRMLNodeType[] targetNodes;
+
+    /** Scratch array of the field types of the current call */
+    private int[] targetTypes;
+
+    /**
+     * Create a new adapter that sends to the given queue.
+     *
+     * @param queue The queue to send updates to
+     */
+    BulkUpdateAdapter(ExternalEventQueue queue) {
+        eventQueue = queue;
+        freeUpdates = new ConcurrentLinkedQueue<>();
+        handleNodes = new VRMLNodeType[64];
+        freeHandles = new IntStack();
+        handleMap = new IdentityHashMap<>();
+        targetNodes = new VRMLNodeType[0];
+        targetTypes = new int[0];
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by Xj3DBulkUpdate
+    //----------------------------------------------------------
+
+    @Override
+    public synchronized int getNodeHandle(X3DNode node)
+        throws InvalidNodeException {
+
+        if(!(node instanceof SAINode))
+            throw new InvalidNodeException();
+
+        VRMLNodeType real_node = ((SAINode)node).getVRMLNode();
+
+        if(real_node == null)
+            throw new InvalidNodeException();
+
+        Integer existing = handleMap.get(real_node);
+        if(existing != null)
+            return existing;
+
+        int handle;
+        if(!freeHandles.isEmpty()) {
+            handle = freeHandles.pop();
+        } else {
+            if(numHandles == handleNodes.length) {
+                VRMLNodeType[] tmp = new VRMLNodeType[numHandles * 2];
+                System.arraycopy(handleNodes, 0, tmp, 0, numHandles);
+                handleNodes = tmp;
+            }
+
+            handle = numHandles++;
+        }
+
+        handleNodes[handle] = real_node;
+        handleMap.put(real_node, handle);
+
+        return handle;
+    }
+
+    @Override
+    public synchronized void releaseNodeHandle(int handle) {
+        if(handle < 0 || handle >= numHandles || handleNodes[handle] == null)
+            return;
+
+        handleMap.remove(handleNodes[handle]);
+        handleNodes[handle] = null;
+        freeHandles.push(handle);
+    }
+
+    @Override
+    public synchronized int getFieldID(int handle, String fieldName)
+        throws InvalidNodeException, InvalidFieldException {
+
+        VRMLNodeType node = getNode(handle);
+        int index = node.getFieldIndex(fieldName);
+
+        if(index < 0)
+            throw new InvalidFieldException(fieldName);
+
+        return index;
+    }
+
+    @Override
+    public synchronized void setValues(int count,
+                                       int[] nodes,
+                                       int[] fields,
+                                       float[] values,
+                                       int stride)
+        throws InvalidNodeException, InvalidFieldException {
+
+        checkLength(count, nodes, fields, values.length, stride);
+        resolve(count, nodes, fields, ExternalBulkUpdate.FLOAT_VALUES, stride);
+
+        ExternalBulkUpdate update = getUpdate();
+        update.setTargets(count, targetNodes, fields, targetTypes);
+        update.setValues(values, stride);
+
+        eventQueue.processEvent(update);
+    }
+
+    @Override
+    public synchronized void setValues(int count,
+                                       int[] nodes,
+                                       int[] fields,
+                                       double[] values,
+                                       int stride)
+        throws InvalidNodeException, InvalidFieldException {
+
+        checkLength(count, nodes, fields, values.length, stride);
+        resolve(count, nodes, fields, ExternalBulkUpdate.DOUBLE_VALUES, stride);
+
+        ExternalBulkUpdate update = getUpdate();
+        update.setTargets(count, targetNodes, fields, targetTypes);
+        update.setValues(values, stride);
+
+        eventQueue.processEvent(update);
+    }
+
+    @Override
+    public synchronized void setValues(int count,
+                                       int[] nodes,
+                                       int[] fields,
+                                       int[] values,
+                                       int stride)
+        throws InvalidNodeException, InvalidFieldException {
+
+        checkLength(count, nodes, fields, values.length, stride);
+        resolve(count, nodes, fields, ExternalBulkUpdate.INT_VALUES, stride);
+
+        ExternalBulkUpdate update = getUpdate();
+        update.setTargets(count, targetNodes, fields, targetTypes);
+        update.setValues(values, stride);
+
+        eventQueue.processEvent(update);
+    }
+
+    @Override
+    public int getLastFrameUpdateCount() {
+        return eventQueue.getLastFrameBulkUpdateCount();
+    }
+
+    @Override
+    public long getTotalUpdateCount() {
+        return eventQueue.getTotalBulkUpdateCount();
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Release all of the node handles. Used when the world is replaced.
+     */
+    synchronized void clear() {
+        for(int i = 0; i < numHandles; i++)
+            handleNodes[i] = null;
+
+        numHandles = 0;
+        freeHandles.clear();
+        handleMap.clear();
+    }
+
+    /**
+     * Fetch the node of a handle.
+     *
+     * @param handle The handle to look up
+     * @return The node of the handle
+     * @throws InvalidNodeException The handle is not valid
+     */
+    private VRMLNodeType getNode(int handle) throws InvalidNodeException {
+        if(handle < 0 || handle >= numHandles || handleNodes[handle] == null)
+            throw new InvalidNodeException(INVALID_HANDLE_MSG + handle);
+
+        return handleNodes[handle];
+    }
+
+    /**
+     * Check that the arrays hold enough data for the updates.
+     */
+    private void checkLength(int count,
+                             int[] nodes,
+                             int[] fields,
+                             int numValues,
+                             int stride) {
+        if(count < 0 || stride < 1 ||
+           nodes.length < count || fields.length < count ||
+           numValues < count * stride)
+            throw new IllegalArgumentException(SHORT_ARRAY_MSG);
+    }
+
+    /**
+     * Resolve the handles of the updates into the scratch arrays and check
+     * that each field can be written with the given values.
+     *
+     * @param count The number of updates
+     * @param nodes The node handle of each update
+     * @param fields The field index of each update
+     * @param kind The kind of values given
+     * @param stride The number of values per update
+     */
+    private void resolve(int count,
+                         int[] nodes,
+                         int[] fields,
+                         int kind,
+                         int stride)
+        throws InvalidNodeException, InvalidFieldException {
+
+        if(targetNodes.length < count) {
+            targetNodes = new VRMLNodeType[count];
+            targetTypes = new int[count];
+        }
+
+        for(int i = 0; i < count; i++) {
+            VRMLNodeType node = getNode(nodes[i]);
+            VRMLFieldDeclaration decl = node.getFieldDeclaration(fields[i]);
+
+            if(decl == null)
+                throw new InvalidFieldException(INVALID_FIELD_MSG + fields[i]);
+
+            int type = decl.getFieldType();
+
+            if(ExternalBulkUpdate.getValueKind(type) != kind)
+                throw new InvalidFieldException(WRONG_KIND_MSG + decl.getName());
+
+            int size = decl.getFieldSize();
+
+            if(ExternalBulkUpdate.isMultiValued(type) ?
+               (stride % size != 0) : (stride != size))
+                throw new InvalidFieldException(WRONG_STRIDE_MSG + decl.getName());
+
+            checkWriteAccess(node, decl);
+
+            targetNodes[i] = node;
+            targetTypes[i] = type;
+        }
+    }
+
+    /**
+     * Check the field is writable in the current state of the node. Follows
+     * the same rules as the individual field wrappers.
+     *
+     * @param node The node to check
+     * @param decl The field to check
+     */
+    private void checkWriteAccess(VRMLNodeType node, VRMLFieldDeclaration decl)
+        throws InvalidWritableFieldException {
+
+        int access = decl.getAccessType();
+
+        boolean writable;
+        if(eventQueue.isNodeRealized(node))
+            writable = (access == FieldConstants.EVENTIN) ||
+                       (access == FieldConstants.EXPOSEDFIELD);
+        else
+            writable = (access == FieldConstants.FIELD) ||
+                       (access == FieldConstants.EXPOSEDFIELD);
+
+        if(!writable)
+            throw new InvalidWritableFieldException(NOT_WRITABLE_MSG +
+                                                    decl.getName());
+    }
+
+    /**
+     * Fetch an unused event instance.
+     *
+     * @return An event ready to be loaded
+     */
+    private ExternalBulkUpdate getUpdate() {
+        ExternalBulkUpdate ret_val = freeUpdates.poll();
+
+        if(ret_val == null)
+            ret_val = new ExternalBulkUpdate(freeUpdates);
+
+        return ret_val;
+    }
+}
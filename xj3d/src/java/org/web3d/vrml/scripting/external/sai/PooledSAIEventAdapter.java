@@ -0,0 +1,277 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.sai;
+
+// External imports
+// None
+
+// Local imports
+import org.web3d.vrml.lang.InvalidFieldException;
+import org.web3d.vrml.nodes.VRMLClock;
+import org.web3d.vrml.nodes.VRMLNodeListener;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.scripting.external.buffer.BaseExternalEventAdapter;
+import org.web3d.vrml.scripting.external.buffer.ExternalOutputBuffer;
+import org.web3d.vrml.scripting.external.buffer.ExternalOutputBufferReclaimer;
+
+import org.web3d.x3d.sai.X3DFieldEventListener;
+
+/**
+ * An event adapter that passes field changes to a
+ * {@link SAIEventDeliveryPool} without taking any locks.
+ * <p>
+ *
+ * The listeners of each field are held in an array that is replaced
+ * whenever a listener is added or removed, so the event model thread
+ * only ever reads a stable snapshot. Output buffers are recycled through
+ * a bounded pool per field.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class PooledSAIEventAdapter extends BaseExternalEventAdapter
+    implements VRMLNodeListener, ExternalOutputBufferReclaimer {
+
+    /** The listener slots and spare buffers of a single field */
+    private static class FieldListeners {
+
+        /** The slots of the listeners, never modified once published */
+        final SAIEventDeliveryPool.FieldSlot[] slots;
+
+        /** The listeners matching each slot */
+        final X3DFieldEventListener[] listeners;
+
+        /** Spare output buffers for the field */
+        final SAIEventDeliveryPool.BoundedPool<ExternalOutputBuffer> buffers;
+
+        /**
+         * Create a new listener set.
+         *
+         * @param s The slots of the listeners
+         * @param l The listeners matching each slot
+         * @param b Spare output buffers for the field
+         */
+        FieldListeners(SAIEventDeliveryPool.FieldSlot[] s,
+                       X3DFieldEventListener[] l,
+                       SAIEventDeliveryPool.BoundedPool<ExternalOutputBuffer> b) {
+            slots = s;
+            listeners = l;
+            buffers = b;
+        }
+    }
+
+    /** The factory to construct the eventOut's with */
+    private final SAIFieldFactory fieldFactory;
+
+    /** The pool to send events to */
+    private final SAIEventDeliveryPool deliveryPool;
+
+    /** The listeners of each field, indexed by field ID. Copy on write */
+    private volatile FieldListeners[] fieldListeners;
+
+    /**
+     * Construct a new adapter for the node.
+     *
+     * @param factory The factory to construct the eventOut's with
+     * @param node The node to broadcast for
+     * @param pool The pool to send events to
+     * @param clock The clock to use for timestamps
+     */
+    PooledSAIEventAdapter(SAIFieldFactory factory,
+                          VRMLNodeType node,
+                          SAIEventDeliveryPool pool,
+                          VRMLClock clock) {
+        super(node, clock);
+
+        fieldFactory = factory;
+        deliveryPool = pool;
+        fieldListeners = new FieldListeners[0];
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by ExternalEventAdapter
+    //----------------------------------------------------------
+
+    /**
+     * Add a listener for one of the fields of this node.
+     *
+     * @param fieldID The ID of the field
+     * @param who The X3DFieldEventListener to add
+     */
+    @Override
+    public synchronized void addListener(int fieldID, Object who) {
+        if(fieldID < 0)
+            throw new IllegalArgumentException("Invalid field ID");
+
+        X3DFieldEventListener l = (X3DFieldEventListener)who;
+        FieldListeners[] all = fieldListeners;
+
+        if(fieldID >= all.length) {
+            FieldListeners[] tmp = new FieldListeners[fieldID + 1];
+            System.arraycopy(all, 0, tmp, 0, all.length);
+            all = tmp;
+        } else {
+            all = all.clone();
+        }
+
+        FieldListeners current = all[fieldID];
+        SAIEventDeliveryPool.FieldSlot[] slots;
+        X3DFieldEventListener[] listeners;
+        SAIEventDeliveryPool.BoundedPool<ExternalOutputBuffer> buffers;
+
+        if(current == null) {
+            slots = new SAIEventDeliveryPool.FieldSlot[1];
+            listeners = new X3DFieldEventListener[1];
+            buffers = new SAIEventDeliveryPool.BoundedPool<>(
+                deliveryPool.getPoolSize());
+        } else {
+            int size = current.slots.length;
+            slots = new SAIEventDeliveryPool.FieldSlot[size + 1];
+            listeners = new X3DFieldEventListener[size + 1];
+            System.arraycopy(current.slots, 0, slots, 0, size);
+            System.arraycopy(current.listeners, 0, listeners, 0, size);
+            buffers = current.buffers;
+        }
+
+        slots[slots.length - 1] = deliveryPool.createSlot(l);
+        listeners[listeners.length - 1] = l;
+
+        all[fieldID] = new FieldListeners(slots, listeners, buffers);
+        fieldListeners = all;
+    }
+
+    /**
+     * Remove a listener for one of the fields of this node. Events already
+     * queued for the listener will still be delivered.
+     *
+     * @param fieldID The ID of the field
+     * @param who The listener to remove
+     */
+    @Override
+    public synchronized void removeListener(int fieldID, Object who) {
+        FieldListeners[] all = fieldListeners;
+
+        if(fieldID < 0 || fieldID >= all.length || all[fieldID] == null)
+            return;
+
+        FieldListeners current = all[fieldID];
+        int size = current.listeners.length;
+        int idx = -1;
+
+        for(int i = 0; i < size && idx == -1; i++) {
+            if(current.listeners[i] == who)
+                idx = i;
+        }
+
+        if(idx == -1)
+            return;
+
+        deliveryPool.releaseSlot(current.slots[idx]);
+
+        all = all.clone();
+
+        if(size == 1) {
+            // If no one is listening, there's no point in keeping the buffers.
+            current.buffers.clear();
+            all[fieldID] = null;
+        } else {
+            SAIEventDeliveryPool.FieldSlot[] slots =
+                new SAIEventDeliveryPool.FieldSlot[size - 1];
+            X3DFieldEventListener[] listeners =
+                new X3DFieldEventListener[size - 1];
+
+            System.arraycopy(current.slots, 0, slots, 0, idx);
+            System.arraycopy(current.slots, idx + 1, slots, idx, size - idx - 1);
+            System.arraycopy(current.listeners, 0, listeners, 0, idx);
+            System.arraycopy(current.listeners,
+                             idx + 1,
+                             listeners,
+                             idx,
+                             size - idx - 1);
+
+            all[fieldID] = new FieldListeners(slots, listeners, current.buffers);
+        }
+
+        fieldListeners = all;
+    }
+
+    /**
+     * Broadcast an eventOutChanged event for a given field. Works from a
+     * snapshot of the listeners, so no locking is needed.
+     *
+     * @param fieldID The fieldID which changed
+     * @param timestamp The timestamp to use
+     */
+    @Override
+    public void generateBroadcast(int fieldID, double timestamp) {
+        FieldListeners[] all = fieldListeners;
+
+        if(fieldID < 0 || fieldID >= all.length || all[fieldID] == null)
+            return;
+
+        FieldListeners current = all[fieldID];
+
+        // Everyone gets the same userData, but each listener gets its own
+        // buffer so that they can't see each other's values change.
+        Object userData;
+        try {
+            userData = parentNode.getUserData(fieldID);
+        } catch(InvalidFieldException ife) {
+            throw new RuntimeException(
+                    "Unexpectedly bad field ID " + fieldID + " for " + parentNode
+                    + " in event broadcast.");
+        }
+
+        for(SAIEventDeliveryPool.FieldSlot slot : current.slots) {
+            ExternalOutputBuffer buffer = current.buffers.poll();
+
+            if(buffer != null) {
+                buffer.initialize(parentNode, fieldID);
+                buffer.loadOutputValue();
+            } else {
+                String name = parentNode.getFieldDeclaration(fieldID).getName();
+                buffer = (ExternalOutputBuffer)fieldFactory.getStoredField(
+                    parentNode, fieldID, name, false);
+            }
+
+            SAIEventDeliveryPool.EventRecord record =
+                deliveryPool.getRecord(buffer, timestamp, userData);
+
+            record.buffer = buffer;
+            record.tag = fieldID;
+            record.reclaimer = this;
+
+            deliveryPool.send(slot, record);
+        }
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by ExternalOutputBufferReclaimer
+    //----------------------------------------------------------
+
+    /**
+     * Reclaim the event out buffer that the delivery pool finished with.
+     *
+     * @param buffer The buffer that finished
+     * @param fieldID The field the buffer belongs to
+     */
+    @Override
+    public void reclaimEventOutBuffer(ExternalOutputBuffer buffer, int fieldID) {
+        buffer.reset();
+
+        FieldListeners[] all = fieldListeners;
+
+        if(fieldID < all.length && all[fieldID] != null)
+            all[fieldID].buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,140 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.sai;
+
+// External imports
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.j3d.util.ErrorReporter;
+
+// Local imports
+import org.web3d.vrml.nodes.VRMLClock;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.scripting.external.buffer.ExternalEventAdapter;
+
+/**
+ * Implementation of SAIEventAdapterFactory that uses the lock free
+ * {@link PooledSAIEventAdapter}.
+ * <p>
+ *
+ * Keeps a one-to-one mapping from VRMLNodeType to adapter, the same as
+ * {@link BufferedMappingSAIEventAdapterFactory}, with all adapters
+ * sharing a single {@link SAIEventDeliveryPool}.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class PooledSAIEventAdapterFactory implements SAIEventAdapterFactory {
+
+    /** Mapping of VRMLNodeType to adapter */
+    private final ConcurrentHashMap<VRMLNodeType, PooledSAIEventAdapter> adapterTable;
+
+    /** The pool that delivers the events */
+    private final SAIEventDeliveryPool deliveryPool;
+
+    /** The time clock to ensure consistent time stamps */
+    private final VRMLClock timeClock;
+
+    /** The SAIFieldFactory to give the adapter instances */
+    private SAIFieldFactory fieldFactory;
+
+    /**
+     * Create a factory with the given delivery setup.
+     *
+     * @param numThreads The number of delivery threads
+     * @param coalesce true to only deliver the latest value of each field
+     * @param clock The clock to use for timestamps
+     * @param reporter The reporter for listener errors, or null for the
+     *    default
+     */
+    PooledSAIEventAdapterFactory(int numThreads,
+                                 boolean coalesce,
+                                 VRMLClock clock,
+                                 ErrorReporter reporter) {
+        adapterTable = new ConcurrentHashMap<>();
+        deliveryPool =
+            new SAIEventDeliveryPool(numThreads,
+                                     SAIEventDeliveryPool.DEFAULT_POOL_SIZE,
+                                     coalesce);
+        deliveryPool.setErrorReporter(reporter);
+        timeClock = clock;
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by SAIEventAdapterFactory
+    //----------------------------------------------------------
+
+    /**
+     * Retrieve or generate the adapter associated with a node.
+     *
+     * @param node The node for which an adapter is needed.
+     * @return Returns the adapter.
+     */
+    @Override
+    public ExternalEventAdapter getAdapter(VRMLNodeType node) {
+        PooledSAIEventAdapter result = adapterTable.get(node);
+
+        if(result == null) {
+            PooledSAIEventAdapter adapter =
+                new PooledSAIEventAdapter(fieldFactory,
+                                          node,
+                                          deliveryPool,
+                                          timeClock);
+
+            result = adapterTable.putIfAbsent(node, adapter);
+
+            if(result == null) {
+                result = adapter;
+                node.addNodeListener(result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Set the field factory to pass on.
+     *
+     * @param aFactory The factory to use
+     */
+    @Override
+    public void setFieldFactory(SAIFieldFactory aFactory) {
+        fieldFactory = aFactory;
+    }
+
+    /** Shutdown the event adapter system. */
+    @Override
+    public void shutdown() {
+        clear();
+        deliveryPool.shutdown();
+    }
+
+    /** Clear out the event adapters */
+    @Override
+    public void clear() {
+        adapterTable.clear();
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Get the pool that delivers the events, for access to its statistics.
+     *
+     * @return The delivery pool
+     */
+    SAIEventDeliveryPool getDeliveryPool() {
+        return deliveryPool;
+    }
+}
@@ -0,0 +1,54 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.sai;
+
+// External imports
+// None
+
+// Local imports
+import org.web3d.x3d.sai.X3DFieldEvent;
+
+/**
+ * Variant of the field event that can be reloaded so that instances may be
+ * recycled by the {@link SAIEventDeliveryPool}.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+class PooledSAIFieldEvent extends X3DFieldEvent {
+
+    /** Version ID for serialization */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Construct a new default event instance.
+     *
+     * @param src Anything non-null. Gets overwritten anyway
+     */
+    PooledSAIFieldEvent(Object src) {
+        super(src, 0, null);
+    }
+
+    /**
+     * Load the event with new values.
+     *
+     * @param src The source field that generated this event
+     * @param ts The timestamp of the event, In VRML time.
+     * @param data Any user associated data with this event
+     */
+    void update(Object src, double ts, Object data) {
+        source = src;
+        timestamp = ts;
+        userData = data;
+    }
+}
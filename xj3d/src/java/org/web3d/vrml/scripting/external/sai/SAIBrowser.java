@@ -24,6 +24,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -121,6 +123,23 @@ public class SAIBrowser
     /** String for getBrowserName */
     private static final String BROWSER_NAME ="Xj3D SAI External Browser";
 
+    /**
+     * Property defining whether to use the lock free, pooled event delivery
+     * to external listeners.
+     */
+    private static final String POOLED_EVENTS_PROP =
+        "org.web3d.vrml.scripting.external.sai.pooledEvents";
+
+    /**
+     * Property defining whether the pooled event delivery should only pass
+     * on the latest value of each field. Implies pooled delivery.
+     */
+    private static final String COALESCE_EVENTS_PROP =
+        "org.web3d.vrml.scripting.external.sai.coalesceEvents";
+
+    /** The number of threads used to deliver events to listeners */
+    private static final int EVENT_THREADS = 2;
+
     /** The class name of a potential node factory */
     private String NODE_FACTORY_CLASS_NAME =
         "org.xj3d.sai.external.MappingSAINodeFactory";
@@ -156,7 +175,7 @@ public class SAIBrowser
 
     /** The event adapter factory.
     * The event adapter system is reachable through this object. */
-    private BufferedMappingSAIEventAdapterFactory adapterFactory;
+    private SAIEventAdapterFactory adapterFactory;
 
     /** Route manager for handling user added/removed routes */
     private RouteManager routeManager;
@@ -203,6 +222,9 @@ public class SAIBrowser
      */
     private CADViewAdapter externalCADView;
 
+    /** External interface for writing many fields in a single call */
+    private BulkUpdateAdapter bulkUpdate;
+
     /**
      * Handler for the anchor processing by an external application. If this
      * is non-null, query it first before doing our own anchor processing.
@@ -282,8 +304,22 @@ public class SAIBrowser
         SimpleSAIFieldFactory fieldFactory =
             new SimpleSAIFieldFactory(eventQueue);
 
-        adapterFactory =
-            new BufferedMappingSAIEventAdapterFactory(2, browserCore.getVRMLClock());
+        // fetch the system properties defining the event delivery
+        boolean[] vals = AccessController.doPrivileged((PrivilegedAction<boolean[]>) () -> new boolean[]{
+            Boolean.getBoolean(POOLED_EVENTS_PROP),
+            Boolean.getBoolean(COALESCE_EVENTS_PROP)
+        });
+
+        if(vals[0] || vals[1])
+            adapterFactory =
+                new PooledSAIEventAdapterFactory(EVENT_THREADS,
+                                                 vals[1],
+                                                 browserCore.getVRMLClock(),
+                                                 errorReporter);
+        else
+            adapterFactory =
+                new BufferedMappingSAIEventAdapterFactory(EVENT_THREADS,
+                                                          browserCore.getVRMLClock());
 
         //////////////////////////////////////////////////////////////////////////////
         // rem: commented out pending relo-ing the scripting
@@ -467,6 +503,27 @@ public class SAIBrowser
         return externalCADView;
     }
 
+    /**
+     * Fetch the interface for writing many fields of many nodes in a single
+     * call from packed arrays.
+     *
+     * @return An interface for making bulk field updates
+     * @throws InvalidBrowserException The dispose method has been called on
+     *    this browser reference.
+     */
+    @Override
+    public Xj3DBulkUpdate getBulkUpdate()
+        throws InvalidBrowserException {
+
+        if(browserImpl == null)
+            throw new InvalidBrowserException(INVALID_BROWSER_MSG);
+
+        if(bulkUpdate == null)
+            bulkUpdate = new BulkUpdateAdapter(eventQueue);
+
+        return bulkUpdate;
+    }
+
     /**
      * Set the minimum frame interval time to limit the CPU resources
      * taken up by the 3D renderer.  By default it will use all of them.
@@ -1071,6 +1128,9 @@ public class SAIBrowser
         currentContext = null;
         eventQueue.clear();
         adapterFactory.clear();
+
+        if(bulkUpdate != null)
+            bulkUpdate.clear();
     }
 
     /**
@@ -1493,6 +1553,20 @@ public class SAIBrowser
     // Internal implementation methods
     //---------------------------------------------------------
 
+    /**
+     * Get the pool delivering field events to external listeners. Only
+     * available when the pooled event delivery has been enabled through
+     * the system properties.
+     *
+     * @return The delivery pool, or null if not in use
+     */
+    public SAIEventDeliveryPool getEventDeliveryPool() {
+        if(adapterFactory instanceof PooledSAIEventAdapterFactory)
+            return ((PooledSAIEventAdapterFactory)adapterFactory).getDeliveryPool();
+
+        return null;
+    }
+
     /**
      * Initialize the world to a known state.
      * This is necessary to ensure that all of the underlying behaviors
@@ -32,4 +32,17 @@ interface SAIEventAdapterFactory {
      * @return Returns the adapter.
      */
     ExternalEventAdapter getAdapter(VRMLNodeType node);
+
+    /**
+     * Set the field factory used to build the output buffers.
+     *
+     * @param aFactory The factory to use
+     */
+    void setFieldFactory(SAIFieldFactory aFactory);
+
+    /** Clear out the event adapters */
+    void clear();
+
+    /** Shutdown the event adapter system. */
+    void shutdown();
 }
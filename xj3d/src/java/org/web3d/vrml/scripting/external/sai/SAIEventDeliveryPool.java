@@ -0,0 +1,666 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.sai;
+
+// External imports
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.j3d.util.DefaultErrorReporter;
+import org.j3d.util.ErrorReporter;
+
+// Local imports
+import org.web3d.vrml.scripting.external.buffer.ExternalOutputBuffer;
+import org.web3d.vrml.scripting.external.buffer.ExternalOutputBufferReclaimer;
+
+import org.web3d.x3d.sai.X3DFieldEventListener;
+
+/**
+ * Lock free delivery of SAI field events to external listeners.
+ * <p>
+ *
+ * Every listener gets its own queue, so a slow listener only delays its
+ * own events and events for one listener are always delivered in order.
+ * Queues are drained by a small set of worker threads, a queue being handed
+ * to a worker when it goes from empty to non-empty. Event, record and
+ * buffer objects are recycled through bounded pools so that high frequency
+ * fields do not generate garbage.
+ * <p>
+ *
+ * When coalescing is enabled, only the latest value of each field is kept
+ * for a listener that has not yet received the previous one. This is
+ * useful for fields such as a TimeSensor fraction where the listener only
+ * cares about the current value.
+ * <p>
+ *
+ * The pool keeps statistics of the delivery latency, measured from the
+ * event being generated to the listener returning, and of the number of
+ * events waiting to be delivered.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class SAIEventDeliveryPool {
+
+    /** The name of the threads in the pool */
+    private static final String THREAD_NAME = "Xj3D SAI Event Messenger";
+
+    /** The name of the thread group */
+    private static final String GROUP_NAME = "Xj3D SAI Event Delivery";
+
+    /** The default number of spare instances of each object to keep */
+    static final int DEFAULT_POOL_SIZE = 256;
+
+    /** Error message when the user code barfs */
+    private static final String DELIVERY_ERROR_MSG =
+        "Error delivering SAI event to: ";
+
+    /**
+     * A fixed size, lock free cache of reusable objects. Objects offered
+     * when the cache is full are left for the garbage collector.
+     */
+    static class BoundedPool<T> {
+
+        /** The cached objects */
+        private final ConcurrentLinkedQueue<T> items;
+
+        /** The number of objects in the cache */
+        private final AtomicInteger size;
+
+        /** The maximum number of objects to cache */
+        private final int maxSize;
+
+        /**
+         * Create a new pool that holds up to the given number of objects.
+         *
+         * @param max The maximum number of objects to hold
+         */
+        BoundedPool(int max) {
+            items = new ConcurrentLinkedQueue<>();
+            size = new AtomicInteger();
+            maxSize = max;
+        }
+
+        /**
+         * Fetch an object from the pool.
+         *
+         * @return A cached object or null if the pool is empty
+         */
+        T poll() {
+            T ret_val = items.poll();
+
+            if(ret_val != null)
+                size.decrementAndGet();
+
+            return ret_val;
+        }
+
+        /**
+         * Return an object to the pool.
+         *
+         * @param item The object to cache
+         */
+        void offer(T item) {
+            if(size.incrementAndGet() <= maxSize)
+                items.offer(item);
+            else
+                size.decrementAndGet();
+        }
+
+        /**
+         * Throw away all of the cached objects.
+         */
+        void clear() {
+            while(items.poll() != null)
+                size.decrementAndGet();
+        }
+    }
+
+    /** A single event on its way to a listener. */
+    static class EventRecord {
+
+        /** The slot the event was sent through */
+        FieldSlot slot;
+
+        /** The event to deliver */
+        PooledSAIFieldEvent event;
+
+        /** Buffer to reclaim after processing the event */
+        ExternalOutputBuffer buffer;
+
+        /** Reclamation tag associated with buffer */
+        int tag;
+
+        /** Who gets the buffer for reclaiming */
+        ExternalOutputBufferReclaimer reclaimer;
+
+        /** The System.nanoTime() the event was generated */
+        long queueTime;
+
+        /** Null out all references to prevent leaks in user code */
+        void reset() {
+            slot = null;
+            event = null;
+            buffer = null;
+            reclaimer = null;
+            tag = -1;
+        }
+    }
+
+    /**
+     * The connection of one listener to one field. When coalescing, the
+     * slot holds the latest undelivered event and is placed in the listener
+     * queue in place of the event itself.
+     */
+    class FieldSlot {
+
+        /** The queue of the listener */
+        final ListenerQueue queue;
+
+        /** The latest event not yet delivered when coalescing */
+        final AtomicReference<EventRecord> pending;
+
+        /**
+         * Create a slot that feeds the given queue.
+         *
+         * @param q The queue of the listener
+         */
+        FieldSlot(ListenerQueue q) {
+            queue = q;
+            pending = new AtomicReference<>();
+        }
+    }
+
+    /** The events waiting for a single listener. */
+    class ListenerQueue implements Runnable {
+
+        /** The listener to deliver to */
+        final X3DFieldEventListener listener;
+
+        /** Queued EventRecords, or FieldSlots when coalescing */
+        final ConcurrentLinkedQueue<Object> entries;
+
+        /** The number of entries in the queue */
+        final AtomicInteger depth;
+
+        /** Set while a worker has been given, or is draining, this queue */
+        final AtomicBoolean scheduled;
+
+        /** The number of field slots feeding this queue */
+        int slotCount;
+
+        /**
+         * Create a new empty queue for the listener.
+         *
+         * @param l The listener to deliver to
+         */
+        ListenerQueue(X3DFieldEventListener l) {
+            listener = l;
+            entries = new ConcurrentLinkedQueue<>();
+            depth = new AtomicInteger();
+            scheduled = new AtomicBoolean();
+        }
+
+        /**
+         * Place an entry on the queue and make sure a worker will get to it.
+         *
+         * @param entry An EventRecord or FieldSlot
+         */
+        void post(Object entry) {
+            // Count first so the worker never takes the depth negative
+            depth.incrementAndGet();
+            updateMaxDepth(queueDepth.incrementAndGet());
+            entries.offer(entry);
+
+            schedule();
+        }
+
+        /**
+         * Hand the queue to a worker if it is not already being processed.
+         */
+        void schedule() {
+            if(!scheduled.compareAndSet(false, true))
+                return;
+
+            try {
+                executor.execute(this);
+            } catch(RejectedExecutionException ree) {
+                // Shut down. Drop everything that's left.
+                scheduled.set(false);
+                discard();
+            }
+        }
+
+        //---------------------------------------------------------------
+        // Methods defined by Runnable
+        //---------------------------------------------------------------
+
+        /**
+         * Deliver everything currently in the queue.
+         */
+        @Override
+        public void run() {
+            do {
+                Object entry;
+                while((entry = entries.poll()) != null) {
+                    depth.decrementAndGet();
+                    queueDepth.decrementAndGet();
+
+                    EventRecord record;
+                    if(entry instanceof FieldSlot)
+                        record = ((FieldSlot)entry).pending.getAndSet(null);
+                    else
+                        record = (EventRecord)entry;
+
+                    if(record != null)
+                        deliver(record);
+                }
+
+                scheduled.set(false);
+
+                // Something may have arrived after the last poll but before
+                // the flag was cleared, in which case nobody else will run it.
+            } while(!entries.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * Send a single event to the listener and recycle it.
+         *
+         * @param record The event to deliver
+         */
+        private void deliver(EventRecord record) {
+            try {
+                if(!shutdown)
+                    listener.readableFieldChanged(record.event);
+            } catch(RuntimeException re) {
+                // User code error. Don't let it kill the delivery thread.
+                errorReporter.errorReport(DELIVERY_ERROR_MSG + listener, re);
+            } finally {
+                long latency = System.nanoTime() - record.queueTime;
+
+                recycle(record);
+
+                totalLatency.addAndGet(latency);
+                deliveredCount.incrementAndGet();
+
+                long max = maxLatency.get();
+                while(latency > max && !maxLatency.compareAndSet(max, latency))
+                    max = maxLatency.get();
+            }
+        }
+
+        /**
+         * Throw away everything in the queue without delivering it.
+         */
+        void discard() {
+            Object entry;
+            while((entry = entries.poll()) != null) {
+                depth.decrementAndGet();
+                queueDepth.decrementAndGet();
+
+                EventRecord record;
+                if(entry instanceof FieldSlot)
+                    record = ((FieldSlot)entry).pending.getAndSet(null);
+                else
+                    record = (EventRecord)entry;
+
+                if(record != null)
+                    recycle(record);
+            }
+        }
+    }
+
+    /** The thread group for the workers */
+    private final ThreadGroup group;
+
+    /** The workers that drain the listener queues */
+    private final ExecutorService executor;
+
+    /** The queue for each listener */
+    private final ConcurrentHashMap<X3DFieldEventListener, ListenerQueue> listenerQueues;
+
+    /** Spare event records */
+    private final BoundedPool<EventRecord> recordPool;
+
+    /** Spare event instances */
+    private final BoundedPool<PooledSAIFieldEvent> eventPool;
+
+    /** The maximum number of spare objects of each type to keep */
+    private final int poolSize;
+
+    /** Flag to say only the latest value of a field should be delivered */
+    private volatile boolean coalesce;
+
+    /** Flag to say the pool has been shut down */
+    private volatile boolean shutdown;
+
+    /** Reporter instance for handing out errors */
+    private volatile ErrorReporter errorReporter;
+
+    /** The number of events delivered */
+    private final AtomicLong deliveredCount;
+
+    /** The number of events dropped in favour of a newer value */
+    private final AtomicLong coalescedCount;
+
+    /** The total delivery latency of all delivered events, in nanoseconds */
+    private final AtomicLong totalLatency;
+
+    /** The largest delivery latency seen, in nanoseconds */
+    private final AtomicLong maxLatency;
+
+    /** The number of entries in all listener queues */
+    private final AtomicInteger queueDepth;
+
+    /** The largest value of queueDepth seen */
+    private final AtomicInteger maxQueueDepth;
+
+    /**
+     * Create a new delivery pool.
+     *
+     * @param numThreads The number of worker threads to create
+     * @param maxPooled The number of spare objects of each type to keep
+     * @param coalesceEvents true to only deliver the latest value of a field
+     */
+    SAIEventDeliveryPool(int numThreads, int maxPooled, boolean coalesceEvents) {
+        poolSize = maxPooled;
+        coalesce = coalesceEvents;
+        errorReporter = DefaultErrorReporter.getDefaultReporter();
+
+        group = new ThreadGroup(GROUP_NAME);
+        executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(group, r, THREAD_NAME);
+            t.setDaemon(true);
+            return t;
+        });
+
+        listenerQueues = new ConcurrentHashMap<>();
+        recordPool = new BoundedPool<>(maxPooled);
+        eventPool = new BoundedPool<>(maxPooled);
+
+        deliveredCount = new AtomicLong();
+        coalescedCount = new AtomicLong();
+        totalLatency = new AtomicLong();
+        maxLatency = new AtomicLong();
+        queueDepth = new AtomicInteger();
+        maxQueueDepth = new AtomicInteger();
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Set whether only the latest value of each field should be delivered
+     * to a listener that has fallen behind. Takes effect from the next
+     * event generated.
+     *
+     * @param enable true to coalesce events
+     */
+    public void setCoalescing(boolean enable) {
+        coalesce = enable;
+    }
+
+    /**
+     * Check to see if events are being coalesced.
+     *
+     * @return true if only the latest value of a field is delivered
+     */
+    public boolean isCoalescing() {
+        return coalesce;
+    }
+
+    /**
+     * Register an error reporter for exceptions thrown by the listeners.
+     * Setting a value of null will clear the currently set reporter. If one
+     * is already set, the new value replaces the old.
+     *
+     * @param reporter The instance to use or null
+     */
+    public void setErrorReporter(ErrorReporter reporter) {
+        errorReporter = reporter;
+
+        // Reset the default only if we are not shutting down the system.
+        if(reporter == null)
+            errorReporter = DefaultErrorReporter.getDefaultReporter();
+    }
+
+    /**
+     * Get the number of events delivered to listeners.
+     *
+     * @return The event count
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * Get the number of events that were replaced by a newer value of the
+     * same field before they could be delivered.
+     *
+     * @return The coalesced event count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Get the average time from an event being generated to the listener
+     * returning from the callback.
+     *
+     * @return The average latency in nanoseconds, 0 if nothing delivered
+     */
+    public long getAverageLatency() {
+        long count = deliveredCount.get();
+
+        return count == 0 ? 0 : totalLatency.get() / count;
+    }
+
+    /**
+     * Get the largest time from an event being generated to the listener
+     * returning from the callback.
+     *
+     * @return The maximum latency in nanoseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    /**
+     * Get the number of events currently waiting for delivery over all
+     * listeners.
+     *
+     * @return The current queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Get the largest number of events that have been waiting for delivery
+     * at once.
+     *
+     * @return The maximum queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Get the number of listeners that currently have a queue.
+     *
+     * @return The listener count
+     */
+    public int getListenerCount() {
+        return listenerQueues.size();
+    }
+
+    /**
+     * Clear the latency and depth statistics.
+     */
+    public void resetStatistics() {
+        deliveredCount.set(0);
+        coalescedCount.set(0);
+        totalLatency.set(0);
+        maxLatency.set(0);
+        maxQueueDepth.set(queueDepth.get());
+    }
+
+    /**
+     * Get the maximum number of spare objects of each type to keep.
+     *
+     * @return The pool size
+     */
+    int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Connect a listener to a field. Listeners share a single queue over
+     * all the fields they are registered with.
+     *
+     * @param listener The listener to connect
+     * @return The slot to send events for the field through
+     */
+    FieldSlot createSlot(X3DFieldEventListener listener) {
+        ListenerQueue q = listenerQueues.compute(listener, (l, existing) -> {
+            ListenerQueue ret_val =
+                (existing != null) ? existing : new ListenerQueue(l);
+            ret_val.slotCount++;
+            return ret_val;
+        });
+
+        return new FieldSlot(q);
+    }
+
+    /**
+     * Disconnect a field slot. Events already queued are still delivered.
+     * The listener queue is removed once the last slot is released.
+     *
+     * @param slot The slot to release
+     */
+    void releaseSlot(FieldSlot slot) {
+        listenerQueues.computeIfPresent(slot.queue.listener, (l, q) -> {
+            if(q != slot.queue)
+                return q;
+
+            q.slotCount--;
+            return q.slotCount > 0 ? q : null;
+        });
+    }
+
+    /**
+     * Fetch an event record ready to be sent.
+     *
+     * @param src The field the event is for
+     * @param timestamp The VRML time of the event
+     * @param userData The user data of the field
+     * @return A record with the event loaded
+     */
+    EventRecord getRecord(Object src, double timestamp, Object userData) {
+        EventRecord record = recordPool.poll();
+        if(record == null)
+            record = new EventRecord();
+
+        PooledSAIFieldEvent event = eventPool.poll();
+        if(event == null)
+            event = new PooledSAIFieldEvent(src);
+
+        event.update(src, timestamp, userData);
+        record.event = event;
+        record.queueTime = System.nanoTime();
+
+        return record;
+    }
+
+    /**
+     * Queue an event for delivery through the slot.
+     *
+     * @param slot The slot of the listener and field
+     * @param record The event to send
+     */
+    void send(FieldSlot slot, EventRecord record) {
+        if(shutdown) {
+            recycle(record);
+            return;
+        }
+
+        record.slot = slot;
+
+        if(coalesce) {
+            EventRecord old = slot.pending.getAndSet(record);
+
+            // If an older value was still waiting, the slot is already in
+            // the queue and will pick this one up instead.
+            if(old != null) {
+                coalescedCount.incrementAndGet();
+                recycle(old);
+            } else {
+                slot.queue.post(slot);
+            }
+        } else {
+            slot.queue.post(record);
+        }
+    }
+
+    /**
+     * Shut down the worker threads and throw away any events that have not
+     * been delivered.
+     */
+    void shutdown() {
+        shutdown = true;
+        executor.shutdown();
+
+        for(ListenerQueue q : listenerQueues.values())
+            q.discard();
+
+        listenerQueues.clear();
+        recordPool.clear();
+        eventPool.clear();
+    }
+
+    /**
+     * Return the parts of a used record to their pools.
+     *
+     * @param record The record to recycle
+     */
+    private void recycle(EventRecord record) {
+        if(record.reclaimer != null)
+            record.reclaimer.reclaimEventOutBuffer(record.buffer, record.tag);
+
+        PooledSAIFieldEvent event = record.event;
+        event.update(event.getSource(), 0, null);
+        eventPool.offer(event);
+
+        record.reset();
+        recordPool.offer(record);
+    }
+
+    /**
+     * Update the maximum queue depth statistic.
+     *
+     * @param depth The current depth
+     */
+    private void updateMaxDepth(int depth) {
+        int max = maxQueueDepth.get();
+        while(depth > max && !maxQueueDepth.compareAndSet(max, depth))
+            max = maxQueueDepth.get();
+    }
+}
@@ -13,7 +13,8 @@
 package org.web3d.vrml.scripting.sai;
 
 // Standard imports
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 // Application specific imports
 import org.web3d.x3d.sai.*;
@@ -68,8 +69,14 @@ abstract class BaseField implements X3DField, VRMLNodeListener {
         "This field is not readable in the current state";
 
 
+    /** The maximum number of unused event instances to keep around */
+    private static final int MAX_EVENT_CACHE = 64;
+
     /** Cache for the event instances */
-    private static LinkedList<SAIFieldEvent> eventList;
+    private static final ConcurrentLinkedQueue<SAIFieldEvent> eventList;
+
+    /** The number of instances currently in the cache */
+    private static final AtomicInteger eventCacheSize;
 
     /** The node this field belongs to */
     protected VRMLNodeType node;
@@ -105,7 +112,8 @@ abstract class BaseField implements X3DField, VRMLNodeListener {
      * Static constructor to initialise the event caching
      */
     static {
-        eventList = new LinkedList<>();
+        eventList = new ConcurrentLinkedQueue<>();
+        eventCacheSize = new AtomicInteger();
     }
 
     /**
@@ -424,31 +432,34 @@ abstract class BaseField implements X3DField, VRMLNodeListener {
     }
 
     /**
-     * Caching to fetch a pre-built instance of the field event.
+     * Caching to fetch a pre-built instance of the field event. The cache
+     * is lock free so that fields of different scripts do not contend for
+     * the same monitor.
      *
      * @return An unused event instance
      */
-    private static synchronized SAIFieldEvent getEventInstance(Object src) {
+    private static SAIFieldEvent getEventInstance(Object src) {
 
-        SAIFieldEvent ret_val;
+        SAIFieldEvent ret_val = eventList.poll();
 
-        if(eventList.size() != 0) {
-            synchronized(eventList) {
-                ret_val = eventList.removeFirst();
-            }
-        } else {
+        if(ret_val != null)
+            eventCacheSize.decrementAndGet();
+        else
             ret_val = new SAIFieldEvent(src);
-        }
 
         return ret_val;
     }
 
     /**
-     * Return a used instance of the event back to the queue
+     * Return a used instance of the event back to the queue. If the queue
+     * is already full, the event is left for the garbage collector.
      */
     private static void releaseEvent(SAIFieldEvent evt) {
-        synchronized(eventList) {
-            eventList.add(evt);
-        }
+        evt.update(evt.getSource(), 0, null);
+
+        if(eventCacheSize.incrementAndGet() <= MAX_EVENT_CACHE)
+            eventList.offer(evt);
+        else
+            eventCacheSize.decrementAndGet();
     }
 }
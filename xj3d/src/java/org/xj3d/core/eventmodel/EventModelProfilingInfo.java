@@ -0,0 +1,133 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.core.eventmodel;
+
+// External imports
+// none
+
+// Local imports
+// none
+
+/**
+ * Defines the requirements for accessing the profiling data of one event
+ * model frame.
+ * <p>
+ *
+ * A frame is divided into phases, each identified by one of the constants
+ * defined here. For each phase the time spent and the number of events, or
+ * items of work, handed to it are available. The time of each node manager
+ * is also available separately. All times are in nanoseconds.
+ * <p>
+ *
+ * The data describes the last completed frame and is only valid for the
+ * duration of the listener callback that supplied it.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public interface EventModelProfilingInfo {
+
+    /** Viewpoint, layer and bindable node stack processing */
+    int BINDABLES = 0;
+
+    /** Time sensors, user input and sensor add and removal */
+    int SENSORS = 1;
+
+    /** The pre and post event node managers and node observers */
+    int NODE_MANAGERS = 2;
+
+    /** Events coming from external views such as the EAI and SAI */
+    int EXTERNAL = 3;
+
+    /** All script services */
+    int SCRIPTS = 4;
+
+    /** Route evaluation and route and space updates */
+    int ROUTES = 5;
+
+    /** Queueing of new content and removal of old scenes */
+    int LOADING = 6;
+
+    /** Everything else, such as synchronised nodes and layer ordering */
+    int OTHER = 7;
+
+    /** The number of phases a frame is divided into */
+    int NUM_PHASES = 8;
+
+    /**
+     * Get the time spent in a phase during the frame.
+     *
+     * @param phase One of the phase constants
+     * @return The time in nanoseconds
+     */
+    long getPhaseTime(int phase);
+
+    /**
+     * Get the number of events handed to a phase during the frame. For the
+     * routes phase this is the number of route passes that sent events.
+     * For the other phases it is the number of nodes, scripts, scenes or
+     * views that were added, removed or processed.
+     *
+     * @param phase One of the phase constants
+     * @return The event count
+     */
+    int getPhaseEvents(int phase);
+
+    /**
+     * Get the total time of the frame.
+     *
+     * @return The time in nanoseconds
+     */
+    long getFrameTime();
+
+    /**
+     * Get the number of frames that have been completed since profiling
+     * started.
+     *
+     * @return The frame count
+     */
+    long getFrameCount();
+
+    /**
+     * Get the number of passes made through the route cascade, steps 5 to
+     * 11 of the event model, during the frame.
+     *
+     * @return The cascade depth, at least 1
+     */
+    int getCascadeDepth();
+
+    /**
+     * Get the number of node managers timed.
+     *
+     * @return The number of managers
+     */
+    int getNumNodeManagers();
+
+    /**
+     * Get one of the timed node managers. Pre-event managers come first,
+     * followed by the post-event managers.
+     *
+     * @param index The index of the manager
+     * @return The manager
+     */
+    NodeManager getNodeManager(int index);
+
+    /**
+     * Get the time a node manager spent processing the frame, including the
+     * addition and removal of its nodes.
+     *
+     * @param index The index of the manager
+     * @return The time in nanoseconds
+     */
+    long getNodeManagerTime(int index);
+}
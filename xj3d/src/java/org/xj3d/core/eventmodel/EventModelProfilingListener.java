@@ -0,0 +1,37 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.core.eventmodel;
+
+// External imports
+// none
+
+// Local imports
+// none
+
+/**
+ * Listener for the profiling data of each event model frame.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public interface EventModelProfilingListener {
+
+    /**
+     * An event model frame has completed while profiling is enabled. This is
+     * called on the thread running the event model, so implementations
+     * should copy what they need and return quickly.
+     *
+     * @param data The profiling data of the frame
+     */
+    void eventModelProfiled(EventModelProfilingInfo data);
+}
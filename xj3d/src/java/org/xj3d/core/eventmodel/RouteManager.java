@@ -75,6 +75,20 @@ public interface RouteManager {
      */
     boolean processRoutes(double timestamp);
 
+    /**
+     * Get the number of routes that sent an event during the last call to
+     * processRoutes(), over all the execution spaces.
+     * <p>
+     *
+     * The default implementation returns 0 for route managers that do not keep
+     * count.
+     *
+     * @return The number of routed events
+     */
+    default int getProcessedRouteCount() {
+        return 0;
+    }
+
     /**
      * Add a route to the system. If the route exists in the system, this
      * silently ignores the request. If the space reference is null then
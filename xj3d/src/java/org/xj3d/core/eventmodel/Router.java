@@ -61,6 +61,20 @@ public interface Router {
      */
     boolean processRoutes(double timestamp);
 
+    /**
+     * Get the number of routes that sent an event during the last call to
+     * processRoutes().
+     * <p>
+     *
+     * The default implementation returns 0 for routers that do not keep
+     * count.
+     *
+     * @return The number of routed events
+     */
+    default int getProcessedRouteCount() {
+        return 0;
+    }
+
     /**
      * Add a route to the system. If the route exists in the system, this
      * silently ignores the request. IAW the spec, this should buffer the
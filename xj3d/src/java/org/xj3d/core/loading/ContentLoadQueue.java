@@ -100,6 +100,30 @@ public class ContentLoadQueue
                                  String[] url,
                                  LoadRequestHandler loadRequestHandler,
                                  LoadDetails        loadDetails) {
+        add(loadConstantsType, url, loadRequestHandler, loadDetails, 0);
+    }
+
+    /**
+     * Add the given load request onto the queue with a priority relative to
+     * other requests of the same type. If the URL is already sitting on the
+     * queue with the same priority, the details will be inserted into the
+     * existing load request so that they may all be serviced at once.
+     *
+     * @param loadConstantsType The node loadConstantsType classification. One of the defined constants in
+    {@link LoadConstants}.
+     * @param url The urls of the item to load
+     * @param loadRequestHandler The class that will process the load request once it is
+     *    pulled grabbed from the queue for processing
+     * @param loadDetails Detail set for what should be loaded
+     * @param priority The priority within the type. Lower values load first
+     * @throws IllegalArgumentException Either the URL list was null/zero length,
+   or the loadConstantsType was null
+     */
+    public synchronized void add(String   loadConstantsType,
+                                 String[] url,
+                                 LoadRequestHandler loadRequestHandler,
+                                 LoadDetails        loadDetails,
+                                 int                priority) {
 
         if((url == null) || (url.length == 0))
             throw new IllegalArgumentException(NULL_URL_MESSAGE);
@@ -108,6 +132,7 @@ public class ContentLoadQueue
         loadRequest.url                = url;
         loadRequest.loadRequestHandler = loadRequestHandler;
         loadRequest.loadConstantsType  = loadConstantsType;
+        loadRequest.priority           = priority;
 
         synchronized(loadRequstTreeSetQueue) // TODO consider warning on synchronization of non-final field
         {
@@ -85,6 +85,10 @@ class LoadPriorityComparator implements Comparator<LoadRequest> {
         if(p1 != p2)
             return p1 < p2 ? -1 : 1;
 
+        // Same type? Then go with the node's own idea of priority
+        if(l1.priority != l2.priority)
+            return l1.priority < l2.priority ? -1 : 1;
+
         // same priority? Then prefer the one that has the most nodes that
         // have to send the URL to. Also, take the size right now as, since
         // this is multithreaded, then these sizes may change underneath us
@@ -0,0 +1,44 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.core.loading;
+
+// External imports
+// None
+
+// Local imports
+// None
+
+/**
+ * Optional interface for external nodes that want to influence the order
+ * their content is loaded in, relative to other content of the same type.
+ * <p>
+ *
+ * The load queue always sorts first on the type of content, as defined by
+ * {@link LoadConstants}. Within the same type, requests with a lower priority
+ * value are loaded first. Nodes that do not implement this interface have a
+ * priority of zero. The priority is read once when the request is queued.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public interface LoadPrioritySource {
+
+    /**
+     * Get the load priority for the content of the given field.
+     *
+     * @param index The field index of the URL being loaded, or -1 for single
+     *   external nodes
+     * @return The priority. Lower values are loaded first
+     */
+    int getLoadPriority(int index);
+}
@@ -54,6 +54,12 @@ public class LoadRequest
      */
     public String loadConstantsType;
 
+    /**
+     * Priority of the request within its type. Lower values are loaded
+     * first. Zero unless the node implements {@link LoadPrioritySource}.
+     */
+    public int priority;
+
     /**
      * The class that the thread is to run when it grabs this request object
      * from the load queue.
@@ -56,6 +56,10 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
     private static final String SYNCH_STOP_MSG =
         "Error during external synchronised node post-event callback";
 
+    /** Error message when a profiling listener fails */
+    private static final String PROFILING_MSG =
+        "Error sending event model profiling data";
+
     /** Message when we have found a bindable that there is no manager for */
     private static final String NO_BINDABLE_MGR_MSG =
         "attempting to add a bindable node that has no manager for its layer.";
@@ -209,6 +213,12 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
     /** Map of node type id to NodeObserver instances for that node */
     private final IntHashMap<List<NodeObserver>> nodeObserverMap;
 
+    /** Timer of the phases of each running frame. Null when not timing */
+    private PhaseTimer phaseTimer;
+
+    /** Listeners for the profiling data of each timed frame */
+    private final List<EventModelProfilingListener> profilingListeners;
+
     /**
      * Construct a new instance of the evaluator.
      */
@@ -240,6 +250,7 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         layerToRendererMap = new HashMap<>();
 
         nodeObserverMap = new IntHashMap<>();
+        profilingListeners = new ArrayList<>();
     }
 
     //----------------------------------------------------------
@@ -312,6 +323,9 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         numPreEventManagers = int_cnt;
         numPostEventManagers = ext_cnt;
 
+        if(phaseTimer != null)
+            timeNodeManagers(phaseTimer);
+
         // Always create the default layer first up.
         layerManagers = new LayerManager[1];
         layerManagers[0] = layerManagerFactory.createLayerManager();
@@ -560,10 +574,93 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         }
     }
 
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * Set the timer used to record how long each phase of a running frame
+     * takes. Frames that load or initialise a world are not timed. A value
+     * of null turns timing off, leaving only a null check per phase.
+     * Profiling listeners are only called while a timer is set.
+     *
+     * @param timer The timer to use or null
+     */
+    public void setPhaseTimer(PhaseTimer timer) {
+        if(timer != null && preEventManagers != null)
+            timeNodeManagers(timer);
+
+        phaseTimer = timer;
+    }
+
+    /**
+     * Get the timer currently recording frame phases.
+     *
+     * @return The current timer or null if not timing
+     */
+    public PhaseTimer getPhaseTimer() {
+        return phaseTimer;
+    }
+
+    /**
+     * Add a listener for the profiling data of each timed frame. Adding the
+     * same instance more than once is ignored.
+     *
+     * @param l The listener to add
+     */
+    public void addProfilingListener(EventModelProfilingListener l) {
+        synchronized(profilingListeners) {
+            if(l != null && !profilingListeners.contains(l))
+                profilingListeners.add(l);
+        }
+    }
+
+    /**
+     * Remove a profiling listener. If it is not registered, the request is
+     * silently ignored.
+     *
+     * @param l The listener to remove
+     */
+    public void removeProfilingListener(EventModelProfilingListener l) {
+        synchronized(profilingListeners) {
+            profilingListeners.remove(l);
+        }
+    }
+
     //----------------------------------------------------------
     // Local convenience methods
     //----------------------------------------------------------
 
+    /**
+     * Give a timer the list of node managers, in the order that
+     * processPreEventManagers and processPostEventManagers index them.
+     *
+     * @param timer The timer to set up
+     */
+    private void timeNodeManagers(PhaseTimer timer) {
+        NodeManager[] all = getNodeManagers();
+        timer.setNodeManagers(all, (all == null) ? 0 : all.length);
+    }
+
+    /**
+     * Send the profiling data of the last frame to the listeners.
+     *
+     * @param timer The timer holding the frame
+     */
+    private void fireProfilingData(PhaseTimer timer) {
+        synchronized(profilingListeners) {
+            int size = profilingListeners.size();
+
+            for(int i = 0; i < size; i++) {
+                try {
+                    profilingListeners.get(i).eventModelProfiled(timer);
+                } catch(Exception e) {
+                    errorReporter.errorReport(PROFILING_MSG, e);
+                }
+            }
+        }
+    }
+
     /**
      * Finish setting the scene at the right time.
      *
@@ -719,6 +816,11 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
      */
     private void evaluateRunning(long time) {
 
+        PhaseTimer timer = phaseTimer;
+
+        if(timer != null)
+            timer.beginFrame();
+
         if(pendingViewpoint != null) {
             pendingViewpoint.setBind(true, true, time);
             pendingViewpoint = null;
@@ -754,6 +856,10 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         }
 
         processViewpoints(time);
+
+        if(timer != null)
+            timer.mark(PhaseTimer.BINDABLES);
+
         externalSyncNodes.remove(stateManager.getRemovedExtSynchronizedNodes());
 
         if(shutdownNow)
@@ -766,6 +872,9 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
 
         processSynchronisedNodes(true);
 
+        if(timer != null)
+            timer.mark(PhaseTimer.OTHER);
+
         if(shutdownNow)
             return;
 
@@ -776,6 +885,9 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         // 2. Evaluate sensor inputs
         sensorManager.processUserInput(activeNavigationLayer, time);
 
+        if(timer != null)
+            timer.mark(PhaseTimer.SENSORS);
+
         if(shutdownNow)
             return;
 
@@ -783,6 +895,9 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         processPreEventManagers(time);
         processNodeObservers();
 
+        if(timer != null)
+            timer.mark(PhaseTimer.NODE_MANAGERS);
+
         if(shutdownNow)
             return;
 
@@ -793,6 +908,11 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             view.processEvents();
         }
 
+        if(timer != null) {
+            timer.count(PhaseTimer.EXTERNAL, externalViews.size());
+            timer.mark(PhaseTimer.EXTERNAL);
+        }
+
         if(shutdownNow)
             return;
 
@@ -801,21 +921,34 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         double vrml_time = time * 0.001;
         scriptManager.prepareEvents(vrml_time);
 
+        if(timer != null)
+            timer.mark(PhaseTimer.SCRIPTS);
+
         if(shutdownNow)
             return;
 
         // 5. Evaluate routes.
-        routeManager.processRoutes(vrml_time);
+        boolean more_events = routeManager.processRoutes(vrml_time);
+
+        if(timer != null) {
+            timer.count(PhaseTimer.ROUTES,
+                        routeManager.getProcessedRouteCount());
+            timer.mark(PhaseTimer.ROUTES);
+        }
 
         if(shutdownNow)
             return;
 
         scriptManager.processEvents();
 
+        if(timer != null)
+            timer.mark(PhaseTimer.SCRIPTS);
+
         if(shutdownNow)
             return;
 
-        loadScenes(stateManager.getAddedScenes());
+        ObjectArray ascenes = stateManager.getAddedScenes();
+        loadScenes(ascenes);
 
         if(shutdownNow)
             return;
@@ -854,7 +987,16 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             }
         }
 
+        if(timer != null) {
+            timer.count(PhaseTimer.LOADING,
+                        ascenes.size() + urlNodes.size() + externs.size());
+            timer.mark(PhaseTimer.LOADING);
+        }
+
         do {
+            if(timer != null)
+                timer.cascadePass();
+
             // 6. Call the shutdown service on scripts that have received
             //    set_url events or are being removed from the scene
             scriptManager.shutdownActiveScripts();
@@ -862,7 +1004,13 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             if(shutdownNow)
                 return;
 
-            scriptManager.removeScripts(stateManager.getRemovedScripts());
+            NodeArray rscripts = stateManager.getRemovedScripts();
+            scriptManager.removeScripts(rscripts);
+
+            if(timer != null) {
+                timer.count(PhaseTimer.SCRIPTS, rscripts.size());
+                timer.mark(PhaseTimer.SCRIPTS);
+            }
 
             if(shutdownNow)
                 return;
@@ -877,28 +1025,47 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
                 removeScene(space);
             }
 
+            if(timer != null) {
+                timer.count(PhaseTimer.LOADING, size);
+                timer.mark(PhaseTimer.LOADING);
+            }
+
             if(shutdownNow)
                 return;
 
             // 7. Generate final events for any sensors removed from the scene.
-            sensorManager.removeSensors(stateManager.getRemovedSensors());
+            NodeArray rsensors = stateManager.getRemovedSensors();
+            sensorManager.removeSensors(rsensors);
 
             if(shutdownNow)
                 return;
 
-            sensorManager.removeViewDependentNodes(
-                stateManager.getRemovedViewDependents());
+            NodeArray rviews = stateManager.getRemovedViewDependents();
+            sensorManager.removeViewDependentNodes(rviews);
+
+            if(timer != null) {
+                timer.count(PhaseTimer.SENSORS, rsensors.size() + rviews.size());
+                timer.mark(PhaseTimer.SENSORS);
+            }
 
             if(shutdownNow)
                 return;
 
             routeManager.updateSpaces();
 
+            if(timer != null)
+                timer.mark(PhaseTimer.ROUTES);
+
             if(shutdownNow)
                 return;
 
             // process bindable nodes that have been added or removed
-            processBindables();
+            int num_bindables = processBindables();
+
+            if(timer != null) {
+                timer.count(PhaseTimer.BINDABLES, num_bindables);
+                timer.mark(PhaseTimer.BINDABLES);
+            }
 
             if(shutdownNow)
                 return;
@@ -908,16 +1075,25 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             //    dynamicRouteHandling from any script execution in Step5 & 6.
             routeManager.updateRoutes();
 
+            if(timer != null)
+                timer.mark(PhaseTimer.ROUTES);
+
             if(shutdownNow)
                 return;
 
-            sensorManager.addSensors(stateManager.getAddedSensors());
+            NodeArray asensors = stateManager.getAddedSensors();
+            sensorManager.addSensors(asensors);
 
             if(shutdownNow)
                 return;
 
-            sensorManager.addViewDependentNodes(
-                stateManager.getAddedViewDependents());
+            NodeArray aviews = stateManager.getAddedViewDependents();
+            sensorManager.addViewDependentNodes(aviews);
+
+            if(timer != null) {
+                timer.count(PhaseTimer.SENSORS, asensors.size() + aviews.size());
+                timer.mark(PhaseTimer.SENSORS);
+            }
 
             if(shutdownNow)
                 return;
@@ -936,13 +1112,19 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             if(shutdownNow)
                 return;
 
-            scriptManager.addScripts(stateManager.getAddedScripts());
+            NodeArray ascripts = stateManager.getAddedScripts();
+            scriptManager.addScripts(ascripts);
 
             if(shutdownNow)
                 return;
 
             scriptManager.initializeScripts(time);
 
+            if(timer != null) {
+                timer.count(PhaseTimer.SCRIPTS, ascripts.size());
+                timer.mark(PhaseTimer.SCRIPTS);
+            }
+
             if(shutdownNow)
                 return;
 
@@ -952,9 +1134,19 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             if(shutdownNow)
                 return;
 
+            if(timer != null)
+                timer.mark(PhaseTimer.OTHER);
+
             // 11. If any events were generated from steps 5 through 10,
             //     go to step 5 and continue.
-        } while(routeManager.processRoutes(vrml_time));
+            more_events = routeManager.processRoutes(vrml_time);
+
+            if(timer != null) {
+                timer.count(PhaseTimer.ROUTES,
+                            routeManager.getProcessedRouteCount());
+                timer.mark(PhaseTimer.ROUTES);
+            }
+        } while(more_events);
 
 
         if(shutdownNow)
@@ -962,6 +1154,9 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
 
         processPostEventManagers(time);
 
+        if(timer != null)
+            timer.mark(PhaseTimer.NODE_MANAGERS);
+
         if(shutdownNow)
             return;
 
@@ -1054,6 +1249,11 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
             return;
 
         processSynchronisedNodes(false);
+
+        if(timer != null) {
+            timer.endFrame();
+            fireProfilingData(timer);
+        }
     }
 
     /**
@@ -1068,13 +1268,17 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
 
     /**
      * Convenience method to process the list of added and removed bindable
-     * nodes in this cycle.
+     * nodes in this cycle. The state manager swaps its buffers each time the
+     * lists are fetched, so they must only be fetched here.
+     *
+     * @return The number of bindable nodes added and removed
      */
-    private void processBindables() {
+    private int processBindables() {
         NodeArray bindables = stateManager.getRemovedBindables();
 
         int i;
         int size = bindables.size();
+        int num_processed = size;
         VRMLNodeType node;
         BindableNodeManager mgr;
 
@@ -1129,10 +1333,11 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
         }
 
         if(shutdownNow)
-            return;
+            return num_processed;
 
         bindables = stateManager.getAddedBindables();
         size = bindables.size();
+        num_processed += size;
 
         for(i = 0; i < size; i++) {
             node = (VRMLNodeType)bindables.get(i);
@@ -1181,6 +1386,8 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
 
             }
         }
+
+        return num_processed;
     }
 
     /**
@@ -1239,7 +1446,12 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
      * @param time The timestamp of "now"
      */
     private void processPreEventManagers(long time) {
+        PhaseTimer timer = phaseTimer;
+
         for(int i = 0; i < numPreEventManagers && !shutdownNow; i++) {
+            long start = (timer != null) ? System.nanoTime() : 0;
+            int changed = 0;
+
             int[] types = preEventManagers[i].getManagedNodeTypes();
 
             if(shutdownNow)
@@ -1254,6 +1466,8 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
                     preEventManagers[i].removeManagedNode(n);
                 }
 
+                changed += size;
+
                 if(shutdownNow)
                     return;
 
@@ -1264,12 +1478,19 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
                     VRMLNodeType n = (VRMLNodeType)nodes.get(k);
                     preEventManagers[i].addManagedNode(n);
                 }
+
+                changed += size;
             }
 
             if(shutdownNow)
                 return;
 
             preEventManagers[i].executePreEventModel(time);
+
+            if(timer != null) {
+                timer.addNodeManagerTime(i, System.nanoTime() - start);
+                timer.count(PhaseTimer.NODE_MANAGERS, changed);
+            }
         }
     }
 
@@ -1279,8 +1500,12 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
      * @param time The timesstamp of "now"
      */
     private void processPostEventManagers(long time) {
+        PhaseTimer timer = phaseTimer;
 
         for(int i = 0; i < numPostEventManagers && !shutdownNow; i++) {
+            long start = (timer != null) ? System.nanoTime() : 0;
+            int changed = 0;
+
             int[] types = postEventManagers[i].getManagedNodeTypes();
 
             if(shutdownNow)
@@ -1295,6 +1520,8 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
                     postEventManagers[i].removeManagedNode(n);
                 }
 
+                changed += size;
+
                 if(shutdownNow)
                     return;
 
@@ -1306,6 +1533,8 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
                     postEventManagers[i].addManagedNode(n);
                 }
 
+                changed += size;
+
                 if(shutdownNow)
                     return;
 
@@ -1315,6 +1544,12 @@ public class DefaultEventModelEvaluator implements EventModelEvaluator {
                 return;
 
             postEventManagers[i].executePostEventModel(time);
+
+            if(timer != null) {
+                timer.addNodeManagerTime(numPreEventManagers + i,
+                                         System.nanoTime() - start);
+                timer.count(PhaseTimer.NODE_MANAGERS, changed);
+            }
         }
     }
 
@@ -86,6 +86,9 @@ public class DefaultRouteManager implements RouteManager {
     /** Flags to say if a particular router is in use currently */
     private boolean[] routerInUse;
 
+    /** The number of routes sent by the last processRoutes() call */
+    private int processedRouteCount;
+
     /**
      * Singleton flag to say if we should go looking for a router that is not
      * currently in use. Saves us iterating through the list each time.
@@ -166,18 +169,31 @@ public class DefaultRouteManager implements RouteManager {
     public boolean processRoutes(double timestamp) {
 
         boolean ret_val = false;
+        processedRouteCount = 0;
 
         for(int i = 0; i < numRouters; i++) {
             if(routerInUse[i]) {
                 boolean curr = routers[i].processRoutes(timestamp);
 
                 ret_val = ret_val || curr;
+                processedRouteCount += routers[i].getProcessedRouteCount();
             }
         }
 
         return ret_val;
     }
 
+    /**
+     * Get the number of routes that sent an event during the last call to
+     * processRoutes(), over all the execution spaces.
+     *
+     * @return The number of routed events
+     */
+    @Override
+    public int getProcessedRouteCount() {
+        return processedRouteCount;
+    }
+
     /**
      * Add a route to the system. If the route exists in the system, this
      * silently ignores the request. If the space reference is null then
@@ -0,0 +1,400 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.impl.core.eventmodel;
+
+// External imports
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Local imports
+import org.xj3d.core.eventmodel.EventModelProfilingInfo;
+import org.xj3d.core.eventmodel.EventModelProfilingListener;
+import org.xj3d.core.eventmodel.NodeManager;
+
+/**
+ * Collector of rolling statistics about the frames of a
+ * {@link DefaultEventModelEvaluator}, which may be published as an MBean.
+ * <p>
+ *
+ * While enabled, the profiler listens to the evaluator and keeps a
+ * {@link RollingHistogram} over the most recent frames for the frame time,
+ * the time and event count of each phase, the route cascade depth and the
+ * time of each node manager. If the evaluator does not already have a
+ * {@link PhaseTimer} the profiler supplies one, and removes it again when
+ * disabled, so that a disabled profiler costs nothing.
+ * <p>
+ *
+ * Statistics are updated on the event model thread and may be read from any
+ * thread.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class EventModelProfiler
+    implements EventModelProfilingListener, EventModelProfilerMBean {
+
+    /** The default number of frames statistics are kept over */
+    public static final int DEFAULT_WINDOW = 1000;
+
+    /** The object name used when none is given */
+    public static final String DEFAULT_OBJECT_NAME =
+        "org.xj3d:type=EventModelProfiler";
+
+    /** The evaluator being profiled */
+    private final DefaultEventModelEvaluator evaluator;
+
+    /** The timer supplied to the evaluator when it has none */
+    private final PhaseTimer timer;
+
+    /** The number of frames the statistics are kept over */
+    private final int window;
+
+    /** Histogram of the frame times */
+    private final RollingHistogram frameTimes;
+
+    /** Histogram of the times of each phase */
+    private final RollingHistogram[] phaseTimes;
+
+    /** Histogram of the event counts of each phase */
+    private final RollingHistogram[] phaseEvents;
+
+    /** Histogram of the route cascade depth */
+    private final RollingHistogram cascadeDepths;
+
+    /** Histogram of the times of each node manager */
+    private RollingHistogram[] managerTimes;
+
+    /** Names of the node managers, matching managerTimes */
+    private String[] managerNames;
+
+    /** The number of frames profiled since the last reset */
+    private long framesProfiled;
+
+    /** Is the profiler listening to the evaluator */
+    private boolean enabled;
+
+    /** The name this is registered with, or null if not registered */
+    private ObjectName objectName;
+
+    /**
+     * Create a disabled profiler for an evaluator using the default window.
+     *
+     * @param eme The evaluator to profile
+     */
+    public EventModelProfiler(DefaultEventModelEvaluator eme) {
+        this(eme, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Create a disabled profiler for an evaluator.
+     *
+     * @param eme The evaluator to profile
+     * @param window The number of frames statistics are kept over
+     * @throws IllegalArgumentException The evaluator is null or the window
+     *    is less than 1
+     */
+    public EventModelProfiler(DefaultEventModelEvaluator eme, int window) {
+        if(eme == null)
+            throw new IllegalArgumentException("Evaluator must be non-null");
+
+        if(window < 1)
+            throw new IllegalArgumentException("Window must be at least 1");
+
+        evaluator = eme;
+        this.window = window;
+
+        timer = new PhaseTimer();
+        frameTimes = new RollingHistogram(window);
+        cascadeDepths = new RollingHistogram(window);
+        phaseTimes = new RollingHistogram[PhaseTimer.NUM_PHASES];
+        phaseEvents = new RollingHistogram[PhaseTimer.NUM_PHASES];
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++) {
+            phaseTimes[i] = new RollingHistogram(window);
+            phaseEvents[i] = new RollingHistogram(window);
+        }
+
+        managerTimes = new RollingHistogram[0];
+        managerNames = new String[0];
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by EventModelProfilingListener
+    //----------------------------------------------------------
+
+    @Override
+    public synchronized void eventModelProfiled(EventModelProfilingInfo data) {
+        frameTimes.add(data.getFrameTime());
+        cascadeDepths.add(data.getCascadeDepth());
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++) {
+            phaseTimes[i].add(data.getPhaseTime(i));
+            phaseEvents[i].add(data.getPhaseEvents(i));
+        }
+
+        int num_managers = data.getNumNodeManagers();
+
+        if(num_managers != managerTimes.length)
+            setManagers(data);
+
+        for(int i = 0; i < num_managers; i++)
+            managerTimes[i].add(data.getNodeManagerTime(i));
+
+        framesProfiled++;
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by EventModelProfilerMBean
+    //----------------------------------------------------------
+
+    /**
+     * The evaluator is called outside the lock on this profiler, as it
+     * holds its own listener lock while delivering frames to us.
+     */
+    @Override
+    public void setEnabled(boolean enable) {
+        synchronized(this) {
+            if(enable == enabled)
+                return;
+
+            enabled = enable;
+        }
+
+        if(enable) {
+            if(evaluator.getPhaseTimer() == null)
+                evaluator.setPhaseTimer(timer);
+
+            evaluator.addProfilingListener(this);
+        } else {
+            evaluator.removeProfilingListener(this);
+
+            if(evaluator.getPhaseTimer() == timer)
+                evaluator.setPhaseTimer(null);
+        }
+    }
+
+    @Override
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized long getFramesProfiled() {
+        return framesProfiled;
+    }
+
+    @Override
+    public int getWindowSize() {
+        return window;
+    }
+
+    @Override
+    public String[] getPhaseNames() {
+        String[] ret_val = new String[PhaseTimer.NUM_PHASES];
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++)
+            ret_val[i] = PhaseTimer.getPhaseName(i);
+
+        return ret_val;
+    }
+
+    @Override
+    public synchronized double getMeanFrameTime() {
+        return frameTimes.getMean();
+    }
+
+    @Override
+    public synchronized long getMaxFrameTime() {
+        return frameTimes.getMax();
+    }
+
+    @Override
+    public synchronized long getMedianFrameTime() {
+        return frameTimes.getPercentile(0.5);
+    }
+
+    @Override
+    public synchronized long getP99FrameTime() {
+        return frameTimes.getPercentile(0.99);
+    }
+
+    @Override
+    public synchronized double[] getMeanPhaseTimes() {
+        double[] ret_val = new double[PhaseTimer.NUM_PHASES];
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++)
+            ret_val[i] = phaseTimes[i].getMean();
+
+        return ret_val;
+    }
+
+    @Override
+    public synchronized long[] getP99PhaseTimes() {
+        long[] ret_val = new long[PhaseTimer.NUM_PHASES];
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++)
+            ret_val[i] = phaseTimes[i].getPercentile(0.99);
+
+        return ret_val;
+    }
+
+    @Override
+    public synchronized double[] getMeanPhaseEvents() {
+        double[] ret_val = new double[PhaseTimer.NUM_PHASES];
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++)
+            ret_val[i] = phaseEvents[i].getMean();
+
+        return ret_val;
+    }
+
+    @Override
+    public synchronized double getMeanCascadeDepth() {
+        return cascadeDepths.getMean();
+    }
+
+    @Override
+    public synchronized long getMaxCascadeDepth() {
+        return cascadeDepths.getMax();
+    }
+
+    @Override
+    public synchronized String[] getNodeManagerNames() {
+        return managerNames.clone();
+    }
+
+    @Override
+    public synchronized double[] getMeanNodeManagerTimes() {
+        double[] ret_val = new double[managerTimes.length];
+
+        for(int i = 0; i < managerTimes.length; i++)
+            ret_val[i] = managerTimes[i].getMean();
+
+        return ret_val;
+    }
+
+    @Override
+    public synchronized long getFrameTimePercentile(double percentile) {
+        return frameTimes.getPercentile(percentile * 0.01);
+    }
+
+    @Override
+    public synchronized void reset() {
+        frameTimes.clear();
+        cascadeDepths.clear();
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++) {
+            phaseTimes[i].clear();
+            phaseEvents[i].clear();
+        }
+
+        for(RollingHistogram h : managerTimes)
+            h.clear();
+
+        framesProfiled = 0;
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Get the histogram of the frame times, for finer queries than the
+     * management interface offers. Callers should synchronise on this
+     * profiler while reading it.
+     *
+     * @return The frame time histogram
+     */
+    public RollingHistogram getFrameTimeHistogram() {
+        return frameTimes;
+    }
+
+    /**
+     * Get the histogram of the times of one phase. Callers should
+     * synchronise on this profiler while reading it.
+     *
+     * @param phase One of the PhaseTimer phase constants
+     * @return The phase time histogram
+     */
+    public RollingHistogram getPhaseTimeHistogram(int phase) {
+        return phaseTimes[phase];
+    }
+
+    /**
+     * Register this profiler with the platform MBean server under the
+     * default object name.
+     *
+     * @throws JMException The registration failed, for example because
+     *    the name is already in use
+     */
+    public void register() throws JMException {
+        register(new ObjectName(DEFAULT_OBJECT_NAME));
+    }
+
+    /**
+     * Register this profiler with the platform MBean server. Any earlier
+     * registration is removed first.
+     *
+     * @param name The object name to register under
+     * @throws JMException The registration failed, for example because
+     *    the name is already in use
+     */
+    public synchronized void register(ObjectName name) throws JMException {
+        unregister();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, name);
+        objectName = name;
+    }
+
+    /**
+     * Remove this profiler from the platform MBean server. If it is not
+     * registered, the request is silently ignored.
+     *
+     * @throws JMException The profiler could not be removed
+     */
+    public synchronized void unregister() throws JMException {
+        if(objectName == null)
+            return;
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        if(server.isRegistered(objectName))
+            server.unregisterMBean(objectName);
+
+        objectName = null;
+    }
+
+    /**
+     * The set of node managers has changed, so start their statistics
+     * again.
+     *
+     * @param data The frame holding the new set of managers
+     */
+    private void setManagers(EventModelProfilingInfo data) {
+        int num = data.getNumNodeManagers();
+
+        managerTimes = new RollingHistogram[num];
+        managerNames = new String[num];
+
+        for(int i = 0; i < num; i++) {
+            NodeManager nm = data.getNodeManager(i);
+
+            managerTimes[i] = new RollingHistogram(window);
+            managerNames[i] = nm.getClass().getName();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.impl.core.eventmodel;
+
+// External imports
+// None
+
+// Local imports
+// None
+
+/**
+ * Management interface of the {@link EventModelProfiler}, for viewing the
+ * event model profile of a running browser from a JMX console.
+ * <p>
+ *
+ * All statistics cover the frames in the profiler's rolling window. Times
+ * are in nanoseconds. Arrays of phase values are indexed in the order of
+ * {@link #getPhaseNames()} and arrays of node manager values in the order of
+ * {@link #getNodeManagerNames()}.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public interface EventModelProfilerMBean {
+
+    /**
+     * Turn profiling of the event model on or off.
+     *
+     * @param enable true to profile each frame
+     */
+    void setEnabled(boolean enable);
+
+    /**
+     * Check whether the event model is being profiled.
+     *
+     * @return true if each frame is profiled
+     */
+    boolean isEnabled();
+
+    /**
+     * Get the number of frames profiled since the last reset.
+     *
+     * @return The frame count
+     */
+    long getFramesProfiled();
+
+    /**
+     * Get the number of frames the statistics are kept over.
+     *
+     * @return The window size
+     */
+    int getWindowSize();
+
+    /**
+     * Get the names of the phases of a frame.
+     *
+     * @return The phase names
+     */
+    String[] getPhaseNames();
+
+    /**
+     * Get the mean time of a frame.
+     *
+     * @return The mean time
+     */
+    double getMeanFrameTime();
+
+    /**
+     * Get the longest frame time.
+     *
+     * @return The longest time
+     */
+    long getMaxFrameTime();
+
+    /**
+     * Get the 50th percentile of the frame time.
+     *
+     * @return The median time
+     */
+    long getMedianFrameTime();
+
+    /**
+     * Get the 99th percentile of the frame time.
+     *
+     * @return The 99th percentile time
+     */
+    long getP99FrameTime();
+
+    /**
+     * Get the mean time of each phase.
+     *
+     * @return The mean time of each phase
+     */
+    double[] getMeanPhaseTimes();
+
+    /**
+     * Get the 99th percentile time of each phase.
+     *
+     * @return The 99th percentile time of each phase
+     */
+    long[] getP99PhaseTimes();
+
+    /**
+     * Get the mean number of events handed to each phase.
+     *
+     * @return The mean event count of each phase
+     */
+    double[] getMeanPhaseEvents();
+
+    /**
+     * Get the mean depth of the route cascade.
+     *
+     * @return The mean number of passes
+     */
+    double getMeanCascadeDepth();
+
+    /**
+     * Get the deepest route cascade.
+     *
+     * @return The largest number of passes
+     */
+    long getMaxCascadeDepth();
+
+    /**
+     * Get the names of the node managers, as their class names.
+     *
+     * @return The manager names
+     */
+    String[] getNodeManagerNames();
+
+    /**
+     * Get the mean time of each node manager.
+     *
+     * @return The mean time of each manager
+     */
+    double[] getMeanNodeManagerTimes();
+
+    /**
+     * Get the time of a frame at the given percentile.
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The frame time
+     */
+    long getFrameTimePercentile(double percentile);
+
+    /**
+     * Clear all of the statistics collected so far.
+     */
+    void reset();
+}
@@ -67,6 +67,9 @@ public class ListsRouter implements Router {
     /** An array of all eventOuts for processing */
     private EventOutHolder[] routeList;
 
+    /** The number of routes sent by the last processRoutes() call */
+    private int processedRouteCount;
+
     /** Reporter instance for handing out errors */
     private ErrorReporter errorReporter;
 
@@ -121,6 +124,8 @@ public class ListsRouter implements Router {
     @Override
     public boolean processRoutes(double timestamp) {
 
+        processedRouteCount = 0;
+
         if(sourceCount <= 0)
             return false;
 
@@ -137,6 +142,7 @@ public class ListsRouter implements Router {
                     rh.sendRoute(timestamp);
                 }
 
+                processedRouteCount += size;
                 routeSetToProcess = true;
             }
         }
@@ -144,6 +150,17 @@ public class ListsRouter implements Router {
         return routeSetToProcess;
     }
 
+    /**
+     * Get the number of routes that sent an event during the last call to
+     * processRoutes().
+     *
+     * @return The number of routed events
+     */
+    @Override
+    public int getProcessedRouteCount() {
+        return processedRouteCount;
+    }
+
     /**
      * Add a route to the system. If the route exists in the system, this
      * silently ignores the request.
@@ -0,0 +1,259 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.impl.core.eventmodel;
+
+// External imports
+// None
+
+// Local imports
+import org.xj3d.core.eventmodel.EventModelProfilingInfo;
+import org.xj3d.core.eventmodel.NodeManager;
+
+/**
+ * Accumulator of the time spent in each phase of one event model frame.
+ * <p>
+ *
+ * The evaluator calls {@link #beginFrame()} as it starts a running frame,
+ * {@link #mark(int)} as it leaves each step of the cascade and
+ * {@link #endFrame()} once the frame is complete. Each mark charges the time
+ * since the previous mark to the named phase, so a phase that is visited
+ * several times in the one frame, such as routes during a long cascade,
+ * accumulates all of its visits. The phase times of a frame always add up to
+ * the frame time.
+ * <p>
+ *
+ * Alongside the times, the evaluator counts the events handed to each phase
+ * with {@link #count(int, int)}, the passes made through the route cascade
+ * with {@link #cascadePass()} and the time of each node manager with
+ * {@link #addNodeManagerTime(int, long)}.
+ * <p>
+ *
+ * The timings of the last completed frame remain readable until the next
+ * frame begins. A timer is not thread safe and is intended to be read from
+ * the thread that runs the event model, between frames.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class PhaseTimer implements EventModelProfilingInfo {
+
+    /** Names of the phases, indexed by phase constant */
+    private static final String[] PHASE_NAMES = {
+        "bindables",
+        "sensors",
+        "nodeManagers",
+        "external",
+        "scripts",
+        "routes",
+        "loading",
+        "other"
+    };
+
+    /** Accumulated time of each phase this frame, in nanoseconds */
+    private final long[] phaseTimes;
+
+    /** Number of events handed to each phase this frame */
+    private final int[] phaseEvents;
+
+    /** The node managers being timed, pre-event managers first */
+    private NodeManager[] nodeManagers;
+
+    /** The number of valid node managers */
+    private int numNodeManagers;
+
+    /** Accumulated time of each node manager this frame, in nanoseconds */
+    private long[] nodeManagerTimes;
+
+    /** The number of passes through the route cascade this frame */
+    private int cascadeDepth;
+
+    /** The time the current frame began */
+    private long frameStart;
+
+    /** The time of the last mark */
+    private long lastMark;
+
+    /** Total time of the last completed frame, in nanoseconds */
+    private long frameTime;
+
+    /** The number of frames completed */
+    private long frameCount;
+
+    /**
+     * Create a new timer that has not timed any frames.
+     */
+    public PhaseTimer() {
+        phaseTimes = new long[NUM_PHASES];
+        phaseEvents = new int[NUM_PHASES];
+        nodeManagers = new NodeManager[0];
+        nodeManagerTimes = new long[0];
+    }
+
+    /**
+     * Start timing a new frame, clearing the times of the last one.
+     */
+    public void beginFrame() {
+        for(int i = 0; i < NUM_PHASES; i++) {
+            phaseTimes[i] = 0;
+            phaseEvents[i] = 0;
+        }
+
+        for(int i = 0; i < numNodeManagers; i++)
+            nodeManagerTimes[i] = 0;
+
+        cascadeDepth = 0;
+
+        frameStart = System.nanoTime();
+        lastMark = frameStart;
+    }
+
+    /**
+     * Charge the time since the last mark to the given phase.
+     *
+     * @param phase One of the phase constants
+     */
+    public void mark(int phase) {
+        long now = System.nanoTime();
+        phaseTimes[phase] += now - lastMark;
+        lastMark = now;
+    }
+
+    /**
+     * Add to the number of events handed to a phase this frame.
+     *
+     * @param phase One of the phase constants
+     * @param events The number of events to add
+     */
+    public void count(int phase, int events) {
+        phaseEvents[phase] += events;
+    }
+
+    /**
+     * Note the start of another pass through the route cascade.
+     */
+    public void cascadePass() {
+        cascadeDepth++;
+    }
+
+    /**
+     * Set the node managers that are timed. The times of all managers are
+     * cleared.
+     *
+     * @param managers The managers, pre-event managers first
+     * @param num The number of valid managers in the array
+     */
+    public void setNodeManagers(NodeManager[] managers, int num) {
+        if(nodeManagers.length < num) {
+            nodeManagers = new NodeManager[num];
+            nodeManagerTimes = new long[num];
+        }
+
+        for(int i = 0; i < num; i++) {
+            nodeManagers[i] = managers[i];
+            nodeManagerTimes[i] = 0;
+        }
+
+        for(int i = num; i < numNodeManagers; i++)
+            nodeManagers[i] = null;
+
+        numNodeManagers = num;
+    }
+
+    /**
+     * Add to the time of a node manager this frame. The time is not charged
+     * to any phase by this call.
+     *
+     * @param index The index of the manager as given to setNodeManagers
+     * @param time The time to add in nanoseconds
+     */
+    public void addNodeManagerTime(int index, long time) {
+        nodeManagerTimes[index] += time;
+    }
+
+    /**
+     * Finish timing the current frame. Any time since the last mark is
+     * charged to {@link #OTHER}.
+     */
+    public void endFrame() {
+        mark(OTHER);
+        frameTime = lastMark - frameStart;
+        frameCount++;
+    }
+
+    /**
+     * Get the time spent in a phase during the last completed frame.
+     *
+     * @param phase One of the phase constants
+     * @return The time in nanoseconds
+     */
+    @Override
+    public long getPhaseTime(int phase) {
+        return phaseTimes[phase];
+    }
+
+    /**
+     * Get the total time of the last completed frame.
+     *
+     * @return The time in nanoseconds
+     */
+    @Override
+    public long getFrameTime() {
+        return frameTime;
+    }
+
+    /**
+     * Get the number of frames that have been completed since this timer was
+     * created.
+     *
+     * @return The frame count
+     */
+    @Override
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public int getPhaseEvents(int phase) {
+        return phaseEvents[phase];
+    }
+
+    @Override
+    public int getCascadeDepth() {
+        return cascadeDepth;
+    }
+
+    @Override
+    public int getNumNodeManagers() {
+        return numNodeManagers;
+    }
+
+    @Override
+    public NodeManager getNodeManager(int index) {
+        return nodeManagers[index];
+    }
+
+    @Override
+    public long getNodeManagerTime(int index) {
+        return nodeManagerTimes[index];
+    }
+
+    /**
+     * Get the name of a phase, suitable for a column heading.
+     *
+     * @param phase One of the phase constants
+     * @return The name of the phase
+     */
+    public static String getPhaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+}
@@ -0,0 +1,242 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.impl.core.eventmodel;
+
+// External imports
+// None
+
+// Local imports
+// None
+
+/**
+ * Histogram of the most recent samples of a non-negative value, such as a
+ * time in nanoseconds.
+ * <p>
+ *
+ * The histogram covers a fixed window of samples. Once the window is full,
+ * each new sample pushes out the oldest one. Values below 8 have a bucket
+ * each. Above that each power of two is split into four buckets, so a
+ * percentile is reported to within 25% of the true value while the whole
+ * range of a long fits in under 250 buckets. Adding a sample does not
+ * allocate.
+ * <p>
+ *
+ * The histogram is not thread safe.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class RollingHistogram {
+
+    /** Values below this have a bucket each */
+    private static final int LINEAR_LIMIT = 8;
+
+    /** Number of buckets each power of two is split into, as a shift */
+    private static final int SUB_BUCKET_BITS = 2;
+
+    /** Number of buckets each power of two is split into */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The total number of buckets */
+    private static final int NUM_BUCKETS =
+        LINEAR_LIMIT + (63 - 3) * SUB_BUCKETS;
+
+    /** The samples in the window, as a ring */
+    private final long[] samples;
+
+    /** Count of the samples in each bucket */
+    private final int[] buckets;
+
+    /** The index the next sample is written to */
+    private int next;
+
+    /** The number of samples in the window */
+    private int count;
+
+    /** Sum of the samples in the window */
+    private long sum;
+
+    /**
+     * Create a histogram over a window of samples.
+     *
+     * @param window The number of samples to keep
+     * @throws IllegalArgumentException The window is less than 1
+     */
+    public RollingHistogram(int window) {
+        if(window < 1)
+            throw new IllegalArgumentException("Window must be at least 1");
+
+        samples = new long[window];
+        buckets = new int[NUM_BUCKETS];
+    }
+
+    /**
+     * Add a sample, dropping the oldest sample if the window is full.
+     * Negative values are counted as zero.
+     *
+     * @param value The value to add
+     */
+    public void add(long value) {
+        if(value < 0)
+            value = 0;
+
+        if(count == samples.length) {
+            long old = samples[next];
+            buckets[bucketIndex(old)]--;
+            sum -= old;
+        } else {
+            count++;
+        }
+
+        samples[next] = value;
+        buckets[bucketIndex(value)]++;
+        sum += value;
+
+        next++;
+        if(next == samples.length)
+            next = 0;
+    }
+
+    /**
+     * Remove all samples.
+     */
+    public void clear() {
+        for(int i = 0; i < NUM_BUCKETS; i++)
+            buckets[i] = 0;
+
+        next = 0;
+        count = 0;
+        sum = 0;
+    }
+
+    /**
+     * Get the number of samples the window holds when full.
+     *
+     * @return The window size
+     */
+    public int getWindow() {
+        return samples.length;
+    }
+
+    /**
+     * Get the number of samples currently in the window.
+     *
+     * @return The sample count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the mean of the samples in the window.
+     *
+     * @return The mean or 0 if there are no samples
+     */
+    public double getMean() {
+        return (count == 0) ? 0 : (double)sum / count;
+    }
+
+    /**
+     * Get the largest sample in the window. This is exact.
+     *
+     * @return The largest sample or 0 if there are no samples
+     */
+    public long getMax() {
+        long max = 0;
+
+        for(int i = 0; i < count; i++) {
+            if(samples[i] > max)
+                max = samples[i];
+        }
+
+        return max;
+    }
+
+    /**
+     * Get the value that the given fraction of samples fall at or below.
+     * The result is the upper bound of the bucket holding that sample.
+     *
+     * @param fraction The fraction of samples, from 0 to 1
+     * @return The percentile value or 0 if there are no samples
+     */
+    public long getPercentile(double fraction) {
+        if(count == 0)
+            return 0;
+
+        long rank = (long)Math.ceil(fraction * count);
+        if(rank < 1)
+            rank = 1;
+
+        long seen = 0;
+
+        for(int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets[i];
+
+            if(seen >= rank)
+                return bucketUpperBound(i);
+        }
+
+        return bucketUpperBound(NUM_BUCKETS - 1);
+    }
+
+    /**
+     * Get the number of samples in each bucket. The array holds one entry
+     * per bucket, in increasing order of value.
+     *
+     * @param counts An array to copy the counts to, or null to create one
+     * @return The array of counts
+     */
+    public int[] getBucketCounts(int[] counts) {
+        if(counts == null || counts.length < NUM_BUCKETS)
+            counts = new int[NUM_BUCKETS];
+
+        System.arraycopy(buckets, 0, counts, 0, NUM_BUCKETS);
+
+        return counts;
+    }
+
+    /**
+     * Get the largest value that falls in a bucket.
+     *
+     * @param index The index of the bucket
+     * @return The upper bound of the bucket
+     */
+    public static long bucketUpperBound(int index) {
+        if(index < LINEAR_LIMIT)
+            return index;
+
+        int exp = (index - LINEAR_LIMIT) / SUB_BUCKETS + 3;
+        int sub = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        int shift = exp - SUB_BUCKET_BITS;
+
+        long lower = (long)(SUB_BUCKETS + sub) << shift;
+
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Work out the bucket a value falls in.
+     *
+     * @param value The non-negative value
+     * @return The bucket index
+     */
+    private static int bucketIndex(long value) {
+        if(value < LINEAR_LIMIT)
+            return (int)value;
+
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return LINEAR_LIMIT + (exp - 3) * SUB_BUCKETS + sub;
+    }
+}
@@ -66,6 +66,9 @@ public class SimpleRouter implements Router {
     /** An array of all eventOuts for processing */
     private RouteHolder[] routeList;
 
+    /** The number of routes sent by the last processRoutes() call */
+    private int processedRouteCount;
+
     /** Reporter instance for handing out errors */
     private ErrorReporter errorReporter;
 
@@ -113,6 +116,8 @@ public class SimpleRouter implements Router {
     @Override
     public boolean processRoutes(double timestamp) {
 
+        processedRouteCount = 0;
+
         if(routeCount <= 0)
             return false;
 
@@ -122,6 +127,7 @@ public class SimpleRouter implements Router {
         for(int i = 0; i < routeCount; i++) {
             if(routeList[i].needsProcessing()) {
                 routeList[i].sendRoute(timestamp);
+                processedRouteCount++;
                 routeSetToProcess = true;
             }
         }
@@ -129,6 +135,17 @@ public class SimpleRouter implements Router {
         return routeSetToProcess;
     }
 
+    /**
+     * Get the number of routes that sent an event during the last call to
+     * processRoutes().
+     *
+     * @return The number of routed events
+     */
+    @Override
+    public int getProcessedRouteCount() {
+        return processedRouteCount;
+    }
+
     /**
      * Add a route to the system. If the route exists in the system, this
      * silently ignores the request.
@@ -58,6 +58,9 @@ public class VirtualTimeSensorManager implements TimeSensorManager {
     /** The virtual clock's tick increment */
     private int tickIncrement;
 
+    /** The wall clock time the clock resets to. -1 to use the system time */
+    private long startTime;
+
     /**
      * Create a new time scheduler behaviour
      */
@@ -72,6 +75,7 @@ public class VirtualTimeSensorManager implements TimeSensorManager {
         // VRML time is in seconds. Yes, type conversion long->double
         currentTime = currentWallTime * 0.001;
         tickIncrement = 0;
+        startTime = -1;
     }
 
     //----------------------------------------------------------
@@ -103,12 +107,14 @@ public class VirtualTimeSensorManager implements TimeSensorManager {
     /**
      * Reset the clock to the current time as time zero. This can only be
      * called when the timer is not enabled. The last wall clock time is set
-     * to now so that fraction information will be correctly oriented for
-     * the next time it is enabled called to issue a clock tick.
+     * to now, or the start time if one has been set, so that fraction
+     * information will be correctly oriented for the next time it is enabled
+     * called to issue a clock tick.
      */
     @Override
     public void resetTimeZero() {
-        currentWallTime = System.currentTimeMillis();
+        currentWallTime = (startTime < 0) ? System.currentTimeMillis() : startTime;
+        currentTime = currentWallTime * 0.001;
     }
 
     /**
@@ -243,6 +249,31 @@ public class VirtualTimeSensorManager implements TimeSensorManager {
         return( tickIncrement );
     }
 
+    /**
+     * Set a fixed wall clock time for the clock to start from, and reset
+     * the clock to it now. Every later reset, such as when a new world is
+     * loaded, returns to the same time so that runs of a world repeat
+     * exactly. A negative value returns to starting from the system time.
+     *
+     * @param time The start time in milliseconds, or -1 for the system time
+     */
+    public void setStartTime( long time ) {
+        startTime = time;
+
+        if ( startTime >= 0 ) {
+            resetTimeZero( );
+        }
+    }
+
+    /**
+     * Return the fixed wall clock time the clock starts from.
+     *
+     * @return The start time in milliseconds, or -1 if the system time is used
+     */
+    public long getStartTime( ) {
+        return( startTime );
+    }
+
     /**
      * Internal convenience method to find a listener instance in the list
      *
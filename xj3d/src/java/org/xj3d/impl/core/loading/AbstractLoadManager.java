@@ -342,7 +342,8 @@ public abstract class AbstractLoadManager
                         pending.add(findLoadConstant((VRMLNodeType)node),
                                     urls,
                                     handler,
-                                    details);
+                                    details,
+                                    findLoadPriority(node, index_list[j]));
                     }
                 }
 
@@ -473,7 +474,8 @@ public abstract class AbstractLoadManager
             pending.add(findLoadConstant(node),
                         urls,
                         handler,
-                        details);
+                        details,
+                        findLoadPriority(node, -1));
         } else {
             VRMLMultiExternalNodeType ext_node =
                 (VRMLMultiExternalNodeType)node;
@@ -492,7 +494,8 @@ public abstract class AbstractLoadManager
             pending.add(findLoadConstant(node),
                         urls,
                         handler,
-                        details);
+                        details,
+                        findLoadPriority(node, index));
         }
     }
 
@@ -538,6 +541,21 @@ public abstract class AbstractLoadManager
         loaderPool.restartThreads();
     }
 
+    /**
+     * Find the priority to load the given node's content with. Only nodes
+     * that implement {@link LoadPrioritySource} have a say in this.
+     *
+     * @param node The node instance to test
+     * @param index The field index being loaded
+     * @return The priority within the node's load type
+     */
+    private int findLoadPriority(VRMLNode node, int index) {
+        if(node instanceof LoadPrioritySource)
+            return ((LoadPrioritySource)node).getLoadPriority(index);
+
+        return 0;
+    }
+
     /**
      * Return the given load loadConstantsType constant that represents the given external
  node.
@@ -73,6 +73,17 @@ class StaticRouteManager implements RouteManager {
         return false;
     }
 
+    /**
+     * Get the number of routes that sent an event during the last call to
+     * processRoutes(). Always zero as routes are never processed.
+     *
+     * @return Zero
+     */
+    @Override
+    public int getProcessedRouteCount() {
+        return 0;
+    }
+
     /**
      * Add a route to the system. If the route exists in the system, this
      * silently ignores the request. If the space reference is null then
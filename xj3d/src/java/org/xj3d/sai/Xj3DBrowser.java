@@ -163,6 +163,18 @@ public interface Xj3DBrowser extends ExternalBrowser {
     Xj3DCADView getCADView()
         throws InvalidBrowserException;
 
+    /**
+     * Fetch the interface for writing many fields of many nodes in a single
+     * call from packed primitive arrays.
+     *
+     * @return An interface allowing end-user code to make bulk field
+     *    updates
+     * @throws InvalidBrowserException The dispose method has been called on
+     *    this browser reference.
+     */
+    Xj3DBulkUpdate getBulkUpdate()
+        throws InvalidBrowserException;
+
     /**
      * Set the interceptor for the anchor node handling. This can be used to
      * process the clicks on Anchor nodes and replace or supplement the
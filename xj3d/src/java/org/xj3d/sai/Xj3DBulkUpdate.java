@@ -0,0 +1,157 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the BSD license.
+ * Please read docs/BSD.txt for the text of the license.
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.sai;
+
+// External imports
+// None
+
+// Local imports
+import org.web3d.x3d.sai.InvalidFieldException;
+import org.web3d.x3d.sai.InvalidNodeException;
+import org.web3d.x3d.sai.X3DNode;
+
+/**
+ * Xj3D-specific interface for writing many fields of many nodes in a
+ * single call.
+ * <p>
+ *
+ * Applications that drive a simulation often need to update thousands of
+ * fields every frame, such as the translation and rotation of every
+ * Transform. Going through the individual SAI field objects creates an
+ * event per call. This interface takes the updates as packed primitive
+ * arrays instead: one entry per update in the node and field arrays, and
+ * a fixed number of values, the stride, per update in the value array.
+ * <p>
+ *
+ * Nodes are referred to by integer handles, fetched once with
+ * {@link #getNodeHandle(X3DNode)}, and fields by their index from
+ * {@link #getFieldID(int, String)}. Updates follow the same rules as the
+ * individual fields: they obey beginUpdate/endUpdate on the browser and
+ * are applied at the start of the next event cascade. All of the updates
+ * of one call are applied together, in the order given.
+ * <p>
+ *
+ * Float values are used for all single precision field types, double
+ * values for double precision and time types and int values for the int32
+ * and boolean types, where non-zero means true. For single valued fields
+ * the stride must be the number of values in the field, such as 3 for an
+ * SFVec3f. For multi-valued fields it must be a multiple of that.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public interface Xj3DBulkUpdate {
+
+    /**
+     * Get the handle used to refer to a node in bulk updates. Asking for
+     * the same node again returns the same handle.
+     *
+     * @param node The node to get the handle for
+     * @return The handle of the node
+     * @throws InvalidNodeException The node is null or has been disposed
+     */
+    int getNodeHandle(X3DNode node)
+        throws InvalidNodeException;
+
+    /**
+     * Release a handle that is no longer needed. The handle may be reused
+     * for another node.
+     *
+     * @param handle The handle to release
+     */
+    void releaseNodeHandle(int handle);
+
+    /**
+     * Get the index of a named field of a node for use in bulk updates.
+     *
+     * @param handle The handle of the node
+     * @param fieldName The name of the field
+     * @return The index of the field
+     * @throws InvalidNodeException The handle is not valid
+     * @throws InvalidFieldException The node has no field of that name
+     */
+    int getFieldID(int handle, String fieldName)
+        throws InvalidNodeException, InvalidFieldException;
+
+    /**
+     * Write single precision values to a set of fields.
+     *
+     * @param count The number of updates
+     * @param nodes The node handle of each update
+     * @param fields The field index of each update
+     * @param values The packed values, stride values per update
+     * @param stride The number of values per update
+     * @throws InvalidNodeException One of the handles is not valid
+     * @throws InvalidFieldException One of the fields can't be written with
+     *    these values at this time
+     */
+    void setValues(int count,
+                   int[] nodes,
+                   int[] fields,
+                   float[] values,
+                   int stride)
+        throws InvalidNodeException, InvalidFieldException;
+
+    /**
+     * Write double precision values to a set of fields.
+     *
+     * @param count The number of updates
+     * @param nodes The node handle of each update
+     * @param fields The field index of each update
+     * @param values The packed values, stride values per update
+     * @param stride The number of values per update
+     * @throws InvalidNodeException One of the handles is not valid
+     * @throws InvalidFieldException One of the fields can't be written with
+     *    these values at this time
+     */
+    void setValues(int count,
+                   int[] nodes,
+                   int[] fields,
+                   double[] values,
+                   int stride)
+        throws InvalidNodeException, InvalidFieldException;
+
+    /**
+     * Write int or boolean values to a set of fields.
+     *
+     * @param count The number of updates
+     * @param nodes The node handle of each update
+     * @param fields The field index of each update
+     * @param values The packed values, stride values per update
+     * @param stride The number of values per update
+     * @throws InvalidNodeException One of the handles is not valid
+     * @throws InvalidFieldException One of the fields can't be written with
+     *    these values at this time
+     */
+    void setValues(int count,
+                   int[] nodes,
+                   int[] fields,
+                   int[] values,
+                   int stride)
+        throws InvalidNodeException, InvalidFieldException;
+
+    /**
+     * Get the number of field updates applied from bulk updates in the
+     * last frame.
+     *
+     * @return The update count
+     */
+    int getLastFrameUpdateCount();
+
+    /**
+     * Get the total number of field updates applied from bulk updates.
+     *
+     * @return The update count
+     */
+    long getTotalUpdateCount();
+}
@@ -452,8 +452,11 @@ public abstract class Construct implements ConstructBuilder {
         RouterFactory routerFactory =
             (RouterFactory)loader.loadClass( ROUTER_FACTORY, false );
 
-        pickingManager =
-            (PickingManager)loader.loadClass( PICKING_MANAGER, false );
+        // Renderers without picking support leave the class unset
+        if ( PICKING_MANAGER != null ) {
+            pickingManager =
+                (PickingManager)loader.loadClass( PICKING_MANAGER, false );
+        }
 
         int num_node_managers = 0;
 
@@ -0,0 +1,421 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ *****************************************************************************/
+
+package org.xj3d.ui.construct.norender;
+
+// External imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.j3d.util.ErrorReporter;
+
+// Local imports
+import org.web3d.browser.BrowserCore;
+import org.web3d.browser.BrowserCoreListener;
+
+import org.web3d.vrml.nodes.VRMLScene;
+
+import org.web3d.vrml.sav.InputSource;
+import org.web3d.vrml.sav.VRMLParseException;
+
+import org.xj3d.core.eventmodel.EventModelEvaluator;
+import org.xj3d.core.loading.LoaderThreadPool;
+import org.xj3d.core.loading.WorldLoader;
+import org.xj3d.core.loading.WorldLoaderManager;
+
+import org.xj3d.impl.core.eventmodel.DefaultEventModelEvaluator;
+import org.xj3d.impl.core.eventmodel.PhaseTimer;
+import org.xj3d.impl.core.eventmodel.VirtualTimeSensorManager;
+
+/**
+ * Runs the event model of a {@link NRConstruct} frame by frame on its
+ * virtual clock, as fast as the machine allows.
+ * <p>
+ *
+ * Each {@link #step()} advances the clock by the tick increment and then
+ * evaluates one frame at that time. The clock starts from a fixed time when
+ * a world is loaded, so a world stepped the same number of frames with the
+ * same increment gives the same results on every run. Content loaded in the
+ * background, such as inlines and externprotos, is waited for before the
+ * first step without advancing the clock.
+ * <p>
+ *
+ * While timing is enabled, the time taken by each phase of every frame is
+ * kept in a {@link FrameTimingLog} that can be written out as CSV or JSON.
+ * <p>
+ *
+ * It may also be run from the command line:
+ * <pre>
+ * java org.xj3d.ui.construct.norender.FrameStepper world.x3d [frames] [tick ms] [timings.csv|timings.json]
+ * </pre>
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class FrameStepper implements BrowserCoreListener {
+
+    /** The default clock increment per frame, in milliseconds */
+    public static final int DEFAULT_TICK_INCREMENT = 20;
+
+    /** The logging identifier of this class */
+    private static final String LOG_NAME = "FrameStepper";
+
+    /** The most frames evaluated while waiting for a world to start */
+    private static final int MAX_START_FRAMES = 1000;
+
+    /** Time to sleep between checks of the content loaders, in ms */
+    private static final long LOAD_WAIT = 10;
+
+    /** The default number of frames run from the command line */
+    private static final int DEFAULT_RUN_FRAMES = 1000;
+
+    /** The construct being run */
+    private final NRConstruct construct;
+
+    /** The clock driving the time sensors */
+    private final VirtualTimeSensorManager clock;
+
+    /** The event model being stepped */
+    private final DefaultEventModelEvaluator eventModel;
+
+    /** The timer the event model records phases with */
+    private final PhaseTimer phaseTimer;
+
+    /** The recorded phase timings */
+    private final FrameTimingLog timingLog;
+
+    /** Pool of the threads loading content for the world */
+    private final LoaderThreadPool loaderPool;
+
+    /** The error reporting mechanism */
+    private final ErrorReporter errorReporter;
+
+    /** Is frame timing enabled */
+    private boolean timingEnabled;
+
+    /** The number of frames stepped since the world was loaded */
+    private long frameCount;
+
+    /** The world currently loaded */
+    private VRMLScene scene;
+
+    /** Flag set once the current world has finished initialising */
+    private boolean worldStarted;
+
+    /**
+     * Create a stepper for a construct. The construct must already be built.
+     * The clock is set to start from zero with the default increment and
+     * timing is enabled.
+     *
+     * @param construct The construct to run
+     * @throws IllegalArgumentException The construct is null or does not use
+     *    the default event model evaluator
+     */
+    public FrameStepper( NRConstruct construct ) {
+        if ( construct == null ) {
+            throw new IllegalArgumentException(
+                LOG_NAME +": construct instance must be non-null" );
+        }
+
+        EventModelEvaluator eme = construct.getEventModelEvaluator( );
+        if ( !( eme instanceof DefaultEventModelEvaluator ) ) {
+            throw new IllegalArgumentException(
+                LOG_NAME +": EventModelEvaluator "+
+                "must be an instanceof DefaultEventModelEvaluator" );
+        }
+
+        this.construct = construct;
+        eventModel = (DefaultEventModelEvaluator)eme;
+        errorReporter = construct.getErrorReporter( );
+        clock = construct.getVirtualClock( );
+        loaderPool = LoaderThreadPool.getLoaderThreadPool( );
+
+        phaseTimer = new PhaseTimer( );
+        timingLog = new FrameTimingLog( );
+
+        clock.setTickIncrement( DEFAULT_TICK_INCREMENT );
+        clock.setStartTime( 0 );
+
+        setTimingEnabled( true );
+
+        construct.getBrowserCore( ).addCoreListener( this );
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by BrowserCoreListener
+    //----------------------------------------------------------
+
+    @Override
+    public void browserInitialized( VRMLScene scene ) {
+        worldStarted = true;
+    }
+
+    @Override
+    public void urlLoadFailed( String msg ) {
+    }
+
+    @Override
+    public void browserShutdown( ) {
+    }
+
+    @Override
+    public void browserDisposed( ) {
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Load a world and run it up to the point where it is ready to be
+     * stepped. Background content loading is waited for. The clock is reset
+     * to the start time and the timing log is cleared.
+     *
+     * @param source The world to load
+     * @return true if the world loaded and started
+     */
+    public boolean loadWorld( InputSource source ) {
+        BrowserCore core = construct.getBrowserCore( );
+        WorldLoaderManager wlm = construct.getWorldLoaderManager( );
+        WorldLoader loader = wlm.fetchLoader( );
+
+        try {
+            scene = loader.loadNow( core, source );
+        } catch( IOException | VRMLParseException e ) {
+            errorReporter.errorReport( LOG_NAME +": Failed to load file", e );
+            return( false );
+        } finally {
+            wlm.releaseLoader( loader );
+        }
+
+        worldStarted = false;
+        frameCount = 0;
+        timingLog.clear( );
+
+        core.setScene( scene, null );
+
+        // Evaluate frames at the start time until the world is running
+        for ( int i = 0; i < MAX_START_FRAMES && !worldStarted; i++ ) {
+            eventModel.evaluate( clock.getWallTime( ) );
+        }
+
+        if ( !worldStarted ) {
+            errorReporter.errorReport(
+                LOG_NAME +": World did not start after "+ MAX_START_FRAMES +
+                " frames", null );
+            return( false );
+        }
+
+        waitForContent( );
+
+        return( true );
+    }
+
+    /**
+     * Wait for all background content loading to finish. Frames are
+     * evaluated without advancing the clock so that loaded content is added
+     * to the world and any content that it refers to is requested.
+     */
+    public void waitForContent( ) {
+        while ( isLoadingInProgress( ) ) {
+            try {
+                Thread.sleep( LOAD_WAIT );
+            } catch ( InterruptedException ie ) {
+                Thread.currentThread( ).interrupt( );
+                return;
+            }
+
+            eventModel.evaluate( clock.getWallTime( ) );
+        }
+
+        eventModel.evaluate( clock.getWallTime( ) );
+    }
+
+    /**
+     * Check whether any content is still being loaded for the world.
+     *
+     * @return true if there are loads waiting or in progress
+     */
+    public boolean isLoadingInProgress( ) {
+        int total = loaderPool.getWaitingList( ).size( ) +
+            loaderPool.getProgressMap( ).size( ) +
+            construct.getWorldLoaderManager( ).getNumberLoadersActive( );
+
+        return( total > 0 );
+    }
+
+    /**
+     * Advance the clock by one tick and evaluate a frame.
+     */
+    public void step( ) {
+        clock.tick( );
+        frameCount++;
+
+        long timed = phaseTimer.getFrameCount( );
+
+        eventModel.evaluate( clock.getWallTime( ) );
+
+        if ( timingEnabled && ( phaseTimer.getFrameCount( ) != timed ) ) {
+            timingLog.addFrame( frameCount, clock.getWallTime( ), phaseTimer );
+        }
+    }
+
+    /**
+     * Step a number of frames.
+     *
+     * @param frames The number of frames to step
+     */
+    public void run( int frames ) {
+        for ( int i = 0; i < frames; i++ ) {
+            step( );
+        }
+    }
+
+    /**
+     * Get the world most recently loaded.
+     *
+     * @return The scene, or null if none has been loaded
+     */
+    public VRMLScene getScene( ) {
+        return( scene );
+    }
+
+    /**
+     * Get the number of frames stepped since the world was loaded.
+     *
+     * @return The frame count
+     */
+    public long getFrameCount( ) {
+        return( frameCount );
+    }
+
+    /**
+     * Set the amount the clock advances each frame.
+     *
+     * @param millis The clock increment in milliseconds
+     */
+    public void setTickIncrement( int millis ) {
+        clock.setTickIncrement( millis );
+    }
+
+    /**
+     * Get the amount the clock advances each frame.
+     *
+     * @return The clock increment in milliseconds
+     */
+    public int getTickIncrement( ) {
+        return( clock.getTickIncrement( ) );
+    }
+
+    /**
+     * Set the time the clock starts from when a world is loaded.
+     *
+     * @param millis The start time in milliseconds, or -1 to start from the
+     *    system time
+     */
+    public void setStartTime( long millis ) {
+        clock.setStartTime( millis );
+    }
+
+    /**
+     * Turn the recording of phase timings on or off. When off the event
+     * model does no timing at all.
+     *
+     * @param enable true to record timings
+     */
+    public void setTimingEnabled( boolean enable ) {
+        timingEnabled = enable;
+        eventModel.setPhaseTimer( enable ? phaseTimer : null );
+    }
+
+    /**
+     * Check whether phase timings are being recorded.
+     *
+     * @return true if timings are recorded
+     */
+    public boolean isTimingEnabled( ) {
+        return( timingEnabled );
+    }
+
+    /**
+     * Get the log of phase timings for the frames stepped so far.
+     *
+     * @return The timing log
+     */
+    public FrameTimingLog getTimingLog( ) {
+        return( timingLog );
+    }
+
+    /**
+     * Load a world, run it for a number of frames and optionally write the
+     * phase timings out.
+     *
+     * @param args The world file, then optionally the frame count, the clock
+     *    increment in milliseconds and the timings file. A timings file
+     *    ending in .json is written as JSON, anything else as CSV.
+     */
+    public static void main( String[] args ) {
+        if ( args.length < 1 ) {
+            System.out.println( "Usage: FrameStepper world [frames] " +
+                "[tick ms] [timings.csv|timings.json]" );
+            System.exit( 1 );
+        }
+
+        int frames = ( args.length > 1 ) ?
+            Integer.parseInt( args[1] ) : DEFAULT_RUN_FRAMES;
+
+        NRConstruct construct = new NRConstruct( );
+        construct.buildAll( );
+
+        FrameStepper stepper = new FrameStepper( construct );
+
+        if ( args.length > 2 ) {
+            stepper.setTickIncrement( Integer.parseInt( args[2] ) );
+        }
+
+        int status = 0;
+
+        try {
+            if ( !stepper.loadWorld( new InputSource( new File( args[0] ).toURI( ).toURL( ) ) ) ) {
+                System.exit( 1 );
+            }
+
+            long start = System.nanoTime( );
+            stepper.run( frames );
+            long elapsed = System.nanoTime( ) - start;
+
+            System.out.printf( "%d frames in %.3f s, %.1f frames/s%n",
+                frames,
+                elapsed * 1e-9,
+                frames / ( elapsed * 1e-9 ) );
+
+            if ( args.length > 3 ) {
+                try ( Writer out = new FileWriter( args[3] ) ) {
+                    if ( args[3].endsWith( ".json" ) ) {
+                        stepper.getTimingLog( ).writeJSON( out );
+                    } else {
+                        stepper.getTimingLog( ).writeCSV( out );
+                    }
+                }
+            }
+        } catch ( IOException ioe ) {
+            construct.getErrorReporter( ).errorReport(
+                LOG_NAME +": Failed to read or write file", ioe );
+            status = 1;
+        }
+
+        // Content loader threads are not daemons
+        System.exit( status );
+    }
+}
@@ -0,0 +1,218 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ *****************************************************************************/
+
+package org.xj3d.ui.construct.norender;
+
+// External imports
+import java.io.IOException;
+import java.io.Writer;
+
+// Local imports
+import org.xj3d.impl.core.eventmodel.PhaseTimer;
+
+/**
+ * A record of the phase timings of a sequence of event model frames, with
+ * export to CSV and JSON.
+ * <p>
+ *
+ * Each row holds the frame number, the virtual clock time of the frame in
+ * milliseconds, the total time taken by the frame and the time of each
+ * {@link PhaseTimer} phase. All durations are in nanoseconds. The rows are
+ * kept in one growing array so that recording a frame does not allocate.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class FrameTimingLog {
+
+    /** Number of values per row before the phase times */
+    private static final int ROW_HEADER = 3;
+
+    /** Number of values per row */
+    private static final int ROW_SIZE = ROW_HEADER + PhaseTimer.NUM_PHASES;
+
+    /** The number of rows to make room for at the start */
+    private static final int INITIAL_ROWS = 1024;
+
+    /** The rows, ROW_SIZE values each */
+    private long[] rows;
+
+    /** The number of rows recorded */
+    private int numRows;
+
+    /**
+     * Create a new, empty log.
+     */
+    public FrameTimingLog() {
+        rows = new long[INITIAL_ROWS * ROW_SIZE];
+    }
+
+    /**
+     * Record the last frame completed by a timer.
+     *
+     * @param frame The number of the frame
+     * @param time The virtual clock time of the frame in milliseconds
+     * @param timer The timer holding the frame's phase times
+     */
+    public void addFrame(long frame, long time, PhaseTimer timer) {
+        if((numRows + 1) * ROW_SIZE > rows.length) {
+            long[] tmp = new long[rows.length * 2];
+            System.arraycopy(rows, 0, tmp, 0, numRows * ROW_SIZE);
+            rows = tmp;
+        }
+
+        int pos = numRows * ROW_SIZE;
+        rows[pos++] = frame;
+        rows[pos++] = time;
+        rows[pos++] = timer.getFrameTime();
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++)
+            rows[pos++] = timer.getPhaseTime(i);
+
+        numRows++;
+    }
+
+    /**
+     * Get the number of frames recorded.
+     *
+     * @return The number of rows
+     */
+    public int size() {
+        return numRows;
+    }
+
+    /**
+     * Remove all recorded frames.
+     */
+    public void clear() {
+        numRows = 0;
+    }
+
+    /**
+     * Get the frame number of a row.
+     *
+     * @param row The index of the row
+     * @return The frame number
+     */
+    public long getFrame(int row) {
+        return rows[row * ROW_SIZE];
+    }
+
+    /**
+     * Get the virtual clock time of a row.
+     *
+     * @param row The index of the row
+     * @return The time in milliseconds
+     */
+    public long getTime(int row) {
+        return rows[row * ROW_SIZE + 1];
+    }
+
+    /**
+     * Get the total time taken by the frame of a row.
+     *
+     * @param row The index of the row
+     * @return The time in nanoseconds
+     */
+    public long getFrameTime(int row) {
+        return rows[row * ROW_SIZE + 2];
+    }
+
+    /**
+     * Get the time of one phase of the frame of a row.
+     *
+     * @param row The index of the row
+     * @param phase One of the PhaseTimer phase constants
+     * @return The time in nanoseconds
+     */
+    public long getPhaseTime(int row, int phase) {
+        return rows[row * ROW_SIZE + ROW_HEADER + phase];
+    }
+
+    /**
+     * Write the log as CSV with a header line. The stream is not closed.
+     *
+     * @param out The stream to write to
+     * @throws IOException The stream could not be written to
+     */
+    public void writeCSV(Writer out) throws IOException {
+        out.write("frame,time,total");
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++) {
+            out.write(',');
+            out.write(PhaseTimer.getPhaseName(i));
+        }
+
+        out.write('\n');
+
+        for(int r = 0; r < numRows; r++) {
+            int pos = r * ROW_SIZE;
+
+            for(int i = 0; i < ROW_SIZE; i++) {
+                if(i != 0)
+                    out.write(',');
+
+                out.write(Long.toString(rows[pos + i]));
+            }
+
+            out.write('\n');
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Write the log as a JSON object holding the list of phase names and an
+     * array of frames, one object per frame. The stream is not closed.
+     *
+     * @param out The stream to write to
+     * @throws IOException The stream could not be written to
+     */
+    public void writeJSON(Writer out) throws IOException {
+        out.write("{\n  \"phases\": [");
+
+        for(int i = 0; i < PhaseTimer.NUM_PHASES; i++) {
+            if(i != 0)
+                out.write(", ");
+
+            out.write('"');
+            out.write(PhaseTimer.getPhaseName(i));
+            out.write('"');
+        }
+
+        out.write("],\n  \"frames\": [");
+
+        for(int r = 0; r < numRows; r++) {
+            int pos = r * ROW_SIZE;
+
+            out.write(r == 0 ? "\n    {" : ",\n    {");
+            out.write("\"frame\": ");
+            out.write(Long.toString(rows[pos]));
+            out.write(", \"time\": ");
+            out.write(Long.toString(rows[pos + 1]));
+            out.write(", \"total\": ");
+            out.write(Long.toString(rows[pos + 2]));
+
+            for(int i = 0; i < PhaseTimer.NUM_PHASES; i++) {
+                out.write(", \"");
+                out.write(PhaseTimer.getPhaseName(i));
+                out.write("\": ");
+                out.write(Long.toString(rows[pos + ROW_HEADER + i]));
+            }
+
+            out.write('}');
+        }
+
+        out.write(numRows == 0 ? "]\n}\n" : "\n  ]\n}\n");
+        out.flush();
+    }
+}
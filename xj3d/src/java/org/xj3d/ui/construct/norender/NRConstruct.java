@@ -0,0 +1,155 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ *****************************************************************************/
+
+package org.xj3d.ui.construct.norender;
+
+// External imports
+import org.j3d.util.ErrorReporter;
+
+// Local imports
+import org.web3d.browser.Xj3DConstants;
+
+import org.web3d.vrml.renderer.norender.NRSceneBuilderFactory;
+import org.web3d.vrml.renderer.norender.browser.NRUniverse;
+
+import org.xj3d.impl.core.eventmodel.VirtualTimeSensorManager;
+import org.xj3d.ui.construct.Construct;
+
+/**
+ * A construct for a browser with no rendering at all.
+ * <p>
+ *
+ * The full event model runs, with routes, scripts, sensors and the node
+ * managers such as physics and particles, over the null renderer nodes.
+ * There is no graphics or audio device, no input devices and no picking.
+ * The browser core does not run a thread of its own and the time sensors
+ * are driven from a {@link VirtualTimeSensorManager}, so nothing happens
+ * until the frames are stepped, normally by a {@link FrameStepper}.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class NRConstruct extends Construct {
+
+    ///////////////////////////////////////////////////////////////////
+    // Renderer specific manager classes
+
+    /** The layer manager factory class */
+    protected String NR_LAYER_MANAGER_FACTORY =
+        "org.web3d.vrml.renderer.norender.browser.NRLayerManagerFactory";
+
+    /** The content handler factory class, needing no UI toolkit */
+    protected String NR_CONTENT_HANDLER_FACTORY =
+        "org.web3d.net.content.VRMLContentHandlerFactory";
+
+    /** The application controlled time sensor manager class */
+    protected String VIRTUAL_TIME_SENSOR_MANAGER =
+        "org.xj3d.impl.core.eventmodel.VirtualTimeSensorManager";
+
+    /**
+     * Create a construct that reports errors to the default reporter.
+     */
+    public NRConstruct( ) {
+        this( null );
+    }
+
+    /**
+     * Create a construct that reports errors to the given reporter.
+     *
+     * @param reporter The error reporter
+     */
+    public NRConstruct( ErrorReporter reporter ) {
+        super( reporter );
+
+        renderer = Xj3DConstants.NULL_RENDERER;
+        renderer_id = Xj3DConstants.NULL_ID;
+
+        LAYER_MANAGER_FACTORY = NR_LAYER_MANAGER_FACTORY;
+        CONTENT_HANDLER_FACTORY = NR_CONTENT_HANDLER_FACTORY;
+        TIME_SENSOR_MANAGER = VIRTUAL_TIME_SENSOR_MANAGER;
+
+        // The only picking manager works on the OpenGL scene graph
+        PICKING_MANAGER = null;
+
+        useMipMaps = false;
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by Construct
+    //----------------------------------------------------------
+
+    /**
+     * There is no rendering surface.
+     *
+     * @return null
+     */
+    @Override
+    public Object getGraphicsObject( ) {
+        return( null );
+    }
+
+    @Override
+    protected void buildGraphicsRenderingDevice( ) {
+    }
+
+    @Override
+    protected void buildAudioRenderingDevice( ) {
+    }
+
+    @Override
+    protected void buildBrowserCore( ) {
+        core = new NRUniverse( eventModel, false );
+    }
+
+    @Override
+    protected void buildSceneBuilderFactory( ) {
+
+        sceneBuilderFactory = new NRSceneBuilderFactory(
+            ( supportVRML & !supportX3D ),
+            true,
+            true,
+            true,
+            true,
+            true,
+            true );
+    }
+
+    @Override
+    public NRUniverse getBrowserCore( ) {
+        return( (NRUniverse)core );
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by ConstructBuilder
+    //----------------------------------------------------------
+
+    @Override
+    public void buildInterfaceDevices( ) {
+    }
+
+    @Override
+    public void buildRenderer( ) {
+    }
+
+    //----------------------------------------------------------
+    // Local Methods
+    //----------------------------------------------------------
+
+    /**
+     * Return the clock that drives the time sensors.
+     *
+     * @return The virtual clock
+     */
+    public VirtualTimeSensorManager getVirtualClock( ) {
+        return( (VirtualTimeSensorManager)timeSensorManager );
+    }
+}
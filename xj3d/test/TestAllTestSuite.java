@@ -14,6 +14,8 @@ public class TestAllTestSuite extends TestSuite {
         suite.addTest(org.web3d.vrml.TestWeb3DVrmlTestSuite.suite());
         suite.addTest(org.web3d.x3d.jaxp.TestJaxpResolversTestSuite.suite());
         suite.addTest(org.xj3d.core.loading.TestContentLoaderTestSuite.suite());
+        suite.addTest(org.xj3d.impl.core.eventmodel.TestEventModelTestSuite.suite());
+        suite.addTest(org.xj3d.ui.construct.norender.TestConstructTestSuite.suite());
         suite.addTest(xj3d.filter.TestXj3dFiltersTestSuite.suite());
 
         return suite;
@@ -9,6 +9,13 @@ import org.web3d.vrml.export.compressors.*;
 import org.web3d.vrml.nodes.proto.*;
 import org.web3d.vrml.parser.*;
 import org.web3d.vrml.parser.vrml97.*;
+import org.web3d.vrml.renderer.common.geospatial.*;
+import org.web3d.vrml.renderer.common.nodes.*;
+import org.web3d.vrml.renderer.common.nodes.geospatial.*;
+import org.web3d.vrml.renderer.common.nodes.interpolator.*;
+import org.web3d.vrml.scripting.external.buffer.*;
+import org.web3d.vrml.scripting.external.neteai.*;
+import org.web3d.vrml.scripting.external.sai.*;
 import org.web3d.vrml.util.*;
 
 /**
@@ -22,9 +29,18 @@ public class TestWeb3DVrmlTestSuite extends TestSuite {
 //        suite.addTest(BinaryTester.suite()); <- Needs works
         suite.addTest(TestCompressionTools.suite());
         suite.addTest(TestProtoBuilder.suite());
+        suite.addTest(TestProtoInstancePlan.suite());
         suite.addTest(TestVRML97Reader.suite());
         suite.addTest(TestVRML97FieldParser.suite());
         suite.addTest(TestURLChecker.suite());
+        suite.addTest(TestGeometryUtils.suite());
+        suite.addTest(TestGeoConversionService.suite());
+        suite.addTest(TestGeoLODPagingManager.suite());
+        suite.addTest(TestFloatArrayInterpolator.suite());
+        suite.addTest(TestSharedFieldNodes.suite());
+        suite.addTest(TestPooledSAIEventAdapter.suite());
+        suite.addTest(TestExternalBulkUpdate.suite());
+        suite.addTest(TestFieldRequestBatch.suite());
 
         return suite;
     }
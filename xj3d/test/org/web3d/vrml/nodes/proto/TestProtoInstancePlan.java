@@ -0,0 +1,244 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.nodes.proto;
+
+// Standard imports
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+import org.web3d.vrml.lang.FieldConstants;
+import org.web3d.vrml.lang.SceneMetaData;
+import org.web3d.vrml.lang.VRMLException;
+import org.web3d.vrml.lang.VRMLNodeFactory;
+import org.web3d.vrml.lang.WriteableSceneMetaData;
+import org.web3d.vrml.nodes.VRMLFieldData;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.renderer.CRProtoInstance;
+import org.web3d.vrml.renderer.CRVRMLScene;
+import org.web3d.vrml.renderer.norender.NRNodeFactory;
+import org.web3d.vrml.renderer.norender.NRProtoCreator;
+import org.web3d.vrml.renderer.norender.nodes.core.NRWorldRoot;
+
+/**
+ * A test case to check that proto instances built from the compiled
+ * ProtoInstancePlan are wired up the same as the first instance.
+ * <p>
+ */
+public class TestProtoInstancePlan extends TestCase {
+
+    /** The name of the test proto */
+    private static final String PROTO_NAME = "PlanProto";
+
+    /** The ProtoBuilder instance used to create the declaration */
+    private ProtoBuilder builder;
+
+    /** Node factory used for testing */
+    private VRMLNodeFactory factory;
+
+    /** The execution space the instances are created in */
+    private NRWorldRoot root;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestProtoInstancePlan(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestProtoInstancePlan.class);
+    }
+
+    /**
+     * Provide initialization of this test instance.
+     */
+    @Override
+    public void setUp() {
+        factory = NRNodeFactory.getNRNodeFactory();
+        factory.setSpecVersion(3, 0);
+        factory.setProfile("Immersive");
+
+        builder = new ProtoBuilder(factory);
+        builder.setLoadRequirements(true, true, true, true, true, true, true);
+
+        CRVRMLScene scene = new CRVRMLScene(3, 0);
+        scene.setNodeFactory(factory);
+        scene.setMetaData(new WriteableSceneMetaData("3.0",
+                                                     false,
+                                                     SceneMetaData.SCRIPTED_ENCODING));
+
+        root = new NRWorldRoot();
+        root.setContainedScene(scene);
+    }
+
+    @Override
+    public void tearDown() {
+        factory = null;
+        builder = null;
+        root = null;
+    }
+
+    /**
+     * Every instance should get its own copy of the body with the DEF, IS
+     * and route wiring in place, while the plan is only built once.
+     */
+    public void testInstances() throws Exception {
+        PrototypeDecl proto = buildProto();
+
+        NRProtoCreator creator = new NRProtoCreator(factory, "", 3, 0);
+
+        assertNull("Plan before first instance", proto.getInstancePlan());
+
+        CRProtoInstance first =
+            (CRProtoInstance)creator.newInstance(proto, root, 3, 0, false);
+        ProtoInstancePlan plan = proto.getInstancePlan();
+
+        assertNotNull("No plan built", plan);
+        assertEquals("DEF count", 2, plan.defNames.length);
+        assertEquals("Route count", 1, plan.routeSources.length);
+        assertEquals("IS count", 1, plan.isFieldNames.length);
+
+        CRProtoInstance second =
+            (CRProtoInstance)creator.newInstance(proto, root, 3, 0, false);
+
+        assertSame("Plan rebuilt", plan, proto.getInstancePlan());
+        assertEquals("Instance count", 2, proto.getInstanceCount());
+        assertTrue("No build time", proto.getInstanceTime() > 0);
+        assertTrue("No build rate", proto.getInstanceRate() > 0);
+
+        checkInstance(first);
+        checkInstance(second);
+
+        VRMLNodeType c1 =
+            (VRMLNodeType)first.getContainedScene().getDEFNodes().get("P");
+        VRMLNodeType c2 =
+            (VRMLNodeType)second.getContainedScene().getDEFNodes().get("P");
+
+        assertNotSame("Body not copied", c1, c2);
+
+        // Changing the declaration throws the plan away
+        ProtoROUTE route = proto.getRouteDecls().iterator().next();
+        proto.addRouteDecl(route);
+        assertNull("Plan not cleared", proto.getInstancePlan());
+    }
+
+    /**
+     * Indices in the plan that are wrong or unresolved for an instance
+     * should be looked up again by field name rather than replayed.
+     */
+    public void testStaleIndices() throws Exception {
+        PrototypeDecl proto = buildProto();
+
+        NRProtoCreator creator = new NRProtoCreator(factory, "", 3, 0);
+        creator.newInstance(proto, root, 3, 0, false);
+
+        ProtoInstancePlan plan = proto.getInstancePlan();
+
+        assertEquals("IS node count", 1, plan.isNodeFields[0].length);
+        assertEquals("IS field name", "keyValue", plan.isNodeFieldNames[0][0]);
+        assertEquals("Route field name",
+                     "set_fraction",
+                     plan.routeDestinationFieldNames[0]);
+
+        int dest_field = plan.routeDestinationFields[0];
+
+        // One unresolved index and one pointing at the wrong field
+        plan.routeDestinationFields[0] = -1;
+        plan.isNodeFields[0][0] = dest_field;
+
+        CRProtoInstance instance =
+            (CRProtoInstance)creator.newInstance(proto, root, 3, 0, false);
+
+        assertSame("Plan rebuilt", plan, proto.getInstancePlan());
+        checkInstance(instance);
+
+        ProtoScene scene = (ProtoScene)instance.getContainedScene();
+        VRMLNodeType interp = (VRMLNodeType)scene.getDEFNodes().get("P");
+
+        assertEquals("Route destination field",
+                     interp.getFieldIndex("set_fraction"),
+                     scene.getRoutes().get(0).getDestinationIndex());
+    }
+
+    /**
+     * Check the DEF, IS and route wiring of an instance.
+     */
+    private void checkInstance(CRProtoInstance instance) {
+        ProtoScene scene = (ProtoScene)instance.getContainedScene();
+
+        VRMLNodeType interp = (VRMLNodeType)scene.getDEFNodes().get("P");
+
+        assertNotNull("DEF not mapped", interp);
+
+        VRMLFieldData data =
+            interp.getFieldValue(interp.getFieldIndex("keyValue"));
+
+        assertEquals("IS value not set", 3, data.numElements);
+        assertEquals("IS value", 2, data.floatArrayValues[3], 0);
+
+        assertEquals("Route not added", 1, scene.getRoutes().size());
+        assertSame("Route source",
+                   scene.getDEFNodes().get("T"),
+                   scene.getRoutes().get(0).getSourceNode());
+
+        int field = instance.getFieldIndex("points");
+        assertTrue("No IS mapping", field >= 0);
+    }
+
+    /**
+     * Build a proto with a field IS'd to an interpolator keyValue and a route
+     * between two DEFed body nodes.
+     */
+    private PrototypeDecl buildProto() throws VRMLException {
+        builder.startDocument("internal:///", null, "utf8", "#X3D", "V3.0", null);
+        builder.startProtoDecl(PROTO_NAME);
+        builder.protoFieldDecl(FieldConstants.EXPOSEDFIELD,
+                               "MFVec3f",
+                               "points",
+                               "0 0 0 2 0 0 2 2 0");
+        builder.endProtoDecl();
+        builder.startProtoBody();
+        builder.startNode("Group", null);
+        builder.startField("children");
+        builder.startNode("TimeSensor", "T");
+        builder.endNode();
+        builder.startNode("PositionInterpolator", "P");
+        builder.startField("keyValue");
+        builder.protoIsDecl("points");
+        builder.endNode();
+        builder.endField();
+        builder.endNode();
+        builder.routeDecl("T", "fraction_changed", "P", "set_fraction");
+        builder.endProtoBody();
+
+        return (PrototypeDecl)builder.getPrototype();
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,206 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.geospatial;
+
+// Standard imports
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.geotools.referencing.operation.matrix.Matrix4;
+import org.geotools.referencing.operation.transform.ProjectiveTransform;
+
+import org.opengis.referencing.operation.MathTransform;
+
+// Application specific imports
+
+/**
+ * A test case to check the analytic and bulk conversion code of the
+ * GeoConversionService.
+ * <p>
+ */
+public class TestGeoConversionService extends TestCase {
+
+    /** Tolerance for comparing converted positions, in metres */
+    private static final double EPSILON = 1e-6;
+
+    /** WGS84 semi-major axis */
+    private static final double WGS84_A = 6378137;
+
+    /** WGS84 semi-minor axis */
+    private static final double WGS84_B = 6356752.314245179;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestGeoConversionService(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestGeoConversionService.class);
+    }
+
+    /**
+     * Put the shared service back to its defaults after each test.
+     */
+    @Override
+    public void tearDown() {
+        GeoConversionService gcs = GeoConversionService.getInstance();
+        gcs.setAnalyticEnabled(true);
+        gcs.setParallelThreshold(16384);
+        gcs.resetCounters();
+    }
+
+    /**
+     * Check the analytic geodetic conversion at points where the answer is
+     * known, including one checked against the GeoTools output.
+     */
+    public void testGeodeticKnownPoints() {
+        double[] src = {
+            0, 0, 0,
+            0, 90, 0,
+            90, 0, 0,
+            37.5, -122.3, 150
+        };
+
+        double[] expected = {
+            WGS84_A, 0, 0,
+            0, 0, -WGS84_A,
+            0, WGS84_B, 0,
+            -2707308.871194347, 3861655.4130239575, 4282539.1563761635
+        };
+
+        double[] dst = new double[src.length];
+        GeoConversionService.geodeticToGeocentric(src, 0, dst, 0, 4, true);
+
+        for(int i = 0; i < expected.length; i++)
+            assertEquals("Coordinate " + i, expected[i], dst[i], EPSILON);
+
+        // Same again with longitude first, converting in place.
+        for(int i = 0; i < src.length; i += 3) {
+            double tmp = src[i];
+            src[i] = src[i + 1];
+            src[i + 1] = tmp;
+        }
+
+        GeoConversionService.geodeticToGeocentric(src, 0, src, 0, 4, false);
+
+        for(int i = 0; i < expected.length; i++)
+            assertEquals("In place coordinate " + i, expected[i], src[i], EPSILON);
+    }
+
+    /**
+     * A bulk conversion split into parallel chunks should give the same
+     * result as a serial one, with the local floats offset by the origin and
+     * the source left untouched when swapping.
+     */
+    public void testParallelChunks() throws Exception {
+        Matrix4 mat = new Matrix4();
+        mat.setElement(0, 0, 2);
+        mat.setElement(2, 3, 10);
+        MathTransform transform = ProjectiveTransform.create(mat);
+
+        int num_points = 20000;
+        double[] src = new double[num_points * 3];
+        for(int i = 0; i < src.length; i++)
+            src[i] = i;
+
+        double[] orig = src.clone();
+        double[] origin = { 1, 2, 3 };
+
+        GeoConversionService gcs = GeoConversionService.getInstance();
+        gcs.setParallelThreshold(100);
+
+        assertFalse("Plain matrix is analytic", gcs.isAnalytic(transform));
+
+        double[] dst = new double[src.length];
+        float[] local = new float[src.length];
+
+        gcs.transform(transform,
+                      true,
+                      src,
+                      0,
+                      dst,
+                      0,
+                      local,
+                      0,
+                      origin,
+                      num_points);
+
+        for(int i = 0; i < src.length; i++)
+            assertEquals("Source modified " + i, orig[i], src[i], 0);
+
+        for(int i = 0; i < num_points; i++) {
+            int idx = i * 3;
+
+            assertEquals("X " + i, 2 * src[idx + 1], dst[idx], EPSILON);
+            assertEquals("Y " + i, src[idx], dst[idx + 1], EPSILON);
+            assertEquals("Z " + i, src[idx + 2] + 10, dst[idx + 2], EPSILON);
+
+            assertEquals("Local X " + i,
+                         (float)(dst[idx] - origin[0]),
+                         local[idx],
+                         0);
+        }
+
+        assertEquals("Points counted", num_points, gcs.getPointsConverted());
+        assertEquals("Analytic counted", 0, gcs.getAnalyticPointsConverted());
+    }
+
+    /**
+     * Re-applying a new origin should only change the local values.
+     */
+    public void testOffset() {
+        double[] src = { 10, 20, 30, 40, 50, 60 };
+        float[] local = new float[6];
+
+        GeoConversionService gcs = GeoConversionService.getInstance();
+
+        gcs.offset(src, 0, local, 0, null, 2);
+        for(int i = 0; i < src.length; i++)
+            assertEquals("No origin " + i, (float)src[i], local[i], 0);
+
+        gcs.offset(src, 0, local, 0, new double[] { 10, 10, 10 }, 2);
+        for(int i = 0; i < src.length; i++)
+            assertEquals("With origin " + i, (float)(src[i] - 10), local[i], 0);
+    }
+
+    /**
+     * The parallel threshold must be positive.
+     */
+    public void testInvalidThreshold() {
+        try {
+            GeoConversionService.getInstance().setParallelThreshold(0);
+            fail("Zero threshold accepted");
+        } catch(IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,270 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes;
+
+// Standard imports
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+
+/**
+ * A test case to check that incremental rebuilds in GeometryUtils produce
+ * the same output as a full rebuild of the geometry.
+ * <p>
+ */
+public class TestGeometryUtils extends TestCase {
+
+    /** Number of quads along each side of the test grid */
+    private static final int GRID_SIZE = 20;
+
+    /** Tolerance for comparing generated values */
+    private static final float EPSILON = 1e-5f;
+
+    /** Crease angle used to get smoothed normals */
+    private static final float CREASE_ANGLE = 1.0f;
+
+    /** The grid coordinates */
+    private float[] coords;
+
+    /** The grid coordIndex, one quad per face */
+    private int[] coordIndex;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestGeometryUtils(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestGeometryUtils.class);
+    }
+
+    /**
+     * Build a gently curved grid to work with.
+     */
+    @Override
+    public void setUp() {
+        int num_vtx = GRID_SIZE + 1;
+        coords = new float[num_vtx * num_vtx * 3];
+
+        int pos = 0;
+        for(int i = 0; i < num_vtx; i++) {
+            for(int j = 0; j < num_vtx; j++) {
+                coords[pos++] = j;
+                coords[pos++] = (float)Math.sin(i * 0.3) * (float)Math.cos(j * 0.2);
+                coords[pos++] = i;
+            }
+        }
+
+        coordIndex = new int[GRID_SIZE * GRID_SIZE * 5];
+
+        pos = 0;
+        for(int i = 0; i < GRID_SIZE; i++) {
+            for(int j = 0; j < GRID_SIZE; j++) {
+                int base = i * num_vtx + j;
+                coordIndex[pos++] = base;
+                coordIndex[pos++] = base + num_vtx;
+                coordIndex[pos++] = base + num_vtx + 1;
+                coordIndex[pos++] = base + 1;
+                coordIndex[pos++] = -1;
+            }
+        }
+    }
+
+    /**
+     * Moving a few vertices should only rebuild the surrounding faces and
+     * give the same result as building from scratch.
+     */
+    public void testCoordinateUpdate() {
+        GeometryUtils gutils = new GeometryUtils();
+        gutils.setIncrementalUpdates(true);
+        GeometryHolder gh = new GeometryHolder();
+
+        build(gutils, gh, 0, true);
+        int total = gutils.getVerticesRebuilt();
+        assertEquals("Full build count", GRID_SIZE * GRID_SIZE * 6, total);
+
+        coords[3 * 50 + 1] += 0.5f;
+        coords[3 * 51 + 2] -= 0.25f;
+
+        build(gutils, gh, BaseComponentGeometryNode.COORDS_CHANGED, false);
+
+        int rebuilt = gutils.getVerticesRebuilt();
+        assertTrue("Nothing rebuilt", rebuilt > 0);
+        assertTrue("Whole mesh rebuilt", rebuilt < total);
+
+        int[] range = new int[2];
+        gutils.getDirtyRange(range);
+        assertTrue("Empty dirty range", range[1] > 0);
+        assertTrue("Dirty range too big", range[0] + range[1] <= total);
+
+        compareWithFullBuild(gh);
+    }
+
+    /**
+     * Changing the coordIndex of a single face should give the same result as
+     * building from scratch.
+     */
+    public void testCoordIndexUpdate() {
+        GeometryUtils gutils = new GeometryUtils();
+        gutils.setIncrementalUpdates(true);
+        GeometryHolder gh = new GeometryHolder();
+
+        build(gutils, gh, 0, true);
+        int total = gutils.getVerticesRebuilt();
+
+        // Rotate the vertex order of one quad and point another at a
+        // different vertex.
+        int face = 5 * 5;
+        int tmp = coordIndex[face];
+        coordIndex[face] = coordIndex[face + 1];
+        coordIndex[face + 1] = coordIndex[face + 2];
+        coordIndex[face + 2] = coordIndex[face + 3];
+        coordIndex[face + 3] = tmp;
+        coordIndex[40 * 5 + 2] = 3;
+
+        build(gutils, gh, BaseComponentGeometryNode.COORDS_INDEX_CHANGED, false);
+
+        int rebuilt = gutils.getVerticesRebuilt();
+        assertTrue("Nothing rebuilt", rebuilt > 0);
+        assertTrue("Whole mesh rebuilt", rebuilt < total);
+
+        compareWithFullBuild(gh);
+    }
+
+    /**
+     * A build with no actual value changes should not touch the output.
+     */
+    public void testNoChange() {
+        GeometryUtils gutils = new GeometryUtils();
+        gutils.setIncrementalUpdates(true);
+        GeometryHolder gh = new GeometryHolder();
+
+        build(gutils, gh, 0, true);
+        build(gutils, gh, BaseComponentGeometryNode.COORDS_CHANGED, false);
+
+        assertEquals("Vertices rebuilt", 0, gutils.getVerticesRebuilt());
+    }
+
+    /**
+     * An incremental build into a copy of the last output should give the
+     * same result as building from scratch, and leave the arrays of the
+     * previous output alone, as those may still be in use by the renderer.
+     */
+    public void testCopiedHolder() {
+        GeometryUtils gutils = new GeometryUtils();
+        gutils.setIncrementalUpdates(true);
+        GeometryHolder front = new GeometryHolder();
+
+        build(gutils, front, 0, true);
+        int total = gutils.getVerticesRebuilt();
+
+        float[] front_coords = front.coordinates.clone();
+        float[] front_normals = front.normals.clone();
+
+        GeometryHolder back = new GeometryHolder();
+        back.vertexCount = front.vertexCount;
+        back.coordinates = front.coordinates.clone();
+        back.normals = front.normals.clone();
+
+        coords[3 * 120 + 1] += 0.75f;
+
+        build(gutils, back, BaseComponentGeometryNode.COORDS_CHANGED, false);
+
+        int rebuilt = gutils.getVerticesRebuilt();
+        assertTrue("Nothing rebuilt", rebuilt > 0);
+        assertTrue("Whole mesh rebuilt", rebuilt < total);
+
+        for(int i = 0; i < front_coords.length; i++) {
+            assertEquals("Front coordinate " + i,
+                         front_coords[i],
+                         front.coordinates[i],
+                         0);
+            assertEquals("Front normal " + i,
+                         front_normals[i],
+                         front.normals[i],
+                         0);
+        }
+
+        compareWithFullBuild(back);
+    }
+
+    /**
+     * Run a build of the grid through the given utilities.
+     */
+    private void build(GeometryUtils gutils,
+                       GeometryHolder gh,
+                       int flags,
+                       boolean initial) {
+        gutils.generateTriangleArrays(coords,
+                                      null,
+                                      null,
+                                      null,
+                                      flags,
+                                      false,
+                                      true,
+                                      coordIndex,
+                                      coordIndex.length,
+                                      null,
+                                      null,
+                                      null,
+                                      true,
+                                      true,
+                                      true,
+                                      true,
+                                      0,
+                                      CREASE_ANGLE,
+                                      initial,
+                                      gh);
+    }
+
+    /**
+     * Build the current grid from scratch and check the output matches.
+     */
+    private void compareWithFullBuild(GeometryHolder gh) {
+        GeometryHolder expected = new GeometryHolder();
+        build(new GeometryUtils(), expected, 0, true);
+
+        assertEquals("Vertex count", expected.vertexCount, gh.vertexCount);
+
+        for(int i = 0; i < expected.vertexCount * 3; i++) {
+            assertEquals("Coordinate " + i,
+                         expected.coordinates[i],
+                         gh.coordinates[i],
+                         EPSILON);
+            assertEquals("Normal " + i,
+                         expected.normals[i],
+                         gh.normals[i],
+                         EPSILON);
+        }
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,170 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes;
+
+// Standard imports
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+import org.web3d.vrml.nodes.VRMLFieldData;
+import org.web3d.vrml.nodes.proto.PrototypeDecl;
+import org.web3d.vrml.renderer.norender.nodes.geom3d.NRIndexedFaceSet;
+import org.web3d.vrml.renderer.norender.nodes.interpolator.NRCoordinateInterpolator;
+import org.web3d.vrml.renderer.norender.nodes.render.NRCoordinate;
+
+/**
+ * A test case to check that node copies share their large MF field arrays
+ * with the original and take their own copy when written to.
+ * <p>
+ */
+public class TestSharedFieldNodes extends TestCase {
+
+    /** Points used for the coordinate tests */
+    private static final float[] POINTS = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0 };
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestSharedFieldNodes(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestSharedFieldNodes.class);
+    }
+
+    /**
+     * A copied coordinate should share the points until either node is
+     * given new ones, and writing should never change the other node.
+     */
+    public void testCoordinate() {
+        NRCoordinate template = new NRCoordinate();
+        template.setPoint(POINTS, POINTS.length);
+
+        NRCoordinate copy = new NRCoordinate(template);
+
+        assertSame("Points not shared", template.getPointRef(), copy.getPointRef());
+        assertEquals("Shared bytes", POINTS.length * 4, copy.getSharedFieldBytes());
+        assertEquals("Point count", POINTS.length, copy.getNumPoints());
+
+        float[] moved = { 5, 5, 5 };
+        copy.setPoint(moved, 3);
+
+        assertNotSame("Write did not copy", template.getPointRef(), copy.getPointRef());
+        assertEquals("Nothing shared after write", 0, copy.getSharedFieldBytes());
+        assertEquals("Template changed", 0, template.getPointRef()[0], 0);
+        assertEquals("Copy value", 5, copy.getPointRef()[0], 0);
+
+        // The template takes its own copy too, leaving the other copies alone
+        NRCoordinate other = new NRCoordinate(template);
+        float[] shared = other.getPointRef();
+
+        template.setPoint(moved, 3);
+
+        assertNotSame("Template write did not copy", shared, template.getPointRef());
+        assertEquals("Other copy changed", 0, other.getPointRef()[0], 0);
+    }
+
+    /**
+     * Index arrays are shared with the copy and only ever replaced.
+     */
+    public void testIndexedGeometry() {
+        int[] index = { 0, 1, 2, 3, -1 };
+
+        NRIndexedFaceSet template = new NRIndexedFaceSet();
+        int field = template.getFieldIndex("coordIndex");
+        template.setValue(field, index, index.length);
+
+        NRIndexedFaceSet copy = new NRIndexedFaceSet(template);
+
+        VRMLFieldData data = copy.getFieldValue(field);
+        assertSame("Index not shared", index, data.intArrayValues);
+        assertEquals("Index count", index.length, data.numElements);
+        assertEquals("Shared bytes", index.length * 4, copy.getSharedFieldBytes());
+
+        copy.setValue(field, new int[] { 0, 1, 2, -1 }, 4);
+        assertEquals("Nothing shared after write", 0, copy.getSharedFieldBytes());
+
+        data = template.getFieldValue(field);
+        assertSame("Template changed", index, data.intArrayValues);
+    }
+
+    /**
+     * A copied interpolator should evaluate from the shared keyValue array
+     * and copy it when given new values.
+     */
+    public void testInterpolator() {
+        float[] keys = { 0, 1 };
+        float[] values = { 0, 0, 0, 10, 10, 10 };
+
+        NRCoordinateInterpolator template = new NRCoordinateInterpolator();
+        int key_field = template.getFieldIndex("key");
+        int value_field = template.getFieldIndex("keyValue");
+
+        template.setValue(key_field, keys, 2);
+        template.setValue(value_field, values, values.length);
+        template.setupFinished();
+
+        NRCoordinateInterpolator copy = new NRCoordinateInterpolator(template);
+        copy.setupFinished();
+
+        assertEquals("Shared bytes", values.length * 4, copy.getSharedFieldBytes());
+
+        copy.setFraction(0.5f);
+        VRMLFieldData data = copy.getFieldValue(template.getFieldIndex("value_changed"));
+        assertEquals("Interpolated value", 5, data.floatArrayValues[0], 0);
+
+        float[] new_values = { 20, 20, 20, 30, 30, 30 };
+        copy.setValue(value_field, new_values, new_values.length);
+
+        assertEquals("Nothing shared after write", 0, copy.getSharedFieldBytes());
+
+        data = template.getFieldValue(value_field);
+        assertEquals("Template changed", 10, data.floatArrayValues[3], 0);
+
+        copy.setFraction(0.5f);
+        data = copy.getFieldValue(template.getFieldIndex("value_changed"));
+        assertEquals("New interpolated value", 25, data.floatArrayValues[0], 0);
+    }
+
+    /**
+     * The proto declaration should total the shared memory per instance.
+     */
+    public void testProtoTotals() {
+        PrototypeDecl proto = new PrototypeDecl("Test", 3, 0, null);
+
+        proto.recordInstance(1000, 0);
+        proto.recordInstance(500, 0);
+
+        assertEquals("Instance count", 2, proto.getInstanceCount());
+        assertEquals("Shared bytes", 1500, proto.getSharedFieldBytes());
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
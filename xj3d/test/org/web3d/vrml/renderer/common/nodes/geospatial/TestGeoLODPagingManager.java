@@ -0,0 +1,282 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes.geospatial;
+
+// Standard imports
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+import org.web3d.vrml.nodes.VRMLExternalNodeType;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.nodes.VRMLUrlListener;
+import org.web3d.vrml.renderer.norender.nodes.geospatial.NRGeoLOD;
+
+/**
+ * A test case to check the prefetch decisions, LRU eviction and metrics of
+ * the GeoLODPagingManager.
+ * <p>
+ */
+public class TestGeoLODPagingManager extends TestCase {
+
+    /** Tolerance for comparing distances */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * Simple tile that records when it has been paged out.
+     */
+    private static class TestTile implements GeoLODPagingManager.PagedTile {
+        /** Manager the tile belongs to */
+        GeoLODPagingManager manager;
+
+        /** Whether the tile is currently being shown */
+        boolean shown;
+
+        /** Number of times pageOut() was called */
+        int pageOutCount;
+
+        /** Tile nested in this one, released when paged out */
+        TestTile nested;
+
+        TestTile(GeoLODPagingManager mgr) {
+            manager = mgr;
+        }
+
+        @Override
+        public boolean isPageable() {
+            return !shown;
+        }
+
+        @Override
+        public void pageOut() {
+            pageOutCount++;
+
+            if(nested != null) {
+                manager.tileReleased(nested);
+                nested.pageOut();
+            }
+        }
+    }
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestGeoLODPagingManager(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestGeoLODPagingManager.class);
+    }
+
+    /**
+     * Check the predicted path distance and the prefetch decision.
+     */
+    public void testPrefetchDecision() {
+        GeoLODPagingManager mgr = new GeoLODPagingManager();
+        mgr.setLookAheadFrames(10);
+
+        double[] center = { 100, 0, 0 };
+        float[] pos = { 0, 0, 0 };
+
+        assertEquals("Stationary", 10000, mgr.predictDistanceSquared(center, pos, null), EPSILON);
+
+        // Moving away gives the current distance
+        float[] vel = { -1, 0, 0 };
+        assertEquals("Moving away", 10000, mgr.predictDistanceSquared(center, pos, vel), EPSILON);
+
+        // 10 frames at 5 per frame ends 50 from the center
+        vel[0] = 5;
+        assertEquals("Moving towards", 2500, mgr.predictDistanceSquared(center, pos, vel), EPSILON);
+
+        // Passing to the side gets the closest approach
+        center[1] = 30;
+        vel[0] = 20;
+        assertEquals("Passing", 900, mgr.predictDistanceSquared(center, pos, vel), EPSILON);
+
+        mgr.setPrefetchRangeScale(1.5f);
+        assertTrue("Inside prefetch range", mgr.shouldPrefetch(140 * 140, 100));
+        assertFalse("Outside prefetch range", mgr.shouldPrefetch(160 * 160, 100));
+
+        int near = mgr.prefetchPriority(50 * 50, 100);
+        int far = mgr.prefetchPriority(140 * 140, 100);
+
+        assertTrue("Prefetch must follow demand loads", near > 0);
+        assertTrue("Nearer should load first", near < far);
+    }
+
+    /**
+     * Tiles over the budget should be evicted in least recently used order,
+     * skipping those in use, and nested tiles released along the way.
+     */
+    public void testEviction() {
+        GeoLODPagingManager mgr = new GeoLODPagingManager();
+        mgr.setMemoryBudget(300);
+
+        TestTile a = new TestTile(mgr);
+        TestTile b = new TestTile(mgr);
+        TestTile c = new TestTile(mgr);
+        TestTile d = new TestTile(mgr);
+
+        a.nested = d;
+
+        mgr.tileLoaded(a, 100);
+        mgr.tileLoaded(b, 100);
+        mgr.tileLoaded(c, 100);
+        mgr.tileLoaded(d, 50);
+
+        assertEquals("Resident tiles", 4, mgr.getResidentTileCount());
+        assertEquals("Resident bytes", 350, mgr.getResidentBytes());
+
+        // b is in view and c is the oldest, so c should get thrown out
+        b.shown = true;
+        mgr.tileUsed(a);
+        mgr.tileUsed(b);
+        mgr.tileUsed(d);
+
+        mgr.evict();
+
+        assertEquals("b in use", 0, b.pageOutCount);
+        assertEquals("c evicted", 1, c.pageOutCount);
+        assertEquals("a kept", 0, a.pageOutCount);
+        assertEquals("Resident bytes", 250, mgr.getResidentBytes());
+
+        // Evicting a is enough as it takes the nested d with it
+        mgr.setMemoryBudget(150);
+        mgr.evict();
+
+        assertEquals("a evicted", 1, a.pageOutCount);
+        assertEquals("d released with a", 1, d.pageOutCount);
+        assertFalse("d resident", mgr.isResident(d));
+        assertEquals("Only b left", 1, mgr.getResidentTileCount());
+        assertEquals("Resident bytes", 100, mgr.getResidentBytes());
+        assertEquals("Peak bytes", 350, mgr.getPeakResidentBytes());
+        assertEquals("Eviction count", 2, mgr.getEvictionCount());
+    }
+
+    /**
+     * Check the counters and their reset.
+     */
+    public void testMetrics() {
+        GeoLODPagingManager mgr = new GeoLODPagingManager();
+
+        assertEquals("No level changes", 0, mgr.getHitRate(), 0);
+
+        mgr.recordHit();
+        mgr.recordHit();
+        mgr.recordHit();
+        mgr.recordStall();
+        mgr.recordPrefetch();
+
+        assertEquals("Hits", 3, mgr.getHitCount());
+        assertEquals("Stalls", 1, mgr.getStallCount());
+        assertEquals("Prefetches", 1, mgr.getPrefetchCount());
+        assertEquals("Hit rate", 0.75, mgr.getHitRate(), EPSILON);
+
+        mgr.resetCounters();
+
+        assertEquals("Hits reset", 0, mgr.getHitCount());
+        assertEquals("Stalls reset", 0, mgr.getStallCount());
+        assertEquals("Prefetches reset", 0, mgr.getPrefetchCount());
+    }
+
+    /**
+     * The settings should reject out of range values.
+     */
+    public void testInvalidSettings() {
+        GeoLODPagingManager mgr = new GeoLODPagingManager();
+
+        try {
+            mgr.setMemoryBudget(-1);
+            fail("Negative budget accepted");
+        } catch(IllegalArgumentException iae) {
+            // expected
+        }
+
+        try {
+            mgr.setPrefetchRangeScale(0.5f);
+            fail("Scale below 1 accepted");
+        } catch(IllegalArgumentException iae) {
+            // expected
+        }
+
+        try {
+            mgr.setLookAheadFrames(-1);
+            fail("Negative look ahead accepted");
+        } catch(IllegalArgumentException iae) {
+            // expected
+        }
+
+        mgr.setMemoryBudget(0);
+        assertFalse("Zero budget should not retain", mgr.isRetentionEnabled());
+    }
+
+    /**
+     * A child should only be requested again once its last request has
+     * finished, failed or been dropped by the loader.
+     */
+    public void testChildRequests() {
+        NRGeoLOD lod = new NRGeoLOD();
+        int child1 = lod.getFieldIndex("child1Url");
+        lod.setValue(child1, new String[] { "child1.x3d" }, 1);
+
+        final int[] requests = new int[1];
+
+        lod.addUrlListener(new VRMLUrlListener() {
+            @Override
+            public void urlChanged(VRMLNodeType node, int index) {
+                requests[0]++;
+            }
+        });
+
+        lod.prefetching = true;
+
+        assertTrue("First request not made", lod.requestChild(0));
+        assertFalse("Empty URL requested", lod.requestChild(1));
+
+        // Loader starts on it, then the level is shown
+        lod.getLoadState(child1);
+        assertFalse("Outstanding request repeated", lod.requestChild(0));
+        assertEquals("Wrong request count", 1, requests[0]);
+
+        lod.setLoadState(child1, VRMLExternalNodeType.LOAD_FAILED);
+        assertTrue("Failed load not requested again", lod.requestChild(0));
+
+        // Viewer turns away before the loader gets to it
+        lod.prefetching = false;
+        assertEquals("Unwanted load not dropped",
+                     VRMLExternalNodeType.LOAD_COMPLETE,
+                     lod.getLoadState(child1));
+
+        lod.prefetching = true;
+        assertTrue("Dropped load not requested again", lod.requestChild(0));
+        assertEquals("Wrong request count", 3, requests[0]);
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
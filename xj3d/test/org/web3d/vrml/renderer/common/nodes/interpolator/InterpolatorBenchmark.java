@@ -0,0 +1,138 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes.interpolator;
+
+// Standard imports
+import java.util.Random;
+
+import org.j3d.util.interpolator.CoordinateInterpolator;
+
+// Application specific imports
+
+/**
+ * Simple timing comparison of the j3d.org CoordinateInterpolator against the
+ * FloatArrayInterpolator, as used by the coordinate interpolator node.
+ * <p>
+ *
+ * Not a unit test. Run from the command line with optional arguments of the
+ * number of coordinates per key and the number of keys:
+ * <pre>
+ * java org.web3d.vrml.renderer.common.nodes.interpolator.InterpolatorBenchmark 100000 10
+ * </pre>
+ * Each frame advances the fraction a little, as a TimeSensor would. The old
+ * path includes the copy into the node's value array that the node used to
+ * make.
+ */
+public class InterpolatorBenchmark {
+
+    /** Number of untimed frames to let the JIT settle */
+    private static final int WARMUP_FRAMES = 500;
+
+    /** Number of timed frames */
+    private static final int TIMED_FRAMES = 1000;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Optional coordinate and key counts
+     */
+    public static void main(String[] args) {
+        int num_coords = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int num_keys = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        int per_key = num_coords * 3;
+        float[] keys = new float[num_keys];
+        float[] values = new float[per_key * num_keys];
+
+        Random rand = new Random(42);
+        for(int i = 0; i < values.length; i++)
+            values[i] = rand.nextFloat();
+
+        CoordinateInterpolator old_interp = new CoordinateInterpolator(num_keys);
+        float[] tmp = new float[per_key];
+
+        for(int i = 0; i < num_keys; i++) {
+            keys[i] = i / (float)(num_keys - 1);
+            System.arraycopy(values, i * per_key, tmp, 0, per_key);
+            old_interp.addKeyFrame(keys[i], tmp);
+        }
+
+        FloatArrayInterpolator new_interp = new FloatArrayInterpolator();
+        new_interp.setKeys(keys, num_keys, values, values.length, per_key);
+
+        float[] output = new float[per_key];
+
+        System.out.println("Coordinates per key: " + num_coords +
+                           " keys: " + num_keys);
+
+        runOld(old_interp, output, WARMUP_FRAMES);
+        long time = runOld(old_interp, output, TIMED_FRAMES);
+        report("CoordinateInterpolator", time);
+
+        FloatArrayInterpolator.setParallelThreshold(Integer.MAX_VALUE);
+        runNew(new_interp, output, WARMUP_FRAMES);
+        time = runNew(new_interp, output, TIMED_FRAMES);
+        report("FloatArrayInterpolator serial", time);
+
+        FloatArrayInterpolator.setParallelThreshold(65536);
+        runNew(new_interp, output, WARMUP_FRAMES);
+        time = runNew(new_interp, output, TIMED_FRAMES);
+        report("FloatArrayInterpolator parallel", time);
+    }
+
+    /**
+     * Time the old interpolator.
+     */
+    private static long runOld(CoordinateInterpolator interp,
+                               float[] output,
+                               int frames) {
+        long start = System.nanoTime();
+
+        for(int i = 0; i < frames; i++) {
+            float[] value = interp.floatValue(fraction(i, frames));
+            System.arraycopy(value, 0, output, 0, output.length);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Time the new interpolator.
+     */
+    private static long runNew(FloatArrayInterpolator interp,
+                               float[] output,
+                               int frames) {
+        long start = System.nanoTime();
+
+        for(int i = 0; i < frames; i++)
+            interp.interpolate(fraction(i, frames), output);
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The fraction for the given frame, avoiding the exact key values.
+     */
+    private static float fraction(int frame, int frames) {
+        return (frame + 0.5f) / frames;
+    }
+
+    /**
+     * Print out the average frame time.
+     */
+    private static void report(String name, long nanos) {
+        System.out.printf("%-34s %8.3f ms/frame%n",
+                          name,
+                          nanos / (TIMED_FRAMES * 1e6));
+    }
+}
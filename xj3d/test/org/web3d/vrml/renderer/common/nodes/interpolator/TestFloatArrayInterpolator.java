@@ -0,0 +1,246 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.renderer.common.nodes.interpolator;
+
+// Standard imports
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.j3d.util.interpolator.CoordinateInterpolator;
+
+// Application specific imports
+
+/**
+ * A test case to check the FloatArrayInterpolator gives the same answers as
+ * the j3d.org interpolators it replaces.
+ * <p>
+ */
+public class TestFloatArrayInterpolator extends TestCase {
+
+    /** Tolerance for comparing interpolated values */
+    private static final float EPSILON = 1e-5f;
+
+    /** Keys used by most of the tests, including a repeated key */
+    private static final float[] KEYS = { 0, 0.25f, 0.5f, 0.5f, 1 };
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestFloatArrayInterpolator(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestFloatArrayInterpolator.class);
+    }
+
+    /**
+     * Put the threshold back to its default after each test.
+     */
+    @Override
+    public void tearDown() {
+        FloatArrayInterpolator.setParallelThreshold(65536);
+    }
+
+    /**
+     * Linear interpolation should match the j3d.org CoordinateInterpolator,
+     * including before, after and exactly on the keys.
+     */
+    public void testMatchesCoordinateInterpolator() {
+        int per_key = 30;
+        float[] values = createValues(KEYS.length, per_key, 1);
+
+        CoordinateInterpolator ref = new CoordinateInterpolator(KEYS.length);
+        for(int i = 0; i < KEYS.length; i++) {
+            float[] tmp = new float[per_key];
+            System.arraycopy(values, i * per_key, tmp, 0, per_key);
+            ref.addKeyFrame(KEYS[i], tmp);
+        }
+
+        FloatArrayInterpolator interp = new FloatArrayInterpolator();
+        interp.setKeys(KEYS, KEYS.length, values, values.length, per_key);
+
+        float[] out = new float[per_key];
+        float[] fractions = {
+            -1, 0, 0.1f, 0.25f, 0.3f, 0.5f, 0.6f, 0.2f, 0.99f, 1, 2
+        };
+
+        for(float f : fractions) {
+            assertTrue("No result", interp.interpolate(f, out));
+            float[] expected = ref.floatValue(f);
+
+            for(int j = 0; j < per_key; j++)
+                assertEquals("Fraction " + f + " value " + j, expected[j], out[j], EPSILON);
+        }
+    }
+
+    /**
+     * Monotonically increasing fractions should mostly avoid the search.
+     */
+    public void testSegmentCache() {
+        float[] values = createValues(KEYS.length, 3, 2);
+
+        FloatArrayInterpolator interp = new FloatArrayInterpolator();
+        interp.setKeys(KEYS, KEYS.length, values, values.length, 3);
+
+        float[] out = new float[3];
+
+        for(int i = 1; i < 100; i++)
+            interp.interpolate(i / 100f, out);
+
+        assertTrue("Too few cached segments " + interp.getSegmentHits(),
+                   interp.getSegmentHits() >= 90);
+
+        assertEquals("Repeated key", 1, interp.findSegment(0.5f));
+        assertEquals("After repeated key", 3, interp.findSegment(0.75f));
+        assertEquals("Before first", -1, interp.findSegment(0));
+        assertEquals("After last", 4, interp.findSegment(1));
+    }
+
+    /**
+     * Splitting the work across threads should give the same answer.
+     */
+    public void testParallel() {
+        int per_key = 3 * 20000;
+        float[] values = createValues(KEYS.length, per_key, 3);
+
+        FloatArrayInterpolator interp = new FloatArrayInterpolator();
+        interp.setKeys(KEYS, KEYS.length, values, values.length, per_key);
+
+        float[] serial = new float[per_key];
+        float[] serial_normals = new float[per_key];
+        float[] parallel = new float[per_key];
+        float[] parallel_normals = new float[per_key];
+
+        interp.interpolate(0.4f, serial);
+        interp.interpolateNormals(0.4f, serial_normals);
+
+        FloatArrayInterpolator.setParallelThreshold(1000);
+
+        interp.interpolate(0.4f, parallel);
+        interp.interpolateNormals(0.4f, parallel_normals);
+
+        for(int i = 0; i < per_key; i++) {
+            assertEquals("Value " + i, serial[i], parallel[i], 0);
+            assertEquals("Normal " + i, serial_normals[i], parallel_normals[i], 0);
+        }
+    }
+
+    /**
+     * Normals should be spherically interpolated and come out unit length,
+     * with each normal using its own angle.
+     */
+    public void testNormals() {
+        float[] keys = { 0, 1 };
+        // Two normals per key. The first turns from X to Z, the second
+        // stays on Z.
+        float[] values = {
+            1, 0, 0,   0, 0, 1,
+            0, 0, 1,   0, 0, 1
+        };
+
+        FloatArrayInterpolator interp = new FloatArrayInterpolator();
+        interp.setKeys(keys, 2, values, values.length, 6);
+
+        float[] out = new float[6];
+        interp.interpolateNormals(0.5f, out);
+
+        float h = (float)Math.sqrt(0.5);
+
+        assertEquals("First x", h, out[0], EPSILON);
+        assertEquals("First y", 0, out[1], EPSILON);
+        assertEquals("First z", h, out[2], EPSILON);
+
+        // Second normal does not move
+        assertEquals("Second x", 0, out[3], EPSILON);
+        assertEquals("Second y", 0, out[4], EPSILON);
+        assertEquals("Second z", 1, out[5], EPSILON);
+
+        // A third of the way round 90 degrees is 30 degrees
+        interp.interpolateNormals(1 / 3f, out);
+        assertEquals("Partial x", (float)Math.cos(Math.PI / 6), out[0], EPSILON);
+        assertEquals("Partial z", 0.5f, out[2], EPSILON);
+    }
+
+    /**
+     * Mismatched key and value counts should use the lesser of the two and
+     * an empty interpolator should produce nothing.
+     */
+    public void testMismatchedCounts() {
+        float[] values = { 0, 0, 0, 10, 10, 10 };
+
+        FloatArrayInterpolator interp = new FloatArrayInterpolator();
+        interp.setKeys(KEYS, KEYS.length, values, values.length, 3);
+
+        assertEquals("Key count", 2, interp.getNumKeys());
+
+        float[] out = new float[3];
+        interp.interpolate(0.9f, out);
+        assertEquals("Clamped to last", 10, out[0], 0);
+
+        interp.setKeys(KEYS, 0, values, values.length, 3);
+        assertFalse("Empty interpolated", interp.interpolate(0.5f, out));
+    }
+
+    /**
+     * The parallel threshold must be positive.
+     */
+    public void testInvalidThreshold() {
+        try {
+            FloatArrayInterpolator.setParallelThreshold(0);
+            fail("Zero threshold accepted");
+        } catch(IllegalArgumentException iae) {
+            // expected
+        }
+    }
+
+    /**
+     * Create random unit vectors for each key.
+     */
+    private float[] createValues(int numKeys, int perKey, long seed) {
+        Random rand = new Random(seed);
+        float[] ret_val = new float[numKeys * perKey];
+
+        for(int i = 0; i < ret_val.length; i += 3) {
+            float x = rand.nextFloat() - 0.5f;
+            float y = rand.nextFloat() - 0.5f;
+            float z = rand.nextFloat() + 0.1f;
+            float len = (float)Math.sqrt(x * x + y * y + z * z);
+
+            ret_val[i] = x / len;
+            ret_val[i + 1] = y / len;
+            ret_val[i + 2] = z / len;
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,261 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.buffer;
+
+// Standard imports
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.j3d.util.ErrorReporter;
+
+// Application specific imports
+import org.web3d.vrml.lang.FieldConstants;
+import org.web3d.vrml.nodes.VRMLFieldData;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.renderer.norender.nodes.geom3d.NRIndexedFaceSet;
+import org.web3d.vrml.renderer.norender.nodes.group.NRTransform;
+import org.web3d.vrml.renderer.norender.nodes.time.NRTimeSensor;
+
+/**
+ * A test case to check that bulk field updates are applied by the
+ * external event queue and counted.
+ * <p>
+ */
+public class TestExternalBulkUpdate extends TestCase {
+
+    /** The queue under test */
+    private ExternalEventQueue queue;
+
+    /** Free list the updates are returned to */
+    private ConcurrentLinkedQueue<ExternalBulkUpdate> freeList;
+
+    /** Number of errors reported by the queue */
+    private int errorCount;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestExternalBulkUpdate(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestExternalBulkUpdate.class);
+    }
+
+    @Override
+    public void setUp() {
+        errorCount = 0;
+        freeList = new ConcurrentLinkedQueue<>();
+        queue = new ExternalEventQueue(new ErrorReporter() {
+            @Override
+            public void partialReport(String msg) { }
+            @Override
+            public void messageReport(String msg) { }
+            @Override
+            public void warningReport(String msg, Throwable e) { }
+            @Override
+            public void errorReport(String msg, Throwable e) {
+                errorCount++;
+            }
+            @Override
+            public void fatalErrorReport(String msg, Throwable e) {
+                errorCount++;
+            }
+        });
+    }
+
+    /**
+     * Float updates should land in the nodes when the queue is processed,
+     * and the event should be recycled afterwards.
+     */
+    public void testFloatUpdates() {
+        NRTransform t1 = new NRTransform();
+        NRTransform t2 = new NRTransform();
+        int translation = t1.getFieldIndex("translation");
+
+        ExternalBulkUpdate update = new ExternalBulkUpdate(freeList);
+        update.setTargets(2,
+                          new VRMLNodeType[] { t1, t2 },
+                          new int[] { translation, translation },
+                          new int[] { FieldConstants.SFVEC3F,
+                                      FieldConstants.SFVEC3F });
+        update.setValues(new float[] { 1, 2, 3, 4, 5, 6 }, 3);
+
+        queue.processEvent(update);
+
+        assertEquals("Applied before processing", 0, t1.getFieldValue(translation).floatArrayValues[0], 0);
+
+        queue.processEvents();
+
+        VRMLFieldData data = t1.getFieldValue(translation);
+        assertEquals("First X", 1, data.floatArrayValues[0], 0);
+        assertEquals("First Z", 3, data.floatArrayValues[2], 0);
+
+        data = t2.getFieldValue(translation);
+        assertEquals("Second X", 4, data.floatArrayValues[0], 0);
+        assertEquals("Second Z", 6, data.floatArrayValues[2], 0);
+
+        assertEquals("Frame updates", 2, queue.getLastFrameBulkUpdateCount());
+        assertEquals("Frame events", 1, queue.getLastFrameEventCount());
+        assertEquals("Total updates", 2, queue.getTotalBulkUpdateCount());
+        assertSame("Update not recycled", update, freeList.poll());
+
+        queue.processEvents();
+        assertEquals("Frame count not reset", 0, queue.getLastFrameBulkUpdateCount());
+        assertEquals("Total changed", 2, queue.getTotalBulkUpdateCount());
+    }
+
+    /**
+     * Nodes keep MF arrays by reference, so each MF update must get its own
+     * array rather than one that is overwritten by the next update.
+     */
+    public void testMultiValuedUpdates() {
+        NRIndexedFaceSet f1 = new NRIndexedFaceSet();
+        NRIndexedFaceSet f2 = new NRIndexedFaceSet();
+        int index = f1.getFieldIndex("coordIndex");
+
+        ExternalBulkUpdate update = new ExternalBulkUpdate(freeList);
+        update.setTargets(2,
+                          new VRMLNodeType[] { f1, f2 },
+                          new int[] { index, index },
+                          new int[] { FieldConstants.MFINT32,
+                                      FieldConstants.MFINT32 });
+        update.setValues(new int[] { 0, 1, 2, -1, 3, 4, 5, -1 }, 4);
+
+        queue.processEvent(update);
+        queue.processEvents();
+
+        VRMLFieldData d1 = f1.getFieldValue(index);
+        VRMLFieldData d2 = f2.getFieldValue(index);
+
+        assertNotSame("Array shared", d1.intArrayValues, d2.intArrayValues);
+        assertEquals("First index", 0, d1.intArrayValues[0]);
+        assertEquals("Second index", 3, d2.intArrayValues[0]);
+
+        // Reusing the recycled update must not change the first nodes
+        assertSame("Update not recycled", update, freeList.poll());
+
+        update.setTargets(1,
+                          new VRMLNodeType[] { f2 },
+                          new int[] { index },
+                          new int[] { FieldConstants.MFINT32 });
+        update.setValues(new int[] { 6, 7, 8, -1 }, 4);
+
+        queue.processEvent(update);
+        queue.processEvents();
+
+        assertEquals("First changed", 0, f1.getFieldValue(index).intArrayValues[0]);
+        assertEquals("Second not updated", 6, f2.getFieldValue(index).intArrayValues[0]);
+    }
+
+    /**
+     * Updates made between beginUpdate and endUpdate are held back.
+     */
+    public void testTransaction() {
+        NRTransform t = new NRTransform();
+        int scale = t.getFieldIndex("scale");
+
+        ExternalBulkUpdate update = new ExternalBulkUpdate(null);
+        update.setTargets(1,
+                          new VRMLNodeType[] { t },
+                          new int[] { scale },
+                          new int[] { FieldConstants.SFVEC3F });
+        update.setValues(new float[] { 2, 2, 2 }, 3);
+
+        queue.beginUpdate();
+        queue.processEvent(update);
+        queue.processEvents();
+
+        assertEquals("Applied inside transaction", 1, t.getFieldValue(scale).floatArrayValues[0], 0);
+
+        queue.endUpdate();
+        queue.processEvents();
+
+        assertEquals("Not applied", 2, t.getFieldValue(scale).floatArrayValues[0], 0);
+    }
+
+    /**
+     * Int and double values should handle the scalar and boolean types and
+     * a bad value should not stop the others being applied.
+     */
+    public void testMixedTypes() {
+        NRTimeSensor s1 = new NRTimeSensor();
+        NRTimeSensor s2 = new NRTimeSensor();
+        int loop = s1.getFieldIndex("loop");
+        int interval = s1.getFieldIndex("cycleInterval");
+
+        ExternalBulkUpdate bools = new ExternalBulkUpdate(null);
+        bools.setTargets(2,
+                         new VRMLNodeType[] { s1, s2 },
+                         new int[] { loop, loop },
+                         new int[] { FieldConstants.SFBOOL,
+                                     FieldConstants.SFBOOL });
+        bools.setValues(new int[] { 1, 0 }, 1);
+
+        ExternalBulkUpdate times = new ExternalBulkUpdate(null);
+        times.setTargets(2,
+                         new VRMLNodeType[] { s1, s2 },
+                         new int[] { interval, interval },
+                         new int[] { FieldConstants.SFTIME,
+                                     FieldConstants.SFTIME });
+        times.setValues(new double[] { 5, -1 }, 1);
+
+        queue.processEvent(bools);
+        queue.processEvent(times);
+        queue.processEvents();
+
+        assertTrue("Loop not set", s1.getFieldValue(loop).booleanValue);
+        assertFalse("Loop set", s2.getFieldValue(loop).booleanValue);
+        assertEquals("Interval", 5, s1.getFieldValue(interval).doubleValue, 0);
+
+        assertEquals("Bad value counted", 3, queue.getLastFrameBulkUpdateCount());
+        assertEquals("Error not reported", 1, errorCount);
+    }
+
+    /**
+     * Check the value kind and MF classification of field types.
+     */
+    public void testValueKinds() {
+        assertEquals("SFVec3f", ExternalBulkUpdate.FLOAT_VALUES,
+                     ExternalBulkUpdate.getValueKind(FieldConstants.SFVEC3F));
+        assertEquals("SFTime", ExternalBulkUpdate.DOUBLE_VALUES,
+                     ExternalBulkUpdate.getValueKind(FieldConstants.SFTIME));
+        assertEquals("MFBool", ExternalBulkUpdate.INT_VALUES,
+                     ExternalBulkUpdate.getValueKind(FieldConstants.MFBOOL));
+        assertEquals("SFString", -1,
+                     ExternalBulkUpdate.getValueKind(FieldConstants.SFSTRING));
+
+        assertTrue("MFVec3f", ExternalBulkUpdate.isMultiValued(FieldConstants.MFVEC3F));
+        assertFalse("SFRotation", ExternalBulkUpdate.isMultiValued(FieldConstants.SFROTATION));
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,177 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.neteai;
+
+// Standard imports
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Application specific imports
+import org.web3d.vrml.nodes.VRMLClock;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.nodes.VRMLTimeListener;
+
+import vrml.eai.Node;
+
+/**
+ * A network EAI server and client joined over the loopback interface, for
+ * tests and benchmarks.
+ * <p>
+ *
+ * There is no browser behind the server. Nodes are created directly and
+ * handed to the server with {@link #addNode(VRMLNodeType)}. The clock only
+ * ticks when {@link #tick()} is called, so the test decides when a frame
+ * ends.
+ */
+class LoopbackConnection implements VRMLClock {
+
+    /** The clock listeners, being the server tasks */
+    private final List<VRMLTimeListener> timeListeners;
+
+    /** The socket the server accepts the connection on */
+    private final ServerSocket serverSocket;
+
+    /** The server side of the connection */
+    private final ServerBrowser serverBrowser;
+
+    /** The server task, once the connection has been accepted */
+    private volatile ServerProcessingTask serverTask;
+
+    /** The client side of the connection */
+    private final NetworkBrowserClient client;
+
+    /** The current time of the clock */
+    private long time;
+
+    /**
+     * Open the server and connect the client to it.
+     *
+     * @throws IOException The connection could not be made
+     */
+    LoopbackConnection() throws IOException {
+        timeListeners = new CopyOnWriteArrayList<>();
+        serverBrowser = new ServerBrowser(null, null);
+
+        InetAddress addr = InetAddress.getLoopbackAddress();
+        serverSocket = new ServerSocket(0, 1, addr);
+
+        Thread accept = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    serverTask = new ServerProcessingTask(socket,
+                                                          serverBrowser,
+                                                          LoopbackConnection.this);
+                    serverTask.run();
+                } catch(IOException ioe) {
+                    ioe.printStackTrace(System.err);
+                }
+            }
+        };
+        accept.setDaemon(true);
+        accept.start();
+
+        client = new NetworkBrowserClient(addr, serverSocket.getLocalPort());
+    }
+
+    //----------------------------------------------------------
+    // Methods defined by VRMLClock
+    //----------------------------------------------------------
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    @Override
+    public long getWallTime() {
+        return time * 1000;
+    }
+
+    @Override
+    public void resetTimeZero() {
+        time = 0;
+    }
+
+    @Override
+    public void addTimeListener(VRMLTimeListener l) {
+        timeListeners.add(l);
+    }
+
+    @Override
+    public void removeTimeListener(VRMLTimeListener l) {
+        timeListeners.remove(l);
+    }
+
+    //----------------------------------------------------------
+    // Local methods
+    //----------------------------------------------------------
+
+    /**
+     * End the frame by ticking the clock.
+     */
+    void tick() {
+        time++;
+
+        for(VRMLTimeListener l : timeListeners)
+            l.timeClick(time);
+    }
+
+    /**
+     * Make a node available to the client.
+     *
+     * @param node The server side node
+     * @return The client side node
+     */
+    Node addNode(VRMLNodeType node) {
+        int id = serverBrowser.generateNodeID(node);
+        return new NetEAINode(id, client.requestProcessor);
+    }
+
+    /**
+     * Get the client side browser.
+     *
+     * @return The client
+     */
+    NetworkBrowserClient getClient() {
+        return client;
+    }
+
+    /**
+     * Get the server task handling the connection.
+     *
+     * @return The server task
+     */
+    ServerProcessingTask getServerTask() {
+        return serverTask;
+    }
+
+    /**
+     * Shut down both ends.
+     */
+    void close() {
+        client.dispose();
+
+        try {
+            serverSocket.close();
+        } catch(IOException ioe) {
+            // Ignored
+        }
+    }
+}
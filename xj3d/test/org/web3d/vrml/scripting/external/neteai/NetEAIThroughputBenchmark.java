@@ -0,0 +1,202 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.neteai;
+
+// Standard imports
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Application specific imports
+import org.web3d.vrml.renderer.norender.nodes.shape.NRMaterial;
+
+import vrml.eai.event.VrmlEvent;
+import vrml.eai.event.VrmlEventListener;
+import vrml.eai.field.EventOut;
+import vrml.eai.field.EventOutSFFloat;
+
+/**
+ * Throughput comparison of the per-request network EAI protocol against
+ * batched requests and coalesced field subscriptions, over the loopback
+ * interface.
+ * <p>
+ *
+ * Not a unit test. Run from the command line with optional arguments of the
+ * number of fields and the number of frames:
+ * <pre>
+ * java org.web3d.vrml.scripting.external.neteai.NetEAIThroughputBenchmark 1000 20
+ * </pre>
+ * The polling runs read every field each frame, one request per field
+ * against one batch for all of them. The push runs change every field
+ * twice per frame on the server and wait for the client to be told,
+ * one message per change against one packet per frame.
+ */
+public class NetEAIThroughputBenchmark {
+
+    /** Number of untimed frames to let the JIT settle */
+    private static final int WARMUP_FRAMES = 5;
+
+    /** Number of times each field is changed per frame in the push runs */
+    private static final int CHANGES_PER_FRAME = 2;
+
+    /** The server side nodes */
+    private static NRMaterial[] materials;
+
+    /** Index of the field changed */
+    private static int transparency;
+
+    /** The client side browser */
+    private static NetworkBrowserClient client;
+
+    /** The client side fields */
+    private static EventOut[] fields;
+
+    /** The number of events the client has received */
+    private static final AtomicInteger received = new AtomicInteger();
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Optional field and frame counts
+     */
+    public static void main(String[] args) throws Exception {
+        int num_fields = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int num_frames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        LoopbackConnection connection = new LoopbackConnection();
+        client = connection.getClient();
+
+        materials = new NRMaterial[num_fields];
+        fields = new EventOut[num_fields];
+
+        FieldRequestBatch batch = new FieldRequestBatch();
+        for(int i = 0; i < num_fields; i++) {
+            materials[i] = new NRMaterial();
+            materials[i].setupFinished();
+            batch.addGetEventOut(connection.addNode(materials[i]), "transparency");
+        }
+
+        transparency = materials[0].getFieldIndex("transparency");
+        client.processBatch(batch);
+
+        VrmlEventListener counter = new VrmlEventListener() {
+            @Override
+            public void eventOutChanged(VrmlEvent evt) {
+                received.incrementAndGet();
+            }
+        };
+
+        for(int i = 0; i < num_fields; i++)
+            fields[i] = batch.getEventOut(i);
+
+        System.out.println("Fields: " + num_fields + " frames: " + num_frames);
+
+        pollSingle(WARMUP_FRAMES);
+        long time = pollSingle(num_frames);
+        report("Per-field getValue", time, num_fields, num_frames);
+
+        pollBatch(WARMUP_FRAMES);
+        time = pollBatch(num_frames);
+        report("Batched getFieldValue", time, num_fields, num_frames);
+
+        for(int i = 0; i < num_fields; i++)
+            fields[i].addVrmlEventListener(counter);
+
+        push(connection, WARMUP_FRAMES, CHANGES_PER_FRAME);
+        time = push(connection, num_frames, CHANGES_PER_FRAME);
+        report("Per-change broadcast", time, num_fields, num_frames);
+
+        client.subscribeFields(fields, num_fields);
+
+        push(connection, WARMUP_FRAMES, 1);
+        time = push(connection, num_frames, 1);
+        report("Coalesced subscription", time, num_fields, num_frames);
+
+        connection.close();
+    }
+
+    /**
+     * Read every field with a request each.
+     */
+    private static long pollSingle(int frames) {
+        long start = System.nanoTime();
+
+        for(int f = 0; f < frames; f++) {
+            for(int i = 0; i < fields.length; i++)
+                ((EventOutSFFloat)fields[i]).getValue();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Read every field with one batch per frame.
+     */
+    private static long pollBatch(int frames) {
+        FieldRequestBatch batch = new FieldRequestBatch();
+        long start = System.nanoTime();
+
+        for(int f = 0; f < frames; f++) {
+            batch.clear();
+            for(int i = 0; i < fields.length; i++)
+                batch.addGetFieldValue(fields[i]);
+
+            client.processBatch(batch);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Change every field on the server and wait for the client to be told
+     * about each one.
+     *
+     * @param connection The connection to tick
+     * @param frames The number of frames to run
+     * @param expected The number of events expected per field per frame
+     */
+    private static long push(LoopbackConnection connection,
+                             int frames,
+                             int expected) throws InterruptedException {
+        long start = System.nanoTime();
+        float value = 0;
+
+        for(int f = 0; f < frames; f++) {
+            received.set(0);
+
+            for(int c = 0; c < CHANGES_PER_FRAME; c++) {
+                value = (value + 0.01f) % 1;
+                for(int i = 0; i < materials.length; i++)
+                    materials[i].setValue(transparency, value);
+            }
+
+            connection.tick();
+
+            int target = materials.length * expected;
+            while(received.get() < target)
+                Thread.sleep(1);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Print out the time per frame and the field values delivered per
+     * second.
+     */
+    private static void report(String name, long nanos, int fields, int frames) {
+        double ms = nanos / (frames * 1e6);
+        System.out.printf("%-24s %10.3f ms/frame %12.0f fields/s%n",
+                          name,
+                          ms,
+                          fields * 1000 / ms);
+    }
+}
@@ -0,0 +1,229 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.neteai;
+
+// Standard imports
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+import org.web3d.vrml.renderer.norender.nodes.shape.NRMaterial;
+
+import vrml.eai.Node;
+import vrml.eai.event.VrmlEvent;
+import vrml.eai.event.VrmlEventListener;
+import vrml.eai.field.EventInSFFloat;
+import vrml.eai.field.EventOut;
+import vrml.eai.field.EventOutSFColor;
+import vrml.eai.field.EventOutSFFloat;
+
+/**
+ * A test case to check batched requests and coalesced field changes of the
+ * network EAI, using a client and server joined over the loopback interface.
+ * <p>
+ */
+public class TestFieldRequestBatch extends TestCase {
+
+    /** Time to wait for an event to arrive, in milliseconds */
+    private static final long EVENT_WAIT = 5000;
+
+    /** The joined client and server */
+    private LoopbackConnection connection;
+
+    /** First server side material */
+    private NRMaterial material1;
+
+    /** Second server side material */
+    private NRMaterial material2;
+
+    /** Client side of material1 */
+    private Node node1;
+
+    /** Client side of material2 */
+    private Node node2;
+
+    /** Index of the transparency field */
+    private int transparency;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestFieldRequestBatch(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestFieldRequestBatch.class);
+    }
+
+    @Override
+    public void setUp() throws Exception {
+        material1 = new NRMaterial();
+        material1.setupFinished();
+        material2 = new NRMaterial();
+        material2.setupFinished();
+        transparency = material1.getFieldIndex("transparency");
+
+        connection = new LoopbackConnection();
+        node1 = connection.addNode(material1);
+        node2 = connection.addNode(material2);
+    }
+
+    @Override
+    public void tearDown() {
+        connection.close();
+    }
+
+    /**
+     * Field lookups and reads in one batch, with a bad request that should
+     * not stop the others.
+     */
+    public void testLookupAndRead() {
+        material1.setValue(transparency, 0.25f);
+
+        FieldRequestBatch batch = new FieldRequestBatch();
+        int out1 = batch.addGetEventOut(node1, "transparency");
+        int out2 = batch.addGetEventOut(node2, "diffuseColor");
+        int in1 = batch.addGetEventIn(node1, "transparency");
+        int bad = batch.addGetEventOut(node1, "notAField");
+
+        connection.getClient().processBatch(batch);
+
+        assertEquals("Size", 4, batch.size());
+        assertTrue("Wrong eventOut type", batch.getEventOut(out1) instanceof EventOutSFFloat);
+        assertTrue("Wrong color type", batch.getEventOut(out2) instanceof EventOutSFColor);
+        assertTrue("Wrong eventIn type", batch.getEventIn(in1) instanceof EventInSFFloat);
+        assertNotNull("Bad field not reported", batch.getException(bad));
+        assertNull("Good field reported", batch.getException(out1));
+
+        EventOut trans = batch.getEventOut(out1);
+        EventOut color = batch.getEventOut(out2);
+
+        batch.clear();
+        int value1 = batch.addGetFieldValue(trans);
+        int value2 = batch.addGetFieldValue(color);
+        connection.getClient().processBatch(batch);
+
+        assertEquals("Transparency", 0.25f,
+                     ((EventOutSFFloat)batch.getEventOut(value1)).getValue(), 0);
+        assertEquals("Diffuse red", 0.8f,
+                     ((EventOutSFColor)batch.getEventOut(value2)).getValue()[0], 0.0001f);
+    }
+
+    /**
+     * Sets made between beginUpdate and endUpdate are sent together and
+     * applied by the time endUpdate returns.
+     */
+    public void testBatchedSets() {
+        NetworkBrowserClient client = connection.getClient();
+
+        FieldRequestBatch batch = new FieldRequestBatch();
+        int in1 = batch.addGetEventIn(node1, "transparency");
+        int in2 = batch.addGetEventIn(node2, "transparency");
+        client.processBatch(batch);
+
+        client.beginUpdate();
+        ((EventInSFFloat)batch.getEventIn(in1)).setValue(0.5f);
+        ((EventInSFFloat)batch.getEventIn(in2)).setValue(0.75f);
+
+        assertEquals("Set before endUpdate", 0, material1.getFieldValue(transparency).floatValue, 0);
+
+        client.endUpdate();
+
+        assertEquals("First set", 0.5f, material1.getFieldValue(transparency).floatValue, 0);
+        assertEquals("Second set", 0.75f, material2.getFieldValue(transparency).floatValue, 0);
+    }
+
+    /**
+     * Subscribed fields should arrive once per frame with repeated changes
+     * folded together and unchanged values left out.
+     */
+    public void testSubscription() throws Exception {
+        NetworkBrowserClient client = connection.getClient();
+        final LinkedBlockingQueue<VrmlEvent> events = new LinkedBlockingQueue<>();
+        VrmlEventListener l = new VrmlEventListener() {
+            @Override
+            public void eventOutChanged(VrmlEvent evt) {
+                events.add(evt);
+            }
+        };
+
+        EventOut[] fields = {
+            node1.getEventOut("transparency"),
+            node2.getEventOut("transparency")
+        };
+
+        fields[0].addVrmlEventListener(l);
+        fields[1].addVrmlEventListener(l);
+        client.subscribeFields(fields, 2);
+
+        FieldChangeCoalescer changes = connection.getServerTask().fieldChanges;
+
+        material1.setValue(transparency, 0.1f);
+        material1.setValue(transparency, 0.2f);
+        material1.setValue(transparency, 0.3f);
+        material2.setValue(transparency, 0.4f);
+
+        assertNull("Sent before the frame", events.poll(100, TimeUnit.MILLISECONDS));
+
+        connection.tick();
+
+        VrmlEvent e1 = events.poll(EVENT_WAIT, TimeUnit.MILLISECONDS);
+        VrmlEvent e2 = events.poll(EVENT_WAIT, TimeUnit.MILLISECONDS);
+        assertNotNull("First change missing", e1);
+        assertNotNull("Second change missing", e2);
+        assertEquals("Latest value", 0.3f, ((EventOutSFFloat)e1.getSource()).getValue(), 0);
+        assertEquals("Second value", 0.4f, ((EventOutSFFloat)e2.getSource()).getValue(), 0);
+        assertEquals("Frame time", 1, e1.getTime(), 0);
+
+        assertEquals("Coalesced", 2, changes.getCoalescedCount());
+        assertEquals("Sent", 2, changes.getSentCount());
+        assertEquals("Frames", 1, changes.getFrameCount());
+
+        // Same value again is not sent
+        material1.setValue(transparency, 0.3f);
+        connection.tick();
+
+        assertEquals("Suppressed", 1, changes.getSuppressedCount());
+        assertEquals("Empty frame sent", 1, changes.getFrameCount());
+
+        // Once unsubscribed, changes are broadcast individually again
+        client.unsubscribeFields(fields, 1);
+        material1.setValue(transparency, 0.6f);
+
+        VrmlEvent e3 = events.poll(EVENT_WAIT, TimeUnit.MILLISECONDS);
+        assertNotNull("Individual change missing", e3);
+        assertEquals("Individual value", 0.6f, ((EventOutSFFloat)e3.getSource()).getValue(), 0);
+        assertNull("Unexpected event", events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
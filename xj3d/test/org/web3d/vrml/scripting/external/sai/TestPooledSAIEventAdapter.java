@@ -0,0 +1,337 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.web3d.vrml.scripting.external.sai;
+
+// Standard imports
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.j3d.util.ErrorReporter;
+
+// Application specific imports
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.renderer.norender.nodes.render.NRCoordinate;
+import org.web3d.vrml.scripting.external.buffer.ExternalEventAdapter;
+import org.web3d.vrml.scripting.external.buffer.ExternalOutputBuffer;
+
+import org.web3d.x3d.sai.X3DField;
+import org.web3d.x3d.sai.X3DFieldDefinition;
+import org.web3d.x3d.sai.X3DFieldEvent;
+import org.web3d.x3d.sai.X3DFieldEventListener;
+
+/**
+ * A test case to check the lock free, pooled delivery of SAI field events.
+ * <p>
+ */
+public class TestPooledSAIEventAdapter extends TestCase {
+
+    /** Number of events to send in each test */
+    private static final int NUM_EVENTS = 50;
+
+    /** Minimal output buffer handed out by the field factory */
+    private static class StubBuffer implements X3DField, ExternalOutputBuffer {
+        @Override
+        public X3DFieldDefinition getDefinition() { return null; }
+        @Override
+        public boolean isReadable() { return true; }
+        @Override
+        public boolean isWritable() { return false; }
+        @Override
+        public void addX3DEventListener(X3DFieldEventListener l) { }
+        @Override
+        public void removeX3DEventListener(X3DFieldEventListener l) { }
+        @Override
+        public void setUserData(Object data) { }
+        @Override
+        public Object getUserData() { return null; }
+        @Override
+        public void initialize(VRMLNodeType srcNode, int fieldNumber) { }
+        @Override
+        public void loadOutputValue() { }
+        @Override
+        public void reset() { }
+    }
+
+    /** Field factory that counts the buffers it creates */
+    private static class StubFieldFactory implements SAIFieldFactory {
+        int created;
+
+        @Override
+        public X3DField getField(VRMLNodeType node, int field, String name) {
+            return null;
+        }
+
+        @Override
+        public X3DField getField(VRMLNodeType node, String name) {
+            return null;
+        }
+
+        @Override
+        public X3DField getStoredField(VRMLNodeType node, int field,
+                                       String name, boolean isInput) {
+            created++;
+            return new StubBuffer();
+        }
+    }
+
+    /** Listener that records the timestamps it was sent */
+    private static class RecordingListener implements X3DFieldEventListener {
+        final List<Double> times = new ArrayList<>();
+        CountDownLatch gate;
+        CountDownLatch entered;
+        boolean fail;
+
+        @Override
+        public void readableFieldChanged(X3DFieldEvent evt) {
+            if(entered != null)
+                entered.countDown();
+
+            try {
+                if(gate != null)
+                    gate.await(5, TimeUnit.SECONDS);
+            } catch(InterruptedException ie) {
+            }
+
+            synchronized(times) {
+                times.add(evt.getTime());
+            }
+
+            if(fail)
+                throw new IllegalStateException("Listener failure");
+        }
+    }
+
+    /** Reporter that counts the errors sent to it */
+    private static class CountingReporter implements ErrorReporter {
+        int errors;
+
+        @Override
+        public void partialReport(String msg) { }
+        @Override
+        public void messageReport(String msg) { }
+        @Override
+        public void warningReport(String msg, Throwable th) { }
+        @Override
+        public synchronized void errorReport(String msg, Throwable th) {
+            errors++;
+        }
+        @Override
+        public void fatalErrorReport(String msg, Throwable th) { }
+    }
+
+    /** The node the events are generated for */
+    private NRCoordinate node;
+
+    /** The field of the node the events are generated for */
+    private int field;
+
+    /** The factory under test */
+    private PooledSAIEventAdapterFactory factory;
+
+    /** The field factory handing out buffers */
+    private StubFieldFactory fieldFactory;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestPooledSAIEventAdapter(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestPooledSAIEventAdapter.class);
+    }
+
+    @Override
+    public void setUp() {
+        node = new NRCoordinate();
+        field = node.getFieldIndex("point");
+        fieldFactory = new StubFieldFactory();
+    }
+
+    @Override
+    public void tearDown() {
+        if(factory != null)
+            factory.shutdown();
+
+        factory = null;
+    }
+
+    /**
+     * Every event should arrive in order with the buffers being recycled.
+     */
+    public void testDelivery() throws Exception {
+        createFactory(false);
+
+        RecordingListener l = new RecordingListener();
+        ExternalEventAdapter adapter = factory.getAdapter(node);
+        adapter.addListener(field, l);
+
+        assertSame("Adapter not mapped", adapter, factory.getAdapter(node));
+
+        for(int i = 1; i <= NUM_EVENTS; i++)
+            adapter.generateBroadcast(field, i);
+
+        SAIEventDeliveryPool pool = factory.getDeliveryPool();
+        waitForDelivery(pool, NUM_EVENTS);
+
+        assertEquals("Event count", NUM_EVENTS, l.times.size());
+        for(int i = 0; i < NUM_EVENTS; i++)
+            assertEquals("Event order", i + 1, l.times.get(i), 0);
+
+        assertEquals("Queue not empty", 0, pool.getQueueDepth());
+        assertTrue("No max depth", pool.getMaxQueueDepth() > 0);
+        assertTrue("No latency", pool.getMaxLatency() > 0);
+        assertTrue("Average over max",
+                   pool.getAverageLatency() <= pool.getMaxLatency());
+
+        // Once everything is back in the pool, no new buffers are needed
+        int created = fieldFactory.created;
+        adapter.generateBroadcast(field, NUM_EVENTS + 1);
+        waitForDelivery(pool, NUM_EVENTS + 1);
+
+        assertEquals("Buffers not recycled", created, fieldFactory.created);
+    }
+
+    /**
+     * Events backed up behind a slow listener should be replaced with the
+     * latest value when coalescing.
+     */
+    public void testCoalescing() throws Exception {
+        createFactory(true);
+
+        RecordingListener l = new RecordingListener();
+        l.gate = new CountDownLatch(1);
+        l.entered = new CountDownLatch(1);
+
+        ExternalEventAdapter adapter = factory.getAdapter(node);
+        adapter.addListener(field, l);
+
+        // Hold the listener in the first event while the rest are sent
+        adapter.generateBroadcast(field, 1);
+        assertTrue("First event not delivered",
+                   l.entered.await(5, TimeUnit.SECONDS));
+
+        for(int i = 2; i <= NUM_EVENTS; i++)
+            adapter.generateBroadcast(field, i);
+
+        SAIEventDeliveryPool pool = factory.getDeliveryPool();
+        assertEquals("Coalesced count", NUM_EVENTS - 2, pool.getCoalescedCount());
+        assertEquals("Queue depth", 1, pool.getQueueDepth());
+
+        l.gate.countDown();
+        waitForDelivery(pool, 2);
+
+        assertEquals("Event count", 2, l.times.size());
+        assertEquals("First value", 1, l.times.get(0), 0);
+        assertEquals("Latest value", NUM_EVENTS, l.times.get(1), 0);
+    }
+
+    /**
+     * Removing the last listener should stop delivery and release the
+     * listener queue.
+     */
+    public void testRemoveListener() throws Exception {
+        createFactory(false);
+
+        RecordingListener l = new RecordingListener();
+        ExternalEventAdapter adapter = factory.getAdapter(node);
+        adapter.addListener(field, l);
+
+        SAIEventDeliveryPool pool = factory.getDeliveryPool();
+        assertEquals("Listener count", 1, pool.getListenerCount());
+
+        adapter.removeListener(field, l);
+        assertEquals("Listener queue kept", 0, pool.getListenerCount());
+
+        adapter.generateBroadcast(field, 1);
+        Thread.sleep(50);
+
+        assertEquals("Event after removal", 0, l.times.size());
+        assertEquals("Nothing delivered", 0, pool.getDeliveredCount());
+    }
+
+    /**
+     * Exceptions thrown by a listener should go to the error reporter and
+     * not stop the events that follow.
+     */
+    public void testListenerError() throws Exception {
+        CountingReporter reporter = new CountingReporter();
+        factory = new PooledSAIEventAdapterFactory(1, false, null, reporter);
+        factory.setFieldFactory(fieldFactory);
+
+        RecordingListener l = new RecordingListener();
+        l.fail = true;
+
+        ExternalEventAdapter adapter = factory.getAdapter(node);
+        adapter.addListener(field, l);
+
+        adapter.generateBroadcast(field, 1);
+        adapter.generateBroadcast(field, 2);
+
+        waitForDelivery(factory.getDeliveryPool(), 2);
+
+        assertEquals("Event count", 2, l.times.size());
+
+        synchronized(reporter) {
+            assertEquals("Errors not reported", 2, reporter.errors);
+        }
+    }
+
+    /**
+     * Create the factory under test.
+     *
+     * @param coalesce true to coalesce events
+     */
+    private void createFactory(boolean coalesce) {
+        factory = new PooledSAIEventAdapterFactory(1, coalesce, null, null);
+        factory.setFieldFactory(fieldFactory);
+    }
+
+    /**
+     * Wait for the pool to deliver the given number of events.
+     */
+    private void waitForDelivery(SAIEventDeliveryPool pool, int count)
+        throws InterruptedException {
+
+        long end = System.currentTimeMillis() + 5000;
+
+        while(pool.getDeliveredCount() < count &&
+              System.currentTimeMillis() < end)
+            Thread.sleep(5);
+
+        assertEquals("Delivered count", count, pool.getDeliveredCount());
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
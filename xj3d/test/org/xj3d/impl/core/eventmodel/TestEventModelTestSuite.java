@@ -0,0 +1,26 @@
+package org.xj3d.impl.core.eventmodel;
+
+// External Tests
+import junit.framework.TestSuite;
+import junit.framework.Test;
+
+// Internal Tests
+
+/**
+ * Top level test suite for the event model implementation package
+ * @author agent
+ * @version
+ */
+public class TestEventModelTestSuite extends TestSuite {
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Event Model Tests");
+
+        suite.addTest(TestRollingHistogram.suite());
+
+        return suite;
+    }
+
+    public static void main (String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.impl.core.eventmodel;
+
+// Standard imports
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+// None
+
+/**
+ * Tests for the rolling histogram used by the event model profiler.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class TestRollingHistogram extends TestCase {
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestRollingHistogram(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestRollingHistogram.class);
+    }
+
+    /**
+     * Test that every value falls in a bucket whose bounds contain it and
+     * that the bucket resolution is within 25%.
+     */
+    public void testBucketBounds() {
+        RollingHistogram hist = new RollingHistogram(1);
+        int[] counts = null;
+
+        long[] values = { 0, 1, 7, 8, 9, 15, 16, 1000, 123456789L,
+                          1L << 40, Long.MAX_VALUE };
+
+        for(long v : values) {
+            hist.add(v);
+            counts = hist.getBucketCounts(counts);
+
+            int bucket = -1;
+            for(int i = 0; i < counts.length; i++) {
+                if(counts[i] != 0)
+                    bucket = i;
+            }
+
+            long upper = RollingHistogram.bucketUpperBound(bucket);
+            long lower = (bucket == 0) ?
+                0 : RollingHistogram.bucketUpperBound(bucket - 1) + 1;
+
+            assertTrue("Value " + v + " above its bucket", v <= upper);
+            assertTrue("Value " + v + " below its bucket", v >= lower);
+            assertTrue("Bucket too wide for " + v,
+                       (upper - lower) <= Math.max(1, lower / 4));
+        }
+    }
+
+    /**
+     * Test the statistics before and after the window fills.
+     */
+    public void testWindow() {
+        RollingHistogram hist = new RollingHistogram(4);
+
+        assertEquals("Empty mean", 0.0, hist.getMean());
+        assertEquals("Empty percentile", 0, hist.getPercentile(0.5));
+
+        hist.add(2);
+        hist.add(4);
+        hist.add(6);
+
+        assertEquals("Wrong count", 3, hist.getCount());
+        assertEquals("Wrong mean", 4.0, hist.getMean());
+        assertEquals("Wrong max", 6, hist.getMax());
+        assertEquals("Wrong median", 4, hist.getPercentile(0.5));
+
+        // Push out 2 and 4, leaving 6, 6, 7, 7
+        hist.add(6);
+        hist.add(7);
+        hist.add(7);
+
+        assertEquals("Window not full", 4, hist.getCount());
+        assertEquals("Wrong rolled mean", 6.5, hist.getMean());
+        assertEquals("Wrong rolled max", 7, hist.getMax());
+        assertEquals("Wrong rolled minimum", 6, hist.getPercentile(0));
+        assertEquals("Wrong rolled p100", 7, hist.getPercentile(1));
+
+        hist.clear();
+        assertEquals("Not cleared", 0, hist.getCount());
+        assertEquals("Max not cleared", 0, hist.getMax());
+    }
+
+    /**
+     * Test that large percentiles are reported to within 25%.
+     */
+    public void testPercentile() {
+        RollingHistogram hist = new RollingHistogram(1000);
+
+        for(int i = 1; i <= 1000; i++)
+            hist.add(i * 1000L);
+
+        long p50 = hist.getPercentile(0.5);
+        long p99 = hist.getPercentile(0.99);
+
+        assertTrue("Median too small", p50 >= 500000);
+        assertTrue("Median too large", p50 <= 500000 * 5 / 4);
+        assertTrue("p99 too small", p99 >= 990000);
+        assertTrue("p99 too large", p99 <= 990000 * 5 / 4);
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,27 @@
+package org.xj3d.ui.construct.norender;
+
+// External Tests
+import junit.framework.TestSuite;
+import junit.framework.Test;
+
+// Internal Tests
+
+/**
+ * Top level test suite for the headless browser construct package
+ * @author agent
+ * @version
+ */
+public class TestConstructTestSuite extends TestSuite {
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Headless Construct Tests");
+
+        suite.addTest(TestFrameStepper.suite());
+        suite.addTest(TestEventModelProfiler.suite());
+
+        return suite;
+    }
+
+    public static void main (String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+}
\ No newline at end of file
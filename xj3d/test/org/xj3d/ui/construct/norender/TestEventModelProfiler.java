@@ -0,0 +1,269 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.ui.construct.norender;
+
+// Standard imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+import org.web3d.vrml.lang.TypeConstants;
+import org.web3d.vrml.nodes.VRMLNodeType;
+import org.web3d.vrml.renderer.norender.nodes.navigation.NRViewpoint;
+import org.web3d.vrml.sav.InputSource;
+
+import org.xj3d.core.eventmodel.BindableNodeManager;
+import org.xj3d.core.eventmodel.NodeManager;
+
+import org.xj3d.impl.core.eventmodel.DefaultEventModelEvaluator;
+import org.xj3d.impl.core.eventmodel.EventModelProfiler;
+import org.xj3d.impl.core.eventmodel.PhaseTimer;
+
+/**
+ * Tests for the event model profiler, run over the headless browser.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class TestEventModelProfiler extends TestCase {
+
+    /** The test world, an animation driven through two routes */
+    private static final String WORLD =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<X3D profile='Interchange' version='3.0'>\n" +
+        "<Scene>\n" +
+        "<Transform DEF='MOVER'/>\n" +
+        "<TimeSensor DEF='CLOCK' cycleInterval='1' loop='true'/>\n" +
+        "<PositionInterpolator DEF='PATH' key='0 1' keyValue='0 0 0 1 0 0'/>\n" +
+        "<ROUTE fromNode='CLOCK' fromField='fraction_changed' " +
+        "toNode='PATH' toField='set_fraction'/>\n" +
+        "<ROUTE fromNode='PATH' fromField='value_changed' " +
+        "toNode='MOVER' toField='translation'/>\n" +
+        "</Scene>\n" +
+        "</X3D>\n";
+
+    /** The number of frames to step */
+    private static final int NUM_FRAMES = 50;
+
+    /** The stepper shared by all tests */
+    private static FrameStepper stepper;
+
+    /** The evaluator of the stepper */
+    private static DefaultEventModelEvaluator evaluator;
+
+    /** The profiler under test */
+    private EventModelProfiler profiler;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestEventModelProfiler(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestEventModelProfiler.class);
+    }
+
+    /**
+     * Build the browser once, load the world and create a fresh profiler.
+     */
+    @Override
+    public void setUp() throws IOException {
+        if(stepper == null) {
+            NRConstruct construct = new NRConstruct();
+            construct.buildAll();
+
+            stepper = new FrameStepper(construct);
+            stepper.setTimingEnabled(false);
+
+            evaluator =
+                (DefaultEventModelEvaluator)construct.getEventModelEvaluator();
+
+            File world = File.createTempFile("profiler", ".x3d");
+            world.deleteOnExit();
+
+            try (Writer out = new FileWriter(world)) {
+                out.write(WORLD);
+            }
+
+            assertTrue("World did not load",
+                       stepper.loadWorld(new InputSource(world.toURI().toURL())));
+        }
+
+        profiler = new EventModelProfiler(evaluator, 20);
+    }
+
+    /**
+     * Make sure no test leaves profiling on.
+     */
+    @Override
+    public void tearDown() throws JMException {
+        profiler.setEnabled(false);
+        profiler.unregister();
+    }
+
+    /**
+     * Test that enabling and disabling the profiler adds and removes the
+     * timer on the evaluator.
+     */
+    public void testEnable() {
+        assertNull("Timer set while disabled", evaluator.getPhaseTimer());
+
+        profiler.setEnabled(true);
+        assertTrue("Not enabled", profiler.isEnabled());
+        assertNotNull("No timer while enabled", evaluator.getPhaseTimer());
+
+        profiler.setEnabled(false);
+        assertFalse("Still enabled", profiler.isEnabled());
+        assertNull("Timer left after disable", evaluator.getPhaseTimer());
+
+        stepper.run(5);
+        assertEquals("Profiled while disabled", 0, profiler.getFramesProfiled());
+    }
+
+    /**
+     * Test that the statistics describe the frames stepped.
+     */
+    public void testStatistics() {
+        profiler.setEnabled(true);
+        stepper.run(NUM_FRAMES);
+
+        assertEquals("Wrong frame count", NUM_FRAMES, profiler.getFramesProfiled());
+        assertTrue("No frame time", profiler.getMeanFrameTime() > 0);
+        assertTrue("Max below median",
+                   profiler.getMaxFrameTime() * 5 / 4 >= profiler.getMedianFrameTime());
+
+        assertTrue("No cascade", profiler.getMeanCascadeDepth() >= 1);
+
+        double[] events = profiler.getMeanPhaseEvents();
+        assertEquals("Wrong number of phases", PhaseTimer.NUM_PHASES, events.length);
+
+        // Both routes in the world fire every frame, in whatever pass the
+        // router order puts them
+        assertTrue("Missing route events", events[PhaseTimer.ROUTES] >= 2);
+
+        double[] times = profiler.getMeanPhaseTimes();
+        double total = 0;
+        for(double t : times)
+            total += t;
+
+        assertEquals("Phases do not add to frame time",
+                     profiler.getMeanFrameTime(),
+                     total,
+                     1);
+
+        NodeManager[] managers = evaluator.getNodeManagers();
+        int num_managers = (managers == null) ? 0 : managers.length;
+
+        assertEquals("Wrong number of managers",
+                     num_managers,
+                     profiler.getNodeManagerNames().length);
+        assertEquals("Wrong number of manager times",
+                     num_managers,
+                     profiler.getMeanNodeManagerTimes().length);
+
+        profiler.reset();
+        assertEquals("Not reset", 0, profiler.getFramesProfiled());
+        assertEquals("Histogram not reset", 0.0, profiler.getMeanFrameTime());
+    }
+
+    /**
+     * Test that a bindable added while profiling reaches its manager and is
+     * counted.
+     */
+    public void testAddedBindable() {
+        profiler.setEnabled(true);
+
+        VRMLNodeType mover =
+            (VRMLNodeType)stepper.getScene().getDEFNodes().get("MOVER");
+
+        NRViewpoint viewpoint = new NRViewpoint();
+        viewpoint.setupFinished();
+
+        mover.setValue(mover.getFieldIndex("addChildren"), viewpoint);
+        stepper.run(2);
+
+        int[] layers = viewpoint.getLayerIds();
+        assertNotNull("Viewpoint not added to a layer", layers);
+
+        BindableNodeManager mgr =
+            evaluator.getLayerManager(layers[0]).getBindableManager(
+                TypeConstants.ViewpointNodeType);
+
+        assertTrue("Viewpoint not registered", mgr.contains(viewpoint));
+
+        double[] events = profiler.getMeanPhaseEvents();
+        assertTrue("Bindable not counted", events[PhaseTimer.BINDABLES] > 0);
+
+        mover.setValue(mover.getFieldIndex("removeChildren"), viewpoint);
+        stepper.run(2);
+
+        assertFalse("Viewpoint not removed", mgr.contains(viewpoint));
+    }
+
+    /**
+     * Test that the profiler can be read through the platform MBean server.
+     */
+    public void testMBean() throws JMException {
+        ObjectName name =
+            new ObjectName(EventModelProfiler.DEFAULT_OBJECT_NAME + ",name=test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        profiler.register(name);
+        assertTrue("Not registered", server.isRegistered(name));
+
+        server.setAttribute(name, new Attribute("Enabled", true));
+        assertTrue("Not enabled through the server", profiler.isEnabled());
+
+        stepper.run(NUM_FRAMES);
+
+        Long frames = (Long)server.getAttribute(name, "FramesProfiled");
+        assertEquals("Wrong frame count", NUM_FRAMES, frames.longValue());
+
+        String[] phases = (String[])server.getAttribute(name, "PhaseNames");
+        assertEquals("Wrong phase name", "routes", phases[PhaseTimer.ROUTES]);
+
+        profiler.unregister();
+        assertFalse("Still registered", server.isRegistered(name));
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}
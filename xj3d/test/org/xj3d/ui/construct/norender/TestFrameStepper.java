@@ -0,0 +1,242 @@
+/*****************************************************************************
+ *                        Web3d.org Copyright (c) 2026
+ *                               Java Source
+ *
+ * This source is licensed under the GNU LGPL v2.1
+ * Please read http://www.gnu.org/copyleft/lgpl.html for more information
+ *
+ * This software comes with the standard NO WARRANTY disclaimer for any
+ * purpose. Use it at your own risk. If there's a problem you get to fix it.
+ *
+ ****************************************************************************/
+
+package org.xj3d.ui.construct.norender;
+
+// Standard imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+// Application specific imports
+import org.web3d.vrml.renderer.common.nodes.group.BaseTransform;
+
+import org.web3d.vrml.sav.InputSource;
+
+import org.xj3d.impl.core.eventmodel.PhaseTimer;
+
+/**
+ * Tests for headless frame stepping of the null renderer.
+ * <p>
+ *
+ * A looping TimeSensor drives a PositionInterpolator that moves a Transform.
+ * Stepping the world twice from the same start must give the same
+ * translations frame for frame.
+ *
+ * @author agent
+ * @version $Revision: 1.1 $
+ */
+public class TestFrameStepper extends TestCase {
+
+    /** The test world */
+    private static final String WORLD =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<!DOCTYPE X3D PUBLIC \"ISO//Web3D//DTD X3D 3.0//EN\" " +
+        "\"http://www.web3d.org/specifications/x3d-3.0.dtd\">\n" +
+        "<X3D profile='Interchange' version='3.0'>\n" +
+        "<Scene>\n" +
+        "<Transform DEF='MOVER'/>\n" +
+        "<TimeSensor DEF='CLOCK' cycleInterval='1' loop='true'/>\n" +
+        "<PositionInterpolator DEF='PATH' key='0 0.5 1' " +
+        "keyValue='0 0 0 10 0 0 0 0 0'/>\n" +
+        "<ROUTE fromNode='CLOCK' fromField='fraction_changed' " +
+        "toNode='PATH' toField='set_fraction'/>\n" +
+        "<ROUTE fromNode='PATH' fromField='value_changed' " +
+        "toNode='MOVER' toField='translation'/>\n" +
+        "</Scene>\n" +
+        "</X3D>\n";
+
+    /** The number of frames to step */
+    private static final int NUM_FRAMES = 60;
+
+    /** The construct shared by all tests */
+    private static NRConstruct construct;
+
+    /** The stepper shared by all tests */
+    private static FrameStepper stepper;
+
+    /** The world written out to a file */
+    private static File worldFile;
+
+    /**
+     * Create an instance of the test case for this particular test
+     * name.
+     *
+     * @param name The name of the test method to be run
+     */
+    public TestFrameStepper(String name) {
+        super(name);
+    }
+
+    /**
+     * Fetch the suite of tests for this test class to perform.
+     *
+     * @return A collection of all the tests to be run
+     */
+    public static Test suite() {
+        return new TestSuite(TestFrameStepper.class);
+    }
+
+    /**
+     * Build the browser once and write out the world to load.
+     */
+    @Override
+    public void setUp() throws IOException {
+        if(stepper != null)
+            return;
+
+        construct = new NRConstruct();
+        construct.buildAll();
+        stepper = new FrameStepper(construct);
+
+        worldFile = File.createTempFile("stepper", ".x3d");
+        worldFile.deleteOnExit();
+
+        try (Writer out = new FileWriter(worldFile)) {
+            out.write(WORLD);
+        }
+    }
+
+    /**
+     * Test that stepping a world twice gives the same results each time.
+     */
+    public void testDeterministic() throws IOException {
+        float[] first = runWorld();
+        float[] second = runWorld();
+
+        for(int i = 0; i < first.length; i++)
+            assertEquals("Frame " + (i / 3) + " differs", first[i], second[i]);
+
+        // Half way through the cycle the transform is at the far end
+        assertEquals("Wrong position mid cycle", 10, first[(25 - 1) * 3], 0.001f);
+    }
+
+    /**
+     * Test that the clock advances by the tick increment each frame.
+     */
+    public void testClock() throws IOException {
+        runWorld();
+
+        FrameTimingLog log = stepper.getTimingLog();
+
+        assertEquals("Wrong number of frames", NUM_FRAMES, stepper.getFrameCount());
+        assertEquals("Wrong number of timing rows", NUM_FRAMES, log.size());
+
+        for(int i = 0; i < log.size(); i++) {
+            assertEquals("Wrong frame number", i + 1, log.getFrame(i));
+            assertEquals("Wrong frame time",
+                         (i + 1) * FrameStepper.DEFAULT_TICK_INCREMENT,
+                         log.getTime(i));
+        }
+    }
+
+    /**
+     * Test that the phase timings add up to the frame time.
+     */
+    public void testPhaseTimes() throws IOException {
+        runWorld();
+
+        FrameTimingLog log = stepper.getTimingLog();
+
+        for(int i = 0; i < log.size(); i++) {
+            long total = 0;
+
+            for(int j = 0; j < PhaseTimer.NUM_PHASES; j++) {
+                assertTrue("Negative phase time", log.getPhaseTime(i, j) >= 0);
+                total += log.getPhaseTime(i, j);
+            }
+
+            assertEquals("Phases do not add to frame time",
+                         log.getFrameTime(i),
+                         total);
+        }
+    }
+
+    /**
+     * Test that nothing is recorded while timing is disabled.
+     */
+    public void testTimingDisabled() throws IOException {
+        stepper.setTimingEnabled(false);
+
+        try {
+            runWorld();
+            assertEquals("Rows recorded", 0, stepper.getTimingLog().size());
+        } finally {
+            stepper.setTimingEnabled(true);
+        }
+    }
+
+    /**
+     * Test the CSV and JSON export.
+     */
+    public void testExport() throws IOException {
+        runWorld();
+
+        StringWriter csv = new StringWriter();
+        stepper.getTimingLog().writeCSV(csv);
+
+        String[] lines = csv.toString().split("\n");
+        assertEquals("Wrong number of CSV lines", NUM_FRAMES + 1, lines.length);
+        assertEquals("Wrong CSV header",
+                     "frame,time,total,bindables,sensors,nodeManagers," +
+                     "external,scripts,routes,loading,other",
+                     lines[0]);
+        assertEquals("Wrong number of CSV columns",
+                     3 + PhaseTimer.NUM_PHASES,
+                     lines[1].split(",").length);
+
+        StringWriter json = new StringWriter();
+        stepper.getTimingLog().writeJSON(json);
+
+        String str = json.toString().trim();
+        assertTrue("Not a JSON object", str.startsWith("{") && str.endsWith("}"));
+        assertTrue("No frames", str.contains("\"frames\": ["));
+        assertTrue("No last frame", str.contains("\"frame\": " + NUM_FRAMES + ","));
+    }
+
+    /**
+     * Load the world and step it, returning the translation of the
+     * transform after each frame.
+     *
+     * @return The translations, three values per frame
+     */
+    private float[] runWorld() throws IOException {
+        assertTrue("World did not load",
+                   stepper.loadWorld(new InputSource(worldFile.toURI().toURL())));
+
+        BaseTransform mover =
+            (BaseTransform)stepper.getScene().getDEFNodes().get("MOVER");
+
+        float[] ret_val = new float[NUM_FRAMES * 3];
+
+        for(int i = 0; i < NUM_FRAMES; i++) {
+            stepper.step();
+            System.arraycopy(mover.getTranslation(), 0, ret_val, i * 3, 3);
+        }
+
+        return ret_val;
+    }
+
+    /**
+     * Main method to kick everything off with.
+     */
+    public static void main(String[] argv) {
+        TestRunner.run(suite());
+    }
+}